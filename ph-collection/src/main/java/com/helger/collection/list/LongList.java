@@ -0,0 +1,428 @@
+/**
+ * Copyright (C) 2014-2017 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.collection.list;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+import java.util.function.LongPredicate;
+import java.util.stream.LongStream;
+
+import javax.annotation.CheckForSigned;
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.ReturnsMutableCopy;
+import com.helger.commons.annotation.ReturnsMutableObject;
+import com.helger.commons.equals.EqualsHelper;
+import com.helger.commons.hashcode.HashCodeGenerator;
+import com.helger.commons.lang.ICloneable;
+import com.helger.commons.lang.IHasSize;
+import com.helger.commons.string.ToStringGenerator;
+
+/**
+ * A growable list of primitive <code>long</code> values. Compared to a
+ * <code>CommonsArrayList&lt;Long&gt;</code> no element is boxed.
+ *
+ * @author Philip Helger
+ * @since 9.0.0
+ */
+@NotThreadSafe
+public class LongList implements IHasSize, ICloneable <LongList>, Serializable
+{
+  private static final long [] EMPTY = new long [0];
+  private static final int DEFAULT_CAPACITY = 10;
+
+  private long [] m_aData;
+  private int m_nSize;
+
+  public LongList ()
+  {
+    m_aData = EMPTY;
+  }
+
+  public LongList (@Nonnegative final int nInitialCapacity)
+  {
+    ValueEnforcer.isGE0 (nInitialCapacity, "InitialCapacity");
+    m_aData = nInitialCapacity == 0 ? EMPTY : new long [nInitialCapacity];
+  }
+
+  /**
+   * Constructor
+   *
+   * @param aValues
+   *        The values to be copied. May not be <code>null</code>.
+   */
+  public LongList (@Nonnull final long [] aValues)
+  {
+    ValueEnforcer.notNull (aValues, "Values");
+    m_aData = aValues.clone ();
+    m_nSize = aValues.length;
+  }
+
+  /**
+   * Copy constructor
+   *
+   * @param aOther
+   *        The list to be copied. May not be <code>null</code>.
+   */
+  public LongList (@Nonnull final LongList aOther)
+  {
+    ValueEnforcer.notNull (aOther, "Other");
+    m_aData = Arrays.copyOf (aOther.m_aData, aOther.m_nSize);
+    m_nSize = aOther.m_nSize;
+  }
+
+  @Nonnegative
+  public int size ()
+  {
+    return m_nSize;
+  }
+
+  public boolean isEmpty ()
+  {
+    return m_nSize == 0;
+  }
+
+  /**
+   * @return The number of elements that can be stored without growing.
+   */
+  @Nonnegative
+  public int getCapacity ()
+  {
+    return m_aData.length;
+  }
+
+  /**
+   * Make sure that at least the provided number of elements can be stored
+   * without growing.
+   *
+   * @param nMinCapacity
+   *        The minimum capacity.
+   */
+  public void ensureCapacity (final int nMinCapacity)
+  {
+    if (nMinCapacity > m_aData.length)
+    {
+      // Grow by 50%
+      final int nNewCapacity = Math.max (nMinCapacity,
+                                         Math.max (DEFAULT_CAPACITY, m_aData.length + (m_aData.length >> 1)));
+      m_aData = Arrays.copyOf (m_aData, nNewCapacity);
+    }
+  }
+
+  /**
+   * Reduce the capacity to the current size.
+   */
+  public void trimToSize ()
+  {
+    if (m_aData.length > m_nSize)
+      m_aData = m_nSize == 0 ? EMPTY : Arrays.copyOf (m_aData, m_nSize);
+  }
+
+  private void _checkIndex (final int nIndex)
+  {
+    if (nIndex < 0 || nIndex >= m_nSize)
+      throw new IndexOutOfBoundsException ("Index " + nIndex + " is invalid for size " + m_nSize);
+  }
+
+  public long get (final int nIndex)
+  {
+    _checkIndex (nIndex);
+    return m_aData[nIndex];
+  }
+
+  /**
+   * Set the value at the provided index.
+   *
+   * @param nIndex
+   *        The index to set. Must be &ge; 0 and &lt; {@link #size()}.
+   * @param nValue
+   *        The new value.
+   * @return The previous value at the index.
+   */
+  public long set (final int nIndex, final long nValue)
+  {
+    _checkIndex (nIndex);
+    final long ret = m_aData[nIndex];
+    m_aData[nIndex] = nValue;
+    return ret;
+  }
+
+  public void add (final long nValue)
+  {
+    if (m_nSize == m_aData.length)
+      ensureCapacity (m_nSize + 1);
+    m_aData[m_nSize++] = nValue;
+  }
+
+  /**
+   * Insert a value at the provided index, moving all subsequent values.
+   *
+   * @param nIndex
+   *        The index to insert at. Must be &ge; 0 and &le; {@link #size()}.
+   * @param nValue
+   *        The value to insert.
+   */
+  public void add (final int nIndex, final long nValue)
+  {
+    if (nIndex < 0 || nIndex > m_nSize)
+      throw new IndexOutOfBoundsException ("Index " + nIndex + " is invalid for size " + m_nSize);
+    if (m_nSize == m_aData.length)
+      ensureCapacity (m_nSize + 1);
+    System.arraycopy (m_aData, nIndex, m_aData, nIndex + 1, m_nSize - nIndex);
+    m_aData[nIndex] = nValue;
+    m_nSize++;
+  }
+
+  public void addAll (@Nonnull final long... aValues)
+  {
+    addAll (aValues, 0, aValues.length);
+  }
+
+  public void addAll (@Nonnull final long [] aValues, @Nonnegative final int nOfs, @Nonnegative final int nLen)
+  {
+    ValueEnforcer.isArrayOfsLen (aValues, nOfs, nLen);
+    ensureCapacity (m_nSize + nLen);
+    System.arraycopy (aValues, nOfs, m_aData, m_nSize, nLen);
+    m_nSize += nLen;
+  }
+
+  public void addAll (@Nonnull final LongList aOther)
+  {
+    addAll (aOther.m_aData, 0, aOther.m_nSize);
+  }
+
+  /**
+   * Remove the value at the provided index, moving all subsequent values.
+   *
+   * @param nIndex
+   *        The index to remove. Must be &ge; 0 and &lt; {@link #size()}.
+   * @return The removed value.
+   */
+  public long removeAtIndex (final int nIndex)
+  {
+    _checkIndex (nIndex);
+    final long ret = m_aData[nIndex];
+    final int nMoved = m_nSize - nIndex - 1;
+    if (nMoved > 0)
+      System.arraycopy (m_aData, nIndex + 1, m_aData, nIndex, nMoved);
+    m_nSize--;
+    return ret;
+  }
+
+  /**
+   * Remove the last value.
+   *
+   * @return The removed value.
+   * @throws IndexOutOfBoundsException
+   *         if the list is empty
+   */
+  public long removeLast ()
+  {
+    return removeAtIndex (m_nSize - 1);
+  }
+
+  /**
+   * Remove all values matching the provided filter.
+   *
+   * @param aFilter
+   *        The filter to use. May not be <code>null</code>.
+   * @return <code>true</code> if at least one value was removed.
+   */
+  public boolean removeIf (@Nonnull final LongPredicate aFilter)
+  {
+    ValueEnforcer.notNull (aFilter, "Filter");
+    int nDst = 0;
+    for (int i = 0; i < m_nSize; ++i)
+    {
+      final long nValue = m_aData[i];
+      if (!aFilter.test (nValue))
+        m_aData[nDst++] = nValue;
+    }
+    final boolean bChanged = nDst != m_nSize;
+    m_nSize = nDst;
+    return bChanged;
+  }
+
+  public void clear ()
+  {
+    m_nSize = 0;
+  }
+
+  @CheckForSigned
+  public int indexOf (final long nValue)
+  {
+    for (int i = 0; i < m_nSize; ++i)
+      if (EqualsHelper.equals (m_aData[i], nValue))
+        return i;
+    return -1;
+  }
+
+  @CheckForSigned
+  public int lastIndexOf (final long nValue)
+  {
+    for (int i = m_nSize - 1; i >= 0; --i)
+      if (EqualsHelper.equals (m_aData[i], nValue))
+        return i;
+    return -1;
+  }
+
+  public boolean contains (final long nValue)
+  {
+    return indexOf (nValue) >= 0;
+  }
+
+  /**
+   * Sort all values in ascending order.
+   */
+  public void sort ()
+  {
+    Arrays.sort (m_aData, 0, m_nSize);
+  }
+
+  /**
+   * Search the value in this list, which must be sorted.
+   *
+   * @param nValue
+   *        The value to search.
+   * @return The index of the value if contained, <code>(-(insertion point) -
+   *         1)</code> otherwise.
+   * @see Arrays#binarySearch(long[], int, int, long)
+   */
+  @CheckForSigned
+  public int binarySearch (final long nValue)
+  {
+    return Arrays.binarySearch (m_aData, 0, m_nSize, nValue);
+  }
+
+  public void forEach (@Nonnull final LongConsumer aConsumer)
+  {
+    for (int i = 0; i < m_nSize; ++i)
+      aConsumer.accept (m_aData[i]);
+  }
+
+  public boolean containsAny (@Nonnull final LongPredicate aFilter)
+  {
+    for (int i = 0; i < m_nSize; ++i)
+      if (aFilter.test (m_aData[i]))
+        return true;
+    return false;
+  }
+
+  public boolean containsOnly (@Nonnull final LongPredicate aFilter)
+  {
+    for (int i = 0; i < m_nSize; ++i)
+      if (!aFilter.test (m_aData[i]))
+        return false;
+    return true;
+  }
+
+  @Nonnegative
+  public int getCount (@Nonnull final LongPredicate aFilter)
+  {
+    int ret = 0;
+    for (int i = 0; i < m_nSize; ++i)
+      if (aFilter.test (m_aData[i]))
+        ret++;
+    return ret;
+  }
+
+  /**
+   * @param aFilter
+   *        The filter to use. May not be <code>null</code>.
+   * @return The index of the first matching value or -1.
+   */
+  @CheckForSigned
+  public int findFirstIndex (@Nonnull final LongPredicate aFilter)
+  {
+    for (int i = 0; i < m_nSize; ++i)
+      if (aFilter.test (m_aData[i]))
+        return i;
+    return -1;
+  }
+
+  @Nonnull
+  public LongStream stream ()
+  {
+    return Arrays.stream (m_aData, 0, m_nSize);
+  }
+
+  /**
+   * @return A copy of all contained values. Never <code>null</code>.
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public long [] toArray ()
+  {
+    return Arrays.copyOf (m_aData, m_nSize);
+  }
+
+  /**
+   * Get the internal array without copying. Only the first {@link #size()}
+   * elements are valid, and the array is no longer used by this list after it
+   * grows.
+   *
+   * @return The internal array. Never <code>null</code>.
+   */
+  @Nonnull
+  @ReturnsMutableObject ("Zero-copy access")
+  public long [] directGetArray ()
+  {
+    return m_aData;
+  }
+
+  @Nonnull
+  @ReturnsMutableCopy
+  public LongList getClone ()
+  {
+    return new LongList (this);
+  }
+
+  @Override
+  public boolean equals (final Object o)
+  {
+    if (o == this)
+      return true;
+    if (o == null || !getClass ().equals (o.getClass ()))
+      return false;
+    final LongList rhs = (LongList) o;
+    if (m_nSize != rhs.m_nSize)
+      return false;
+    for (int i = 0; i < m_nSize; ++i)
+      if (!EqualsHelper.equals (m_aData[i], rhs.m_aData[i]))
+        return false;
+    return true;
+  }
+
+  @Override
+  public int hashCode ()
+  {
+    final HashCodeGenerator aHCG = new HashCodeGenerator (this);
+    for (int i = 0; i < m_nSize; ++i)
+      aHCG.append (m_aData[i]);
+    return aHCG.getHashCode ();
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("Values", toArray ()).getToString ();
+  }
+}
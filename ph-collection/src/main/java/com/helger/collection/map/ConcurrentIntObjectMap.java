@@ -0,0 +1,507 @@
+/**
+ * Copyright (C) 2014-2017 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.collection.map;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntFunction;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.concurrent.SimpleLock;
+import com.helger.commons.lang.GenericReflection;
+import com.helger.commons.lang.IHasSize;
+
+/**
+ * Thread-safe variant of {@link IntObjectMap}. The map is split into segments,
+ * each of them being an open addressing hash table. Reading is lock-free,
+ * modifications lock only the affected segment. A segment that is resized
+ * publishes a new table when it is done, so concurrent readers continue to
+ * work on the previous table in the meantime.<br>
+ * Removed keys stay in the table as 'dead' entries (with a <code>null</code>
+ * value) until the next resize, so that lock-free readers never see moving
+ * keys. As with {@link java.util.concurrent.ConcurrentHashMap}
+ * <code>null</code> values are not supported.
+ *
+ * @author Philip Helger
+ * @since 9.0.0
+ * @param <T>
+ *        Element type
+ */
+@ThreadSafe
+public class ConcurrentIntObjectMap <T> implements IHasSize
+{
+  public static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+  private static final int FREE_KEY = 0;
+  private static final float FILL_FACTOR = 0.75f;
+
+  /**
+   * A single immutable-size hash table. Keys are written after values, so that
+   * a reader finding a key also sees the value.
+   */
+  private static final class Table
+  {
+    private final AtomicIntegerArray m_aKeys;
+    private final AtomicReferenceArray <Object> m_aValues;
+    private final int m_nMask;
+    private final int m_nThreshold;
+
+    Table (@Nonnegative final int nCapacity)
+    {
+      m_aKeys = new AtomicIntegerArray (nCapacity);
+      m_aValues = new AtomicReferenceArray <> (nCapacity);
+      m_nMask = nCapacity - 1;
+      m_nThreshold = (int) (nCapacity * FILL_FACTOR);
+    }
+
+    /**
+     * @return The index of the key or of the first free slot in the chain.
+     *         Never -1 because the table is never full.
+     */
+    int getIndex (final int nKey, final int nHash)
+    {
+      int idx = nHash & m_nMask;
+      while (true)
+      {
+        final int k = m_aKeys.get (idx);
+        if (k == nKey || k == FREE_KEY)
+          return idx;
+        idx = (idx + 1) & m_nMask;
+      }
+    }
+
+    @Nullable
+    Object get (final int nKey, final int nHash)
+    {
+      final int idx = getIndex (nKey, nHash);
+      return m_aKeys.get (idx) == nKey ? m_aValues.get (idx) : null;
+    }
+  }
+
+  private static final class Segment extends SimpleLock
+  {
+    private volatile Table m_aTable;
+    /** The value of the free key - only used in the first segment */
+    private volatile Object m_aFreeValue;
+    /** Number of live entries */
+    private volatile int m_nSize;
+    /** Number of used slots, including dead ones. Guarded by the lock. */
+    private int m_nUsed;
+
+    Segment (@Nonnegative final int nCapacity)
+    {
+      m_aTable = new Table (nCapacity);
+    }
+
+    @Nullable
+    Object get (final int nKey, final int nHash)
+    {
+      if (nKey == FREE_KEY)
+        return m_aFreeValue;
+      return m_aTable.get (nKey, nHash);
+    }
+
+    private void _rehash (@Nonnull final Table aOld)
+    {
+      // Only grow if the table is really full of live entries
+      final int nOldCapacity = aOld.m_aKeys.length ();
+      final int nNewCapacity = m_nSize >= aOld.m_nThreshold / 2 ? nOldCapacity * 2 : nOldCapacity;
+      final Table aNew = new Table (nNewCapacity);
+      int nUsed = 0;
+      for (int i = 0; i < nOldCapacity; ++i)
+      {
+        final int nKey = aOld.m_aKeys.get (i);
+        if (nKey != FREE_KEY)
+        {
+          final Object aValue = aOld.m_aValues.get (i);
+          if (aValue != null)
+          {
+            final int idx = aNew.getIndex (nKey, MapHelper.phiMix (nKey));
+            aNew.m_aValues.set (idx, aValue);
+            aNew.m_aKeys.set (idx, nKey);
+            nUsed++;
+          }
+        }
+      }
+      m_nUsed = nUsed;
+      // Publish
+      m_aTable = aNew;
+    }
+
+    /**
+     * Set the value of a key. Must be called with the lock held.
+     *
+     * @return The previous value or <code>null</code>.
+     */
+    @Nullable
+    Object lockedSet (final int nKey, final int nHash, @Nullable final Object aValue)
+    {
+      if (nKey == FREE_KEY)
+      {
+        final Object aOld = m_aFreeValue;
+        m_aFreeValue = aValue;
+        _adjustSize (aOld, aValue);
+        return aOld;
+      }
+
+      final Table aTable = m_aTable;
+      final int idx = aTable.getIndex (nKey, nHash);
+      if (aTable.m_aKeys.get (idx) == nKey)
+      {
+        // Existing, maybe dead key
+        final Object aOld = aTable.m_aValues.getAndSet (idx, aValue);
+        _adjustSize (aOld, aValue);
+        return aOld;
+      }
+
+      // New key
+      if (aValue != null)
+      {
+        aTable.m_aValues.set (idx, aValue);
+        aTable.m_aKeys.set (idx, nKey);
+        m_nSize++;
+        if (++m_nUsed >= aTable.m_nThreshold)
+          _rehash (aTable);
+      }
+      return null;
+    }
+
+    private void _adjustSize (@Nullable final Object aOld, @Nullable final Object aNew)
+    {
+      if (aOld == null)
+      {
+        if (aNew != null)
+          m_nSize++;
+      }
+      else
+        if (aNew == null)
+          m_nSize--;
+    }
+
+    void lockedClear (@Nonnegative final int nCapacity)
+    {
+      m_aFreeValue = null;
+      m_nSize = 0;
+      m_nUsed = 0;
+      m_aTable = new Table (nCapacity);
+    }
+  }
+
+  private final Segment [] m_aSegments;
+  private final int m_nSegmentShift;
+  private final int m_nSegmentMask;
+  private final int m_nInitialSegmentCapacity;
+
+  public ConcurrentIntObjectMap ()
+  {
+    this (16);
+  }
+
+  public ConcurrentIntObjectMap (@Nonnegative final int nSize)
+  {
+    this (nSize, DEFAULT_CONCURRENCY_LEVEL);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param nSize
+   *        The expected number of elements. Must be &gt; 0.
+   * @param nConcurrencyLevel
+   *        The expected number of concurrently modifying threads. Determines
+   *        the number of segments. Must be &gt; 0.
+   */
+  public ConcurrentIntObjectMap (@Nonnegative final int nSize, @Nonnegative final int nConcurrencyLevel)
+  {
+    ValueEnforcer.isGT0 (nSize, "Size");
+    ValueEnforcer.isBetweenInclusive (nConcurrencyLevel, "ConcurrencyLevel", 1, 1 << 16);
+    final int nSegments = (int) MapHelper.nextPowerOfTwo (nConcurrencyLevel);
+    m_nSegmentMask = nSegments - 1;
+    // Use the upper bits of the hash for the segment
+    m_nSegmentShift = 32 - Integer.numberOfTrailingZeros (nSegments);
+    m_nInitialSegmentCapacity = MapHelper.arraySize (Math.max (1, nSize / nSegments), FILL_FACTOR);
+    m_aSegments = new Segment [nSegments];
+    for (int i = 0; i < nSegments; ++i)
+      m_aSegments[i] = new Segment (m_nInitialSegmentCapacity);
+  }
+
+  @Nonnull
+  private Segment _getSegment (final int nKey, final int nHash)
+  {
+    // The free key always lives in the first segment
+    if (nKey == FREE_KEY)
+      return m_aSegments[0];
+    return m_aSegments[(nHash >>> m_nSegmentShift) & m_nSegmentMask];
+  }
+
+  @Nullable
+  public T get (final int key)
+  {
+    final int nHash = MapHelper.phiMix (key);
+    return GenericReflection.uncheckedCast (_getSegment (key, nHash).get (key, nHash));
+  }
+
+  @Nullable
+  public T getOrDefault (final int key, @Nullable final T aDefault)
+  {
+    final T ret = get (key);
+    return ret != null ? ret : aDefault;
+  }
+
+  public boolean containsKey (final int key)
+  {
+    return get (key) != null;
+  }
+
+  /**
+   * Put a new value.
+   *
+   * @param key
+   *        Key to use.
+   * @param value
+   *        The value to set. May not be <code>null</code>.
+   * @return The previous value or <code>null</code> if there was none.
+   */
+  @Nullable
+  public T put (final int key, @Nonnull final T value)
+  {
+    ValueEnforcer.notNull (value, "Value");
+    final int nHash = MapHelper.phiMix (key);
+    final Segment aSegment = _getSegment (key, nHash);
+    aSegment.lock ();
+    try
+    {
+      return GenericReflection.uncheckedCast (aSegment.lockedSet (key, nHash, value));
+    }
+    finally
+    {
+      aSegment.unlock ();
+    }
+  }
+
+  /**
+   * Put a new value only if no value is present.
+   *
+   * @param key
+   *        Key to use.
+   * @param value
+   *        The value to set. May not be <code>null</code>.
+   * @return The existing value or <code>null</code> if the passed value was
+   *         added.
+   */
+  @Nullable
+  public T putIfAbsent (final int key, @Nonnull final T value)
+  {
+    ValueEnforcer.notNull (value, "Value");
+    final int nHash = MapHelper.phiMix (key);
+    final Segment aSegment = _getSegment (key, nHash);
+    aSegment.lock ();
+    try
+    {
+      final Object aOld = aSegment.get (key, nHash);
+      if (aOld != null)
+        return GenericReflection.uncheckedCast (aOld);
+      aSegment.lockedSet (key, nHash, value);
+      return null;
+    }
+    finally
+    {
+      aSegment.unlock ();
+    }
+  }
+
+  /**
+   * Get the value of the key or create it atomically. The provider is invoked
+   * at most once per key and must not modify this map.
+   *
+   * @param key
+   *        Key to use.
+   * @param aProvider
+   *        The value provider. May not be <code>null</code>. If it returns
+   *        <code>null</code> nothing is stored.
+   * @return The existing or the created value.
+   */
+  @Nullable
+  public T computeIfAbsent (final int key, @Nonnull final IntFunction <? extends T> aProvider)
+  {
+    final int nHash = MapHelper.phiMix (key);
+    final Segment aSegment = _getSegment (key, nHash);
+    // Lock-free fast path
+    Object ret = aSegment.get (key, nHash);
+    if (ret == null)
+    {
+      aSegment.lock ();
+      try
+      {
+        ret = aSegment.get (key, nHash);
+        if (ret == null)
+        {
+          ret = aProvider.apply (key);
+          if (ret != null)
+            aSegment.lockedSet (key, nHash, ret);
+        }
+      }
+      finally
+      {
+        aSegment.unlock ();
+      }
+    }
+    return GenericReflection.uncheckedCast (ret);
+  }
+
+  /**
+   * Remapping function for {@link ConcurrentIntObjectMap#compute(int, IRemapper)}
+   *
+   * @param <T>
+   *        Element type
+   */
+  @FunctionalInterface
+  public static interface IRemapper <T>
+  {
+    /**
+     * @param nKey
+     *        The key.
+     * @param aOldValue
+     *        The old value or <code>null</code> if there is none.
+     * @return The new value or <code>null</code> to remove the key.
+     */
+    @Nullable
+    T apply (int nKey, @Nullable T aOldValue);
+  }
+
+  /**
+   * Atomically compute a new value for the passed key. The function is invoked
+   * with the segment locked and must not modify this map.
+   *
+   * @param key
+   *        Key to use.
+   * @param aRemapper
+   *        The remapping function. May not be <code>null</code>.
+   * @return The new value or <code>null</code> if the key was removed.
+   */
+  @Nullable
+  public T compute (final int key, @Nonnull final IRemapper <T> aRemapper)
+  {
+    ValueEnforcer.notNull (aRemapper, "Remapper");
+    final int nHash = MapHelper.phiMix (key);
+    final Segment aSegment = _getSegment (key, nHash);
+    aSegment.lock ();
+    try
+    {
+      final T aOld = GenericReflection.uncheckedCast (aSegment.get (key, nHash));
+      final T aNew = aRemapper.apply (key, aOld);
+      if (aNew != aOld)
+        aSegment.lockedSet (key, nHash, aNew);
+      return aNew;
+    }
+    finally
+    {
+      aSegment.unlock ();
+    }
+  }
+
+  @Nullable
+  public T remove (final int key)
+  {
+    final int nHash = MapHelper.phiMix (key);
+    final Segment aSegment = _getSegment (key, nHash);
+    // Nothing to do if the key is not present
+    if (aSegment.get (key, nHash) == null)
+      return null;
+    aSegment.lock ();
+    try
+    {
+      return GenericReflection.uncheckedCast (aSegment.lockedSet (key, nHash, null));
+    }
+    finally
+    {
+      aSegment.unlock ();
+    }
+  }
+
+  public void clear ()
+  {
+    for (final Segment aSegment : m_aSegments)
+    {
+      aSegment.lock ();
+      try
+      {
+        aSegment.lockedClear (m_nInitialSegmentCapacity);
+      }
+      finally
+      {
+        aSegment.unlock ();
+      }
+    }
+  }
+
+  /**
+   * @return The number of contained elements. May already be outdated when
+   *         returned if the map is modified concurrently.
+   */
+  @Nonnegative
+  public int size ()
+  {
+    int ret = 0;
+    for (final Segment aSegment : m_aSegments)
+      ret += aSegment.m_nSize;
+    return ret;
+  }
+
+  public boolean isEmpty ()
+  {
+    for (final Segment aSegment : m_aSegments)
+      if (aSegment.m_nSize > 0)
+        return false;
+    return true;
+  }
+
+  /**
+   * Iterate all entries. Iteration is weakly consistent: concurrent
+   * modifications may or may not be reflected.
+   *
+   * @param aConsumer
+   *        The consumer to be invoked. May not be <code>null</code>.
+   */
+  public void forEach (@Nonnull final IntObjectMap.IConsumer <? super T> aConsumer)
+  {
+    for (final Segment aSegment : m_aSegments)
+    {
+      final Object aFreeValue = aSegment.m_aFreeValue;
+      if (aFreeValue != null)
+        aConsumer.accept (FREE_KEY, GenericReflection.uncheckedCast (aFreeValue));
+
+      final Table aTable = aSegment.m_aTable;
+      final int nLen = aTable.m_aKeys.length ();
+      for (int i = 0; i < nLen; ++i)
+      {
+        final int nKey = aTable.m_aKeys.get (i);
+        if (nKey != FREE_KEY)
+        {
+          final Object aValue = aTable.m_aValues.get (i);
+          if (aValue != null)
+            aConsumer.accept (nKey, GenericReflection.uncheckedCast (aValue));
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,410 @@
+/**
+ * Copyright (C) 2014-2017 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.collection.map;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.concurrent.SimpleLock;
+import com.helger.commons.lang.IHasSize;
+
+/**
+ * Thread-safe map from int keys to atomic long counters. Counters of existing
+ * keys are modified lock-free, only the creation of new keys locks one
+ * segment. The counter values live in chunks that never move, so a resize of
+ * the key table can happen while other threads increment counters. Keys
+ * cannot be removed individually - use {@link #getAndReset(int)} or
+ * {@link #clear()} instead.
+ *
+ * @author Philip Helger
+ * @since 9.0.0
+ */
+@ThreadSafe
+public class IntLongCounterMap implements IHasSize
+{
+  private static final int FREE_KEY = 0;
+  private static final float FILL_FACTOR = 0.75f;
+  private static final int CHUNK_BITS = 10;
+  private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+  private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+  private static final int NO_INDEX = -1;
+
+  /**
+   * The counters of one segment. Chunks are only appended, so a counter index
+   * stays valid for the lifetime of the store.
+   */
+  private static final class CounterStore
+  {
+    private volatile AtomicLongArray [] m_aChunks = { new AtomicLongArray (CHUNK_SIZE) };
+    /** Counter index of the free key - only used in the first segment */
+    private volatile int m_nFreeKeyCounterIndex = NO_INDEX;
+    /** Number of allocated counters = number of keys */
+    private volatile int m_nCount;
+
+    @Nonnull
+    AtomicLongArray getChunk (final int nCounterIndex)
+    {
+      return m_aChunks[nCounterIndex >>> CHUNK_BITS];
+    }
+
+    long get (final int nCounterIndex)
+    {
+      return getChunk (nCounterIndex).get (nCounterIndex & CHUNK_MASK);
+    }
+
+    /**
+     * Allocate a new counter. Must be called with the segment lock held.
+     */
+    int lockedAllocate ()
+    {
+      final int ret = m_nCount;
+      final int nChunk = ret >>> CHUNK_BITS;
+      if (nChunk == m_aChunks.length)
+      {
+        final AtomicLongArray [] aNewChunks = Arrays.copyOf (m_aChunks, nChunk + 1);
+        aNewChunks[nChunk] = new AtomicLongArray (CHUNK_SIZE);
+        m_aChunks = aNewChunks;
+      }
+      m_nCount = ret + 1;
+      return ret;
+    }
+  }
+
+  /**
+   * Key table mapping keys to indices of the counter store. The counter index
+   * is written before the key. A grown table shares the counter store of its
+   * predecessor, only {@link IntLongCounterMap#clear()} creates a new one.
+   */
+  private static final class Table
+  {
+    private final AtomicIntegerArray m_aKeys;
+    private final AtomicIntegerArray m_aCounterIndices;
+    private final CounterStore m_aCounters;
+    private final int m_nMask;
+    private final int m_nThreshold;
+
+    Table (@Nonnegative final int nCapacity, @Nonnull final CounterStore aCounters)
+    {
+      m_aKeys = new AtomicIntegerArray (nCapacity);
+      m_aCounterIndices = new AtomicIntegerArray (nCapacity);
+      m_aCounters = aCounters;
+      m_nMask = nCapacity - 1;
+      m_nThreshold = (int) (nCapacity * FILL_FACTOR);
+    }
+
+    int getSlot (final int nKey, final int nHash)
+    {
+      int idx = nHash & m_nMask;
+      while (true)
+      {
+        final int k = m_aKeys.get (idx);
+        if (k == nKey || k == FREE_KEY)
+          return idx;
+        idx = (idx + 1) & m_nMask;
+      }
+    }
+
+    int getCounterIndex (final int nKey, final int nHash)
+    {
+      if (nKey == FREE_KEY)
+        return m_aCounters.m_nFreeKeyCounterIndex;
+      final int idx = getSlot (nKey, nHash);
+      return m_aKeys.get (idx) == nKey ? m_aCounterIndices.get (idx) : NO_INDEX;
+    }
+
+    @Nonnull
+    Table getGrown ()
+    {
+      final int nOldCapacity = m_aKeys.length ();
+      final Table ret = new Table (nOldCapacity * 2, m_aCounters);
+      for (int i = 0; i < nOldCapacity; ++i)
+      {
+        final int nKey = m_aKeys.get (i);
+        if (nKey != FREE_KEY)
+        {
+          final int idx = ret.getSlot (nKey, MapHelper.phiMix (nKey));
+          ret.m_aCounterIndices.set (idx, m_aCounterIndices.get (i));
+          ret.m_aKeys.set (idx, nKey);
+        }
+      }
+      return ret;
+    }
+  }
+
+  private static final class Segment extends SimpleLock
+  {
+    private volatile Table m_aTable;
+
+    Segment (@Nonnegative final int nCapacity)
+    {
+      m_aTable = new Table (nCapacity, new CounterStore ());
+    }
+
+    /**
+     * Get or create the counter index of a key. Must be called with the lock
+     * held.
+     */
+    int lockedGetOrCreateCounterIndex (final int nKey, final int nHash)
+    {
+      final Table aTable = m_aTable;
+      int nCounterIndex = aTable.getCounterIndex (nKey, nHash);
+      if (nCounterIndex != NO_INDEX)
+        return nCounterIndex;
+
+      final CounterStore aCounters = aTable.m_aCounters;
+      nCounterIndex = aCounters.lockedAllocate ();
+      if (nKey == FREE_KEY)
+        aCounters.m_nFreeKeyCounterIndex = nCounterIndex;
+      else
+      {
+        Table aRealTable = aTable;
+        if (aCounters.m_nCount > aTable.m_nThreshold)
+        {
+          aRealTable = aTable.getGrown ();
+          m_aTable = aRealTable;
+        }
+        final int idx = aRealTable.getSlot (nKey, nHash);
+        aRealTable.m_aCounterIndices.set (idx, nCounterIndex);
+        aRealTable.m_aKeys.set (idx, nKey);
+      }
+      return nCounterIndex;
+    }
+
+    void lockedClear (@Nonnegative final int nCapacity)
+    {
+      m_aTable = new Table (nCapacity, new CounterStore ());
+    }
+  }
+
+  private final Segment [] m_aSegments;
+  private final int m_nSegmentShift;
+  private final int m_nSegmentMask;
+  private final int m_nInitialSegmentCapacity;
+
+  public IntLongCounterMap ()
+  {
+    this (16);
+  }
+
+  public IntLongCounterMap (@Nonnegative final int nSize)
+  {
+    this (nSize, ConcurrentIntObjectMap.DEFAULT_CONCURRENCY_LEVEL);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param nSize
+   *        The expected number of keys. Must be &gt; 0.
+   * @param nConcurrencyLevel
+   *        The expected number of threads concurrently creating keys.
+   *        Determines the number of segments. Must be &gt; 0.
+   */
+  public IntLongCounterMap (@Nonnegative final int nSize, @Nonnegative final int nConcurrencyLevel)
+  {
+    ValueEnforcer.isGT0 (nSize, "Size");
+    ValueEnforcer.isBetweenInclusive (nConcurrencyLevel, "ConcurrencyLevel", 1, 1 << 16);
+    final int nSegments = (int) MapHelper.nextPowerOfTwo (nConcurrencyLevel);
+    m_nSegmentMask = nSegments - 1;
+    m_nSegmentShift = 32 - Integer.numberOfTrailingZeros (nSegments);
+    m_nInitialSegmentCapacity = MapHelper.arraySize (Math.max (1, nSize / nSegments), FILL_FACTOR);
+    m_aSegments = new Segment [nSegments];
+    for (int i = 0; i < nSegments; ++i)
+      m_aSegments[i] = new Segment (m_nInitialSegmentCapacity);
+  }
+
+  @Nonnull
+  private Segment _getSegment (final int nKey, final int nHash)
+  {
+    if (nKey == FREE_KEY)
+      return m_aSegments[0];
+    return m_aSegments[(nHash >>> m_nSegmentShift) & m_nSegmentMask];
+  }
+
+  /**
+   * @param key
+   *        The key to query.
+   * @return The current counter value or 0 if the key is not present.
+   */
+  public long get (final int key)
+  {
+    final int nHash = MapHelper.phiMix (key);
+    final Table aTable = _getSegment (key, nHash).m_aTable;
+    final int nCounterIndex = aTable.getCounterIndex (key, nHash);
+    return nCounterIndex == NO_INDEX ? 0 : aTable.m_aCounters.get (nCounterIndex);
+  }
+
+  public boolean containsKey (final int key)
+  {
+    final int nHash = MapHelper.phiMix (key);
+    return _getSegment (key, nHash).m_aTable.getCounterIndex (key, nHash) != NO_INDEX;
+  }
+
+  /**
+   * Atomically add to the counter of the passed key. The key is created if it
+   * is not yet present.
+   *
+   * @param key
+   *        The key to modify.
+   * @param nDelta
+   *        The value to add. May be negative.
+   * @return The updated counter value.
+   */
+  public long addAndGet (final int key, final long nDelta)
+  {
+    final int nHash = MapHelper.phiMix (key);
+    final Segment aSegment = _getSegment (key, nHash);
+    Table aTable = aSegment.m_aTable;
+    int nCounterIndex = aTable.getCounterIndex (key, nHash);
+    if (nCounterIndex == NO_INDEX)
+    {
+      aSegment.lock ();
+      try
+      {
+        aTable = aSegment.m_aTable;
+        nCounterIndex = aSegment.lockedGetOrCreateCounterIndex (key, nHash);
+      }
+      finally
+      {
+        aSegment.unlock ();
+      }
+    }
+    return aTable.m_aCounters.getChunk (nCounterIndex).addAndGet (nCounterIndex & CHUNK_MASK, nDelta);
+  }
+
+  public long incrementAndGet (final int key)
+  {
+    return addAndGet (key, 1);
+  }
+
+  public long decrementAndGet (final int key)
+  {
+    return addAndGet (key, -1);
+  }
+
+  /**
+   * Set the counter of the passed key to 0. The key itself is kept.
+   *
+   * @param key
+   *        The key to reset.
+   * @return The counter value before the reset.
+   */
+  public long getAndReset (final int key)
+  {
+    final int nHash = MapHelper.phiMix (key);
+    final Table aTable = _getSegment (key, nHash).m_aTable;
+    final int nCounterIndex = aTable.getCounterIndex (key, nHash);
+    if (nCounterIndex == NO_INDEX)
+      return 0;
+    return aTable.m_aCounters.getChunk (nCounterIndex).getAndSet (nCounterIndex & CHUNK_MASK, 0);
+  }
+
+  /**
+   * Remove all keys. Modifications of existing counters that happen
+   * concurrently to the clearing may get lost.
+   */
+  public void clear ()
+  {
+    for (final Segment aSegment : m_aSegments)
+    {
+      aSegment.lock ();
+      try
+      {
+        aSegment.lockedClear (m_nInitialSegmentCapacity);
+      }
+      finally
+      {
+        aSegment.unlock ();
+      }
+    }
+  }
+
+  /**
+   * @return The number of keys, including the ones with a counter value of 0.
+   */
+  @Nonnegative
+  public int size ()
+  {
+    int ret = 0;
+    for (final Segment aSegment : m_aSegments)
+      ret += aSegment.m_aTable.m_aCounters.m_nCount;
+    return ret;
+  }
+
+  public boolean isEmpty ()
+  {
+    for (final Segment aSegment : m_aSegments)
+      if (aSegment.m_aTable.m_aCounters.m_nCount > 0)
+        return false;
+    return true;
+  }
+
+  /**
+   * @return The sum of all counters.
+   */
+  public long getSum ()
+  {
+    long ret = 0;
+    for (final Segment aSegment : m_aSegments)
+    {
+      final CounterStore aCounters = aSegment.m_aTable.m_aCounters;
+      final int nCount = aCounters.m_nCount;
+      for (int i = 0; i < nCount; ++i)
+        ret += aCounters.get (i);
+    }
+    return ret;
+  }
+
+  @FunctionalInterface
+  public static interface IConsumer
+  {
+    void accept (int nKey, long nValue);
+  }
+
+  /**
+   * Iterate all keys with their current counter values. Iteration is weakly
+   * consistent.
+   *
+   * @param aConsumer
+   *        The consumer to be invoked. May not be <code>null</code>.
+   */
+  public void forEach (@Nonnull final IConsumer aConsumer)
+  {
+    for (final Segment aSegment : m_aSegments)
+    {
+      final Table aTable = aSegment.m_aTable;
+      final CounterStore aCounters = aTable.m_aCounters;
+      final int nFreeKeyCounterIndex = aCounters.m_nFreeKeyCounterIndex;
+      if (nFreeKeyCounterIndex != NO_INDEX)
+        aConsumer.accept (FREE_KEY, aCounters.get (nFreeKeyCounterIndex));
+
+      final int nLen = aTable.m_aKeys.length ();
+      for (int i = 0; i < nLen; ++i)
+      {
+        final int nKey = aTable.m_aKeys.get (i);
+        if (nKey != FREE_KEY)
+          aConsumer.accept (nKey, aCounters.get (aTable.m_aCounterIndices.get (i)));
+      }
+    }
+  }
+}
@@ -0,0 +1,353 @@
+/**
+ * Copyright (C) 2014-2017 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.collection.map;
+
+import java.io.Serializable;
+import java.util.function.ToIntFunction;
+
+import javax.annotation.CheckForSigned;
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.lang.GenericReflection;
+import com.helger.commons.lang.IHasSize;
+
+/**
+ * Special Object-int-primitive map. Uses the same open addressing design as
+ * {@link IntIntMap}, with <code>null</code> being the 'free' key. Keys must
+ * properly implement {@link Object#equals(Object)} and
+ * {@link Object#hashCode()}.
+ *
+ * @author Philip Helger
+ * @since 9.0.0
+ * @param <K>
+ *        Key type
+ */
+@NotThreadSafe
+public class ObjectIntMap <K> implements IHasSize, Serializable
+{
+  public static final int NO_VALUE = 0;
+
+  /** Keys - null means free */
+  private Object [] m_aKeys;
+  /** Cached key hash codes, so that collisions don't need equals calls */
+  private int [] m_aHashes;
+  /** Values */
+  private int [] m_aValues;
+
+  /** Do we have 'free' key in the map? */
+  private boolean m_bHasFreeKey;
+  /** Value of 'free' key */
+  private int m_nFreeValue = NO_VALUE;
+
+  /** Fill factor, must be between (0 and 1) */
+  private final float m_fFillFactor;
+  /** We will resize a map once it reaches this size */
+  private int m_nThreshold;
+  /** Current map size */
+  private int m_nSize;
+  /** Mask to calculate the original position */
+  private int m_nMask;
+
+  public ObjectIntMap ()
+  {
+    this (16);
+  }
+
+  public ObjectIntMap (final int nSize)
+  {
+    this (nSize, 0.75f);
+  }
+
+  public ObjectIntMap (final int nSize, final float fFillFactor)
+  {
+    ValueEnforcer.isBetweenInclusive (fFillFactor, "FillFactor", 0f, 1f);
+    ValueEnforcer.isGT0 (nSize, "Size");
+    final int nCapacity = MapHelper.arraySize (nSize, fFillFactor);
+    m_nMask = nCapacity - 1;
+    m_fFillFactor = fFillFactor;
+
+    m_aKeys = new Object [nCapacity];
+    m_aHashes = new int [nCapacity];
+    m_aValues = new int [nCapacity];
+    m_nThreshold = (int) (nCapacity * fFillFactor);
+  }
+
+  private static int _hash (@Nonnull final Object aKey)
+  {
+    return MapHelper.phiMix (aKey.hashCode ());
+  }
+
+  public int get (@Nullable final K key)
+  {
+    return get (key, NO_VALUE);
+  }
+
+  public int get (@Nullable final K key, final int nDefault)
+  {
+    if (key == null)
+      return m_bHasFreeKey ? m_nFreeValue : nDefault;
+
+    final int idx = _getReadIndex (key, _hash (key));
+    return idx != -1 ? m_aValues[idx] : nDefault;
+  }
+
+  public boolean containsKey (@Nullable final K key)
+  {
+    if (key == null)
+      return m_bHasFreeKey;
+    return _getReadIndex (key, _hash (key)) != -1;
+  }
+
+  public int computeIfAbsent (@Nullable final K key, @Nonnull final ToIntFunction <? super K> aProvider)
+  {
+    int ret = get (key);
+    if (ret == NO_VALUE)
+    {
+      ret = aProvider.applyAsInt (key);
+      if (ret != NO_VALUE)
+        put (key, ret);
+    }
+    return ret;
+  }
+
+  public int put (@Nullable final K key, final int value)
+  {
+    if (key == null)
+    {
+      final int ret = m_nFreeValue;
+      if (!m_bHasFreeKey)
+      {
+        ++m_nSize;
+        m_bHasFreeKey = true;
+      }
+      m_nFreeValue = value;
+      return ret;
+    }
+
+    final int nHash = _hash (key);
+    int idx = _getPutIndex (key, nHash);
+    if (idx < 0)
+    {
+      // no insertion point? Should not happen...
+      _rehash (m_aKeys.length * 2);
+      idx = _getPutIndex (key, nHash);
+    }
+    final int prev = m_aValues[idx];
+    if (m_aKeys[idx] == null)
+    {
+      m_aKeys[idx] = key;
+      m_aHashes[idx] = nHash;
+      m_aValues[idx] = value;
+      ++m_nSize;
+      if (m_nSize >= m_nThreshold)
+        _rehash (m_aKeys.length * 2);
+    }
+    else
+    {
+      // it means used cell with our key
+      m_aValues[idx] = value;
+    }
+    return prev;
+  }
+
+  public int remove (@Nullable final K key)
+  {
+    if (key == null)
+    {
+      if (!m_bHasFreeKey)
+        return NO_VALUE;
+      m_bHasFreeKey = false;
+      final int ret = m_nFreeValue;
+      m_nFreeValue = NO_VALUE;
+      --m_nSize;
+      return ret;
+    }
+
+    final int idx = _getReadIndex (key, _hash (key));
+    if (idx == -1)
+      return NO_VALUE;
+
+    final int res = m_aValues[idx];
+    m_aValues[idx] = NO_VALUE;
+    _shiftKeys (idx);
+    --m_nSize;
+    return res;
+  }
+
+  @Nonnegative
+  public int size ()
+  {
+    return m_nSize;
+  }
+
+  public boolean isEmpty ()
+  {
+    return m_nSize == 0;
+  }
+
+  private void _rehash (final int nNewCapacity)
+  {
+    m_nThreshold = (int) (nNewCapacity * m_fFillFactor);
+    m_nMask = nNewCapacity - 1;
+
+    final int nOldCapacity = m_aKeys.length;
+    final Object [] aOldKeys = m_aKeys;
+    final int [] aOldHashes = m_aHashes;
+    final int [] aOldValues = m_aValues;
+
+    m_aKeys = new Object [nNewCapacity];
+    m_aHashes = new int [nNewCapacity];
+    m_aValues = new int [nNewCapacity];
+
+    // All keys are distinct, so only a free slot needs to be found
+    for (int i = 0; i < nOldCapacity; ++i)
+    {
+      final Object aKey = aOldKeys[i];
+      if (aKey != null)
+      {
+        final int nHash = aOldHashes[i];
+        int idx = nHash & m_nMask;
+        while (m_aKeys[idx] != null)
+          idx = _getNextIndex (idx);
+        m_aKeys[idx] = aKey;
+        m_aHashes[idx] = nHash;
+        m_aValues[idx] = aOldValues[i];
+      }
+    }
+  }
+
+  private int _shiftKeys (final int nPos)
+  {
+    // Shift entries with the same hash.
+    int pos = nPos;
+    final Object [] keys = m_aKeys;
+    while (true)
+    {
+      final int last = pos;
+      pos = _getNextIndex (pos);
+      Object k;
+      while (true)
+      {
+        k = keys[pos];
+        if (k == null)
+        {
+          keys[last] = null;
+          m_aValues[last] = NO_VALUE;
+          return last;
+        }
+        // calculate the starting slot for the current key
+        final int slot = m_aHashes[pos] & m_nMask;
+        if (last <= pos ? last >= slot || slot > pos : last >= slot && slot > pos)
+          break;
+        pos = _getNextIndex (pos);
+      }
+      keys[last] = k;
+      m_aHashes[last] = m_aHashes[pos];
+      m_aValues[last] = m_aValues[pos];
+    }
+  }
+
+  /**
+   * Find key position in the map.
+   *
+   * @param key
+   *        Key to look for. May not be <code>null</code>.
+   * @param nHash
+   *        The hash of the key as calculated by {@link #_hash(Object)}.
+   * @return Key position or -1 if not found
+   */
+  @CheckForSigned
+  private int _getReadIndex (@Nonnull final Object key, final int nHash)
+  {
+    int idx = nHash & m_nMask;
+    Object k = m_aKeys[idx];
+    if (k == null)
+    {
+      // end of chain already
+      return -1;
+    }
+    if (k == key || (m_aHashes[idx] == nHash && k.equals (key)))
+      return idx;
+    final int startIdx = idx;
+    while ((idx = _getNextIndex (idx)) != startIdx)
+    {
+      k = m_aKeys[idx];
+      if (k == null)
+        return -1;
+      if (k == key || (m_aHashes[idx] == nHash && k.equals (key)))
+        return idx;
+    }
+    return -1;
+  }
+
+  /**
+   * Find an index of a cell which should be updated by 'put' operation. It can
+   * be: 1) a cell with a given key 2) first free cell in the chain
+   *
+   * @param key
+   *        Key to look for. May not be <code>null</code>.
+   * @param nHash
+   *        The hash of the key as calculated by {@link #_hash(Object)}.
+   * @return Index of a cell to be updated by a 'put' operation
+   */
+  @CheckForSigned
+  private int _getPutIndex (@Nonnull final Object key, final int nHash)
+  {
+    final int readIdx = _getReadIndex (key, nHash);
+    if (readIdx >= 0)
+      return readIdx;
+    // key not found, find insertion point
+    final int startIdx = nHash & m_nMask;
+    if (m_aKeys[startIdx] == null)
+      return startIdx;
+    int idx = startIdx;
+    while (m_aKeys[idx] != null)
+    {
+      idx = _getNextIndex (idx);
+      if (idx == startIdx)
+        return -1;
+    }
+    return idx;
+  }
+
+  private int _getNextIndex (final int currentIndex)
+  {
+    return (currentIndex + 1) & m_nMask;
+  }
+
+  public static interface IConsumer <K>
+  {
+    void accept (K aKey, int nValue);
+  }
+
+  public void forEach (@Nonnull final IConsumer <? super K> aConsumer)
+  {
+    if (m_bHasFreeKey)
+      aConsumer.accept (null, m_nFreeValue);
+    final int nLen = m_aKeys.length;
+    for (int i = 0; i < nLen; ++i)
+    {
+      final Object aKey = m_aKeys[i];
+      if (aKey != null)
+        aConsumer.accept (GenericReflection.uncheckedCast (aKey), m_aValues[i]);
+    }
+  }
+}
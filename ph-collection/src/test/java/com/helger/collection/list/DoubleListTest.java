@@ -0,0 +1,147 @@
+/**
+ * Copyright (C) 2014-2017 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.collection.list;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import com.helger.commons.mock.CommonsTestHelper;
+
+/**
+ * Test class for class {@link DoubleList}.
+ *
+ * @author Philip Helger
+ */
+public final class DoubleListTest
+{
+  private static double _v (final int n)
+  {
+    return (double) n;
+  }
+
+  @Test
+  public void testBasic ()
+  {
+    final DoubleList aList = new DoubleList ();
+    assertTrue (aList.isEmpty ());
+    assertEquals (0, aList.getCapacity ());
+    for (int i = 0; i < 1000; ++i)
+      aList.add (_v (i));
+    assertEquals (1000, aList.size ());
+    assertTrue (aList.getCapacity () >= 1000);
+    for (int i = 0; i < 1000; ++i)
+      assertEquals (_v (i), aList.get (i), 0);
+
+    assertEquals (_v (5), aList.set (5, _v (-5)), 0);
+    assertEquals (_v (-5), aList.get (5), 0);
+    assertEquals (5, aList.indexOf (_v (-5)));
+    assertEquals (-1, aList.indexOf (_v (5)));
+    assertTrue (aList.contains (_v (999)));
+    assertFalse (aList.contains (_v (1000)));
+
+    aList.add (0, _v (42));
+    assertEquals (1001, aList.size ());
+    assertEquals (_v (42), aList.get (0), 0);
+    assertEquals (_v (0), aList.get (1), 0);
+    assertEquals (43, aList.lastIndexOf (_v (42)));
+
+    assertEquals (_v (42), aList.removeAtIndex (0), 0);
+    assertEquals (_v (999), aList.removeLast (), 0);
+    assertEquals (999, aList.size ());
+
+    try
+    {
+      aList.get (999);
+      fail ();
+    }
+    catch (final IndexOutOfBoundsException ex)
+    {
+      // expected
+    }
+
+    aList.trimToSize ();
+    assertEquals (999, aList.getCapacity ());
+    aList.clear ();
+    assertTrue (aList.isEmpty ());
+    try
+    {
+      aList.removeLast ();
+      fail ();
+    }
+    catch (final IndexOutOfBoundsException ex)
+    {
+      // expected
+    }
+  }
+
+  @Test
+  public void testBulk ()
+  {
+    final DoubleList aList = new DoubleList (new double [] { _v (5), _v (3), _v (9), _v (1) });
+    aList.addAll (_v (7), _v (2));
+    aList.addAll (new DoubleList (new double [] { _v (8) }));
+    assertEquals (7, aList.size ());
+
+    assertEquals (4, aList.getCount (x -> x > 4));
+    assertTrue (aList.containsAny (x -> x == 9));
+    assertFalse (aList.containsOnly (x -> x > 1));
+    assertEquals (2, aList.findFirstIndex (x -> x > 8));
+    assertEquals (-1, aList.findFirstIndex (x -> x > 100));
+    assertEquals (_v (35), aList.stream ().sum (), 0);
+
+    aList.sort ();
+    assertArrayEquals (new double [] { _v (1), _v (2), _v (3), _v (5), _v (7), _v (8), _v (9) }, aList.toArray (), 0);
+    assertEquals (3, aList.binarySearch (_v (5)));
+    assertEquals (-5, aList.binarySearch (_v (6)));
+
+    final double [] aSum = new double [1];
+    aList.forEach (x -> aSum[0] += x);
+    assertEquals (_v (35), aSum[0], 0);
+
+    assertTrue (aList.removeIf (x -> x % 2 == 0));
+    assertFalse (aList.removeIf (x -> x % 2 == 0));
+    assertArrayEquals (new double [] { _v (1), _v (3), _v (5), _v (7), _v (9) }, aList.toArray (), 0);
+
+    // Zero-copy access
+    final double [] aDirect = aList.directGetArray ();
+    assertSame (aDirect, aList.directGetArray ());
+    assertEquals (_v (1), aDirect[0], 0);
+  }
+
+  @Test
+  public void testStandard ()
+  {
+    final DoubleList aList = new DoubleList (new double [] { _v (1), _v (2), _v (3) });
+    CommonsTestHelper.testDefaultImplementationWithEqualContentObject (aList, aList.getClone ());
+    CommonsTestHelper.testDefaultImplementationWithEqualContentObject (aList,
+                                                                      new DoubleList (new double [] { _v (1),
+                                                                                                  _v (2),
+                                                                                                  _v (3) }));
+    final DoubleList aOther = aList.getClone ();
+    aOther.add (_v (4));
+    assertNotEquals (aList, aOther);
+    CommonsTestHelper.testDefaultImplementationWithDifferentContentObject (aList, aOther);
+    CommonsTestHelper.testDefaultSerialization (aList);
+  }
+}
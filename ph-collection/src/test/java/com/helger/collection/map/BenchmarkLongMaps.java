@@ -0,0 +1,192 @@
+/**
+ * Copyright (C) 2014-2017 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.collection.map;
+
+import java.util.Random;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.helger.commons.collection.impl.CommonsHashMap;
+import com.helger.commons.collection.impl.CommonsHashSet;
+
+/**
+ * Compare memory footprint and throughput of the long-keyed primitive maps
+ * with their boxed equivalents. Run manually via the main method.
+ *
+ * @author Philip Helger
+ */
+public final class BenchmarkLongMaps
+{
+  private static final Logger s_aLogger = LoggerFactory.getLogger (BenchmarkLongMaps.class);
+  private static final int ENTRIES = 1_000_000;
+  private static final int RUNS = 10;
+  private static final long [] KEYS = new long [ENTRIES];
+  static
+  {
+    // Random timestamp-like IDs, so that the boxed maps don't profit from
+    // sequential hash codes
+    final Random aRandom = new Random (42);
+    for (int i = 0; i < ENTRIES; ++i)
+      KEYS[i] = 1_500_000_000_000L + (aRandom.nextLong () & 0xffffffffffL);
+  }
+  // Keeps the last filled collection alive for the lookup
+  private static final Object [] s_aHolder = new Object [1];
+
+  private BenchmarkLongMaps ()
+  {}
+
+  private static long _usedMemory ()
+  {
+    final Runtime aRT = Runtime.getRuntime ();
+    for (int i = 0; i < 3; ++i)
+      System.gc ();
+    return aRT.totalMemory () - aRT.freeMemory ();
+  }
+
+  private static void _run (final String sName, final LongSupplier aFill, final LongSupplier aLookup)
+  {
+    // Memory of one filled instance
+    s_aHolder[0] = null;
+    final long nBefore = _usedMemory ();
+    final long nResult = aFill.getAsLong ();
+    final long nAfter = _usedMemory ();
+
+    long nFillNanos = Long.MAX_VALUE;
+    long nLookupNanos = Long.MAX_VALUE;
+    long nCheck = nResult;
+    for (int i = 0; i < RUNS; ++i)
+    {
+      long t = System.nanoTime ();
+      nCheck += aFill.getAsLong ();
+      nFillNanos = Math.min (nFillNanos, System.nanoTime () - t);
+
+      t = System.nanoTime ();
+      nCheck += aLookup.getAsLong ();
+      nLookupNanos = Math.min (nLookupNanos, System.nanoTime () - t);
+    }
+
+    s_aLogger.info (sName +
+                    ": " +
+                    ((nAfter - nBefore) / ENTRIES) +
+                    " bytes/entry; fill " +
+                    (nFillNanos / ENTRIES) +
+                    " ns/entry; lookup " +
+                    (nLookupNanos / ENTRIES) +
+                    " ns/entry [" +
+                    nCheck +
+                    "]");
+  }
+
+  public static void main (final String [] aArgs)
+  {
+    _run ("LongLongMap", () -> {
+      final LongLongMap aMap = new LongLongMap (16);
+      for (int i = 0; i < ENTRIES; ++i)
+        aMap.put (KEYS[i], i);
+      s_aHolder[0] = aMap;
+      return aMap.size ();
+    }, () -> {
+      final LongLongMap aMap = (LongLongMap) s_aHolder[0];
+      long nSum = 0;
+      for (int i = 0; i < ENTRIES; ++i)
+        nSum += aMap.get (KEYS[i]);
+      return nSum;
+    });
+
+    _run ("CommonsHashMap<Long,Long>", () -> {
+      final CommonsHashMap <Long, Long> aMap = new CommonsHashMap <> (16);
+      for (int i = 0; i < ENTRIES; ++i)
+        aMap.put (Long.valueOf (KEYS[i]), Long.valueOf (i));
+      s_aHolder[0] = aMap;
+      return aMap.size ();
+    }, () -> {
+      @SuppressWarnings ("unchecked")
+      final CommonsHashMap <Long, Long> aMap = (CommonsHashMap <Long, Long>) s_aHolder[0];
+      long nSum = 0;
+      for (int i = 0; i < ENTRIES; ++i)
+        nSum += aMap.get (Long.valueOf (KEYS[i])).longValue ();
+      return nSum;
+    });
+
+    _run ("LongSet", () -> {
+      final LongSet aSet = new LongSet (16);
+      for (int i = 0; i < ENTRIES; ++i)
+        aSet.add (KEYS[i]);
+      s_aHolder[0] = aSet;
+      return aSet.size ();
+    }, () -> {
+      final LongSet aSet = (LongSet) s_aHolder[0];
+      long nCount = 0;
+      for (int i = 0; i < ENTRIES; ++i)
+        if (aSet.contains (KEYS[i]))
+          nCount++;
+      return nCount;
+    });
+
+    _run ("CommonsHashSet<Long>", () -> {
+      final CommonsHashSet <Long> aSet = new CommonsHashSet <> (16);
+      for (int i = 0; i < ENTRIES; ++i)
+        aSet.add (Long.valueOf (KEYS[i]));
+      s_aHolder[0] = aSet;
+      return aSet.size ();
+    }, () -> {
+      @SuppressWarnings ("unchecked")
+      final CommonsHashSet <Long> aSet = (CommonsHashSet <Long>) s_aHolder[0];
+      long nCount = 0;
+      for (int i = 0; i < ENTRIES; ++i)
+        if (aSet.contains (Long.valueOf (KEYS[i])))
+          nCount++;
+      return nCount;
+    });
+
+    final String [] aKeys = new String [ENTRIES];
+    for (int i = 0; i < ENTRIES; ++i)
+      aKeys[i] = "key" + KEYS[i];
+
+    _run ("ObjectLongMap<String>", () -> {
+      final ObjectLongMap <String> aMap = new ObjectLongMap <> (16);
+      for (int i = 0; i < ENTRIES; ++i)
+        aMap.put (aKeys[i], i);
+      s_aHolder[0] = aMap;
+      return aMap.size ();
+    }, () -> {
+      @SuppressWarnings ("unchecked")
+      final ObjectLongMap <String> aMap = (ObjectLongMap <String>) s_aHolder[0];
+      long nSum = 0;
+      for (int i = 0; i < ENTRIES; ++i)
+        nSum += aMap.get (aKeys[i]);
+      return nSum;
+    });
+
+    _run ("CommonsHashMap<String,Long>", () -> {
+      final CommonsHashMap <String, Long> aMap = new CommonsHashMap <> (16);
+      for (int i = 0; i < ENTRIES; ++i)
+        aMap.put (aKeys[i], Long.valueOf (i));
+      s_aHolder[0] = aMap;
+      return aMap.size ();
+    }, () -> {
+      @SuppressWarnings ("unchecked")
+      final CommonsHashMap <String, Long> aMap = (CommonsHashMap <String, Long>) s_aHolder[0];
+      long nSum = 0;
+      for (int i = 0; i < ENTRIES; ++i)
+        nSum += aMap.get (aKeys[i]).longValue ();
+      return nSum;
+    });
+  }
+}
@@ -0,0 +1,194 @@
+/**
+ * Copyright (C) 2014-2017 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.collection.map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.CommonsHashMap;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.collection.impl.ICommonsMap;
+import com.helger.commons.concurrent.ExecutorServiceHelper;
+
+/**
+ * Test class for class {@link ConcurrentIntObjectMap}.
+ *
+ * @author Philip Helger
+ */
+public final class ConcurrentIntObjectMapTest
+{
+  @Test
+  public void testBasic ()
+  {
+    for (final int nConcurrencyLevel : new int [] { 1, 4, 16 })
+    {
+      final ConcurrentIntObjectMap <String> aMap = new ConcurrentIntObjectMap <> (4, nConcurrencyLevel);
+      assertTrue (aMap.isEmpty ());
+      for (int i = -50000; i < 50000; ++i)
+        assertNull (aMap.put (i, "v" + i));
+      assertEquals (100000, aMap.size ());
+      for (int i = -50000; i < 50000; ++i)
+      {
+        assertTrue (aMap.containsKey (i));
+        assertEquals ("v" + i, aMap.get (i));
+      }
+      assertNull (aMap.get (50000));
+      assertEquals ("x", aMap.getOrDefault (50000, "x"));
+
+      // Remove every second element
+      for (int i = -50000; i < 50000; i += 2)
+        assertEquals ("v" + i, aMap.remove (i));
+      assertNull (aMap.remove (-50000));
+      assertEquals (50000, aMap.size ());
+      for (int i = -50000; i < 50000; ++i)
+        assertEquals ((i & 1) == 0 ? null : "v" + i, aMap.get (i));
+
+      // Re-add removed elements
+      for (int i = -50000; i < 50000; i += 2)
+        assertNull (aMap.put (i, "w" + i));
+      assertEquals (100000, aMap.size ());
+
+      final ICommonsMap <Integer, String> aCmp = new CommonsHashMap <> ();
+      aMap.forEach ( (k, v) -> aCmp.put (Integer.valueOf (k), v));
+      assertEquals (100000, aCmp.size ());
+      assertEquals ("w0", aCmp.get (Integer.valueOf (0)));
+      assertEquals ("v1", aCmp.get (Integer.valueOf (1)));
+
+      aMap.clear ();
+      assertTrue (aMap.isEmpty ());
+      assertNull (aMap.get (1));
+    }
+  }
+
+  @Test
+  public void testAtomicOperations ()
+  {
+    final ConcurrentIntObjectMap <String> aMap = new ConcurrentIntObjectMap <> ();
+    assertNull (aMap.putIfAbsent (0, "a"));
+    assertEquals ("a", aMap.putIfAbsent (0, "b"));
+    assertEquals ("a", aMap.get (0));
+    assertEquals (1, aMap.size ());
+
+    assertEquals ("c", aMap.computeIfAbsent (5, k -> "c"));
+    assertEquals ("c", aMap.computeIfAbsent (5, k -> "d"));
+    assertNull (aMap.computeIfAbsent (6, k -> null));
+    assertFalse (aMap.containsKey (6));
+
+    assertEquals ("c1", aMap.compute (5, (k, v) -> v + "1"));
+    assertEquals ("x", aMap.compute (7, (k, v) -> v == null ? "x" : v));
+    assertNull (aMap.compute (7, (k, v) -> null));
+    assertFalse (aMap.containsKey (7));
+    assertNull (aMap.compute (0, (k, v) -> null));
+    assertFalse (aMap.containsKey (0));
+    assertEquals (1, aMap.size ());
+  }
+
+  private static void _waitAndCheck (final ExecutorService aES, final ICommonsList <Future <?>> aFutures) throws Exception
+  {
+    ExecutorServiceHelper.shutdownAndWaitUntilAllTasksAreFinished (aES);
+    // Propagates assertion errors of the tasks
+    for (final Future <?> aFuture : aFutures)
+      aFuture.get ();
+  }
+
+  @Test
+  public void testConcurrentAccess () throws Exception
+  {
+    final ConcurrentIntObjectMap <Integer> aMap = new ConcurrentIntObjectMap <> (16, 8);
+    final AtomicInteger aCreated = new AtomicInteger ();
+    final int nThreads = 8;
+    final int nKeys = 20000;
+    final ExecutorService aES = Executors.newFixedThreadPool (nThreads);
+    final ICommonsList <Future <?>> aFutures = new CommonsArrayList <> ();
+    for (int t = 0; t < nThreads; ++t)
+    {
+      final int nThread = t;
+      aFutures.add (aES.submit ( () -> {
+        for (int i = 0; i < nKeys; ++i)
+        {
+          // All threads try to create the same keys
+          final Integer aValue = aMap.computeIfAbsent (i, k -> {
+            aCreated.incrementAndGet ();
+            return Integer.valueOf (k);
+          });
+          assertEquals (i, aValue.intValue ());
+
+          // Each thread additionally modifies its own keys
+          final int nOwnKey = -1 - (i * nThreads + nThread);
+          aMap.put (nOwnKey, Integer.valueOf (i));
+          aMap.compute (nOwnKey, (k, v) -> Integer.valueOf (v.intValue () + 1));
+          if ((i % 3) == 0)
+            aMap.remove (nOwnKey);
+        }
+      }));
+    }
+    _waitAndCheck (aES, aFutures);
+
+    assertEquals (nKeys, aCreated.get ());
+    int nExpectedOwn = 0;
+    for (int i = 0; i < nKeys; ++i)
+    {
+      assertEquals (i, aMap.get (i).intValue ());
+      for (int t = 0; t < nThreads; ++t)
+      {
+        final Integer aOwn = aMap.get (-1 - (i * nThreads + t));
+        if ((i % 3) == 0)
+          assertNull (aOwn);
+        else
+        {
+          assertEquals (i + 1, aOwn.intValue ());
+          nExpectedOwn++;
+        }
+      }
+    }
+    assertEquals (nKeys + nExpectedOwn, aMap.size ());
+  }
+
+  @Test
+  public void testReadDuringResize () throws Exception
+  {
+    final ConcurrentIntObjectMap <String> aMap = new ConcurrentIntObjectMap <> (1, 1);
+    for (int i = 1; i <= 100; ++i)
+      aMap.put (i, "fixed");
+    final ExecutorService aES = Executors.newFixedThreadPool (2);
+    final ICommonsList <Future <?>> aFutures = new CommonsArrayList <> ();
+    // Writer continuously triggers resizes
+    aFutures.add (aES.submit ( () -> {
+      for (int i = 1000; i < 200000; ++i)
+        aMap.put (i, "x");
+    }));
+    // Reader must always see the fixed keys
+    aFutures.add (aES.submit ( () -> {
+      for (int n = 0; n < 2000; ++n)
+        for (int i = 1; i <= 100; ++i)
+          assertSame ("fixed", aMap.get (i));
+    }));
+    _waitAndCheck (aES, aFutures);
+    assertEquals (100 + 199000, aMap.size ());
+  }
+}
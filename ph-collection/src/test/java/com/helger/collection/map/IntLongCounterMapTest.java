@@ -0,0 +1,98 @@
+/**
+ * Copyright (C) 2014-2017 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.collection.map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.helger.commons.collection.impl.CommonsHashMap;
+import com.helger.commons.collection.impl.ICommonsMap;
+import com.helger.commons.mock.CommonsTestHelper;
+
+/**
+ * Test class for class {@link IntLongCounterMap}.
+ *
+ * @author Philip Helger
+ */
+public final class IntLongCounterMapTest
+{
+  @Test
+  public void testBasic ()
+  {
+    final IntLongCounterMap aMap = new IntLongCounterMap (1, 2);
+    assertTrue (aMap.isEmpty ());
+    assertEquals (0, aMap.get (0));
+    assertFalse (aMap.containsKey (0));
+
+    for (int i = -5000; i < 5000; ++i)
+      assertEquals (i, aMap.addAndGet (i, i));
+    assertEquals (10000, aMap.size ());
+    for (int i = -5000; i < 5000; ++i)
+    {
+      assertTrue (aMap.containsKey (i));
+      assertEquals (i + 1, aMap.incrementAndGet (i));
+      assertEquals (i, aMap.decrementAndGet (i));
+    }
+    assertEquals (-5000, aMap.getSum ());
+
+    assertEquals (4711, aMap.addAndGet (4711, 0));
+    assertEquals (4711, aMap.getAndReset (4711));
+    assertEquals (0, aMap.get (4711));
+    assertTrue (aMap.containsKey (4711));
+    assertEquals (0, aMap.getAndReset (123456));
+    assertEquals (10000, aMap.size ());
+
+    final ICommonsMap <Integer, Long> aCmp = new CommonsHashMap <> ();
+    aMap.forEach ( (k, v) -> aCmp.put (Integer.valueOf (k), Long.valueOf (v)));
+    assertEquals (10000, aCmp.size ());
+    assertEquals (Long.valueOf (-17), aCmp.get (Integer.valueOf (-17)));
+    assertEquals (Long.valueOf (0), aCmp.get (Integer.valueOf (4711)));
+
+    aMap.clear ();
+    assertTrue (aMap.isEmpty ());
+    assertEquals (0, aMap.getSum ());
+    assertEquals (1, aMap.incrementAndGet (7));
+    assertEquals (1, aMap.size ());
+  }
+
+  @Test
+  public void testConcurrentIncrement ()
+  {
+    final IntLongCounterMap aMap = new IntLongCounterMap (1, 4);
+    final int nTasks = 16;
+    final int nKeys = 5000;
+    final AtomicInteger aTaskIndex = new AtomicInteger ();
+    CommonsTestHelper.testInParallel (nTasks, () -> {
+      // Start at different offsets to have key creation and table resizing
+      // concurrently to increments
+      final int nOffset = aTaskIndex.getAndIncrement () * 311;
+      for (int n = 0; n < 10; ++n)
+        for (int i = 0; i < nKeys; ++i)
+          aMap.incrementAndGet ((i + nOffset) % nKeys);
+    });
+
+    assertEquals (nKeys, aMap.size ());
+    for (int i = 0; i < nKeys; ++i)
+      assertEquals (nTasks * 10, aMap.get (i));
+    assertEquals ((long) nTasks * 10 * nKeys, aMap.getSum ());
+  }
+}
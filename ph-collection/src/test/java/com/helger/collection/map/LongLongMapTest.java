@@ -0,0 +1,174 @@
+/**
+ * Copyright (C) 2014-2017 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.collection.map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.helger.commons.collection.impl.CommonsHashSet;
+import com.helger.commons.collection.impl.ICommonsSet;
+import com.helger.commons.mutable.MutableInt;
+import com.helger.commons.random.RandomHelper;
+
+public final class LongLongMapTest
+{
+  private static final float [] FILL_FACTORS = { 0.25f, 0.5f, 0.75f, 0.9f, 0.99f };
+
+  private static LongLongMap _makeMap (final int size, final float fillFactor)
+  {
+    return new LongLongMap (size, fillFactor);
+  }
+
+  @Test
+  public void testPut ()
+  {
+    for (final float ff : FILL_FACTORS)
+      _testPutHelper (ff);
+  }
+
+  private void _testPutHelper (final float fillFactor)
+  {
+    final LongLongMap map = _makeMap (100, fillFactor);
+    for (int i = 0; i < 100000; ++i)
+    {
+      assertEquals (0, map.put (i, i));
+      assertEquals (i + 1, map.size ());
+      assertEquals (i, map.get (i));
+    }
+    // now check the final state
+    for (int i = 0; i < 100000; ++i)
+      assertEquals (i, map.get (i));
+  }
+
+  @Test
+  public void testPutNegative ()
+  {
+    for (final float ff : FILL_FACTORS)
+      _testPutNegative (ff);
+  }
+
+  private void _testPutNegative (final float fillFactor)
+  {
+    final LongLongMap map = _makeMap (100, fillFactor);
+    for (int i = 0; i < 100000; ++i)
+    {
+      map.put (-i, -i);
+      assertEquals (i + 1, map.size ());
+      assertEquals (-i, map.get (-i));
+    }
+    // now check the final state
+    for (int i = 0; i < 100000; ++i)
+      assertEquals (-i, map.get (-i));
+  }
+
+  @Test
+  public void testPutRandom ()
+  {
+    for (final float ff : FILL_FACTORS)
+      _testPutRandom (ff);
+  }
+
+  private void _testPutRandom (final float fillFactor)
+  {
+    final Random aRandom = RandomHelper.getRandom ();
+    final int SIZE = 100 * 1000;
+    final ICommonsSet <Long> set = new CommonsHashSet<> (SIZE);
+    final long [] vals = new long [SIZE];
+    while (set.size () < SIZE)
+      set.add (Long.valueOf (aRandom.nextLong ()));
+    int i = 0;
+    for (final Long v : set)
+      vals[i++] = v.longValue ();
+
+    final LongLongMap map = _makeMap (100, fillFactor);
+    for (i = 0; i < vals.length; ++i)
+    {
+      assertEquals (0, map.put (vals[i], vals[i]));
+      assertEquals (i + 1, map.size ());
+      assertEquals (vals[i], map.get (vals[i]));
+    }
+    // now check the final state
+    for (i = 0; i < vals.length; ++i)
+      assertEquals (vals[i], map.get (vals[i]));
+  }
+
+  @Test
+  public void testRemove ()
+  {
+    for (final float ff : FILL_FACTORS)
+      _testRemoveHelper (ff);
+  }
+
+  private void _testRemoveHelper (final float fillFactor)
+  {
+    final LongLongMap map = _makeMap (100, fillFactor);
+    int addCnt = 0;
+    int removeCnt = 0;
+    for (int i = 0; i < 100000; ++i)
+    {
+      assertEquals (0, map.put (addCnt, addCnt));
+      addCnt++;
+      assertEquals ("Failed for addCnt = " +
+                    addCnt +
+                    ", ff = " +
+                    fillFactor,
+                    LongLongMap.NO_VALUE,
+                    map.put (addCnt, addCnt));
+      addCnt++;
+      assertEquals (removeCnt, map.remove (removeCnt));
+      removeCnt++;
+
+      // map grows by one element on each iteration
+      assertEquals (i + 1, map.size ());
+    }
+    for (int i = removeCnt; i < addCnt; ++i)
+      assertEquals (i, map.get (i));
+  }
+
+  @Test
+  public void testLargeKeysAndValues ()
+  {
+    final LongLongMap map = new LongLongMap ();
+    final long nBase = Long.MAX_VALUE - 1000;
+    for (int i = 0; i < 1000; ++i)
+      map.put (nBase + i, Long.MIN_VALUE + i);
+    assertEquals (1000, map.size ());
+    for (int i = 0; i < 1000; ++i)
+    {
+      assertTrue (map.containsKey (nBase + i));
+      assertEquals (Long.MIN_VALUE + i, map.get (nBase + i));
+    }
+    assertFalse (map.containsKey (0));
+    map.put (0, 0);
+    assertTrue (map.containsKey (0));
+
+    final MutableInt aCount = new MutableInt (0);
+    map.forEach ( (k, v) -> {
+      assertEquals (map.get (k), v);
+      aCount.inc ();
+    });
+    assertEquals (1001, aCount.intValue ());
+
+    assertEquals (4711, map.computeIfAbsent (4711, k -> k));
+    assertEquals (4711, map.computeIfAbsent (4711, k -> 1));
+  }
+}
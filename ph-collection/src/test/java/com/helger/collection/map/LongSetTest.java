@@ -0,0 +1,83 @@
+/**
+ * Copyright (C) 2014-2017 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.collection.map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.helger.commons.mutable.MutableLong;
+
+/**
+ * Test class for class {@link LongSet}.
+ *
+ * @author Philip Helger
+ */
+public final class LongSetTest
+{
+  private static final float [] FILL_FACTORS = { 0.25f, 0.5f, 0.75f, 0.9f, 0.99f };
+
+  @Test
+  public void testAddRemove ()
+  {
+    for (final float ff : FILL_FACTORS)
+    {
+      final LongSet aSet = new LongSet (100, ff);
+      for (long i = -50000; i < 50000; ++i)
+      {
+        assertTrue (aSet.add (i * 0x100000001L));
+        assertFalse (aSet.add (i * 0x100000001L));
+      }
+      assertEquals (100000, aSet.size ());
+      for (long i = -50000; i < 50000; ++i)
+        assertTrue (aSet.contains (i * 0x100000001L));
+      assertFalse (aSet.contains (7));
+
+      for (long i = -50000; i < 50000; i += 2)
+        assertTrue (aSet.remove (i * 0x100000001L));
+      assertEquals (50000, aSet.size ());
+      for (long i = -50000; i < 50000; ++i)
+        assertEquals (i % 2 != 0, aSet.contains (i * 0x100000001L));
+      assertFalse (aSet.remove (-50000 * 0x100000001L));
+    }
+  }
+
+  @Test
+  public void testIterate ()
+  {
+    final LongSet aSet = new LongSet ();
+    assertTrue (aSet.isEmpty ());
+    aSet.add (0);
+    aSet.add (Long.MIN_VALUE);
+    aSet.add (Long.MAX_VALUE);
+    aSet.add (42);
+    assertEquals (4, aSet.size ());
+
+    final long [] aKeys = aSet.getAllKeys ();
+    Arrays.sort (aKeys);
+    assertArrayEquals (new long [] { Long.MIN_VALUE, 0, 42, Long.MAX_VALUE }, aKeys);
+
+    final MutableLong aSum = new MutableLong (0);
+    aSet.forEach (x -> aSum.inc (x == 42 ? 1 : 0));
+    assertEquals (1, aSum.longValue ());
+  }
+}
@@ -0,0 +1,87 @@
+/**
+ * Copyright (C) 2014-2017 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.collection.map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.helger.commons.mutable.MutableInt;
+
+/**
+ * Test class for class {@link ObjectLongMap}.
+ *
+ * @author Philip Helger
+ */
+public final class ObjectLongMapTest
+{
+  private static final float [] FILL_FACTORS = { 0.25f, 0.5f, 0.75f, 0.9f, 0.99f };
+
+  @Test
+  public void testPutRemove ()
+  {
+    for (final float ff : FILL_FACTORS)
+    {
+      final ObjectLongMap <String> map = new ObjectLongMap <> (100, ff);
+      for (int i = 0; i < 100000; ++i)
+      {
+        assertEquals (ObjectLongMap.NO_VALUE, map.put ("k" + i, i));
+        assertEquals (i + 1, map.size ());
+        assertEquals (i, map.get ("k" + i));
+      }
+      for (int i = 0; i < 100000; ++i)
+        assertEquals (i, map.get ("k" + i));
+
+      for (int i = 0; i < 100000; i += 2)
+        assertEquals (i, map.remove ("k" + i));
+      assertEquals (50000, map.size ());
+      for (int i = 0; i < 100000; ++i)
+      {
+        assertEquals (i % 2 != 0, map.containsKey ("k" + i));
+        assertEquals (i % 2 != 0 ? i : ObjectLongMap.NO_VALUE, map.get ("k" + i));
+      }
+    }
+  }
+
+  @Test
+  public void testNullKeyAndForEach ()
+  {
+    final ObjectLongMap <String> map = new ObjectLongMap <> ();
+    assertFalse (map.containsKey (null));
+    assertEquals (-1, map.get (null, -1));
+    map.put (null, 5);
+    assertTrue (map.containsKey (null));
+    assertEquals (5, map.get (null));
+    map.put ("a", 1);
+    map.put ("b", 2);
+    assertEquals (3, map.size ());
+
+    final MutableInt aSum = new MutableInt (0);
+    map.forEach ( (k, v) -> aSum.inc ((int) v));
+    assertEquals (8, aSum.intValue ());
+
+    assertEquals (3, map.computeIfAbsent ("abc", String::length));
+    assertEquals (3, map.computeIfAbsent ("abc", x -> 7));
+    assertEquals (4, map.size ());
+
+    assertEquals (5, map.remove (null));
+    assertFalse (map.containsKey (null));
+    assertEquals (3, map.size ());
+  }
+}
@@ -264,7 +264,7 @@ public final class Base64
   // Indicates white space in encoding
   static final byte WHITE_SPACE_ENC = -5;
   // Indicates equals sign in encoding
-  private static final byte EQUALS_SIGN_ENC = -1;
+  static final byte EQUALS_SIGN_ENC = -1;
 
   /* ******** S T A N D A R D B A S E 6 4 A L P H A B E T ******** */
 
@@ -1339,7 +1339,7 @@ public final class Base64
    */
   @Nonnull
   @ReturnsMutableObject ("design")
-  private static byte [] _getAlphabet (final int options)
+  static byte [] getAlphabet (final int options)
   {
     if ((options & URL_SAFE) == URL_SAFE)
       return _URL_SAFE_ALPHABET;
@@ -1356,7 +1356,7 @@ public final class Base64
    */
   @Nonnull
   @ReturnsMutableObject ("design")
-  static byte [] _getDecodabet (final int options)
+  static byte [] getDecodabet (final int options)
   {
     if ((options & URL_SAFE) == URL_SAFE)
       return _URL_SAFE_DECODABET;
@@ -1440,7 +1440,7 @@ public final class Base64
                               @Nonnegative final int destOffset,
                               final int options)
   {
-    final byte [] aAlphabet = _getAlphabet (options);
+    final byte [] aAlphabet = getAlphabet (options);
 
     // 1 2 3
     // 01234567890123456789012345678901 Bit position
@@ -1489,7 +1489,8 @@ public final class Base64
    * Performs Base64 encoding on the <code>raw</code> ByteBuffer, writing it to
    * the <code>encoded</code> ByteBuffer. This is an experimental feature.
    * Currently it does not pass along any options (such as
-   * {@link #DO_BREAK_LINES} or {@link #GZIP}.
+   * {@link #DO_BREAK_LINES} or {@link #GZIP} - use {@link Base64Encoder} for
+   * other alphabets or line breaking.
    *
    * @param raw
    *        input buffer
@@ -1499,23 +1500,15 @@ public final class Base64
    */
   public static void encode (@Nonnull final ByteBuffer raw, @Nonnull final ByteBuffer encoded)
   {
-    final byte [] raw3 = new byte [3];
-    final byte [] enc4 = new byte [4];
-
-    while (raw.hasRemaining ())
-    {
-      final int rem = Math.min (3, raw.remaining ());
-      raw.get (raw3, 0, rem);
-      _encode3to4 (enc4, raw3, rem, NO_OPTIONS);
-      encoded.put (enc4);
-    }
+    Base64Encoder.getBasicEncoder ().encode (raw, encoded);
   }
 
   /**
    * Performs Base64 encoding on the <code>raw</code> ByteBuffer, writing it to
    * the <code>encoded</code> CharBuffer. This is an experimental feature.
    * Currently it does not pass along any options (such as
-   * {@link #DO_BREAK_LINES} or {@link #GZIP}.
+   * {@link #DO_BREAK_LINES} or {@link #GZIP} - use {@link Base64Encoder} for
+   * other alphabets or line breaking.
    *
    * @param raw
    *        input buffer
@@ -1525,19 +1518,7 @@ public final class Base64
    */
   public static void encode (@Nonnull final ByteBuffer raw, @Nonnull final CharBuffer encoded)
   {
-    final byte [] raw3 = new byte [3];
-    final byte [] enc4 = new byte [4];
-
-    while (raw.hasRemaining ())
-    {
-      final int rem = Math.min (3, raw.remaining ());
-      raw.get (raw3, 0, rem);
-      _encode3to4 (enc4, raw3, rem, NO_OPTIONS);
-      for (int i = 0; i < 4; i++)
-      {
-        encoded.put ((char) (enc4[i] & 0xFF));
-      }
-    }
+    Base64Encoder.getBasicEncoder ().encode (raw, encoded);
   }
 
   /**
@@ -1872,64 +1853,7 @@ public final class Base64
     }
 
     // Else, don't compress. Better not to use streams at all then.
-    {
-      final boolean breakLines = (nOptions & DO_BREAK_LINES) != 0;
-
-      // int len43 = len * 4 / 3;
-      // byte[] outBuff = new byte[ ( len43 ) // Main 4:3
-      // + ( (len % 3) > 0 ? 4 : 0 ) // Account for padding
-      // + (breakLines ? ( len43 / MAX_LINE_LENGTH ) : 0) ]; // New lines
-      // Try to determine more precisely how big the array needs to be.
-      // If we get it right, we don't have to do an array copy, and
-      // we save a bunch of memory.
-      int encLen = (nLen / 3) * 4 + (nLen % 3 > 0 ? 4 : 0); // Bytes needed for
-      // actual encoding
-      if (breakLines)
-      {
-        encLen += encLen / MAX_LINE_LENGTH; // Plus extra newline characters
-      }
-      final byte [] outBuff = new byte [encLen];
-
-      int d = 0;
-      int e = 0;
-      final int len2 = nLen - 2;
-      int lineLength = 0;
-      for (; d < len2; d += 3, e += 4)
-      {
-        _encode3to4 (aSource, d + nOfs, 3, outBuff, e, nOptions);
-
-        lineLength += 4;
-        if (breakLines && lineLength >= MAX_LINE_LENGTH)
-        {
-          outBuff[e + 4] = NEW_LINE;
-          e++;
-          lineLength = 0;
-        }
-      } // end for: each piece of array
-
-      if (d < nLen)
-      {
-        _encode3to4 (aSource, d + nOfs, nLen - d, outBuff, e, nOptions);
-        e += 4;
-      }
-
-      // Only resize array if we didn't guess it right.
-      if (e <= outBuff.length - 1)
-      {
-        // If breaking lines and the last byte falls right at
-        // the line length (76 bytes per line), there will be
-        // one extra byte, and the array will need to be resized.
-        // Not too bad of an estimate on array size, I'd say.
-        final byte [] finalOut = new byte [e];
-        System.arraycopy (outBuff, 0, finalOut, 0, e);
-        // System.err.println("Having to resize array from " + outBuff.length +
-        // " to " + e );
-        return finalOut;
-      }
-
-      // System.err.println("No need to resize array.");
-      return outBuff;
-    }
+    return Base64Encoder.getInstance (nOptions).getEncoded (aSource, nOfs, nLen);
   }
 
   /* ******** D E C O D I N G M E T H O D S ******** */
@@ -1994,55 +1918,7 @@ public final class Base64
                                           " and still store three bytes.");
     }
 
-    final byte [] aDecodabet = _getDecodabet (options);
-
-    // Example: Dk==
-    if (source[srcOffset + 2] == EQUALS_SIGN)
-    {
-      // Two ways to do the same thing. Don't know which way I like best.
-      // int outBuff = ( ( DECODABET[ source[ srcOffset ] ] << 24 ) >>> 6 )
-      // | ( ( DECODABET[ source[ srcOffset + 1] ] << 24 ) >>> 12 );
-      final int outBuff = ((aDecodabet[source[srcOffset]] & 0xFF) << 18) |
-                          ((aDecodabet[source[srcOffset + 1]] & 0xFF) << 12);
-
-      destination[destOffset] = (byte) (outBuff >>> 16);
-      return 1;
-    }
-
-    // Example: DkL=
-    if (source[srcOffset + 3] == EQUALS_SIGN)
-    {
-      // Two ways to do the same thing. Don't know which way I like best.
-      // int outBuff = ( ( DECODABET[ source[ srcOffset ] ] << 24 ) >>> 6 )
-      // | ( ( DECODABET[ source[ srcOffset + 1 ] ] << 24 ) >>> 12 )
-      // | ( ( DECODABET[ source[ srcOffset + 2 ] ] << 24 ) >>> 18 );
-      final int outBuff = ((aDecodabet[source[srcOffset]] & 0xFF) << 18) |
-                          ((aDecodabet[source[srcOffset + 1]] & 0xFF) << 12) |
-                          ((aDecodabet[source[srcOffset + 2]] & 0xFF) << 6);
-
-      destination[destOffset] = (byte) (outBuff >>> 16);
-      destination[destOffset + 1] = (byte) (outBuff >>> 8);
-      return 2;
-    }
-
-    // Example: DkLE
-    {
-      // Two ways to do the same thing. Don't know which way I like best.
-      // int outBuff = ( ( DECODABET[ source[ srcOffset ] ] << 24 ) >>> 6 )
-      // | ( ( DECODABET[ source[ srcOffset + 1 ] ] << 24 ) >>> 12 )
-      // | ( ( DECODABET[ source[ srcOffset + 2 ] ] << 24 ) >>> 18 )
-      // | ( ( DECODABET[ source[ srcOffset + 3 ] ] << 24 ) >>> 24 );
-      final int outBuff = ((aDecodabet[source[srcOffset]] & 0xFF) << 18) |
-                          ((aDecodabet[source[srcOffset + 1]] & 0xFF) << 12) |
-                          ((aDecodabet[source[srcOffset + 2]] & 0xFF) << 6) |
-                          ((aDecodabet[source[srcOffset + 3]] & 0xFF));
-
-      destination[destOffset] = (byte) (outBuff >> 16);
-      destination[destOffset + 1] = (byte) (outBuff >> 8);
-      destination[destOffset + 2] = (byte) (outBuff);
-
-      return 3;
-    }
+    return Base64Decoder.getInstance (options).decodeQuantum (source, srcOffset, destination, destOffset);
   }
 
   /**
@@ -2130,58 +2006,7 @@ public final class Base64
                           () -> "Base64-encoded string must have at least four characters, but length specified was " +
                                 nLen);
 
-    final byte [] aDecodabet = _getDecodabet (nOptions);
-
-    // Estimate on array size
-    final int len34 = nLen * 3 / 4;
-    // Upper limit on size of output
-    final byte [] outBuff = new byte [len34];
-    // Keep track of where we're writing
-    int outBuffPosn = 0;
-
-    // Four byte buffer from source, eliminating white space
-    final byte [] b4 = new byte [4];
-    // Keep track of four byte input buffer
-    int b4Posn = 0;
-    // Source array counter
-    int i;
-    // Special value from DECODABET
-    byte sbiDecode;
-
-    for (i = nOfs; i < nOfs + nLen; i++)
-    {
-      // Loop through source
-      sbiDecode = aDecodabet[aSource[i] & 0xFF];
-
-      // White space, Equals sign, or legit Base64 character
-      // Note the values such as -5 and -9 in the
-      // DECODABETs at the top of the file.
-      if (sbiDecode >= WHITE_SPACE_ENC)
-      {
-        if (sbiDecode >= EQUALS_SIGN_ENC)
-        {
-          b4[b4Posn++] = aSource[i]; // Save non-whitespace
-          if (b4Posn > 3)
-          { // Time to decode?
-            outBuffPosn += _decode4to3 (b4, 0, outBuff, outBuffPosn, nOptions);
-            b4Posn = 0;
-
-            // If that was the equals sign, break out of 'for' loop
-            if (aSource[i] == EQUALS_SIGN)
-              break;
-          }
-        }
-      }
-      else
-      {
-        // There's a bad input character in the Base64 stream.
-        throw new IOException ("Bad Base64 input character decimal " + (aSource[i] & 0xFF) + " in array position " + i);
-      }
-    }
-
-    final byte [] aOut = new byte [outBuffPosn];
-    System.arraycopy (outBuff, 0, aOut, 0, outBuffPosn);
-    return aOut;
+    return Base64Decoder.getInstance (nOptions).getDecoded (aSource, nOfs, nLen);
   }
 
   /**
@@ -0,0 +1,359 @@
+/**
+ * Copyright (C) 2014-2017 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.base64;
+
+import java.io.IOException;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.ReturnsMutableCopy;
+import com.helger.commons.collection.ArrayHelper;
+import com.helger.commons.string.ToStringGenerator;
+
+/**
+ * A table driven Base64 decoder, the counterpart of {@link Base64Encoder}. Each
+ * group of 4 alphabet chars is translated with four lookups into tables that
+ * already contain the 6 bit values at their final position in the 24 bit
+ * group. Whitespaces, padding and invalid chars are all mapped to -1, so a
+ * single sign check per group is enough to fall back to the char-wise path.
+ * The result is identical to the one of
+ * {@link Base64#decode(byte[], int, int, int)}.<br>
+ * Instances are immutable and can be shared. Use {@link #getInstance(int)} to
+ * get a decoder for the option flags of {@link Base64}, or one of the
+ * predefined decoders.
+ *
+ * @author Philip Helger
+ * @since 9.0.0
+ */
+@Immutable
+public final class Base64Decoder
+{
+  private static final Base64Decoder s_aBasic = new Base64Decoder ("standard",
+                                                                  Base64.getDecodabet (Base64.NO_OPTIONS));
+  private static final Base64Decoder s_aUrlSafe = new Base64Decoder ("URL safe",
+                                                                    Base64.getDecodabet (Base64.URL_SAFE));
+  private static final Base64Decoder s_aOrdered = new Base64Decoder ("ordered", Base64.getDecodabet (Base64.ORDERED));
+
+  private final String m_sAlphabetName;
+
+  // The char classes of Base64 (alphabet value, whitespace, equals sign or
+  // invalid)
+  private final byte [] m_aDecodabet;
+  // The alphabet values shifted to the position in the 24 bit group, -1 for
+  // all other chars
+  private final int [] m_aShift18 = new int [256];
+  private final int [] m_aShift12 = new int [256];
+  private final int [] m_aShift6 = new int [256];
+  private final int [] m_aShift0 = new int [256];
+
+  private Base64Decoder (@Nonnull final String sAlphabetName, @Nonnull final byte [] aDecodabet)
+  {
+    m_sAlphabetName = sAlphabetName;
+    m_aDecodabet = aDecodabet;
+    for (int i = 0; i < 256; ++i)
+    {
+      final int nValue = aDecodabet[i];
+      final boolean bAlphabet = nValue >= 0;
+      m_aShift18[i] = bAlphabet ? nValue << 18 : -1;
+      m_aShift12[i] = bAlphabet ? nValue << 12 : -1;
+      m_aShift6[i] = bAlphabet ? nValue << 6 : -1;
+      m_aShift0[i] = bAlphabet ? nValue : -1;
+    }
+  }
+
+  /**
+   * Check if the passed byte is relevant for decoding, that is an alphabet
+   * char or the equals sign.
+   *
+   * @param nByte
+   *        The byte to check.
+   * @return <code>true</code> if it is relevant, <code>false</code> if it is a
+   *         whitespace or an invalid char.
+   */
+  boolean isSignificant (final int nByte)
+  {
+    return m_aDecodabet[nByte & 0xff] >= Base64.EQUALS_SIGN_ENC;
+  }
+
+  /**
+   * Check if the passed byte is a whitespace that is ignored when decoding.
+   *
+   * @param nByte
+   *        The byte to check.
+   * @return <code>true</code> if it is a whitespace.
+   */
+  boolean isWhitespace (final int nByte)
+  {
+    return m_aDecodabet[nByte & 0xff] == Base64.WHITE_SPACE_ENC;
+  }
+
+  /**
+   * Decode a group of 4 alphabet chars.
+   *
+   * @param aSrc
+   *        Source array. At least 4 bytes must be available after the offset.
+   * @param nSrcOfs
+   *        Source offset.
+   * @return The decoded 24 bit value or a negative value if at least one of
+   *         the 4 chars is not an alphabet char.
+   */
+  int decodeGroup (@Nonnull final byte [] aSrc, final int nSrcOfs)
+  {
+    return m_aShift18[aSrc[nSrcOfs] & 0xff] |
+           m_aShift12[aSrc[nSrcOfs + 1] & 0xff] |
+           m_aShift6[aSrc[nSrcOfs + 2] & 0xff] |
+           m_aShift0[aSrc[nSrcOfs + 3] & 0xff];
+  }
+
+  /**
+   * Decode a quantum of 4 significant chars (see {@link #isSignificant(int)})
+   * that may contain padding.
+   *
+   * @param aSrc
+   *        Source array. At least 4 bytes must be available after the offset.
+   * @param nSrcOfs
+   *        Source offset.
+   * @param aDst
+   *        Destination array. At least 3 bytes must be available after the
+   *        offset.
+   * @param nDstOfs
+   *        Destination offset.
+   * @return The number of decoded bytes (1-3).
+   */
+  @Nonnegative
+  int decodeQuantum (@Nonnull final byte [] aSrc, final int nSrcOfs, @Nonnull final byte [] aDst, final int nDstOfs)
+  {
+    final byte [] aDecodabet = m_aDecodabet;
+    final int n0 = (aDecodabet[aSrc[nSrcOfs] & 0xff] & 0xff) << 18;
+    final int n1 = (aDecodabet[aSrc[nSrcOfs + 1] & 0xff] & 0xff) << 12;
+
+    // Example: Dk==
+    if (aSrc[nSrcOfs + 2] == Base64.EQUALS_SIGN)
+    {
+      aDst[nDstOfs] = (byte) ((n0 | n1) >>> 16);
+      return 1;
+    }
+
+    final int n2 = (aDecodabet[aSrc[nSrcOfs + 2] & 0xff] & 0xff) << 6;
+
+    // Example: DkL=
+    if (aSrc[nSrcOfs + 3] == Base64.EQUALS_SIGN)
+    {
+      final int nBits = n0 | n1 | n2;
+      aDst[nDstOfs] = (byte) (nBits >>> 16);
+      aDst[nDstOfs + 1] = (byte) (nBits >>> 8);
+      return 2;
+    }
+
+    // Example: DkLE
+    final int nBits = n0 | n1 | n2 | (aDecodabet[aSrc[nSrcOfs + 3] & 0xff] & 0xff);
+    aDst[nDstOfs] = (byte) (nBits >> 16);
+    aDst[nDstOfs + 1] = (byte) (nBits >> 8);
+    aDst[nDstOfs + 2] = (byte) nBits;
+    return 3;
+  }
+
+  /**
+   * Get the maximum number of bytes the decoding of the provided number of
+   * chars may result in.
+   *
+   * @param nLen
+   *        Number of chars to be decoded. Must be &ge; 0.
+   * @return The maximum number of decoded bytes. Always &ge; 0.
+   */
+  @Nonnegative
+  public static int getMaxDecodedLength (@Nonnegative final int nLen)
+  {
+    ValueEnforcer.isGE0 (nLen, "Len");
+    return (int) (nLen * 3L / 4);
+  }
+
+  /**
+   * Decode the passed chars into the passed byte array. Whitespaces are
+   * ignored and decoding stops after the first quantum that ends with the
+   * equals sign.
+   *
+   * @param aSrc
+   *        Source array. May not be <code>null</code>.
+   * @param nSrcOfs
+   *        Offset into source array. Must be &ge; 0.
+   * @param nSrcLen
+   *        Number of chars to decode. Must be &ge; 0.
+   * @param aDst
+   *        Destination array. May not be <code>null</code> and must have at
+   *        least {@link #getMaxDecodedLength(int)} bytes left after
+   *        <code>nDstOfs</code>.
+   * @param nDstOfs
+   *        Offset into destination array. Must be &ge; 0.
+   * @return The number of bytes written.
+   * @throws IOException
+   *         If an invalid char is contained
+   */
+  @Nonnegative
+  public int decode (@Nonnull final byte [] aSrc,
+                     @Nonnegative final int nSrcOfs,
+                     @Nonnegative final int nSrcLen,
+                     @Nonnull final byte [] aDst,
+                     @Nonnegative final int nDstOfs) throws IOException
+  {
+    ValueEnforcer.isArrayOfsLen (aSrc, nSrcOfs, nSrcLen);
+    ValueEnforcer.isArrayOfsLen (aDst, nDstOfs, getMaxDecodedLength (nSrcLen));
+
+    final byte [] aDecodabet = m_aDecodabet;
+    final byte [] aQuantum = new byte [4];
+    int nQuantumLen = 0;
+    final int nSrcEnd = nSrcOfs + nSrcLen;
+    final int nFastEnd = nSrcEnd - 4;
+    int nSrcIdx = nSrcOfs;
+    int nDstIdx = nDstOfs;
+    while (nSrcIdx < nSrcEnd)
+    {
+      if (nQuantumLen == 0)
+      {
+        // Fast path for complete groups of alphabet chars
+        while (nSrcIdx <= nFastEnd)
+        {
+          final int nBits = decodeGroup (aSrc, nSrcIdx);
+          if (nBits < 0)
+            break;
+          aDst[nDstIdx] = (byte) (nBits >> 16);
+          aDst[nDstIdx + 1] = (byte) (nBits >> 8);
+          aDst[nDstIdx + 2] = (byte) nBits;
+          nSrcIdx += 4;
+          nDstIdx += 3;
+        }
+        if (nSrcIdx == nSrcEnd)
+          break;
+      }
+
+      final byte nByte = aSrc[nSrcIdx];
+      final byte nDecoded = aDecodabet[nByte & 0xff];
+      if (nDecoded >= Base64.EQUALS_SIGN_ENC)
+      {
+        aQuantum[nQuantumLen++] = nByte;
+        if (nQuantumLen == 4)
+        {
+          nDstIdx += decodeQuantum (aQuantum, 0, aDst, nDstIdx);
+          nQuantumLen = 0;
+
+          // If that was the equals sign, stop decoding
+          if (nByte == Base64.EQUALS_SIGN)
+            break;
+        }
+      }
+      else
+        if (nDecoded != Base64.WHITE_SPACE_ENC)
+        {
+          // There's a bad input character in the Base64 stream.
+          throw new IOException ("Bad Base64 input character decimal " +
+                                 (nByte & 0xFF) +
+                                 " in array position " +
+                                 nSrcIdx);
+        }
+      nSrcIdx++;
+    }
+    return nDstIdx - nDstOfs;
+  }
+
+  /**
+   * Decode the passed chars into a new byte array.
+   *
+   * @param aSrc
+   *        Source array. May not be <code>null</code>.
+   * @param nOfs
+   *        Offset into source array. Must be &ge; 0.
+   * @param nLen
+   *        Number of chars to decode. Must be &ge; 0.
+   * @return The decoded bytes. Never <code>null</code>.
+   * @throws IOException
+   *         If an invalid char is contained
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public byte [] getDecoded (@Nonnull final byte [] aSrc,
+                             @Nonnegative final int nOfs,
+                             @Nonnegative final int nLen) throws IOException
+  {
+    final byte [] aDst = new byte [getMaxDecodedLength (nLen)];
+    final int nDecoded = decode (aSrc, nOfs, nLen, aDst, 0);
+    return nDecoded == aDst.length ? aDst : ArrayHelper.getCopy (aDst, 0, nDecoded);
+  }
+
+  /**
+   * Decode the passed chars into a new byte array.
+   *
+   * @param aSrc
+   *        Source array. May not be <code>null</code>.
+   * @return The decoded bytes. Never <code>null</code>.
+   * @throws IOException
+   *         If an invalid char is contained
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public byte [] getDecoded (@Nonnull final byte [] aSrc) throws IOException
+  {
+    return getDecoded (aSrc, 0, aSrc.length);
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("Alphabet", m_sAlphabetName).getToString ();
+  }
+
+  /**
+   * Get the decoder matching the provided {@link Base64} options. Only the
+   * alphabet options ({@link Base64#URL_SAFE}, {@link Base64#ORDERED}) are
+   * considered.
+   *
+   * @param nOptions
+   *        The options to use.
+   * @return The shared decoder instance. Never <code>null</code>.
+   */
+  @Nonnull
+  public static Base64Decoder getInstance (final int nOptions)
+  {
+    // Same precedence as in Base64.getDecodabet
+    if ((nOptions & Base64.URL_SAFE) != 0)
+      return s_aUrlSafe;
+    if ((nOptions & Base64.ORDERED) != 0)
+      return s_aOrdered;
+    return s_aBasic;
+  }
+
+  /**
+   * @return The decoder with the standard alphabet. Never <code>null</code>.
+   */
+  @Nonnull
+  public static Base64Decoder getBasicDecoder ()
+  {
+    return s_aBasic;
+  }
+
+  /**
+   * @return The decoder with the URL and filename safe alphabet. Never
+   *         <code>null</code>.
+   */
+  @Nonnull
+  public static Base64Decoder getUrlSafeDecoder ()
+  {
+    return s_aUrlSafe;
+  }
+}
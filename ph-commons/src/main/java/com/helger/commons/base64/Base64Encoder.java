@@ -0,0 +1,572 @@
+/**
+ * Copyright (C) 2014-2017 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.base64;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.ReturnsMutableCopy;
+import com.helger.commons.collection.ArrayHelper;
+import com.helger.commons.string.ToStringGenerator;
+
+/**
+ * A table driven Base64 encoder that writes directly into caller provided
+ * <code>byte[]</code>, <code>char[]</code> or {@link java.nio.Buffer} objects.
+ * Each 3 byte group is translated with two lookups into a precomputed table of
+ * 12 bit values, and complete lines (or the whole input if no line breaking is
+ * needed) are processed in one tight loop without any per-group option checks.
+ * <br>
+ * Instances are immutable and can be shared. Use {@link #getInstance(int)} to
+ * get an encoder for the option flags of {@link Base64}, or one of the
+ * predefined encoders.
+ *
+ * @author Philip Helger
+ * @since 9.0.0
+ */
+@Immutable
+public final class Base64Encoder
+{
+  /** The MIME line length according to RFC 2045 */
+  public static final int MIME_LINE_LENGTH = 76;
+
+  private static final byte [] NEW_LINE = { Base64.NEW_LINE };
+  private static final byte [] CRLF = { '\r', '\n' };
+
+  // Index: see _getInstanceIndex
+  private static final Base64Encoder [] s_aOptionInstances = new Base64Encoder [6];
+  static
+  {
+    for (final int nAlphabetOption : new int [] { Base64.NO_OPTIONS, Base64.URL_SAFE, Base64.ORDERED })
+      for (final int nBreakOption : new int [] { Base64.NO_OPTIONS, Base64.DO_BREAK_LINES })
+      {
+        final int nOptions = nAlphabetOption | nBreakOption;
+        // The legacy line breaking emits a newline after every complete line
+        s_aOptionInstances[_getInstanceIndex (nOptions)] = new Base64Encoder (Base64.getAlphabet (nOptions),
+                                                                              nBreakOption != 0 ? Base64.MAX_LINE_LENGTH
+                                                                                                : 0,
+                                                                              NEW_LINE,
+                                                                              true);
+      }
+  }
+
+  private static final Base64Encoder s_aBasic = getInstance (Base64.NO_OPTIONS);
+  private static final Base64Encoder s_aUrlSafe = getInstance (Base64.URL_SAFE);
+  private static final Base64Encoder s_aMime = new Base64Encoder (Base64.getAlphabet (Base64.NO_OPTIONS),
+                                                                  MIME_LINE_LENGTH,
+                                                                  CRLF,
+                                                                  false);
+
+  // Maps 12 bits of input to the 2 output characters (high char in the upper
+  // byte)
+  private final char [] m_aTable12 = new char [4096];
+  private final int m_nLineLength;
+  private final int m_nGroupsPerLine;
+  private final byte [] m_aLineSeparator;
+  private final boolean m_bSeparatorAfterLastLine;
+
+  private Base64Encoder (@Nonnull final byte [] aAlphabet,
+                         @Nonnegative final int nLineLength,
+                         @Nonnull final byte [] aLineSeparator,
+                         final boolean bSeparatorAfterLastLine)
+  {
+    for (int i = 0; i < m_aTable12.length; ++i)
+      m_aTable12[i] = (char) ((aAlphabet[i >>> 6] << 8) | aAlphabet[i & 0x3f]);
+    m_nLineLength = nLineLength;
+    m_nGroupsPerLine = nLineLength / 4;
+    m_aLineSeparator = aLineSeparator;
+    m_bSeparatorAfterLastLine = bSeparatorAfterLastLine;
+  }
+
+  /**
+   * @return The maximum number of encoded characters per line. 0 means that
+   *         lines are not broken.
+   */
+  @Nonnegative
+  public int getLineLength ()
+  {
+    return m_nLineLength;
+  }
+
+  /**
+   * @return <code>true</code> if lines are broken, <code>false</code> if not.
+   */
+  public boolean isBreakLines ()
+  {
+    return m_nGroupsPerLine > 0;
+  }
+
+  @Nonnegative
+  private int _getSeparatorCount (@Nonnegative final int nLen)
+  {
+    if (m_nGroupsPerLine == 0)
+      return 0;
+    final int nFullGroups = nLen / 3;
+    int ret = nFullGroups / m_nGroupsPerLine;
+    if (!m_bSeparatorAfterLastLine && ret > 0 && nLen % 3 == 0 && nFullGroups % m_nGroupsPerLine == 0)
+    {
+      // No separator after the last line
+      ret--;
+    }
+    return ret;
+  }
+
+  /**
+   * Get the exact number of bytes or chars the encoding of the provided number
+   * of bytes will need.
+   *
+   * @param nLen
+   *        Number of bytes to be encoded. Must be &ge; 0.
+   * @return The number of encoded bytes. Always &ge; 0.
+   * @throws IllegalArgumentException
+   *         If the encoded length would exceed {@link Integer#MAX_VALUE}.
+   */
+  @Nonnegative
+  public int getEncodedLength (@Nonnegative final int nLen)
+  {
+    ValueEnforcer.isGE0 (nLen, "Len");
+    final long nEncodedLen = (nLen + 2L) / 3 * 4 + (long) _getSeparatorCount (nLen) * m_aLineSeparator.length;
+    if (nEncodedLen > Integer.MAX_VALUE)
+      throw new IllegalArgumentException ("Encoding " +
+                                          nLen +
+                                          " bytes would result in " +
+                                          nEncodedLen +
+                                          " bytes, which exceeds the maximum array size");
+    return (int) nEncodedLen;
+  }
+
+  private int _encodeGroups (@Nonnull final byte [] aSrc,
+                             final int nSrcOfs,
+                             final int nGroups,
+                             @Nonnull final byte [] aDst,
+                             final int nDstOfs)
+  {
+    final char [] aTable = m_aTable12;
+    int nSrcIdx = nSrcOfs;
+    int nDstIdx = nDstOfs;
+    for (int i = 0; i < nGroups; ++i)
+    {
+      final int nBits = (aSrc[nSrcIdx] & 0xff) << 16 | (aSrc[nSrcIdx + 1] & 0xff) << 8 | (aSrc[nSrcIdx + 2] & 0xff);
+      final char c1 = aTable[nBits >>> 12];
+      final char c2 = aTable[nBits & 0xfff];
+      aDst[nDstIdx] = (byte) (c1 >>> 8);
+      aDst[nDstIdx + 1] = (byte) c1;
+      aDst[nDstIdx + 2] = (byte) (c2 >>> 8);
+      aDst[nDstIdx + 3] = (byte) c2;
+      nSrcIdx += 3;
+      nDstIdx += 4;
+    }
+    return nDstIdx;
+  }
+
+  private int _encodeGroups (@Nonnull final byte [] aSrc,
+                             final int nSrcOfs,
+                             final int nGroups,
+                             @Nonnull final char [] aDst,
+                             final int nDstOfs)
+  {
+    final char [] aTable = m_aTable12;
+    int nSrcIdx = nSrcOfs;
+    int nDstIdx = nDstOfs;
+    for (int i = 0; i < nGroups; ++i)
+    {
+      final int nBits = (aSrc[nSrcIdx] & 0xff) << 16 | (aSrc[nSrcIdx + 1] & 0xff) << 8 | (aSrc[nSrcIdx + 2] & 0xff);
+      final char c1 = aTable[nBits >>> 12];
+      final char c2 = aTable[nBits & 0xfff];
+      aDst[nDstIdx] = (char) (c1 >>> 8);
+      aDst[nDstIdx + 1] = (char) (c1 & 0xff);
+      aDst[nDstIdx + 2] = (char) (c2 >>> 8);
+      aDst[nDstIdx + 3] = (char) (c2 & 0xff);
+      nSrcIdx += 3;
+      nDstIdx += 4;
+    }
+    return nDstIdx;
+  }
+
+  /**
+   * Encode the last 1 or 2 bytes of the input including padding.
+   *
+   * @return the 4 encoded chars packed into a long (first char in the highest
+   *         16 bits).
+   */
+  private long _encodeRemainder (@Nonnull final byte [] aSrc, final int nSrcOfs, final int nRemaining)
+  {
+    final int nBits = (aSrc[nSrcOfs] & 0xff) << 16 | (nRemaining > 1 ? (aSrc[nSrcOfs + 1] & 0xff) << 8 : 0);
+    final char c1 = m_aTable12[nBits >>> 12];
+    final char c2 = m_aTable12[nBits & 0xfff];
+    final long c3 = nRemaining > 1 ? c2 >>> 8 : Base64.EQUALS_SIGN;
+    return ((long) (c1 >>> 8)) << 48 | ((long) (c1 & 0xff)) << 32 | c3 << 16 | Base64.EQUALS_SIGN;
+  }
+
+  /**
+   * Encode the passed bytes into the passed byte array.
+   *
+   * @param aSrc
+   *        Source array. May not be <code>null</code>.
+   * @param nSrcOfs
+   *        Offset into source array. Must be &ge; 0.
+   * @param nSrcLen
+   *        Number of bytes to encode. Must be &ge; 0.
+   * @param aDst
+   *        Destination array. May not be <code>null</code> and must have at
+   *        least {@link #getEncodedLength(int)} bytes left after
+   *        <code>nDstOfs</code>.
+   * @param nDstOfs
+   *        Offset into destination array. Must be &ge; 0.
+   * @return The number of bytes written.
+   */
+  @Nonnegative
+  public int encode (@Nonnull final byte [] aSrc,
+                     @Nonnegative final int nSrcOfs,
+                     @Nonnegative final int nSrcLen,
+                     @Nonnull final byte [] aDst,
+                     @Nonnegative final int nDstOfs)
+  {
+    ValueEnforcer.isArrayOfsLen (aSrc, nSrcOfs, nSrcLen);
+    ValueEnforcer.isArrayOfsLen (aDst, nDstOfs, getEncodedLength (nSrcLen));
+
+    final int nRemainder = nSrcLen % 3;
+    int nFullGroups = nSrcLen / 3;
+    int nSrcIdx = nSrcOfs;
+    int nDstIdx = nDstOfs;
+    if (m_nGroupsPerLine == 0)
+    {
+      nDstIdx = _encodeGroups (aSrc, nSrcIdx, nFullGroups, aDst, nDstIdx);
+      nSrcIdx += nFullGroups * 3;
+    }
+    else
+      while (nFullGroups > 0)
+      {
+        final int nGroups = Math.min (nFullGroups, m_nGroupsPerLine);
+        nDstIdx = _encodeGroups (aSrc, nSrcIdx, nGroups, aDst, nDstIdx);
+        nSrcIdx += nGroups * 3;
+        nFullGroups -= nGroups;
+        if (nGroups == m_nGroupsPerLine && (m_bSeparatorAfterLastLine || nFullGroups > 0 || nRemainder > 0))
+          for (final byte b : m_aLineSeparator)
+            aDst[nDstIdx++] = b;
+      }
+
+    if (nRemainder > 0)
+    {
+      final long nChars = _encodeRemainder (aSrc, nSrcIdx, nRemainder);
+      aDst[nDstIdx] = (byte) (nChars >>> 48);
+      aDst[nDstIdx + 1] = (byte) (nChars >>> 32);
+      aDst[nDstIdx + 2] = (byte) (nChars >>> 16);
+      aDst[nDstIdx + 3] = (byte) nChars;
+      nDstIdx += 4;
+    }
+    return nDstIdx - nDstOfs;
+  }
+
+  /**
+   * Encode the passed bytes into the passed char array.
+   *
+   * @param aSrc
+   *        Source array. May not be <code>null</code>.
+   * @param nSrcOfs
+   *        Offset into source array. Must be &ge; 0.
+   * @param nSrcLen
+   *        Number of bytes to encode. Must be &ge; 0.
+   * @param aDst
+   *        Destination array. May not be <code>null</code> and must have at
+   *        least {@link #getEncodedLength(int)} chars left after
+   *        <code>nDstOfs</code>.
+   * @param nDstOfs
+   *        Offset into destination array. Must be &ge; 0.
+   * @return The number of chars written.
+   */
+  @Nonnegative
+  public int encode (@Nonnull final byte [] aSrc,
+                     @Nonnegative final int nSrcOfs,
+                     @Nonnegative final int nSrcLen,
+                     @Nonnull final char [] aDst,
+                     @Nonnegative final int nDstOfs)
+  {
+    ValueEnforcer.isArrayOfsLen (aSrc, nSrcOfs, nSrcLen);
+    ValueEnforcer.isArrayOfsLen (aDst, nDstOfs, getEncodedLength (nSrcLen));
+
+    final int nRemainder = nSrcLen % 3;
+    int nFullGroups = nSrcLen / 3;
+    int nSrcIdx = nSrcOfs;
+    int nDstIdx = nDstOfs;
+    if (m_nGroupsPerLine == 0)
+    {
+      nDstIdx = _encodeGroups (aSrc, nSrcIdx, nFullGroups, aDst, nDstIdx);
+      nSrcIdx += nFullGroups * 3;
+    }
+    else
+      while (nFullGroups > 0)
+      {
+        final int nGroups = Math.min (nFullGroups, m_nGroupsPerLine);
+        nDstIdx = _encodeGroups (aSrc, nSrcIdx, nGroups, aDst, nDstIdx);
+        nSrcIdx += nGroups * 3;
+        nFullGroups -= nGroups;
+        if (nGroups == m_nGroupsPerLine && (m_bSeparatorAfterLastLine || nFullGroups > 0 || nRemainder > 0))
+          for (final byte b : m_aLineSeparator)
+            aDst[nDstIdx++] = (char) b;
+      }
+
+    if (nRemainder > 0)
+    {
+      final long nChars = _encodeRemainder (aSrc, nSrcIdx, nRemainder);
+      aDst[nDstIdx] = (char) ((nChars >>> 48) & 0xff);
+      aDst[nDstIdx + 1] = (char) ((nChars >>> 32) & 0xff);
+      aDst[nDstIdx + 2] = (char) ((nChars >>> 16) & 0xff);
+      aDst[nDstIdx + 3] = (char) (nChars & 0xff);
+      nDstIdx += 4;
+    }
+    return nDstIdx - nDstOfs;
+  }
+
+  /**
+   * Encode all remaining bytes of the source buffer into the destination
+   * buffer. Array backed buffers are accessed directly, without intermediate
+   * copies.
+   *
+   * @param aSrc
+   *        Source buffer. May not be <code>null</code>.
+   * @param aDst
+   *        Destination buffer. May not be <code>null</code>.
+   * @throws BufferOverflowException
+   *         If the destination buffer has not enough space left. In this case
+   *         none of the buffers is modified.
+   */
+  public void encode (@Nonnull final ByteBuffer aSrc, @Nonnull final ByteBuffer aDst)
+  {
+    ValueEnforcer.notNull (aSrc, "Src");
+    ValueEnforcer.notNull (aDst, "Dst");
+
+    final int nSrcLen = aSrc.remaining ();
+    final int nDstLen = getEncodedLength (nSrcLen);
+    if (aDst.remaining () < nDstLen)
+      throw new BufferOverflowException ();
+
+    final byte [] aSrcArray;
+    final int nSrcOfs;
+    if (aSrc.hasArray ())
+    {
+      aSrcArray = aSrc.array ();
+      nSrcOfs = aSrc.arrayOffset () + aSrc.position ();
+    }
+    else
+    {
+      aSrcArray = new byte [nSrcLen];
+      aSrc.duplicate ().get (aSrcArray);
+      nSrcOfs = 0;
+    }
+
+    if (aDst.hasArray () && !aDst.isReadOnly ())
+      encode (aSrcArray, nSrcOfs, nSrcLen, aDst.array (), aDst.arrayOffset () + aDst.position ());
+    else
+      aDst.duplicate ().put (getEncoded (aSrcArray, nSrcOfs, nSrcLen));
+
+    aSrc.position (aSrc.position () + nSrcLen);
+    aDst.position (aDst.position () + nDstLen);
+  }
+
+  /**
+   * Encode all remaining bytes of the source buffer into the destination char
+   * buffer. Array backed buffers are accessed directly, without intermediate
+   * copies.
+   *
+   * @param aSrc
+   *        Source buffer. May not be <code>null</code>.
+   * @param aDst
+   *        Destination buffer. May not be <code>null</code>.
+   * @throws BufferOverflowException
+   *         If the destination buffer has not enough space left. In this case
+   *         none of the buffers is modified.
+   */
+  public void encode (@Nonnull final ByteBuffer aSrc, @Nonnull final CharBuffer aDst)
+  {
+    ValueEnforcer.notNull (aSrc, "Src");
+    ValueEnforcer.notNull (aDst, "Dst");
+
+    final int nSrcLen = aSrc.remaining ();
+    final int nDstLen = getEncodedLength (nSrcLen);
+    if (aDst.remaining () < nDstLen)
+      throw new BufferOverflowException ();
+
+    final byte [] aSrcArray;
+    final int nSrcOfs;
+    if (aSrc.hasArray ())
+    {
+      aSrcArray = aSrc.array ();
+      nSrcOfs = aSrc.arrayOffset () + aSrc.position ();
+    }
+    else
+    {
+      aSrcArray = new byte [nSrcLen];
+      aSrc.duplicate ().get (aSrcArray);
+      nSrcOfs = 0;
+    }
+
+    if (aDst.hasArray () && !aDst.isReadOnly ())
+      encode (aSrcArray, nSrcOfs, nSrcLen, aDst.array (), aDst.arrayOffset () + aDst.position ());
+    else
+    {
+      final char [] aChars = new char [nDstLen];
+      encode (aSrcArray, nSrcOfs, nSrcLen, aChars, 0);
+      aDst.duplicate ().put (aChars);
+    }
+
+    aSrc.position (aSrc.position () + nSrcLen);
+    aDst.position (aDst.position () + nDstLen);
+  }
+
+  /**
+   * Encode (part of) a byte array.
+   *
+   * @param aSrc
+   *        Source array. May not be <code>null</code>.
+   * @param nOfs
+   *        Offset into source array. Must be &ge; 0.
+   * @param nLen
+   *        Number of bytes to encode. Must be &ge; 0.
+   * @return A new byte array with the exact size. Never <code>null</code>.
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public byte [] getEncoded (@Nonnull final byte [] aSrc, @Nonnegative final int nOfs, @Nonnegative final int nLen)
+  {
+    final int nDstLen = getEncodedLength (nLen);
+    if (nDstLen == 0)
+      return ArrayHelper.EMPTY_BYTE_ARRAY;
+
+    final byte [] ret = new byte [nDstLen];
+    encode (aSrc, nOfs, nLen, ret, 0);
+    return ret;
+  }
+
+  /**
+   * Encode a byte array.
+   *
+   * @param aSrc
+   *        Source array. May not be <code>null</code>.
+   * @return A new byte array with the exact size. Never <code>null</code>.
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public byte [] getEncoded (@Nonnull final byte [] aSrc)
+  {
+    return getEncoded (aSrc, 0, aSrc.length);
+  }
+
+  /**
+   * Encode (part of) a byte array to a String.
+   *
+   * @param aSrc
+   *        Source array. May not be <code>null</code>.
+   * @param nOfs
+   *        Offset into source array. Must be &ge; 0.
+   * @param nLen
+   *        Number of bytes to encode. Must be &ge; 0.
+   * @return The encoded String. Never <code>null</code>.
+   */
+  @Nonnull
+  public String getEncodedAsString (@Nonnull final byte [] aSrc,
+                                    @Nonnegative final int nOfs,
+                                    @Nonnegative final int nLen)
+  {
+    return new String (getEncoded (aSrc, nOfs, nLen), StandardCharsets.ISO_8859_1);
+  }
+
+  /**
+   * Encode a byte array to a String.
+   *
+   * @param aSrc
+   *        Source array. May not be <code>null</code>.
+   * @return The encoded String. Never <code>null</code>.
+   */
+  @Nonnull
+  public String getEncodedAsString (@Nonnull final byte [] aSrc)
+  {
+    return getEncodedAsString (aSrc, 0, aSrc.length);
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("LineLength", m_nLineLength)
+                                       .append ("LineSeparator", m_aLineSeparator)
+                                       .append ("SeparatorAfterLastLine", m_bSeparatorAfterLastLine)
+                                       .getToString ();
+  }
+
+  /**
+   * Get the encoder matching the provided {@link Base64} options. Only the
+   * alphabet ({@link Base64#URL_SAFE}, {@link Base64#ORDERED}) and
+   * {@link Base64#DO_BREAK_LINES} options are considered. With line breaking,
+   * the result is identical to the one of
+   * {@link Base64#encodeBytesToBytes(byte[], int, int, int)} - a newline is
+   * emitted after each complete line of {@link Base64#MAX_LINE_LENGTH} chars.
+   *
+   * @param nOptions
+   *        The options to use.
+   * @return The shared encoder instance. Never <code>null</code>.
+   */
+  @Nonnull
+  public static Base64Encoder getInstance (final int nOptions)
+  {
+    return s_aOptionInstances[_getInstanceIndex (nOptions)];
+  }
+
+  private static int _getInstanceIndex (final int nOptions)
+  {
+    // Same precedence as in Base64.getAlphabet
+    final int nAlphabet = (nOptions & Base64.URL_SAFE) != 0 ? 1 : (nOptions & Base64.ORDERED) != 0 ? 2 : 0;
+    return nAlphabet * 2 + ((nOptions & Base64.DO_BREAK_LINES) != 0 ? 1 : 0);
+  }
+
+  /**
+   * @return The encoder with the standard alphabet and no line breaks. Never
+   *         <code>null</code>.
+   */
+  @Nonnull
+  public static Base64Encoder getBasicEncoder ()
+  {
+    return s_aBasic;
+  }
+
+  /**
+   * @return The encoder with the URL and filename safe alphabet and no line
+   *         breaks. Never <code>null</code>.
+   */
+  @Nonnull
+  public static Base64Encoder getUrlSafeEncoder ()
+  {
+    return s_aUrlSafe;
+  }
+
+  /**
+   * @return The MIME encoder with the standard alphabet, lines of
+   *         {@link #MIME_LINE_LENGTH} chars and "\r\n" between the lines. This
+   *         is compatible to {@link java.util.Base64#getMimeEncoder()}. Never
+   *         <code>null</code>.
+   */
+  @Nonnull
+  public static Base64Encoder getMimeEncoder ()
+  {
+    return s_aMime;
+  }
+}
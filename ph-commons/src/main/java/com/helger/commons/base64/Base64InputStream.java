@@ -36,23 +36,32 @@ import com.helger.commons.io.stream.WrappedInputStream;
 @NotThreadSafe
 public class Base64InputStream extends WrappedInputStream
 {
+  // Must be a multiple of 3
+  private static final int RAW_BUFFER_SIZE = 3 * 1024;
+
   // Encoding or decoding
   private final boolean m_bEncode;
-  // Current position in the buffer
-  private int m_nPosition;
-  // Small buffer holding converted data
-  private final byte [] m_aBuffer;
-  // Length of buffer (3 or 4)
-  private final int m_nBufferLength;
-  // Number of meaningful bytes in the buffer
-  private int m_nNumSigBytes;
-  private int m_nLineLength;
   // Break lines at less than 80 characters
   private final boolean m_bBreakLines;
-  // Record options used to create the stream.
-  private final int m_nOptions;
-  // Local copies to avoid extra method calls
-  private final byte [] m_aDecodabet;
+  // Encoder without line breaks - they are added when reading
+  private final Base64Encoder m_aEncoder;
+  private final Base64Decoder m_aDecoder;
+  // Bytes read from the underlying stream but not yet converted
+  private final byte [] m_aRaw = new byte [RAW_BUFFER_SIZE];
+  private int m_nRawPos = 0;
+  private int m_nRawLen = 0;
+  private boolean m_bRawEOF = false;
+  // Converted bytes not yet returned
+  private final byte [] m_aConverted = new byte [RAW_BUFFER_SIZE / 3 * 4];
+  private int m_nConvertedPos = 0;
+  private int m_nConvertedLen = 0;
+  private int m_nLineLength = 0;
+  // Incomplete quantum of significant chars when decoding
+  private final byte [] m_aQuantum = new byte [4];
+  private int m_nQuantumLen = 0;
+  // Set after a padded quantum was decoded
+  private boolean m_bDecodingDone = false;
+  private final byte [] m_aSingleByte = new byte [1];
 
   /**
    * Constructs a {@link Base64InputStream} in DECODE mode.
@@ -91,131 +100,142 @@ public class Base64InputStream extends WrappedInputStream
   public Base64InputStream (@Nonnull final InputStream aIS, final int nOptions)
   {
     super (aIS);
-    m_nOptions = nOptions; // Record for later
     m_bBreakLines = (nOptions & Base64.DO_BREAK_LINES) > 0;
     m_bEncode = (nOptions & Base64.ENCODE) > 0;
-    m_nBufferLength = m_bEncode ? 4 : 3;
-    m_aBuffer = new byte [m_nBufferLength];
-    m_nPosition = -1;
-    m_nLineLength = 0;
-    m_aDecodabet = Base64._getDecodabet (nOptions);
+    m_aEncoder = Base64Encoder.getInstance (nOptions & ~Base64.DO_BREAK_LINES);
+    m_aDecoder = Base64Decoder.getInstance (nOptions);
   }
 
   /**
-   * Reads enough of the input stream to convert to/from Base64 and returns the
-   * next byte.
-   *
-   * @return next byte
-   * @since 1.3
+   * Read from the underlying stream until at least the provided number of raw
+   * bytes is available or the end of the stream is reached.
    */
-  @Override
-  public int read () throws IOException
+  private void _fillRaw (final int nMinAvailable) throws IOException
   {
-    // Do we need to get data?
-    if (m_nPosition < 0)
+    if (m_nRawPos > 0)
     {
-      if (m_bEncode)
-      {
-        final byte [] b3 = new byte [3];
-        int numBinaryBytes = 0;
-        for (int i = 0; i < 3; i++)
-        {
-          final int b = in.read ();
+      // Move the rest to the front
+      m_nRawLen -= m_nRawPos;
+      System.arraycopy (m_aRaw, m_nRawPos, m_aRaw, 0, m_nRawLen);
+      m_nRawPos = 0;
+    }
+    while (m_nRawLen < nMinAvailable && !m_bRawEOF)
+    {
+      final int nRead = in.read (m_aRaw, m_nRawLen, m_aRaw.length - m_nRawLen);
+      if (nRead < 0)
+        m_bRawEOF = true;
+      else
+        m_nRawLen += nRead;
+    }
+  }
 
-          // If end of stream, b is -1.
-          if (b < 0)
-            break;
+  /**
+   * Encode all complete 3 byte groups (and at the end of the stream the
+   * remaining bytes) of the raw buffer.
+   *
+   * @return <code>false</code> if the end of the stream is reached.
+   */
+  private boolean _fillEncoded () throws IOException
+  {
+    _fillRaw (3);
+    final int nAvailable = m_nRawLen - m_nRawPos;
+    if (nAvailable == 0)
+      return false;
 
-          b3[i] = (byte) b;
-          numBinaryBytes++;
-        }
+    final int nEncode = m_bRawEOF ? nAvailable : nAvailable / 3 * 3;
+    m_nConvertedLen = m_aEncoder.encode (m_aRaw, m_nRawPos, nEncode, m_aConverted, 0);
+    m_nConvertedPos = 0;
+    m_nRawPos += nEncode;
+    return true;
+  }
 
-        if (numBinaryBytes > 0)
-        {
-          Base64._encode3to4 (b3, 0, numBinaryBytes, m_aBuffer, 0, m_nOptions);
-          m_nPosition = 0;
-          m_nNumSigBytes = 4;
-        }
-        else
+  /**
+   * Decode as many raw bytes as possible. Whitespaces and invalid chars are
+   * skipped.
+   *
+   * @return <code>false</code> if the end of the stream is reached.
+   */
+  private boolean _fillDecoded () throws IOException
+  {
+    final Base64Decoder aDecoder = m_aDecoder;
+    final byte [] aRaw = m_aRaw;
+    final byte [] aConverted = m_aConverted;
+    int nConvertedLen = 0;
+    while (nConvertedLen == 0 && !m_bDecodingDone)
+    {
+      if (m_nRawPos == m_nRawLen)
+      {
+        _fillRaw (1);
+        if (m_nRawLen == 0)
         {
-          return -1; // Must be end of stream
+          if (m_nQuantumLen > 0)
+            throw new IOException ("Improperly padded Base64 input.");
+          return false;
         }
       }
-      else
+
+      final int nRawLen = m_nRawLen;
+      int nRawPos = m_nRawPos;
+      while (nRawPos < nRawLen && nConvertedLen <= aConverted.length - 3)
       {
-        // Else decoding
-        final byte [] b4 = new byte [4];
-        int i;
-        for (i = 0; i < 4; i++)
+        if (m_nQuantumLen == 0 && nRawPos <= nRawLen - 4)
         {
-          // Read four "meaningful" bytes:
-          int b;
-          do
+          // Fast path for complete groups of alphabet chars
+          final int nBits = aDecoder.decodeGroup (aRaw, nRawPos);
+          if (nBits >= 0)
           {
-            b = in.read ();
-          } while (b >= 0 && m_aDecodabet[b & 0x7f] <= Base64.WHITE_SPACE_ENC);
-
-          if (b < 0)
-            break; // Reads a -1 if end of stream
-
-          b4[i] = (byte) b;
+            aConverted[nConvertedLen] = (byte) (nBits >> 16);
+            aConverted[nConvertedLen + 1] = (byte) (nBits >> 8);
+            aConverted[nConvertedLen + 2] = (byte) nBits;
+            nConvertedLen += 3;
+            nRawPos += 4;
+            continue;
+          }
         }
 
-        if (i == 4)
+        final byte nByte = aRaw[nRawPos++];
+        if (aDecoder.isSignificant (nByte))
         {
-          m_nNumSigBytes = Base64._decode4to3 (b4, 0, m_aBuffer, 0, m_nOptions);
-          m_nPosition = 0;
-        }
-        else
-          if (i == 0)
+          m_aQuantum[m_nQuantumLen++] = nByte;
+          if (m_nQuantumLen == 4)
           {
-            return -1;
+            final int nDecoded = aDecoder.decodeQuantum (m_aQuantum, 0, aConverted, nConvertedLen);
+            nConvertedLen += nDecoded;
+            m_nQuantumLen = 0;
+            if (nDecoded < 3)
+            {
+              // Padding - nothing more to read
+              m_bDecodingDone = true;
+              break;
+            }
           }
-          else
-          {
-            // Must have broken out from above.
-            throw new IOException ("Improperly padded Base64 input.");
-          } // end
-
-      }
-    }
-
-    // Got data?
-    if (m_nPosition >= 0)
-    {
-      if ( /* !encode && */m_nPosition >= m_nNumSigBytes)
-      {
-        return -1;
-      }
-
-      if (m_bEncode && m_bBreakLines && m_nLineLength >= Base64.MAX_LINE_LENGTH)
-      {
-        m_nLineLength = 0;
-        return '\n';
-      }
-      {
-        m_nLineLength++; // This isn't important when decoding
-        // but throwing an extra "if" seems
-        // just as wasteful.
-
-        final int b = m_aBuffer[m_nPosition++];
-
-        if (m_nPosition >= m_nBufferLength)
-          m_nPosition = -1;
-
-        return b & 0xFF; // This is how you "cast" a byte that's
-                         // intended to be unsigned.
+        }
       }
+      m_nRawPos = nRawPos;
     }
+    m_nConvertedPos = 0;
+    m_nConvertedLen = nConvertedLen;
+    return nConvertedLen > 0;
+  }
 
-    // Else error
-    throw new IOException ("Error in Base64 code reading stream.");
+  /**
+   * Reads enough of the input stream to convert to/from Base64 and returns the
+   * next byte.
+   *
+   * @return next byte
+   * @since 1.3
+   */
+  @Override
+  public int read () throws IOException
+  {
+    final int nRead = read (m_aSingleByte, 0, 1);
+    return nRead < 0 ? -1 : m_aSingleByte[0] & 0xff;
   }
 
   /**
-   * Calls {@link #read()} repeatedly until the end of stream is reached or
-   * <em>len</em> bytes are read. Returns number of bytes read into array or -1
-   * if end of stream is encountered.
+   * Reads and converts as many bytes as possible until the end of stream is
+   * reached or <em>len</em> bytes are read. Returns number of bytes read into
+   * array or -1 if end of stream is encountered.
    *
    * @param aDest
    *        array to hold values
@@ -232,24 +252,38 @@ public class Base64InputStream extends WrappedInputStream
                    @Nonnegative final int nLen) throws IOException
   {
     int nIndex = 0;
-    for (; nIndex < nLen; nIndex++)
+    while (nIndex < nLen)
     {
-      final int nByte = read ();
+      if (m_nConvertedPos == m_nConvertedLen)
+      {
+        if (!(m_bEncode ? _fillEncoded () : _fillDecoded ()))
+          break;
+      }
 
-      if (nByte >= 0)
-        aDest[nOfs + nIndex] = (byte) nByte;
-      else
-        if (nIndex == 0)
-        {
-          // First byte is not Base64 - nothing read
-          return -1;
-        }
-        else
+      if (m_bEncode && m_bBreakLines)
+      {
+        // Line break before the next char
+        if (m_nLineLength >= Base64.MAX_LINE_LENGTH)
         {
-          // Out of 'for' loop
-          break;
+          aDest[nOfs + nIndex++] = Base64.NEW_LINE;
+          m_nLineLength = 0;
+          continue;
         }
+        final int nCount = Math.min (Math.min (nLen - nIndex, m_nConvertedLen - m_nConvertedPos),
+                                     Base64.MAX_LINE_LENGTH - m_nLineLength);
+        System.arraycopy (m_aConverted, m_nConvertedPos, aDest, nOfs + nIndex, nCount);
+        m_nConvertedPos += nCount;
+        m_nLineLength += nCount;
+        nIndex += nCount;
+      }
+      else
+      {
+        final int nCount = Math.min (nLen - nIndex, m_nConvertedLen - m_nConvertedPos);
+        System.arraycopy (m_aConverted, m_nConvertedPos, aDest, nOfs + nIndex, nCount);
+        m_nConvertedPos += nCount;
+        nIndex += nCount;
+      }
     }
-    return nIndex;
+    return nIndex == 0 && nLen > 0 ? -1 : nIndex;
   }
 }
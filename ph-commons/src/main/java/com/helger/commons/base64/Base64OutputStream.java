@@ -36,6 +36,9 @@ import com.helger.commons.io.stream.WrappedOutputStream;
 @NotThreadSafe
 public class Base64OutputStream extends WrappedOutputStream
 {
+  // Must be a multiple of 3
+  private static final int BULK_CHUNK_BYTES = 3 * 1024;
+
   private final boolean m_bEncode;
   private int m_nPosition;
   private byte [] m_aBuffer;
@@ -45,10 +48,11 @@ public class Base64OutputStream extends WrappedOutputStream
   // Scratch used in a few places
   private final byte [] m_aB4;
   private boolean m_bSuspendEncoding;
-  // Record for later
-  private final int m_nOptions;
-  // Local copies to avoid extra method calls
-  private final byte [] m_aDecodabet;
+  // Encoder without line breaks - they are added when writing
+  private final Base64Encoder m_aEncoder;
+  private final Base64Decoder m_aDecoder;
+  // Lazily created buffer for bulk encoding and decoding
+  private byte [] m_aBulkBuffer;
 
   /**
    * Constructs a {@link Base64OutputStream} in ENCODE mode.
@@ -95,8 +99,8 @@ public class Base64OutputStream extends WrappedOutputStream
     m_nLineLength = 0;
     m_bSuspendEncoding = false;
     m_aB4 = new byte [4];
-    m_nOptions = nOptions;
-    m_aDecodabet = Base64._getDecodabet (nOptions);
+    m_aEncoder = Base64Encoder.getInstance (nOptions & ~Base64.DO_BREAK_LINES);
+    m_aDecoder = Base64Decoder.getInstance (nOptions);
   }
 
   /**
@@ -126,7 +130,8 @@ public class Base64OutputStream extends WrappedOutputStream
       if (m_nPosition >= m_nBufferLength)
       { // Enough to encode.
 
-        out.write (Base64._encode3to4 (m_aB4, m_aBuffer, m_nBufferLength, m_nOptions));
+        m_aEncoder.encode (m_aBuffer, 0, m_nBufferLength, m_aB4, 0);
+        out.write (m_aB4);
 
         m_nLineLength += 4;
         if (m_bBreakLines && m_nLineLength >= Base64.MAX_LINE_LENGTH)
@@ -141,19 +146,19 @@ public class Base64OutputStream extends WrappedOutputStream
     else
     {
       // Meaningful Base64 character?
-      if (m_aDecodabet[theByte & 0x7f] > Base64.WHITE_SPACE_ENC)
+      if (m_aDecoder.isSignificant (theByte))
       {
         m_aBuffer[m_nPosition++] = (byte) theByte;
         if (m_nPosition >= m_nBufferLength)
         { // Enough to output.
 
-          final int len = Base64._decode4to3 (m_aBuffer, 0, m_aB4, 0, m_nOptions);
+          final int len = m_aDecoder.decodeQuantum (m_aBuffer, 0, m_aB4, 0);
           out.write (m_aB4, 0, len);
           m_nPosition = 0;
         }
       }
       else
-        if (m_aDecodabet[theByte & 0x7f] != Base64.WHITE_SPACE_ENC)
+        if (!m_aDecoder.isWhitespace (theByte))
         {
           throw new IOException ("Invalid character in Base64 data.");
         }
@@ -184,10 +189,106 @@ public class Base64OutputStream extends WrappedOutputStream
       return;
     }
 
+    if (m_bEncode && !m_bBreakLines)
+    {
+      _writeEncodedBulk (aBytes, nOfs, nLen);
+      return;
+    }
+
+    if (!m_bEncode)
+    {
+      _writeDecodedBulk (aBytes, nOfs, nLen);
+      return;
+    }
+
     for (int i = 0; i < nLen; i++)
       write (aBytes[nOfs + i]);
   }
 
+  /**
+   * Encode without line breaks: all complete 3 byte groups are encoded in
+   * chunks, and only the partial groups at the beginning and the end go
+   * through the byte-wise path.
+   */
+  private void _writeEncodedBulk (@Nonnull final byte [] aBytes,
+                                  @Nonnegative final int nOfs,
+                                  @Nonnegative final int nLen) throws IOException
+  {
+    final int nEnd = nOfs + nLen;
+    int nIdx = nOfs;
+
+    // Complete a pending group
+    while (m_nPosition > 0 && nIdx < nEnd)
+      write (aBytes[nIdx++]);
+
+    int nBulkBytes = (nEnd - nIdx) / 3 * 3;
+    if (nBulkBytes > 0)
+    {
+      if (m_aBulkBuffer == null)
+        m_aBulkBuffer = new byte [BULK_CHUNK_BYTES / 3 * 4];
+      while (nBulkBytes > 0)
+      {
+        final int nChunk = Math.min (nBulkBytes, BULK_CHUNK_BYTES);
+        final int nEncoded = m_aEncoder.encode (aBytes, nIdx, nChunk, m_aBulkBuffer, 0);
+        out.write (m_aBulkBuffer, 0, nEncoded);
+        nIdx += nChunk;
+        nBulkBytes -= nChunk;
+      }
+    }
+
+    // Remember the rest
+    while (nIdx < nEnd)
+      write (aBytes[nIdx++]);
+  }
+
+  /**
+   * Decode all groups of 4 alphabet chars in chunks. Whitespaces, padding and
+   * invalid chars as well as incomplete groups go through the byte-wise path.
+   */
+  private void _writeDecodedBulk (@Nonnull final byte [] aBytes,
+                                  @Nonnegative final int nOfs,
+                                  @Nonnegative final int nLen) throws IOException
+  {
+    if (m_aBulkBuffer == null)
+      m_aBulkBuffer = new byte [BULK_CHUNK_BYTES / 3 * 4];
+    final byte [] aBulkBuffer = m_aBulkBuffer;
+    final int nFastEnd = nOfs + nLen - 4;
+    final int nEnd = nOfs + nLen;
+    int nIdx = nOfs;
+    int nDecoded = 0;
+    while (nIdx < nEnd)
+    {
+      if (m_nPosition == 0 && nIdx <= nFastEnd)
+      {
+        final int nBits = m_aDecoder.decodeGroup (aBytes, nIdx);
+        if (nBits >= 0)
+        {
+          if (nDecoded > aBulkBuffer.length - 3)
+          {
+            out.write (aBulkBuffer, 0, nDecoded);
+            nDecoded = 0;
+          }
+          aBulkBuffer[nDecoded] = (byte) (nBits >> 16);
+          aBulkBuffer[nDecoded + 1] = (byte) (nBits >> 8);
+          aBulkBuffer[nDecoded + 2] = (byte) nBits;
+          nDecoded += 3;
+          nIdx += 4;
+          continue;
+        }
+      }
+
+      // Keep the order of the output
+      if (nDecoded > 0)
+      {
+        out.write (aBulkBuffer, 0, nDecoded);
+        nDecoded = 0;
+      }
+      write (aBytes[nIdx++]);
+    }
+    if (nDecoded > 0)
+      out.write (aBulkBuffer, 0, nDecoded);
+  }
+
   /**
    * Method added by PHIL. [Thanks, PHIL. -Rob] This pads the buffer without
    * closing the stream.
@@ -201,7 +302,8 @@ public class Base64OutputStream extends WrappedOutputStream
     {
       if (m_bEncode)
       {
-        out.write (Base64._encode3to4 (m_aB4, m_aBuffer, m_nPosition, m_nOptions));
+        final int nEncoded = m_aEncoder.encode (m_aBuffer, 0, m_nPosition, m_aB4, 0);
+        out.write (m_aB4, 0, nEncoded);
         m_nPosition = 0;
       }
       else
@@ -18,6 +18,7 @@ package com.helger.commons.codec;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
@@ -27,11 +28,12 @@ import javax.annotation.WillNotClose;
 import com.helger.commons.ValueEnforcer;
 
 /**
- * Decoder for ASCII85 encoded values
+ * Decoder for ASCII85 encoded values. The incremental {@link IByteBufferCodec}
+ * API additionally supports encoding.
  *
  * @author Philip Helger
  */
-public class ASCII85Codec implements IByteArrayStreamDecoder
+public class ASCII85Codec implements IByteArrayStreamDecoder, IByteBufferCodec
 {
   private static final int BIT1 = 8;
   private static final int BIT2 = 16;
@@ -40,6 +42,218 @@ public class ASCII85Codec implements IByteArrayStreamDecoder
   private static final int ENCODED_MIN = 33;
   private static final int EIGHTY_FIVE = 85;
 
+  /**
+   * Incremental ASCII85 encoder. Carries over up to 3 bytes of an incomplete
+   * 4-byte tuple between invocations. The output is terminated with "~>".
+   *
+   * @author Philip Helger
+   * @since 9.0.0
+   */
+  private static final class ASCII85Encoder extends AbstractByteBufferCoder implements IByteBufferEncoder
+  {
+    private long m_nTuple = 0;
+    private int m_nTupleBytes = 0;
+    private boolean m_bFlushed = false;
+
+    private void _writeTuple ()
+    {
+      if (m_nTupleBytes == 4 && m_nTuple == 0)
+        m_aPending.write ('z');
+      else
+      {
+        // Fill up with 0 bytes
+        final long nValue = m_nTuple << ((4 - m_nTupleBytes) * BIT1);
+        final byte [] aChars = new byte [5];
+        long nRest = nValue;
+        for (int i = 4; i >= 0; --i)
+        {
+          aChars[i] = (byte) (nRest % EIGHTY_FIVE + ENCODED_MIN);
+          nRest /= EIGHTY_FIVE;
+        }
+        // n bytes result in n+1 chars
+        m_aPending.write (aChars, 0, m_nTupleBytes + 1);
+      }
+      m_nTuple = 0;
+      m_nTupleBytes = 0;
+    }
+
+    @Nonnull
+    public ECodecResult encode (@Nonnull final ByteBuffer aSrc, @Nonnull final ByteBuffer aDst, final boolean bEndOfInput)
+    {
+      while (true)
+      {
+        if (!drainPending (aDst))
+          return ECodecResult.OVERFLOW;
+        if (!aSrc.hasRemaining ())
+          break;
+
+        m_nTuple = m_nTuple << BIT1 | (aSrc.get () & 0xff);
+        ++m_nTupleBytes;
+        if (m_nTupleBytes == 4)
+          _writeTuple ();
+      }
+
+      if (bEndOfInput && !m_bFlushed)
+      {
+        m_bFlushed = true;
+        if (m_nTupleBytes > 0)
+          _writeTuple ();
+        m_aPending.write ('~');
+        m_aPending.write ('>');
+        if (!drainPending (aDst))
+          return ECodecResult.OVERFLOW;
+      }
+      return ECodecResult.UNDERFLOW;
+    }
+
+    @Override
+    public void reset ()
+    {
+      super.reset ();
+      m_nTuple = 0;
+      m_nTupleBytes = 0;
+      m_bFlushed = false;
+    }
+  }
+
+  /**
+   * Incremental ASCII85 decoder. Carries over up to 4 chars of an incomplete
+   * 5-char tuple between invocations.
+   *
+   * @author Philip Helger
+   * @since 9.0.0
+   */
+  private static final class ASCII85Decoder extends AbstractByteBufferCoder implements IByteBufferDecoder
+  {
+    private static final int STATE_START = 0;
+    private static final int STATE_START_LT = 1;
+    private static final int STATE_DATA = 2;
+    private static final int STATE_END = 3;
+
+    private final byte [] m_aTuple = new byte [5];
+    private int m_nTupleLen = 0;
+    private int m_nState = STATE_START;
+
+    private void _decodeChar (final byte nEncByte)
+    {
+      // end of data with "~>"
+      if (nEncByte == '~')
+      {
+        m_nState = STATE_END;
+        return;
+      }
+
+      // skip all whitespaces
+      if (Character.isWhitespace (nEncByte))
+        return;
+
+      if (nEncByte == 'z' && m_nTupleLen == 0)
+      {
+        m_aPending.write (0);
+        m_aPending.write (0);
+        m_aPending.write (0);
+        m_aPending.write (0);
+      }
+      else
+      {
+        if (nEncByte < ENCODED_MIN || nEncByte > ENCODED_MAX)
+          throw new DecodeException ("Illegal character in ASCII85Decode: " + nEncByte);
+
+        m_aTuple[m_nTupleLen++] = (byte) (nEncByte - ENCODED_MIN);
+        if (m_nTupleLen == 5)
+        {
+          m_nTupleLen = 0;
+          int r = 0;
+          for (int j = 0; j < 5; ++j)
+            r = r * EIGHTY_FIVE + m_aTuple[j];
+          m_aPending.write (r >> BIT3);
+          m_aPending.write (r >> BIT2);
+          m_aPending.write (r >> BIT1);
+          m_aPending.write (r);
+        }
+      }
+    }
+
+    private void _decodeRest ()
+    {
+      if (m_nTupleLen == 1)
+        throw new DecodeException ("Unexpected end of ASCII85 encoded data!");
+      if (m_nTupleLen > 1)
+      {
+        // Fill up with the highest digit
+        int r = 0;
+        for (int j = 0; j < 5; ++j)
+          r = r * EIGHTY_FIVE + (j < m_nTupleLen ? m_aTuple[j] : EIGHTY_FIVE - 1);
+        for (int j = 1; j < m_nTupleLen; ++j)
+          m_aPending.write (r >> (BIT3 - (j - 1) * BIT1));
+        m_nTupleLen = 0;
+      }
+    }
+
+    @Nonnull
+    public ECodecResult decode (@Nonnull final ByteBuffer aSrc, @Nonnull final ByteBuffer aDst, final boolean bEndOfInput)
+    {
+      while (true)
+      {
+        if (!drainPending (aDst))
+          return ECodecResult.OVERFLOW;
+        if (!aSrc.hasRemaining ())
+          break;
+
+        final byte nEncByte = aSrc.get ();
+        switch (m_nState)
+        {
+          case STATE_START:
+            // Special start sequence "<~" ??
+            if (nEncByte == '<')
+              m_nState = STATE_START_LT;
+            else
+            {
+              m_nState = STATE_DATA;
+              _decodeChar (nEncByte);
+            }
+            break;
+          case STATE_START_LT:
+            m_nState = STATE_DATA;
+            if (nEncByte != '~')
+            {
+              _decodeChar ((byte) '<');
+              _decodeChar (nEncByte);
+            }
+            break;
+          case STATE_DATA:
+            _decodeChar (nEncByte);
+            break;
+          default:
+            // Ignore everything after the end marker
+            aSrc.position (aSrc.limit ());
+            break;
+        }
+      }
+
+      if (bEndOfInput)
+      {
+        if (m_nState == STATE_START_LT)
+        {
+          m_nState = STATE_DATA;
+          _decodeChar ((byte) '<');
+        }
+        _decodeRest ();
+        if (!drainPending (aDst))
+          return ECodecResult.OVERFLOW;
+      }
+      return ECodecResult.UNDERFLOW;
+    }
+
+    @Override
+    public void reset ()
+    {
+      super.reset ();
+      m_nTupleLen = 0;
+      m_nState = STATE_START;
+    }
+  }
+
   public ASCII85Codec ()
   {}
 
@@ -145,4 +359,16 @@ public class ASCII85Codec implements IByteArrayStreamDecoder
       throw new DecodeException ("Failed to decode ASCII85", ex);
     }
   }
+
+  @Nonnull
+  public IByteBufferEncoder newByteBufferEncoder ()
+  {
+    return new ASCII85Encoder ();
+  }
+
+  @Nonnull
+  public IByteBufferDecoder newByteBufferDecoder ()
+  {
+    return new ASCII85Decoder ();
+  }
 }
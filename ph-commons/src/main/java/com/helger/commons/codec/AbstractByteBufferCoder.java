@@ -0,0 +1,75 @@
+/**
+ * Copyright (C) 2014-2017 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.codec;
+
+import java.nio.ByteBuffer;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.helger.commons.io.stream.NonBlockingByteArrayOutputStream;
+
+/**
+ * Base class for incremental coders that may produce more output in one step
+ * than fits into the destination buffer. The surplus is kept in a pending
+ * buffer and is handed out on the next invocation.
+ *
+ * @author Philip Helger
+ * @since 9.0.0
+ */
+@NotThreadSafe
+abstract class AbstractByteBufferCoder implements IByteBufferCoder
+{
+  protected final NonBlockingByteArrayOutputStream m_aPending = new NonBlockingByteArrayOutputStream (64);
+  private int m_nPendingOfs = 0;
+
+  protected AbstractByteBufferCoder ()
+  {}
+
+  /**
+   * Copy as many pending bytes as possible to the destination buffer.
+   *
+   * @param aDst
+   *        The destination buffer. May not be <code>null</code>.
+   * @return <code>true</code> if all pending bytes were written,
+   *         <code>false</code> if the destination buffer is full.
+   */
+  protected final boolean drainPending (@Nonnull final ByteBuffer aDst)
+  {
+    final int nPendingLen = m_aPending.size () - m_nPendingOfs;
+    if (nPendingLen > 0)
+    {
+      final int nCount = Math.min (nPendingLen, aDst.remaining ());
+      aDst.put (m_aPending.directGetBuffer (), m_nPendingOfs, nCount);
+      if (nCount < nPendingLen)
+      {
+        m_nPendingOfs += nCount;
+        return false;
+      }
+      m_aPending.reset ();
+      m_nPendingOfs = 0;
+    }
+    return true;
+  }
+
+  @Override
+  public void reset ()
+  {
+    m_aPending.reset ();
+    m_nPendingOfs = 0;
+  }
+}
@@ -19,6 +19,7 @@ package com.helger.commons.codec;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
@@ -34,8 +35,79 @@ import com.helger.commons.string.StringHelper;
  *
  * @author Philip Helger
  */
-public class Base16Codec implements IByteArrayCodec
+public class Base16Codec implements IByteArrayCodec, IByteBufferCodec
 {
+  /**
+   * Incremental Base16 encoder.
+   *
+   * @author Philip Helger
+   * @since 9.0.0
+   */
+  private static final class Base16Encoder implements IByteBufferEncoder
+  {
+    @Nonnull
+    public ECodecResult encode (@Nonnull final ByteBuffer aSrc, @Nonnull final ByteBuffer aDst, final boolean bEndOfInput)
+    {
+      while (aSrc.hasRemaining ())
+      {
+        if (aDst.remaining () < 2)
+          return ECodecResult.OVERFLOW;
+
+        final int nByte = aSrc.get () & 0xff;
+        aDst.put ((byte) StringHelper.getHexChar ((nByte & 0xf0) >> 4));
+        aDst.put ((byte) StringHelper.getHexChar (nByte & 0x0f));
+      }
+      return ECodecResult.UNDERFLOW;
+    }
+  }
+
+  /**
+   * Incremental Base16 decoder. Carries over a single high nibble between
+   * invocations.
+   *
+   * @author Philip Helger
+   * @since 9.0.0
+   */
+  private static final class Base16Decoder implements IByteBufferDecoder
+  {
+    private int m_nHigh = -1;
+
+    @Nonnull
+    public ECodecResult decode (@Nonnull final ByteBuffer aSrc, @Nonnull final ByteBuffer aDst, final boolean bEndOfInput)
+    {
+      while (true)
+      {
+        if (m_nHigh < 0)
+        {
+          if (!aSrc.hasRemaining ())
+            break;
+          m_nHigh = aSrc.get () & 0xff;
+        }
+        if (!aSrc.hasRemaining ())
+          break;
+        if (!aDst.hasRemaining ())
+          return ECodecResult.OVERFLOW;
+
+        final int nLow = aSrc.get () & 0xff;
+        final int nDecodedValue = StringHelper.getHexByte ((char) m_nHigh, (char) nLow);
+        if (nDecodedValue < 0)
+          throw new DecodeException ("Invalid Base16 encoding for " + m_nHigh + " and " + nLow);
+        aDst.put ((byte) nDecodedValue);
+        m_nHigh = -1;
+      }
+
+      if (bEndOfInput && m_nHigh >= 0)
+        throw new DecodeException ("Invalid Base16 encoding. Premature end of input");
+      return ECodecResult.UNDERFLOW;
+    }
+
+    @Override
+    public void reset ()
+    {
+      m_nHigh = -1;
+    }
+  }
+
   /**
    * Creates a Base16 codec used for decoding and encoding.
    */
@@ -134,4 +206,16 @@ public class Base16Codec implements IByteArrayCodec
       decode (aIS, aOS);
     }
   }
+
+  @Nonnull
+  public IByteBufferEncoder newByteBufferEncoder ()
+  {
+    return new Base16Encoder ();
+  }
+
+  @Nonnull
+  public IByteBufferDecoder newByteBufferDecoder ()
+  {
+    return new Base16Decoder ();
+  }
 }
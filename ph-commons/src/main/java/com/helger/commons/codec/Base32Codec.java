@@ -18,6 +18,7 @@ package com.helger.commons.codec;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
@@ -40,7 +41,7 @@ import com.helger.commons.math.MathHelper;
  *
  * @author Philip Helger
  */
-public class Base32Codec implements IByteArrayCodec
+public class Base32Codec implements IByteArrayCodec, IByteBufferCodec
 {
   /**
    * This array is a lookup table that translates Unicode characters drawn from
@@ -354,6 +355,192 @@ public class Base32Codec implements IByteArrayCodec
    */
   private byte [] m_aDecodeTable;
 
+  /**
+   * Incremental Base32 encoder. Carries over up to 4 bytes of an incomplete
+   * 5-byte group between invocations.
+   *
+   * @author Philip Helger
+   * @since 9.0.0
+   */
+  private static final class Base32Encoder extends AbstractByteBufferCoder implements IByteBufferEncoder
+  {
+    private final byte [] m_aEncodeTable;
+    private final byte m_nPad;
+    private final boolean m_bAddPadding;
+    private long m_nGroup = 0;
+    private int m_nGroupBytes = 0;
+    private boolean m_bFlushed = false;
+
+    Base32Encoder (@Nonnull final byte [] aEncodeTable, final byte nPad, final boolean bAddPadding)
+    {
+      m_aEncodeTable = aEncodeTable;
+      m_nPad = nPad;
+      m_bAddPadding = bAddPadding;
+    }
+
+    private void _writeGroup ()
+    {
+      // Number of bits to use and number of encoded chars resulting from it
+      final int nBits = m_nGroupBytes * 8;
+      final int nChars = (nBits + 4) / 5;
+      final long nValue = m_nGroup << (nChars * 5 - nBits);
+      for (int i = nChars - 1; i >= 0; --i)
+        m_aPending.write (m_aEncodeTable[(int) (nValue >> (i * 5)) & MASK_5BITS]);
+      if (m_bAddPadding)
+        for (int i = nChars; i < 8; ++i)
+          m_aPending.write (m_nPad);
+      m_nGroup = 0;
+      m_nGroupBytes = 0;
+    }
+
+    @Nonnull
+    public ECodecResult encode (@Nonnull final ByteBuffer aSrc, @Nonnull final ByteBuffer aDst, final boolean bEndOfInput)
+    {
+      while (true)
+      {
+        if (!drainPending (aDst))
+          return ECodecResult.OVERFLOW;
+        if (!aSrc.hasRemaining ())
+          break;
+
+        m_nGroup = m_nGroup << 8 | (aSrc.get () & 0xff);
+        ++m_nGroupBytes;
+        if (m_nGroupBytes == 5)
+          _writeGroup ();
+      }
+
+      if (bEndOfInput && !m_bFlushed)
+      {
+        m_bFlushed = true;
+        if (m_nGroupBytes > 0)
+        {
+          _writeGroup ();
+          if (!drainPending (aDst))
+            return ECodecResult.OVERFLOW;
+        }
+      }
+      return ECodecResult.UNDERFLOW;
+    }
+
+    @Override
+    public void reset ()
+    {
+      super.reset ();
+      m_nGroup = 0;
+      m_nGroupBytes = 0;
+      m_bFlushed = false;
+    }
+  }
+
+  /**
+   * Incremental Base32 decoder. Carries over up to 7 chars of an incomplete
+   * 8-char group between invocations.
+   *
+   * @author Philip Helger
+   * @since 9.0.0
+   */
+  private static final class Base32Decoder extends AbstractByteBufferCoder implements IByteBufferDecoder
+  {
+    private final byte [] m_aDecodeTable;
+    private final byte m_nPad;
+    private final byte [] m_aGroup = new byte [8];
+    private int m_nGroupChars = 0;
+    private boolean m_bInPadding = false;
+
+    Base32Decoder (@Nonnull final byte [] aDecodeTable, final byte nPad)
+    {
+      m_aDecodeTable = aDecodeTable;
+      m_nPad = nPad;
+    }
+
+    private void _writeGroup ()
+    {
+      final byte [] aBuf = m_aGroup;
+      switch (m_nGroupChars)
+      {
+        case 0:
+          break;
+        case 2:
+          m_aPending.write (aBuf[0] << 3 | aBuf[1] >> 2);
+          break;
+        case 4:
+          m_aPending.write (aBuf[0] << 3 | aBuf[1] >> 2);
+          m_aPending.write (aBuf[1] << 6 | aBuf[2] << 1 | aBuf[3] >> 4);
+          break;
+        case 5:
+          m_aPending.write (aBuf[0] << 3 | aBuf[1] >> 2);
+          m_aPending.write (aBuf[1] << 6 | aBuf[2] << 1 | aBuf[3] >> 4);
+          m_aPending.write (aBuf[3] << 4 | aBuf[4] >> 1);
+          break;
+        case 7:
+          m_aPending.write (aBuf[0] << 3 | aBuf[1] >> 2);
+          m_aPending.write (aBuf[1] << 6 | aBuf[2] << 1 | aBuf[3] >> 4);
+          m_aPending.write (aBuf[3] << 4 | aBuf[4] >> 1);
+          m_aPending.write (aBuf[4] << 7 | aBuf[5] << 2 | aBuf[6] >> 3);
+          break;
+        case 8:
+          m_aPending.write (aBuf[0] << 3 | aBuf[1] >> 2);
+          m_aPending.write (aBuf[1] << 6 | aBuf[2] << 1 | aBuf[3] >> 4);
+          m_aPending.write (aBuf[3] << 4 | aBuf[4] >> 1);
+          m_aPending.write (aBuf[4] << 7 | aBuf[5] << 2 | aBuf[6] >> 3);
+          m_aPending.write (aBuf[6] << 5 | aBuf[7]);
+          break;
+        default:
+          throw new DecodeException ("Unexpected number of Base32 bytes left: " + m_nGroupChars);
+      }
+      m_nGroupChars = 0;
+    }
+
+    @Nonnull
+    public ECodecResult decode (@Nonnull final ByteBuffer aSrc, @Nonnull final ByteBuffer aDst, final boolean bEndOfInput)
+    {
+      while (true)
+      {
+        if (!drainPending (aDst))
+          return ECodecResult.OVERFLOW;
+        if (!aSrc.hasRemaining ())
+          break;
+
+        final int n = aSrc.get () & 0xff;
+        if (n == (m_nPad & 0xff))
+        {
+          // Padding means end of data of the current group
+          if (!m_bInPadding)
+          {
+            _writeGroup ();
+            m_bInPadding = true;
+          }
+          continue;
+        }
+        m_bInPadding = false;
+
+        final byte b = n >= m_aDecodeTable.length ? -1 : m_aDecodeTable[n];
+        if (b < 0)
+          throw new DecodeException ("Cannot Base32 decode char " + n);
+
+        m_aGroup[m_nGroupChars++] = b;
+        if (m_nGroupChars == 8)
+          _writeGroup ();
+      }
+
+      if (bEndOfInput && m_nGroupChars > 0)
+      {
+        _writeGroup ();
+        if (!drainPending (aDst))
+          return ECodecResult.OVERFLOW;
+      }
+      return ECodecResult.UNDERFLOW;
+    }
+
+    @Override
+    public void reset ()
+    {
+      super.reset ();
+      m_nGroupChars = 0;
+      m_bInPadding = false;
+    }
+  }
+
   /**
    * Creates a Base32 codec used for decoding and encoding.
    */
@@ -671,4 +858,16 @@ public class Base32Codec implements IByteArrayCodec
       }
     }
   }
+
+  @Nonnull
+  public IByteBufferEncoder newByteBufferEncoder ()
+  {
+    return new Base32Encoder (m_aEncodeTable, m_nPad, m_bAddPadding);
+  }
+
+  @Nonnull
+  public IByteBufferDecoder newByteBufferDecoder ()
+  {
+    return new Base32Decoder (m_aDecodeTable, m_nPad);
+  }
 }
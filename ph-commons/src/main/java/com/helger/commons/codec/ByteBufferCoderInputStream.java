@@ -0,0 +1,229 @@
+/**
+ * Copyright (C) 2014-2017 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.io.stream.WrappedInputStream;
+import com.helger.commons.string.ToStringGenerator;
+
+/**
+ * An {@link InputStream} that passes all bytes read from the wrapped stream
+ * through an incremental {@link IByteBufferCoder} (encoder or decoder). Only
+ * fixed size buffers are used, independent of the amount of data read. Mark
+ * and reset are not supported.
+ *
+ * @author Philip Helger
+ * @since 9.0.0
+ */
+@NotThreadSafe
+public class ByteBufferCoderInputStream extends WrappedInputStream
+{
+  public static final int DEFAULT_BUFFER_SIZE = 8 * 1024;
+
+  private final IByteBufferCoder m_aCoder;
+  // Both buffers are always in "read mode"
+  private final ByteBuffer m_aSrc;
+  private final ByteBuffer m_aDst;
+  private final byte [] m_aSingleByte = new byte [1];
+  private boolean m_bEndOfInput = false;
+  private boolean m_bFinished = false;
+  private boolean m_bClosed = false;
+
+  public ByteBufferCoderInputStream (@Nonnull final InputStream aIS, @Nonnull final IByteBufferCoder aCoder)
+  {
+    this (aIS, aCoder, DEFAULT_BUFFER_SIZE);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param aIS
+   *        The input stream to read the data to be coded from. May not be
+   *        <code>null</code>.
+   * @param aCoder
+   *        The coder to be used. May not be <code>null</code>. It is closed
+   *        when this object is closed.
+   * @param nBufferSize
+   *        The size of the internal input and output buffers. Must be &gt; 0.
+   */
+  public ByteBufferCoderInputStream (@Nonnull final InputStream aIS,
+                                     @Nonnull final IByteBufferCoder aCoder,
+                                     @Nonnegative final int nBufferSize)
+  {
+    super (aIS);
+    ValueEnforcer.notNull (aCoder, "Coder");
+    ValueEnforcer.isGT0 (nBufferSize, "BufferSize");
+    m_aCoder = aCoder;
+    m_aSrc = ByteBuffer.allocate (nBufferSize);
+    m_aSrc.limit (0);
+    m_aDst = ByteBuffer.allocate (nBufferSize);
+    m_aDst.limit (0);
+  }
+
+  /**
+   * @return The coder used. Never <code>null</code>.
+   */
+  @Nonnull
+  public final IByteBufferCoder getCoder ()
+  {
+    return m_aCoder;
+  }
+
+  /**
+   * Fill the output buffer.
+   *
+   * @return <code>false</code> if the coder is completely flushed and no more
+   *         data is available.
+   * @throws IOException
+   *         in case reading fails
+   */
+  private boolean _fill () throws IOException
+  {
+    if (m_bFinished)
+      return false;
+
+    m_aDst.clear ();
+    while (m_aDst.position () == 0)
+    {
+      if (!m_aSrc.hasRemaining () && !m_bEndOfInput)
+      {
+        m_aSrc.clear ();
+        final int nRead = in.read (m_aSrc.array (), m_aSrc.arrayOffset (), m_aSrc.capacity ());
+        if (nRead < 0)
+        {
+          m_bEndOfInput = true;
+          m_aSrc.limit (0);
+        }
+        else
+          m_aSrc.limit (nRead);
+      }
+
+      final ECodecResult eResult = m_aCoder.code (m_aSrc, m_aDst, m_bEndOfInput);
+      if (eResult.isOverflow ())
+      {
+        if (m_aDst.position () == 0)
+          throw new IOException ("The internal buffer of " + m_aDst.capacity () + " bytes is too small for " + m_aCoder);
+        break;
+      }
+      if (m_bEndOfInput)
+      {
+        m_bFinished = true;
+        break;
+      }
+    }
+    m_aDst.flip ();
+    return true;
+  }
+
+  @Override
+  public int read () throws IOException
+  {
+    final int nRead = read (m_aSingleByte, 0, 1);
+    return nRead < 0 ? -1 : m_aSingleByte[0] & 0xff;
+  }
+
+  @Override
+  public int read (@Nonnull final byte [] aBuf,
+                   @Nonnegative final int nOfs,
+                   @Nonnegative final int nLen) throws IOException
+  {
+    ValueEnforcer.isArrayOfsLen (aBuf, nOfs, nLen);
+    if (nLen == 0)
+      return 0;
+
+    while (!m_aDst.hasRemaining ())
+      if (!_fill ())
+        return -1;
+
+    final int nCount = Math.min (nLen, m_aDst.remaining ());
+    m_aDst.get (aBuf, nOfs, nCount);
+    return nCount;
+  }
+
+  @Override
+  public long skip (final long nBytesToSkip) throws IOException
+  {
+    long nSkipped = 0;
+    while (nSkipped < nBytesToSkip)
+    {
+      if (!m_aDst.hasRemaining () && !_fill ())
+        break;
+      final int nCount = (int) Math.min (nBytesToSkip - nSkipped, m_aDst.remaining ());
+      m_aDst.position (m_aDst.position () + nCount);
+      nSkipped += nCount;
+    }
+    return nSkipped;
+  }
+
+  @Override
+  public int available ()
+  {
+    return m_aDst.remaining ();
+  }
+
+  @Override
+  public void close () throws IOException
+  {
+    if (!m_bClosed)
+    {
+      m_bClosed = true;
+      try
+      {
+        super.close ();
+      }
+      finally
+      {
+        m_aCoder.close ();
+      }
+    }
+  }
+
+  @Override
+  public boolean markSupported ()
+  {
+    return false;
+  }
+
+  @Override
+  public synchronized void mark (final int nReadlimit)
+  {}
+
+  @Override
+  public synchronized void reset () throws IOException
+  {
+    throw new IOException ("mark/reset not supported");
+  }
+
+  @Override
+  public String toString ()
+  {
+    return ToStringGenerator.getDerived (super.toString ())
+                            .append ("Coder", m_aCoder)
+                            .append ("BufferSize", m_aDst.capacity ())
+                            .append ("EndOfInput", m_bEndOfInput)
+                            .append ("Finished", m_bFinished)
+                            .getToString ();
+  }
+}
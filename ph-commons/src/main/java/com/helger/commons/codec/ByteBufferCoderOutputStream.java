@@ -0,0 +1,199 @@
+/**
+ * Copyright (C) 2014-2017 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.codec;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.io.stream.WrappedOutputStream;
+import com.helger.commons.string.ToStringGenerator;
+
+/**
+ * An {@link OutputStream} that passes all written bytes through an incremental
+ * {@link IByteBufferCoder} (encoder or decoder) before forwarding them to the
+ * wrapped stream. Only a fixed size buffer is used, independent of the amount
+ * of data written.<br>
+ * Note: {@link #close()} or {@link #finish()} must be called to flush the
+ * final state of the coder.
+ *
+ * @author Philip Helger
+ * @since 9.0.0
+ */
+@NotThreadSafe
+public class ByteBufferCoderOutputStream extends WrappedOutputStream
+{
+  public static final int DEFAULT_BUFFER_SIZE = 8 * 1024;
+
+  private static final ByteBuffer EMPTY_BUFFER = ByteBuffer.allocate (0);
+
+  private final IByteBufferCoder m_aCoder;
+  private final ByteBuffer m_aDst;
+  private final byte [] m_aSingleByte = new byte [1];
+  private boolean m_bFinished = false;
+  private boolean m_bClosed = false;
+
+  public ByteBufferCoderOutputStream (@Nonnull final OutputStream aOS, @Nonnull final IByteBufferCoder aCoder)
+  {
+    this (aOS, aCoder, DEFAULT_BUFFER_SIZE);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param aOS
+   *        The output stream to write the coded data to. May not be
+   *        <code>null</code>.
+   * @param aCoder
+   *        The coder to be used. May not be <code>null</code>. It is closed
+   *        when this object is closed.
+   * @param nBufferSize
+   *        The size of the internal output buffer. Must be &gt; 0.
+   */
+  public ByteBufferCoderOutputStream (@Nonnull final OutputStream aOS,
+                                      @Nonnull final IByteBufferCoder aCoder,
+                                      @Nonnegative final int nBufferSize)
+  {
+    super (aOS);
+    ValueEnforcer.notNull (aCoder, "Coder");
+    ValueEnforcer.isGT0 (nBufferSize, "BufferSize");
+    m_aCoder = aCoder;
+    m_aDst = ByteBuffer.allocate (nBufferSize);
+  }
+
+  /**
+   * @return The coder used. Never <code>null</code>.
+   */
+  @Nonnull
+  public final IByteBufferCoder getCoder ()
+  {
+    return m_aCoder;
+  }
+
+  private void _ensureNotFinished () throws IOException
+  {
+    if (m_bFinished)
+      throw new IOException ("Stream is already finished");
+  }
+
+  private void _writeBuffer () throws IOException
+  {
+    if (m_aDst.position () > 0)
+    {
+      out.write (m_aDst.array (), m_aDst.arrayOffset (), m_aDst.position ());
+      m_aDst.clear ();
+    }
+  }
+
+  private void _code (@Nonnull final ByteBuffer aSrc, final boolean bEndOfInput) throws IOException
+  {
+    while (m_aCoder.code (aSrc, m_aDst, bEndOfInput).isOverflow ())
+    {
+      if (m_aDst.position () == 0)
+        throw new IOException ("The internal buffer of " + m_aDst.capacity () + " bytes is too small for " + m_aCoder);
+      _writeBuffer ();
+    }
+  }
+
+  @Override
+  public void write (final int b) throws IOException
+  {
+    m_aSingleByte[0] = (byte) b;
+    write (m_aSingleByte, 0, 1);
+  }
+
+  @Override
+  public void write (@Nonnull final byte [] aBuf,
+                     @Nonnegative final int nOfs,
+                     @Nonnegative final int nLen) throws IOException
+  {
+    ValueEnforcer.isArrayOfsLen (aBuf, nOfs, nLen);
+    _ensureNotFinished ();
+
+    if (nLen > 0)
+      _code (ByteBuffer.wrap (aBuf, nOfs, nLen), false);
+  }
+
+  /**
+   * Write all pending data to the wrapped output stream and flush it. This
+   * does not finish the coder.
+   */
+  @Override
+  public void flush () throws IOException
+  {
+    _writeBuffer ();
+    out.flush ();
+  }
+
+  /**
+   * Signal the end of input to the coder and write all remaining data to the
+   * wrapped output stream, without closing it. Afterwards no more data can be
+   * written. Calling this method more than once has no effect.
+   *
+   * @throws IOException
+   *         In case writing fails
+   */
+  public void finish () throws IOException
+  {
+    if (!m_bFinished)
+    {
+      _code (EMPTY_BUFFER, true);
+      _writeBuffer ();
+      m_bFinished = true;
+    }
+  }
+
+  @Override
+  public void close () throws IOException
+  {
+    if (!m_bClosed)
+    {
+      m_bClosed = true;
+      try
+      {
+        finish ();
+        out.flush ();
+      }
+      finally
+      {
+        try
+        {
+          out.close ();
+        }
+        finally
+        {
+          m_aCoder.close ();
+        }
+      }
+    }
+  }
+
+  @Override
+  public String toString ()
+  {
+    return ToStringGenerator.getDerived (super.toString ())
+                            .append ("Coder", m_aCoder)
+                            .append ("BufferSize", m_aDst.capacity ())
+                            .append ("Finished", m_bFinished)
+                            .getToString ();
+  }
+}
@@ -0,0 +1,205 @@
+/**
+ * Copyright (C) 2014-2017 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.codec;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.string.ToStringGenerator;
+
+/**
+ * A {@link ReadableByteChannel} that passes all bytes read from the wrapped
+ * channel through an incremental {@link IByteBufferCoder} (encoder or decoder).
+ * The coded data is written directly into the buffer passed to
+ * {@link #read(ByteBuffer)}, so only the input side needs an own buffer, which
+ * may be a direct buffer.
+ *
+ * @author Philip Helger
+ * @since 9.0.0
+ */
+@NotThreadSafe
+public class ByteBufferCoderReadableByteChannel implements ReadableByteChannel
+{
+  public static final int DEFAULT_BUFFER_SIZE = 8 * 1024;
+  /** Size of the buffer used if the caller's buffer is too small */
+  private static final int STAGING_BUFFER_SIZE = 64;
+
+  private final ReadableByteChannel m_aChannel;
+  private final IByteBufferCoder m_aCoder;
+  // Both buffers are always in "read mode"
+  private final ByteBuffer m_aSrc;
+  private final ByteBuffer m_aStaging;
+  private boolean m_bEndOfInput = false;
+  private boolean m_bFinished = false;
+  private boolean m_bOpen = true;
+
+  public ByteBufferCoderReadableByteChannel (@Nonnull final ReadableByteChannel aChannel,
+                                             @Nonnull final IByteBufferCoder aCoder)
+  {
+    this (aChannel, aCoder, ByteBuffer.allocate (DEFAULT_BUFFER_SIZE));
+  }
+
+  /**
+   * Constructor
+   *
+   * @param aChannel
+   *        The channel to read the data to be coded from. May not be
+   *        <code>null</code>.
+   * @param aCoder
+   *        The coder to be used. May not be <code>null</code>. It is closed
+   *        when this object is closed.
+   * @param aInputBuffer
+   *        The buffer to read the source data into. May be a direct buffer. May
+   *        not be <code>null</code> and must have a capacity &gt; 0.
+   */
+  public ByteBufferCoderReadableByteChannel (@Nonnull final ReadableByteChannel aChannel,
+                                             @Nonnull final IByteBufferCoder aCoder,
+                                             @Nonnull final ByteBuffer aInputBuffer)
+  {
+    ValueEnforcer.notNull (aChannel, "Channel");
+    ValueEnforcer.notNull (aCoder, "Coder");
+    ValueEnforcer.notNull (aInputBuffer, "InputBuffer");
+    ValueEnforcer.isGT0 (aInputBuffer.capacity (), "InputBuffer.capacity");
+    m_aChannel = aChannel;
+    m_aCoder = aCoder;
+    m_aSrc = aInputBuffer;
+    m_aSrc.clear ().limit (0);
+    m_aStaging = ByteBuffer.allocate (STAGING_BUFFER_SIZE);
+    m_aStaging.limit (0);
+  }
+
+  /**
+   * @return The coder used. Never <code>null</code>.
+   */
+  @Nonnull
+  public final IByteBufferCoder getCoder ()
+  {
+    return m_aCoder;
+  }
+
+  @Nonnegative
+  private static int _transfer (@Nonnull final ByteBuffer aSrc, @Nonnull final ByteBuffer aDst)
+  {
+    final int nCount = Math.min (aSrc.remaining (), aDst.remaining ());
+    final int nOldLimit = aSrc.limit ();
+    aSrc.limit (aSrc.position () + nCount);
+    aDst.put (aSrc);
+    aSrc.limit (nOldLimit);
+    return nCount;
+  }
+
+  public int read (@Nonnull final ByteBuffer aDst) throws IOException
+  {
+    if (!m_bOpen)
+      throw new ClosedChannelException ();
+
+    // Data left over from a previous call?
+    if (m_aStaging.hasRemaining ())
+      return _transfer (m_aStaging, aDst);
+
+    if (m_bFinished)
+      return -1;
+    if (!aDst.hasRemaining ())
+      return 0;
+
+    final int nStartPos = aDst.position ();
+    while (true)
+    {
+      if (!m_aSrc.hasRemaining () && !m_bEndOfInput)
+      {
+        m_aSrc.clear ();
+        final int nRead = m_aChannel.read (m_aSrc);
+        m_aSrc.flip ();
+        if (nRead < 0)
+          m_bEndOfInput = true;
+        else
+          if (nRead == 0)
+          {
+            // Non-blocking channel without available data
+            break;
+          }
+      }
+
+      final ECodecResult eResult = m_aCoder.code (m_aSrc, aDst, m_bEndOfInput);
+      if (eResult.isOverflow ())
+      {
+        if (aDst.position () == nStartPos)
+        {
+          // The passed buffer is too small for a single unit of the coder
+          m_aStaging.clear ();
+          if (m_aCoder.code (m_aSrc, m_aStaging, m_bEndOfInput).isUnderflow () && m_bEndOfInput)
+            m_bFinished = true;
+          m_aStaging.flip ();
+          return _transfer (m_aStaging, aDst);
+        }
+        break;
+      }
+      if (m_bEndOfInput)
+      {
+        m_bFinished = true;
+        break;
+      }
+      if (aDst.position () > nStartPos)
+      {
+        // Return what is available instead of blocking for more input
+        break;
+      }
+    }
+
+    final int nCount = aDst.position () - nStartPos;
+    return nCount == 0 && m_bFinished ? -1 : nCount;
+  }
+
+  public boolean isOpen ()
+  {
+    return m_bOpen;
+  }
+
+  public void close () throws IOException
+  {
+    if (m_bOpen)
+    {
+      m_bOpen = false;
+      try
+      {
+        m_aChannel.close ();
+      }
+      finally
+      {
+        m_aCoder.close ();
+      }
+    }
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("Channel", m_aChannel)
+                                       .append ("Coder", m_aCoder)
+                                       .append ("EndOfInput", m_bEndOfInput)
+                                       .append ("Finished", m_bFinished)
+                                       .append ("Open", m_bOpen)
+                                       .getToString ();
+  }
+}
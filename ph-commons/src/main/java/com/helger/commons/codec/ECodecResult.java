@@ -0,0 +1,56 @@
+/**
+ * Copyright (C) 2014-2017 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.codec;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Result of an incremental {@link IByteBufferCoder} step. Modelled after
+ * {@link java.nio.charset.CoderResult}.
+ *
+ * @author Philip Helger
+ * @since 9.0.0
+ */
+public enum ECodecResult
+{
+  /**
+   * All available input was consumed - more input is required to continue.
+   * Returned with "end of input" this means the coder is completely flushed.
+   */
+  UNDERFLOW,
+  /**
+   * The destination buffer is full - the output needs to be drained before
+   * continuing.
+   */
+  OVERFLOW;
+
+  public boolean isUnderflow ()
+  {
+    return this == UNDERFLOW;
+  }
+
+  public boolean isOverflow ()
+  {
+    return this == OVERFLOW;
+  }
+
+  @Nonnull
+  public static ECodecResult valueOfOverflow (final boolean bOverflow)
+  {
+    return bOverflow ? OVERFLOW : UNDERFLOW;
+  }
+}
@@ -18,7 +18,11 @@ package com.helger.commons.codec;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
 import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
 import java.util.zip.InflaterInputStream;
 
 import javax.annotation.Nonnegative;
@@ -38,9 +42,186 @@ import com.helger.commons.io.stream.StreamHelper;
  *
  * @author Philip Helger
  */
-public class FlateCodec implements IByteArrayCodec
+public class FlateCodec implements IByteArrayCodec, IByteBufferCodec
 {
   private static final Logger s_aLogger = LoggerFactory.getLogger (FlateCodec.class);
+  private static final int BUFFER_SIZE = 8 * 1024;
+
+  /**
+   * Base class for the incremental flate encoder and decoder. Handles the
+   * pending output that did not fit into the destination buffer.
+   *
+   * @author Philip Helger
+   * @since 9.0.0
+   */
+  private abstract static class AbstractFlateCoder
+  {
+    protected final byte [] m_aInBuf = new byte [BUFFER_SIZE];
+    protected final byte [] m_aOutBuf = new byte [BUFFER_SIZE];
+    protected int m_nOutOfs = 0;
+    protected int m_nOutLen = 0;
+
+    /**
+     * Copy as much pending output as possible to the destination buffer.
+     *
+     * @param aDst
+     *        Destination buffer
+     * @return <code>true</code> if pending output is left
+     */
+    protected final boolean drainPendingOutput (@Nonnull final ByteBuffer aDst)
+    {
+      if (m_nOutLen > 0)
+      {
+        final int nCount = Math.min (m_nOutLen, aDst.remaining ());
+        aDst.put (m_aOutBuf, m_nOutOfs, nCount);
+        m_nOutOfs += nCount;
+        m_nOutLen -= nCount;
+      }
+      return m_nOutLen > 0;
+    }
+
+    @Nonnegative
+    protected final int fillInput (@Nonnull final ByteBuffer aSrc)
+    {
+      final int nCount = Math.min (aSrc.remaining (), m_aInBuf.length);
+      aSrc.get (m_aInBuf, 0, nCount);
+      return nCount;
+    }
+
+    public void reset ()
+    {
+      m_nOutOfs = 0;
+      m_nOutLen = 0;
+    }
+  }
+
+  /**
+   * Incremental flate encoder based on {@link Deflater}.
+   *
+   * @author Philip Helger
+   * @since 9.0.0
+   */
+  private static final class FlateEncoder extends AbstractFlateCoder implements IByteBufferEncoder
+  {
+    private final Deflater m_aDeflater = new Deflater ();
+
+    @Nonnull
+    public ECodecResult encode (@Nonnull final ByteBuffer aSrc, @Nonnull final ByteBuffer aDst, final boolean bEndOfInput)
+    {
+      while (true)
+      {
+        if (drainPendingOutput (aDst))
+          return ECodecResult.OVERFLOW;
+
+        if (!m_aDeflater.needsInput ())
+        {
+          // Compress the previously provided input
+          m_nOutOfs = 0;
+          m_nOutLen = m_aDeflater.deflate (m_aOutBuf);
+          continue;
+        }
+
+        if (aSrc.hasRemaining ())
+        {
+          m_aDeflater.setInput (m_aInBuf, 0, fillInput (aSrc));
+          continue;
+        }
+
+        if (!bEndOfInput || m_aDeflater.finished ())
+          return ECodecResult.UNDERFLOW;
+
+        // Write the remaining compressed data and the trailer
+        m_aDeflater.finish ();
+        m_nOutOfs = 0;
+        m_nOutLen = m_aDeflater.deflate (m_aOutBuf);
+      }
+    }
+
+    @Override
+    public void reset ()
+    {
+      super.reset ();
+      m_aDeflater.reset ();
+    }
+
+    @Override
+    public void close ()
+    {
+      // Free the native memory
+      m_aDeflater.end ();
+    }
+  }
+
+  /**
+   * Incremental flate decoder based on {@link Inflater}.
+   *
+   * @author Philip Helger
+   * @since 9.0.0
+   */
+  private static final class FlateDecoder extends AbstractFlateCoder implements IByteBufferDecoder
+  {
+    private final Inflater m_aInflater = new Inflater ();
+    private boolean m_bAnyInput = false;
+
+    @Nonnull
+    public ECodecResult decode (@Nonnull final ByteBuffer aSrc, @Nonnull final ByteBuffer aDst, final boolean bEndOfInput)
+    {
+      while (true)
+      {
+        if (drainPendingOutput (aDst))
+          return ECodecResult.OVERFLOW;
+
+        if (m_aInflater.finished ())
+        {
+          // Ignore everything after the end of the compressed data - same as
+          // InflaterInputStream
+          aSrc.position (aSrc.limit ());
+          return ECodecResult.UNDERFLOW;
+        }
+
+        if (m_aInflater.needsDictionary ())
+          throw new DecodeException ("Flate decoding requires a preset dictionary, which is not supported");
+
+        if (m_aInflater.needsInput ())
+        {
+          if (!aSrc.hasRemaining ())
+          {
+            if (bEndOfInput && m_bAnyInput)
+              throw new DecodeException ("Failed to flate decode. Premature end of input");
+            return ECodecResult.UNDERFLOW;
+          }
+          m_aInflater.setInput (m_aInBuf, 0, fillInput (aSrc));
+          m_bAnyInput = true;
+          continue;
+        }
+
+        try
+        {
+          m_nOutOfs = 0;
+          m_nOutLen = m_aInflater.inflate (m_aOutBuf);
+        }
+        catch (final DataFormatException ex)
+        {
+          throw new DecodeException ("Failed to flate decode", ex);
+        }
+      }
+    }
+
+    @Override
+    public void reset ()
+    {
+      super.reset ();
+      m_aInflater.reset ();
+      m_bAnyInput = false;
+    }
+
+    @Override
+    public void close ()
+    {
+      // Free the native memory
+      m_aInflater.end ();
+    }
+  }
 
   public FlateCodec ()
   {}
@@ -106,4 +287,16 @@ public class FlateCodec implements IByteArrayCodec
       throw new EncodeException ("Failed to flate encode", ex);
     }
   }
+
+  @Nonnull
+  public IByteBufferEncoder newByteBufferEncoder ()
+  {
+    return new FlateEncoder ();
+  }
+
+  @Nonnull
+  public IByteBufferDecoder newByteBufferDecoder ()
+  {
+    return new FlateDecoder ();
+  }
 }
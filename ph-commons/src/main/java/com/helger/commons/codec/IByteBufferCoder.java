@@ -0,0 +1,88 @@
+/**
+ * Copyright (C) 2014-2017 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.codec;
+
+import java.nio.ByteBuffer;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Base interface for incremental, {@link ByteBuffer} based encoders and
+ * decoders. In contrast to {@link IByteArrayStreamEncoder} and
+ * {@link IByteArrayStreamDecoder} implementations of this interface are
+ * stateful and may carry over partial data between invocations, so that
+ * arbitrarily large inputs can be processed in constant memory.<br>
+ * The contract is similar to
+ * {@link java.nio.charset.CharsetEncoder#encode(java.nio.CharBuffer, ByteBuffer, boolean)}:
+ * <ul>
+ * <li>The coder consumes as much of the source buffer as possible and writes
+ * the result to the destination buffer.</li>
+ * <li>If {@link ECodecResult#UNDERFLOW} is returned, the source buffer was
+ * completely consumed. Incomplete units are kept internally.</li>
+ * <li>If {@link ECodecResult#OVERFLOW} is returned, the destination buffer
+ * must be drained and the method must be invoked again with the same source
+ * buffer.</li>
+ * <li>After the last chunk of input the method must be invoked with
+ * <code>bEndOfInput</code> set to <code>true</code> until
+ * {@link ECodecResult#UNDERFLOW} is returned.</li>
+ * </ul>
+ * Coders may hold native resources and must therefore be closed after usage.
+ * The stream and channel adapters close their coder when they are closed.
+ * Instances of this interface are not thread-safe.
+ *
+ * @author Philip Helger
+ * @since 9.0.0
+ */
+@FunctionalInterface
+public interface IByteBufferCoder extends AutoCloseable
+{
+  /**
+   * Process the passed source buffer.
+   *
+   * @param aSrc
+   *        Source buffer to read from. May not be <code>null</code>.
+   * @param aDst
+   *        Destination buffer to write to. May not be <code>null</code>.
+   * @param bEndOfInput
+   *        <code>true</code> if no further input will follow after the passed
+   *        source buffer.
+   * @return {@link ECodecResult#UNDERFLOW} if more input is needed or
+   *         {@link ECodecResult#OVERFLOW} if the destination buffer is full.
+   *         Never <code>null</code>.
+   * @throws EncodeException
+   *         In case something goes wrong when encoding
+   * @throws DecodeException
+   *         In case something goes wrong when decoding
+   */
+  @Nonnull
+  ECodecResult code (@Nonnull ByteBuffer aSrc, @Nonnull ByteBuffer aDst, boolean bEndOfInput);
+
+  /**
+   * Reset all internal state so that the object can be reused for a new
+   * input. The default implementation does nothing.
+   */
+  default void reset ()
+  {}
+
+  /**
+   * Release all resources held by this coder (e.g. native memory). The coder
+   * may not be used afterwards. Calling this method more than once has no
+   * effect. The default implementation does nothing.
+   */
+  default void close ()
+  {}
+}
@@ -0,0 +1,57 @@
+/**
+ * Copyright (C) 2014-2017 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.codec;
+
+import java.nio.ByteBuffer;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Incremental, {@link ByteBuffer} based decoder. See {@link IByteBufferCoder}
+ * for the general contract.
+ *
+ * @author Philip Helger
+ * @since 9.0.0
+ */
+@FunctionalInterface
+public interface IByteBufferDecoder extends IByteBufferCoder
+{
+  /**
+   * Decode as much as possible from the source buffer into the destination
+   * buffer.
+   *
+   * @param aSrc
+   *        Source buffer with the encoded bytes. May not be <code>null</code>.
+   * @param aDst
+   *        Destination buffer. May not be <code>null</code>.
+   * @param bEndOfInput
+   *        <code>true</code> if no further input will follow.
+   * @return {@link ECodecResult#UNDERFLOW} if more input is needed or
+   *         {@link ECodecResult#OVERFLOW} if the destination buffer is full.
+   *         Never <code>null</code>.
+   * @throws DecodeException
+   *         In case something goes wrong
+   */
+  @Nonnull
+  ECodecResult decode (@Nonnull ByteBuffer aSrc, @Nonnull ByteBuffer aDst, boolean bEndOfInput);
+
+  @Nonnull
+  default ECodecResult code (@Nonnull final ByteBuffer aSrc, @Nonnull final ByteBuffer aDst, final boolean bEndOfInput)
+  {
+    return decode (aSrc, aDst, bEndOfInput);
+  }
+}
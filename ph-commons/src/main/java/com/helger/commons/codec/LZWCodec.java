@@ -20,6 +20,7 @@ import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 
 import javax.annotation.Nonnegative;
@@ -45,7 +46,7 @@ import com.helger.commons.string.ToStringGenerator;
  *
  * @author Philip Helger
  */
-public class LZWCodec implements IByteArrayCodec
+public class LZWCodec implements IByteArrayCodec, IByteBufferCodec
 {
   /**
    * A single LZW node
@@ -258,6 +259,297 @@ public class LZWCodec implements IByteArrayCodec
     }
   }
 
+  /**
+   * Incremental LZW encoder. Carries over the code table, the current byte
+   * sequence and a single byte of look-ahead between invocations. The created
+   * output is identical to
+   * {@link LZWCodec#encode(byte[], int, int, OutputStream)}.
+   *
+   * @author Philip Helger
+   * @since 9.0.0
+   */
+  private static final class LZWEncoder extends AbstractByteBufferCoder implements IByteBufferEncoder
+  {
+    private final NonBlockingBitOutputStream m_aBOS = new NonBlockingBitOutputStream (m_aPending,
+                                                                                      ByteOrder.LITTLE_ENDIAN);
+    private final LZWEncodeDictionary m_aDict = new LZWEncodeDictionary ();
+    private byte [] m_aByteSeq = ArrayHelper.EMPTY_BYTE_ARRAY;
+    // Bytes that need to be encoded again after a table reset
+    private byte [] m_aReplay = ArrayHelper.EMPTY_BYTE_ARRAY;
+    private int m_nReplayOfs = 0;
+    // The current byte to be encoded or -1
+    private int m_nCurByte = -1;
+    private boolean m_bStarted = false;
+    private boolean m_bFlushed = false;
+
+    LZWEncoder ()
+    {
+      m_aDict.reset ();
+    }
+
+    private int _peekNextByte (@Nonnull final ByteBuffer aSrc)
+    {
+      if (m_nReplayOfs < m_aReplay.length)
+        return m_aReplay[m_nReplayOfs] & 0xff;
+      if (aSrc.hasRemaining ())
+        return aSrc.get (aSrc.position ()) & 0xff;
+      return -1;
+    }
+
+    private int _readNextByte (@Nonnull final ByteBuffer aSrc)
+    {
+      if (m_nReplayOfs < m_aReplay.length)
+        return m_aReplay[m_nReplayOfs++] & 0xff;
+      if (aSrc.hasRemaining ())
+        return aSrc.get () & 0xff;
+      return -1;
+    }
+
+    private void _encodeByte (final byte nByteToEncode, final int nNextByte) throws IOException
+    {
+      // Append current byte
+      m_aByteSeq = ArrayHelper.getConcatenated (m_aByteSeq, nByteToEncode);
+      m_aDict.visit (nByteToEncode);
+      final int nCodeLength = m_aDict.getCodeLength ();
+
+      final LZWNode aCurNode = m_aDict.getNode (m_aByteSeq);
+      if (nNextByte < 0)
+      {
+        // last byte
+        m_aBOS.writeBits (aCurNode.getTableIndex (), nCodeLength);
+        return;
+      }
+
+      // Is there a node for the following byte?
+      if (aCurNode.getChildNode ((byte) nNextByte) == null)
+      {
+        // No -> write down
+        m_aBOS.writeBits (aCurNode.getTableIndex (), nCodeLength);
+        m_aByteSeq = ArrayHelper.EMPTY_BYTE_ARRAY;
+      }
+
+      if (m_aDict.getNextFreeCode () == AbstractLZWDictionary.MAX_CODE - 1)
+      {
+        if (s_aLogger.isTraceEnabled ())
+          s_aLogger.trace ("Table overflow in encoding -> resetting (codelength=" +
+                           nCodeLength +
+                           ";byteseq#=" +
+                           m_aByteSeq.length +
+                           ")");
+        m_aBOS.writeBits (AbstractLZWDictionary.CODE_CLEARTABLE, nCodeLength);
+        m_aDict.reset ();
+        // The current byte sequence needs to be encoded again
+        m_aReplay = ArrayHelper.getConcatenated (m_aByteSeq,
+                                                 ArrayHelper.getCopy (m_aReplay,
+                                                                      m_nReplayOfs,
+                                                                      m_aReplay.length - m_nReplayOfs));
+        m_nReplayOfs = 0;
+        m_aByteSeq = ArrayHelper.EMPTY_BYTE_ARRAY;
+      }
+    }
+
+    private void _writeEOF () throws IOException
+    {
+      int nCodeLength = m_aDict.getCodeLength ();
+      switch (m_aDict.getNextFreeCode ())
+      {
+        case 511:
+        case 1023:
+        case 2047:
+          nCodeLength++;
+          break;
+        default:
+          break;
+      }
+      m_aBOS.writeBits (AbstractLZWDictionary.CODE_EOF, nCodeLength);
+      m_aBOS.flush ();
+    }
+
+    @Nonnull
+    public ECodecResult encode (@Nonnull final ByteBuffer aSrc, @Nonnull final ByteBuffer aDst, final boolean bEndOfInput)
+    {
+      try
+      {
+        if (!m_bStarted)
+        {
+          // Always the same
+          m_aBOS.writeBits (AbstractLZWDictionary.CODE_CLEARTABLE, m_aDict.getCodeLength ());
+          m_bStarted = true;
+        }
+
+        while (true)
+        {
+          if (!drainPending (aDst))
+            return ECodecResult.OVERFLOW;
+
+          if (m_nCurByte < 0)
+          {
+            m_nCurByte = _readNextByte (aSrc);
+            if (m_nCurByte < 0)
+              break;
+          }
+
+          final int nNextByte = _peekNextByte (aSrc);
+          if (nNextByte < 0 && !bEndOfInput)
+          {
+            // Wait for the look-ahead byte
+            break;
+          }
+
+          final byte nByteToEncode = (byte) m_nCurByte;
+          m_nCurByte = -1;
+          _encodeByte (nByteToEncode, nNextByte);
+        }
+
+        if (bEndOfInput && !m_bFlushed)
+        {
+          m_bFlushed = true;
+          _writeEOF ();
+          if (!drainPending (aDst))
+            return ECodecResult.OVERFLOW;
+        }
+        return ECodecResult.UNDERFLOW;
+      }
+      catch (final IOException ex)
+      {
+        throw new EncodeException ("Failed to encode LZW", ex);
+      }
+    }
+
+    @Override
+    public void reset ()
+    {
+      // Discard all buffered bits
+      StreamHelper.flush (m_aBOS);
+      super.reset ();
+      m_aDict.reset ();
+      m_aByteSeq = ArrayHelper.EMPTY_BYTE_ARRAY;
+      m_aReplay = ArrayHelper.EMPTY_BYTE_ARRAY;
+      m_nReplayOfs = 0;
+      m_nCurByte = -1;
+      m_bStarted = false;
+      m_bFlushed = false;
+    }
+  }
+
+  /**
+   * Incremental LZW decoder. Carries over the code table, the previous byte
+   * sequence and incomplete codes between invocations.
+   *
+   * @author Philip Helger
+   * @since 9.0.0
+   */
+  private static final class LZWDecoder extends AbstractByteBufferCoder implements IByteBufferDecoder
+  {
+    private final LZWDecodeDictionary m_aDict = new LZWDecodeDictionary ();
+    // Bits read but not yet consumed, high order bit first
+    private int m_nBitBuffer = 0;
+    private int m_nBitCount = 0;
+    // null at the beginning and after a table reset
+    private byte [] m_aPrevByteSeq;
+    private boolean m_bEOF = false;
+
+    LZWDecoder ()
+    {
+      m_aDict.reset ();
+    }
+
+    private int _readCode (@Nonnull final ByteBuffer aSrc)
+    {
+      final int nCodeBits = m_aDict.m_nCodeBits;
+      while (m_nBitCount < nCodeBits)
+      {
+        if (!aSrc.hasRemaining ())
+          return -1;
+        m_nBitBuffer = (m_nBitBuffer << 8) | (aSrc.get () & 0xff);
+        m_nBitCount += 8;
+      }
+      m_nBitCount -= nCodeBits;
+      final int ret = (m_nBitBuffer >>> m_nBitCount) & ((1 << nCodeBits) - 1);
+      m_nBitBuffer &= (1 << m_nBitCount) - 1;
+      return ret;
+    }
+
+    private void _decodeCode (final int nCode)
+    {
+      if (nCode == AbstractLZWDictionary.CODE_EOF)
+      {
+        m_bEOF = true;
+        return;
+      }
+      if (nCode == AbstractLZWDictionary.CODE_CLEARTABLE)
+      {
+        // upon clear table, don't add something to the table
+        m_aDict.reset ();
+        m_aPrevByteSeq = null;
+        return;
+      }
+
+      final byte [] aByteSeq;
+      if (m_aPrevByteSeq == null)
+      {
+        aByteSeq = m_aDict.directGetAllBytes (nCode);
+        if (aByteSeq == null)
+          throw new DecodeException ("Failed to resolve initial code " + nCode);
+      }
+      else
+      {
+        final int nNextFreeCode = m_aDict.getNextFreeCode ();
+        if (nCode < nNextFreeCode)
+          aByteSeq = m_aDict.directGetAllBytes (nCode);
+        else
+          if (nCode == nNextFreeCode)
+            aByteSeq = ArrayHelper.getConcatenated (m_aPrevByteSeq, m_aPrevByteSeq[0]);
+          else
+            throw new DecodeException ("Error decoding LZW: unexpected code " +
+                                       nCode +
+                                       " while next free code is " +
+                                       nNextFreeCode);
+        m_aDict.addEntry (ArrayHelper.getConcatenated (m_aPrevByteSeq, aByteSeq[0]), false);
+      }
+      m_aPending.write (aByteSeq, 0, aByteSeq.length);
+      m_aPrevByteSeq = aByteSeq;
+    }
+
+    @Nonnull
+    public ECodecResult decode (@Nonnull final ByteBuffer aSrc, @Nonnull final ByteBuffer aDst, final boolean bEndOfInput)
+    {
+      while (true)
+      {
+        if (!drainPending (aDst))
+          return ECodecResult.OVERFLOW;
+
+        if (m_bEOF)
+        {
+          // Ignore everything after the EOF code
+          aSrc.position (aSrc.limit ());
+          break;
+        }
+
+        final int nCode = _readCode (aSrc);
+        if (nCode < 0)
+        {
+          if (bEndOfInput)
+            throw new DecodeException ("Unexpected EOF decoding LZW");
+          break;
+        }
+        _decodeCode (nCode);
+      }
+      return ECodecResult.UNDERFLOW;
+    }
+
+    @Override
+    public void reset ()
+    {
+      super.reset ();
+      m_aDict.reset ();
+      m_nBitBuffer = 0;
+      m_nBitCount = 0;
+      m_aPrevByteSeq = null;
+      m_bEOF = false;
+    }
+  }
+
   private static final Logger s_aLogger = LoggerFactory.getLogger (LZWCodec.class);
 
   public LZWCodec ()
@@ -435,4 +727,16 @@ public class LZWCodec implements IByteArrayCodec
       decode (aIS, aOS);
     }
   }
+
+  @Nonnull
+  public IByteBufferEncoder newByteBufferEncoder ()
+  {
+    return new LZWEncoder ();
+  }
+
+  @Nonnull
+  public IByteBufferDecoder newByteBufferDecoder ()
+  {
+    return new LZWDecoder ();
+  }
 }
@@ -18,6 +18,7 @@ package com.helger.commons.codec;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.util.BitSet;
 
 import javax.annotation.Nonnegative;
@@ -35,7 +36,7 @@ import com.helger.commons.string.StringHelper;
  * @author Philip Helger
  */
 @NotThreadSafe
-public class QuotedPrintableCodec implements IByteArrayCodec
+public class QuotedPrintableCodec implements IByteArrayCodec, IByteBufferCodec
 {
   private static final byte ESCAPE_CHAR = '=';
   private static final byte TAB = '\t';
@@ -55,6 +56,108 @@ public class QuotedPrintableCodec implements IByteArrayCodec
         PRINTABLE_CHARS.set (i);
   }
 
+  /**
+   * Incremental quoted printable encoder.
+   *
+   * @author Philip Helger
+   * @since 9.0.0
+   */
+  private static final class QuotedPrintableEncoder extends AbstractByteBufferCoder implements IByteBufferEncoder
+  {
+    private final BitSet m_aPrintableChars;
+
+    QuotedPrintableEncoder (@Nonnull final BitSet aPrintableChars)
+    {
+      m_aPrintableChars = aPrintableChars;
+    }
+
+    @Nonnull
+    public ECodecResult encode (@Nonnull final ByteBuffer aSrc, @Nonnull final ByteBuffer aDst, final boolean bEndOfInput)
+    {
+      while (true)
+      {
+        if (!drainPending (aDst))
+          return ECodecResult.OVERFLOW;
+        if (!aSrc.hasRemaining ())
+          break;
+
+        final int b = aSrc.get () & 0xff;
+        if (m_aPrintableChars.get (b))
+          m_aPending.write (b);
+        else
+        {
+          m_aPending.write (ESCAPE_CHAR);
+          m_aPending.write (StringHelper.getHexCharUpperCase ((b >> 4) & 0xF));
+          m_aPending.write (StringHelper.getHexCharUpperCase (b & 0xF));
+        }
+      }
+      return ECodecResult.UNDERFLOW;
+    }
+  }
+
+  /**
+   * Incremental quoted printable decoder. Carries over an incomplete escape
+   * sequence between invocations.
+   *
+   * @author Philip Helger
+   * @since 9.0.0
+   */
+  private static final class QuotedPrintableDecoder implements IByteBufferDecoder
+  {
+    // Number of escape sequence bytes read so far (0-2)
+    private int m_nEscapeLen = 0;
+    private int m_nHigh = 0;
+
+    @Nonnull
+    public ECodecResult decode (@Nonnull final ByteBuffer aSrc, @Nonnull final ByteBuffer aDst, final boolean bEndOfInput)
+    {
+      while (aSrc.hasRemaining ())
+      {
+        final int b = aSrc.get (aSrc.position ()) & 0xff;
+        switch (m_nEscapeLen)
+        {
+          case 0:
+            if (b == ESCAPE_CHAR)
+              m_nEscapeLen = 1;
+            else
+            {
+              if (!aDst.hasRemaining ())
+                return ECodecResult.OVERFLOW;
+              aDst.put ((byte) b);
+            }
+            break;
+          case 1:
+            m_nHigh = b;
+            m_nEscapeLen = 2;
+            break;
+          default:
+          {
+            if (!aDst.hasRemaining ())
+              return ECodecResult.OVERFLOW;
+            final int nDecodedValue = StringHelper.getHexByte ((char) m_nHigh, (char) b);
+            if (nDecodedValue < 0)
+              throw new DecodeException ("Invalid quoted-printable encoding for " + m_nHigh + " and " + b);
+            aDst.put ((byte) nDecodedValue);
+            m_nEscapeLen = 0;
+            break;
+          }
+        }
+        aSrc.get ();
+      }
+
+      if (bEndOfInput && m_nEscapeLen > 0)
+        throw new DecodeException ("Invalid quoted-printable encoding. Premature end of input after escape char");
+      return ECodecResult.UNDERFLOW;
+    }
+
+    @Override
+    public void reset ()
+    {
+      m_nEscapeLen = 0;
+      m_nHigh = 0;
+    }
+  }
+
   /**
    * @return A copy of the default bit set to be used.
    */
@@ -172,4 +275,16 @@ public class QuotedPrintableCodec implements IByteArrayCodec
       throw new DecodeException ("Failed to decode quoted-printable", ex);
     }
   }
+
+  @Nonnull
+  public IByteBufferEncoder newByteBufferEncoder ()
+  {
+    return new QuotedPrintableEncoder (m_aPrintableChars);
+  }
+
+  @Nonnull
+  public IByteBufferDecoder newByteBufferDecoder ()
+  {
+    return new QuotedPrintableDecoder ();
+  }
 }
@@ -18,6 +18,7 @@ package com.helger.commons.codec;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
@@ -27,14 +28,213 @@ import javax.annotation.WillNotClose;
 import com.helger.commons.io.stream.NonBlockingByteArrayInputStream;
 
 /**
- * Decoder for run length encoding
+ * Decoder for run length encoding. The incremental {@link IByteBufferCodec}
+ * API additionally supports encoding.
  *
  * @author Philip Helger
  */
-public class RunLengthCodec implements IByteArrayStreamDecoder
+public class RunLengthCodec implements IByteArrayStreamDecoder, IByteBufferCodec
 {
   protected static final int RUN_LENGTH_EOD = 0x80;
 
+  /**
+   * Incremental run length encoder. Carries over the current run and up to 127
+   * literal bytes between invocations. The output is terminated with the EOD
+   * marker.
+   *
+   * @author Philip Helger
+   * @since 9.0.0
+   */
+  private static final class RunLengthEncoder extends AbstractByteBufferCoder implements IByteBufferEncoder
+  {
+    // Maximum number of literal bytes in one block
+    private static final int MAX_LITERAL_LENGTH = 0x7f;
+    // Maximum number of repetitions in one block
+    private static final int MAX_RUN_LENGTH = 128;
+
+    private final byte [] m_aLiteral = new byte [MAX_LITERAL_LENGTH];
+    private int m_nLiteralLen = 0;
+    private byte m_nRunByte;
+    private int m_nRunLen = 0;
+    private boolean m_bFlushed = false;
+
+    private void _writeLiteral ()
+    {
+      if (m_nLiteralLen > 0)
+      {
+        m_aPending.write (m_nLiteralLen);
+        m_aPending.write (m_aLiteral, 0, m_nLiteralLen);
+        m_nLiteralLen = 0;
+      }
+    }
+
+    private void _finishRun ()
+    {
+      if (m_nRunLen == 1)
+      {
+        // A single byte is added to the literal
+        if (m_nLiteralLen == MAX_LITERAL_LENGTH)
+          _writeLiteral ();
+        m_aLiteral[m_nLiteralLen++] = m_nRunByte;
+      }
+      else
+        if (m_nRunLen > 1)
+        {
+          _writeLiteral ();
+          m_aPending.write (257 - m_nRunLen);
+          m_aPending.write (m_nRunByte);
+        }
+      m_nRunLen = 0;
+    }
+
+    @Nonnull
+    public ECodecResult encode (@Nonnull final ByteBuffer aSrc, @Nonnull final ByteBuffer aDst, final boolean bEndOfInput)
+    {
+      while (true)
+      {
+        if (!drainPending (aDst))
+          return ECodecResult.OVERFLOW;
+        if (!aSrc.hasRemaining ())
+          break;
+
+        final byte nByte = aSrc.get ();
+        if (m_nRunLen > 0 && nByte == m_nRunByte)
+        {
+          ++m_nRunLen;
+          if (m_nRunLen == MAX_RUN_LENGTH)
+            _finishRun ();
+        }
+        else
+        {
+          _finishRun ();
+          m_nRunByte = nByte;
+          m_nRunLen = 1;
+        }
+      }
+
+      if (bEndOfInput && !m_bFlushed)
+      {
+        m_bFlushed = true;
+        _finishRun ();
+        _writeLiteral ();
+        m_aPending.write (RUN_LENGTH_EOD);
+        if (!drainPending (aDst))
+          return ECodecResult.OVERFLOW;
+      }
+      return ECodecResult.UNDERFLOW;
+    }
+
+    @Override
+    public void reset ()
+    {
+      super.reset ();
+      m_nLiteralLen = 0;
+      m_nRunLen = 0;
+      m_bFlushed = false;
+    }
+  }
+
+  /**
+   * Incremental run length decoder. Carries over the state of the current
+   * literal or repeat block between invocations.
+   *
+   * @author Philip Helger
+   * @since 9.0.0
+   */
+  private static final class RunLengthDecoder implements IByteBufferDecoder
+  {
+    // Number of literal bytes still to be copied
+    private int m_nLiteralLeft = 0;
+    // Number of repetitions still to be written
+    private int m_nRepeatLeft = 0;
+    // -1 if the byte to be repeated was not yet read
+    private int m_nRepeatByte = -1;
+    private boolean m_bEOD = false;
+
+    @Nonnull
+    public ECodecResult decode (@Nonnull final ByteBuffer aSrc, @Nonnull final ByteBuffer aDst, final boolean bEndOfInput)
+    {
+      while (true)
+      {
+        if (m_nLiteralLeft > 0)
+        {
+          if (!aSrc.hasRemaining ())
+            break;
+          if (!aDst.hasRemaining ())
+            return ECodecResult.OVERFLOW;
+          final int nCount = Math.min (m_nLiteralLeft, Math.min (aSrc.remaining (), aDst.remaining ()));
+          final int nOldLimit = aSrc.limit ();
+          aSrc.limit (aSrc.position () + nCount);
+          aDst.put (aSrc);
+          aSrc.limit (nOldLimit);
+          m_nLiteralLeft -= nCount;
+        }
+        else
+          if (m_nRepeatLeft > 0)
+          {
+            if (m_nRepeatByte < 0)
+            {
+              if (!aSrc.hasRemaining ())
+                break;
+              m_nRepeatByte = aSrc.get () & 0xff;
+            }
+            while (m_nRepeatLeft > 0)
+            {
+              if (!aDst.hasRemaining ())
+                return ECodecResult.OVERFLOW;
+              aDst.put ((byte) m_nRepeatByte);
+              --m_nRepeatLeft;
+            }
+            m_nRepeatByte = -1;
+          }
+          else
+          {
+            if (m_bEOD)
+            {
+              // Ignore everything after the EOD marker
+              aSrc.position (aSrc.limit ());
+              break;
+            }
+            if (!aSrc.hasRemaining ())
+              break;
+
+            final int nDupAmount = aSrc.get () & 0xff;
+            if (nDupAmount == RUN_LENGTH_EOD)
+              m_bEOD = true;
+            else
+              if (nDupAmount <= 0x7f)
+              {
+                // no duplicates present
+                m_nLiteralLeft = nDupAmount;
+              }
+              else
+              {
+                // The char is repeated for 257-nDupAmount times
+                m_nRepeatLeft = 257 - nDupAmount;
+              }
+          }
+      }
+
+      if (bEndOfInput)
+      {
+        if (m_nLiteralLeft > 0)
+          throw new DecodeException ("Unexpected EOF in RunLengthCodec - " + m_nLiteralLeft + " elements left");
+        if (m_nRepeatLeft > 0)
+          throw new DecodeException ("Unexpected EOF in RunLengthCodec");
+      }
+      return ECodecResult.UNDERFLOW;
+    }
+
+    @Override
+    public void reset ()
+    {
+      m_nLiteralLeft = 0;
+      m_nRepeatLeft = 0;
+      m_nRepeatByte = -1;
+      m_bEOD = false;
+    }
+  }
+
   public RunLengthCodec ()
   {}
 
@@ -84,4 +284,16 @@ public class RunLengthCodec implements IByteArrayStreamDecoder
       throw new DecodeException ("Failed to decode RunLength", ex);
     }
   }
+
+  @Nonnull
+  public IByteBufferEncoder newByteBufferEncoder ()
+  {
+    return new RunLengthEncoder ();
+  }
+
+  @Nonnull
+  public IByteBufferDecoder newByteBufferDecoder ()
+  {
+    return new RunLengthDecoder ();
+  }
 }
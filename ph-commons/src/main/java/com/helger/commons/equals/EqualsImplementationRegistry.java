@@ -16,9 +16,7 @@
  */
 package com.helger.commons.equals;
 
-import java.lang.ref.WeakReference;
 import java.lang.reflect.Method;
-import java.util.function.Supplier;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -31,8 +29,6 @@ import org.slf4j.LoggerFactory;
 import com.helger.commons.ValueEnforcer;
 import com.helger.commons.annotation.Singleton;
 import com.helger.commons.annotation.UseDirectEqualsAndHashCode;
-import com.helger.commons.cache.AnnotationUsageCache;
-import com.helger.commons.collection.impl.CommonsHashMap;
 import com.helger.commons.collection.impl.CommonsWeakHashMap;
 import com.helger.commons.collection.impl.ICommonsMap;
 import com.helger.commons.concurrent.SimpleReadWriteLock;
@@ -43,7 +39,9 @@ import com.helger.commons.lang.ServiceLoaderHelper;
 import com.helger.commons.state.EChange;
 
 /**
- * The default implementation of {@link IEqualsImplementationRegistry}.
+ * The default implementation of {@link IEqualsImplementationRegistry}. The
+ * implementation to use is resolved only once per class and cached until the
+ * next registration change.
  *
  * @author Philip Helger
  */
@@ -77,19 +75,35 @@ public final class EqualsImplementationRegistry implements IEqualsImplementation
 
   private static final Logger s_aLogger = LoggerFactory.getLogger (EqualsImplementationRegistry.class);
 
+  /** Marker for classes that use their own equals method */
+  private static final IEqualsImplementation <Object> DIRECT = Object::equals;
+  /** Used for all object arrays without a special implementation */
+  private static final IEqualsImplementation <Object []> ARRAY = new ArrayEqualsImplementation ();
+
   private static boolean s_bDefaultInstantiated = false;
 
+  /**
+   * The resolved implementation per class. This is never <code>null</code> -
+   * {@link EqualsImplementationRegistry#DIRECT} is used if the class does not
+   * need a special implementation.
+   */
+  private final class ResolvedImplementation extends ClassValue <IEqualsImplementation <?>>
+  {
+    @Override
+    protected IEqualsImplementation <?> computeValue (final Class <?> aClass)
+    {
+      return _resolveEqualsImplementation (aClass);
+    }
+  }
+
   private final SimpleReadWriteLock m_aRWLock = new SimpleReadWriteLock ();
 
   // Use a weak hash map, because the key is a class
   @GuardedBy ("m_aRWLock")
   private final ICommonsMap <Class <?>, IEqualsImplementation <?>> m_aMap = new CommonsWeakHashMap <> ();
 
-  // Cache for classes where direct implementation should be used
-  private final AnnotationUsageCache m_aDirectEquals = new AnnotationUsageCache (UseDirectEqualsAndHashCode.class);
-
-  // Cache for classes that implement equals directly
-  private final ICommonsMap <String, Boolean> m_aImplementsEquals = new CommonsHashMap <> ();
+  // Replaced with an empty instance whenever m_aMap changes
+  private volatile ResolvedImplementation m_aResolved = new ResolvedImplementation ();
 
   private EqualsImplementationRegistry ()
   {
@@ -105,7 +119,9 @@ public final class EqualsImplementationRegistry implements IEqualsImplementation
   public static EqualsImplementationRegistry getInstance ()
   {
     final EqualsImplementationRegistry ret = SingletonHolder.s_aInstance;
-    s_bDefaultInstantiated = true;
+    // Avoid a shared write for every equals check
+    if (!s_bDefaultInstantiated)
+      s_bDefaultInstantiated = true;
     return ret;
   }
 
@@ -121,7 +137,10 @@ public final class EqualsImplementationRegistry implements IEqualsImplementation
     m_aRWLock.writeLocked ( () -> {
       final IEqualsImplementation <?> aOldImpl = m_aMap.get (aClass);
       if (aOldImpl == null)
+      {
         m_aMap.put (aClass, aImpl);
+        m_aResolved = new ResolvedImplementation ();
+      }
       else
       {
         // Avoid the warning when the passed implementation equals the stored
@@ -140,138 +159,100 @@ public final class EqualsImplementationRegistry implements IEqualsImplementation
   @Nonnull
   public EChange unregisterEqualsImplementation (@Nonnull final Class <?> aClass)
   {
-    return m_aRWLock.writeLocked ( () -> m_aMap.removeObject (aClass));
-  }
-
-  private boolean _isUseDirectEquals (@Nonnull final Class <?> aClass)
-  {
-    return m_aDirectEquals.hasAnnotation (aClass);
+    return m_aRWLock.writeLocked ( () -> {
+      if (m_aMap.removeObject (aClass).isUnchanged ())
+        return EChange.UNCHANGED;
+      m_aResolved = new ResolvedImplementation ();
+      return EChange.CHANGED;
+    });
   }
 
-  private boolean _implementsEqualsItself (@Nonnull final Class <?> aClass)
+  private static boolean _implementsEqualsItself (@Nonnull final Class <?> aClass)
   {
-    final String sClassName = aClass.getName ();
-
-    Boolean aImplementsEqualsItself = m_aRWLock.readLocked ((Supplier <Boolean>) () -> m_aImplementsEquals.get (sClassName));
-
-    if (aImplementsEqualsItself == null)
+    try
     {
-      aImplementsEqualsItself = m_aRWLock.writeLocked ((Supplier <Boolean>) () -> {
-        // Try again in write lock
-        Boolean aWLImplementsEqualsItself = m_aImplementsEquals.get (sClassName);
-        if (aWLImplementsEqualsItself == null)
-        {
-          // Determine
-          boolean bRet = false;
-          try
-          {
-            final Method aMethod = aClass.getDeclaredMethod ("equals", Object.class);
-            if (aMethod != null && aMethod.getReturnType ().equals (boolean.class))
-              bRet = true;
-          }
-          catch (final NoSuchMethodException ex)
-          {
-            // ignore
-          }
-          aWLImplementsEqualsItself = Boolean.valueOf (bRet);
-          m_aImplementsEquals.put (sClassName, aWLImplementsEqualsItself);
-        }
-        return aWLImplementsEqualsItself;
-      });
+      final Method aMethod = aClass.getDeclaredMethod ("equals", Object.class);
+      return aMethod != null && aMethod.getReturnType ().equals (boolean.class);
+    }
+    catch (final NoSuchMethodException ex)
+    {
+      return false;
     }
-
-    return aImplementsEqualsItself.booleanValue ();
   }
 
-  @Nullable
-  public <T> IEqualsImplementation <T> getBestMatchingEqualsImplementation (@Nullable final Class <T> aClass)
+  @Nonnull
+  private IEqualsImplementation <?> _resolveEqualsImplementation (@Nonnull final Class <?> aClass)
   {
-    if (aClass != null)
-    {
-      IEqualsImplementation <T> aMatchingImplementation = null;
-      Class <?> aMatchingClass = null;
+    // No check required?
+    if (aClass.isAnnotationPresent (UseDirectEqualsAndHashCode.class))
+      return DIRECT;
 
-      // No check required?
-      if (_isUseDirectEquals (aClass))
-        return null;
+    IEqualsImplementation <?> aMatchingImplementation = null;
+    Class <?> aMatchingClass = null;
 
-      m_aRWLock.readLock ().lock ();
-      try
+    m_aRWLock.readLock ().lock ();
+    try
+    {
+      // Check for an exact match first
+      aMatchingImplementation = m_aMap.get (aClass);
+      if (aMatchingImplementation != null)
+        aMatchingClass = aClass;
+      else
       {
-        // Check for an exact match first
-        aMatchingImplementation = GenericReflection.uncheckedCast (m_aMap.get (aClass));
-        if (aMatchingImplementation != null)
-          aMatchingClass = aClass;
-        else
+        // Scan hierarchy in most efficient way
+        for (final Class <?> aCurClass : ClassHierarchyCache.getClassHierarchyIterable (aClass))
         {
-          // Scan hierarchy in most efficient way
-          for (final WeakReference <Class <?>> aCurWRClass : ClassHierarchyCache.getClassHierarchyIterator (aClass))
+          final IEqualsImplementation <?> aImpl = m_aMap.get (aCurClass);
+          if (aImpl != null)
           {
-            final Class <?> aCurClass = aCurWRClass.get ();
-            if (aCurClass != null)
-            {
-              final IEqualsImplementation <?> aImpl = m_aMap.get (aCurClass);
-              if (aImpl != null)
-              {
-                aMatchingImplementation = GenericReflection.uncheckedCast (aImpl);
-                aMatchingClass = aCurClass;
-                if (s_aLogger.isDebugEnabled ())
-                  s_aLogger.debug ("Found hierarchical match with class " +
-                                   aMatchingClass +
-                                   " when searching for " +
-                                   aClass);
-                break;
-              }
-            }
+            aMatchingImplementation = aImpl;
+            aMatchingClass = aCurClass;
+            if (s_aLogger.isDebugEnabled ())
+              s_aLogger.debug ("Found hierarchical match with class " + aMatchingClass + " when searching for " + aClass);
+            break;
           }
         }
       }
-      finally
-      {
-        m_aRWLock.readLock ().unlock ();
-      }
-
-      // Do this outside of the lock for performance reasons
-      if (aMatchingImplementation != null)
-      {
-        // If the matching implementation is for an interface and the
-        // implementation class implements equals, use the one from the class
-        // Example: a converter for "Map" is registered, but "LRUCache" comes
-        // with its own "equals" implementation
-        if (aMatchingImplementation.implementationEqualsOverridesInterface () &&
-            ClassHelper.isInterface (aMatchingClass) &&
-            _implementsEqualsItself (aClass))
-        {
-          // Remember to use direct implementation
-          m_aDirectEquals.setAnnotation (aClass, true);
-          return null;
-        }
-
-        if (!aMatchingClass.equals (aClass))
-        {
-          // We found a match by walking the hierarchy -> put that match in the
-          // direct hit list for further speed up
-          registerEqualsImplementation (aClass, aMatchingImplementation);
-        }
-
-        return aMatchingImplementation;
-      }
-
-      // Handle arrays specially, because we cannot register a converter for
-      // every potential array class (but we allow for special implementations)
-      if (ClassHelper.isArrayClass (aClass))
-        return GenericReflection.uncheckedCast (new ArrayEqualsImplementation ());
+    }
+    finally
+    {
+      m_aRWLock.readLock ().unlock ();
+    }
 
-      // Remember to use direct implementation
-      m_aDirectEquals.setAnnotation (aClass, true);
+    // Do this outside of the lock for performance reasons
+    if (aMatchingImplementation != null)
+    {
+      // If the matching implementation is for an interface and the
+      // implementation class implements equals, use the one from the class
+      // Example: a converter for "Map" is registered, but "LRUCache" comes
+      // with its own "equals" implementation
+      if (aMatchingImplementation.implementationEqualsOverridesInterface () &&
+          ClassHelper.isInterface (aMatchingClass) &&
+          _implementsEqualsItself (aClass))
+        return DIRECT;
+
+      return aMatchingImplementation;
     }
 
+    // Handle arrays specially, because we cannot register a converter for
+    // every potential array class (but we allow for special implementations)
+    if (ClassHelper.isArrayClass (aClass))
+      return ARRAY;
+
     // No special handler found
     if (s_aLogger.isDebugEnabled ())
       s_aLogger.debug ("Found no equals implementation for " + aClass);
+    return DIRECT;
+  }
 
-    // Definitely no special implementation
-    return null;
+  @Nullable
+  public <T> IEqualsImplementation <T> getBestMatchingEqualsImplementation (@Nullable final Class <T> aClass)
+  {
+    if (aClass == null)
+      return null;
+
+    final IEqualsImplementation <?> aImpl = m_aResolved.get (aClass);
+    return aImpl == DIRECT ? null : GenericReflection.uncheckedCast (aImpl);
   }
 
   public static <T> boolean areEqual (@Nullable final T aObj1, @Nullable final T aObj2)
@@ -293,30 +274,17 @@ public final class EqualsImplementationRegistry implements IEqualsImplementation
       return false;
     }
 
-    // Same class
-    final IEqualsImplementation <T> aImpl = getInstance ().getBestMatchingEqualsImplementation (GenericReflection.uncheckedCast (aClass1));
-
-    // Start the main equals check
-    boolean bAreEqual;
-    if (aImpl == null)
-    {
-      // No special implementation found
-      bAreEqual = aObj1.equals (aObj2);
-    }
-    else
-    {
-      // A special implementation was found!
-      bAreEqual = aImpl.areEqual (aObj1, aObj2);
-    }
-    return bAreEqual;
+    // Same class - get the best matching implementation, DIRECT if there is
+    // none
+    final IEqualsImplementation <T> aImpl = GenericReflection.uncheckedCast (getInstance ().m_aResolved.get (aClass1));
+    return aImpl.areEqual (aObj1, aObj2);
   }
 
   public void reinitialize ()
   {
     m_aRWLock.writeLocked ( () -> {
       m_aMap.clear ();
-      m_aDirectEquals.clearCache ();
-      m_aImplementsEquals.clear ();
+      m_aResolved = new ResolvedImplementation ();
     });
 
     // Register all implementations via SPI
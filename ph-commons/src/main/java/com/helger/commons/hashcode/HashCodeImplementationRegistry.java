@@ -16,10 +16,8 @@
  */
 package com.helger.commons.hashcode;
 
-import java.lang.ref.WeakReference;
 import java.lang.reflect.Method;
 import java.util.Arrays;
-import java.util.function.Supplier;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -32,8 +30,6 @@ import org.slf4j.LoggerFactory;
 import com.helger.commons.ValueEnforcer;
 import com.helger.commons.annotation.Singleton;
 import com.helger.commons.annotation.UseDirectEqualsAndHashCode;
-import com.helger.commons.cache.AnnotationUsageCache;
-import com.helger.commons.collection.impl.CommonsHashMap;
 import com.helger.commons.collection.impl.CommonsWeakHashMap;
 import com.helger.commons.collection.impl.ICommonsMap;
 import com.helger.commons.concurrent.SimpleReadWriteLock;
@@ -46,7 +42,8 @@ import com.helger.commons.state.EChange;
 
 /**
  * The main registry for the different {@link IHashCodeImplementation}
- * implementations.
+ * implementations. The implementation to use is resolved only once per class
+ * and cached until the next registration change.
  *
  * @author Philip Helger
  */
@@ -61,19 +58,35 @@ public final class HashCodeImplementationRegistry implements IHashCodeImplementa
 
   private static final Logger s_aLogger = LoggerFactory.getLogger (HashCodeImplementationRegistry.class);
 
+  /** Marker for classes that use their own hashCode method */
+  private static final IHashCodeImplementation <Object> DIRECT = Object::hashCode;
+  /** Used for all object arrays without a special implementation */
+  private static final IHashCodeImplementation <Object []> ARRAY = Arrays::deepHashCode;
+
   private static boolean s_bDefaultInstantiated = false;
 
+  /**
+   * The resolved implementation per class. This is never <code>null</code> -
+   * {@link HashCodeImplementationRegistry#DIRECT} is used if the class does not
+   * need a special implementation.
+   */
+  private final class ResolvedImplementation extends ClassValue <IHashCodeImplementation <?>>
+  {
+    @Override
+    protected IHashCodeImplementation <?> computeValue (final Class <?> aClass)
+    {
+      return _resolveHashCodeImplementation (aClass);
+    }
+  }
+
   private final SimpleReadWriteLock m_aRWLock = new SimpleReadWriteLock ();
 
   // Use a weak hash map, because the key is a class
   @GuardedBy ("m_aRWLock")
   private final ICommonsMap <Class <?>, IHashCodeImplementation <?>> m_aMap = new CommonsWeakHashMap <> ();
 
-  // Cache for classes where direct implementation should be used
-  private final AnnotationUsageCache m_aDirectHashCode = new AnnotationUsageCache (UseDirectEqualsAndHashCode.class);
-
-  // Cache for classes that implement hashCode directly
-  private final ICommonsMap <String, Boolean> m_aImplementsHashCode = new CommonsHashMap <> ();
+  // Replaced with an empty instance whenever m_aMap changes
+  private volatile ResolvedImplementation m_aResolved = new ResolvedImplementation ();
 
   private HashCodeImplementationRegistry ()
   {
@@ -89,7 +102,9 @@ public final class HashCodeImplementationRegistry implements IHashCodeImplementa
   public static HashCodeImplementationRegistry getInstance ()
   {
     final HashCodeImplementationRegistry ret = SingletonHolder.s_aInstance;
-    s_bDefaultInstantiated = true;
+    // Avoid a shared write for every hash code calculation
+    if (!s_bDefaultInstantiated)
+      s_bDefaultInstantiated = true;
     return ret;
   }
 
@@ -105,7 +120,10 @@ public final class HashCodeImplementationRegistry implements IHashCodeImplementa
     m_aRWLock.writeLocked ( () -> {
       final IHashCodeImplementation <T> aOldImpl = GenericReflection.uncheckedCast (m_aMap.get (aClass));
       if (aOldImpl == null)
+      {
         m_aMap.put (aClass, aImpl);
+        m_aResolved = new ResolvedImplementation ();
+      }
       else
         if (!EqualsHelper.identityEqual (aOldImpl, aImpl))
         {
@@ -124,134 +142,98 @@ public final class HashCodeImplementationRegistry implements IHashCodeImplementa
   @Nonnull
   public EChange unregisterHashCodeImplementation (@Nonnull final Class <?> aClass)
   {
-    return m_aRWLock.writeLocked ( () -> m_aMap.removeObject (aClass));
-  }
-
-  private boolean _isUseDirectHashCode (@Nonnull final Class <?> aClass)
-  {
-    return m_aDirectHashCode.hasAnnotation (aClass);
+    return m_aRWLock.writeLocked ( () -> {
+      if (m_aMap.removeObject (aClass).isUnchanged ())
+        return EChange.UNCHANGED;
+      m_aResolved = new ResolvedImplementation ();
+      return EChange.CHANGED;
+    });
   }
 
-  private boolean _implementsHashCodeItself (@Nonnull final Class <?> aClass)
+  private static boolean _implementsHashCodeItself (@Nonnull final Class <?> aClass)
   {
-    final String sClassName = aClass.getName ();
-
-    Boolean aImplementsHashCodeItself = m_aRWLock.readLocked ((Supplier <Boolean>) () -> m_aImplementsHashCode.get (sClassName));
-    if (aImplementsHashCodeItself == null)
+    try
     {
-      aImplementsHashCodeItself = m_aRWLock.writeLocked ((Supplier <Boolean>) () -> {
-        // Try again in write lock
-        Boolean aWLImplementsHashCodeItself = m_aImplementsHashCode.get (sClassName);
-        if (aWLImplementsHashCodeItself == null)
-        {
-          // Determine
-          boolean bRet = false;
-          try
-          {
-            final Method aMethod = aClass.getDeclaredMethod ("hashCode");
-            if (aMethod != null && aMethod.getReturnType ().equals (int.class))
-              bRet = true;
-          }
-          catch (final NoSuchMethodException ex)
-          {
-            // ignore
-          }
-          aWLImplementsHashCodeItself = Boolean.valueOf (bRet);
-          m_aImplementsHashCode.put (sClassName, aWLImplementsHashCodeItself);
-        }
-        return aWLImplementsHashCodeItself;
-      });
+      final Method aMethod = aClass.getDeclaredMethod ("hashCode");
+      return aMethod != null && aMethod.getReturnType ().equals (int.class);
+    }
+    catch (final NoSuchMethodException ex)
+    {
+      return false;
     }
-    return aImplementsHashCodeItself.booleanValue ();
   }
 
-  @Nullable
-  public <T> IHashCodeImplementation <T> getBestMatchingHashCodeImplementation (@Nullable final Class <T> aClass)
+  @Nonnull
+  private IHashCodeImplementation <?> _resolveHashCodeImplementation (@Nonnull final Class <?> aClass)
   {
-    if (aClass != null)
-    {
-      IHashCodeImplementation <T> aMatchingImplementation = null;
-      Class <?> aMatchingClass = null;
+    // No check required?
+    if (aClass.isAnnotationPresent (UseDirectEqualsAndHashCode.class))
+      return DIRECT;
 
-      // No check required?
-      if (_isUseDirectHashCode (aClass))
-        return null;
+    IHashCodeImplementation <?> aMatchingImplementation = null;
+    Class <?> aMatchingClass = null;
 
-      m_aRWLock.readLock ().lock ();
-      try
+    m_aRWLock.readLock ().lock ();
+    try
+    {
+      // Check for an exact match first
+      aMatchingImplementation = m_aMap.get (aClass);
+      if (aMatchingImplementation != null)
+        aMatchingClass = aClass;
+      else
       {
-        // Check for an exact match first
-        aMatchingImplementation = GenericReflection.uncheckedCast (m_aMap.get (aClass));
-        if (aMatchingImplementation != null)
-          aMatchingClass = aClass;
-        else
+        // Scan hierarchy in efficient way
+        for (final Class <?> aCurClass : ClassHierarchyCache.getClassHierarchyIterable (aClass))
         {
-          // Scan hierarchy in efficient way
-          for (final WeakReference <Class <?>> aCurWRClass : ClassHierarchyCache.getClassHierarchyIterator (aClass))
+          final IHashCodeImplementation <?> aImpl = m_aMap.get (aCurClass);
+          if (aImpl != null)
           {
-            final Class <?> aCurClass = aCurWRClass.get ();
-            if (aCurClass != null)
-            {
-              final IHashCodeImplementation <?> aImpl = m_aMap.get (aCurClass);
-              if (aImpl != null)
-              {
-                aMatchingImplementation = GenericReflection.uncheckedCast (aImpl);
-                aMatchingClass = aCurClass;
-                if (s_aLogger.isDebugEnabled ())
-                  s_aLogger.debug ("Found hierarchical match with class " +
-                                   aMatchingClass +
-                                   " when searching for " +
-                                   aClass);
-                break;
-              }
-            }
+            aMatchingImplementation = aImpl;
+            aMatchingClass = aCurClass;
+            if (s_aLogger.isDebugEnabled ())
+              s_aLogger.debug ("Found hierarchical match with class " + aMatchingClass + " when searching for " + aClass);
+            break;
           }
         }
       }
-      finally
-      {
-        m_aRWLock.readLock ().unlock ();
-      }
-
-      // Do this outside of the lock for performance reasons
-      if (aMatchingImplementation != null)
-      {
-        // If the matching implementation is for an interface and the
-        // implementation class implements hashCode, use the one from the class
-        // Example: a converter for "Map" is registered, but "LRUCache" comes
-        // with its own "hashCode" implementation
-        if (ClassHelper.isInterface (aMatchingClass) && _implementsHashCodeItself (aClass))
-        {
-          // Remember to use direct implementation
-          m_aDirectHashCode.setAnnotation (aClass, true);
-          return null;
-        }
-
-        if (!aMatchingClass.equals (aClass))
-        {
-          // We found a match by walking the hierarchy -> put that match in the
-          // direct hit list for further speed up
-          registerHashCodeImplementation (aClass, aMatchingImplementation);
-        }
-
-        return aMatchingImplementation;
-      }
-
-      // Handle arrays specially, because we cannot register a converter for
-      // every potential array class (but we allow for special implementations)
-      if (ClassHelper.isArrayClass (aClass))
-        return x -> Arrays.deepHashCode ((Object []) x);
+    }
+    finally
+    {
+      m_aRWLock.readLock ().unlock ();
+    }
 
-      // Remember to use direct implementation
-      m_aDirectHashCode.setAnnotation (aClass, true);
+    // Do this outside of the lock for performance reasons
+    if (aMatchingImplementation != null)
+    {
+      // If the matching implementation is for an interface and the
+      // implementation class implements hashCode, use the one from the class
+      // Example: a converter for "Map" is registered, but "LRUCache" comes
+      // with its own "hashCode" implementation
+      if (ClassHelper.isInterface (aMatchingClass) && _implementsHashCodeItself (aClass))
+        return DIRECT;
+
+      return aMatchingImplementation;
     }
 
+    // Handle arrays specially, because we cannot register a converter for
+    // every potential array class (but we allow for special implementations)
+    if (ClassHelper.isArrayClass (aClass))
+      return ARRAY;
+
     // No special handler found
     if (s_aLogger.isDebugEnabled ())
       s_aLogger.debug ("Found no hashCode implementation for " + aClass);
+    return DIRECT;
+  }
+
+  @Nullable
+  public <T> IHashCodeImplementation <T> getBestMatchingHashCodeImplementation (@Nullable final Class <T> aClass)
+  {
+    if (aClass == null)
+      return null;
 
-    // Definitely no special implementation
-    return null;
+    final IHashCodeImplementation <?> aImpl = m_aResolved.get (aClass);
+    return aImpl == DIRECT ? null : GenericReflection.uncheckedCast (aImpl);
   }
 
   public static int getHashCode (@Nullable final Object aObj)
@@ -259,18 +241,16 @@ public final class HashCodeImplementationRegistry implements IHashCodeImplementa
     if (aObj == null)
       return HashCodeCalculator.HASHCODE_NULL;
 
-    // Get the best matching implementation
-    final Class <?> aClass = aObj.getClass ();
-    final IHashCodeImplementation <Object> aImpl = GenericReflection.uncheckedCast (getInstance ().getBestMatchingHashCodeImplementation (aClass));
-    return aImpl == null ? aObj.hashCode () : aImpl.getHashCode (aObj);
+    // Get the best matching implementation - DIRECT if there is none
+    final IHashCodeImplementation <Object> aImpl = GenericReflection.uncheckedCast (getInstance ().m_aResolved.get (aObj.getClass ()));
+    return aImpl.getHashCode (aObj);
   }
 
   public void reinitialize ()
   {
     m_aRWLock.writeLocked ( () -> {
       m_aMap.clear ();
-      m_aDirectHashCode.clearCache ();
-      m_aImplementsHashCode.clear ();
+      m_aResolved = new ResolvedImplementation ();
     });
 
     // Register all implementations via SPI
@@ -19,8 +19,10 @@ package com.helger.commons.io.channel;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.Channel;
+import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
 import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SelectableChannel;
 import java.nio.channels.WritableByteChannel;
 
 import javax.annotation.Nonnegative;
@@ -32,9 +34,11 @@ import javax.annotation.concurrent.Immutable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.helger.commons.CGlobal;
 import com.helger.commons.ValueEnforcer;
 import com.helger.commons.annotation.PresentForCodeCoverage;
 import com.helger.commons.exception.mock.IMockException;
+import com.helger.commons.io.stream.IOBufferPool;
 import com.helger.commons.io.stream.StreamHelper;
 import com.helger.commons.state.ESuccess;
 
@@ -52,6 +56,9 @@ public final class ChannelHelper
   // Use version 1 as it seems to be faster
   private static final boolean USE_COPY_V1 = true;
 
+  // Number of bytes to request per transferFrom call
+  private static final long TRANSFER_FROM_CHUNK_SIZE = 8 * CGlobal.BYTES_PER_MEGABYTE;
+
   @PresentForCodeCoverage
   private static final ChannelHelper s_aInstance = new ChannelHelper ();
 
@@ -59,7 +66,12 @@ public final class ChannelHelper
   {}
 
   /**
-   * Copy all content from the source channel to the destination channel.
+   * Copy all content from the source channel to the destination channel. If
+   * one of the channels is a {@link FileChannel} the copying is delegated to
+   * {@link FileChannel#transferTo(long, long, WritableByteChannel)} or
+   * {@link FileChannel#transferFrom(ReadableByteChannel, long, long)} so that
+   * the operating system can copy the data without passing it through a
+   * buffer.
    *
    * @param aSrc
    *        Source channel. May not be <code>null</code>. Is not closed after
@@ -80,14 +92,96 @@ public final class ChannelHelper
     ValueEnforcer.notNull (aDest, "DestinationChannel");
     ValueEnforcer.isTrue (aDest.isOpen (), "DestinationChannel is not open!");
 
-    long nBytesWritten;
+    long nBytesWritten = 0;
+    if (aSrc instanceof FileChannel)
+      nBytesWritten = transferTo ((FileChannel) aSrc, aDest, Long.MAX_VALUE);
+    else
+      if (aDest instanceof FileChannel && _isBlocking (aSrc))
+        nBytesWritten = _transferFrom (aSrc, (FileChannel) aDest);
+
+    // Copy the rest (if any) manually - e.g. for files that were appended in
+    // the meantime or special files that report a size of 0
     if (USE_COPY_V1)
-      nBytesWritten = _channelCopy1 (aSrc, aDest);
+      nBytesWritten += _channelCopy1 (aSrc, aDest);
     else
-      nBytesWritten = _channelCopy2 (aSrc, aDest);
+      nBytesWritten += _channelCopy2 (aSrc, aDest);
     return nBytesWritten;
   }
 
+  private static boolean _isBlocking (@Nonnull final Channel aChannel)
+  {
+    return !(aChannel instanceof SelectableChannel) || ((SelectableChannel) aChannel).isBlocking ();
+  }
+
+  /**
+   * Copy content from the current position of the source file channel to the
+   * destination channel using
+   * {@link FileChannel#transferTo(long, long, WritableByteChannel)}. On most
+   * operating systems this avoids copying the data to user space. Afterwards
+   * the position of the source channel is advanced by the number of copied
+   * bytes.
+   *
+   * @param aSrc
+   *        Source file channel. May not be <code>null</code>. Is not closed
+   *        after the operation.
+   * @param aDest
+   *        Destination channel. May not be <code>null</code>. Is not closed
+   *        after the operation.
+   * @param nLimit
+   *        The maximum number of bytes to copy. Must be &ge; 0. Use
+   *        {@link Long#MAX_VALUE} to copy until the end of the file.
+   * @return The number of bytes copied. Only the bytes up to the current size
+   *         of the source file are copied, and a non-blocking destination
+   *         channel may accept less. Callers that need an exact copy should
+   *         read the remainder conventionally.
+   * @throws IOException
+   *         In case of IO error
+   * @since 9.0.0
+   */
+  @Nonnegative
+  public static long transferTo (@Nonnull @WillNotClose final FileChannel aSrc,
+                                 @Nonnull @WillNotClose final WritableByteChannel aDest,
+                                 @Nonnegative final long nLimit) throws IOException
+  {
+    ValueEnforcer.notNull (aSrc, "SourceChannel");
+    ValueEnforcer.notNull (aDest, "DestinationChannel");
+    ValueEnforcer.isGE0 (nLimit, "Limit");
+
+    final long nStart = aSrc.position ();
+    final long nCount = Math.min (nLimit, Math.max (0, aSrc.size () - nStart));
+    long nCopied = 0;
+    while (nCopied < nCount)
+    {
+      final long nTransferred = aSrc.transferTo (nStart + nCopied, nCount - nCopied, aDest);
+      if (nTransferred <= 0)
+      {
+        // File was truncated or destination is full
+        break;
+      }
+      nCopied += nTransferred;
+    }
+    aSrc.position (nStart + nCopied);
+    return nCopied;
+  }
+
+  @Nonnegative
+  private static long _transferFrom (@Nonnull @WillNotClose final ReadableByteChannel aSrc,
+                                     @Nonnull @WillNotClose final FileChannel aDest) throws IOException
+  {
+    final long nStart = aDest.position ();
+    long nCopied = 0;
+    while (true)
+    {
+      // With a blocking source 0 is only returned at EOF
+      final long nTransferred = aDest.transferFrom (aSrc, nStart + nCopied, TRANSFER_FROM_CHUNK_SIZE);
+      if (nTransferred <= 0)
+        break;
+      nCopied += nTransferred;
+    }
+    aDest.position (nStart + nCopied);
+    return nCopied;
+  }
+
   /**
    * Channel copy method 1. This method copies data from the src channel and
    * writes it to the dest channel until EOF on src. This implementation makes
@@ -108,9 +202,24 @@ public final class ChannelHelper
   @Nonnegative
   private static long _channelCopy1 (@Nonnull @WillNotClose final ReadableByteChannel aSrc,
                                      @Nonnull @WillNotClose final WritableByteChannel aDest) throws IOException
+  {
+    final ByteBuffer aBuffer = IOBufferPool.acquireDirectByteBuffer (16 * CGlobal.BYTES_PER_KILOBYTE);
+    try
+    {
+      return _channelCopy1 (aSrc, aDest, aBuffer);
+    }
+    finally
+    {
+      IOBufferPool.releaseDirectByteBuffer (aBuffer);
+    }
+  }
+
+  @Nonnegative
+  private static long _channelCopy1 (@Nonnull @WillNotClose final ReadableByteChannel aSrc,
+                                     @Nonnull @WillNotClose final WritableByteChannel aDest,
+                                     @Nonnull final ByteBuffer aBuffer) throws IOException
   {
     long nBytesWritten = 0;
-    final ByteBuffer aBuffer = ByteBuffer.allocateDirect (16 * 1024);
     while (aSrc.read (aBuffer) != -1)
     {
       // Prepare the buffer to be drained
@@ -151,9 +260,23 @@ public final class ChannelHelper
    */
   private static long _channelCopy2 (@Nonnull @WillNotClose final ReadableByteChannel aSrc,
                                      @Nonnull @WillNotClose final WritableByteChannel aDest) throws IOException
+  {
+    final ByteBuffer aBuffer = IOBufferPool.acquireDirectByteBuffer (16 * CGlobal.BYTES_PER_KILOBYTE);
+    try
+    {
+      return _channelCopy2 (aSrc, aDest, aBuffer);
+    }
+    finally
+    {
+      IOBufferPool.releaseDirectByteBuffer (aBuffer);
+    }
+  }
+
+  private static long _channelCopy2 (@Nonnull @WillNotClose final ReadableByteChannel aSrc,
+                                     @Nonnull @WillNotClose final WritableByteChannel aDest,
+                                     @Nonnull final ByteBuffer aBuffer) throws IOException
   {
     long nBytesWritten = 0;
-    final ByteBuffer aBuffer = ByteBuffer.allocateDirect (16 * 1024);
     while (aSrc.read (aBuffer) != -1)
     {
       // Prepare the buffer to be drained
@@ -22,7 +22,6 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.io.RandomAccessFile;
 import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileChannel.MapMode;
@@ -41,7 +40,7 @@ import com.helger.commons.ValueEnforcer;
 import com.helger.commons.annotation.PresentForCodeCoverage;
 import com.helger.commons.io.EAppend;
 import com.helger.commons.io.stream.ByteBufferInputStream;
-import com.helger.commons.io.stream.ByteBufferOutputStream;
+import com.helger.commons.io.stream.ByteBuffersInputStream;
 import com.helger.commons.io.stream.StreamHelper;
 
 /**
@@ -75,17 +74,24 @@ public final class FileChannelHelper
     return -1;
   }
 
+  /**
+   * Map the whole channel. Files larger than
+   * {@link MappedFile#DEFAULT_SEGMENT_SIZE} bytes are mapped in several
+   * segments. The resulting stream does not need the channel anymore.
+   */
   @Nullable
   private static InputStream _getMappedInputStream (@Nonnull @WillNotClose final FileChannel aChannel,
                                                     @Nonnull final File aFile)
   {
     try
     {
-      final MappedByteBuffer aBuffer = aChannel.map (MapMode.READ_ONLY, 0, aChannel.size ());
-      s_aLogger.info ("Created memory mapped input stream for " + aFile);
-      return new ByteBufferInputStream (aBuffer);
+      final MappedByteBuffer [] aBuffers = new MappedFile (aChannel,
+                                                           MapMode.READ_ONLY,
+                                                           MappedFile.DEFAULT_SEGMENT_SIZE).mapAll ();
+      s_aLogger.info ("Created memory mapped input stream for " + aFile + " using " + aBuffers.length + " segment(s)");
+      return aBuffers.length == 1 ? new ByteBufferInputStream (aBuffers[0]) : new ByteBuffersInputStream (aBuffers);
     }
-    catch (final IOException ex)
+    catch (final IOException | RuntimeException ex)
     {
       s_aLogger.warn ("Failed to create memory mapped input stream for " + aFile, ex);
       return null;
@@ -107,7 +113,11 @@ public final class FileChannelHelper
         // Check if mapping is possible
         final InputStream aIS = _getMappedInputStream (aChannel, aFile);
         if (aIS != null)
+        {
+          // The mapping stays valid after closing
+          StreamHelper.close (aFIS);
           return aIS;
+        }
 
         // Mapping failed - fall through
       }
@@ -151,30 +161,17 @@ public final class FileChannelHelper
     // Try to memory map it
     final InputStream aIS = _getMappedInputStream (aFIS.getChannel (), aFile);
     if (aIS != null)
+    {
+      // The mapping stays valid after closing
+      StreamHelper.close (aFIS);
       return aIS;
+    }
 
     // Memory mapping failed - return the original input stream
     s_aLogger.warn ("Failed to map file " + aFile + ". Falling though to regular FileInputStream");
     return aFIS;
   }
 
-  @Nullable
-  private static OutputStream _getMappedOutputStream (@Nonnull @WillNotClose final FileChannel aChannel,
-                                                      @Nonnull final File aFile)
-  {
-    try
-    {
-      // Maximum is Integer.MAX_VALUE even if a long is taken!
-      final MappedByteBuffer aBuffer = aChannel.map (MapMode.READ_WRITE, 0, Integer.MAX_VALUE);
-      s_aLogger.info ("Created memory mapped output stream for " + aFile);
-      return new ByteBufferOutputStream (aBuffer, false);
-    }
-    catch (final IOException ex)
-    {
-      s_aLogger.warn ("Failed to create memory mapped output stream for " + aFile, ex);
-      return null;
-    }
-  }
 
   @Nullable
   public static FileChannel getFileWriteChannel (@Nonnull final String sFilename)
@@ -231,22 +228,16 @@ public final class FileChannelHelper
     if (FileHelper.internalCheckParentDirectoryExistanceAndAccess (aFile).isInvalid ())
       return null;
 
-    // Open random access file, as only those files deliver a channel that is
-    // readable and writable
-    final RandomAccessFile aRAF = FileHelper.getRandomAccessFile (aFile, ERandomAccessFileMode.READ_WRITE);
-    if (aRAF == null)
+    // Try to memory map it. The file grows in windows as needed and is
+    // truncated to the written size upon close
+    final MappedFile aMF = MappedFile.openForWriting (aFile, eAppend, MappedFile.DEFAULT_SEGMENT_SIZE);
+    if (aMF != null)
     {
-      s_aLogger.error ("Failed to open random access file " + aFile);
-      return null;
+      s_aLogger.info ("Created memory mapped output stream for " + aFile);
+      return aMF.getOutputStream (aMF.getSize ());
     }
 
-    // Try to memory map it
-    final OutputStream aOS = _getMappedOutputStream (aRAF.getChannel (), aFile);
-    if (aOS != null)
-      return aOS;
-
-    // Memory mapping failed - return the original output stream
-    StreamHelper.close (aRAF);
+    // Memory mapping failed - return the regular output stream
     s_aLogger.warn ("Failed to map file " + aFile + ". Falling though to regular FileOutputStream");
     return FileHelper.getOutputStream (aFile, eAppend);
   }
@@ -23,7 +23,9 @@ import java.io.OutputStream;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
 
+import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
 
 import org.slf4j.Logger;
@@ -51,6 +53,14 @@ public final class FileOperations
    */
   public static final boolean DEFAULT_EXCEPTION_ON_DELETE_ROOT = true;
 
+  /**
+   * The default number of threads used for the file operations of the
+   * recursive copy and delete methods. 1 means sequential processing.
+   *
+   * @since 9.0.0
+   */
+  public static final int DEFAULT_PARALLELISM = PathOperations.DEFAULT_PARALLELISM;
+
   private static final Logger s_aLogger = LoggerFactory.getLogger (FileOperations.class);
 
   private static volatile boolean s_bExceptionOnDeleteRoot = DEFAULT_EXCEPTION_ON_DELETE_ROOT;
@@ -242,8 +252,32 @@ public final class FileOperations
    */
   @Nonnull
   public static FileIOError deleteDirRecursive (@Nonnull final File aDir)
+  {
+    return deleteDirRecursive (aDir, DEFAULT_PARALLELISM, null);
+  }
+
+  /**
+   * Delete an existing directory including all child objects. Symbolic links
+   * contained in the directory are deleted but not followed.
+   *
+   * @param aDir
+   *        The directory to be deleted. May not be <code>null</code>.
+   * @param nParallelism
+   *        The number of threads used to delete the files. Must be &gt; 0.
+   * @param aCallback
+   *        An optional callback that is invoked for every single deleted file
+   *        and directory. Must be thread-safe if the parallelism is &gt; 1.
+   *        May be <code>null</code>.
+   * @return A non-<code>null</code> error code.
+   * @since 9.0.0
+   */
+  @Nonnull
+  public static FileIOError deleteDirRecursive (@Nonnull final File aDir,
+                                                @Nonnegative final int nParallelism,
+                                                @Nullable final IFileOperationCallback aCallback)
   {
     ValueEnforcer.notNull (aDir, "Directory");
+    ValueEnforcer.isGT0 (nParallelism, "Parallelism");
 
     // Non-existing directory?
     if (!FileHelper.existsDir (aDir))
@@ -261,35 +295,14 @@ public final class FileOperations
     if (aParentDir != null && !aParentDir.canWrite ())
       return EFileIOErrorCode.SOURCE_PARENT_NOT_WRITABLE.getAsIOError (EFileIOOperation.DELETE_DIR_RECURSIVE, aDir);
 
-    // iterate directory
-    for (final File aChild : FileHelper.getDirectoryContent (aDir))
-    {
-      // is it a file or a directory or ...
-      if (aChild.isDirectory ())
-      {
-        // Ignore "." and ".." directory
-        if (FilenameHelper.isSystemInternalDirectory (aChild.getName ()))
-          continue;
-
-        // recursive call
-        final FileIOError eCode = deleteDirRecursive (aChild);
-        if (eCode.isFailure ())
-          return eCode;
-      }
-      else
-        if (aChild.isFile ())
-        {
-          // delete file
-          final FileIOError eCode = deleteFile (aChild);
-          if (eCode.isFailure ())
-            return eCode;
-        }
-        else
-        {
-          // Neither directory no file - don't know how to handle
-          return EFileIOErrorCode.OBJECT_CANNOT_BE_HANDLED.getAsIOError (EFileIOOperation.DELETE_DIR_RECURSIVE, aChild);
-        }
-    }
+    // Delete all contained objects
+    final FileIOError aError = ParallelFileTreeOperation.deleteDirContent (aDir.toPath ()
+                                                                               .toAbsolutePath ()
+                                                                               .normalize (),
+                                                                           nParallelism,
+                                                                           aCallback);
+    if (aError != null)
+      return aError;
 
     // Now this directory should be empty -> delete as if empty
     return deleteDir (aDir);
@@ -652,9 +665,36 @@ public final class FileOperations
    */
   @Nonnull
   public static FileIOError copyDirRecursive (@Nonnull final File aSourceDir, @Nonnull final File aTargetDir)
+  {
+    return copyDirRecursive (aSourceDir, aTargetDir, DEFAULT_PARALLELISM, null);
+  }
+
+  /**
+   * Copy a directory including all child objects.
+   *
+   * @param aSourceDir
+   *        The source directory to be copied. May not be <code>null</code>.
+   * @param aTargetDir
+   *        The destination directory where to be copied. This directory may not
+   *        be existing. May not be <code>null</code>.
+   * @param nParallelism
+   *        The number of threads used to copy the files. Must be &gt; 0.
+   * @param aCallback
+   *        An optional callback that is invoked for every single copied file
+   *        and created directory. Must be thread-safe if the parallelism is
+   *        &gt; 1. May be <code>null</code>.
+   * @return A non-<code>null</code> error code.
+   * @since 9.0.0
+   */
+  @Nonnull
+  public static FileIOError copyDirRecursive (@Nonnull final File aSourceDir,
+                                              @Nonnull final File aTargetDir,
+                                              @Nonnegative final int nParallelism,
+                                              @Nullable final IFileOperationCallback aCallback)
   {
     ValueEnforcer.notNull (aSourceDir, "SourceDirectory");
     ValueEnforcer.notNull (aTargetDir, "TargetDirectory");
+    ValueEnforcer.isGT0 (nParallelism, "Parallelism");
 
     // Does the source directory exist?
     if (!FileHelper.existsDir (aSourceDir))
@@ -690,33 +730,17 @@ public final class FileOperations
     if (eCode.isFailure ())
       return eCode;
 
-    for (final File aChild : FileHelper.getDirectoryContent (aSourceDir))
-    {
-      if (aChild.isDirectory ())
-      {
-        // Skip "." and ".."
-        if (FilenameHelper.isSystemInternalDirectory (aChild.getName ()))
-          continue;
-
-        // Copy directory
-        eCode = copyDirRecursive (aChild, new File (aTargetDir, aChild.getName ()));
-        if (eCode.isFailure ())
-          return eCode;
-      }
-      else
-        if (aChild.isFile ())
-        {
-          // Copy a file
-          eCode = copyFile (aChild, new File (aTargetDir, aChild.getName ()));
-          if (eCode.isFailure ())
-            return eCode;
-        }
-        else
-        {
-          // Neither directory not file - don't know how to handle
-          return EFileIOErrorCode.OBJECT_CANNOT_BE_HANDLED.getAsIOError (EFileIOOperation.COPY_DIR_RECURSIVE, aChild);
-        }
-    }
+    // Copy all contained objects
+    final FileIOError aError = ParallelFileTreeOperation.copyDirContent (aSourceDir.toPath ()
+                                                                                   .toAbsolutePath ()
+                                                                                   .normalize (),
+                                                                         aTargetDir.toPath ()
+                                                                                   .toAbsolutePath ()
+                                                                                   .normalize (),
+                                                                         nParallelism,
+                                                                         aCallback);
+    if (aError != null)
+      return aError;
 
     // Done
     return EFileIOErrorCode.NO_ERROR.getAsIOError (EFileIOOperation.COPY_DIR_RECURSIVE, aSourceDir, aTargetDir);
@@ -0,0 +1,639 @@
+/**
+ * Copyright (C) 2014-2017 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.io.file;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.OpenOption;
+import java.nio.file.StandardOpenOption;
+
+import javax.annotation.CheckForSigned;
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.WillCloseWhenClosed;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.helger.commons.CGlobal;
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.io.EAppend;
+import com.helger.commons.io.stream.ByteBufferInputStream;
+import com.helger.commons.io.stream.ByteBuffersInputStream;
+import com.helger.commons.string.ToStringGenerator;
+
+/**
+ * Random access to a file of arbitrary size via memory mapping. A single
+ * {@link MappedByteBuffer} can cover at most {@link Integer#MAX_VALUE} bytes,
+ * so the file is accessed through a window of at most the segment size, that
+ * is remapped when an access is outside of it. The previous window is unmapped
+ * explicitly if the runtime supports it. The file is never enlarged beyond the
+ * highest written byte: mapping for writing temporarily enlarges the file, and
+ * upon {@link #close()} it is truncated to the written size again.
+ *
+ * @author Philip Helger
+ * @since 9.0.0
+ */
+@NotThreadSafe
+public class MappedFile implements Closeable
+{
+  /** The default segment size: 1 GB */
+  public static final int DEFAULT_SEGMENT_SIZE = (int) CGlobal.BYTES_PER_GIGABYTE;
+  /** The minimum segment size */
+  public static final int MIN_SEGMENT_SIZE = 4 * CGlobal.BYTES_PER_KILOBYTE;
+  /** The initial size of a write window. Subsequent windows double in size. */
+  private static final int INITIAL_WRITE_WINDOW_SIZE = 64 * CGlobal.BYTES_PER_KILOBYTE;
+
+  private static final Logger s_aLogger = LoggerFactory.getLogger (MappedFile.class);
+
+  /**
+   * Internal abstraction for the JDK specific unmapping of a buffer.
+   *
+   * @author Philip Helger
+   */
+  @FunctionalInterface
+  private interface IUnmapper
+  {
+    void unmap (@Nonnull ByteBuffer aBuffer) throws ReflectiveOperationException;
+  }
+
+  private static final IUnmapper s_aUnmapper = _createUnmapper ();
+
+  private final FileChannel m_aChannel;
+  private final MapMode m_eMode;
+  private final int m_nSegmentSize;
+  private long m_nSize;
+  private MappedByteBuffer m_aWindow;
+  private long m_nWindowStart;
+  private int m_nLastWriteWindowSize;
+  private boolean m_bForceOnClose = false;
+
+  @Nullable
+  private static IUnmapper _createUnmapper ()
+  {
+    try
+    {
+      // Java 9 and later
+      final Class <?> aUnsafeClass = Class.forName ("sun.misc.Unsafe");
+      final Method aInvokeCleaner = aUnsafeClass.getMethod ("invokeCleaner", ByteBuffer.class);
+      final Field aField = aUnsafeClass.getDeclaredField ("theUnsafe");
+      aField.setAccessible (true);
+      final Object aUnsafe = aField.get (null);
+      return aBuffer -> aInvokeCleaner.invoke (aUnsafe, aBuffer);
+    }
+    catch (final ReflectiveOperationException | RuntimeException ex)
+    {
+      // fall through
+    }
+
+    try
+    {
+      // Java 8
+      final Method aGetCleaner = Class.forName ("sun.nio.ch.DirectBuffer").getMethod ("cleaner");
+      final Method aClean = Class.forName ("sun.misc.Cleaner").getMethod ("clean");
+      return aBuffer -> {
+        final Object aCleaner = aGetCleaner.invoke (aBuffer);
+        if (aCleaner != null)
+          aClean.invoke (aCleaner);
+      };
+    }
+    catch (final ReflectiveOperationException | RuntimeException ex)
+    {
+      s_aLogger.info ("Explicit unmapping of memory mapped buffers is not supported by this runtime");
+      return null;
+    }
+  }
+
+  /**
+   * @return <code>true</code> if this runtime supports explicit unmapping of
+   *         memory mapped buffers, <code>false</code> if the memory is only
+   *         released upon garbage collection.
+   */
+  public static boolean isUnmapSupported ()
+  {
+    return s_aUnmapper != null;
+  }
+
+  /**
+   * Explicitly unmap the passed buffer. The buffer may not be accessed
+   * afterwards - this would crash the JVM!
+   *
+   * @param aBuffer
+   *        The buffer to unmap. May not be <code>null</code>.
+   * @return <code>true</code> if the buffer was unmapped, <code>false</code> if
+   *         unmapping is not supported and the memory is released upon garbage
+   *         collection.
+   */
+  public static boolean unmap (@Nonnull final MappedByteBuffer aBuffer)
+  {
+    ValueEnforcer.notNull (aBuffer, "Buffer");
+
+    if (s_aUnmapper != null)
+      try
+      {
+        s_aUnmapper.unmap (aBuffer);
+        return true;
+      }
+      catch (final ReflectiveOperationException | RuntimeException ex)
+      {
+        s_aLogger.warn ("Failed to unmap buffer", ex);
+      }
+    return false;
+  }
+
+  /**
+   * Constructor
+   *
+   * @param aChannel
+   *        The file channel to use. Must be readable and for mode
+   *        {@link MapMode#READ_WRITE} also writable. Is closed upon
+   *        {@link #close()}. May not be <code>null</code>.
+   * @param eMode
+   *        The map mode to use. Must be {@link MapMode#READ_ONLY} or
+   *        {@link MapMode#READ_WRITE}.
+   * @param nSegmentSize
+   *        The maximum number of bytes mapped at once. Must be &ge;
+   *        {@link #MIN_SEGMENT_SIZE}.
+   * @throws IOException
+   *         If the size of the channel cannot be determined
+   */
+  public MappedFile (@Nonnull @WillCloseWhenClosed final FileChannel aChannel,
+                     @Nonnull final MapMode eMode,
+                     @Nonnegative final int nSegmentSize) throws IOException
+  {
+    ValueEnforcer.notNull (aChannel, "Channel");
+    ValueEnforcer.notNull (eMode, "Mode");
+    ValueEnforcer.isTrue (eMode == MapMode.READ_ONLY || eMode == MapMode.READ_WRITE, "Unsupported map mode");
+    ValueEnforcer.isBetweenInclusive (nSegmentSize, "SegmentSize", MIN_SEGMENT_SIZE, Integer.MAX_VALUE);
+
+    m_aChannel = aChannel;
+    m_eMode = eMode;
+    m_nSegmentSize = nSegmentSize;
+    m_nSize = aChannel.size ();
+  }
+
+  /**
+   * Open the passed file for reading.
+   *
+   * @param aFile
+   *        The file to open. May not be <code>null</code>.
+   * @param nSegmentSize
+   *        The maximum number of bytes mapped at once. Must be &ge;
+   *        {@link #MIN_SEGMENT_SIZE}.
+   * @return <code>null</code> if the file could not be opened.
+   */
+  @Nullable
+  public static MappedFile openForReading (@Nonnull final File aFile, @Nonnegative final int nSegmentSize)
+  {
+    return _open (aFile, MapMode.READ_ONLY, nSegmentSize, StandardOpenOption.READ);
+  }
+
+  /**
+   * Open the passed file for reading and writing. The file is created if it
+   * does not exist.
+   *
+   * @param aFile
+   *        The file to open. May not be <code>null</code>.
+   * @param eAppend
+   *        Appending mode. If {@link EAppend#TRUNCATE} is used, an existing
+   *        file is truncated. May not be <code>null</code>.
+   * @param nSegmentSize
+   *        The maximum number of bytes mapped at once. Must be &ge;
+   *        {@link #MIN_SEGMENT_SIZE}.
+   * @return <code>null</code> if the file could not be opened.
+   */
+  @Nullable
+  public static MappedFile openForWriting (@Nonnull final File aFile,
+                                           @Nonnull final EAppend eAppend,
+                                           @Nonnegative final int nSegmentSize)
+  {
+    ValueEnforcer.notNull (eAppend, "Append");
+
+    if (eAppend.isTruncate ())
+      return _open (aFile,
+                    MapMode.READ_WRITE,
+                    nSegmentSize,
+                    StandardOpenOption.READ,
+                    StandardOpenOption.WRITE,
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+    return _open (aFile,
+                  MapMode.READ_WRITE,
+                  nSegmentSize,
+                  StandardOpenOption.READ,
+                  StandardOpenOption.WRITE,
+                  StandardOpenOption.CREATE);
+  }
+
+  @Nullable
+  private static MappedFile _open (@Nonnull final File aFile,
+                                   @Nonnull final MapMode eMode,
+                                   final int nSegmentSize,
+                                   @Nonnull final OpenOption... aOptions)
+  {
+    ValueEnforcer.notNull (aFile, "File");
+
+    FileChannel aChannel = null;
+    try
+    {
+      aChannel = FileChannel.open (aFile.toPath (), aOptions);
+      return new MappedFile (aChannel, eMode, nSegmentSize);
+    }
+    catch (final IOException ex)
+    {
+      s_aLogger.warn ("Failed to open " + aFile + " for memory mapping", ex);
+      if (aChannel != null)
+        try
+        {
+          aChannel.close ();
+        }
+        catch (final IOException ex2)
+        {
+          // ignore
+        }
+      return null;
+    }
+  }
+
+  private void _checkOpen ()
+  {
+    if (!m_aChannel.isOpen ())
+      throw new IllegalStateException ("MappedFile is already closed");
+  }
+
+  /**
+   * @return The used map mode. Never <code>null</code>.
+   */
+  @Nonnull
+  public final MapMode getMode ()
+  {
+    return m_eMode;
+  }
+
+  /**
+   * @return The maximum number of bytes mapped at once.
+   */
+  @Nonnegative
+  public final int getSegmentSize ()
+  {
+    return m_nSegmentSize;
+  }
+
+  /**
+   * @return The logical size of the file in bytes, including all written
+   *         bytes. Always &ge; 0.
+   */
+  @Nonnegative
+  public final long getSize ()
+  {
+    return m_nSize;
+  }
+
+  /**
+   * @return <code>true</code> if {@link #force(boolean)} is called upon
+   *         {@link #close()}. Default is <code>false</code>.
+   */
+  public final boolean isForceOnClose ()
+  {
+    return m_bForceOnClose;
+  }
+
+  /**
+   * Define whether all changes should be written to the storage device upon
+   * {@link #close()}. This only has an effect for writable files.
+   *
+   * @param bForceOnClose
+   *        <code>true</code> to force upon close.
+   * @return this for chaining
+   */
+  @Nonnull
+  public final MappedFile setForceOnClose (final boolean bForceOnClose)
+  {
+    m_bForceOnClose = bForceOnClose;
+    return this;
+  }
+
+  private boolean _isInWindow (final long nPos)
+  {
+    return m_aWindow != null && nPos >= m_nWindowStart && nPos - m_nWindowStart < m_aWindow.capacity ();
+  }
+
+  /**
+   * Unmap the current window, if any. It is mapped again on the next access.
+   */
+  public void unmapWindow ()
+  {
+    if (m_aWindow != null)
+    {
+      final MappedByteBuffer aWindow = m_aWindow;
+      m_aWindow = null;
+      unmap (aWindow);
+    }
+  }
+
+  private void _mapWindowForReading (final long nPos) throws IOException
+  {
+    if (!_isInWindow (nPos))
+    {
+      unmapWindow ();
+      final long nStart = nPos - nPos % m_nSegmentSize;
+      final long nLength = Math.min (m_nSegmentSize, m_nSize - nStart);
+      m_aWindow = m_aChannel.map (m_eMode, nStart, nLength);
+      m_nWindowStart = nStart;
+    }
+  }
+
+  private void _mapWindowForWriting (final long nPos) throws IOException
+  {
+    if (!_isInWindow (nPos))
+    {
+      unmapWindow ();
+      // Start at a page boundary and grow the window size exponentially, to
+      // limit the temporary enlargement of the file for small files
+      final long nStart = nPos - nPos % MIN_SEGMENT_SIZE;
+      final int nLength = (int) Math.min (m_nSegmentSize,
+                                          m_nLastWriteWindowSize == 0 ? INITIAL_WRITE_WINDOW_SIZE
+                                                                      : 2L * m_nLastWriteWindowSize);
+      m_aWindow = m_aChannel.map (MapMode.READ_WRITE, nStart, nLength);
+      m_nWindowStart = nStart;
+      m_nLastWriteWindowSize = nLength;
+    }
+  }
+
+  /**
+   * Read a single byte.
+   *
+   * @param nPos
+   *        The absolute position in the file. Must be &ge; 0.
+   * @return The byte value (0-255) or -1 if the position is at or after the
+   *         end of the file.
+   * @throws IOException
+   *         If mapping fails
+   */
+  @CheckForSigned
+  public int read (@Nonnegative final long nPos) throws IOException
+  {
+    ValueEnforcer.isGE0 (nPos, "Pos");
+    _checkOpen ();
+
+    if (nPos >= m_nSize)
+      return -1;
+    _mapWindowForReading (nPos);
+    return m_aWindow.get ((int) (nPos - m_nWindowStart)) & 0xff;
+  }
+
+  /**
+   * Read multiple bytes.
+   *
+   * @param nPos
+   *        The absolute position in the file. Must be &ge; 0.
+   * @param aBuf
+   *        The buffer to read into. May not be <code>null</code>.
+   * @param nOfs
+   *        The offset in the buffer. Must be &ge; 0.
+   * @param nLen
+   *        The maximum number of bytes to read. Must be &ge; 0.
+   * @return The number of bytes read or -1 if the position is at or after the
+   *         end of the file.
+   * @throws IOException
+   *         If mapping fails
+   */
+  @CheckForSigned
+  public int read (@Nonnegative final long nPos,
+                   @Nonnull final byte [] aBuf,
+                   @Nonnegative final int nOfs,
+                   @Nonnegative final int nLen) throws IOException
+  {
+    ValueEnforcer.isGE0 (nPos, "Pos");
+    ValueEnforcer.isArrayOfsLen (aBuf, nOfs, nLen);
+    _checkOpen ();
+
+    if (nPos >= m_nSize)
+      return -1;
+
+    final int nTotal = (int) Math.min (nLen, m_nSize - nPos);
+    int nRead = 0;
+    while (nRead < nTotal)
+    {
+      final long nCurPos = nPos + nRead;
+      _mapWindowForReading (nCurPos);
+      final int nWindowOfs = (int) (nCurPos - m_nWindowStart);
+      final int nChunk = Math.min (nTotal - nRead, m_aWindow.capacity () - nWindowOfs);
+      final ByteBuffer aView = m_aWindow.duplicate ();
+      aView.position (nWindowOfs);
+      aView.get (aBuf, nOfs + nRead, nChunk);
+      nRead += nChunk;
+    }
+    return nRead;
+  }
+
+  /**
+   * Write multiple bytes. The file is enlarged as needed.
+   *
+   * @param nPos
+   *        The absolute position in the file. Must be &ge; 0.
+   * @param aBuf
+   *        The buffer to write. May not be <code>null</code>.
+   * @param nOfs
+   *        The offset in the buffer. Must be &ge; 0.
+   * @param nLen
+   *        The number of bytes to write. Must be &ge; 0.
+   * @throws IOException
+   *         If mapping fails
+   * @throws IllegalStateException
+   *         If the file was not opened for writing
+   */
+  public void write (@Nonnegative final long nPos,
+                     @Nonnull final byte [] aBuf,
+                     @Nonnegative final int nOfs,
+                     @Nonnegative final int nLen) throws IOException
+  {
+    ValueEnforcer.isGE0 (nPos, "Pos");
+    ValueEnforcer.isArrayOfsLen (aBuf, nOfs, nLen);
+    _checkOpen ();
+    if (m_eMode != MapMode.READ_WRITE)
+      throw new IllegalStateException ("MappedFile is not writable");
+
+    int nWritten = 0;
+    while (nWritten < nLen)
+    {
+      final long nCurPos = nPos + nWritten;
+      _mapWindowForWriting (nCurPos);
+      final int nWindowOfs = (int) (nCurPos - m_nWindowStart);
+      final int nChunk = Math.min (nLen - nWritten, m_aWindow.capacity () - nWindowOfs);
+      final ByteBuffer aView = m_aWindow.duplicate ();
+      aView.position (nWindowOfs);
+      aView.put (aBuf, nOfs + nWritten, nChunk);
+      nWritten += nChunk;
+    }
+    m_nSize = Math.max (m_nSize, nPos + nLen);
+  }
+
+  /**
+   * Write all changes of the current window and of the file channel to the
+   * storage device.
+   *
+   * @param bMetaData
+   *        <code>true</code> to also write the file meta data.
+   * @throws IOException
+   *         In case of an error
+   */
+  public void force (final boolean bMetaData) throws IOException
+  {
+    _checkOpen ();
+    if (m_eMode == MapMode.READ_WRITE)
+    {
+      if (m_aWindow != null)
+        m_aWindow.force ();
+      m_aChannel.force (bMetaData);
+    }
+  }
+
+  /**
+   * Map the whole file at once into one or more independent buffers of at
+   * most the segment size each. The buffers stay valid after this object is
+   * closed.
+   *
+   * @return A non-empty array of buffers, each positioned at 0. An empty file
+   *         results in a single empty buffer.
+   * @throws IOException
+   *         If mapping fails
+   */
+  @Nonnull
+  public MappedByteBuffer [] mapAll () throws IOException
+  {
+    _checkOpen ();
+
+    final int nCount = Math.max (1, (int) ((m_nSize + m_nSegmentSize - 1) / m_nSegmentSize));
+    final MappedByteBuffer [] ret = new MappedByteBuffer [nCount];
+    for (int i = 0; i < nCount; ++i)
+    {
+      final long nStart = (long) i * m_nSegmentSize;
+      ret[i] = m_aChannel.map (m_eMode, nStart, Math.min (m_nSegmentSize, m_nSize - nStart));
+    }
+    return ret;
+  }
+
+  /**
+   * Get an input stream over the whole file, based on {@link #mapAll()}. The
+   * input stream stays usable after this object is closed.
+   *
+   * @return A {@link ByteBufferInputStream} for files of up to the segment
+   *         size, a {@link ByteBuffersInputStream} otherwise.
+   * @throws IOException
+   *         If mapping fails
+   */
+  @Nonnull
+  public InputStream getInputStream () throws IOException
+  {
+    final MappedByteBuffer [] aBuffers = mapAll ();
+    if (aBuffers.length == 1)
+      return new ByteBufferInputStream (aBuffers[0]);
+    return new ByteBuffersInputStream (aBuffers);
+  }
+
+  /**
+   * Get an output stream writing at the passed position. Closing the output
+   * stream closes this object.
+   *
+   * @param nStartPos
+   *        The absolute position to start writing at. Must be &ge; 0.
+   * @return The output stream and never <code>null</code>.
+   */
+  @Nonnull
+  public OutputStream getOutputStream (@Nonnegative final long nStartPos)
+  {
+    ValueEnforcer.isGE0 (nStartPos, "StartPos");
+    _checkOpen ();
+
+    return new OutputStream ()
+    {
+      private long m_nPos = nStartPos;
+
+      @Override
+      public void write (final int b) throws IOException
+      {
+        MappedFile.this.write (m_nPos, new byte [] { (byte) b }, 0, 1);
+        m_nPos++;
+      }
+
+      @Override
+      public void write (@Nonnull final byte [] aBuf,
+                         @Nonnegative final int nOfs,
+                         @Nonnegative final int nLen) throws IOException
+      {
+        MappedFile.this.write (m_nPos, aBuf, nOfs, nLen);
+        m_nPos += nLen;
+      }
+
+      @Override
+      public void close () throws IOException
+      {
+        MappedFile.this.close ();
+      }
+    };
+  }
+
+  /**
+   * Close the file. Written data is kept, the file is truncated to the
+   * written size and the current window is unmapped.
+   */
+  @Override
+  public void close () throws IOException
+  {
+    if (m_aChannel.isOpen ())
+    {
+      try
+      {
+        if (m_bForceOnClose)
+          force (true);
+        unmapWindow ();
+        if (m_eMode == MapMode.READ_WRITE && m_aChannel.size () > m_nSize)
+        {
+          // Remove the enlargement caused by mapping the write windows
+          m_aChannel.truncate (m_nSize);
+        }
+      }
+      finally
+      {
+        m_aChannel.close ();
+      }
+    }
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("Mode", m_eMode)
+                                       .append ("SegmentSize", m_nSegmentSize)
+                                       .append ("Size", m_nSize)
+                                       .append ("WindowStart", m_nWindowStart)
+                                       .append ("ForceOnClose", m_bForceOnClose)
+                                       .getToString ();
+  }
+}
@@ -0,0 +1,360 @@
+/**
+ * Copyright (C) 2014-2017 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.io.file;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.EnumSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.concurrent.BasicThreadFactory;
+import com.helger.commons.concurrent.ExecutorServiceHelper;
+
+/**
+ * Internal engine for the recursive directory operations of
+ * {@link PathOperations} and {@link FileOperations}. The tree is walked via
+ * {@link Files#walkFileTree(Path, java.util.Set, int, java.nio.file.FileVisitor)}
+ * so that the file attributes are read only once per entry. Directories are
+ * handled by the walking thread, whereas the single files are copied or
+ * deleted by a bounded pool of worker threads. If the queue of the pool is
+ * full, the walking thread executes the operation itself.
+ *
+ * @author Philip Helger
+ * @since 9.0.0
+ */
+@ThreadSafe
+final class ParallelFileTreeOperation
+{
+  /** The maximum number of queued file operations per worker thread */
+  private static final int QUEUE_SIZE_PER_THREAD = 64;
+
+  /**
+   * Internal interface for operations with one or two parameters.
+   *
+   * @author Philip Helger
+   */
+  @FunctionalInterface
+  private static interface IOp
+  {
+    void op (@Nonnull Path aPath1, @Nullable Path aPath2) throws IOException;
+  }
+
+  private final ExecutorService m_aExecutor;
+  private final IFileOperationCallback m_aCallback;
+  private final AtomicReference <FileIOError> m_aFirstError = new AtomicReference <> ();
+
+  private ParallelFileTreeOperation (@Nonnegative final int nParallelism,
+                                     @Nullable final IFileOperationCallback aCallback)
+  {
+    ValueEnforcer.isGT0 (nParallelism, "Parallelism");
+    if (nParallelism > 1)
+      m_aExecutor = new ThreadPoolExecutor (nParallelism,
+                                            nParallelism,
+                                            0L,
+                                            TimeUnit.MILLISECONDS,
+                                            new ArrayBlockingQueue <> (nParallelism * QUEUE_SIZE_PER_THREAD),
+                                            new BasicThreadFactory.Builder ().setNamingPattern ("FileTreeOperation-%d")
+                                                                             .setDaemon (true)
+                                                                             .build (),
+                                            new ThreadPoolExecutor.CallerRunsPolicy ());
+    else
+      m_aExecutor = null;
+    m_aCallback = aCallback;
+  }
+
+  private boolean _isFailed ()
+  {
+    return m_aFirstError.get () != null;
+  }
+
+  private void _onError (@Nonnull final FileIOError aError)
+  {
+    // Only the first error is returned
+    m_aFirstError.compareAndSet (null, aError);
+    if (m_aCallback != null)
+      m_aCallback.onError (aError.getOperation (),
+                           aError.getErrorCode (),
+                           aError.getFile1 (),
+                           aError.getFile2 (),
+                           aError.getException ());
+  }
+
+  private void _onError (@Nonnull final EFileIOOperation eOperation,
+                         @Nonnull final Path aPath,
+                         @Nonnull final Exception ex)
+  {
+    final EFileIOErrorCode eCode = ex instanceof SecurityException ? EFileIOErrorCode.SECURITY_ERROR
+                                                                   : EFileIOErrorCode.IO_ERROR;
+    _onError (new FileIOError (eOperation, eCode, aPath.toFile (), null, ex));
+  }
+
+  private boolean _perform (@Nonnull final EFileIOOperation eOperation,
+                            @Nonnull final IOp aOp,
+                            @Nonnull final Path aPath1,
+                            @Nullable final Path aPath2)
+  {
+    try
+    {
+      aOp.op (aPath1, aPath2);
+      if (m_aCallback != null)
+        m_aCallback.onSuccess (eOperation, aPath1.toFile (), aPath2 == null ? null : aPath2.toFile ());
+      return true;
+    }
+    catch (final IOException | UncheckedIOException | SecurityException ex)
+    {
+      _onError (new FileIOError (eOperation,
+                                 ex instanceof SecurityException ? EFileIOErrorCode.SECURITY_ERROR
+                                                                 : EFileIOErrorCode.IO_ERROR,
+                                 aPath1.toFile (),
+                                 aPath2 == null ? null : aPath2.toFile (),
+                                 ex));
+      return false;
+    }
+  }
+
+  private void _submit (@Nonnull final EFileIOOperation eOperation,
+                        @Nonnull final IOp aOp,
+                        @Nonnull final Path aPath1,
+                        @Nullable final Path aPath2)
+  {
+    if (m_aExecutor == null)
+      _perform (eOperation, aOp, aPath1, aPath2);
+    else
+      m_aExecutor.execute ( () -> {
+        // Skip all pending operations after an error
+        if (!_isFailed ())
+          _perform (eOperation, aOp, aPath1, aPath2);
+      });
+  }
+
+  /**
+   * Wait until all submitted file operations are finished. If the waiting
+   * thread is interrupted, all queued file operations are dropped, so an error
+   * is recorded because the overall operation is incomplete.
+   *
+   * @param eOperation
+   *        The overall operation. May not be <code>null</code>.
+   * @param aPath
+   *        The directory the overall operation works on. May not be
+   *        <code>null</code>.
+   */
+  private void _awaitFileOperations (@Nonnull final EFileIOOperation eOperation, @Nonnull final Path aPath)
+  {
+    if (m_aExecutor != null && ExecutorServiceHelper.shutdownAndWaitUntilAllTasksAreFinished (m_aExecutor)
+                                                    .isInterrupted ())
+    {
+      m_aExecutor.shutdownNow ();
+      _onError (eOperation, aPath, new InterruptedException ("Interrupted while waiting for the file operations"));
+      Thread.currentThread ().interrupt ();
+    }
+  }
+
+  /**
+   * Copy the content of the source directory into the existing target
+   * directory. Symbolic links are followed.
+   *
+   * @param aSourceDir
+   *        Absolute and normalized source directory. May not be
+   *        <code>null</code>.
+   * @param aTargetDir
+   *        Absolute and normalized existing target directory. May not be
+   *        <code>null</code>.
+   * @param nParallelism
+   *        Number of threads copying files. Must be &gt; 0.
+   * @param aCallback
+   *        Optional callback invoked for every single operation. Must be
+   *        thread-safe if the parallelism is &gt; 1.
+   * @return <code>null</code> on success or the first error that occurred.
+   *         If the calling thread is interrupted while waiting for the file
+   *         operations, an {@link EFileIOErrorCode#IO_ERROR} with an
+   *         {@link InterruptedException} is returned.
+   */
+  @Nullable
+  static FileIOError copyDirContent (@Nonnull final Path aSourceDir,
+                                     @Nonnull final Path aTargetDir,
+                                     @Nonnegative final int nParallelism,
+                                     @Nullable final IFileOperationCallback aCallback)
+  {
+    final ParallelFileTreeOperation aOp = new ParallelFileTreeOperation (nParallelism, aCallback);
+    try
+    {
+      Files.walkFileTree (aSourceDir,
+                          EnumSet.of (FileVisitOption.FOLLOW_LINKS),
+                          Integer.MAX_VALUE,
+                          new SimpleFileVisitor <Path> ()
+                          {
+                            @Override
+                            public FileVisitResult preVisitDirectory (final Path aDir, final BasicFileAttributes aAttrs)
+                            {
+                              if (aOp._isFailed ())
+                                return FileVisitResult.TERMINATE;
+                              // The target directory itself is already present
+                              if (aDir.equals (aSourceDir))
+                                return FileVisitResult.CONTINUE;
+                              final Path aTarget = aTargetDir.resolve (aSourceDir.relativize (aDir));
+                              return aOp._perform (EFileIOOperation.CREATE_DIR,
+                                                   (p1, p2) -> Files.createDirectory (p1),
+                                                   aTarget,
+                                                   null) ? FileVisitResult.CONTINUE : FileVisitResult.TERMINATE;
+                            }
+
+                            @Override
+                            public FileVisitResult visitFile (final Path aFile, final BasicFileAttributes aAttrs)
+                            {
+                              if (aOp._isFailed ())
+                                return FileVisitResult.TERMINATE;
+                              if (!aAttrs.isRegularFile ())
+                              {
+                                // Neither directory nor file - don't know how to
+                                // handle
+                                aOp._onError (EFileIOErrorCode.OBJECT_CANNOT_BE_HANDLED.getAsIOError (EFileIOOperation.COPY_DIR_RECURSIVE,
+                                                                                                       aFile));
+                                return FileVisitResult.TERMINATE;
+                              }
+                              aOp._submit (EFileIOOperation.COPY_FILE,
+                                           Files::copy,
+                                           aFile,
+                                           aTargetDir.resolve (aSourceDir.relativize (aFile)));
+                              return FileVisitResult.CONTINUE;
+                            }
+
+                            @Override
+                            public FileVisitResult visitFileFailed (final Path aFile, final IOException ex)
+                            {
+                              aOp._onError (EFileIOOperation.COPY_DIR_RECURSIVE, aFile, ex);
+                              return FileVisitResult.TERMINATE;
+                            }
+                          });
+    }
+    catch (final IOException | SecurityException ex)
+    {
+      aOp._onError (EFileIOOperation.COPY_DIR_RECURSIVE, aSourceDir, ex);
+    }
+    finally
+    {
+      aOp._awaitFileOperations (EFileIOOperation.COPY_DIR_RECURSIVE, aSourceDir);
+    }
+    return aOp.m_aFirstError.get ();
+  }
+
+  /**
+   * Delete the content of the passed directory but not the directory itself.
+   * Symbolic links are not followed but deleted themselves. All files are
+   * deleted first and the directories afterwards, deepest first.
+   *
+   * @param aDir
+   *        Absolute and normalized directory. May not be <code>null</code>.
+   * @param nParallelism
+   *        Number of threads deleting files. Must be &gt; 0.
+   * @param aCallback
+   *        Optional callback invoked for every single operation. Must be
+   *        thread-safe if the parallelism is &gt; 1.
+   * @return <code>null</code> on success or the first error that occurred.
+   *         If the calling thread is interrupted while waiting for the file
+   *         operations, an {@link EFileIOErrorCode#IO_ERROR} with an
+   *         {@link InterruptedException} is returned.
+   */
+  @Nullable
+  static FileIOError deleteDirContent (@Nonnull final Path aDir,
+                                       @Nonnegative final int nParallelism,
+                                       @Nullable final IFileOperationCallback aCallback)
+  {
+    final ParallelFileTreeOperation aOp = new ParallelFileTreeOperation (nParallelism, aCallback);
+    // Only accessed by the walking thread
+    final ICommonsList <Path> aSubDirs = new CommonsArrayList <> ();
+    try
+    {
+      Files.walkFileTree (aDir,
+                          EnumSet.noneOf (FileVisitOption.class),
+                          Integer.MAX_VALUE,
+                          new SimpleFileVisitor <Path> ()
+                          {
+                            @Override
+                            public FileVisitResult visitFile (final Path aFile, final BasicFileAttributes aAttrs)
+                            {
+                              if (aOp._isFailed ())
+                                return FileVisitResult.TERMINATE;
+                              if (!aAttrs.isRegularFile () && !aAttrs.isSymbolicLink ())
+                              {
+                                // Neither directory nor file - don't know how to
+                                // handle
+                                aOp._onError (EFileIOErrorCode.OBJECT_CANNOT_BE_HANDLED.getAsIOError (EFileIOOperation.DELETE_DIR_RECURSIVE,
+                                                                                                       aFile));
+                                return FileVisitResult.TERMINATE;
+                              }
+                              aOp._submit (EFileIOOperation.DELETE_FILE, (p1, p2) -> Files.delete (p1), aFile, null);
+                              return FileVisitResult.CONTINUE;
+                            }
+
+                            @Override
+                            public FileVisitResult visitFileFailed (final Path aFile, final IOException ex)
+                            {
+                              aOp._onError (EFileIOOperation.DELETE_DIR_RECURSIVE, aFile, ex);
+                              return FileVisitResult.TERMINATE;
+                            }
+
+                            @Override
+                            public FileVisitResult postVisitDirectory (final Path aCurDir, final IOException ex)
+                            {
+                              if (ex != null)
+                              {
+                                aOp._onError (EFileIOOperation.DELETE_DIR_RECURSIVE, aCurDir, ex);
+                                return FileVisitResult.TERMINATE;
+                              }
+                              if (!aCurDir.equals (aDir))
+                                aSubDirs.add (aCurDir);
+                              return FileVisitResult.CONTINUE;
+                            }
+                          });
+    }
+    catch (final IOException | SecurityException ex)
+    {
+      aOp._onError (EFileIOOperation.DELETE_DIR_RECURSIVE, aDir, ex);
+    }
+    finally
+    {
+      aOp._awaitFileOperations (EFileIOOperation.DELETE_DIR_RECURSIVE, aDir);
+    }
+
+    // Post order ensures that sub directories are deleted before their
+    // parents. After an error or an interruption (where worker threads may
+    // still be deleting files) the directories are kept.
+    if (!aOp._isFailed ())
+      for (final Path aSubDir : aSubDirs)
+        if (!aOp._perform (EFileIOOperation.DELETE_DIR, (p1, p2) -> Files.delete (p1), aSubDir, null))
+          break;
+    return aOp.m_aFirstError.get ();
+  }
+}
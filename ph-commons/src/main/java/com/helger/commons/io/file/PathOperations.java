@@ -22,7 +22,9 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
 
+import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
 
 import com.helger.commons.ValueEnforcer;
@@ -42,6 +44,14 @@ public final class PathOperations
    */
   public static final boolean DEFAULT_EXCEPTION_ON_DELETE_ROOT = true;
 
+  /**
+   * The default number of threads used for the file operations of the
+   * recursive copy and delete methods. 1 means sequential processing.
+   *
+   * @since 9.0.0
+   */
+  public static final int DEFAULT_PARALLELISM = 1;
+
   private static volatile boolean s_bExceptionOnDeleteRoot = DEFAULT_EXCEPTION_ON_DELETE_ROOT;
 
   @PresentForCodeCoverage
@@ -288,8 +298,32 @@ public final class PathOperations
    */
   @Nonnull
   public static FileIOError deleteDirRecursive (@Nonnull final Path aDir)
+  {
+    return deleteDirRecursive (aDir, DEFAULT_PARALLELISM, null);
+  }
+
+  /**
+   * Delete an existing directory including all child objects. Symbolic links
+   * contained in the directory are deleted but not followed.
+   *
+   * @param aDir
+   *        The directory to be deleted. May not be <code>null</code>.
+   * @param nParallelism
+   *        The number of threads used to delete the files. Must be &gt; 0.
+   * @param aCallback
+   *        An optional callback that is invoked for every single deleted file
+   *        and directory. Must be thread-safe if the parallelism is &gt; 1.
+   *        May be <code>null</code>.
+   * @return A non-<code>null</code> error code.
+   * @since 9.0.0
+   */
+  @Nonnull
+  public static FileIOError deleteDirRecursive (@Nonnull final Path aDir,
+                                                @Nonnegative final int nParallelism,
+                                                @Nullable final IFileOperationCallback aCallback)
   {
     ValueEnforcer.notNull (aDir, "Directory");
+    ValueEnforcer.isGT0 (nParallelism, "Parallelism");
 
     final Path aRealDir = _getUnifiedPath (aDir);
 
@@ -309,35 +343,10 @@ public final class PathOperations
     if (aParentDir != null && !Files.isWritable (aParentDir))
       return EFileIOErrorCode.SOURCE_PARENT_NOT_WRITABLE.getAsIOError (EFileIOOperation.DELETE_DIR_RECURSIVE, aRealDir);
 
-    // iterate directory
-    for (final Path aChild : PathHelper.getDirectoryContent (aRealDir))
-    {
-      // is it a file or a directory or ...
-      if (Files.isDirectory (aChild))
-      {
-        // Ignore "." and ".." directory
-        if (FilenameHelper.isSystemInternalDirectory (aChild))
-          continue;
-
-        // recursive call
-        final FileIOError eCode = deleteDirRecursive (aChild);
-        if (eCode.isFailure ())
-          return eCode;
-      }
-      else
-        if (Files.isRegularFile (aChild))
-        {
-          // delete file
-          final FileIOError eCode = deleteFile (aChild);
-          if (eCode.isFailure ())
-            return eCode;
-        }
-        else
-        {
-          // Neither directory no file - don't know how to handle
-          return EFileIOErrorCode.OBJECT_CANNOT_BE_HANDLED.getAsIOError (EFileIOOperation.DELETE_DIR_RECURSIVE, aChild);
-        }
-    }
+    // Delete all contained objects
+    final FileIOError aError = ParallelFileTreeOperation.deleteDirContent (aRealDir, nParallelism, aCallback);
+    if (aError != null)
+      return aError;
 
     // Now this directory should be empty -> delete as if empty
     return deleteDir (aRealDir);
@@ -562,9 +571,36 @@ public final class PathOperations
    */
   @Nonnull
   public static FileIOError copyDirRecursive (@Nonnull final Path aSourceDir, @Nonnull final Path aTargetDir)
+  {
+    return copyDirRecursive (aSourceDir, aTargetDir, DEFAULT_PARALLELISM, null);
+  }
+
+  /**
+   * Copy a directory including all child objects.
+   *
+   * @param aSourceDir
+   *        The source directory to be copied. May not be <code>null</code>.
+   * @param aTargetDir
+   *        The destination directory where to be copied. This directory may not
+   *        be existing. May not be <code>null</code>.
+   * @param nParallelism
+   *        The number of threads used to copy the files. Must be &gt; 0.
+   * @param aCallback
+   *        An optional callback that is invoked for every single copied file
+   *        and created directory. Must be thread-safe if the parallelism is
+   *        &gt; 1. May be <code>null</code>.
+   * @return A non-<code>null</code> error code.
+   * @since 9.0.0
+   */
+  @Nonnull
+  public static FileIOError copyDirRecursive (@Nonnull final Path aSourceDir,
+                                              @Nonnull final Path aTargetDir,
+                                              @Nonnegative final int nParallelism,
+                                              @Nullable final IFileOperationCallback aCallback)
   {
     ValueEnforcer.notNull (aSourceDir, "SourceDirectory");
     ValueEnforcer.notNull (aTargetDir, "TargetDirectory");
+    ValueEnforcer.isGT0 (nParallelism, "Parallelism");
 
     final Path aRealSourceDir = _getUnifiedPath (aSourceDir);
     final Path aRealTargetDir = _getUnifiedPath (aTargetDir);
@@ -604,33 +640,13 @@ public final class PathOperations
     if (eCode.isFailure ())
       return eCode;
 
-    for (final Path aChild : PathHelper.getDirectoryContent (aRealSourceDir))
-    {
-      if (Files.isDirectory (aChild))
-      {
-        // Skip "." and ".."
-        if (FilenameHelper.isSystemInternalDirectory (aChild))
-          continue;
-
-        // Copy directory
-        eCode = copyDirRecursive (aChild, aRealTargetDir.resolve (aChild.getFileName ()));
-        if (eCode.isFailure ())
-          return eCode;
-      }
-      else
-        if (Files.isRegularFile (aChild))
-        {
-          // Copy a file
-          eCode = copyFile (aChild, aRealTargetDir.resolve (aChild.getFileName ()));
-          if (eCode.isFailure ())
-            return eCode;
-        }
-        else
-        {
-          // Neither directory not file - don't know how to handle
-          return EFileIOErrorCode.OBJECT_CANNOT_BE_HANDLED.getAsIOError (EFileIOOperation.COPY_DIR_RECURSIVE, aChild);
-        }
-    }
+    // Copy all contained objects
+    final FileIOError aError = ParallelFileTreeOperation.copyDirContent (aRealSourceDir,
+                                                                         aRealTargetDir,
+                                                                         nParallelism,
+                                                                         aCallback);
+    if (aError != null)
+      return aError;
 
     // Done
     return EFileIOErrorCode.NO_ERROR.getAsIOError (EFileIOOperation.COPY_DIR_RECURSIVE, aRealSourceDir, aRealTargetDir);
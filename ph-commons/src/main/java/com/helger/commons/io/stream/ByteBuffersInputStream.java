@@ -107,10 +107,8 @@ public final class ByteBuffersInputStream extends InputStream
   @Nonnegative
   public int available ()
   {
-    final long nAvailable = getAvailable ();
-    if (nAvailable > Integer.MAX_VALUE)
-      throw new IllegalStateException ("Value does not fit in an int: " + nAvailable);
-    return (int) nAvailable;
+    // May be larger than an int for memory mapped files
+    return (int) Math.min (getAvailable (), Integer.MAX_VALUE);
   }
 
   @Override
@@ -21,6 +21,7 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 
+import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 
 import com.helger.commons.statistics.IMutableStatisticsHandlerCounter;
@@ -78,4 +79,17 @@ public class CountingFileInputStream extends FileInputStream
       s_aReadSizeHdl.addSize (ret);
     return ret;
   }
+
+  /**
+   * Called by {@link StreamHelper} if bytes were read directly from the
+   * underlying channel.
+   *
+   * @param nBytes
+   *        Number of bytes read.
+   */
+  void onBytesTransferred (@Nonnegative final long nBytes)
+  {
+    if (nBytes > 0)
+      s_aReadSizeHdl.addSize (nBytes);
+  }
 }
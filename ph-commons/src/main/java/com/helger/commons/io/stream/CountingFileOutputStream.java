@@ -94,6 +94,22 @@ public class CountingFileOutputStream extends FileOutputStream
     m_nBytesWritten += nLength;
   }
 
+  /**
+   * Called by {@link StreamHelper} if bytes were written directly to the
+   * underlying channel.
+   *
+   * @param nBytes
+   *        Number of bytes written.
+   */
+  void onBytesTransferred (@Nonnegative final long nBytes)
+  {
+    if (nBytes > 0)
+    {
+      s_aWriteSizeHdl.addSize (nBytes);
+      m_nBytesWritten += nBytes;
+    }
+  }
+
   @Nonnegative
   public long getBytesWritten ()
   {
@@ -0,0 +1,357 @@
+/**
+ * Copyright (C) 2014-2017 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.io.stream;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.helger.commons.CGlobal;
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.PresentForCodeCoverage;
+
+/**
+ * A pool for temporary I/O buffers (<code>byte[]</code>, <code>char[]</code>
+ * and direct {@link ByteBuffer}) to avoid the repeated allocation of copy
+ * buffers. Buffers are managed in power of two size classes from
+ * {@link #MIN_POOLED_SIZE} to {@link #MAX_POOLED_SIZE}. Each thread caches one
+ * buffer per size class, and additionally a bounded global pool per size class
+ * is shared between all threads. Requests for larger buffers are always
+ * allocated freshly.<br>
+ * Rules for using this class:
+ * <ul>
+ * <li>A buffer must be released only once and must not be used after it was
+ * released.</li>
+ * <li>A returned buffer may be larger than requested and may contain data of
+ * a previous usage.</li>
+ * <li>Not releasing a buffer is not a problem - it is simply garbage
+ * collected.</li>
+ * </ul>
+ *
+ * @author Philip Helger
+ * @since 9.0.0
+ */
+@ThreadSafe
+public final class IOBufferPool
+{
+  /** The smallest pooled buffer size */
+  public static final int MIN_POOLED_SIZE = CGlobal.BYTES_PER_KILOBYTE;
+  /** The largest pooled buffer size */
+  public static final int MAX_POOLED_SIZE = 64 * CGlobal.BYTES_PER_KILOBYTE;
+  /** The maximum number of buffers per size class in the global pool */
+  public static final int MAX_GLOBAL_BUFFERS_PER_SIZE = 16;
+  /** By default pooling is enabled */
+  public static final boolean DEFAULT_ENABLED = true;
+
+  private static final int MIN_SHIFT = Integer.numberOfTrailingZeros (MIN_POOLED_SIZE);
+  private static final int SIZE_CLASS_COUNT = Integer.numberOfTrailingZeros (MAX_POOLED_SIZE) - MIN_SHIFT + 1;
+
+  private static final LongAdder s_aThreadLocalHits = new LongAdder ();
+  private static final LongAdder s_aGlobalHits = new LongAdder ();
+  private static final LongAdder s_aMisses = new LongAdder ();
+
+  /**
+   * The pool for a single buffer type.
+   *
+   * @author Philip Helger
+   * @param <T>
+   *        Buffer type
+   */
+  private static final class TypedPool <T>
+  {
+    private final IntFunction <T> m_aAllocator;
+    private final ToIntFunction <T> m_aSizeGetter;
+    private final ThreadLocal <Object []> m_aThreadLocal = ThreadLocal.withInitial ( () -> new Object [SIZE_CLASS_COUNT]);
+    private final ConcurrentLinkedQueue <T> [] m_aGlobal;
+    private final AtomicInteger [] m_aGlobalCount;
+
+    @SuppressWarnings ({ "unchecked", "rawtypes" })
+    TypedPool (@Nonnull final IntFunction <T> aAllocator, @Nonnull final ToIntFunction <T> aSizeGetter)
+    {
+      m_aAllocator = aAllocator;
+      m_aSizeGetter = aSizeGetter;
+      m_aGlobal = new ConcurrentLinkedQueue [SIZE_CLASS_COUNT];
+      m_aGlobalCount = new AtomicInteger [SIZE_CLASS_COUNT];
+      for (int i = 0; i < SIZE_CLASS_COUNT; ++i)
+      {
+        m_aGlobal[i] = new ConcurrentLinkedQueue <> ();
+        m_aGlobalCount[i] = new AtomicInteger ();
+      }
+    }
+
+    @Nonnull
+    T acquire (@Nonnegative final int nMinSize)
+    {
+      final int nSizeClass = _getSizeClassForRequest (nMinSize);
+      if (nSizeClass < 0 || !s_bEnabled)
+      {
+        s_aMisses.increment ();
+        return m_aAllocator.apply (nMinSize);
+      }
+
+      final Object [] aLocal = m_aThreadLocal.get ();
+      @SuppressWarnings ("unchecked")
+      T ret = (T) aLocal[nSizeClass];
+      if (ret != null)
+      {
+        aLocal[nSizeClass] = null;
+        s_aThreadLocalHits.increment ();
+        return ret;
+      }
+
+      ret = m_aGlobal[nSizeClass].poll ();
+      if (ret != null)
+      {
+        m_aGlobalCount[nSizeClass].decrementAndGet ();
+        s_aGlobalHits.increment ();
+        return ret;
+      }
+
+      s_aMisses.increment ();
+      return m_aAllocator.apply (MIN_POOLED_SIZE << nSizeClass);
+    }
+
+    void release (@Nonnull final T aBuffer)
+    {
+      final int nSizeClass = _getSizeClassForRelease (m_aSizeGetter.applyAsInt (aBuffer));
+      if (nSizeClass < 0 || !s_bEnabled)
+        return;
+
+      final Object [] aLocal = m_aThreadLocal.get ();
+      if (aLocal[nSizeClass] == null)
+      {
+        aLocal[nSizeClass] = aBuffer;
+        return;
+      }
+      if (aLocal[nSizeClass] == aBuffer)
+        throw new IllegalStateException ("The buffer was already released");
+
+      // Bounded global pool - otherwise simply drop it
+      if (m_aGlobalCount[nSizeClass].incrementAndGet () <= MAX_GLOBAL_BUFFERS_PER_SIZE)
+        m_aGlobal[nSizeClass].offer (aBuffer);
+      else
+        m_aGlobalCount[nSizeClass].decrementAndGet ();
+    }
+
+    void clear ()
+    {
+      m_aThreadLocal.remove ();
+      for (int i = 0; i < SIZE_CLASS_COUNT; ++i)
+        while (m_aGlobal[i].poll () != null)
+          m_aGlobalCount[i].decrementAndGet ();
+    }
+  }
+
+  private static final TypedPool <byte []> s_aBytePool = new TypedPool <> (byte []::new, x -> x.length);
+  private static final TypedPool <char []> s_aCharPool = new TypedPool <> (char []::new, x -> x.length);
+  private static final TypedPool <ByteBuffer> s_aDirectPool = new TypedPool <> (ByteBuffer::allocateDirect,
+                                                                                ByteBuffer::capacity);
+
+  private static volatile boolean s_bEnabled = DEFAULT_ENABLED;
+
+  @PresentForCodeCoverage
+  private static final IOBufferPool s_aInstance = new IOBufferPool ();
+
+  private IOBufferPool ()
+  {}
+
+  /**
+   * @return The size class index for a buffer of at least the passed size or
+   *         -1 if the size is too large to be pooled.
+   */
+  private static int _getSizeClassForRequest (final int nMinSize)
+  {
+    if (nMinSize <= MIN_POOLED_SIZE)
+      return 0;
+    if (nMinSize > MAX_POOLED_SIZE)
+      return -1;
+    // Round up to the next power of 2
+    return 32 - Integer.numberOfLeadingZeros (nMinSize - 1) - MIN_SHIFT;
+  }
+
+  /**
+   * @return The size class index for a buffer of exactly the passed size or -1
+   *         if a buffer of this size is not pooled.
+   */
+  private static int _getSizeClassForRelease (final int nSize)
+  {
+    if (nSize < MIN_POOLED_SIZE || nSize > MAX_POOLED_SIZE || Integer.bitCount (nSize) != 1)
+      return -1;
+    return Integer.numberOfTrailingZeros (nSize) - MIN_SHIFT;
+  }
+
+  /**
+   * @return <code>true</code> if pooling is enabled, <code>false</code> if all
+   *         buffers are freshly allocated.
+   */
+  public static boolean isEnabled ()
+  {
+    return s_bEnabled;
+  }
+
+  /**
+   * Enable or disable the pooling. Disabling does not clear the pools.
+   *
+   * @param bEnabled
+   *        <code>true</code> to enable pooling.
+   */
+  public static void setEnabled (final boolean bEnabled)
+  {
+    s_bEnabled = bEnabled;
+  }
+
+  /**
+   * Get a byte array of at least the passed size.
+   *
+   * @param nMinSize
+   *        Minimum size. Must be &gt; 0.
+   * @return The byte array and never <code>null</code>.
+   */
+  @Nonnull
+  public static byte [] acquireByteArray (@Nonnegative final int nMinSize)
+  {
+    ValueEnforcer.isGT0 (nMinSize, "MinSize");
+    return s_aBytePool.acquire (nMinSize);
+  }
+
+  /**
+   * Return a byte array to the pool.
+   *
+   * @param aBuffer
+   *        The buffer to return. May be <code>null</code>.
+   */
+  public static void releaseByteArray (@Nullable final byte [] aBuffer)
+  {
+    if (aBuffer != null)
+      s_aBytePool.release (aBuffer);
+  }
+
+  /**
+   * Get a char array of at least the passed size.
+   *
+   * @param nMinSize
+   *        Minimum size. Must be &gt; 0.
+   * @return The char array and never <code>null</code>.
+   */
+  @Nonnull
+  public static char [] acquireCharArray (@Nonnegative final int nMinSize)
+  {
+    ValueEnforcer.isGT0 (nMinSize, "MinSize");
+    return s_aCharPool.acquire (nMinSize);
+  }
+
+  /**
+   * Return a char array to the pool.
+   *
+   * @param aBuffer
+   *        The buffer to return. May be <code>null</code>.
+   */
+  public static void releaseCharArray (@Nullable final char [] aBuffer)
+  {
+    if (aBuffer != null)
+      s_aCharPool.release (aBuffer);
+  }
+
+  /**
+   * Get a direct byte buffer with at least the passed capacity. The buffer is
+   * cleared, so its limit is its capacity.
+   *
+   * @param nMinSize
+   *        Minimum capacity. Must be &gt; 0.
+   * @return The direct byte buffer and never <code>null</code>.
+   */
+  @Nonnull
+  public static ByteBuffer acquireDirectByteBuffer (@Nonnegative final int nMinSize)
+  {
+    ValueEnforcer.isGT0 (nMinSize, "MinSize");
+    final ByteBuffer ret = s_aDirectPool.acquire (nMinSize);
+    ret.clear ();
+    return ret;
+  }
+
+  /**
+   * Return a direct byte buffer to the pool.
+   *
+   * @param aBuffer
+   *        The buffer to return. May be <code>null</code>. Non-direct buffers
+   *        are ignored.
+   */
+  public static void releaseDirectByteBuffer (@Nullable final ByteBuffer aBuffer)
+  {
+    if (aBuffer != null && aBuffer.isDirect ())
+      s_aDirectPool.release (aBuffer);
+  }
+
+  /**
+   * @return The number of requests served from the cache of the calling thread
+   *         since the last {@link #resetStatistics()}.
+   */
+  @Nonnegative
+  public static long getThreadLocalHitCount ()
+  {
+    return s_aThreadLocalHits.sum ();
+  }
+
+  /**
+   * @return The number of requests served from the global pool since the last
+   *         {@link #resetStatistics()}.
+   */
+  @Nonnegative
+  public static long getGlobalHitCount ()
+  {
+    return s_aGlobalHits.sum ();
+  }
+
+  /**
+   * @return The number of requests that resulted in a new allocation since the
+   *         last {@link #resetStatistics()}.
+   */
+  @Nonnegative
+  public static long getMissCount ()
+  {
+    return s_aMisses.sum ();
+  }
+
+  /**
+   * Reset the hit and miss statistics.
+   */
+  public static void resetStatistics ()
+  {
+    s_aThreadLocalHits.reset ();
+    s_aGlobalHits.reset ();
+    s_aMisses.reset ();
+  }
+
+  /**
+   * Remove all buffers from the global pools and from the cache of the calling
+   * thread. The caches of other threads are not affected.
+   */
+  public static void clear ()
+  {
+    s_aBytePool.clear ();
+    s_aCharPool.clear ();
+    s_aDirectPool.clear ();
+  }
+}
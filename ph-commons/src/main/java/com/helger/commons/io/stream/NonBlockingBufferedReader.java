@@ -90,7 +90,7 @@ public class NonBlockingBufferedReader extends Reader
     super (aReader);
     ValueEnforcer.isGT0 (nSize, "Size");
     m_aReader = aReader;
-    m_aBuf = new char [nSize];
+    m_aBuf = IOBufferPool.acquireCharArray (nSize);
   }
 
   /**
@@ -525,6 +525,7 @@ public class NonBlockingBufferedReader extends Reader
     {
       m_aReader.close ();
       m_aReader = null;
+      IOBufferPool.releaseCharArray (m_aBuf);
       m_aBuf = null;
     }
   }
@@ -43,6 +43,7 @@ import com.helger.commons.collection.impl.CommonsArrayList;
 import com.helger.commons.collection.impl.ICommonsList;
 import com.helger.commons.exception.mock.IMockException;
 import com.helger.commons.io.IHasInputStream;
+import com.helger.commons.io.channel.ChannelHelper;
 import com.helger.commons.mutable.MutableLong;
 import com.helger.commons.state.ESuccess;
 import com.helger.commons.statistics.IMutableStatisticsHandlerSize;
@@ -225,7 +226,7 @@ public final class StreamHelper
   {
     try
     {
-      return copyInputStreamToOutputStream (aIS, aOS, new byte [DEFAULT_BUFSIZE], (MutableLong) null, (Long) null);
+      return _copyInputStreamToOutputStreamPooled (aIS, aOS, (MutableLong) null, (Long) null);
     }
     finally
     {
@@ -256,11 +257,7 @@ public final class StreamHelper
   {
     try
     {
-      return copyInputStreamToOutputStream (aIS,
-                                            aOS,
-                                            new byte [DEFAULT_BUFSIZE],
-                                            (MutableLong) null,
-                                            Long.valueOf (nLimit));
+      return _copyInputStreamToOutputStreamPooled (aIS, aOS, (MutableLong) null, Long.valueOf (nLimit));
     }
     finally
     {
@@ -285,7 +282,7 @@ public final class StreamHelper
   public static ESuccess copyInputStreamToOutputStream (@WillClose @Nullable final InputStream aIS,
                                                         @WillNotClose @Nullable final OutputStream aOS)
   {
-    return copyInputStreamToOutputStream (aIS, aOS, new byte [DEFAULT_BUFSIZE], (MutableLong) null, (Long) null);
+    return _copyInputStreamToOutputStreamPooled (aIS, aOS, (MutableLong) null, (Long) null);
   }
 
   /**
@@ -309,7 +306,7 @@ public final class StreamHelper
                                                         @WillNotClose @Nullable final OutputStream aOS,
                                                         @Nullable final MutableLong aCopyByteCount)
   {
-    return copyInputStreamToOutputStream (aIS, aOS, new byte [DEFAULT_BUFSIZE], aCopyByteCount, (Long) null);
+    return _copyInputStreamToOutputStreamPooled (aIS, aOS, aCopyByteCount, (Long) null);
   }
 
   /**
@@ -333,11 +330,7 @@ public final class StreamHelper
                                                                  @WillNotClose @Nullable final OutputStream aOS,
                                                                  @Nonnegative final long nLimit)
   {
-    return copyInputStreamToOutputStream (aIS,
-                                          aOS,
-                                          new byte [DEFAULT_BUFSIZE],
-                                          (MutableLong) null,
-                                          Long.valueOf (nLimit));
+    return _copyInputStreamToOutputStreamPooled (aIS, aOS, (MutableLong) null, Long.valueOf (nLimit));
   }
 
   /**
@@ -363,6 +356,73 @@ public final class StreamHelper
     return copyInputStreamToOutputStream (aIS, aOS, aBuffer, (MutableLong) null, (Long) null);
   }
 
+  @Nonnull
+  private static ESuccess _copyInputStreamToOutputStreamPooled (@WillClose @Nullable final InputStream aIS,
+                                                                @WillNotClose @Nullable final OutputStream aOS,
+                                                                @Nullable final MutableLong aCopyByteCount,
+                                                                @Nullable final Long aLimit)
+  {
+    final byte [] aBuffer = IOBufferPool.acquireByteArray (DEFAULT_BUFSIZE);
+    try
+    {
+      return copyInputStreamToOutputStream (aIS, aOS, aBuffer, aCopyByteCount, aLimit);
+    }
+    finally
+    {
+      IOBufferPool.releaseByteArray (aBuffer);
+    }
+  }
+
+  @Nonnull
+  private static InputStream _getUnwrapped (@Nonnull final InputStream aIS)
+  {
+    InputStream ret = aIS;
+    // Only unwrap the classes that pass through all data unmodified
+    while (ret.getClass () == WrappedInputStream.class || ret.getClass () == NonClosingInputStream.class)
+      ret = ((WrappedInputStream) ret).getWrappedInputStream ();
+    return ret;
+  }
+
+  @Nonnull
+  private static OutputStream _getUnwrapped (@Nonnull final OutputStream aOS)
+  {
+    OutputStream ret = aOS;
+    while (ret.getClass () == WrappedOutputStream.class || ret.getClass () == NonClosingOutputStream.class)
+      ret = ((WrappedOutputStream) ret).getWrappedOutputStream ();
+    return ret;
+  }
+
+  /**
+   * If both streams are file streams, copy up to the passed number of bytes
+   * via {@link ChannelHelper#transferTo}. The rest (if any) must be copied by
+   * the caller.
+   *
+   * @return The number of bytes copied. 0 if the streams are not file streams.
+   */
+  @Nonnegative
+  private static long _transferFileStreams (@Nonnull @WillNotClose final InputStream aIS,
+                                            @Nonnull @WillNotClose final OutputStream aOS,
+                                            @Nonnegative final long nLimit) throws IOException
+  {
+    final InputStream aRealIS = _getUnwrapped (aIS);
+    final OutputStream aRealOS = _getUnwrapped (aOS);
+    // Sub classes may override read or write, so only use the known ones
+    final Class <?> aISClass = aRealIS.getClass ();
+    final Class <?> aOSClass = aRealOS.getClass ();
+    if ((aISClass != FileInputStream.class && aISClass != CountingFileInputStream.class) ||
+        (aOSClass != FileOutputStream.class && aOSClass != CountingFileOutputStream.class))
+      return 0;
+
+    final long nCopied = ChannelHelper.transferTo (((FileInputStream) aRealIS).getChannel (),
+                                                   ((FileOutputStream) aRealOS).getChannel (),
+                                                   nLimit);
+    if (aRealIS instanceof CountingFileInputStream)
+      ((CountingFileInputStream) aRealIS).onBytesTransferred (nCopied);
+    if (aRealOS instanceof CountingFileOutputStream)
+      ((CountingFileOutputStream) aRealOS).onBytesTransferred (nCopied);
+    return nCopied;
+  }
+
   @Nonnegative
   private static long _copyInputStreamToOutputStream (@Nonnull @WillNotClose final InputStream aIS,
                                                       @Nonnull @WillNotClose final OutputStream aOS,
@@ -442,6 +502,10 @@ public final class StreamHelper
   /**
    * Pass the content of the given input stream to the given output stream. The
    * input stream is automatically closed, whereas the output stream stays open!
+   * If both streams are file streams (optionally wrapped in a
+   * {@link NonClosingInputStream} or {@link NonClosingOutputStream}), the data
+   * is copied via {@link java.nio.channels.FileChannel#transferTo} without
+   * using the buffer.
    *
    * @param aIS
    *        The input stream to read from. May be <code>null</code>.
@@ -476,11 +540,13 @@ public final class StreamHelper
       if (aIS != null && aOS != null)
       {
         // both streams are not null
-        long nTotalBytesCopied;
+        // Zero-copy if possible, and copy the remainder (if any) manually
+        final long nLimit = aLimit == null ? Long.MAX_VALUE : aLimit.longValue ();
+        long nTotalBytesCopied = _transferFileStreams (aIS, aOS, nLimit);
         if (aLimit == null)
-          nTotalBytesCopied = _copyInputStreamToOutputStream (aIS, aOS, aBuffer);
+          nTotalBytesCopied += _copyInputStreamToOutputStream (aIS, aOS, aBuffer);
         else
-          nTotalBytesCopied = _copyInputStreamToOutputStreamWithLimit (aIS, aOS, aBuffer, aLimit.longValue ());
+          nTotalBytesCopied += _copyInputStreamToOutputStreamWithLimit (aIS, aOS, aBuffer, nLimit - nTotalBytesCopied);
 
         // Add to statistics
         s_aByteSizeHdl.addSize (nTotalBytesCopied);
@@ -660,7 +726,7 @@ public final class StreamHelper
   {
     try
     {
-      return copyReaderToWriter (aReader, aWriter, new char [DEFAULT_BUFSIZE], (MutableLong) null, (Long) null);
+      return _copyReaderToWriterPooled (aReader, aWriter, (MutableLong) null, (Long) null);
     }
     finally
     {
@@ -691,11 +757,7 @@ public final class StreamHelper
   {
     try
     {
-      return copyReaderToWriter (aReader,
-                                 aWriter,
-                                 new char [DEFAULT_BUFSIZE],
-                                 (MutableLong) null,
-                                 Long.valueOf (nLimit));
+      return _copyReaderToWriterPooled (aReader, aWriter, (MutableLong) null, Long.valueOf (nLimit));
     }
     finally
     {
@@ -720,7 +782,7 @@ public final class StreamHelper
   public static ESuccess copyReaderToWriter (@WillClose @Nullable final Reader aReader,
                                              @WillNotClose @Nullable final Writer aWriter)
   {
-    return copyReaderToWriter (aReader, aWriter, new char [DEFAULT_BUFSIZE], (MutableLong) null, (Long) null);
+    return _copyReaderToWriterPooled (aReader, aWriter, (MutableLong) null, (Long) null);
   }
 
   /**
@@ -744,7 +806,7 @@ public final class StreamHelper
                                              @WillNotClose @Nullable final Writer aWriter,
                                              @Nullable final MutableLong aCopyCharCount)
   {
-    return copyReaderToWriter (aReader, aWriter, new char [DEFAULT_BUFSIZE], aCopyCharCount, (Long) null);
+    return _copyReaderToWriterPooled (aReader, aWriter, aCopyCharCount, (Long) null);
   }
 
   /**
@@ -791,7 +853,24 @@ public final class StreamHelper
                                                       @WillNotClose @Nullable final Writer aWriter,
                                                       final long nLimit)
   {
-    return copyReaderToWriter (aReader, aWriter, new char [DEFAULT_BUFSIZE], (MutableLong) null, Long.valueOf (nLimit));
+    return _copyReaderToWriterPooled (aReader, aWriter, (MutableLong) null, Long.valueOf (nLimit));
+  }
+
+  @Nonnull
+  private static ESuccess _copyReaderToWriterPooled (@WillClose @Nullable final Reader aReader,
+                                                     @WillNotClose @Nullable final Writer aWriter,
+                                                     @Nullable final MutableLong aCopyCharCount,
+                                                     @Nullable final Long aLimit)
+  {
+    final char [] aBuffer = IOBufferPool.acquireCharArray (DEFAULT_BUFSIZE);
+    try
+    {
+      return copyReaderToWriter (aReader, aWriter, aBuffer, aCopyCharCount, aLimit);
+    }
+    finally
+    {
+      IOBufferPool.releaseCharArray (aBuffer);
+    }
   }
 
   @Nonnegative
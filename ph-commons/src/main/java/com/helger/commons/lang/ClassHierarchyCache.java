@@ -17,9 +17,12 @@
 package com.helger.commons.lang;
 
 import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
 import javax.annotation.Nonnull;
-import javax.annotation.concurrent.GuardedBy;
 import javax.annotation.concurrent.Immutable;
 import javax.annotation.concurrent.ThreadSafe;
 
@@ -33,53 +36,36 @@ import com.helger.commons.collection.impl.CommonsArrayList;
 import com.helger.commons.collection.impl.CommonsLinkedHashSet;
 import com.helger.commons.collection.impl.ICommonsIterable;
 import com.helger.commons.collection.impl.ICommonsList;
-import com.helger.commons.collection.impl.ICommonsMap;
 import com.helger.commons.collection.impl.ICommonsOrderedSet;
 import com.helger.commons.collection.impl.ICommonsSet;
-import com.helger.commons.collection.iterate.IIterableIterator;
-import com.helger.commons.collection.map.LRUMap;
-import com.helger.commons.concurrent.SimpleReadWriteLock;
 import com.helger.commons.state.EChange;
 import com.helger.commons.string.ToStringGenerator;
 
 /**
- * A small class hierarchy cache
+ * A small class hierarchy cache. The hierarchy of each class is computed once
+ * and attached to the class itself via a {@link ClassValue}, so lookups need
+ * no locking and there is no size limit. The cached value is a plain
+ * {@link Class} array that only references the class and its super types, so
+ * it does not keep the class loader of this library alive.
  *
  * @author Philip Helger
  */
 @ThreadSafe
 public final class ClassHierarchyCache
 {
+  /**
+   * Read-only view on a cached class hierarchy. Created on each read, so that
+   * the cached value itself is a plain {@link Class} array.
+   */
   @Immutable
-  private static final class ClassList implements ICommonsIterable <WeakReference <Class <?>>>
+  private static final class ClassList implements ICommonsIterable <Class <?>>
   {
     // Store it in the correct order, but without duplicates
-    private final ICommonsList <WeakReference <Class <?>>> m_aList = new CommonsArrayList <> ();
+    private final Class <?> [] m_aClasses;
 
-    public ClassList (@Nonnull final Class <?> aClass)
+    public ClassList (@Nonnull final Class <?> [] aClasses)
     {
-      ValueEnforcer.notNull (aClass, "Class");
-
-      // Check the whole class hierarchy of the source class
-      final ICommonsOrderedSet <Class <?>> aUniqueOrderedClasses = new CommonsLinkedHashSet <> ();
-      final ICommonsList <Class <?>> aOpenSrc = new CommonsArrayList <> ();
-      aOpenSrc.add (aClass);
-      while (!aOpenSrc.isEmpty ())
-      {
-        final Class <?> aCurClass = aOpenSrc.removeFirst ();
-        aUniqueOrderedClasses.add (aCurClass);
-
-        // Add super-classes and interfaces
-        // Super-classes have precedence over interfaces!
-        for (final Class <?> aInterface : aCurClass.getInterfaces ())
-          aOpenSrc.add (0, aInterface);
-        if (aCurClass.getSuperclass () != null)
-          aOpenSrc.add (0, aCurClass.getSuperclass ());
-      }
-
-      // Now convert to list of WeakReference
-      for (final Class <?> aCurClass : aUniqueOrderedClasses)
-        m_aList.add (new WeakReference <> (aCurClass));
+      m_aClasses = aClasses;
     }
 
     @Nonnull
@@ -87,13 +73,9 @@ public final class ClassHierarchyCache
     public ICommonsOrderedSet <Class <?>> getAsSet ()
     {
       // Use a linked hash set, to maintain the order
-      final ICommonsOrderedSet <Class <?>> ret = new CommonsLinkedHashSet <> (m_aList.size ());
-      for (final WeakReference <Class <?>> aRef : m_aList)
-      {
-        final Class <?> aClass = aRef.get ();
-        if (aClass != null)
-          ret.add (aClass);
-      }
+      final ICommonsOrderedSet <Class <?>> ret = new CommonsLinkedHashSet <> (m_aClasses.length);
+      for (final Class <?> aClass : m_aClasses)
+        ret.add (aClass);
       return ret;
     }
 
@@ -101,35 +83,92 @@ public final class ClassHierarchyCache
     @ReturnsMutableCopy
     public ICommonsList <Class <?>> getAsList ()
     {
-      // Use a list that may contain duplicates
-      final ICommonsList <Class <?>> ret = new CommonsArrayList <> (m_aList.size ());
-      for (final WeakReference <Class <?>> aRef : m_aList)
-      {
-        final Class <?> aClass = aRef.get ();
-        if (aClass != null)
-          ret.add (aClass);
-      }
+      return new CommonsArrayList <> (m_aClasses);
+    }
+
+    @Nonnull
+    @ReturnsMutableCopy
+    public ICommonsList <WeakReference <Class <?>>> getAsWeakList ()
+    {
+      final ICommonsList <WeakReference <Class <?>>> ret = new CommonsArrayList <> (m_aClasses.length);
+      for (final Class <?> aClass : m_aClasses)
+        ret.add (new WeakReference <> (aClass));
       return ret;
     }
 
     @Nonnull
-    public IIterableIterator <WeakReference <Class <?>>> iterator ()
+    public Iterator <Class <?>> iterator ()
+    {
+      return new Iterator <Class <?>> ()
+      {
+        private int m_nIndex = 0;
+
+        public boolean hasNext ()
+        {
+          return m_nIndex < m_aClasses.length;
+        }
+
+        public Class <?> next ()
+        {
+          if (m_nIndex >= m_aClasses.length)
+            throw new NoSuchElementException ();
+          return m_aClasses[m_nIndex++];
+        }
+      };
+    }
+
+    @Override
+    public void forEach (@Nonnull final Consumer <? super Class <?>> aConsumer)
     {
-      return m_aList.iterator2 ();
+      for (final Class <?> aClass : m_aClasses)
+        aConsumer.accept (aClass);
     }
 
     @Override
     public String toString ()
     {
-      return new ToStringGenerator (this).append ("list", m_aList).getToString ();
+      return new ToStringGenerator (this).append ("Classes", m_aClasses).getToString ();
+    }
+  }
+
+  /**
+   * The cached value is a plain {@link Class} array, so the value attached to
+   * a JDK class (like {@link String}) only references JDK types and does not
+   * pin the class loader of this library.
+   */
+  private static final class ClassArrayValue extends ClassValue <Class <?> []>
+  {
+    @Override
+    protected Class <?> [] computeValue (@Nonnull final Class <?> aClass)
+    {
+      s_aUsed.set (true);
+
+      // Check the whole class hierarchy of the source class
+      final ICommonsOrderedSet <Class <?>> aUniqueOrderedClasses = new CommonsLinkedHashSet <> ();
+      final ICommonsList <Class <?>> aOpenSrc = new CommonsArrayList <> ();
+      aOpenSrc.add (aClass);
+      while (!aOpenSrc.isEmpty ())
+      {
+        final Class <?> aCurClass = aOpenSrc.removeFirst ();
+        aUniqueOrderedClasses.add (aCurClass);
+
+        // Add super-classes and interfaces
+        // Super-classes have precedence over interfaces!
+        for (final Class <?> aInterface : aCurClass.getInterfaces ())
+          aOpenSrc.add (0, aInterface);
+        if (aCurClass.getSuperclass () != null)
+          aOpenSrc.add (0, aCurClass.getSuperclass ());
+      }
+      return aUniqueOrderedClasses.toArray (new Class <?> [aUniqueOrderedClasses.size ()]);
     }
   }
 
   private static final Logger s_aLogger = LoggerFactory.getLogger (ClassHierarchyCache.class);
 
-  private static final SimpleReadWriteLock s_aRWLock = new SimpleReadWriteLock ();
-  @GuardedBy ("s_aRWLock")
-  private static final ICommonsMap <String, ClassList> s_aClassHierarchy = new LRUMap <> (1000);
+  // Replaced to clear the cache - the old values are released together with
+  // the old ClassValue
+  private static volatile ClassArrayValue s_aClassHierarchy = new ClassArrayValue ();
+  private static final AtomicBoolean s_aUsed = new AtomicBoolean (false);
 
   @PresentForCodeCoverage
   private static final ClassHierarchyCache s_aInstance = new ClassHierarchyCache ();
@@ -138,19 +177,20 @@ public final class ClassHierarchyCache
   {}
 
   /**
-   * It's important to clear the cache upon application shutdown, because for
-   * web applications, keeping a cache of classes may prevent the web
-   * application from unloading
+   * Clear the cache. The cached data is attached to the queried classes and
+   * only references their super types, so this is only needed to release
+   * memory.
    *
    * @return {@link EChange}
    */
   @Nonnull
   public static EChange clearCache ()
   {
-    final EChange ret = s_aRWLock.writeLocked ( () -> s_aClassHierarchy.removeAll ());
-    if (ret.isUnchanged ())
+    if (!s_aUsed.getAndSet (false))
       return EChange.UNCHANGED;
 
+    s_aClassHierarchy = new ClassArrayValue ();
+
     if (s_aLogger.isDebugEnabled ())
       s_aLogger.debug ("Cache was cleared: " + ClassHierarchyCache.class.getName ());
     return EChange.CHANGED;
@@ -160,17 +200,7 @@ public final class ClassHierarchyCache
   private static ClassList _getClassList (@Nonnull final Class <?> aClass)
   {
     ValueEnforcer.notNull (aClass, "Class");
-    final String sKey = aClass.getName ();
-
-    // Get or update from cache
-    ClassList aClassList = s_aRWLock.readLocked ( () -> s_aClassHierarchy.get (sKey));
-
-    if (aClassList == null)
-    {
-      // try again in write lock
-      aClassList = s_aRWLock.writeLocked ( () -> s_aClassHierarchy.computeIfAbsent (sKey, x -> new ClassList (aClass)));
-    }
-    return aClassList;
+    return new ClassList (s_aClassHierarchy.get (aClass));
   }
 
   /**
@@ -208,6 +238,24 @@ public final class ClassHierarchyCache
     return _getClassList (aClass).getAsList ();
   }
 
+  /**
+   * Iterate the complete super class hierarchy of the passed class including
+   * all super classes and all interfaces of the passed class and of all parent
+   * classes. The passed class is always the first element.
+   *
+   * @param aClass
+   *        The source class to get the hierarchy from.
+   * @return A non-<code>null</code> and non-empty read-only iterable
+   *         containing the passed class and all super classes, and all
+   *         super-interfaces. Duplicates were already removed.
+   * @since 9.0.0
+   */
+  @Nonnull
+  public static ICommonsIterable <Class <?>> getClassHierarchyIterable (@Nonnull final Class <?> aClass)
+  {
+    return _getClassList (aClass);
+  }
+
   /**
    * Iterate the complete super class hierarchy of the passed class including
    * all super classes and all interfaces of the passed class and of all parent
@@ -218,10 +266,12 @@ public final class ClassHierarchyCache
    * @return A non-<code>null</code> and non-empty list containing the passed
    *         class and all super classes, and all super-interfaces. Duplicates
    *         were already removed.
+   * @deprecated Use {@link #getClassHierarchyIterable(Class)} instead
    */
+  @Deprecated
   @Nonnull
   public static ICommonsIterable <WeakReference <Class <?>>> getClassHierarchyIterator (@Nonnull final Class <?> aClass)
   {
-    return _getClassList (aClass);
+    return _getClassList (aClass).getAsWeakList ();
   }
 }
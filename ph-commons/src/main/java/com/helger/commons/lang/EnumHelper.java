@@ -16,11 +16,12 @@
  */
 package com.helger.commons.lang;
 
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Predicate;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
-import javax.annotation.concurrent.GuardedBy;
 import javax.annotation.concurrent.Immutable;
 
 import org.slf4j.Logger;
@@ -35,7 +36,6 @@ import com.helger.commons.collection.impl.CommonsArrayList;
 import com.helger.commons.collection.impl.CommonsHashMap;
 import com.helger.commons.collection.impl.ICommonsList;
 import com.helger.commons.collection.impl.ICommonsMap;
-import com.helger.commons.concurrent.SimpleReadWriteLock;
 import com.helger.commons.id.IHasID;
 import com.helger.commons.id.IHasIntID;
 import com.helger.commons.name.IHasName;
@@ -50,11 +50,100 @@ import com.helger.commons.string.StringHelper;
 @Immutable
 public final class EnumHelper
 {
+  /**
+   * The lookup index of a single enum class. All maps are filled in the
+   * constructor and never modified afterwards. If multiple constants share the
+   * same ID or name, the first one wins - just like in a linear search.
+   */
+  @Immutable
+  private static final class EnumIndex
+  {
+    private final ICommonsMap <Object, Enum <?>> m_aByID = new CommonsHashMap <> ();
+    private final ICommonsMap <String, Enum <?>> m_aByIDCaseInsensitive = new CommonsHashMap <> ();
+    // Only set if all int IDs are between 0 and 255
+    private final Enum <?> [] m_aByIntIDArray;
+    private final ICommonsMap <Integer, Enum <?>> m_aByIntID = new CommonsHashMap <> ();
+    private final ICommonsMap <String, Enum <?>> m_aByName = new CommonsHashMap <> ();
+    private final ICommonsMap <String, Enum <?>> m_aByNameCaseInsensitive = new CommonsHashMap <> ();
+
+    EnumIndex (@Nonnull final Class <?> aClass)
+    {
+      final Object [] aConstants = aClass.getEnumConstants ();
+      final Enum <?> [] aElements = aConstants == null ? new Enum <?> [0] : (Enum <?> []) aConstants;
+      Enum <?> [] aByIntIDArray = null;
+
+      if (IHasID.class.isAssignableFrom (aClass))
+        for (final Enum <?> aElement : aElements)
+        {
+          final Object aID = ((IHasID <?>) aElement).getID ();
+          if (aID != null)
+          {
+            m_aByID.putIfAbsent (aID, aElement);
+            if (aID instanceof String)
+              m_aByIDCaseInsensitive.putIfAbsent (_getCaseFolded ((String) aID), aElement);
+          }
+        }
+
+      if (IHasIntID.class.isAssignableFrom (aClass))
+      {
+        int nMinID = Integer.MAX_VALUE;
+        int nMaxID = Integer.MIN_VALUE;
+        for (final Enum <?> aElement : aElements)
+        {
+          final int nElementID = ((IHasIntID) aElement).getID ();
+          if (nElementID < nMinID)
+            nMinID = nElementID;
+          if (nElementID > nMaxID)
+            nMaxID = nElementID;
+          m_aByIntID.putIfAbsent (Integer.valueOf (nElementID), aElement);
+        }
+        if (nMinID >= 0 && nMaxID <= CGlobal.MAX_BYTE_VALUE)
+        {
+          // Small positive IDs - use direct array access
+          aByIntIDArray = new Enum <?> [nMaxID + 1];
+          for (final Map.Entry <Integer, Enum <?>> aEntry : m_aByIntID.entrySet ())
+            aByIntIDArray[aEntry.getKey ().intValue ()] = aEntry.getValue ();
+        }
+      }
+      m_aByIntIDArray = aByIntIDArray;
+
+      if (IHasName.class.isAssignableFrom (aClass))
+        for (final Enum <?> aElement : aElements)
+        {
+          final String sName = ((IHasName) aElement).getName ();
+          if (sName != null)
+          {
+            m_aByName.putIfAbsent (sName, aElement);
+            m_aByNameCaseInsensitive.putIfAbsent (_getCaseFolded (sName), aElement);
+          }
+        }
+    }
+
+    @Nullable
+    Enum <?> getFromIntID (final int nID)
+    {
+      if (m_aByIntIDArray != null)
+        return nID >= 0 && nID < m_aByIntIDArray.length ? m_aByIntIDArray[nID] : null;
+      return m_aByIntID.get (Integer.valueOf (nID));
+    }
+  }
+
+  private static final class EnumIndexValue extends ClassValue <EnumIndex>
+  {
+    @Override
+    protected EnumIndex computeValue (@Nonnull final Class <?> aClass)
+    {
+      s_aUsed.set (true);
+      return new EnumIndex (aClass);
+    }
+  }
+
   private static final Logger s_aLogger = LoggerFactory.getLogger (EnumHelper.class);
-  private static final Object [] NOT_CACHABLE = ArrayHelper.EMPTY_OBJECT_ARRAY;
-  private static final SimpleReadWriteLock s_aRWLockInt = new SimpleReadWriteLock ();
-  @GuardedBy ("s_aRWLockInt")
-  private static final ICommonsMap <String, Object []> s_aIntCache = new CommonsHashMap <> ();
+
+  // Replaced to clear the cache - the old indices are released together with
+  // the old ClassValue
+  private static volatile EnumIndexValue s_aIndex = new EnumIndexValue ();
+  private static final AtomicBoolean s_aUsed = new AtomicBoolean (false);
 
   @PresentForCodeCoverage
   private static final EnumHelper s_aInstance = new EnumHelper ();
@@ -62,6 +151,33 @@ public final class EnumHelper
   private EnumHelper ()
   {}
 
+  /**
+   * Fold the passed string so that two strings are
+   * {@link String#equalsIgnoreCase(String)} if and only if their folded
+   * versions are equal.
+   */
+  @Nonnull
+  private static String _getCaseFolded (@Nonnull final String s)
+  {
+    final char [] aChars = s.toCharArray ();
+    for (int i = 0; i < aChars.length; ++i)
+      aChars[i] = Character.toLowerCase (Character.toUpperCase (aChars[i]));
+    return new String (aChars);
+  }
+
+  @Nonnull
+  private static EnumIndex _getIndex (@Nonnull final Class <?> aClass)
+  {
+    return s_aIndex.get (aClass);
+  }
+
+  @Nullable
+  private static <ENUMTYPE extends Enum <ENUMTYPE>> ENUMTYPE _getOrDefault (@Nullable final Enum <?> aEnum,
+                                                                            @Nullable final ENUMTYPE eDefault)
+  {
+    return aEnum == null ? eDefault : GenericReflection.uncheckedCast (aEnum);
+  }
+
   @Nonnull
   public static <ENUMTYPE extends Enum <ENUMTYPE>> ENUMTYPE findFirst (@Nonnull final Class <ENUMTYPE> aClass,
                                                                        @Nullable final Predicate <? super ENUMTYPE> aFilter)
@@ -129,7 +245,7 @@ public final class EnumHelper
 
     if (aID == null)
       return eDefault;
-    return findFirst (aClass, x -> x.getID ().equals (aID), eDefault);
+    return _getOrDefault (_getIndex (aClass).m_aByID.get (aID), eDefault);
   }
 
   /**
@@ -198,7 +314,7 @@ public final class EnumHelper
 
     if (sID == null)
       return eDefault;
-    return findFirst (aClass, x -> x.getID ().equalsIgnoreCase (sID), eDefault);
+    return _getOrDefault (_getIndex (aClass).m_aByIDCaseInsensitive.get (_getCaseFolded (sID)), eDefault);
   }
 
   /**
@@ -263,53 +379,7 @@ public final class EnumHelper
   {
     ValueEnforcer.notNull (aClass, "Class");
 
-    final String sCacheKey = aClass.getName ();
-    Object [] aCachedData = s_aRWLockInt.readLocked ( () -> s_aIntCache.get (sCacheKey));
-    if (aCachedData == null)
-    {
-      aCachedData = s_aRWLockInt.writeLocked ( () -> {
-        // Try again in write lock
-        Object [] aWLCachedData = s_aIntCache.get (sCacheKey);
-        if (aWLCachedData == null)
-        {
-          // Create new cache entry
-          int nMinID = Integer.MAX_VALUE;
-          int nMaxID = Integer.MIN_VALUE;
-          for (final ENUMTYPE aElement : aClass.getEnumConstants ())
-          {
-            final int nElementID = aElement.getID ();
-            if (nElementID < nMinID)
-              nMinID = nElementID;
-            if (nElementID > nMaxID)
-              nMaxID = nElementID;
-          }
-          if (nMinID >= 0 && nMaxID <= CGlobal.MAX_BYTE_VALUE)
-          {
-            // Cachable!
-            aWLCachedData = new Object [nMaxID + 1];
-            for (final ENUMTYPE aElement : aClass.getEnumConstants ())
-              aWLCachedData[aElement.getID ()] = aElement;
-          }
-          else
-          {
-            // Enum not cachable - too many items
-            aWLCachedData = NOT_CACHABLE;
-          }
-          s_aIntCache.put (sCacheKey, aWLCachedData);
-        }
-        return aWLCachedData;
-      });
-    }
-
-    if (aCachedData != NOT_CACHABLE)
-    {
-      if (nID < 0 || nID >= aCachedData.length)
-        return eDefault;
-      return GenericReflection.uncheckedCast (aCachedData[nID]);
-    }
-
-    // Object is not cachable - traverse as usual
-    return findFirst (aClass, x -> x.getID () == nID, eDefault);
+    return _getOrDefault (_getIndex (aClass).getFromIntID (nID), eDefault);
   }
 
   /**
@@ -377,7 +447,7 @@ public final class EnumHelper
 
     if (StringHelper.hasNoText (sName))
       return eDefault;
-    return findFirst (aClass, x -> x.getName ().equals (sName), eDefault);
+    return _getOrDefault (_getIndex (aClass).m_aByName.get (sName), eDefault);
   }
 
   /**
@@ -445,7 +515,7 @@ public final class EnumHelper
 
     if (StringHelper.hasNoText (sName))
       return eDefault;
-    return findFirst (aClass, x -> x.getName ().equalsIgnoreCase (sName), eDefault);
+    return _getOrDefault (_getIndex (aClass).m_aByNameCaseInsensitive.get (_getCaseFolded (sName)), eDefault);
   }
 
   /**
@@ -491,14 +561,13 @@ public final class EnumHelper
   @Nonnull
   public static EChange clearCache ()
   {
-    return s_aRWLockInt.writeLocked ( () -> {
-      if (s_aIntCache.isEmpty ())
-        return EChange.UNCHANGED;
-      s_aIntCache.clear ();
-
-      if (s_aLogger.isDebugEnabled ())
-        s_aLogger.debug ("Cache was cleared: " + EnumHelper.class.getName ());
-      return EChange.CHANGED;
-    });
+    if (!s_aUsed.getAndSet (false))
+      return EChange.UNCHANGED;
+
+    s_aIndex = new EnumIndexValue ();
+
+    if (s_aLogger.isDebugEnabled ())
+      s_aLogger.debug ("Cache was cleared: " + EnumHelper.class.getName ());
+    return EChange.CHANGED;
   }
 }
@@ -18,13 +18,14 @@ package com.helger.commons.statistics;
 
 import java.io.Serializable;
 import java.math.BigInteger;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongBinaryOperator;
 
 import javax.annotation.CheckForSigned;
 import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
-import javax.annotation.concurrent.GuardedBy;
 import javax.annotation.concurrent.ThreadSafe;
 
 import com.helger.commons.CGlobal;
@@ -32,164 +33,163 @@ import com.helger.commons.annotation.ReturnsMutableCopy;
 import com.helger.commons.collection.impl.CommonsHashMap;
 import com.helger.commons.collection.impl.ICommonsMap;
 import com.helger.commons.collection.impl.ICommonsSet;
-import com.helger.commons.concurrent.SimpleReadWriteLock;
 import com.helger.commons.string.ToStringGenerator;
 
 /**
- * Abstract base class for a keyed numeric statistic handler
+ * Abstract base class for a keyed numeric statistic handler. Each key has its
+ * own cell of {@link LongAdder} and {@link LongAccumulator} objects, so that
+ * concurrent updates don't block each other.<br>
+ * Note: the sum is accumulated as a <code>long</code>.
  *
  * @author Philip Helger
  */
 @ThreadSafe
 public abstract class AbstractStatisticsHandlerKeyedNumeric implements IStatisticsHandlerKeyedNumeric
 {
+  @ThreadSafe
   private static final class Value implements Serializable
   {
-    private int m_nInvocationCount;
-    private long m_nMin;
-    private long m_nMax;
-    private BigInteger m_aSum;
+    // The accumulator functions must be serializable as well
+    private static final LongBinaryOperator MIN = (LongBinaryOperator & Serializable) Math::min;
+    private static final LongBinaryOperator MAX = (LongBinaryOperator & Serializable) Math::max;
 
-    public Value (final long nValue)
-    {
-      m_nInvocationCount = 1;
-      m_nMin = nValue;
-      m_nMax = nValue;
-      m_aSum = BigInteger.valueOf (nValue);
-    }
+    private final LongAdder m_aInvocationCount = new LongAdder ();
+    private final LongAccumulator m_aMin = new LongAccumulator (MIN, Long.MAX_VALUE);
+    private final LongAccumulator m_aMax = new LongAccumulator (MAX, Long.MIN_VALUE);
+    private final LongAdder m_aSum = new LongAdder ();
 
     public void add (final long nValue)
     {
-      m_nInvocationCount++;
-      if (nValue < m_nMin)
-        m_nMin = nValue;
-      if (nValue > m_nMax)
-        m_nMax = nValue;
-      m_aSum = m_aSum.add (BigInteger.valueOf (nValue));
-    }
-
-    @Nonnegative
-    public int getInvocationCount ()
-    {
-      return m_nInvocationCount;
-    }
-
-    @CheckForSigned
-    public long getMin ()
-    {
-      return m_nMin;
-    }
-
-    @CheckForSigned
-    public long getMax ()
-    {
-      return m_nMax;
+      m_aMin.accumulate (nValue);
+      m_aMax.accumulate (nValue);
+      m_aSum.add (nValue);
+      m_aInvocationCount.increment ();
     }
 
     @Nonnull
-    public BigInteger getSum ()
-    {
-      return m_aSum;
-    }
-
-    @CheckForSigned
-    public long getAverage ()
+    public StatisticsKeyedNumericValue getSnapshot ()
     {
-      return m_aSum.divide (BigInteger.valueOf (m_nInvocationCount)).longValue ();
+      // Read the invocation count first, so that min and max are always set
+      final int nInvocationCount = m_aInvocationCount.intValue ();
+      if (nInvocationCount == 0)
+        return new StatisticsKeyedNumericValue (0, CGlobal.ILLEGAL_ULONG, CGlobal.ILLEGAL_ULONG, BigInteger.ZERO);
+      return new StatisticsKeyedNumericValue (nInvocationCount,
+                                              m_aMin.get (),
+                                              m_aMax.get (),
+                                              BigInteger.valueOf (m_aSum.sum ()));
     }
 
     @Override
     public String toString ()
     {
       // No object ID needed for toString
-      return new ToStringGenerator (null).append ("invocations", m_nInvocationCount)
-                                         .append ("min", m_nMin)
-                                         .append ("max", m_nMax)
+      return new ToStringGenerator (null).append ("invocations", m_aInvocationCount)
+                                         .append ("min", m_aMin)
+                                         .append ("max", m_aMax)
                                          .append ("sum", m_aSum)
                                          .getToString ();
     }
   }
 
-  private final transient SimpleReadWriteLock m_aRWLock = new SimpleReadWriteLock ();
-  private final AtomicInteger m_aInvocationCount = new AtomicInteger (0);
-  @GuardedBy ("m_aRWLock")
-  private final ICommonsMap <String, Value> m_aMap = new CommonsHashMap <> ();
+  private final LongAdder m_aInvocationCount = new LongAdder ();
+  private final StatisticsKeyedCellMap <Value> m_aMap;
+
+  protected AbstractStatisticsHandlerKeyedNumeric ()
+  {
+    this (DEFAULT_MAX_KEYS);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param nMaxKeys
+   *        The maximum number of distinct keys. All further keys are
+   *        aggregated as {@link #KEY_OVERFLOW}. Must be &gt; 0.
+   * @since 9.0.0
+   */
+  protected AbstractStatisticsHandlerKeyedNumeric (@Nonnegative final int nMaxKeys)
+  {
+    m_aMap = new StatisticsKeyedCellMap <> (nMaxKeys);
+  }
+
+  /**
+   * @return The maximum number of distinct keys as provided in the
+   *         constructor.
+   * @since 9.0.0
+   */
+  @Nonnegative
+  public final int getMaxKeys ()
+  {
+    return m_aMap.getMaxKeys ();
+  }
 
   @Nonnegative
   public final int getInvocationCount ()
   {
-    return m_aInvocationCount.get ();
+    return m_aInvocationCount.intValue ();
   }
 
   @Nonnull
   @ReturnsMutableCopy
   public ICommonsSet <String> getAllKeys ()
   {
-    return m_aRWLock.readLocked ( () -> m_aMap.copyOfKeySet ());
+    return m_aMap.getAllKeys ();
   }
 
   protected final void addValue (@Nullable final String sKey, final long nValue)
   {
-    m_aInvocationCount.incrementAndGet ();
+    m_aInvocationCount.increment ();
+    m_aMap.getOrCreate (sKey, Value::new).add (nValue);
+  }
 
-    // Better performance when done manually
-    m_aRWLock.writeLock ().lock ();
-    try
-    {
-      final Value aValue = m_aMap.get (sKey);
-      if (aValue == null)
-        m_aMap.put (sKey, new Value (nValue));
-      else
-        aValue.add (nValue);
-    }
-    finally
-    {
-      m_aRWLock.writeLock ().unlock ();
-    }
+  @Nullable
+  private StatisticsKeyedNumericValue _getSnapshot (@Nullable final String sKey)
+  {
+    final Value aValue = m_aMap.get (sKey);
+    return aValue == null ? null : aValue.getSnapshot ();
   }
 
   @CheckForSigned
   public final int getInvocationCount (@Nullable final String sKey)
   {
-    return m_aRWLock.readLocked ( () -> {
-      final Value aValue = m_aMap.get (sKey);
-      return aValue == null ? CGlobal.ILLEGAL_UINT : aValue.getInvocationCount ();
-    });
+    final StatisticsKeyedNumericValue aValue = _getSnapshot (sKey);
+    return aValue == null ? CGlobal.ILLEGAL_UINT : aValue.getInvocationCount ();
   }
 
   @Nullable
   public final BigInteger getSum (@Nullable final String sKey)
   {
-    return m_aRWLock.readLocked ( () -> {
-      final Value aValue = m_aMap.get (sKey);
-      return aValue == null ? null : aValue.getSum ();
-    });
+    final StatisticsKeyedNumericValue aValue = _getSnapshot (sKey);
+    return aValue == null ? null : aValue.getSum ();
   }
 
   @CheckForSigned
   public final long getMin (@Nullable final String sKey)
   {
-    return m_aRWLock.readLocked ( () -> {
-      final Value aValue = m_aMap.get (sKey);
-      return aValue == null ? CGlobal.ILLEGAL_ULONG : aValue.getMin ();
-    });
+    final StatisticsKeyedNumericValue aValue = _getSnapshot (sKey);
+    return aValue == null ? CGlobal.ILLEGAL_ULONG : aValue.getMin ();
   }
 
   @CheckForSigned
   public final long getAverage (@Nullable final String sKey)
   {
-    return m_aRWLock.readLocked ( () -> {
-      final Value aValue = m_aMap.get (sKey);
-      return aValue == null ? CGlobal.ILLEGAL_ULONG : aValue.getAverage ();
-    });
+    final StatisticsKeyedNumericValue aValue = _getSnapshot (sKey);
+    return aValue == null ? CGlobal.ILLEGAL_ULONG : aValue.getAverage ();
   }
 
   @CheckForSigned
   public long getMax (@Nullable final String sKey)
   {
-    return m_aRWLock.readLocked ( () -> {
-      final Value aValue = m_aMap.get (sKey);
-      return aValue == null ? CGlobal.ILLEGAL_ULONG : aValue.getMax ();
-    });
+    final StatisticsKeyedNumericValue aValue = _getSnapshot (sKey);
+    return aValue == null ? CGlobal.ILLEGAL_ULONG : aValue.getMax ();
+  }
+
+  @Nonnull
+  @ReturnsMutableCopy
+  public ICommonsMap <String, StatisticsKeyedNumericValue> getSnapshot ()
+  {
+    final ICommonsMap <String, StatisticsKeyedNumericValue> ret = new CommonsHashMap <> ();
+    m_aMap.forEach ( (sKey, aValue) -> ret.put (sKey, aValue.getSnapshot ()));
+    return ret;
   }
 }
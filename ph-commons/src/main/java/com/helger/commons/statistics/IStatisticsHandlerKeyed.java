@@ -30,6 +30,21 @@ import com.helger.commons.collection.impl.ICommonsSet;
  */
 public interface IStatisticsHandlerKeyed extends IStatisticsHandler
 {
+  /**
+   * The key that collects all values once the maximum number of keys of a
+   * handler is reached.
+   *
+   * @since 9.0.0
+   */
+  String KEY_OVERFLOW = "$overflow";
+
+  /**
+   * The default maximum number of distinct keys per handler.
+   *
+   * @since 9.0.0
+   */
+  int DEFAULT_MAX_KEYS = 10000;
+
   /**
    * @return A collection of all keys that have a value assigned. Never
    *         <code>null</code>.
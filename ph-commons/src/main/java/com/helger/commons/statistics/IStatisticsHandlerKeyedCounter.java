@@ -16,8 +16,13 @@
  */
 package com.helger.commons.statistics;
 
+import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
+import com.helger.commons.annotation.ReturnsMutableCopy;
+import com.helger.commons.collection.impl.CommonsHashMap;
+import com.helger.commons.collection.impl.ICommonsMap;
+
 /**
  * Statistics handler for a keyed counter.
  *
@@ -34,4 +39,19 @@ public interface IStatisticsHandlerKeyedCounter extends IStatisticsHandlerKeyed
    *         present.
    */
   long getCount (@Nullable String sKey);
+
+  /**
+   * @return The values of all keys. The values of each key are determined
+   *         together. Never <code>null</code>.
+   * @since 9.0.0
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  default ICommonsMap <String, StatisticsKeyedCounterValue> getSnapshot ()
+  {
+    final ICommonsMap <String, StatisticsKeyedCounterValue> ret = new CommonsHashMap <> ();
+    for (final String sKey : getAllKeys ())
+      ret.put (sKey, new StatisticsKeyedCounterValue (getInvocationCount (sKey), getCount (sKey)));
+    return ret;
+  }
 }
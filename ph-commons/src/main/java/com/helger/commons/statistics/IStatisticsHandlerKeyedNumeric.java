@@ -19,8 +19,13 @@ package com.helger.commons.statistics;
 import java.math.BigInteger;
 
 import javax.annotation.CheckForSigned;
+import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
+import com.helger.commons.annotation.ReturnsMutableCopy;
+import com.helger.commons.collection.impl.CommonsHashMap;
+import com.helger.commons.collection.impl.ICommonsMap;
+
 /**
  * Base interface for size and timer handler.
  *
@@ -66,4 +71,20 @@ public interface IStatisticsHandlerKeyedNumeric extends IStatisticsHandlerKeyed
    */
   @CheckForSigned
   long getMax (@Nullable String sKey);
+
+  /**
+   * @return The values of all keys. The values of each key are determined
+   *         together. Never <code>null</code>.
+   * @since 9.0.0
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  default ICommonsMap <String, StatisticsKeyedNumericValue> getSnapshot ()
+  {
+    final ICommonsMap <String, StatisticsKeyedNumericValue> ret = new CommonsHashMap <> ();
+    for (final String sKey : getAllKeys ())
+      ret.put (sKey,
+               new StatisticsKeyedNumericValue (getInvocationCount (sKey), getMin (sKey), getMax (sKey), getSum (sKey)));
+    return ret;
+  }
 }
@@ -17,13 +17,12 @@
 package com.helger.commons.statistics;
 
 import java.io.Serializable;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 import javax.annotation.CheckForSigned;
 import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
-import javax.annotation.concurrent.NotThreadSafe;
 import javax.annotation.concurrent.ThreadSafe;
 
 import com.helger.commons.CGlobal;
@@ -31,59 +30,82 @@ import com.helger.commons.annotation.ReturnsMutableCopy;
 import com.helger.commons.collection.impl.CommonsHashMap;
 import com.helger.commons.collection.impl.ICommonsMap;
 import com.helger.commons.collection.impl.ICommonsSet;
-import com.helger.commons.concurrent.SimpleReadWriteLock;
 import com.helger.commons.string.ToStringGenerator;
 
 /**
- * Default implementation of {@link IMutableStatisticsHandlerKeyedCounter}
+ * Default implementation of {@link IMutableStatisticsHandlerKeyedCounter}.
+ * Each key has its own {@link LongAdder} based cell, so that concurrent
+ * increments of the same or different keys don't block each other.
  *
  * @author Philip Helger
  */
 @ThreadSafe
 public class StatisticsHandlerKeyedCounter implements IMutableStatisticsHandlerKeyedCounter
 {
-  @NotThreadSafe
+  @ThreadSafe
   private static final class Value implements Serializable
   {
-    private int m_nInvocationCount;
-    private long m_nCount;
-
-    public Value (final long nInitialValue)
-    {
-      m_nInvocationCount = 1;
-      m_nCount = nInitialValue;
-    }
+    private final LongAdder m_aInvocationCount = new LongAdder ();
+    private final LongAdder m_aCount = new LongAdder ();
 
     public void increment (final long nByHowMany)
     {
-      m_nInvocationCount++;
-      m_nCount += nByHowMany;
+      m_aCount.add (nByHowMany);
+      m_aInvocationCount.increment ();
     }
 
     @Nonnegative
     public int getInvocationCount ()
     {
-      return m_nInvocationCount;
+      return m_aInvocationCount.intValue ();
     }
 
     public long getCount ()
     {
-      return m_nCount;
+      return m_aCount.sum ();
     }
 
     @Override
     public String toString ()
     {
       // No object needed for ctor
-      return new ToStringGenerator (null).append ("invocations", m_nInvocationCount)
-                                         .append ("count", m_nCount)
+      return new ToStringGenerator (null).append ("invocations", m_aInvocationCount)
+                                         .append ("count", m_aCount)
                                          .getToString ();
     }
   }
 
-  private final transient SimpleReadWriteLock m_aRWLock = new SimpleReadWriteLock ();
-  private final AtomicInteger m_aInvocationCount = new AtomicInteger ();
-  private final ICommonsMap <String, Value> m_aMap = new CommonsHashMap<> ();
+  private final LongAdder m_aInvocationCount = new LongAdder ();
+  private final StatisticsKeyedCellMap <Value> m_aMap;
+
+  public StatisticsHandlerKeyedCounter ()
+  {
+    this (DEFAULT_MAX_KEYS);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param nMaxKeys
+   *        The maximum number of distinct keys. All further keys are counted
+   *        as {@link #KEY_OVERFLOW}. Must be &gt; 0.
+   * @since 9.0.0
+   */
+  public StatisticsHandlerKeyedCounter (@Nonnegative final int nMaxKeys)
+  {
+    m_aMap = new StatisticsKeyedCellMap <> (nMaxKeys);
+  }
+
+  /**
+   * @return The maximum number of distinct keys as provided in the
+   *         constructor.
+   * @since 9.0.0
+   */
+  @Nonnegative
+  public final int getMaxKeys ()
+  {
+    return m_aMap.getMaxKeys ();
+  }
 
   @Nonnegative
   public int getInvocationCount ()
@@ -98,38 +120,40 @@ public class StatisticsHandlerKeyedCounter implements IMutableStatisticsHandlerK
 
   public void increment (@Nullable final String sKey, final long nByHowMany)
   {
-    m_aInvocationCount.incrementAndGet ();
-    m_aRWLock.writeLocked ( () -> {
-      final Value aPerKey = m_aMap.get (sKey);
-      if (aPerKey == null)
-        m_aMap.put (sKey, new Value (nByHowMany));
-      else
-        aPerKey.increment (nByHowMany);
-    });
+    m_aInvocationCount.increment ();
+    m_aMap.getOrCreate (sKey, Value::new).increment (nByHowMany);
   }
 
   @Nonnull
   @ReturnsMutableCopy
   public ICommonsSet <String> getAllKeys ()
   {
-    return m_aRWLock.readLocked ( () -> m_aMap.copyOfKeySet ());
+    return m_aMap.getAllKeys ();
   }
 
   @CheckForSigned
   public long getCount (@Nullable final String sKey)
   {
-    return m_aRWLock.readLocked ( () -> {
-      final Value aCount = m_aMap.get (sKey);
-      return aCount == null ? CGlobal.ILLEGAL_ULONG : aCount.getCount ();
-    });
+    final Value aCount = m_aMap.get (sKey);
+    return aCount == null ? CGlobal.ILLEGAL_ULONG : aCount.getCount ();
   }
 
   @CheckForSigned
   public int getInvocationCount (@Nullable final String sKey)
   {
-    return m_aRWLock.readLocked ( () -> {
-      final Value aCount = m_aMap.get (sKey);
-      return aCount == null ? CGlobal.ILLEGAL_UINT : aCount.getInvocationCount ();
-    });
+    final Value aCount = m_aMap.get (sKey);
+    return aCount == null ? CGlobal.ILLEGAL_UINT : aCount.getInvocationCount ();
+  }
+
+  @Nonnull
+  @ReturnsMutableCopy
+  public ICommonsMap <String, StatisticsKeyedCounterValue> getSnapshot ()
+  {
+    final ICommonsMap <String, StatisticsKeyedCounterValue> ret = new CommonsHashMap <> ();
+    m_aMap.forEach ( (sKey,
+                      aValue) -> ret.put (sKey,
+                                          new StatisticsKeyedCounterValue (aValue.getInvocationCount (),
+                                                                           aValue.getCount ())));
+    return ret;
   }
 }
@@ -34,6 +34,22 @@ public class StatisticsHandlerKeyedSize extends AbstractStatisticsHandlerKeyedNu
 {
   private static final Logger s_aLogger = LoggerFactory.getLogger (StatisticsHandlerKeyedSize.class);
 
+  public StatisticsHandlerKeyedSize ()
+  {}
+
+  /**
+   * Constructor
+   *
+   * @param nMaxKeys
+   *        The maximum number of distinct keys. All further keys are
+   *        aggregated as {@link #KEY_OVERFLOW}. Must be &gt; 0.
+   * @since 9.0.0
+   */
+  public StatisticsHandlerKeyedSize (@Nonnegative final int nMaxKeys)
+  {
+    super (nMaxKeys);
+  }
+
   public void addSize (@Nullable final String sKey, @Nonnegative final long nSize)
   {
     if (nSize < 0)
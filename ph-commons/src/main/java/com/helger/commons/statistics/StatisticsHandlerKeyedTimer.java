@@ -34,6 +34,22 @@ public class StatisticsHandlerKeyedTimer extends AbstractStatisticsHandlerKeyedN
 {
   private static final Logger s_aLogger = LoggerFactory.getLogger (StatisticsHandlerKeyedTimer.class);
 
+  public StatisticsHandlerKeyedTimer ()
+  {}
+
+  /**
+   * Constructor
+   *
+   * @param nMaxKeys
+   *        The maximum number of distinct keys. All further keys are
+   *        aggregated as {@link #KEY_OVERFLOW}. Must be &gt; 0.
+   * @since 9.0.0
+   */
+  public StatisticsHandlerKeyedTimer (@Nonnegative final int nMaxKeys)
+  {
+    super (nMaxKeys);
+  }
+
   public void addTime (@Nullable final String sKey, @Nonnegative final long nMillis)
   {
     if (nMillis < 0)
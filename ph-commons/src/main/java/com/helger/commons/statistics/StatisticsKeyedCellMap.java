@@ -0,0 +1,110 @@
+/**
+ * Copyright (C) 2014-2017 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.statistics;
+
+import java.io.Serializable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.ReturnsMutableCopy;
+import com.helger.commons.collection.impl.CommonsHashSet;
+import com.helger.commons.collection.impl.ICommonsSet;
+
+/**
+ * The per-key cells of a keyed statistics handler. Lookups of existing keys
+ * are lock-free. The number of distinct keys is bounded - as soon as the
+ * maximum is reached, all new keys share the cell of
+ * {@link IStatisticsHandlerKeyed#KEY_OVERFLOW}.
+ *
+ * @author Philip Helger
+ * @param <CELLTYPE>
+ *        The cell type. Must be thread-safe itself.
+ * @since 9.0.0
+ */
+@ThreadSafe
+final class StatisticsKeyedCellMap <CELLTYPE extends Serializable> implements Serializable
+{
+  private final int m_nMaxKeys;
+  private final ConcurrentHashMap <String, CELLTYPE> m_aMap = new ConcurrentHashMap <> ();
+  // ConcurrentHashMap cannot handle null keys
+  private final AtomicReference <CELLTYPE> m_aNullKeyCell = new AtomicReference <> ();
+
+  StatisticsKeyedCellMap (@Nonnegative final int nMaxKeys)
+  {
+    ValueEnforcer.isGT0 (nMaxKeys, "MaxKeys");
+    m_nMaxKeys = nMaxKeys;
+  }
+
+  @Nonnegative
+  int getMaxKeys ()
+  {
+    return m_nMaxKeys;
+  }
+
+  @Nonnull
+  CELLTYPE getOrCreate (@Nullable final String sKey, @Nonnull final Supplier <? extends CELLTYPE> aFactory)
+  {
+    if (sKey == null)
+    {
+      final CELLTYPE ret = m_aNullKeyCell.get ();
+      if (ret != null)
+        return ret;
+      m_aNullKeyCell.compareAndSet (null, aFactory.get ());
+      return m_aNullKeyCell.get ();
+    }
+
+    final CELLTYPE ret = m_aMap.get (sKey);
+    if (ret != null)
+      return ret;
+
+    // The bound is not exact if several new keys are added concurrently
+    final String sRealKey = m_aMap.size () >= m_nMaxKeys ? IStatisticsHandlerKeyed.KEY_OVERFLOW : sKey;
+    return m_aMap.computeIfAbsent (sRealKey, k -> aFactory.get ());
+  }
+
+  @Nullable
+  CELLTYPE get (@Nullable final String sKey)
+  {
+    return sKey == null ? m_aNullKeyCell.get () : m_aMap.get (sKey);
+  }
+
+  @Nonnull
+  @ReturnsMutableCopy
+  ICommonsSet <String> getAllKeys ()
+  {
+    final ICommonsSet <String> ret = new CommonsHashSet <> (m_aMap.keySet ());
+    if (m_aNullKeyCell.get () != null)
+      ret.add (null);
+    return ret;
+  }
+
+  void forEach (@Nonnull final BiConsumer <? super String, ? super CELLTYPE> aConsumer)
+  {
+    final CELLTYPE aNullKeyCell = m_aNullKeyCell.get ();
+    if (aNullKeyCell != null)
+      aConsumer.accept (null, aNullKeyCell);
+    m_aMap.forEach (aConsumer);
+  }
+}
@@ -0,0 +1,103 @@
+/**
+ * Copyright (C) 2014-2017 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.statistics;
+
+import java.io.Serializable;
+import java.math.BigInteger;
+
+import javax.annotation.CheckForSigned;
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+
+import com.helger.commons.CGlobal;
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.string.ToStringGenerator;
+
+/**
+ * The values of a single key of a keyed numeric statistics handler at a
+ * certain point in time.
+ *
+ * @author Philip Helger
+ * @since 9.0.0
+ */
+@Immutable
+public final class StatisticsKeyedNumericValue implements Serializable
+{
+  private final int m_nInvocationCount;
+  private final long m_nMin;
+  private final long m_nMax;
+  private final BigInteger m_aSum;
+
+  public StatisticsKeyedNumericValue (@Nonnegative final int nInvocationCount,
+                                      final long nMin,
+                                      final long nMax,
+                                      @Nonnull final BigInteger aSum)
+  {
+    ValueEnforcer.notNull (aSum, "Sum");
+    m_nInvocationCount = nInvocationCount;
+    m_nMin = nMin;
+    m_nMax = nMax;
+    m_aSum = aSum;
+  }
+
+  @Nonnegative
+  public int getInvocationCount ()
+  {
+    return m_nInvocationCount;
+  }
+
+  @CheckForSigned
+  public long getMin ()
+  {
+    return m_nMin;
+  }
+
+  @CheckForSigned
+  public long getMax ()
+  {
+    return m_nMax;
+  }
+
+  @Nonnull
+  public BigInteger getSum ()
+  {
+    return m_aSum;
+  }
+
+  /**
+   * @return The average value (=sum/invocationCount) or
+   *         {@link CGlobal#ILLEGAL_ULONG} if the invocation count is 0.
+   */
+  @CheckForSigned
+  public long getAverage ()
+  {
+    if (m_nInvocationCount == 0)
+      return CGlobal.ILLEGAL_ULONG;
+    return m_aSum.divide (BigInteger.valueOf (m_nInvocationCount)).longValue ();
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (null).append ("InvocationCount", m_nInvocationCount)
+                                       .append ("Min", m_nMin)
+                                       .append ("Max", m_nMax)
+                                       .append ("Sum", m_aSum)
+                                       .getToString ();
+  }
+}
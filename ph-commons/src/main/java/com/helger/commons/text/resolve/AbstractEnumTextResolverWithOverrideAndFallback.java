@@ -101,6 +101,50 @@ public abstract class AbstractEnumTextResolverWithOverrideAndFallback implements
   @Nullable
   protected abstract String internalGetFallbackString (@Nonnull String sID, @Nonnull Locale aContentLocale);
 
+  /**
+   * Get the override string for the passed enum constant. By default this
+   * calls {@link #internalGetOverrideString(String, Locale)}. Override this
+   * method to use the enum constant e.g. for array based lookups.
+   *
+   * @param aEnum
+   *        The enum constant to resolve. Never <code>null</code>.
+   * @param sID
+   *        Unique string ID of the enum constant
+   * @param aContentLocale
+   *        locale to use.
+   * @return The string in the passed locale. May be <code>null</code>.
+   * @since 9.0.0
+   */
+  @Nullable
+  protected String internalGetOverrideString (@Nonnull final Enum <?> aEnum,
+                                              @Nonnull final String sID,
+                                              @Nonnull final Locale aContentLocale)
+  {
+    return internalGetOverrideString (sID, aContentLocale);
+  }
+
+  /**
+   * Get the fallback string for the passed enum constant. By default this
+   * calls {@link #internalGetFallbackString(String, Locale)}. Override this
+   * method to use the enum constant e.g. for array based lookups.
+   *
+   * @param aEnum
+   *        The enum constant to resolve. Never <code>null</code>.
+   * @param sID
+   *        Unique string ID of the enum constant
+   * @param aContentLocale
+   *        locale to use.
+   * @return The string in the passed locale. May be <code>null</code>.
+   * @since 9.0.0
+   */
+  @Nullable
+  protected String internalGetFallbackString (@Nonnull final Enum <?> aEnum,
+                                              @Nonnull final String sID,
+                                              @Nonnull final Locale aContentLocale)
+  {
+    return internalGetFallbackString (sID, aContentLocale);
+  }
+
   @Nullable
   public final String getText (@Nonnull final Enum <?> aEnum,
                                @Nonnull final IHasText aTP,
@@ -115,7 +159,7 @@ public abstract class AbstractEnumTextResolverWithOverrideAndFallback implements
     if (m_bCheckForOverride)
     {
       // Is there an override available?
-      final String ret = internalGetOverrideString (sID, aContentLocale);
+      final String ret = internalGetOverrideString (aEnum, sID, aContentLocale);
       if (ret != null)
       {
         // An override string was found!
@@ -135,7 +179,7 @@ public abstract class AbstractEnumTextResolverWithOverrideAndFallback implements
       // The text was not found -> try the fallback (e.g. for different
       // locale)
       s_aStatsFallback.increment ();
-      return internalGetFallbackString (sID, aContentLocale);
+      return internalGetFallbackString (aEnum, sID, aContentLocale);
     }
 
     return null;
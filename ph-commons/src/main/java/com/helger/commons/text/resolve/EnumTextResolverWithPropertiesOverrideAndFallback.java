@@ -16,13 +16,18 @@
  */
 package com.helger.commons.text.resolve;
 
+import java.util.List;
 import java.util.Locale;
 import java.util.ResourceBundle;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
+import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.annotation.PropertyKey;
 import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.Immutable;
 import javax.annotation.concurrent.ThreadSafe;
 
 import org.slf4j.Logger;
@@ -36,6 +41,7 @@ import com.helger.commons.collection.impl.ICommonsMap;
 import com.helger.commons.collection.impl.ICommonsSet;
 import com.helger.commons.concurrent.SimpleReadWriteLock;
 import com.helger.commons.debug.GlobalDebug;
+import com.helger.commons.lang.EnumHelper;
 import com.helger.commons.locale.LocaleHelper;
 import com.helger.commons.statistics.IMutableStatisticsHandlerKeyedCounter;
 import com.helger.commons.statistics.StatisticsManager;
@@ -44,7 +50,12 @@ import com.helger.commons.text.resourcebundle.ResourceBundleHelper;
 /**
  * Text resolving class that performs the fallback handling for locales other
  * than German and English. Used only from within the
- * {@link DefaultTextResolver} static class.
+ * {@link DefaultTextResolver} static class.<br>
+ * If the resource bundle cache is enabled, the override and fallback texts of
+ * all constants of an enum are resolved together upon the first request for an
+ * enum class and a locale. All subsequent lookups are simple array accesses
+ * without locking. Call {@link #clearCache()} after the underlying resource
+ * bundles changed.
  *
  * @author Philip Helger
  */
@@ -62,15 +73,52 @@ public class EnumTextResolverWithPropertiesOverrideAndFallback extends AbstractE
   private static final IMutableStatisticsHandlerKeyedCounter s_aStatsFailed = StatisticsManager.getKeyedCounterHandler (EnumTextResolverWithPropertiesOverrideAndFallback.class.getName () +
                                                                                                                         "$failed");
 
+  /**
+   * The pre-resolved override and fallback texts of all constants of a single
+   * enum class in a single locale, indexed by the ordinal. For every text the
+   * name of the bundle it originates from is kept, so that the used bundle
+   * names can be tracked.
+   *
+   * @author Philip Helger
+   */
+  @Immutable
+  private static final class EnumTexts
+  {
+    private final String [] m_aOverrideTexts;
+    private final String [] m_aOverrideBundleNames;
+    private final String [] m_aFallbackTexts;
+    private final String [] m_aFallbackBundleNames;
+
+    EnumTexts (@Nonnegative final int nCount)
+    {
+      m_aOverrideTexts = new String [nCount];
+      m_aOverrideBundleNames = new String [nCount];
+      m_aFallbackTexts = new String [nCount];
+      m_aFallbackBundleNames = new String [nCount];
+    }
+  }
+
+  /**
+   * Per enum class a map from locale to the pre-resolved texts.
+   *
+   * @author Philip Helger
+   */
+  private static final class EnumTextsValue extends ClassValue <ConcurrentHashMap <Locale, EnumTexts>>
+  {
+    @Override
+    protected ConcurrentHashMap <Locale, EnumTexts> computeValue (final Class <?> aClass)
+    {
+      return new ConcurrentHashMap <> ();
+    }
+  }
+
   private final SimpleReadWriteLock m_aRWLock = new SimpleReadWriteLock ();
-  @GuardedBy ("m_aRWLock")
-  private final ICommonsSet <String> m_aUsedOverrideBundles = new CommonsHashSet <> ();
-  @GuardedBy ("m_aRWLock")
-  private final ICommonsSet <String> m_aUsedFallbackBundles = new CommonsHashSet <> ();
-  @GuardedBy ("m_aRWLock")
-  private boolean m_bUseResourceBundleCache = DEFAULT_USE_RESOURCE_BUNDLE_CACHE;
+  private final Set <String> m_aUsedOverrideBundles = ConcurrentHashMap.newKeySet ();
+  private final Set <String> m_aUsedFallbackBundles = ConcurrentHashMap.newKeySet ();
+  private volatile boolean m_bUseResourceBundleCache = DEFAULT_USE_RESOURCE_BUNDLE_CACHE;
   @GuardedBy ("m_aRWLock")
   private final ICommonsMap <String, ResourceBundle> m_aResourceBundleCache = new CommonsHashMap <> ();
+  private volatile EnumTextsValue m_aEnumTexts = new EnumTextsValue ();
 
   public EnumTextResolverWithPropertiesOverrideAndFallback ()
   {}
@@ -83,7 +131,7 @@ public class EnumTextResolverWithPropertiesOverrideAndFallback extends AbstractE
    */
   public void setUseResourceBundleCache (final boolean bUseResourceBundleCache)
   {
-    m_aRWLock.writeLocked ( () -> m_bUseResourceBundleCache = bUseResourceBundleCache);
+    m_bUseResourceBundleCache = bUseResourceBundleCache;
   }
 
   /**
@@ -93,7 +141,7 @@ public class EnumTextResolverWithPropertiesOverrideAndFallback extends AbstractE
    */
   public boolean isUseResourceBundleCache ()
   {
-    return m_aRWLock.readLocked ( () -> m_bUseResourceBundleCache);
+    return m_bUseResourceBundleCache;
   }
 
   /**
@@ -139,26 +187,133 @@ public class EnumTextResolverWithPropertiesOverrideAndFallback extends AbstractE
     return ret;
   }
 
-  @Override
-  @Nullable
-  protected String internalGetOverrideString (@Nonnull @PropertyKey final String sID,
-                                              @Nonnull final Locale aContentLocale)
+  /**
+   * Find the passed ID in the bundles with the passed prefix, trying all
+   * locales for resolving of the passed locale.
+   *
+   * @param sPrefix
+   *        Bundle name prefix. May not be <code>null</code>.
+   * @param sID
+   *        The resource key to search. May not be <code>null</code>.
+   * @param aLocales
+   *        The locales to try in order. May not be <code>null</code>.
+   * @param aTexts
+   *        The text array to fill. May not be <code>null</code>.
+   * @param aBundleNames
+   *        The bundle name array to fill. May not be <code>null</code>.
+   * @param nIndex
+   *        The index in the arrays to fill.
+   */
+  private void _resolve (@Nonnull final String sPrefix,
+                         @Nonnull final String sID,
+                         @Nonnull final List <Locale> aLocales,
+                         @Nonnull final String [] aTexts,
+                         @Nonnull final String [] aBundleNames,
+                         final int nIndex)
   {
-    // Try all possible locales of the passed locale
-    for (final Locale aLocale : LocaleHelper.getCalculatedLocaleListForResolving (aContentLocale))
+    for (final Locale aLocale : aLocales)
     {
       // Explicitly use a bundle name containing the locale in the base name to
       // avoid strange fallback behaviour to the default locale
-      final String sBundleName = PREFIX_OVERRIDE + aLocale.toString ();
+      final String sBundleName = sPrefix + aLocale.toString ();
       final String ret = ResourceBundleHelper.getString (_getResourceBundle (sBundleName, aLocale), sID);
       if (ret != null)
       {
         // Match!
-        m_aRWLock.writeLocked ( () -> m_aUsedOverrideBundles.add (sBundleName));
-        return ret;
+        aTexts[nIndex] = ret;
+        aBundleNames[nIndex] = sBundleName;
+        return;
       }
     }
-    return null;
+  }
+
+  @Nonnull
+  private EnumTexts _getEnumTexts (@Nonnull final Enum <?> aEnum, @Nonnull final Locale aContentLocale)
+  {
+    final Class <?> aEnumClass = aEnum.getDeclaringClass ();
+    final ConcurrentHashMap <Locale, EnumTexts> aMap = m_aEnumTexts.get (aEnumClass);
+    EnumTexts ret = aMap.get (aContentLocale);
+    if (ret == null)
+    {
+      // Resolve all constants at once; concurrent first calls may build the
+      // same table twice, but the result is identical
+      final Enum <?> [] aConstants = (Enum <?> []) aEnumClass.getEnumConstants ();
+      final List <Locale> aLocales = LocaleHelper.getCalculatedLocaleListForResolving (aContentLocale);
+      ret = new EnumTexts (aConstants.length);
+      for (final Enum <?> aConstant : aConstants)
+      {
+        final String sID = EnumHelper.getEnumID (aConstant);
+        final int nIndex = aConstant.ordinal ();
+        _resolve (PREFIX_OVERRIDE, sID, aLocales, ret.m_aOverrideTexts, ret.m_aOverrideBundleNames, nIndex);
+        _resolve (PREFIX_FALLBACK, sID, aLocales, ret.m_aFallbackTexts, ret.m_aFallbackBundleNames, nIndex);
+      }
+      final EnumTexts aOld = aMap.putIfAbsent (aContentLocale, ret);
+      if (aOld != null)
+        ret = aOld;
+    }
+    return ret;
+  }
+
+  private static void _markUsed (@Nonnull final Set <String> aUsedBundles, @Nonnull final String sBundleName)
+  {
+    // Avoid the write on the hot path
+    if (!aUsedBundles.contains (sBundleName))
+      aUsedBundles.add (sBundleName);
+  }
+
+  @Override
+  @Nullable
+  protected String internalGetOverrideString (@Nonnull final Enum <?> aEnum,
+                                              @Nonnull @PropertyKey final String sID,
+                                              @Nonnull final Locale aContentLocale)
+  {
+    if (!m_bUseResourceBundleCache)
+      return internalGetOverrideString (sID, aContentLocale);
+
+    final EnumTexts aTexts = _getEnumTexts (aEnum, aContentLocale);
+    final int nIndex = aEnum.ordinal ();
+    final String ret = aTexts.m_aOverrideTexts[nIndex];
+    if (ret != null)
+      _markUsed (m_aUsedOverrideBundles, aTexts.m_aOverrideBundleNames[nIndex]);
+    return ret;
+  }
+
+  @Override
+  @Nullable
+  protected String internalGetOverrideString (@Nonnull @PropertyKey final String sID,
+                                              @Nonnull final Locale aContentLocale)
+  {
+    final String [] aTexts = new String [1];
+    final String [] aBundleNames = new String [1];
+    _resolve (PREFIX_OVERRIDE,
+              sID,
+              LocaleHelper.getCalculatedLocaleListForResolving (aContentLocale),
+              aTexts,
+              aBundleNames,
+              0);
+    if (aTexts[0] != null)
+      _markUsed (m_aUsedOverrideBundles, aBundleNames[0]);
+    return aTexts[0];
+  }
+
+  @Override
+  @Nullable
+  protected String internalGetFallbackString (@Nonnull final Enum <?> aEnum,
+                                              @Nonnull @PropertyKey final String sID,
+                                              @Nonnull final Locale aContentLocale)
+  {
+    if (!m_bUseResourceBundleCache)
+      return internalGetFallbackString (sID, aContentLocale);
+
+    final EnumTexts aTexts = _getEnumTexts (aEnum, aContentLocale);
+    final int nIndex = aEnum.ordinal ();
+    final String ret = aTexts.m_aFallbackTexts[nIndex];
+    if (ret != null)
+    {
+      _markUsed (m_aUsedFallbackBundles, aTexts.m_aFallbackBundleNames[nIndex]);
+      return ret;
+    }
+    return _onFallbackFailed (sID, aContentLocale);
   }
 
   @Override
@@ -166,20 +321,25 @@ public class EnumTextResolverWithPropertiesOverrideAndFallback extends AbstractE
   protected String internalGetFallbackString (@Nonnull @PropertyKey final String sID,
                                               @Nonnull final Locale aContentLocale)
   {
-    // Try all possible locales of the passed locale
-    for (final Locale aLocale : LocaleHelper.getCalculatedLocaleListForResolving (aContentLocale))
+    final String [] aTexts = new String [1];
+    final String [] aBundleNames = new String [1];
+    _resolve (PREFIX_FALLBACK,
+              sID,
+              LocaleHelper.getCalculatedLocaleListForResolving (aContentLocale),
+              aTexts,
+              aBundleNames,
+              0);
+    if (aTexts[0] != null)
     {
-      // Explicitly use a bundle name containing the locale in the base name to
-      // avoid strange fallback behaviour to the default locale
-      final String sBundleName = PREFIX_FALLBACK + aLocale.toString ();
-      final String ret = ResourceBundleHelper.getString (_getResourceBundle (sBundleName, aLocale), sID);
-      if (ret != null)
-      {
-        m_aRWLock.writeLocked ( () -> m_aUsedFallbackBundles.add (sBundleName));
-        return ret;
-      }
+      _markUsed (m_aUsedFallbackBundles, aBundleNames[0]);
+      return aTexts[0];
     }
+    return _onFallbackFailed (sID, aContentLocale);
+  }
 
+  @Nullable
+  private static String _onFallbackFailed (@Nonnull final String sID, @Nonnull final Locale aContentLocale)
+  {
     s_aStatsFailed.increment (PREFIX_FALLBACK + aContentLocale.toString () + ':' + sID);
     if (GlobalDebug.isDebugMode ())
     {
@@ -200,7 +360,7 @@ public class EnumTextResolverWithPropertiesOverrideAndFallback extends AbstractE
   @ReturnsMutableCopy
   public ICommonsSet <String> getAllUsedOverrideBundleNames ()
   {
-    return m_aRWLock.readLocked ( () -> m_aUsedOverrideBundles.getClone ());
+    return new CommonsHashSet <> (m_aUsedOverrideBundles);
   }
 
   /**
@@ -211,9 +371,14 @@ public class EnumTextResolverWithPropertiesOverrideAndFallback extends AbstractE
   @ReturnsMutableCopy
   public ICommonsSet <String> getAllUsedFallbackBundleNames ()
   {
-    return m_aRWLock.readLocked ( () -> m_aUsedFallbackBundles.getClone ());
+    return new CommonsHashSet <> (m_aUsedFallbackBundles);
   }
 
+  /**
+   * Clear all cached resource bundles and all pre-resolved enum texts. Call
+   * this method after the underlying resource bundles changed, so that the
+   * texts are resolved again upon the next request.
+   */
   public void clearCache ()
   {
     m_aRWLock.writeLocked ( () -> {
@@ -221,6 +386,7 @@ public class EnumTextResolverWithPropertiesOverrideAndFallback extends AbstractE
       m_aUsedOverrideBundles.clear ();
       m_aUsedFallbackBundles.clear ();
       m_aResourceBundleCache.clear ();
+      m_aEnumTexts = new EnumTextsValue ();
     });
 
     if (s_aLogger.isDebugEnabled ())
@@ -0,0 +1,216 @@
+/**
+ * Copyright (C) 2014-2017 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.text.util;
+
+import java.text.MessageFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Cache for compiled {@link MessageFormat} patterns used by
+ * {@link TextHelper}. Patterns that only consist of text and simple
+ * <code>{n}</code> placeholders are formatted without {@link MessageFormat} if
+ * no argument needs locale specific formatting. All other patterns are parsed
+ * only once per locale, and each thread works on its own clone, because
+ * {@link MessageFormat} is not thread-safe.
+ *
+ * @author Philip Helger
+ * @since 9.0.0
+ */
+@ThreadSafe
+final class MessageFormatCache
+{
+  /** The maximum number of patterns per locale before the cache is reset */
+  static final int MAX_PATTERNS_PER_LOCALE = 1000;
+
+  /**
+   * A pattern consisting only of text and <code>{n}</code> placeholders.
+   */
+  @Immutable
+  private static final class SimplePattern
+  {
+    // Literal text before each placeholder, plus the trailing text
+    private final String [] m_aTexts;
+    private final int [] m_aArgIndices;
+
+    SimplePattern (@Nonnull final String [] aTexts, @Nonnull final int [] aArgIndices)
+    {
+      m_aTexts = aTexts;
+      m_aArgIndices = aArgIndices;
+    }
+
+    boolean canFormat (@Nonnull final Object [] aArgs)
+    {
+      for (final int nIndex : m_aArgIndices)
+        if (nIndex < aArgs.length)
+        {
+          // Numbers and dates are formatted locale specific by MessageFormat
+          final Object aArg = aArgs[nIndex];
+          if (aArg instanceof Number || aArg instanceof Date)
+            return false;
+        }
+      return true;
+    }
+
+    @Nonnull
+    String format (@Nonnull final Object [] aArgs)
+    {
+      final StringBuilder aSB = new StringBuilder (m_aTexts[0].length () + m_aArgIndices.length * 16);
+      for (int i = 0; i < m_aArgIndices.length; ++i)
+      {
+        aSB.append (m_aTexts[i]);
+        final int nIndex = m_aArgIndices[i];
+        if (nIndex >= aArgs.length)
+        {
+          // Same as MessageFormat
+          aSB.append ('{').append (nIndex).append ('}');
+        }
+        else
+          aSB.append (aArgs[nIndex]);
+      }
+      aSB.append (m_aTexts[m_aArgIndices.length]);
+      return aSB.toString ();
+    }
+  }
+
+  /**
+   * A compiled pattern for a single locale
+   */
+  @ThreadSafe
+  private static final class Entry
+  {
+    private final String m_sPattern;
+    private final Locale m_aLocale;
+    private final SimplePattern m_aSimplePattern;
+    // Lazily created, because it is not needed for most simple patterns
+    private volatile ThreadLocal <MessageFormat> m_aPerThread;
+
+    Entry (@Nonnull final String sPattern, @Nonnull final Locale aLocale)
+    {
+      m_sPattern = sPattern;
+      m_aLocale = aLocale;
+      m_aSimplePattern = _parseSimplePattern (sPattern);
+      if (m_aSimplePattern == null)
+      {
+        // Parse eagerly to throw exceptions on invalid patterns
+        m_aPerThread = _createPerThread ();
+      }
+    }
+
+    @Nonnull
+    private ThreadLocal <MessageFormat> _createPerThread ()
+    {
+      final MessageFormat aPrototype = new MessageFormat (m_sPattern, m_aLocale);
+      return ThreadLocal.withInitial ( () -> (MessageFormat) aPrototype.clone ());
+    }
+
+    @Nonnull
+    String format (@Nonnull final Object [] aArgs)
+    {
+      if (m_aSimplePattern != null && m_aSimplePattern.canFormat (aArgs))
+        return m_aSimplePattern.format (aArgs);
+
+      ThreadLocal <MessageFormat> aPerThread = m_aPerThread;
+      if (aPerThread == null)
+      {
+        // Creating it twice in a race does not harm
+        aPerThread = _createPerThread ();
+        m_aPerThread = aPerThread;
+      }
+      return aPerThread.get ().format (aArgs);
+    }
+  }
+
+  private static final ConcurrentHashMap <Locale, ConcurrentHashMap <String, Entry>> s_aMap = new ConcurrentHashMap <> ();
+
+  private MessageFormatCache ()
+  {}
+
+  /**
+   * Parse a pattern that consists only of text and <code>{n}</code>
+   * placeholders.
+   *
+   * @param sPattern
+   *        The pattern to parse. May not be <code>null</code>.
+   * @return <code>null</code> if the pattern contains anything else, like
+   *         quotes or format types.
+   */
+  @Nullable
+  private static SimplePattern _parseSimplePattern (@Nonnull final String sPattern)
+  {
+    // Quotes have a special meaning
+    if (sPattern.indexOf ('\'') >= 0)
+      return null;
+
+    final int nLen = sPattern.length ();
+    int nCount = 0;
+    for (int i = 0; i < nLen; ++i)
+      if (sPattern.charAt (i) == '{')
+        nCount++;
+
+    final String [] aTexts = new String [nCount + 1];
+    final int [] aArgIndices = new int [nCount];
+    int nStart = 0;
+    for (int n = 0; n < nCount; ++n)
+    {
+      final int nOpen = sPattern.indexOf ('{', nStart);
+      int nClose = nOpen + 1;
+      int nIndex = 0;
+      while (nClose < nLen && sPattern.charAt (nClose) >= '0' && sPattern.charAt (nClose) <= '9')
+      {
+        nIndex = nIndex * 10 + sPattern.charAt (nClose) - '0';
+        // Avoid overflows
+        if (nIndex > 9999)
+          return null;
+        nClose++;
+      }
+      if (nClose == nOpen + 1 || nClose >= nLen || sPattern.charAt (nClose) != '}')
+        return null;
+      aTexts[n] = sPattern.substring (nStart, nOpen);
+      aArgIndices[n] = nIndex;
+      nStart = nClose + 1;
+    }
+    aTexts[nCount] = sPattern.substring (nStart);
+    return new SimplePattern (aTexts, aArgIndices);
+  }
+
+  @Nonnull
+  static String getFormattedText (@Nonnull final Locale aLocale,
+                                  @Nonnull final String sPattern,
+                                  @Nonnull final Object [] aArgs)
+  {
+    ConcurrentHashMap <String, Entry> aPerLocale = s_aMap.get (aLocale);
+    if (aPerLocale == null)
+      aPerLocale = s_aMap.computeIfAbsent (aLocale, k -> new ConcurrentHashMap <> ());
+
+    Entry aEntry = aPerLocale.get (sPattern);
+    if (aEntry == null)
+    {
+      // Keep it bounded - just start over if there are too many patterns
+      if (aPerLocale.size () >= MAX_PATTERNS_PER_LOCALE)
+        aPerLocale.clear ();
+      aEntry = aPerLocale.computeIfAbsent (sPattern, k -> new Entry (k, aLocale));
+    }
+    return aEntry.format (aArgs);
+  }
+}
@@ -34,7 +34,8 @@ import com.helger.commons.text.IMultilingualText;
 import com.helger.commons.text.MultilingualText;
 
 /**
- * Utility methods for formatting text using {@link MessageFormat}.
+ * Utility methods for formatting text using {@link MessageFormat}. Compiled
+ * patterns are cached internally.
  *
  * @author Philip Helger
  */
@@ -67,8 +68,7 @@ public final class TextHelper
       return sText;
     }
 
-    final MessageFormat aMF = new MessageFormat (sText, Locale.getDefault (Locale.Category.FORMAT));
-    return aMF.format (aArgs);
+    return MessageFormatCache.getFormattedText (Locale.getDefault (Locale.Category.FORMAT), sText, aArgs);
   }
 
   @Nullable
@@ -90,8 +90,7 @@ public final class TextHelper
       return sText;
     }
 
-    final MessageFormat aMF = new MessageFormat (sText, aDisplayLocale);
-    return aMF.format (aArgs);
+    return MessageFormatCache.getFormattedText (aDisplayLocale, sText, aArgs);
   }
 
   @Nonnull
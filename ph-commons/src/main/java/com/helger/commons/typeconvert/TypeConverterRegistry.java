@@ -16,7 +16,6 @@
  */
 package com.helger.commons.typeconvert;
 
-import java.lang.ref.WeakReference;
 import java.util.Map;
 
 import javax.annotation.Nonnegative;
@@ -147,22 +146,20 @@ public final class TypeConverterRegistry implements ITypeConverterRegistry
     m_aRWLock.writeLocked ( () -> {
       // Automatically register the destination class, and all parent
       // classes/interfaces
-      for (final WeakReference <Class <?>> aCurWRDstClass : ClassHierarchyCache.getClassHierarchyIterator (aDstClass))
+      for (final Class <?> aCurDstClass : ClassHierarchyCache.getClassHierarchyIterable (aDstClass))
       {
-        final Class <?> aCurDstClass = aCurWRDstClass.get ();
-        if (aCurDstClass != null)
-          if (!aSrcMap.containsKey (aCurDstClass))
-          {
-            if (aSrcMap.put (aCurDstClass, aConverter) != null)
-              s_aLogger.warn ("Overwriting converter from " + aSrcClass + " to " + aCurDstClass);
-            else
-              if (s_aLogger.isTraceEnabled ())
-                s_aLogger.trace ("Registered type converter from '" +
-                                 aSrcClass.toString () +
-                                 "' to '" +
-                                 aCurDstClass.toString () +
-                                 "'");
-          }
+        if (!aSrcMap.containsKey (aCurDstClass))
+        {
+          if (aSrcMap.put (aCurDstClass, aConverter) != null)
+            s_aLogger.warn ("Overwriting converter from " + aSrcClass + " to " + aCurDstClass);
+          else
+            if (s_aLogger.isTraceEnabled ())
+              s_aLogger.trace ("Registered type converter from '" +
+                               aSrcClass.toString () +
+                               "' to '" +
+                               aCurDstClass.toString () +
+                               "'");
+        }
       }
     });
   }
@@ -248,23 +245,19 @@ public final class TypeConverterRegistry implements ITypeConverterRegistry
                                         @Nonnull final ITypeConverterCallback aCallback)
   {
     // For all possible source classes
-    for (final WeakReference <Class <?>> aCurWRSrcClass : ClassHierarchyCache.getClassHierarchyIterator (aSrcClass))
+    for (final Class <?> aCurSrcClass : ClassHierarchyCache.getClassHierarchyIterable (aSrcClass))
     {
-      final Class <?> aCurSrcClass = aCurWRSrcClass.get ();
-      if (aCurSrcClass != null)
+      // Do we have a source converter?
+      final Map <Class <?>, ITypeConverter <?, ?>> aConverterMap = m_aConverter.get (aCurSrcClass);
+      if (aConverterMap != null)
       {
-        // Do we have a source converter?
-        final Map <Class <?>, ITypeConverter <?, ?>> aConverterMap = m_aConverter.get (aCurSrcClass);
-        if (aConverterMap != null)
+        // Check explicit destination classes
+        final ITypeConverter <?, ?> aConverter = aConverterMap.get (aDstClass);
+        if (aConverter != null)
         {
-          // Check explicit destination classes
-          final ITypeConverter <?, ?> aConverter = aConverterMap.get (aDstClass);
-          if (aConverter != null)
-          {
-            // We found a match -> invoke the callback!
-            if (aCallback.call (aCurSrcClass, aDstClass, aConverter).isBreak ())
-              break;
-          }
+          // We found a match -> invoke the callback!
+          if (aCallback.call (aCurSrcClass, aDstClass, aConverter).isBreak ())
+            break;
         }
       }
     }
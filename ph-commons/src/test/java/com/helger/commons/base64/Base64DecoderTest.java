@@ -0,0 +1,301 @@
+/**
+ * Copyright (C) 2014-2017 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.base64;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import javax.annotation.Nonnull;
+
+import org.junit.Test;
+
+import com.helger.commons.io.stream.NonBlockingByteArrayInputStream;
+import com.helger.commons.io.stream.NonBlockingByteArrayOutputStream;
+import com.helger.commons.random.RandomHelper;
+
+/**
+ * Test class for class {@link Base64Decoder} and the streams built on top of
+ * it.
+ *
+ * @author Philip Helger
+ */
+public final class Base64DecoderTest
+{
+  private static byte [] _getRandomBytes (final int nLen)
+  {
+    final byte [] ret = new byte [nLen];
+    RandomHelper.getRandom ().nextBytes (ret);
+    return ret;
+  }
+
+  @Nonnull
+  private static byte [] _getBytes (final String s)
+  {
+    return s.getBytes (StandardCharsets.ISO_8859_1);
+  }
+
+  @Nonnull
+  private static byte [] _readAll (final InputStream aIS, final int nChunkSize) throws IOException
+  {
+    final NonBlockingByteArrayOutputStream aBAOS = new NonBlockingByteArrayOutputStream ();
+    try (final InputStream aCloseMe = aIS)
+    {
+      if (nChunkSize == 0)
+      {
+        // Byte-wise
+        int n;
+        while ((n = aIS.read ()) >= 0)
+          aBAOS.write (n);
+      }
+      else
+      {
+        final byte [] aBuf = new byte [nChunkSize];
+        int n;
+        while ((n = aIS.read (aBuf, 0, nChunkSize)) >= 0)
+          aBAOS.write (aBuf, 0, n);
+      }
+    }
+    return aBAOS.toByteArray ();
+  }
+
+  @Nonnull
+  private static byte [] _writeAll (final byte [] aSrc, final int nOptions, final int nChunkSize) throws IOException
+  {
+    final NonBlockingByteArrayOutputStream aBAOS = new NonBlockingByteArrayOutputStream ();
+    try (final Base64OutputStream aB64OS = new Base64OutputStream (aBAOS, nOptions))
+    {
+      if (nChunkSize == 0)
+      {
+        // Byte-wise
+        for (final byte b : aSrc)
+          aB64OS.write (b);
+      }
+      else
+        for (int i = 0; i < aSrc.length; i += nChunkSize)
+          aB64OS.write (aSrc, i, Math.min (nChunkSize, aSrc.length - i));
+    }
+    return aBAOS.toByteArray ();
+  }
+
+  @Test
+  public void testCompareWithJDK () throws IOException
+  {
+    for (int nLen = 0; nLen < 300; ++nLen)
+    {
+      final byte [] aSrc = _getRandomBytes (nLen);
+      assertArrayEquals (aSrc, Base64Decoder.getBasicDecoder ().getDecoded (java.util.Base64.getEncoder ().encode (aSrc)));
+      assertArrayEquals (aSrc,
+                         Base64Decoder.getUrlSafeDecoder ().getDecoded (java.util.Base64.getUrlEncoder ().encode (aSrc)));
+      // CRLF are whitespaces
+      assertArrayEquals (aSrc,
+                         Base64Decoder.getBasicDecoder ().getDecoded (java.util.Base64.getMimeEncoder ().encode (aSrc)));
+      assertArrayEquals (aSrc, Base64.decode (java.util.Base64.getMimeEncoder ().encode (aSrc)));
+    }
+  }
+
+  @Test
+  public void testCompareWithEncoder () throws IOException
+  {
+    for (final int nOptions : new int [] { Base64.NO_OPTIONS,
+                                           Base64.DO_BREAK_LINES,
+                                           Base64.URL_SAFE,
+                                           Base64.ORDERED | Base64.DO_BREAK_LINES })
+      for (int nLen = 0; nLen < 300; ++nLen)
+      {
+        final byte [] aSrc = _getRandomBytes (nLen);
+        final byte [] aEncoded = Base64Encoder.getInstance (nOptions).getEncoded (aSrc);
+        assertArrayEquals (aSrc, Base64Decoder.getInstance (nOptions).getDecoded (aEncoded));
+
+        // With offset
+        final byte [] aShifted = new byte [aEncoded.length + 7];
+        System.arraycopy (aEncoded, 0, aShifted, 7, aEncoded.length);
+        final byte [] aDst = new byte [Base64Decoder.getMaxDecodedLength (aEncoded.length) + 3];
+        assertEquals (nLen, Base64Decoder.getInstance (nOptions).decode (aShifted, 7, aEncoded.length, aDst, 3));
+        for (int i = 0; i < nLen; ++i)
+          assertEquals (aSrc[i], aDst[3 + i]);
+      }
+  }
+
+  @Test
+  public void testSpecialInput () throws IOException
+  {
+    final Base64Decoder aDecoder = Base64Decoder.getBasicDecoder ();
+
+    // Whitespaces everywhere
+    assertArrayEquals (_getBytes ("ABCD"), aDecoder.getDecoded (_getBytes (" QU\tJD\r\nR A= =\n")));
+    // Decoding stops after padding
+    assertArrayEquals (_getBytes ("A"), aDecoder.getDecoded (_getBytes ("QQ==QUJD")));
+    assertArrayEquals (_getBytes ("AB"), aDecoder.getDecoded (_getBytes ("QUI=QUJD")));
+    // An incomplete quantum at the end is ignored
+    assertArrayEquals (_getBytes ("ABC"), aDecoder.getDecoded (_getBytes ("QUJDRA")));
+    assertArrayEquals (new byte [0], aDecoder.getDecoded (new byte [0]));
+
+    try
+    {
+      aDecoder.getDecoded (_getBytes ("QUJD-UJD"));
+      fail ();
+    }
+    catch (final IOException ex)
+    {
+      assertEquals ("Bad Base64 input character decimal 45 in array position 4", ex.getMessage ());
+    }
+    try
+    {
+      aDecoder.getDecoded (new byte [] { 'Q', 'U', 'J', (byte) 0xc4 });
+      fail ();
+    }
+    catch (final IOException ex)
+    {
+      assertEquals ("Bad Base64 input character decimal 196 in array position 3", ex.getMessage ());
+    }
+
+    // The URL safe alphabet
+    assertArrayEquals (new byte [] { (byte) 0xfb, (byte) 0xff }, Base64Decoder.getUrlSafeDecoder ().getDecoded (_getBytes ("-_8=")));
+  }
+
+  @Test
+  public void testInputStream () throws IOException
+  {
+    for (int nLen = 0; nLen < 400; nLen += 7)
+    {
+      final byte [] aSrc = _getRandomBytes (nLen);
+      final byte [] aEncoded = java.util.Base64.getEncoder ().encode (aSrc);
+      final byte [] aEncodedLines = java.util.Base64.getMimeEncoder (Base64.MAX_LINE_LENGTH, new byte [] { '\n' })
+                                                    .encode (aSrc);
+      final byte [] aEncodedUrl = java.util.Base64.getUrlEncoder ().encode (aSrc);
+
+      for (final int nChunkSize : new int [] { 0, 1, 2, 5, 77, 4096 })
+      {
+        // Decoding
+        assertArrayEquals (aSrc,
+                           _readAll (new Base64InputStream (new NonBlockingByteArrayInputStream (aEncoded)), nChunkSize));
+        assertArrayEquals (aSrc,
+                           _readAll (new Base64InputStream (new NonBlockingByteArrayInputStream (aEncodedLines)),
+                                     nChunkSize));
+        assertArrayEquals (aSrc,
+                           _readAll (new Base64InputStream (new NonBlockingByteArrayInputStream (aEncodedUrl),
+                                                            Base64.DECODE | Base64.URL_SAFE),
+                                     nChunkSize));
+
+        // Encoding
+        assertArrayEquals (aEncoded,
+                           _readAll (new Base64InputStream (new NonBlockingByteArrayInputStream (aSrc), Base64.ENCODE),
+                                     nChunkSize));
+        assertArrayEquals (aEncodedLines,
+                           _readAll (new Base64InputStream (new NonBlockingByteArrayInputStream (aSrc),
+                                                            Base64.ENCODE | Base64.DO_BREAK_LINES),
+                                     nChunkSize));
+        assertArrayEquals (aEncodedUrl,
+                           _readAll (new Base64InputStream (new NonBlockingByteArrayInputStream (aSrc),
+                                                            Base64.ENCODE | Base64.URL_SAFE),
+                                     nChunkSize));
+      }
+    }
+  }
+
+  @Test
+  public void testInputStreamSpecialInput () throws IOException
+  {
+    for (final int nChunkSize : new int [] { 0, 1, 3, 100 })
+    {
+      // Whitespaces and invalid chars are skipped
+      assertArrayEquals (_getBytes ("ABCD"),
+                         _readAll (new Base64InputStream (new NonBlockingByteArrayInputStream (_getBytes (" QU-JD\r\nRA==\n"))),
+                                   nChunkSize));
+      // Reading stops after padding
+      assertArrayEquals (_getBytes ("A"),
+                         _readAll (new Base64InputStream (new NonBlockingByteArrayInputStream (_getBytes ("QQ==QUJD"))),
+                                   nChunkSize));
+
+      try
+      {
+        _readAll (new Base64InputStream (new NonBlockingByteArrayInputStream (_getBytes ("QUJDRA"))), nChunkSize);
+        fail ();
+      }
+      catch (final IOException ex)
+      {
+        assertEquals ("Improperly padded Base64 input.", ex.getMessage ());
+      }
+    }
+
+    // Nothing to read
+    try (final Base64InputStream aIS = new Base64InputStream (new NonBlockingByteArrayInputStream (_getBytes ("QUJD"))))
+    {
+      assertEquals (0, aIS.read (new byte [5], 0, 0));
+      assertEquals ('A', aIS.read ());
+    }
+  }
+
+  @Test
+  public void testOutputStream () throws IOException
+  {
+    for (int nLen = 0; nLen < 400; nLen += 7)
+    {
+      final byte [] aSrc = _getRandomBytes (nLen);
+      final byte [] aEncodedMime = java.util.Base64.getMimeEncoder ().encode (aSrc);
+      final byte [] aEncodedUrl = java.util.Base64.getUrlEncoder ().encode (aSrc);
+
+      for (final int nChunkSize : new int [] { 0, 1, 2, 5, 77, 4096 })
+      {
+        assertArrayEquals (aSrc, _writeAll (aEncodedMime, Base64.DECODE, nChunkSize));
+        assertArrayEquals (aSrc, _writeAll (aEncodedUrl, Base64.DECODE | Base64.URL_SAFE, nChunkSize));
+      }
+    }
+  }
+
+  @Test
+  public void testOutputStreamSpecialInput () throws IOException
+  {
+    for (final int nChunkSize : new int [] { 0, 1, 3, 100 })
+    {
+      // Decoding continues after padding
+      assertArrayEquals (_getBytes ("AABC"), _writeAll (_getBytes ("QQ==\nQUJD"), Base64.DECODE, nChunkSize));
+
+      try
+      {
+        _writeAll (_getBytes ("QUJD-UJD"), Base64.DECODE, nChunkSize);
+        fail ();
+      }
+      catch (final IOException ex)
+      {
+        assertEquals ("Invalid character in Base64 data.", ex.getMessage ());
+      }
+
+      try
+      {
+        _writeAll (_getBytes ("QUJDRA"), Base64.DECODE, nChunkSize);
+        fail ();
+      }
+      catch (final IOException ex)
+      {
+        assertEquals ("Base64 input not properly padded.", ex.getMessage ());
+      }
+    }
+  }
+
+  @Test
+  public void testToString ()
+  {
+    assertTrue (Base64Decoder.getBasicDecoder ().toString ().contains ("standard"));
+  }
+}
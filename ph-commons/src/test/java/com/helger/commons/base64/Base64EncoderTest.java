@@ -0,0 +1,161 @@
+/**
+ * Copyright (C) 2014-2017 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.base64;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import com.helger.commons.io.stream.NonBlockingByteArrayOutputStream;
+import com.helger.commons.random.RandomHelper;
+
+/**
+ * Test class for class {@link Base64Encoder}.
+ *
+ * @author Philip Helger
+ */
+public final class Base64EncoderTest
+{
+  private static byte [] _getRandomBytes (final int nLen)
+  {
+    final byte [] ret = new byte [nLen];
+    RandomHelper.getRandom ().nextBytes (ret);
+    return ret;
+  }
+
+  @Test
+  public void testCompareWithJDK ()
+  {
+    for (int nLen = 0; nLen < 300; ++nLen)
+    {
+      final byte [] aSrc = _getRandomBytes (nLen);
+      assertArrayEquals (java.util.Base64.getEncoder ().encode (aSrc),
+                         Base64Encoder.getBasicEncoder ().getEncoded (aSrc));
+      assertArrayEquals (java.util.Base64.getUrlEncoder ().encode (aSrc),
+                         Base64Encoder.getUrlSafeEncoder ().getEncoded (aSrc));
+      assertArrayEquals (java.util.Base64.getMimeEncoder ().encode (aSrc),
+                         Base64Encoder.getMimeEncoder ().getEncoded (aSrc));
+      assertEquals (java.util.Base64.getMimeEncoder ().encode (aSrc).length,
+                    Base64Encoder.getMimeEncoder ().getEncodedLength (nLen));
+    }
+  }
+
+  @Test
+  public void testEncodedLengthOverflow ()
+  {
+    // Largest length that still fits into an int
+    assertEquals (2147483644, Base64Encoder.getBasicEncoder ().getEncodedLength (1610612733));
+
+    for (final int nLen : new int [] { 1610612734, 1700000000, Integer.MAX_VALUE })
+      try
+      {
+        Base64Encoder.getBasicEncoder ().getEncodedLength (nLen);
+        fail ();
+      }
+      catch (final IllegalArgumentException ex)
+      {
+        // expected
+      }
+
+    try
+    {
+      // Fits without but not with line separators
+      Base64Encoder.getMimeEncoder ().getEncodedLength (1600000000);
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {
+      // expected
+    }
+  }
+
+  @Test
+  public void testCompareWithStream () throws IOException
+  {
+    for (final int nOptions : new int [] { Base64.NO_OPTIONS,
+                                           Base64.DO_BREAK_LINES,
+                                           Base64.URL_SAFE,
+                                           Base64.ORDERED | Base64.DO_BREAK_LINES })
+      for (int nLen = 0; nLen < 300; ++nLen)
+      {
+        final byte [] aSrc = _getRandomBytes (nLen);
+
+        // Byte-wise stream encoding
+        final NonBlockingByteArrayOutputStream aBAOS = new NonBlockingByteArrayOutputStream ();
+        try (final Base64OutputStream aB64OS = new Base64OutputStream (aBAOS, Base64.ENCODE | nOptions))
+        {
+          for (final byte b : aSrc)
+            aB64OS.write (b);
+        }
+        final byte [] aExpected = aBAOS.toByteArray ();
+
+        assertArrayEquals (aExpected, Base64Encoder.getInstance (nOptions).getEncoded (aSrc));
+        assertArrayEquals (aExpected, Base64.encodeBytesToBytes (aSrc, 0, nLen, nOptions));
+        assertEquals (aExpected.length, Base64Encoder.getInstance (nOptions).getEncodedLength (nLen));
+
+        // Bulk stream encoding
+        aBAOS.reset ();
+        try (final Base64OutputStream aB64OS = new Base64OutputStream (aBAOS, Base64.ENCODE | nOptions))
+        {
+          aB64OS.write (aSrc, 0, Math.min (1, nLen));
+          if (nLen > 1)
+            aB64OS.write (aSrc, 1, nLen - 1);
+        }
+        assertArrayEquals (aExpected, aBAOS.toByteArray ());
+      }
+  }
+
+  @Test
+  public void testBuffers ()
+  {
+    final byte [] aSrc = "Hello Base64 buffers".getBytes (StandardCharsets.ISO_8859_1);
+    final String sExpected = java.util.Base64.getEncoder ().encodeToString (aSrc);
+    final Base64Encoder aEncoder = Base64Encoder.getBasicEncoder ();
+
+    // Offsets in source and destination
+    final char [] aChars = new char [sExpected.length () + 5];
+    assertEquals (sExpected.length (), aEncoder.encode (aSrc, 0, aSrc.length, aChars, 5));
+    assertEquals (sExpected, new String (aChars, 5, sExpected.length ()));
+
+    // Heap and direct buffers
+    for (final boolean bDirect : new boolean [] { false, true })
+    {
+      final ByteBuffer aSrcBuf = bDirect ? ByteBuffer.allocateDirect (aSrc.length) : ByteBuffer.allocate (aSrc.length);
+      aSrcBuf.put (aSrc).flip ();
+      final ByteBuffer aDstBuf = bDirect ? ByteBuffer.allocateDirect (100) : ByteBuffer.allocate (100);
+      aEncoder.encode (aSrcBuf, aDstBuf);
+      assertEquals (0, aSrcBuf.remaining ());
+      aDstBuf.flip ();
+      final byte [] aEncoded = new byte [aDstBuf.remaining ()];
+      aDstBuf.get (aEncoded);
+      assertEquals (sExpected, new String (aEncoded, StandardCharsets.ISO_8859_1));
+
+      aSrcBuf.rewind ();
+      final CharBuffer aCharBuf = CharBuffer.allocate (100);
+      aEncoder.encode (aSrcBuf, aCharBuf);
+      aCharBuf.flip ();
+      assertEquals (sExpected, aCharBuf.toString ());
+    }
+  }
+}
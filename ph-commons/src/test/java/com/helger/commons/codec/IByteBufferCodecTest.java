@@ -0,0 +1,435 @@
+/**
+ * Copyright (C) 2014-2017 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.codec;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.junit.Test;
+
+import com.helger.commons.collection.ArrayHelper;
+import com.helger.commons.io.stream.NonBlockingByteArrayInputStream;
+import com.helger.commons.io.stream.NonBlockingByteArrayOutputStream;
+import com.helger.commons.io.stream.StreamHelper;
+import com.helger.commons.random.RandomHelper;
+
+/**
+ * Test class for class {@link IByteBufferCodec} and the stream adapters.
+ *
+ * @author Philip Helger
+ */
+public final class IByteBufferCodecTest
+{
+  /**
+   * @return An input stream that never returns bytes from before and after the
+   *         split index in one read call.
+   */
+  @Nonnull
+  private static InputStream _getSplitInputStream (@Nonnull final byte [] aSrc, final int nSplit)
+  {
+    return new SequenceInputStream (new NonBlockingByteArrayInputStream (aSrc, 0, nSplit),
+                                    new NonBlockingByteArrayInputStream (aSrc, nSplit, aSrc.length - nSplit));
+  }
+
+  @Nonnull
+  private static byte [] _codeViaOutputStreamSplit (@Nonnull final IByteBufferCoder aCoder,
+                                                    @Nonnull final byte [] aSrc,
+                                                    final int nSplit,
+                                                    final int nBufferSize) throws IOException
+  {
+    final NonBlockingByteArrayOutputStream aBAOS = new NonBlockingByteArrayOutputStream ();
+    try (final ByteBufferCoderOutputStream aOS = new ByteBufferCoderOutputStream (aBAOS, aCoder, nBufferSize))
+    {
+      aOS.write (aSrc, 0, nSplit);
+      aOS.write (aSrc, nSplit, aSrc.length - nSplit);
+    }
+    return aBAOS.toByteArray ();
+  }
+
+  @Nonnull
+  private static byte [] _codeViaInputStreamSplit (@Nonnull final IByteBufferCoder aCoder,
+                                                   @Nonnull final byte [] aSrc,
+                                                   final int nSplit,
+                                                   final int nBufferSize) throws IOException
+  {
+    try (final ByteBufferCoderInputStream aIS = new ByteBufferCoderInputStream (_getSplitInputStream (aSrc, nSplit),
+                                                                                aCoder,
+                                                                                nBufferSize))
+    {
+      return StreamHelper.getAllBytes (aIS);
+    }
+  }
+
+  @Nonnull
+  private static byte [] _codeViaChannelSplit (@Nonnull final IByteBufferCoder aCoder,
+                                               @Nonnull final byte [] aSrc,
+                                               final int nSplit,
+                                               final int nBufferSize) throws IOException
+  {
+    final NonBlockingByteArrayOutputStream aBAOS = new NonBlockingByteArrayOutputStream ();
+    try (final ReadableByteChannel aChannel = new ByteBufferCoderReadableByteChannel (Channels.newChannel (_getSplitInputStream (aSrc,
+                                                                                                                                  nSplit)),
+                                                                                      aCoder,
+                                                                                      ByteBuffer.allocate (nBufferSize)))
+    {
+      final ByteBuffer aDst = ByteBuffer.allocate (3);
+      while (aChannel.read (aDst) >= 0)
+      {
+        aDst.flip ();
+        while (aDst.hasRemaining ())
+          aBAOS.write (aDst.get ());
+        aDst.clear ();
+      }
+    }
+    return aBAOS.toByteArray ();
+  }
+
+  /**
+   * Encode and decode the passed bytes with all three adapters, with the input
+   * being split at every byte boundary.
+   *
+   * @param aCodec
+   *        The codec to test
+   * @param aSrc
+   *        The bytes to encode
+   * @param aDecoder
+   *        The byte array based decoder used to cross-check the encoded bytes
+   * @param aEncoder
+   *        The optional byte array based encoder, that must create the same
+   *        result.
+   */
+  private static void _testSplit (@Nonnull final IByteBufferCodec aCodec,
+                                  @Nonnull final byte [] aSrc,
+                                  @Nonnull final IByteArrayDecoder aDecoder,
+                                  @Nullable final IByteArrayEncoder aEncoder) throws IOException
+  {
+    final byte [] aEncoded = _codeViaOutputStreamSplit (aCodec.newByteBufferEncoder (), aSrc, 0, 1024);
+    if (aEncoder != null)
+      assertArrayEquals (aEncoder.getEncoded (aSrc), aEncoded);
+    if (aSrc.length > 0)
+      assertArrayEquals (aSrc, aDecoder.getDecoded (aEncoded));
+
+    for (final int nBufferSize : new int [] { 1, 4, 1024 })
+    {
+      for (int nSplit = 0; nSplit <= aSrc.length; ++nSplit)
+      {
+        assertArrayEquals (aEncoded,
+                           _codeViaOutputStreamSplit (aCodec.newByteBufferEncoder (), aSrc, nSplit, nBufferSize));
+        assertArrayEquals (aEncoded,
+                           _codeViaInputStreamSplit (aCodec.newByteBufferEncoder (), aSrc, nSplit, nBufferSize));
+        assertArrayEquals (aEncoded, _codeViaChannelSplit (aCodec.newByteBufferEncoder (), aSrc, nSplit, nBufferSize));
+      }
+      for (int nSplit = 0; nSplit <= aEncoded.length; ++nSplit)
+      {
+        assertArrayEquals (aSrc,
+                           _codeViaOutputStreamSplit (aCodec.newByteBufferDecoder (), aEncoded, nSplit, nBufferSize));
+        assertArrayEquals (aSrc,
+                           _codeViaInputStreamSplit (aCodec.newByteBufferDecoder (), aEncoded, nSplit, nBufferSize));
+        assertArrayEquals (aSrc, _codeViaChannelSplit (aCodec.newByteBufferDecoder (), aEncoded, nSplit, nBufferSize));
+      }
+    }
+  }
+
+  @Nonnull
+  private static byte [] _getSplitTestBytes ()
+  {
+    final byte [] aRandom = new byte [40];
+    RandomHelper.getRandom ().nextBytes (aRandom);
+    final byte [] aRun = new byte [150];
+    java.util.Arrays.fill (aRun, (byte) 'x');
+    return ArrayHelper.getConcatenated (ArrayHelper.getConcatenated ("Hallo JÜnit=".getBytes (StandardCharsets.UTF_8),
+                                                                     new byte [] { 0, 0, 0, 0, 0, 1, 2, 2, 2, -1 }),
+                                        ArrayHelper.getConcatenated (aRandom, aRun));
+  }
+
+  private static void _testSplit (@Nonnull final IByteBufferCodec aCodec,
+                                  @Nonnull final IByteArrayDecoder aDecoder,
+                                  @Nullable final IByteArrayEncoder aEncoder) throws IOException
+  {
+    _testSplit (aCodec, new byte [0], aDecoder, aEncoder);
+    _testSplit (aCodec, new byte [] { 'a' }, aDecoder, aEncoder);
+    _testSplit (aCodec, "abcde".getBytes (StandardCharsets.ISO_8859_1), aDecoder, aEncoder);
+    _testSplit (aCodec, _getSplitTestBytes (), aDecoder, aEncoder);
+
+    // Large input with the odd chunks of the default adapters
+    final byte [] aRandomBytes = new byte [20000];
+    RandomHelper.getRandom ().nextBytes (aRandomBytes);
+    final byte [] aEncoded = _codeViaOutputStream (aCodec.newByteBufferEncoder (), aRandomBytes, 5);
+    if (aEncoder != null)
+      assertArrayEquals (aEncoder.getEncoded (aRandomBytes), aEncoded);
+    assertArrayEquals (aRandomBytes, aDecoder.getDecoded (aEncoded));
+    assertArrayEquals (aEncoded, _codeViaInputStream (aCodec.newByteBufferEncoder (), aRandomBytes, 5));
+    assertArrayEquals (aEncoded, _codeViaChannel (aCodec.newByteBufferEncoder (), aRandomBytes, 5));
+    assertArrayEquals (aRandomBytes, _codeViaOutputStream (aCodec.newByteBufferDecoder (), aEncoded, 5));
+    assertArrayEquals (aRandomBytes, _codeViaInputStream (aCodec.newByteBufferDecoder (), aEncoded, 5));
+    assertArrayEquals (aRandomBytes, _codeViaChannel (aCodec.newByteBufferDecoder (), aEncoded, 5));
+  }
+
+  @Nonnull
+  private static byte [] _codeViaOutputStream (@Nonnull final IByteBufferCoder aCoder,
+                                               @Nonnull final byte [] aSrc,
+                                               final int nBufferSize) throws IOException
+  {
+    final NonBlockingByteArrayOutputStream aBAOS = new NonBlockingByteArrayOutputStream ();
+    try (final ByteBufferCoderOutputStream aOS = new ByteBufferCoderOutputStream (aBAOS, aCoder, nBufferSize))
+    {
+      // Write in odd chunks
+      int nOfs = 0;
+      while (nOfs < aSrc.length)
+      {
+        final int nLen = Math.min (7, aSrc.length - nOfs);
+        aOS.write (aSrc, nOfs, nLen);
+        nOfs += nLen;
+      }
+    }
+    return aBAOS.toByteArray ();
+  }
+
+  @Nonnull
+  private static byte [] _codeViaInputStream (@Nonnull final IByteBufferCoder aCoder,
+                                              @Nonnull final byte [] aSrc,
+                                              final int nBufferSize) throws IOException
+  {
+    try (final ByteBufferCoderInputStream aIS = new ByteBufferCoderInputStream (new NonBlockingByteArrayInputStream (aSrc),
+                                                                                aCoder,
+                                                                                nBufferSize))
+    {
+      return StreamHelper.getAllBytes (aIS);
+    }
+  }
+
+  @Nonnull
+  private static byte [] _codeViaChannel (@Nonnull final IByteBufferCoder aCoder,
+                                          @Nonnull final byte [] aSrc,
+                                          final int nBufferSize) throws IOException
+  {
+    final NonBlockingByteArrayOutputStream aBAOS = new NonBlockingByteArrayOutputStream ();
+    try (final ReadableByteChannel aChannel = new ByteBufferCoderReadableByteChannel (Channels.newChannel (new NonBlockingByteArrayInputStream (aSrc)),
+                                                                                      aCoder,
+                                                                                      ByteBuffer.allocateDirect (nBufferSize)))
+    {
+      // Use a tiny destination buffer to test the staging
+      final ByteBuffer aDst = ByteBuffer.allocate (1);
+      while (aChannel.read (aDst) >= 0)
+      {
+        aDst.flip ();
+        while (aDst.hasRemaining ())
+          aBAOS.write (aDst.get ());
+        aDst.clear ();
+      }
+    }
+    return aBAOS.toByteArray ();
+  }
+
+  private static void _testCodec (@Nonnull final IByteArrayCodec aCodec, @Nonnull final byte [] aSrc) throws IOException
+  {
+    final IByteBufferCodec aBBCodec = (IByteBufferCodec) aCodec;
+    final byte [] aExpectedEncoded = aCodec.getEncoded (aSrc);
+
+    for (final int nBufferSize : new int [] { 2, 5, 1024 })
+    {
+      final byte [] aEncoded = _codeViaOutputStream (aBBCodec.newByteBufferEncoder (), aSrc, nBufferSize);
+      assertArrayEquals (aExpectedEncoded, aEncoded);
+      assertArrayEquals (aSrc, aCodec.getDecoded (aEncoded));
+      assertArrayEquals (aSrc, _codeViaOutputStream (aBBCodec.newByteBufferDecoder (), aEncoded, nBufferSize));
+
+      assertArrayEquals (aExpectedEncoded, _codeViaInputStream (aBBCodec.newByteBufferEncoder (), aSrc, nBufferSize));
+      assertArrayEquals (aSrc, _codeViaInputStream (aBBCodec.newByteBufferDecoder (), aEncoded, nBufferSize));
+
+      assertArrayEquals (aExpectedEncoded, _codeViaChannel (aBBCodec.newByteBufferEncoder (), aSrc, nBufferSize));
+      assertArrayEquals (aSrc, _codeViaChannel (aBBCodec.newByteBufferDecoder (), aEncoded, nBufferSize));
+    }
+  }
+
+  private static void _testCodec (@Nonnull final IByteArrayCodec aCodec) throws IOException
+  {
+    _testCodec (aCodec, "Hallo JÜnit".getBytes (StandardCharsets.UTF_8));
+
+    final byte [] aRandomBytes = new byte [20000];
+    RandomHelper.getRandom ().nextBytes (aRandomBytes);
+    _testCodec (aCodec, aRandomBytes);
+  }
+
+  @Test
+  public void testBase16 () throws IOException
+  {
+    final Base16Codec aCodec = new Base16Codec ();
+    _testCodec (aCodec);
+    assertArrayEquals (new byte [0], _codeViaInputStream (aCodec.newByteBufferEncoder (), new byte [0], 16));
+  }
+
+  @Test
+  public void testFlate () throws IOException
+  {
+    _testCodec (new FlateCodec ());
+  }
+
+  @Test
+  public void testBase32 () throws IOException
+  {
+    Base32Codec aCodec = new Base32Codec ();
+    _testCodec (aCodec);
+    _testSplit (aCodec, aCodec, aCodec);
+
+    aCodec = new Base32Codec (true);
+    _testSplit (aCodec, aCodec, aCodec);
+
+    aCodec = new Base32Codec ().setAddPaddding (false);
+    _testSplit (aCodec, aCodec, aCodec);
+  }
+
+  @Test
+  public void testASCII85 () throws IOException
+  {
+    final ASCII85Codec aCodec = new ASCII85Codec ();
+    _testSplit (aCodec, aCodec, null);
+
+    assertEquals ("87cURD]i,\"Ebo7~>",
+                  new String (_codeViaInputStream (aCodec.newByteBufferEncoder (),
+                                                   "Hello World".getBytes (StandardCharsets.ISO_8859_1),
+                                                   16),
+                              StandardCharsets.ISO_8859_1));
+    assertEquals ("z!!~>",
+                  new String (_codeViaInputStream (aCodec.newByteBufferEncoder (), new byte [5], 16),
+                              StandardCharsets.ISO_8859_1));
+
+    // With start sequence and whitespaces, split at every position
+    final byte [] aEncoded = "<~87cURD]i,\n\"Ebo7~>".getBytes (StandardCharsets.ISO_8859_1);
+    for (int nSplit = 0; nSplit <= aEncoded.length; ++nSplit)
+      assertArrayEquals ("Hello World".getBytes (StandardCharsets.ISO_8859_1),
+                         _codeViaInputStreamSplit (aCodec.newByteBufferDecoder (), aEncoded, nSplit, 1));
+  }
+
+  @Test
+  public void testQuotedPrintable () throws IOException
+  {
+    final QuotedPrintableCodec aCodec = new QuotedPrintableCodec ();
+    _testCodec (aCodec);
+    _testSplit (aCodec, aCodec, aCodec);
+  }
+
+  @Test
+  public void testRunLength () throws IOException
+  {
+    final RunLengthCodec aCodec = new RunLengthCodec ();
+    _testSplit (aCodec, aCodec, null);
+
+    // Runs and literals longer than the maximum block size
+    final byte [] aSrc = new byte [1000];
+    for (int i = 0; i < 300; ++i)
+      aSrc[i] = (byte) i;
+    final byte [] aEncoded = _codeViaInputStream (aCodec.newByteBufferEncoder (), aSrc, 16);
+    assertEquals (RunLengthCodec.RUN_LENGTH_EOD, aEncoded[aEncoded.length - 1] & 0xff);
+    assertArrayEquals (aSrc, aCodec.getDecoded (aEncoded));
+    assertArrayEquals (aSrc, _codeViaInputStream (aCodec.newByteBufferDecoder (), aEncoded, 16));
+  }
+
+  @Test
+  public void testLZW () throws IOException
+  {
+    final LZWCodec aCodec = new LZWCodec ();
+    _testSplit (aCodec, aCodec, aCodec);
+
+    // Fill the code table a few times
+    final byte [] aSrc = new byte [100000];
+    for (int i = 0; i < aSrc.length; ++i)
+      aSrc[i] = (byte) (i % 7 == 0 ? i / 13 : i % 5);
+    final byte [] aEncoded = aCodec.getEncoded (aSrc);
+    for (final int nBufferSize : new int [] { 1, 1000 })
+    {
+      assertArrayEquals (aEncoded, _codeViaInputStream (aCodec.newByteBufferEncoder (), aSrc, nBufferSize));
+      assertArrayEquals (aSrc, _codeViaInputStream (aCodec.newByteBufferDecoder (), aEncoded, nBufferSize));
+    }
+  }
+
+  @Test
+  public void testCloseCoder () throws IOException
+  {
+    final IByteBufferEncoder aEncoder = new Base16Codec ().newByteBufferEncoder ();
+    final int [] aCloseCount = new int [1];
+    final IByteBufferCoder aCoder = new IByteBufferCoder ()
+    {
+      @Nonnull
+      public ECodecResult code (@Nonnull final ByteBuffer aSrc, @Nonnull final ByteBuffer aDst, final boolean bEndOfInput)
+      {
+        return aEncoder.code (aSrc, aDst, bEndOfInput);
+      }
+
+      @Override
+      public void close ()
+      {
+        aCloseCount[0]++;
+      }
+    };
+    final byte [] aSrc = "abc".getBytes (StandardCharsets.ISO_8859_1);
+
+    // Each adapter closes the coder exactly once
+    _codeViaOutputStream (aCoder, aSrc, 16);
+    assertEquals (1, aCloseCount[0]);
+    _codeViaInputStream (aCoder, aSrc, 16);
+    assertEquals (2, aCloseCount[0]);
+    _codeViaChannel (aCoder, aSrc, 16);
+    assertEquals (3, aCloseCount[0]);
+
+    final ByteBufferCoderInputStream aIS = new ByteBufferCoderInputStream (new NonBlockingByteArrayInputStream (aSrc),
+                                                                           aCoder);
+    aIS.close ();
+    aIS.close ();
+    assertEquals (4, aCloseCount[0]);
+
+    // Closing the flate coders more than once is fine
+    final IByteBufferEncoder aFlateEncoder = new FlateCodec ().newByteBufferEncoder ();
+    aFlateEncoder.close ();
+    aFlateEncoder.close ();
+    final IByteBufferDecoder aFlateDecoder = new FlateCodec ().newByteBufferDecoder ();
+    aFlateDecoder.close ();
+    aFlateDecoder.close ();
+  }
+
+  @Test
+  public void testReset ()
+  {
+    final IByteBufferDecoder aDecoder = new Base16Codec ().newByteBufferDecoder ();
+    final ByteBuffer aDst = ByteBuffer.allocate (10);
+    assertEquals (ECodecResult.UNDERFLOW,
+                  aDecoder.decode (ByteBuffer.wrap ("4".getBytes (StandardCharsets.ISO_8859_1)), aDst, false));
+    aDecoder.reset ();
+    assertEquals (ECodecResult.UNDERFLOW,
+                  aDecoder.decode (ByteBuffer.wrap ("4142".getBytes (StandardCharsets.ISO_8859_1)), aDst, true));
+    assertEquals (2, aDst.position ());
+    assertEquals ('A', aDst.get (0));
+    assertEquals ('B', aDst.get (1));
+  }
+
+  @Test (expected = DecodeException.class)
+  public void testBase16PrematureEnd ()
+  {
+    new Base16Codec ().newByteBufferDecoder ()
+                      .decode (ByteBuffer.wrap ("414".getBytes (StandardCharsets.ISO_8859_1)), ByteBuffer.allocate (10), true);
+  }
+}
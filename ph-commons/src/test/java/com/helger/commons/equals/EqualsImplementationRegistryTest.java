@@ -16,6 +16,12 @@
  */
 package com.helger.commons.equals;
 
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
@@ -26,6 +32,7 @@ import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 
 import com.helger.commons.collection.ArrayHelper;
+import com.helger.commons.lang.GenericReflection;
 import com.helger.commons.mock.CommonsAssert;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
@@ -37,6 +44,24 @@ import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
  */
 public final class EqualsImplementationRegistryTest
 {
+  private static final class MockValue
+  {
+    private final String m_sValue;
+
+    MockValue (final String sValue)
+    {
+      m_sValue = sValue;
+    }
+  }
+
+  private static final class MockSubValue implements Comparable <MockSubValue>
+  {
+    public int compareTo (final MockSubValue o)
+    {
+      return 0;
+    }
+  }
+
   @Test
   @SuppressFBWarnings ("EC_BAD_ARRAY_COMPARE")
   public void testEquals () throws ParserConfigurationException
@@ -62,4 +87,54 @@ public final class EqualsImplementationRegistryTest
     CommonsAssert.assertEquals (ArrayHelper.newArray (ArrayHelper.newArray (d1)),
                                 ArrayHelper.newArray (ArrayHelper.newArray (d2)));
   }
+
+  @Test
+  public void testRegistrationChangesResolvedImplementation ()
+  {
+    final EqualsImplementationRegistry aRegistry = EqualsImplementationRegistry.getInstance ();
+    final MockValue a = new MockValue ("a");
+    final MockValue b = new MockValue ("a");
+
+    // Resolved as direct equals
+    assertNull (aRegistry.getBestMatchingEqualsImplementation (MockValue.class));
+    assertFalse (EqualsImplementationRegistry.areEqual (a, b));
+
+    aRegistry.registerEqualsImplementation (MockValue.class, (x, y) -> x.m_sValue.equals (y.m_sValue));
+    try
+    {
+      assertNotNull (aRegistry.getBestMatchingEqualsImplementation (MockValue.class));
+      assertTrue (EqualsImplementationRegistry.areEqual (a, b));
+    }
+    finally
+    {
+      assertTrue (aRegistry.unregisterEqualsImplementation (MockValue.class).isChanged ());
+    }
+    assertFalse (aRegistry.unregisterEqualsImplementation (MockValue.class).isChanged ());
+    assertNull (aRegistry.getBestMatchingEqualsImplementation (MockValue.class));
+    assertFalse (EqualsImplementationRegistry.areEqual (a, b));
+  }
+
+  @Test
+  public void testHierarchicalMatch ()
+  {
+    final EqualsImplementationRegistry aRegistry = EqualsImplementationRegistry.getInstance ();
+    assertNull (aRegistry.getBestMatchingEqualsImplementation (MockSubValue.class));
+    assertFalse (EqualsImplementationRegistry.areEqual (new MockSubValue (), new MockSubValue ()));
+
+    // Registered for an interface only
+    final IEqualsImplementation <Comparable <?>> aImpl = (x, y) -> true;
+    aRegistry.registerEqualsImplementation (GenericReflection.uncheckedCast (Comparable.class), aImpl);
+    try
+    {
+      assertSame (aImpl, aRegistry.getBestMatchingEqualsImplementation (MockSubValue.class));
+      assertTrue (EqualsImplementationRegistry.areEqual (new MockSubValue (), new MockSubValue ()));
+      // String implements equals itself
+      assertNull (aRegistry.getBestMatchingEqualsImplementation (String.class));
+    }
+    finally
+    {
+      aRegistry.unregisterEqualsImplementation (Comparable.class);
+    }
+    assertNull (aRegistry.getBestMatchingEqualsImplementation (MockSubValue.class));
+  }
 }
@@ -0,0 +1,89 @@
+/**
+ * Copyright (C) 2014-2017 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.hashcode;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.helger.commons.annotation.UseDirectEqualsAndHashCode;
+
+/**
+ * Test class for class {@link HashCodeImplementationRegistry}.
+ *
+ * @author Philip Helger
+ */
+public final class HashCodeImplementationRegistryTest
+{
+  private static final class MockValue
+  {
+    @Override
+    public int hashCode ()
+    {
+      return 4711;
+    }
+  }
+
+  @UseDirectEqualsAndHashCode
+  private static final class MockDirect
+  {}
+
+  @Test
+  public void testRegistrationChangesResolvedImplementation ()
+  {
+    final HashCodeImplementationRegistry aRegistry = HashCodeImplementationRegistry.getInstance ();
+    final MockValue aValue = new MockValue ();
+
+    // Resolved as direct hashCode
+    assertNull (aRegistry.getBestMatchingHashCodeImplementation (MockValue.class));
+    assertEquals (4711, HashCodeImplementationRegistry.getHashCode (aValue));
+
+    aRegistry.registerHashCodeImplementation (MockValue.class, x -> 17);
+    try
+    {
+      assertNotNull (aRegistry.getBestMatchingHashCodeImplementation (MockValue.class));
+      assertEquals (17, HashCodeImplementationRegistry.getHashCode (aValue));
+    }
+    finally
+    {
+      assertTrue (aRegistry.unregisterHashCodeImplementation (MockValue.class).isChanged ());
+    }
+    assertFalse (aRegistry.unregisterHashCodeImplementation (MockValue.class).isChanged ());
+    assertNull (aRegistry.getBestMatchingHashCodeImplementation (MockValue.class));
+    assertEquals (4711, HashCodeImplementationRegistry.getHashCode (aValue));
+  }
+
+  @Test
+  public void testSpecialClasses ()
+  {
+    final HashCodeImplementationRegistry aRegistry = HashCodeImplementationRegistry.getInstance ();
+    assertEquals (HashCodeCalculator.HASHCODE_NULL, HashCodeImplementationRegistry.getHashCode (null));
+    assertNull (aRegistry.getBestMatchingHashCodeImplementation (null));
+    assertNull (aRegistry.getBestMatchingHashCodeImplementation (MockDirect.class));
+
+    // Object arrays are hashed by content
+    final Object [] aArray = new Object [] { "a", new String [] { "b" } };
+    assertNotNull (aRegistry.getBestMatchingHashCodeImplementation (Object [].class));
+    assertEquals (Arrays.deepHashCode (aArray), HashCodeImplementationRegistry.getHashCode (aArray));
+  }
+}
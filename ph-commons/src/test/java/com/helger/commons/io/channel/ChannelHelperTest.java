@@ -0,0 +1,117 @@
+/**
+ * Copyright (C) 2014-2017 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.io.channel;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.Test;
+
+import com.helger.commons.io.file.FileOperations;
+import com.helger.commons.io.file.SimpleFileIO;
+import com.helger.commons.io.stream.NonBlockingByteArrayInputStream;
+import com.helger.commons.io.stream.NonBlockingByteArrayOutputStream;
+
+/**
+ * Test class for class {@link ChannelHelper}.
+ *
+ * @author Philip Helger
+ */
+public final class ChannelHelperTest
+{
+  private static byte [] _createData (final int nLength)
+  {
+    final byte [] ret = new byte [nLength];
+    for (int i = 0; i < nLength; ++i)
+      ret[i] = (byte) (i * 7);
+    return ret;
+  }
+
+  @Test
+  public void testChannelCopy () throws IOException
+  {
+    final byte [] aInput = _createData (50000);
+
+    // Memory to memory
+    NonBlockingByteArrayOutputStream aBAOS = new NonBlockingByteArrayOutputStream ();
+    assertEquals (aInput.length,
+                  ChannelHelper.channelCopy (Channels.newChannel (new NonBlockingByteArrayInputStream (aInput)),
+                                             Channels.newChannel (aBAOS)));
+    assertArrayEquals (aInput, aBAOS.toByteArray ());
+
+    final File aFile = File.createTempFile ("channelhelper", ".bin");
+    try
+    {
+      // Memory to file (transferFrom)
+      try (final FileChannel aFC = FileChannel.open (aFile.toPath (), StandardOpenOption.WRITE))
+      {
+        assertEquals (aInput.length,
+                      ChannelHelper.channelCopy (Channels.newChannel (new NonBlockingByteArrayInputStream (aInput)),
+                                                 aFC));
+        assertEquals (aInput.length, aFC.position ());
+      }
+      assertArrayEquals (aInput, SimpleFileIO.getAllFileBytes (aFile));
+
+      // File to memory (transferTo)
+      aBAOS = new NonBlockingByteArrayOutputStream ();
+      try (final FileChannel aFC = FileChannel.open (aFile.toPath (), StandardOpenOption.READ))
+      {
+        aFC.position (10);
+        assertEquals (aInput.length - 10, ChannelHelper.channelCopy (aFC, Channels.newChannel (aBAOS)));
+        assertEquals (aInput.length, aFC.position ());
+      }
+      assertEquals (aInput.length - 10, aBAOS.size ());
+      assertEquals (aInput[10], aBAOS.toByteArray ()[0]);
+    }
+    finally
+    {
+      FileOperations.deleteFile (aFile);
+    }
+  }
+
+  @Test
+  public void testTransferTo () throws IOException
+  {
+    final byte [] aInput = _createData (20000);
+    final File aFile = File.createTempFile ("channelhelper", ".bin");
+    try
+    {
+      SimpleFileIO.writeFile (aFile, aInput);
+      final NonBlockingByteArrayOutputStream aBAOS = new NonBlockingByteArrayOutputStream ();
+      try (final FileChannel aFC = FileChannel.open (aFile.toPath (), StandardOpenOption.READ))
+      {
+        assertEquals (100, ChannelHelper.transferTo (aFC, Channels.newChannel (aBAOS), 100));
+        assertEquals (100, aFC.position ());
+        assertEquals (0, ChannelHelper.transferTo (aFC, Channels.newChannel (aBAOS), 0));
+        // Limited by the file size
+        assertEquals (aInput.length - 100, ChannelHelper.transferTo (aFC, Channels.newChannel (aBAOS), Long.MAX_VALUE));
+        assertEquals (0, ChannelHelper.transferTo (aFC, Channels.newChannel (aBAOS), Long.MAX_VALUE));
+      }
+      assertArrayEquals (aInput, aBAOS.toByteArray ());
+    }
+    finally
+    {
+      FileOperations.deleteFile (aFile);
+    }
+  }
+}
@@ -403,6 +403,14 @@ public final class FileOperationsTest
       _expectedSuccess (FileOperations.copyDirRecursive (fDir, fDir2));
       assertTrue (FileHelper.existsDir (fDir2));
       assertEquals (11, FileHelper.getDirectoryObjectCount (fDir2));
+
+      // Parallel
+      final File fDir3 = new File ("copieddirtest3");
+      _expectedSuccess (FileOperations.copyDirRecursive (fDir, fDir3, 4, null));
+      assertEquals (11, FileHelper.getDirectoryObjectCount (fDir3));
+      assertEquals (10, FileHelper.getDirectoryObjectCount (new File (fDir3, "subdir")));
+      _expectedSuccess (FileOperations.deleteDirRecursive (fDir3, 4, null));
+      assertFalse (FileHelper.existsDir (fDir3));
     }
     finally
     {
@@ -0,0 +1,168 @@
+/**
+ * Copyright (C) 2014-2017 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.io.file;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.util.Random;
+
+import javax.annotation.Nonnull;
+
+import org.junit.Test;
+
+import com.helger.commons.io.EAppend;
+import com.helger.commons.io.stream.ByteBuffersInputStream;
+import com.helger.commons.io.stream.StreamHelper;
+
+/**
+ * Test class for class {@link MappedFile}.
+ *
+ * @author Philip Helger
+ */
+public final class MappedFileTest
+{
+  private static final int SEGMENT_SIZE = MappedFile.MIN_SEGMENT_SIZE;
+
+  @Nonnull
+  private static byte [] _createData (final int nLength)
+  {
+    final byte [] ret = new byte [nLength];
+    new Random (nLength).nextBytes (ret);
+    return ret;
+  }
+
+  @Test
+  public void testWriteAndReadSegmented () throws IOException
+  {
+    final File aFile = File.createTempFile ("mappedfile", ".bin");
+    try
+    {
+      // Spans several segments and write windows
+      final byte [] aData = _createData (5 * SEGMENT_SIZE + 123);
+      try (final MappedFile aMF = MappedFile.openForWriting (aFile, EAppend.TRUNCATE, SEGMENT_SIZE);
+           final OutputStream aOS = aMF.getOutputStream (0))
+      {
+        aOS.write (aData[0]);
+        aOS.write (aData, 1, aData.length - 1);
+        assertEquals (aData.length, aMF.getSize ());
+      }
+      // The temporary enlargement must have been removed
+      assertEquals (aData.length, aFile.length ());
+
+      try (final MappedFile aMF = MappedFile.openForReading (aFile, SEGMENT_SIZE))
+      {
+        assertNotNull (aMF);
+        assertEquals (aData.length, aMF.getSize ());
+
+        // Random access across segment boundaries, backwards
+        final byte [] aBuf = new byte [SEGMENT_SIZE + 10];
+        for (long nPos = aData.length - aBuf.length; nPos >= 0; nPos -= 1000)
+        {
+          assertEquals (aBuf.length, aMF.read (nPos, aBuf, 0, aBuf.length));
+          for (int i = 0; i < aBuf.length; ++i)
+            assertEquals (aData[(int) nPos + i], aBuf[i]);
+        }
+        assertEquals (aData[aData.length - 1] & 0xff, aMF.read (aData.length - 1));
+        assertEquals (-1, aMF.read (aData.length));
+        assertEquals (-1, aMF.read (aData.length, aBuf, 0, aBuf.length));
+        assertEquals (10, aMF.read (aData.length - 10, aBuf, 0, aBuf.length));
+
+        // Map everything into multiple segments
+        final MappedByteBuffer [] aBuffers = aMF.mapAll ();
+        assertEquals (6, aBuffers.length);
+        try (final InputStream aIS = aMF.getInputStream ())
+        {
+          assertTrue (aIS instanceof ByteBuffersInputStream);
+          assertArrayEquals (aData, StreamHelper.getAllBytes (aIS));
+        }
+      }
+    }
+    finally
+    {
+      FileOperations.deleteFile (aFile);
+    }
+  }
+
+  @Test
+  public void testAppend () throws IOException
+  {
+    final File aFile = File.createTempFile ("mappedfile", ".bin");
+    try
+    {
+      final byte [] aData = _createData (3 * SEGMENT_SIZE);
+      try (final OutputStream aOS = FileChannelHelper.getMappedOutputStream (aFile, EAppend.TRUNCATE))
+      {
+        aOS.write (aData, 0, SEGMENT_SIZE + 7);
+      }
+      assertEquals (SEGMENT_SIZE + 7, aFile.length ());
+
+      try (final MappedFile aMF = MappedFile.openForWriting (aFile, EAppend.APPEND, SEGMENT_SIZE))
+      {
+        aMF.setForceOnClose (true);
+        try (final OutputStream aOS = aMF.getOutputStream (aMF.getSize ()))
+        {
+          aOS.write (aData, SEGMENT_SIZE + 7, aData.length - SEGMENT_SIZE - 7);
+        }
+      }
+      assertEquals (aData.length, aFile.length ());
+
+      try (final InputStream aIS = FileChannelHelper.getMappedInputStream (aFile))
+      {
+        assertArrayEquals (aData, StreamHelper.getAllBytes (aIS));
+      }
+
+      // Overwrite the start with truncation
+      try (final OutputStream aOS = FileChannelHelper.getMappedOutputStream (aFile))
+      {
+        aOS.write (aData, 0, 10);
+      }
+      assertEquals (10, aFile.length ());
+    }
+    finally
+    {
+      FileOperations.deleteFile (aFile);
+    }
+  }
+
+  @Test
+  public void testEmpty () throws IOException
+  {
+    final File aFile = File.createTempFile ("mappedfile", ".bin");
+    try (final MappedFile aMF = MappedFile.openForReading (aFile, MappedFile.DEFAULT_SEGMENT_SIZE))
+    {
+      assertEquals (0, aMF.getSize ());
+      assertEquals (1, aMF.mapAll ().length);
+      assertEquals (-1, aMF.read (0));
+      try (final InputStream aIS = aMF.getInputStream ())
+      {
+        assertEquals (-1, aIS.read ());
+      }
+    }
+    finally
+    {
+      FileOperations.deleteFile (aFile);
+    }
+  }
+}
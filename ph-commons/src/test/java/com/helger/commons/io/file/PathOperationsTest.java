@@ -23,11 +23,17 @@ import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.File;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.annotation.Nonnull;
 
@@ -437,6 +443,145 @@ public final class PathOperationsTest
     {}
   }
 
+  @Test
+  public void testCopyAndDeleteDirParallel ()
+  {
+    final Path fDir = Paths.get ("copydirtestpar");
+    final Path fDir2 = Paths.get ("copieddirtestpar");
+    final AtomicInteger aSuccess = new AtomicInteger ();
+    final AtomicInteger aError = new AtomicInteger ();
+    final IFileOperationCallback aCallback = new IFileOperationCallback ()
+    {
+      @Override
+      public void onSuccess (final EFileIOOperation eOperation, final File aFile1, final File aFile2)
+      {
+        aSuccess.incrementAndGet ();
+      }
+
+      @Override
+      public void onError (final EFileIOOperation eOperation,
+                           final EFileIOErrorCode eErrorCode,
+                           final File aFile1,
+                           final File aFile2,
+                           final Exception aException)
+      {
+        aError.incrementAndGet ();
+      }
+    };
+    try
+    {
+      _expectedSuccess (PathOperations.createDir (fDir));
+      for (int i = 0; i < 10; ++i)
+      {
+        final Path aSubDir = fDir.resolve ("subdir" + i).resolve ("nested");
+        _expectedSuccess (PathOperations.createDirRecursive (aSubDir));
+        for (int j = 0; j < 20; ++j)
+          SimpleFileIO.writeFile (aSubDir.resolve ("file" + j).toFile (),
+                                  "Content " + i + "/" + j,
+                                  StandardCharsets.ISO_8859_1);
+      }
+
+      // 20 directories and 200 files
+      _expectedSuccess (PathOperations.copyDirRecursive (fDir, fDir2, 4, aCallback));
+      assertEquals (220, aSuccess.get ());
+      assertEquals (0, aError.get ());
+      assertEquals ("Content 7/13",
+                    SimpleFileIO.getFileAsString (fDir2.resolve ("subdir7/nested/file13").toFile (),
+                                                  StandardCharsets.ISO_8859_1));
+
+      // Delete a single sub directory
+      _expectedSuccess (PathOperations.deleteFile (fDir2.resolve ("subdir3/nested/file5")));
+      _expectedSuccess (PathOperations.deleteDirRecursive (fDir2.resolve ("subdir3"), 4, null));
+      assertFalse (Files.exists (fDir2.resolve ("subdir3")));
+      assertEquals (9, PathHelper.getDirectoryObjectCount (fDir2));
+
+      aSuccess.set (0);
+      _expectedSuccess (PathOperations.deleteDirRecursive (fDir2, 4, aCallback));
+      // 18 directories and 180 files
+      assertEquals (198, aSuccess.get ());
+      assertEquals (0, aError.get ());
+      assertFalse (Files.exists (fDir2));
+    }
+    finally
+    {
+      PathOperations.deleteDirRecursive (fDir);
+      PathOperations.deleteDirRecursive (fDir2);
+    }
+  }
+
+  @Test
+  public void testCopyDirParallelInterrupted () throws Exception
+  {
+    final Path fDir = Paths.get ("copydirtestint");
+    final Path fDir2 = Paths.get ("copieddirtestint");
+    final CountDownLatch aWorkerStarted = new CountDownLatch (1);
+    final CountDownLatch aReleaseWorkers = new CountDownLatch (1);
+    final AtomicReference <Thread> aCaller = new AtomicReference <> ();
+    final IFileOperationCallback aCallback = new IFileOperationCallback ()
+    {
+      @Override
+      public void onSuccess (final EFileIOOperation eOperation, final File aFile1, final File aFile2)
+      {
+        // Block the worker threads so that the caller has to wait
+        if (Thread.currentThread () != aCaller.get ())
+        {
+          aWorkerStarted.countDown ();
+          try
+          {
+            aReleaseWorkers.await (10, TimeUnit.SECONDS);
+          }
+          catch (final InterruptedException ex)
+          {
+            Thread.currentThread ().interrupt ();
+          }
+        }
+      }
+
+      @Override
+      public void onError (final EFileIOOperation eOperation,
+                           final EFileIOErrorCode eErrorCode,
+                           final File aFile1,
+                           final File aFile2,
+                           final Exception aException)
+      {}
+    };
+    try
+    {
+      _expectedSuccess (PathOperations.createDir (fDir));
+      for (int i = 0; i < 500; ++i)
+        SimpleFileIO.writeFile (fDir.resolve ("file" + i).toFile (), "Content " + i, StandardCharsets.ISO_8859_1);
+
+      final AtomicReference <FileIOError> aResult = new AtomicReference <> ();
+      final AtomicBoolean aInterruptedAfterwards = new AtomicBoolean (false);
+      final Thread aThread = new Thread ( () -> {
+        aResult.set (PathOperations.copyDirRecursive (fDir, fDir2, 2, aCallback));
+        aInterruptedAfterwards.set (Thread.currentThread ().isInterrupted ());
+      }, "copy-caller");
+      aCaller.set (aThread);
+      aThread.start ();
+
+      assertTrue (aWorkerStarted.await (10, TimeUnit.SECONDS));
+      aThread.interrupt ();
+      aThread.join (10_000);
+      aReleaseWorkers.countDown ();
+      assertFalse (aThread.isAlive ());
+
+      // Queued copy operations were dropped - so this must be an error
+      final FileIOError aError = aResult.get ();
+      _expectedError (aError, EFileIOErrorCode.IO_ERROR);
+      assertEquals (EFileIOOperation.COPY_DIR_RECURSIVE, aError.getOperation ());
+      assertTrue (aError.getException () instanceof InterruptedException);
+      assertTrue (aInterruptedAfterwards.get ());
+      assertTrue (PathHelper.getDirectoryObjectCount (fDir2) < 500);
+    }
+    finally
+    {
+      aReleaseWorkers.countDown ();
+      PathOperations.deleteDirRecursive (fDir);
+      PathOperations.deleteDirRecursive (fDir2);
+    }
+  }
+
   @Test
   public void testDeleteDir ()
   {
@@ -0,0 +1,166 @@
+/**
+ * Copyright (C) 2014-2017 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.io.stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.ByteBuffer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for class {@link IOBufferPool}.
+ *
+ * @author Philip Helger
+ */
+public final class IOBufferPoolTest
+{
+  @Before
+  @After
+  public void reset ()
+  {
+    IOBufferPool.setEnabled (IOBufferPool.DEFAULT_ENABLED);
+    IOBufferPool.clear ();
+    IOBufferPool.resetStatistics ();
+  }
+
+  @Test
+  public void testSizes ()
+  {
+    assertEquals (IOBufferPool.MIN_POOLED_SIZE, IOBufferPool.acquireByteArray (1).length);
+    assertEquals (IOBufferPool.MIN_POOLED_SIZE, IOBufferPool.acquireByteArray (IOBufferPool.MIN_POOLED_SIZE).length);
+    assertEquals (2 * IOBufferPool.MIN_POOLED_SIZE,
+                  IOBufferPool.acquireByteArray (IOBufferPool.MIN_POOLED_SIZE + 1).length);
+    assertEquals (16 * 1024, IOBufferPool.acquireCharArray (10000).length);
+    assertEquals (IOBufferPool.MAX_POOLED_SIZE, IOBufferPool.acquireByteArray (IOBufferPool.MAX_POOLED_SIZE).length);
+    // Too large - allocated with the exact size
+    assertEquals (IOBufferPool.MAX_POOLED_SIZE + 1,
+                  IOBufferPool.acquireByteArray (IOBufferPool.MAX_POOLED_SIZE + 1).length);
+    assertEquals (6, IOBufferPool.getMissCount ());
+
+    try
+    {
+      IOBufferPool.acquireByteArray (0);
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {
+      // expected
+    }
+  }
+
+  @Test
+  public void testReuse ()
+  {
+    final byte [] a1 = IOBufferPool.acquireByteArray (4000);
+    final byte [] a2 = IOBufferPool.acquireByteArray (4000);
+    assertNotSame (a1, a2);
+    assertEquals (2, IOBufferPool.getMissCount ());
+
+    IOBufferPool.releaseByteArray (a1);
+    IOBufferPool.releaseByteArray (a2);
+
+    // First from the thread local cache, second from the global pool
+    assertSame (a1, IOBufferPool.acquireByteArray (4096));
+    assertSame (a2, IOBufferPool.acquireByteArray (3000));
+    assertEquals (1, IOBufferPool.getThreadLocalHitCount ());
+    assertEquals (1, IOBufferPool.getGlobalHitCount ());
+    assertEquals (2, IOBufferPool.getMissCount ());
+
+    // Buffers not created by the pool are silently dropped
+    IOBufferPool.releaseByteArray (new byte [1000]);
+    IOBufferPool.releaseByteArray (null);
+  }
+
+  @Test
+  public void testDoubleRelease ()
+  {
+    final char [] a = IOBufferPool.acquireCharArray (1024);
+    IOBufferPool.releaseCharArray (a);
+    try
+    {
+      IOBufferPool.releaseCharArray (a);
+      fail ();
+    }
+    catch (final IllegalStateException ex)
+    {
+      // expected
+    }
+  }
+
+  @Test
+  public void testDirectByteBuffer ()
+  {
+    final ByteBuffer a = IOBufferPool.acquireDirectByteBuffer (16 * 1024);
+    assertTrue (a.isDirect ());
+    assertEquals (16 * 1024, a.capacity ());
+    a.put ((byte) 1).flip ();
+    IOBufferPool.releaseDirectByteBuffer (a);
+
+    final ByteBuffer b = IOBufferPool.acquireDirectByteBuffer (10 * 1024);
+    assertSame (a, b);
+    // Is cleared
+    assertEquals (0, b.position ());
+    assertEquals (b.capacity (), b.limit ());
+
+    // Heap buffers are ignored
+    IOBufferPool.releaseDirectByteBuffer (ByteBuffer.allocate (16 * 1024));
+  }
+
+  @Test
+  public void testDisabled ()
+  {
+    IOBufferPool.setEnabled (false);
+    final byte [] a = IOBufferPool.acquireByteArray (1000);
+    assertEquals (1000, a.length);
+    IOBufferPool.releaseByteArray (a);
+    assertNotSame (a, IOBufferPool.acquireByteArray (1000));
+    assertEquals (0, IOBufferPool.getThreadLocalHitCount ());
+  }
+
+  @Test
+  public void testParallel () throws Exception
+  {
+    final Thread [] aThreads = new Thread [8];
+    for (int i = 0; i < aThreads.length; ++i)
+    {
+      aThreads[i] = new Thread ( () -> {
+        for (int j = 0; j < 1000; ++j)
+        {
+          final byte [] a = IOBufferPool.acquireByteArray (8192);
+          final byte [] b = IOBufferPool.acquireByteArray (8192);
+          assertNotSame (a, b);
+          IOBufferPool.releaseByteArray (b);
+          IOBufferPool.releaseByteArray (a);
+        }
+      });
+      aThreads[i].start ();
+    }
+    for (final Thread t : aThreads)
+      t.join ();
+    assertEquals (8 * 2000,
+                  IOBufferPool.getThreadLocalHitCount () +
+                            IOBufferPool.getGlobalHitCount () +
+                            IOBufferPool.getMissCount ());
+  }
+}
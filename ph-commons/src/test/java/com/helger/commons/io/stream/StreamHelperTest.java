@@ -26,6 +26,9 @@ import static org.junit.Assert.fail;
 
 import java.io.Closeable;
 import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.FilterOutputStream;
 import java.io.Flushable;
 import java.io.IOException;
@@ -38,7 +41,10 @@ import java.util.List;
 import org.junit.Test;
 
 import com.helger.commons.exception.mock.MockIOException;
+import com.helger.commons.io.EAppend;
 import com.helger.commons.io.IHasInputStream;
+import com.helger.commons.io.file.FileOperations;
+import com.helger.commons.io.file.SimpleFileIO;
 import com.helger.commons.io.resource.ClassPathResource;
 import com.helger.commons.io.resource.IReadableResource;
 import com.helger.commons.io.streamprovider.ByteArrayInputStreamProvider;
@@ -222,6 +228,54 @@ public final class StreamHelperTest
     {}
   }
 
+  @Test
+  public void testCopyFileStreams () throws IOException
+  {
+    final byte [] aInput = new byte [100000];
+    for (int i = 0; i < aInput.length; ++i)
+      aInput[i] = (byte) (i * 31);
+    final File aSrc = File.createTempFile ("streamhelper", ".src");
+    final File aDst = File.createTempFile ("streamhelper", ".dst");
+    try
+    {
+      SimpleFileIO.writeFile (aSrc, aInput);
+
+      // Full copy
+      final MutableLong aCount = new MutableLong (0);
+      try (final FileOutputStream aOS = new FileOutputStream (aDst))
+      {
+        assertTrue (StreamHelper.copyInputStreamToOutputStream (new FileInputStream (aSrc), aOS, aCount).isSuccess ());
+      }
+      assertEquals (aInput.length, aCount.longValue ());
+      assertArrayEquals (aInput, SimpleFileIO.getAllFileBytes (aDst));
+
+      // With limit and wrapped streams, appending to the existing file
+      try (final FileInputStream aIS = new FileInputStream (aSrc);
+           final CountingFileOutputStream aOS = new CountingFileOutputStream (aDst, EAppend.APPEND))
+      {
+        assertTrue (StreamHelper.copyInputStreamToOutputStream (new NonClosingInputStream (aIS),
+                                                                new NonClosingOutputStream (aOS),
+                                                                new byte [16],
+                                                                aCount,
+                                                                Long.valueOf (1000))
+                                .isSuccess ());
+        assertEquals (1000, aCount.longValue ());
+        assertEquals (1000, aOS.getBytesWritten ());
+        // The position of the source stream was advanced
+        assertEquals (aInput[1000], (byte) aIS.read ());
+      }
+      final byte [] aAll = SimpleFileIO.getAllFileBytes (aDst);
+      assertEquals (aInput.length + 1000, aAll.length);
+      for (int i = 0; i < 1000; ++i)
+        assertEquals (aInput[i], aAll[aInput.length + i]);
+    }
+    finally
+    {
+      FileOperations.deleteFile (aSrc);
+      FileOperations.deleteFile (aDst);
+    }
+  }
+
   @Test
   public void testGetAvailable ()
   {
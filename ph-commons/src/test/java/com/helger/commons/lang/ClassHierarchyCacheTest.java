@@ -17,15 +17,19 @@
 package com.helger.commons.lang;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.Serializable;
+import java.lang.ref.WeakReference;
 import java.util.Collection;
 
 import org.junit.Test;
 
 import com.helger.commons.CGlobal;
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.ICommonsList;
 import com.helger.commons.id.IHasID;
 import com.helger.commons.type.IHasObjectType;
 import com.helger.commons.type.ITypedObject;
@@ -71,4 +75,40 @@ public final class ClassHierarchyCacheTest
     catch (final NullPointerException ex)
     {}
   }
+
+  @Test
+  public void testGetClassHierarchyIterable ()
+  {
+    final ICommonsList <Class <?>> aList = ClassHierarchyCache.getClassHierarchyList (TypedObject.class);
+    assertSame (TypedObject.class, aList.getFirst ());
+
+    // Same order as the list
+    final ICommonsList <Class <?>> aIterated = new CommonsArrayList <> ();
+    for (final Class <?> aClass : ClassHierarchyCache.getClassHierarchyIterable (TypedObject.class))
+      aIterated.add (aClass);
+    assertEquals (aList, aIterated);
+
+    aIterated.clear ();
+    ClassHierarchyCache.getClassHierarchyIterable (TypedObject.class).forEach (aIterated::add);
+    assertEquals (aList, aIterated);
+
+    // Same result after clearing
+    ClassHierarchyCache.clearCache ();
+    assertTrue (ClassHierarchyCache.clearCache ().isUnchanged ());
+    assertEquals (aList, ClassHierarchyCache.getClassHierarchyList (TypedObject.class));
+    assertTrue (ClassHierarchyCache.clearCache ().isChanged ());
+  }
+
+  @Test
+  @SuppressWarnings ("deprecation")
+  public void testGetClassHierarchyIterator ()
+  {
+    final ICommonsList <Class <?>> aList = ClassHierarchyCache.getClassHierarchyList (String.class);
+    assertSame (String.class, aList.getFirst ());
+
+    final ICommonsList <Class <?>> aIterated = new CommonsArrayList <> ();
+    for (final WeakReference <Class <?>> aRef : ClassHierarchyCache.getClassHierarchyIterator (String.class))
+      aIterated.add (aRef.get ());
+    assertEquals (aList, aIterated);
+  }
 }
@@ -23,11 +23,14 @@ import static org.junit.Assert.fail;
 
 import java.util.Locale;
 
+import javax.annotation.Nonnull;
+
 import org.junit.Test;
 
 import com.helger.commons.compare.ESortOrder;
 import com.helger.commons.error.level.EErrorLevel;
 import com.helger.commons.id.IHasIntID;
+import com.helger.commons.name.IHasName;
 
 /**
  * Test class for class {@link EnumHelper}.
@@ -47,6 +50,34 @@ public final class EnumHelperTest
     }
   }
 
+  public static enum EHasSparseID implements IHasIntID, IHasName
+  {
+   A (-1, "a"),
+   B (100000, "Straße"),
+   C (100000, "STRASSE"),
+   D (7, "a");
+
+    private final int m_nID;
+    private final String m_sName;
+
+    private EHasSparseID (final int nID, final String sName)
+    {
+      m_nID = nID;
+      m_sName = sName;
+    }
+
+    public int getID ()
+    {
+      return m_nID;
+    }
+
+    @Nonnull
+    public String getName ()
+    {
+      return m_sName;
+    }
+  }
+
   @Test
   public void testGetEnumID ()
   {
@@ -161,4 +192,30 @@ public final class EnumHelperTest
     catch (final IllegalArgumentException ex)
     {}
   }
+
+  @Test
+  public void testSparseIndex ()
+  {
+    // IDs outside of the range of the direct array access
+    assertSame (EHasSparseID.A, EnumHelper.getFromIDOrNull (EHasSparseID.class, -1));
+    assertSame (EHasSparseID.D, EnumHelper.getFromIDOrNull (EHasSparseID.class, 7));
+    assertNull (EnumHelper.getFromIDOrNull (EHasSparseID.class, 0));
+
+    // Duplicate ID/name - the first one wins
+    assertSame (EHasSparseID.B, EnumHelper.getFromIDOrNull (EHasSparseID.class, 100000));
+    assertSame (EHasSparseID.A, EnumHelper.getFromNameOrNull (EHasSparseID.class, "a"));
+    assertSame (EHasSparseID.A, EnumHelper.getFromNameCaseInsensitiveOrNull (EHasSparseID.class, "A"));
+
+    // Same semantics as String.equalsIgnoreCase
+    assertSame (EHasSparseID.B, EnumHelper.getFromNameOrNull (EHasSparseID.class, "Straße"));
+    assertSame (EHasSparseID.B, EnumHelper.getFromNameCaseInsensitiveOrNull (EHasSparseID.class, "STRAßE"));
+    assertSame (EHasSparseID.C, EnumHelper.getFromNameCaseInsensitiveOrNull (EHasSparseID.class, "strasse"));
+    assertNull (EnumHelper.getFromNameOrNull (EHasSparseID.class, "strasse"));
+    assertNull (EnumHelper.getFromNameOrNull (EHasSparseID.class, ""));
+
+    // Works the same after the cache was cleared
+    EnumHelper.clearCache ();
+    assertSame (EHasSparseID.B, EnumHelper.getFromIDOrNull (EHasSparseID.class, 100000));
+    assertSame (EHasSparseID.C, EnumHelper.getFromNameCaseInsensitiveOrNull (EHasSparseID.class, "Strasse"));
+  }
 }
@@ -18,9 +18,14 @@ package com.helger.commons.statistics;
 
 import static org.junit.Assert.assertEquals;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.junit.Test;
 
 import com.helger.commons.CGlobal;
+import com.helger.commons.collection.impl.CommonsHashSet;
+import com.helger.commons.collection.impl.ICommonsMap;
+import com.helger.commons.mock.CommonsTestHelper;
 
 /**
  * Test class for class {@link StatisticsHandlerKeyedCounter}.
@@ -50,4 +55,50 @@ public final class StatisticsHandlerKeyedCounterTest
     assertEquals (1L, sh.getCount ("key2"));
     assertEquals (2, sh.getAllKeys ().size ());
   }
+
+  @Test
+  public void testNullKeyAndOverflow ()
+  {
+    final StatisticsHandlerKeyedCounter sh = new StatisticsHandlerKeyedCounter (2);
+    assertEquals (2, sh.getMaxKeys ());
+    sh.increment (null);
+    sh.increment ("key1");
+    sh.increment ("key2", 5);
+    // Exceeds the maximum number of keys
+    sh.increment ("key3", 7);
+    sh.increment ("key4");
+    sh.increment ("key1");
+
+    assertEquals (6, sh.getInvocationCount ());
+    assertEquals (1L, sh.getCount (null));
+    assertEquals (2L, sh.getCount ("key1"));
+    assertEquals (5L, sh.getCount ("key2"));
+    assertEquals (CGlobal.ILLEGAL_ULONG, sh.getCount ("key3"));
+    assertEquals (8L, sh.getCount (IStatisticsHandlerKeyed.KEY_OVERFLOW));
+    assertEquals (2, sh.getInvocationCount (IStatisticsHandlerKeyed.KEY_OVERFLOW));
+    assertEquals (new CommonsHashSet <> (null, "key1", "key2", IStatisticsHandlerKeyed.KEY_OVERFLOW), sh.getAllKeys ());
+
+    final ICommonsMap <String, StatisticsKeyedCounterValue> aSnapshot = sh.getSnapshot ();
+    assertEquals (4, aSnapshot.size ());
+    assertEquals (1, aSnapshot.get (null).getInvocationCount ());
+    assertEquals (2L, aSnapshot.get ("key1").getCount ());
+    assertEquals (8L, aSnapshot.get (IStatisticsHandlerKeyed.KEY_OVERFLOW).getCount ());
+  }
+
+  @Test
+  public void testConcurrentIncrement ()
+  {
+    final StatisticsHandlerKeyedCounter sh = new StatisticsHandlerKeyedCounter ();
+    final AtomicInteger aCounter = new AtomicInteger ();
+    CommonsTestHelper.testInParallel (1000, () -> sh.increment ("key" + aCounter.incrementAndGet () % 10, 2));
+    assertEquals (1000, sh.getInvocationCount ());
+    assertEquals (10, sh.getAllKeys ().size ());
+    long nTotal = 0;
+    for (final StatisticsKeyedCounterValue aValue : sh.getSnapshot ().values ())
+    {
+      assertEquals (100, aValue.getInvocationCount ());
+      nTotal += aValue.getCount ();
+    }
+    assertEquals (2000L, nTotal);
+  }
 }
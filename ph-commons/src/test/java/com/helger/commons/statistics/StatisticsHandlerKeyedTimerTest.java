@@ -24,6 +24,7 @@ import java.math.BigInteger;
 import org.junit.Test;
 
 import com.helger.commons.CGlobal;
+import com.helger.commons.collection.impl.ICommonsMap;
 
 /**
  * Test class for class {@link StatisticsHandlerKeyedTimer}.
@@ -77,4 +78,30 @@ public final class StatisticsHandlerKeyedTimerTest
 
     assertEquals (2, sh.getAllKeys ().size ());
   }
+
+  @Test
+  public void testSnapshotAndOverflow ()
+  {
+    final StatisticsHandlerKeyedTimer sh = new StatisticsHandlerKeyedTimer (1);
+    sh.addTime ("key1", 10);
+    sh.addTime ("key2", 30);
+    sh.addTime ("key3", 50);
+    sh.addTime ("key1", 20);
+
+    final ICommonsMap <String, StatisticsKeyedNumericValue> aSnapshot = sh.getSnapshot ();
+    assertEquals (2, aSnapshot.size ());
+    final StatisticsKeyedNumericValue aKey1 = aSnapshot.get ("key1");
+    assertEquals (2, aKey1.getInvocationCount ());
+    assertEquals (10L, aKey1.getMin ());
+    assertEquals (20L, aKey1.getMax ());
+    assertEquals (BigInteger.valueOf (30L), aKey1.getSum ());
+    assertEquals (15L, aKey1.getAverage ());
+
+    final StatisticsKeyedNumericValue aOverflow = aSnapshot.get (IStatisticsHandlerKeyed.KEY_OVERFLOW);
+    assertEquals (2, aOverflow.getInvocationCount ());
+    assertEquals (30L, aOverflow.getMin ());
+    assertEquals (50L, aOverflow.getMax ());
+    assertEquals (40L, aOverflow.getAverage ());
+    assertEquals (40L, sh.getAverage (IStatisticsHandlerKeyed.KEY_OVERFLOW));
+  }
 }
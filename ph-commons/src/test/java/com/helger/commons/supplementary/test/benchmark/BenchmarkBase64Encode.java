@@ -0,0 +1,148 @@
+/**
+ * Copyright (C) 2014-2017 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.supplementary.test.benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.UnaryOperator;
+
+import com.helger.commons.base64.Base64Encoder;
+import com.helger.commons.random.RandomHelper;
+
+/**
+ * Benchmark the table driven {@link Base64Encoder} against
+ * {@link java.util.Base64} and the legacy 3-to-4 encoding that was used by
+ * {@link com.helger.commons.base64.Base64} before. All implementations get the
+ * same input and encode the whole array into a fresh array, once without line
+ * breaks and once with MIME line breaks (76 chars, CRLF).
+ *
+ * @author Philip Helger
+ */
+public final class BenchmarkBase64Encode extends AbstractBenchmarkTask
+{
+  private static final byte [] ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".getBytes (StandardCharsets.US_ASCII);
+  private static final byte [] CRLF = { '\r', '\n' };
+  private static final int MIME_LINE_LENGTH = 76;
+
+  private BenchmarkBase64Encode ()
+  {}
+
+  public static void main (final String [] aArgs) throws Exception
+  {
+    logSystemInfo ();
+    for (final int nSize : new int [] { 48, 1024, 64 * 1024 })
+    {
+      final byte [] aData = new byte [nSize];
+      RandomHelper.getRandom ().nextBytes (aData);
+      _run (aData, false);
+      _run (aData, true);
+    }
+  }
+
+  private static void _run (final byte [] aData, final boolean bMime)
+  {
+    final java.util.Base64.Encoder aJDKEncoder = bMime ? java.util.Base64.getMimeEncoder ()
+                                                       : java.util.Base64.getEncoder ();
+    final Base64Encoder aEncoder = bMime ? Base64Encoder.getMimeEncoder () : Base64Encoder.getBasicEncoder ();
+
+    // All implementations must produce the same result
+    final byte [] aExpected = aJDKEncoder.encode (aData);
+    if (!Arrays.equals (aExpected, _legacyEncode (aData, bMime)) || !Arrays.equals (aExpected, aEncoder.getEncoded (aData)))
+      throw new IllegalStateException ("Different encoding results for " + aData.length + " bytes");
+
+    final String sPrefix = aData.length + " bytes" + (bMime ? " (MIME)" : "") + ": ";
+
+    final double dTimeJDK = benchmarkTask (new Encode (aData, aJDKEncoder::encode));
+    s_aLogger.info (sPrefix + "java.util.Base64:  " + dTimeJDK + " ns");
+
+    final double dTimeLegacy = benchmarkTask (new Encode (aData, x -> _legacyEncode (x, bMime)));
+    s_aLogger.info (sPrefix + "legacy 3-to-4:     " + dTimeLegacy + " ns");
+
+    final double dTimeNew = benchmarkTask (new Encode (aData, aEncoder::getEncoded));
+    s_aLogger.info (sPrefix + "Base64Encoder:     " + dTimeNew + " ns");
+  }
+
+  /**
+   * The whole array encoding as previously done in Base64.encodeBytesToBytes:
+   * one 3-to-4 conversion call per group with the line length check inside
+   * the loop.
+   */
+  private static byte [] _legacyEncode (final byte [] aSource, final boolean bBreakLines)
+  {
+    final int nLen = aSource.length;
+    int nEncLen = (nLen / 3) * 4 + (nLen % 3 > 0 ? 4 : 0);
+    if (bBreakLines && nEncLen > 0)
+      nEncLen += (nEncLen - 1) / MIME_LINE_LENGTH * CRLF.length;
+    final byte [] aOut = new byte [nEncLen];
+
+    int d = 0;
+    int e = 0;
+    final int nLen2 = nLen - 2;
+    int nLineLength = 0;
+    for (; d < nLen2; d += 3, e += 4)
+    {
+      _encode3to4 (aSource, d, 3, aOut, e);
+
+      nLineLength += 4;
+      if (bBreakLines && nLineLength >= MIME_LINE_LENGTH && d + 3 < nLen)
+      {
+        aOut[e + 4] = CRLF[0];
+        aOut[e + 5] = CRLF[1];
+        e += CRLF.length;
+        nLineLength = 0;
+      }
+    }
+
+    if (d < nLen)
+      _encode3to4 (aSource, d, nLen - d, aOut, e);
+    return aOut;
+  }
+
+  private static void _encode3to4 (final byte [] aSource,
+                                   final int nSrcOfs,
+                                   final int nNumSigBytes,
+                                   final byte [] aDest,
+                                   final int nDestOfs)
+  {
+    final int nInBuff = (nNumSigBytes > 0 ? ((aSource[nSrcOfs] << 24) >>> 8) : 0) |
+                        (nNumSigBytes > 1 ? ((aSource[nSrcOfs + 1] << 24) >>> 16) : 0) |
+                        (nNumSigBytes > 2 ? ((aSource[nSrcOfs + 2] << 24) >>> 24) : 0);
+
+    aDest[nDestOfs] = ALPHABET[(nInBuff >>> 18)];
+    aDest[nDestOfs + 1] = ALPHABET[(nInBuff >>> 12) & 0x3f];
+    aDest[nDestOfs + 2] = nNumSigBytes > 1 ? ALPHABET[(nInBuff >>> 6) & 0x3f] : (byte) '=';
+    aDest[nDestOfs + 3] = nNumSigBytes > 2 ? ALPHABET[(nInBuff) & 0x3f] : (byte) '=';
+  }
+
+  private static final class Encode implements Runnable
+  {
+    private final byte [] m_aData;
+    private final UnaryOperator <byte []> m_aEncoder;
+
+    public Encode (final byte [] aData, final UnaryOperator <byte []> aEncoder)
+    {
+      m_aData = aData;
+      m_aEncoder = aEncoder;
+    }
+
+    public void run ()
+    {
+      // Whole array into a fresh array
+      m_aEncoder.apply (m_aData);
+    }
+  }
+}
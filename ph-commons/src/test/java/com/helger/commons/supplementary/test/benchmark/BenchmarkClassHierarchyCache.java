@@ -0,0 +1,99 @@
+/**
+ * Copyright (C) 2014-2017 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.supplementary.test.benchmark;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.collection.impl.ICommonsMap;
+import com.helger.commons.collection.map.LRUMap;
+import com.helger.commons.concurrent.ExecutorServiceHelper;
+import com.helger.commons.concurrent.SimpleReadWriteLock;
+import com.helger.commons.lang.ClassHierarchyCache;
+
+/**
+ * Compare the {@link ClassValue} based {@link ClassHierarchyCache} with the
+ * previous read-write-locked LRU map under concurrent access.
+ *
+ * @author Philip Helger
+ */
+public final class BenchmarkClassHierarchyCache extends AbstractBenchmarkTask
+{
+  private static final int THREADS = 32;
+  private static final int LOOKUPS_PER_THREAD = 10_000;
+  private static final Class <?> [] CLASSES = { String.class,
+                                                Integer.class,
+                                                java.util.ArrayList.class,
+                                                java.util.HashMap.class,
+                                                java.math.BigDecimal.class,
+                                                java.time.LocalDateTime.class,
+                                                com.helger.commons.collection.impl.CommonsArrayList.class,
+                                                com.helger.commons.collection.impl.CommonsHashMap.class };
+
+  /** The previous implementation */
+  private static final class LockedLRUCache
+  {
+    private final SimpleReadWriteLock m_aRWLock = new SimpleReadWriteLock ();
+    private final ICommonsMap <String, ICommonsList <Class <?>>> m_aMap = new LRUMap <> (1000);
+
+    ICommonsList <Class <?>> get (final Class <?> aClass)
+    {
+      final String sKey = aClass.getName ();
+      ICommonsList <Class <?>> ret = m_aRWLock.readLocked ( () -> m_aMap.get (sKey));
+      if (ret == null)
+        ret = m_aRWLock.writeLocked ( () -> m_aMap.computeIfAbsent (sKey,
+                                                                     k -> ClassHierarchyCache.getClassHierarchyList (aClass)));
+      return ret;
+    }
+  }
+
+  private BenchmarkClassHierarchyCache ()
+  {}
+
+  public static void main (final String [] aArgs) throws Exception
+  {
+    logSystemInfo ();
+
+    final LockedLRUCache aLRU = new LockedLRUCache ();
+    double dTime = benchmarkTask (_getRunnable (x -> aLRU.get (x)));
+    s_aLogger.info ("Locked LRU map:    " + dTime / (THREADS * LOOKUPS_PER_THREAD) + " ns per lookup");
+
+    dTime = benchmarkTask (_getRunnable (ClassHierarchyCache::getClassHierarchyIterable));
+    s_aLogger.info ("ClassValue cache:  " + dTime / (THREADS * LOOKUPS_PER_THREAD) + " ns per lookup");
+  }
+
+  private static Runnable _getRunnable (final Function <Class <?>, Iterable <Class <?>>> aLookup)
+  {
+    final Runnable aPerThread = () -> {
+      int nCount = 0;
+      for (int i = 0; i < LOOKUPS_PER_THREAD; ++i)
+        for (final Class <?> aClass : aLookup.apply (CLASSES[i % CLASSES.length]))
+          if (aClass.isInterface ())
+            nCount++;
+      if (nCount == 0)
+        throw new IllegalStateException ();
+    };
+    return () -> {
+      final ExecutorService aExecSvc = Executors.newFixedThreadPool (THREADS);
+      for (int i = 0; i < THREADS; ++i)
+        aExecSvc.submit (aPerThread);
+      ExecutorServiceHelper.shutdownAndWaitUntilAllTasksAreFinished (aExecSvc);
+    };
+  }
+}
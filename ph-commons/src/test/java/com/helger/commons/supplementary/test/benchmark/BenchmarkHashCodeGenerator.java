@@ -0,0 +1,127 @@
+/**
+ * Copyright (C) 2014-2017 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.supplementary.test.benchmark;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Objects;
+
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.equals.EqualsHelper;
+import com.helger.commons.hashcode.HashCodeGenerator;
+
+/**
+ * This code benchmarks {@link HashCodeGenerator} and {@link EqualsHelper} on
+ * typical domain objects compared to a hand written implementation based on
+ * {@link Objects}.
+ *
+ * @author Philip Helger
+ */
+public final class BenchmarkHashCodeGenerator extends AbstractBenchmarkTask
+{
+  private static final int OBJECTS = 1000;
+
+  private BenchmarkHashCodeGenerator ()
+  {}
+
+  private static final class Person
+  {
+    private final String m_sName;
+    private final LocalDate m_aBirthday;
+    private final BigDecimal m_aSalary;
+    private final int m_nAge;
+    private final ICommonsList <String> m_aTags;
+    private final String [] m_aAliases;
+
+    Person (final int i)
+    {
+      m_sName = "Person " + i;
+      m_aBirthday = LocalDate.of (1950 + i % 60, 1 + i % 12, 1 + i % 28);
+      m_aSalary = BigDecimal.valueOf (i * 100L, 2);
+      m_nAge = i % 100;
+      m_aTags = new CommonsArrayList <> ("tag" + i % 7, "tag" + i % 11);
+      m_aAliases = new String [] { "alias" + i };
+    }
+
+    int getGeneratorHashCode ()
+    {
+      return new HashCodeGenerator (this).append (m_sName)
+                                         .append (m_aBirthday)
+                                         .append (m_aSalary)
+                                         .append (m_nAge)
+                                         .append (m_aTags)
+                                         .append (m_aAliases)
+                                         .getHashCode ();
+    }
+
+    int getObjectsHashCode ()
+    {
+      return Objects.hash (m_sName, m_aBirthday, m_aSalary, Integer.valueOf (m_nAge), m_aTags) * 31 +
+             Arrays.hashCode (m_aAliases);
+    }
+
+    boolean isEqualsHelperEqual (final Person o)
+    {
+      return EqualsHelper.equals (m_sName, o.m_sName) &&
+             EqualsHelper.equals (m_aBirthday, o.m_aBirthday) &&
+             EqualsHelper.equals (m_aSalary, o.m_aSalary) &&
+             m_nAge == o.m_nAge &&
+             EqualsHelper.equals (m_aTags, o.m_aTags) &&
+             EqualsHelper.equals (m_aAliases, o.m_aAliases);
+    }
+  }
+
+  public static void main (final String [] aArgs) throws Exception
+  {
+    logSystemInfo ();
+
+    final Person [] aPersons = new Person [OBJECTS];
+    final Person [] aCopies = new Person [OBJECTS];
+    for (int i = 0; i < OBJECTS; ++i)
+    {
+      aPersons[i] = new Person (i);
+      aCopies[i] = new Person (i);
+    }
+
+    final int [] aSink = new int [1];
+    final double dTimeGenerator = benchmarkTask ( () -> {
+      int n = 0;
+      for (final Person aPerson : aPersons)
+        n += aPerson.getGeneratorHashCode ();
+      aSink[0] += n;
+    });
+    final double dTimeObjects = benchmarkTask ( () -> {
+      int n = 0;
+      for (final Person aPerson : aPersons)
+        n += aPerson.getObjectsHashCode ();
+      aSink[0] += n;
+    });
+    final double dTimeEquals = benchmarkTask ( () -> {
+      int n = 0;
+      for (int i = 0; i < OBJECTS; ++i)
+        if (aPersons[i].isEqualsHelperEqual (aCopies[i]))
+          n++;
+      aSink[0] += n;
+    });
+
+    s_aLogger.info ("HashCodeGenerator:  " + dTimeGenerator / OBJECTS + " ns per object");
+    s_aLogger.info ("Objects.hash:       " + dTimeObjects / OBJECTS + " ns per object");
+    s_aLogger.info ("EqualsHelper:       " + dTimeEquals / OBJECTS + " ns per object [" + aSink[0] + "]");
+  }
+}
@@ -0,0 +1,76 @@
+/**
+ * Copyright (C) 2014-2017 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.text.resolve;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Locale;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.junit.Test;
+
+import com.helger.commons.lang.EnumHelper;
+import com.helger.commons.text.IHasText;
+import com.helger.commons.text.util.TextHelper;
+
+/**
+ * Test class for class {@link AbstractEnumTextResolverWithOverrideAndFallback}.
+ *
+ * @author Philip Helger
+ */
+public final class AbstractEnumTextResolverWithOverrideAndFallbackTest
+{
+  /**
+   * Only implements the ID based methods.
+   */
+  private static final class MockResolver extends AbstractEnumTextResolverWithOverrideAndFallback
+  {
+    @Override
+    @Nullable
+    protected String internalGetOverrideString (@Nonnull final String sID, @Nonnull final Locale aContentLocale)
+    {
+      return aContentLocale.equals (Locale.ITALIAN) ? "override-" + sID : null;
+    }
+
+    @Override
+    @Nullable
+    protected String internalGetFallbackString (@Nonnull final String sID, @Nonnull final Locale aContentLocale)
+    {
+      return "fallback-" + sID;
+    }
+  }
+
+  @Test
+  public void testDefaultEnumMethods ()
+  {
+    final MockResolver aResolver = new MockResolver ();
+    final DefaultTextResolverTest.EText e = DefaultTextResolverTest.EText.TEXT1;
+    final IHasText aTP = TextHelper.create_DE_EN ("Text1de", "Text1en");
+    final String sID = EnumHelper.getEnumID (e);
+
+    assertEquals ("Text1en", aResolver.getText (e, aTP, TextHelper.EN));
+    assertEquals ("override-" + sID, aResolver.getText (e, aTP, Locale.ITALIAN));
+    // No text in French -> fallback
+    assertEquals ("fallback-" + sID, aResolver.getText (e, aTP, Locale.FRENCH));
+
+    aResolver.setCheckForFallback (false);
+    assertNull (aResolver.getText (e, aTP, Locale.FRENCH));
+  }
+}
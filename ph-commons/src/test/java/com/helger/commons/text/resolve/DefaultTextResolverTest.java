@@ -30,6 +30,7 @@ import org.junit.Test;
 
 import com.helger.commons.annotation.NoTranslationRequired;
 import com.helger.commons.locale.LocaleCache;
+import com.helger.commons.mock.CommonsTestHelper;
 import com.helger.commons.text.AbstractReadOnlyMapBasedMultilingualText;
 import com.helger.commons.text.display.IHasDisplayTextWithArgs;
 import com.helger.commons.text.util.TextHelper;
@@ -117,4 +118,47 @@ public final class DefaultTextResolverTest
     assertEquals ("Text3abcde", EText.TEXT3.getDisplayTextWithArgs (aDE, "abc"));
     assertEquals ("Text3abcen", EText.TEXT3.getDisplayTextWithArgs (aEN, "abc"));
   }
+
+  @Test
+  public void testWithAndWithoutBundleCache ()
+  {
+    final EnumTextResolverWithPropertiesOverrideAndFallback aResolver = DefaultTextResolver.getInstance ();
+    final Locale [] aLocales = new Locale [] { TextHelper.DE,
+                                              TextHelper.EN,
+                                              LocaleCache.getInstance ().getLocale ("de", "AT"),
+                                              LocaleCache.getInstance ().getLocale ("sr", "RS") };
+    final String [] aCached = new String [EText.values ().length * aLocales.length];
+    int nIndex = 0;
+    for (final EText e : EText.values ())
+      for (final Locale aLocale : aLocales)
+        aCached[nIndex++] = e.getDisplayText (aLocale);
+
+    aResolver.setUseResourceBundleCache (false);
+    try
+    {
+      nIndex = 0;
+      for (final EText e : EText.values ())
+        for (final Locale aLocale : aLocales)
+          assertEquals (aCached[nIndex++], e.getDisplayText (aLocale));
+    }
+    finally
+    {
+      aResolver.setUseResourceBundleCache (true);
+    }
+  }
+
+  @Test
+  public void testParallel ()
+  {
+    DefaultTextResolver.getInstance ().clearCache ();
+    final Locale aDE = TextHelper.DE;
+    final Locale aEN = TextHelper.EN;
+    CommonsTestHelper.testInParallel (1000, () -> {
+      assertEquals ("Text2de-override", EText.TEXT2.getDisplayText (aDE));
+      assertEquals ("Text1en", EText.TEXT1.getDisplayText (aEN));
+    });
+    assertTrue (DefaultTextResolver.getInstance ()
+                                   .getAllUsedOverrideBundleNames ()
+                                   .contains ("properties/override-de"));
+  }
 }
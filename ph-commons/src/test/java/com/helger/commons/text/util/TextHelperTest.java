@@ -20,8 +20,14 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+import java.math.BigDecimal;
+import java.text.MessageFormat;
+import java.util.Arrays;
+import java.util.Date;
 import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Test;
 
@@ -29,6 +35,7 @@ import com.helger.commons.collection.impl.CommonsArrayList;
 import com.helger.commons.collection.impl.CommonsHashMap;
 import com.helger.commons.collection.impl.ICommonsList;
 import com.helger.commons.collection.impl.ICommonsMap;
+import com.helger.commons.mock.CommonsTestHelper;
 import com.helger.commons.text.IMultilingualText;
 import com.helger.commons.text.MultilingualText;
 
@@ -55,6 +62,84 @@ public final class TextHelperTest
     assertNull (TextHelper.getFormattedText ((String) null, "b"));
   }
 
+  @Test
+  public void testGetFormattedTextSameAsMessageFormat ()
+  {
+    final Date aDate = new Date (1500000000000L);
+    final String [] aPatterns = new String [] { "",
+                                                "abc",
+                                                "{0}",
+                                                "a{0}b{1}c",
+                                                "{1}{0}{1}",
+                                                "a}b{0}",
+                                                "{10}",
+                                                "{0,number,#.##}",
+                                                "It''s {0}",
+                                                "'{0}' {1}",
+                                                "{0} {1,date,short}" };
+    final Object [] [] aArgSets = new Object [] [] { new Object [] { "x" },
+                                                     new Object [] { "x", "y" },
+                                                     new Object [] { null, Boolean.TRUE },
+                                                     new Object [] { Integer.valueOf (12345), "y" },
+                                                     new Object [] { new BigDecimal ("1234.5678"), aDate },
+                                                     new Object [] { aDate, aDate } };
+    for (final Locale aLocale : new Locale [] { L_DE, L_EN, Locale.FRANCE })
+      for (final String sPattern : aPatterns)
+        for (final Object [] aArgs : aArgSets)
+        {
+          String sExpected;
+          try
+          {
+            sExpected = new MessageFormat (sPattern, aLocale).format (aArgs);
+          }
+          catch (final IllegalArgumentException ex)
+          {
+            // E.g. formatting a String as a number
+            sExpected = null;
+          }
+          String sActual;
+          try
+          {
+            // Twice to check the cached version
+            TextHelper.getFormattedText (aLocale, sPattern, aArgs);
+            sActual = TextHelper.getFormattedText (aLocale, sPattern, aArgs);
+          }
+          catch (final IllegalArgumentException ex)
+          {
+            sActual = null;
+          }
+          assertEquals (sPattern + " with " + Arrays.toString (aArgs), sExpected, sActual);
+        }
+  }
+
+  @Test
+  public void testGetFormattedTextInvalidPattern ()
+  {
+    for (final String sPattern : new String [] { "{", "{a}", "{ 0 }", "{0", "{-1}" })
+      try
+      {
+        TextHelper.getFormattedText (L_EN, sPattern, "x");
+        fail (sPattern);
+      }
+      catch (final IllegalArgumentException ex)
+      {
+        // expected
+      }
+  }
+
+  @Test
+  public void testGetFormattedTextParallel ()
+  {
+    final AtomicInteger aCounter = new AtomicInteger ();
+    CommonsTestHelper.testInParallel (1000, () -> {
+      final int n = aCounter.incrementAndGet ();
+      final Double aValue = Double.valueOf (n + 0.5);
+      assertEquals (new MessageFormat ("{0,number,#.00} of {1}", L_EN).format (new Object [] { aValue, "x" }),
+                    TextHelper.getFormattedText (L_EN, "{0,number,#.00} of {1}", aValue, "x"));
+      assertEquals ("p" + (n % 10) + ": x", TextHelper.getFormattedText (L_EN, "p" + (n % 10) + ": {0}", "x"));
+    });
+  }
+
   @Test
   public void testGetCopyWithLocales ()
   {
@@ -0,0 +1,187 @@
+/**
+ * Copyright (C) 2014-2017 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.graph.algo;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.IntStream;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.Nonempty;
+import com.helger.commons.annotation.PresentForCodeCoverage;
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.debug.GlobalDebug;
+import com.helger.graph.IMutableGraphRelation;
+import com.helger.graph.simple.ISimpleGraph;
+import com.helger.graph.snapshot.GraphSnapshot;
+
+/**
+ * Find the minimum spanning tree of a graph, using Boruvka's algorithm. In
+ * each round the cheapest relation of every component is determined in
+ * parallel over all remaining relations, and the components are merged
+ * afterwards. The number of components at least halves in each round. Ties
+ * are broken by relation index, so the result is identical to the one of
+ * {@link Kruskal}.
+ *
+ * @author Philip Helger
+ * @since 9.0.0
+ */
+public final class Boruvka
+{
+  private static final Logger s_aLogger = LoggerFactory.getLogger (Boruvka.class);
+  private static final long NO_RELATION = Long.MAX_VALUE;
+
+  @PresentForCodeCoverage
+  private static final Boruvka s_aInstance = new Boruvka ();
+
+  private Boruvka ()
+  {}
+
+  private static void _setMin (@Nonnull final AtomicLongArray aArray, final int nIndex, final long nValue)
+  {
+    long nCur = aArray.get (nIndex);
+    while (nValue < nCur && !aArray.compareAndSet (nIndex, nCur, nValue))
+      nCur = aArray.get (nIndex);
+  }
+
+  /**
+   * Boruvka's algorithm on plain arrays.
+   *
+   * @param nNodes
+   *        Number of nodes
+   * @param aFrom
+   *        First node index of each relation
+   * @param aTo
+   *        Second node index of each relation
+   * @param aCost
+   *        Cost of each relation
+   * @return The indices of the relations of the minimum spanning forest in no
+   *         particular order.
+   */
+  @Nonnull
+  static int [] findMinimumSpanningForest (@Nonnegative final int nNodes,
+                                           @Nonnull final int [] aFrom,
+                                           @Nonnull final int [] aTo,
+                                           @Nonnull final int [] aCost)
+  {
+    final UnionFind aUF = new UnionFind (nNodes);
+    // Component of each node - only read during the parallel phases
+    final int [] aComponent = new int [nNodes];
+    for (int i = 0; i < nNodes; ++i)
+      aComponent[i] = i;
+    final AtomicLongArray aCheapest = new AtomicLongArray (nNodes);
+    final int [] ret = new int [Math.max (nNodes - 1, 0)];
+    int nCount = 0;
+
+    // Self-loops are never part of the result
+    int [] aRemaining = IntStream.range (0, aCost.length).parallel ().filter (x -> aFrom[x] != aTo[x]).toArray ();
+    while (aRemaining.length > 0)
+    {
+      IntStream.range (0, nNodes).parallel ().forEach (x -> aCheapest.set (x, NO_RELATION));
+
+      // Find the cheapest outgoing relation per component
+      IntStream.of (aRemaining).parallel ().forEach (x -> {
+        final long nKey = Kruskal.getSortKey (aCost[x], x);
+        _setMin (aCheapest, aComponent[aFrom[x]], nKey);
+        _setMin (aCheapest, aComponent[aTo[x]], nKey);
+      });
+
+      // Merge - both components may have selected the same relation
+      for (int i = 0; i < nNodes; ++i)
+        if (aComponent[i] == i)
+        {
+          final long nKey = aCheapest.get (i);
+          if (nKey != NO_RELATION)
+          {
+            final int nRelation = Kruskal.getRelationOfSortKey (nKey);
+            if (aUF.union (aFrom[nRelation], aTo[nRelation]))
+              ret[nCount++] = nRelation;
+          }
+        }
+
+      for (int i = 0; i < nNodes; ++i)
+        aComponent[i] = aUF.find (i);
+      aRemaining = IntStream.of (aRemaining)
+                            .parallel ()
+                            .filter (x -> aComponent[aFrom[x]] != aComponent[aTo[x]])
+                            .toArray ();
+      if (GlobalDebug.isDebugMode ())
+        s_aLogger.info ("Boruvka round finished with " +
+                        aUF.getSetCount () +
+                        " components and " +
+                        aRemaining.length +
+                        " remaining relations");
+    }
+    return nCount == ret.length ? ret : Arrays.copyOf (ret, nCount);
+  }
+
+  /**
+   * Find the minimum spanning forest of a snapshot using Boruvka's algorithm.
+   * The direction of relations is ignored.
+   *
+   * @param aSnapshot
+   *        The snapshot to use. May not be <code>null</code>.
+   * @param aRelationCostProvider
+   *        Maps a relation index to its cost. May not be <code>null</code>.
+   * @return The indices of the relations of the minimum spanning forest in no
+   *         particular order. Never <code>null</code>.
+   */
+  @Nonnull
+  public static int [] getMinimumSpanningForest (@Nonnull final GraphSnapshot aSnapshot,
+                                                 @Nonnull final IntUnaryOperator aRelationCostProvider)
+  {
+    ValueEnforcer.notNull (aSnapshot, "Snapshot");
+    ValueEnforcer.notNull (aRelationCostProvider, "RelationCostProvider");
+
+    final int nRelations = aSnapshot.getRelationCount ();
+    final int [] aFrom = new int [nRelations];
+    final int [] aTo = new int [nRelations];
+    final int [] aCost = new int [nRelations];
+    for (int i = 0; i < nRelations; ++i)
+    {
+      aFrom[i] = aSnapshot.getRelationFromNode (i);
+      aTo[i] = aSnapshot.getRelationToNode (i);
+      aCost[i] = aRelationCostProvider.applyAsInt (i);
+    }
+    return findMinimumSpanningForest (aSnapshot.getNodeCount (), aFrom, aTo, aCost);
+  }
+
+  @Nonnull
+  public static Kruskal.Result applyBoruvka (@Nonnull final ISimpleGraph aGraph,
+                                             @Nonnull @Nonempty final String sRelationCostAttr)
+  {
+    // Relations in snapshot order
+    final ICommonsList <IMutableGraphRelation> aRelations = new CommonsArrayList <> (aGraph.getAllRelations ()
+                                                                                           .values ());
+    if (GlobalDebug.isDebugMode ())
+      s_aLogger.info ("Starting Boruvka on " + aRelations.size () + " relations");
+
+    final int [] aSelected = getMinimumSpanningForest (GraphSnapshot.create (aGraph, false),
+                                                       nRelation -> aRelations.get (nRelation)
+                                                                              .attrs ()
+                                                                              .getAsInt (sRelationCostAttr));
+    return Kruskal.createResult (aGraph, aRelations, aSelected, sRelationCostAttr);
+  }
+}
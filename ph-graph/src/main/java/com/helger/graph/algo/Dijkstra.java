@@ -44,7 +44,9 @@ import com.helger.graph.IMutableDirectedGraphNode;
 import com.helger.graph.IMutableDirectedGraphRelation;
 
 /**
- * Find the shortest path between 2 graph nodes, using Dijsktra's algorithm
+ * Find the shortest path between 2 graph nodes, using Dijsktra's algorithm.
+ * For large graphs or many queries on the same graph use
+ * {@link ShortestPathEngine} instead.
  *
  * @author Philip Helger
  */
@@ -174,9 +176,23 @@ public final class Dijkstra
   public static final class Result <N extends IMutableBaseGraphNode <N, ?>>
   {
     private final ICommonsList <N> m_aResultNodes;
-    private final int m_nResultDistance;
+    private final long m_nResultDistance;
 
     public Result (@Nonnull @Nonempty final ICommonsList <N> aResultNodes, @Nonnegative final int nResultDistance)
+    {
+      this (aResultNodes, (long) nResultDistance);
+    }
+
+    /**
+     * Constructor for distances that may exceed the int range.
+     *
+     * @param aResultNodes
+     *        The nodes of the path. May neither be <code>null</code> nor empty.
+     * @param nResultDistance
+     *        The total distance. Must be &ge; 0.
+     * @since 9.0.0
+     */
+    public Result (@Nonnull @Nonempty final ICommonsList <N> aResultNodes, @Nonnegative final long nResultDistance)
     {
       ValueEnforcer.notEmpty (aResultNodes, "EesultNodes");
       ValueEnforcer.isGE0 (nResultDistance, "Result Distance");
@@ -197,8 +213,24 @@ public final class Dijkstra
       return m_aResultNodes.size ();
     }
 
+    /**
+     * @return The total distance of the path.
+     * @throws ArithmeticException
+     *         If the distance exceeds {@link Integer#MAX_VALUE}. Use
+     *         {@link #getResultDistanceLong()} in this case.
+     */
     @Nonnegative
     public int getResultDistance ()
+    {
+      return Math.toIntExact (m_nResultDistance);
+    }
+
+    /**
+     * @return The total distance of the path.
+     * @since 9.0.0
+     */
+    @Nonnegative
+    public long getResultDistanceLong ()
     {
       return m_nResultDistance;
     }
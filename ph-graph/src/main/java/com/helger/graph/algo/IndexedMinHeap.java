@@ -0,0 +1,157 @@
+/**
+ * Copyright (C) 2014-2017 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.graph.algo;
+
+import java.util.Arrays;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * Binary min-heap over the int items 0 to capacity-1 with long priorities.
+ * Each item is contained at most once, and the priority of a contained item
+ * can be decreased in O(log n).
+ *
+ * @author Philip Helger
+ * @since 9.0.0
+ */
+@NotThreadSafe
+final class IndexedMinHeap
+{
+  private static final int NOT_CONTAINED = -1;
+
+  private final int [] m_aHeap;
+  private final long [] m_aPriorities;
+  /** Position of each item in the heap or -1 */
+  private final int [] m_aPositions;
+  private int m_nSize;
+
+  IndexedMinHeap (@Nonnegative final int nCapacity)
+  {
+    m_aHeap = new int [nCapacity];
+    m_aPriorities = new long [nCapacity];
+    m_aPositions = new int [nCapacity];
+    Arrays.fill (m_aPositions, NOT_CONTAINED);
+  }
+
+  boolean isEmpty ()
+  {
+    return m_nSize == 0;
+  }
+
+  boolean contains (final int nItem)
+  {
+    return m_aPositions[nItem] != NOT_CONTAINED;
+  }
+
+  /**
+   * Add an item or decrease its priority. A higher priority of an already
+   * contained item is ignored.
+   *
+   * @param nItem
+   *        The item to add.
+   * @param nPriority
+   *        The priority of the item.
+   */
+  void addOrDecrease (final int nItem, final long nPriority)
+  {
+    int nPos = m_aPositions[nItem];
+    if (nPos == NOT_CONTAINED)
+    {
+      nPos = m_nSize++;
+      m_aHeap[nPos] = nItem;
+      m_aPositions[nItem] = nPos;
+    }
+    else
+      if (nPriority >= m_aPriorities[nItem])
+        return;
+    m_aPriorities[nItem] = nPriority;
+    _siftUp (nPos);
+  }
+
+  /**
+   * @return The item with the lowest priority. The heap may not be empty.
+   */
+  int removeMin ()
+  {
+    final int ret = m_aHeap[0];
+    m_aPositions[ret] = NOT_CONTAINED;
+    final int nLast = m_aHeap[--m_nSize];
+    if (m_nSize > 0)
+    {
+      m_aHeap[0] = nLast;
+      m_aPositions[nLast] = 0;
+      _siftDown (0);
+    }
+    return ret;
+  }
+
+  /**
+   * Remove all items. Costs O(size) and not O(capacity).
+   */
+  void clear ()
+  {
+    for (int i = 0; i < m_nSize; ++i)
+      m_aPositions[m_aHeap[i]] = NOT_CONTAINED;
+    m_nSize = 0;
+  }
+
+  private void _siftUp (final int nStartPos)
+  {
+    int nPos = nStartPos;
+    final int nItem = m_aHeap[nPos];
+    final long nPriority = m_aPriorities[nItem];
+    while (nPos > 0)
+    {
+      final int nParentPos = (nPos - 1) >>> 1;
+      final int nParent = m_aHeap[nParentPos];
+      if (m_aPriorities[nParent] <= nPriority)
+        break;
+      m_aHeap[nPos] = nParent;
+      m_aPositions[nParent] = nPos;
+      nPos = nParentPos;
+    }
+    m_aHeap[nPos] = nItem;
+    m_aPositions[nItem] = nPos;
+  }
+
+  private void _siftDown (final int nStartPos)
+  {
+    int nPos = nStartPos;
+    final int nItem = m_aHeap[nPos];
+    final long nPriority = m_aPriorities[nItem];
+    final int nHalf = m_nSize >>> 1;
+    while (nPos < nHalf)
+    {
+      int nChildPos = 2 * nPos + 1;
+      int nChild = m_aHeap[nChildPos];
+      final int nRightPos = nChildPos + 1;
+      if (nRightPos < m_nSize && m_aPriorities[m_aHeap[nRightPos]] < m_aPriorities[nChild])
+      {
+        nChildPos = nRightPos;
+        nChild = m_aHeap[nChildPos];
+      }
+      if (nPriority <= m_aPriorities[nChild])
+        break;
+      m_aHeap[nPos] = nChild;
+      m_aPositions[nChild] = nPos;
+      nPos = nChildPos;
+    }
+    m_aHeap[nPos] = nItem;
+    m_aPositions[nItem] = nPos;
+  }
+}
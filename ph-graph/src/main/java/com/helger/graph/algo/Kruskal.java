@@ -16,8 +16,10 @@
  */
 package com.helger.graph.algo;
 
-import java.util.Comparator;
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
 
+import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 
 import org.slf4j.Logger;
@@ -26,6 +28,7 @@ import org.slf4j.LoggerFactory;
 import com.helger.commons.ValueEnforcer;
 import com.helger.commons.annotation.Nonempty;
 import com.helger.commons.annotation.PresentForCodeCoverage;
+import com.helger.commons.collection.impl.CommonsArrayList;
 import com.helger.commons.collection.impl.CommonsTreeSet;
 import com.helger.commons.collection.impl.ICommonsList;
 import com.helger.commons.debug.GlobalDebug;
@@ -35,9 +38,13 @@ import com.helger.graph.IMutableGraphRelation;
 import com.helger.graph.simple.ISimpleGraph;
 import com.helger.graph.simple.SimpleGraph;
 import com.helger.graph.simple.SimpleGraphObjectFastFactory;
+import com.helger.graph.snapshot.GraphSnapshot;
 
 /**
- * Find the minimum spanning tree of a graph, using Kruskal's algorithm.
+ * Find the minimum spanning tree of a graph, using Kruskal's algorithm. The
+ * relations are sorted as packed cost/index keys with
+ * {@link Arrays#parallelSort(long[])} and the tree is grown with a
+ * {@link UnionFind}. See {@link Boruvka} for a parallel alternative.
  *
  * @author Philip Helger
  */
@@ -102,22 +109,117 @@ public final class Kruskal
            "}";
   }
 
+  /**
+   * Pack cost and relation index into a single sort key. Equal costs are
+   * ordered by relation index, so that all keys are unique.
+   *
+   * @param nCost
+   *        Relation cost
+   * @param nRelation
+   *        Relation index. Must be &ge; 0.
+   * @return The sort key
+   */
+  static long getSortKey (final int nCost, final int nRelation)
+  {
+    return ((long) nCost << 32) | nRelation;
+  }
+
+  static int getRelationOfSortKey (final long nKey)
+  {
+    return (int) nKey;
+  }
+
+  /**
+   * Kruskal's algorithm on plain arrays.
+   *
+   * @param nNodes
+   *        Number of nodes
+   * @param aFrom
+   *        First node index of each relation
+   * @param aTo
+   *        Second node index of each relation
+   * @param aCost
+   *        Cost of each relation
+   * @return The indices of the relations of the minimum spanning forest,
+   *         ordered by ascending cost.
+   */
   @Nonnull
-  public static Kruskal.Result applyKruskal (@Nonnull final ISimpleGraph aGraph,
-                                             @Nonnull @Nonempty final String sRelationCostAttr)
+  static int [] findMinimumSpanningForest (@Nonnegative final int nNodes,
+                                           @Nonnull final int [] aFrom,
+                                           @Nonnull final int [] aTo,
+                                           @Nonnull final int [] aCost)
   {
-    final ICommonsList <IMutableGraphRelation> aSortedRelations = aGraph.getAllRelationObjs ()
-                                                                        .getSortedInline (Comparator.comparingInt (x -> x.attrs ()
-                                                                                                                         .getAsInt (sRelationCostAttr)));
-    if (GlobalDebug.isDebugMode ())
+    final int nRelations = aCost.length;
+    final long [] aKeys = new long [nRelations];
+    for (int i = 0; i < nRelations; ++i)
+      aKeys[i] = getSortKey (aCost[i], i);
+    // Falls back to a sequential sort for small arrays
+    Arrays.parallelSort (aKeys);
+
+    final UnionFind aUF = new UnionFind (nNodes);
+    final int [] ret = new int [Math.max (nNodes - 1, 0)];
+    int nCount = 0;
+    for (int i = 0; i < nRelations && nCount < ret.length; ++i)
+    {
+      final int nRelation = getRelationOfSortKey (aKeys[i]);
+      if (aUF.union (aFrom[nRelation], aTo[nRelation]))
+        ret[nCount++] = nRelation;
+    }
+    return nCount == ret.length ? ret : Arrays.copyOf (ret, nCount);
+  }
+
+  /**
+   * Find the minimum spanning forest of a snapshot using Kruskal's algorithm.
+   * The direction of relations is ignored.
+   *
+   * @param aSnapshot
+   *        The snapshot to use. May not be <code>null</code>.
+   * @param aRelationCostProvider
+   *        Maps a relation index to its cost. May not be <code>null</code>.
+   * @return The indices of the relations of the minimum spanning forest,
+   *         ordered by ascending cost. Never <code>null</code>.
+   * @since 9.0.0
+   */
+  @Nonnull
+  public static int [] getMinimumSpanningForest (@Nonnull final GraphSnapshot aSnapshot,
+                                                 @Nonnull final IntUnaryOperator aRelationCostProvider)
+  {
+    ValueEnforcer.notNull (aSnapshot, "Snapshot");
+    ValueEnforcer.notNull (aRelationCostProvider, "RelationCostProvider");
+
+    final int nRelations = aSnapshot.getRelationCount ();
+    final int [] aFrom = new int [nRelations];
+    final int [] aTo = new int [nRelations];
+    final int [] aCost = new int [nRelations];
+    for (int i = 0; i < nRelations; ++i)
     {
-      s_aLogger.info ("Starting Kruskal on " + aSortedRelations.size () + " relations");
-      s_aLogger.info ("Sorted relations: " +
-                      StringHelper.getImplodedMapped (';',
-                                                      aSortedRelations,
-                                                      x -> _getWeightInfo (x, sRelationCostAttr)));
+      aFrom[i] = aSnapshot.getRelationFromNode (i);
+      aTo[i] = aSnapshot.getRelationToNode (i);
+      aCost[i] = aRelationCostProvider.applyAsInt (i);
     }
+    return findMinimumSpanningForest (aSnapshot.getNodeCount (), aFrom, aTo, aCost);
+  }
 
+  /**
+   * Create the result graph with all nodes of the source graph and the
+   * selected relations.
+   *
+   * @param aGraph
+   *        Source graph
+   * @param aRelations
+   *        All relations of the source graph in snapshot order
+   * @param aSelected
+   *        Indices of the selected relations
+   * @param sRelationCostAttr
+   *        Relation cost attribute name
+   * @return The result object
+   */
+  @Nonnull
+  static Kruskal.Result createResult (@Nonnull final ISimpleGraph aGraph,
+                                      @Nonnull final ICommonsList <IMutableGraphRelation> aRelations,
+                                      @Nonnull final int [] aSelected,
+                                      @Nonnull @Nonempty final String sRelationCostAttr)
+  {
     final SimpleGraph ret = new SimpleGraph (new SimpleGraphObjectFastFactory ());
     // Duplicate all nodes from source graph
     for (final IMutableGraphNode aNode : aGraph.getAllNodes ().values ())
@@ -126,31 +228,16 @@ public final class Kruskal
       aNewNode.attrs ().putAllIn (aNode.attrs ());
     }
 
-    // Now start adding the relations (undirected!)
-    int nRemainingRelations = aGraph.getNodeCount () - 1;
+    // Now add the selected relations (undirected!)
     int nTotalWeight = 0;
-    for (final IMutableGraphRelation aRelation : aSortedRelations)
+    for (final int nRelation : aSelected)
     {
-      final int nWeight = aRelation.attrs ().getAsInt (sRelationCostAttr);
+      final IMutableGraphRelation aRelation = aRelations.get (nRelation);
       final IMutableGraphRelation aNewRelation = ret.createRelation (aRelation.getNode1ID (), aRelation.getNode2ID ());
       aNewRelation.attrs ().putAllIn (aRelation.attrs ());
-      if (ret.containsCycles ())
-      {
-        if (GlobalDebug.isDebugMode ())
-          s_aLogger.info ("Ignoring " +
-                          _getWeightInfo (aNewRelation, sRelationCostAttr) +
-                          " because it introduces a cycle!");
-        ret.removeRelation (aNewRelation);
-      }
-      else
-      {
-        if (GlobalDebug.isDebugMode ())
-          s_aLogger.info ("Added " + _getWeightInfo (aNewRelation, sRelationCostAttr) + "!");
-        nTotalWeight += nWeight;
-        nRemainingRelations--;
-        if (nRemainingRelations == 0)
-          break;
-      }
+      nTotalWeight += aRelation.attrs ().getAsInt (sRelationCostAttr);
+      if (GlobalDebug.isDebugMode ())
+        s_aLogger.info ("Added " + _getWeightInfo (aNewRelation, sRelationCostAttr) + "!");
     }
 
     if (GlobalDebug.isDebugMode ())
@@ -158,4 +245,21 @@ public final class Kruskal
 
     return new Kruskal.Result (ret, nTotalWeight);
   }
+
+  @Nonnull
+  public static Kruskal.Result applyKruskal (@Nonnull final ISimpleGraph aGraph,
+                                             @Nonnull @Nonempty final String sRelationCostAttr)
+  {
+    // Relations in snapshot order
+    final ICommonsList <IMutableGraphRelation> aRelations = new CommonsArrayList <> (aGraph.getAllRelations ()
+                                                                                           .values ());
+    if (GlobalDebug.isDebugMode ())
+      s_aLogger.info ("Starting Kruskal on " + aRelations.size () + " relations");
+
+    final int [] aSelected = getMinimumSpanningForest (GraphSnapshot.create (aGraph, false),
+                                                       nRelation -> aRelations.get (nRelation)
+                                                                              .attrs ()
+                                                                              .getAsInt (sRelationCostAttr));
+    return createResult (aGraph, aRelations, aSelected, sRelationCostAttr);
+  }
 }
@@ -0,0 +1,320 @@
+/**
+ * Copyright (C) 2014-2017 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.graph.algo;
+
+import java.util.function.ToIntFunction;
+
+import javax.annotation.CheckForSigned;
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.Nonempty;
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.lang.GenericReflection;
+import com.helger.graph.IMutableBaseGraph;
+import com.helger.graph.IMutableBaseGraphNode;
+import com.helger.graph.IMutableBaseGraphRelation;
+import com.helger.graph.snapshot.GraphSnapshot;
+
+/**
+ * Shortest path engine for repeated queries on the same graph. The graph is
+ * compiled once into a {@link GraphSnapshot} with the relation costs, and the
+ * queries are executed by {@link SnapshotShortestPath} with a binary heap on
+ * the snapshot arrays. Supported are single-source queries, point-to-point
+ * queries with Dijkstra's algorithm and A* queries with a distance estimator.
+ * <br>
+ * The engine itself is immutable and may be shared between threads. Each
+ * thread needs its own {@link Query} object (see {@link #createQuery()}),
+ * which holds the reusable scratch space. Later modifications of the source
+ * graph are not reflected.<br>
+ * Distances are summed up as <code>long</code> values. For paths that are
+ * longer than {@link Integer#MAX_VALUE} use
+ * {@link Dijkstra.Result#getResultDistanceLong()} on the returned results.
+ *
+ * @author Philip Helger
+ * @since 9.0.0
+ * @param <N>
+ *        Node type
+ * @param <R>
+ *        Relation type
+ */
+@Immutable
+public final class ShortestPathEngine <N extends IMutableBaseGraphNode <N, R>, R extends IMutableBaseGraphRelation <N, R>>
+{
+  /** The distance of nodes that cannot be reached */
+  public static final long UNREACHABLE = SnapshotShortestPath.UNREACHABLE;
+
+  /**
+   * Estimates the remaining distance for A* queries.
+   *
+   * @param <N>
+   *        Node type
+   */
+  @FunctionalInterface
+  public static interface IDistanceEstimator <N>
+  {
+    /**
+     * Estimate the distance between two nodes. To find the shortest path the
+     * estimate may never be higher than the real distance, and it must be
+     * consistent (estimate(a) &le; cost(a,b) + estimate(b)).
+     *
+     * @param aNode
+     *        The current node. Never <code>null</code>.
+     * @param aTarget
+     *        The target node. Never <code>null</code>.
+     * @return The estimated distance. Must be &ge; 0.
+     */
+    long getEstimatedDistance (@Nonnull N aNode, @Nonnull N aTarget);
+  }
+
+  private final Object [] m_aNodes;
+  private final SnapshotShortestPath m_aSearch;
+
+  private ShortestPathEngine (@Nonnull final Object [] aNodes, @Nonnull final SnapshotShortestPath aSearch)
+  {
+    m_aNodes = aNodes;
+    m_aSearch = aSearch;
+  }
+
+  /**
+   * @return The number of nodes in the compiled graph.
+   */
+  @Nonnegative
+  public int getNodeCount ()
+  {
+    return m_aNodes.length;
+  }
+
+  /**
+   * @return The number of traversable edges. Each undirected relation counts
+   *         as two edges, unless it is a self-loop.
+   */
+  @Nonnegative
+  public int getEdgeCount ()
+  {
+    return m_aSearch.getEdgeCount ();
+  }
+
+  /**
+   * @return The snapshot the engine is working on. Never <code>null</code>.
+   */
+  @Nonnull
+  public GraphSnapshot getSnapshot ()
+  {
+    return m_aSearch.getSnapshot ();
+  }
+
+  /**
+   * @param sNodeID
+   *        Node ID to resolve. May be <code>null</code>.
+   * @return The internal index of the node or -1 if no such node exists.
+   */
+  @CheckForSigned
+  public int getNodeIndex (@Nullable final String sNodeID)
+  {
+    return m_aSearch.getSnapshot ().getNodeIndex (sNodeID);
+  }
+
+  @Nonnull
+  public N getNodeOfIndex (final int nIndex)
+  {
+    return GenericReflection.uncheckedCast (m_aNodes[nIndex]);
+  }
+
+  private int _getExistingNodeIndex (@Nullable final String sNodeID)
+  {
+    final int ret = getNodeIndex (sNodeID);
+    if (ret < 0)
+      throw new IllegalArgumentException ("Invalid node ID: " + sNodeID);
+    return ret;
+  }
+
+  /**
+   * @return A new query object with its own scratch space. Never
+   *         <code>null</code>.
+   */
+  @Nonnull
+  public Query createQuery ()
+  {
+    return new Query ();
+  }
+
+  /**
+   * A reusable query on the compiled graph, mapping between node IDs and the
+   * index based {@link SnapshotShortestPath.Query}.
+   *
+   * @author Philip Helger
+   */
+  @NotThreadSafe
+  public final class Query
+  {
+    private final SnapshotShortestPath.Query m_aQuery;
+    private boolean m_bAllComputed = false;
+
+    Query ()
+    {
+      m_aQuery = m_aSearch.createQuery ();
+    }
+
+    @Nullable
+    private Dijkstra.Result <N> _createResult (final int nTarget)
+    {
+      final int [] aPath = m_aQuery.getPathTo (nTarget);
+      if (aPath == null)
+        return null;
+
+      final ICommonsList <N> aResultNodes = new CommonsArrayList <> (aPath.length);
+      for (final int nNode : aPath)
+        aResultNodes.add (getNodeOfIndex (nNode));
+      return new Dijkstra.Result <> (aResultNodes, m_aQuery.getDistanceTo (nTarget));
+    }
+
+    /**
+     * Find the shortest path between two nodes with Dijkstra's algorithm.
+     *
+     * @param sFromID
+     *        Start node ID. Must be a valid node ID.
+     * @param sToID
+     *        End node ID. Must be a valid node ID.
+     * @return <code>null</code> if the end node cannot be reached from the
+     *         start node.
+     */
+    @Nullable
+    public Dijkstra.Result <N> findShortestPath (@Nonnull @Nonempty final String sFromID,
+                                                 @Nonnull @Nonempty final String sToID)
+    {
+      final int nSource = _getExistingNodeIndex (sFromID);
+      final int nTarget = _getExistingNodeIndex (sToID);
+      m_bAllComputed = false;
+      m_aQuery.findShortestPath (nSource, nTarget);
+      return _createResult (nTarget);
+    }
+
+    /**
+     * Find the shortest path between two nodes with the A* algorithm.
+     *
+     * @param sFromID
+     *        Start node ID. Must be a valid node ID.
+     * @param sToID
+     *        End node ID. Must be a valid node ID.
+     * @param aEstimator
+     *        The admissible and consistent distance estimator. May not be
+     *        <code>null</code>.
+     * @return <code>null</code> if the end node cannot be reached from the
+     *         start node.
+     */
+    @Nullable
+    public Dijkstra.Result <N> findShortestPath (@Nonnull @Nonempty final String sFromID,
+                                                 @Nonnull @Nonempty final String sToID,
+                                                 @Nonnull final IDistanceEstimator <? super N> aEstimator)
+    {
+      ValueEnforcer.notNull (aEstimator, "Estimator");
+      final int nSource = _getExistingNodeIndex (sFromID);
+      final int nTarget = _getExistingNodeIndex (sToID);
+      final N aTargetNode = getNodeOfIndex (nTarget);
+      m_bAllComputed = false;
+      m_aQuery.findShortestPath (nSource,
+                                 nTarget,
+                                 (nNode, nIgnored) -> aEstimator.getEstimatedDistance (getNodeOfIndex (nNode),
+                                                                                       aTargetNode));
+      return _createResult (nTarget);
+    }
+
+    /**
+     * Compute the shortest paths from the passed node to all other nodes. Use
+     * {@link #getDistanceTo(String)} and {@link #getShortestPathTo(String)}
+     * afterwards to query the results.
+     *
+     * @param sFromID
+     *        Start node ID. Must be a valid node ID.
+     */
+    public void computeAllFrom (@Nonnull @Nonempty final String sFromID)
+    {
+      m_aQuery.computeAllFrom (_getExistingNodeIndex (sFromID));
+      m_bAllComputed = true;
+    }
+
+    private void _checkAllComputed ()
+    {
+      if (!m_bAllComputed)
+        throw new IllegalStateException ("computeAllFrom was not called");
+    }
+
+    /**
+     * @param sToID
+     *        End node ID. Must be a valid node ID.
+     * @return The distance from the node of the last
+     *         {@link #computeAllFrom(String)} call or {@link #UNREACHABLE}.
+     */
+    public long getDistanceTo (@Nonnull @Nonempty final String sToID)
+    {
+      _checkAllComputed ();
+      return m_aQuery.getDistanceTo (_getExistingNodeIndex (sToID));
+    }
+
+    /**
+     * @param sToID
+     *        End node ID. Must be a valid node ID.
+     * @return The shortest path from the node of the last
+     *         {@link #computeAllFrom(String)} call or <code>null</code> if the
+     *         node is not reachable.
+     */
+    @Nullable
+    public Dijkstra.Result <N> getShortestPathTo (@Nonnull @Nonempty final String sToID)
+    {
+      _checkAllComputed ();
+      return _createResult (_getExistingNodeIndex (sToID));
+    }
+  }
+
+  /**
+   * Compile the passed graph into a new engine.
+   *
+   * @param aGraph
+   *        The graph to compile. May not be <code>null</code>.
+   * @param aRelationCostProvider
+   *        The cost of each relation. Costs must be &ge; 0. May not be
+   *        <code>null</code>.
+   * @return The new engine. Never <code>null</code>.
+   * @param <N>
+   *        Node type
+   * @param <R>
+   *        Relation type
+   */
+  @Nonnull
+  public static <N extends IMutableBaseGraphNode <N, R>, R extends IMutableBaseGraphRelation <N, R>> ShortestPathEngine <N, R> create (@Nonnull final IMutableBaseGraph <N, R> aGraph,
+                                                                                                                                       @Nonnull final ToIntFunction <? super R> aRelationCostProvider)
+  {
+    ValueEnforcer.notNull (aGraph, "Graph");
+    ValueEnforcer.notNull (aRelationCostProvider, "RelationCostProvider");
+
+    // Snapshot indices are assigned in graph order
+    final GraphSnapshot aSnapshot = GraphSnapshot.create (aGraph, false);
+    final ICommonsList <N> aNodes = new CommonsArrayList <> (aGraph.getNodeCount ());
+    aGraph.forEachNode (aNodes::add);
+    final ICommonsList <R> aRelations = new CommonsArrayList <> (aGraph.getAllRelations ().values ());
+
+    final SnapshotShortestPath aSearch = SnapshotShortestPath.create (aSnapshot,
+                                                                      nRelation -> aRelationCostProvider.applyAsInt (aRelations.get (nRelation)));
+    return new ShortestPathEngine <> (aNodes.toArray (), aSearch);
+  }
+}
@@ -0,0 +1,300 @@
+/**
+ * Copyright (C) 2014-2017 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.graph.algo;
+
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.graph.snapshot.GraphSnapshot;
+
+/**
+ * Shortest path search on a {@link GraphSnapshot}. The relation costs are
+ * resolved once per outgoing slot of the snapshot, so that a query only works
+ * on int and long arrays. Nodes are identified by their snapshot index.<br>
+ * This object is immutable and may be shared between threads, but each thread
+ * needs its own {@link Query} (see {@link #createQuery()}).
+ *
+ * @author Philip Helger
+ * @since 9.0.0
+ */
+@Immutable
+public final class SnapshotShortestPath
+{
+  /** The distance of nodes that cannot be reached */
+  public static final long UNREACHABLE = Long.MAX_VALUE;
+
+  /**
+   * Estimates the remaining distance for A* queries based on node indices.
+   */
+  @FunctionalInterface
+  public static interface IIndexDistanceEstimator
+  {
+    /**
+     * Estimate the distance between two nodes. The estimate may never be
+     * higher than the real distance, and it must be consistent.
+     *
+     * @param nNode
+     *        Index of the current node.
+     * @param nTarget
+     *        Index of the target node.
+     * @return The estimated distance. Must be &ge; 0.
+     */
+    long getEstimatedDistance (int nNode, int nTarget);
+  }
+
+  private final GraphSnapshot m_aSnapshot;
+  /** The cost of each outgoing slot of the snapshot */
+  private final int [] m_aSlotCost;
+
+  private SnapshotShortestPath (@Nonnull final GraphSnapshot aSnapshot, @Nonnull final int [] aSlotCost)
+  {
+    m_aSnapshot = aSnapshot;
+    m_aSlotCost = aSlotCost;
+  }
+
+  @Nonnull
+  public GraphSnapshot getSnapshot ()
+  {
+    return m_aSnapshot;
+  }
+
+  /**
+   * @return The number of traversable edges. Each undirected relation counts
+   *         as two edges, unless it is a self-loop.
+   */
+  @Nonnegative
+  public int getEdgeCount ()
+  {
+    return m_aSlotCost.length;
+  }
+
+  /**
+   * @return A new query object with its own scratch space. Never
+   *         <code>null</code>.
+   */
+  @Nonnull
+  public Query createQuery ()
+  {
+    return new Query ();
+  }
+
+  /**
+   * A reusable query. The scratch arrays are allocated once, and are
+   * invalidated between runs by a generation counter instead of being cleared.
+   *
+   * @author Philip Helger
+   */
+  @NotThreadSafe
+  public final class Query
+  {
+    private final long [] m_aDistances;
+    private final int [] m_aPredecessors;
+    private final long [] m_aEstimates;
+    /** Generation in which a node was reached */
+    private final int [] m_aReached;
+    /** Generation in which a node was settled */
+    private final int [] m_aSettled;
+    private final IndexedMinHeap m_aHeap;
+    private int m_nGeneration;
+
+    Query ()
+    {
+      final int nNodes = m_aSnapshot.getNodeCount ();
+      m_aDistances = new long [nNodes];
+      m_aPredecessors = new int [nNodes];
+      m_aEstimates = new long [nNodes];
+      m_aReached = new int [nNodes];
+      m_aSettled = new int [nNodes];
+      m_aHeap = new IndexedMinHeap (nNodes);
+    }
+
+    private void _run (final int nSource, final int nTarget, @Nullable final IIndexDistanceEstimator aEstimator)
+    {
+      ValueEnforcer.isArrayOfsLen (m_aDistances, nSource, 1);
+      if (nTarget >= 0)
+        ValueEnforcer.isArrayOfsLen (m_aDistances, nTarget, 1);
+
+      if (++m_nGeneration == 0)
+      {
+        // Overflow - reset once after 4 billion runs
+        Arrays.fill (m_aReached, 0);
+        Arrays.fill (m_aSettled, 0);
+        m_nGeneration = 1;
+      }
+      final int nGen = m_nGeneration;
+      final GraphSnapshot aSnapshot = m_aSnapshot;
+
+      m_aDistances[nSource] = 0;
+      m_aPredecessors[nSource] = -1;
+      m_aReached[nSource] = nGen;
+      m_aEstimates[nSource] = aEstimator == null ? 0 : aEstimator.getEstimatedDistance (nSource, nTarget);
+      m_aHeap.addOrDecrease (nSource, m_aEstimates[nSource]);
+
+      while (!m_aHeap.isEmpty ())
+      {
+        final int nNode = m_aHeap.removeMin ();
+        m_aSettled[nNode] = nGen;
+        if (nNode == nTarget)
+          break;
+
+        final long nNodeDistance = m_aDistances[nNode];
+        final int nEnd = aSnapshot.getOutgoingEnd (nNode);
+        for (int nSlot = aSnapshot.getOutgoingBegin (nNode); nSlot < nEnd; ++nSlot)
+        {
+          final int nNext = aSnapshot.getOutgoingNodeAt (nSlot);
+          if (m_aSettled[nNext] == nGen)
+            continue;
+
+          final long nNewDistance = nNodeDistance + m_aSlotCost[nSlot];
+          if (m_aReached[nNext] != nGen)
+          {
+            m_aReached[nNext] = nGen;
+            m_aEstimates[nNext] = aEstimator == null ? 0 : aEstimator.getEstimatedDistance (nNext, nTarget);
+          }
+          else
+            if (nNewDistance >= m_aDistances[nNext])
+              continue;
+
+          m_aDistances[nNext] = nNewDistance;
+          m_aPredecessors[nNext] = nNode;
+          m_aHeap.addOrDecrease (nNext, nNewDistance + m_aEstimates[nNext]);
+        }
+      }
+      m_aHeap.clear ();
+    }
+
+    /**
+     * Find the shortest path between two nodes with Dijkstra's algorithm.
+     *
+     * @param nFrom
+     *        Start node index.
+     * @param nTo
+     *        End node index.
+     * @return The distance or {@link #UNREACHABLE}. Use
+     *         {@link #getPathTo(int)} to get the path itself.
+     */
+    public long findShortestPath (final int nFrom, final int nTo)
+    {
+      _run (nFrom, nTo, null);
+      return getDistanceTo (nTo);
+    }
+
+    /**
+     * Find the shortest path between two nodes with the A* algorithm.
+     *
+     * @param nFrom
+     *        Start node index.
+     * @param nTo
+     *        End node index.
+     * @param aEstimator
+     *        The admissible and consistent distance estimator. May not be
+     *        <code>null</code>.
+     * @return The distance or {@link #UNREACHABLE}. Use
+     *         {@link #getPathTo(int)} to get the path itself.
+     */
+    public long findShortestPath (final int nFrom, final int nTo, @Nonnull final IIndexDistanceEstimator aEstimator)
+    {
+      ValueEnforcer.notNull (aEstimator, "Estimator");
+      _run (nFrom, nTo, aEstimator);
+      return getDistanceTo (nTo);
+    }
+
+    /**
+     * Compute the shortest paths from the passed node to all other nodes.
+     *
+     * @param nFrom
+     *        Start node index.
+     */
+    public void computeAllFrom (final int nFrom)
+    {
+      _run (nFrom, -1, null);
+    }
+
+    /**
+     * @param nTo
+     *        End node index.
+     * @return The distance to the passed node as determined by the last run,
+     *         or {@link #UNREACHABLE} if the node was not reached. After a
+     *         point-to-point search only the distances of the nodes settled
+     *         before the target are available.
+     */
+    public long getDistanceTo (final int nTo)
+    {
+      return m_nGeneration > 0 && m_aSettled[nTo] == m_nGeneration ? m_aDistances[nTo] : UNREACHABLE;
+    }
+
+    /**
+     * @param nTo
+     *        End node index.
+     * @return The node indices of the path from the start node of the last run
+     *         to the passed node (both inclusive) or <code>null</code> if the
+     *         node was not reached.
+     */
+    @Nullable
+    public int [] getPathTo (final int nTo)
+    {
+      if (getDistanceTo (nTo) == UNREACHABLE)
+        return null;
+
+      int nLength = 0;
+      for (int nNode = nTo; nNode >= 0; nNode = m_aPredecessors[nNode])
+        nLength++;
+      final int [] ret = new int [nLength];
+      for (int nNode = nTo; nNode >= 0; nNode = m_aPredecessors[nNode])
+        ret[--nLength] = nNode;
+      return ret;
+    }
+  }
+
+  /**
+   * Create a new shortest path search.
+   *
+   * @param aSnapshot
+   *        The snapshot to search in. May not be <code>null</code>.
+   * @param aRelationCostProvider
+   *        Maps a relation index to its cost. Costs must be &ge; 0. May not be
+   *        <code>null</code>.
+   * @return The new object. Never <code>null</code>.
+   */
+  @Nonnull
+  public static SnapshotShortestPath create (@Nonnull final GraphSnapshot aSnapshot,
+                                             @Nonnull final IntUnaryOperator aRelationCostProvider)
+  {
+    ValueEnforcer.notNull (aSnapshot, "Snapshot");
+    ValueEnforcer.notNull (aRelationCostProvider, "RelationCostProvider");
+
+    final int [] aRelationCost = new int [aSnapshot.getRelationCount ()];
+    for (int i = 0; i < aRelationCost.length; ++i)
+    {
+      final int nRelation = i;
+      aRelationCost[i] = aRelationCostProvider.applyAsInt (i);
+      ValueEnforcer.isGE0 (aRelationCost[i], () -> "Cost of relation " + aSnapshot.getRelationID (nRelation));
+    }
+
+    final int [] aSlotCost = new int [aSnapshot.getOutgoingSlotCount ()];
+    for (int i = 0; i < aSlotCost.length; ++i)
+      aSlotCost[i] = aRelationCost[aSnapshot.getOutgoingRelationAt (i)];
+    return new SnapshotShortestPath (aSnapshot, aSlotCost);
+  }
+}
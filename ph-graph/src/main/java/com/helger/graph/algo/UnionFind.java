@@ -0,0 +1,137 @@
+/**
+ * Copyright (C) 2014-2017 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.graph.algo;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.string.ToStringGenerator;
+
+/**
+ * Disjoint set forest over the int elements 0 to n-1, with path compression
+ * and union by rank.
+ *
+ * @author Philip Helger
+ * @since 9.0.0
+ */
+@NotThreadSafe
+public final class UnionFind
+{
+  private final int [] m_aParent;
+  private final byte [] m_aRank;
+  private int m_nSetCount;
+
+  /**
+   * Constructor - each element is initially in its own set.
+   *
+   * @param nElements
+   *        Number of elements. Must be &ge; 0.
+   */
+  public UnionFind (@Nonnegative final int nElements)
+  {
+    ValueEnforcer.isGE0 (nElements, "Elements");
+    m_aParent = new int [nElements];
+    for (int i = 0; i < nElements; ++i)
+      m_aParent[i] = i;
+    m_aRank = new byte [nElements];
+    m_nSetCount = nElements;
+  }
+
+  @Nonnegative
+  public int getElementCount ()
+  {
+    return m_aParent.length;
+  }
+
+  /**
+   * @return The number of disjoint sets.
+   */
+  @Nonnegative
+  public int getSetCount ()
+  {
+    return m_nSetCount;
+  }
+
+  /**
+   * Find the representative of the set of the passed element.
+   *
+   * @param nElement
+   *        Element to search.
+   * @return The representative element.
+   */
+  public int find (final int nElement)
+  {
+    int nRoot = nElement;
+    while (m_aParent[nRoot] != nRoot)
+      nRoot = m_aParent[nRoot];
+
+    // Path compression
+    int nCur = nElement;
+    while (nCur != nRoot)
+    {
+      final int nNext = m_aParent[nCur];
+      m_aParent[nCur] = nRoot;
+      nCur = nNext;
+    }
+    return nRoot;
+  }
+
+  public boolean isSameSet (final int nElement1, final int nElement2)
+  {
+    return find (nElement1) == find (nElement2);
+  }
+
+  /**
+   * Merge the sets of the two passed elements.
+   *
+   * @param nElement1
+   *        First element.
+   * @param nElement2
+   *        Second element.
+   * @return <code>true</code> if the sets were merged, <code>false</code> if
+   *         both elements were already in the same set.
+   */
+  public boolean union (final int nElement1, final int nElement2)
+  {
+    int nRoot1 = find (nElement1);
+    int nRoot2 = find (nElement2);
+    if (nRoot1 == nRoot2)
+      return false;
+
+    // Attach the lower tree below the higher tree
+    if (m_aRank[nRoot1] < m_aRank[nRoot2])
+    {
+      final int nTmp = nRoot1;
+      nRoot1 = nRoot2;
+      nRoot2 = nTmp;
+    }
+    m_aParent[nRoot2] = nRoot1;
+    if (m_aRank[nRoot1] == m_aRank[nRoot2])
+      m_aRank[nRoot1]++;
+    m_nSetCount--;
+    return true;
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("Elements", m_aParent.length)
+                                       .append ("Sets", m_nSetCount)
+                                       .getToString ();
+  }
+}
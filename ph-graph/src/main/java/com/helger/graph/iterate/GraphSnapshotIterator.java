@@ -0,0 +1,195 @@
+/**
+ * Copyright (C) 2014-2017 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.graph.iterate;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.IntPredicate;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.graph.snapshot.GraphSnapshot;
+
+/**
+ * Depth first iterator over the node indices of a {@link GraphSnapshot}. By
+ * default the outgoing relations are followed, like
+ * {@link DirectedGraphIteratorForward}. Each reachable node is returned
+ * exactly once. For undirected snapshots the incoming and outgoing relations
+ * are identical.
+ *
+ * @author Philip Helger
+ * @since 9.0.0
+ */
+@NotThreadSafe
+public final class GraphSnapshotIterator implements PrimitiveIterator.OfInt
+{
+  private final GraphSnapshot m_aSnapshot;
+  private final boolean m_bForward;
+  /**
+   * Optional filter for relation indices to define whether they should be
+   * followed or not. May be <code>null</code>.
+   */
+  private final IntPredicate m_aRelationFilter;
+
+  // The DFS stack: node, next slot to check and relation used to get there
+  private int [] m_aStackNode;
+  private int [] m_aStackSlot;
+  private int [] m_aStackRelation;
+  private int m_nStackSize = 0;
+  private final BitSet m_aOnStack;
+  private final BitSet m_aHandledNodes;
+
+  /**
+   * Does the graph have cycles?
+   */
+  private boolean m_bHasCycles = false;
+
+  public GraphSnapshotIterator (@Nonnull final GraphSnapshot aSnapshot, final int nStartNode)
+  {
+    this (aSnapshot, nStartNode, true, null);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param aSnapshot
+   *        The snapshot to iterate. May not be <code>null</code>.
+   * @param nStartNode
+   *        Index of the start node.
+   * @param bForward
+   *        <code>true</code> to follow the outgoing relations,
+   *        <code>false</code> to follow the incoming relations.
+   * @param aRelationFilter
+   *        Optional filter on the relation index. May be <code>null</code>.
+   */
+  public GraphSnapshotIterator (@Nonnull final GraphSnapshot aSnapshot,
+                                final int nStartNode,
+                                final boolean bForward,
+                                @Nullable final IntPredicate aRelationFilter)
+  {
+    ValueEnforcer.notNull (aSnapshot, "Snapshot");
+    ValueEnforcer.isBetweenInclusive (nStartNode, "StartNode", 0, aSnapshot.getNodeCount () - 1);
+
+    m_aSnapshot = aSnapshot;
+    m_bForward = bForward;
+    m_aRelationFilter = aRelationFilter;
+    final int nInitialCapacity = Math.min (aSnapshot.getNodeCount (), 16);
+    m_aStackNode = new int [nInitialCapacity];
+    m_aStackSlot = new int [nInitialCapacity];
+    m_aStackRelation = new int [nInitialCapacity];
+    m_aOnStack = new BitSet (aSnapshot.getNodeCount ());
+    m_aHandledNodes = new BitSet (aSnapshot.getNodeCount ());
+
+    // Ensure that the start node is present
+    _push (nStartNode, -1);
+  }
+
+  private void _push (final int nNode, final int nRelation)
+  {
+    if (m_nStackSize == m_aStackNode.length)
+    {
+      final int nNewSize = m_nStackSize * 2;
+      m_aStackNode = Arrays.copyOf (m_aStackNode, nNewSize);
+      m_aStackSlot = Arrays.copyOf (m_aStackSlot, nNewSize);
+      m_aStackRelation = Arrays.copyOf (m_aStackRelation, nNewSize);
+    }
+    m_aStackNode[m_nStackSize] = nNode;
+    m_aStackSlot[m_nStackSize] = m_bForward ? m_aSnapshot.getOutgoingBegin (nNode)
+                                            : m_aSnapshot.getIncomingBegin (nNode);
+    m_aStackRelation[m_nStackSize] = nRelation;
+    m_nStackSize++;
+    m_aOnStack.set (nNode);
+  }
+
+  public boolean hasNext ()
+  {
+    return m_nStackSize > 0;
+  }
+
+  public int nextInt ()
+  {
+    // If no nodes are left, there ain't no next!
+    if (!hasNext ())
+      throw new NoSuchElementException ();
+
+    // get the node to return
+    final int ret = m_aStackNode[m_nStackSize - 1];
+    m_aHandledNodes.set (ret);
+
+    // find next node
+    final boolean bDirected = m_aSnapshot.isDirected ();
+    boolean bFoundNewNode = false;
+    while (m_nStackSize > 0 && !bFoundNewNode)
+    {
+      final int nTop = m_nStackSize - 1;
+      final int nNode = m_aStackNode[nTop];
+      final int nEnd = m_bForward ? m_aSnapshot.getOutgoingEnd (nNode) : m_aSnapshot.getIncomingEnd (nNode);
+      while (m_aStackSlot[nTop] < nEnd)
+      {
+        final int nSlot = m_aStackSlot[nTop]++;
+        final int nRelation = m_bForward ? m_aSnapshot.getOutgoingRelationAt (nSlot)
+                                         : m_aSnapshot.getIncomingRelationAt (nSlot);
+
+        // Don't go back the undirected relation we came from
+        if (!bDirected && nRelation == m_aStackRelation[nTop])
+          continue;
+
+        // Callback to check whether the current relation should be followed
+        // or not
+        if (m_aRelationFilter != null && !m_aRelationFilter.test (nRelation))
+          continue;
+
+        final int nNext = m_bForward ? m_aSnapshot.getOutgoingNodeAt (nSlot) : m_aSnapshot.getIncomingNodeAt (nSlot);
+
+        // If the node is already contained in the stack, we have a cycle
+        if (m_aOnStack.get (nNext))
+          m_bHasCycles = true;
+
+        // Ensure that each node is returned only once!
+        if (!m_aHandledNodes.get (nNext))
+        {
+          // Okay, we have a new node
+          _push (nNext, nRelation);
+          bFoundNewNode = true;
+          break;
+        }
+      }
+
+      // if we followed all relations of the current node, go to previous node
+      if (!bFoundNewNode)
+      {
+        m_nStackSize--;
+        m_aOnStack.clear (nNode);
+      }
+    }
+    return ret;
+  }
+
+  /**
+   * @return <code>true</code> if the iterator determined a cycle while
+   *         iterating the graph
+   */
+  public boolean hasCycles ()
+  {
+    return m_bHasCycles;
+  }
+}
@@ -0,0 +1,150 @@
+/**
+ * Copyright (C) 2014-2017 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.graph.snapshot;
+
+import java.util.BitSet;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.Nonempty;
+import com.helger.commons.string.ToStringGenerator;
+import com.helger.commons.typeconvert.TypeConverter;
+
+/**
+ * The values of a single attribute for all nodes or all relations of a
+ * {@link GraphSnapshot}, indexed by the node or relation index. If all values
+ * are {@link Integer} objects they are stored in an <code>int</code> array,
+ * otherwise in an object array.
+ *
+ * @author Philip Helger
+ * @since 9.0.0
+ */
+@Immutable
+public final class AttributeColumn
+{
+  private final String m_sName;
+  private final int m_nSize;
+  // Either the int values plus the presence bits, or the object values
+  private final int [] m_aIntValues;
+  private final BitSet m_aIntPresent;
+  private final Object [] m_aValues;
+
+  private AttributeColumn (@Nonnull @Nonempty final String sName,
+                           @Nonnegative final int nSize,
+                           @Nullable final int [] aIntValues,
+                           @Nullable final BitSet aIntPresent,
+                           @Nullable final Object [] aValues)
+  {
+    m_sName = sName;
+    m_nSize = nSize;
+    m_aIntValues = aIntValues;
+    m_aIntPresent = aIntPresent;
+    m_aValues = aValues;
+  }
+
+  /**
+   * @return The attribute name. Neither <code>null</code> nor empty.
+   */
+  @Nonnull
+  @Nonempty
+  public String getName ()
+  {
+    return m_sName;
+  }
+
+  /**
+   * @return The number of nodes or relations this column covers.
+   */
+  @Nonnegative
+  public int getSize ()
+  {
+    return m_nSize;
+  }
+
+  /**
+   * @return <code>true</code> if all values are stored as <code>int</code>.
+   */
+  public boolean isIntColumn ()
+  {
+    return m_aIntValues != null;
+  }
+
+  public boolean hasValue (final int nIndex)
+  {
+    return m_aIntValues != null ? m_aIntPresent.get (nIndex) : m_aValues[nIndex] != null;
+  }
+
+  @Nullable
+  public Object getValue (final int nIndex)
+  {
+    if (m_aIntValues != null)
+      return m_aIntPresent.get (nIndex) ? Integer.valueOf (m_aIntValues[nIndex]) : null;
+    return m_aValues[nIndex];
+  }
+
+  public int getAsInt (final int nIndex, final int nDefault)
+  {
+    if (m_aIntValues != null)
+      return m_aIntPresent.get (nIndex) ? m_aIntValues[nIndex] : nDefault;
+    return TypeConverter.convertToInt (m_aValues[nIndex], nDefault);
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("Name", m_sName)
+                                       .append ("Size", m_nSize)
+                                       .append ("IntColumn", isIntColumn ())
+                                       .getToString ();
+  }
+
+  /**
+   * Create a new column and choose the most compact storage.
+   *
+   * @param sName
+   *        Attribute name. May neither be <code>null</code> nor empty.
+   * @param aValues
+   *        All values by index. Missing values are <code>null</code>. May not
+   *        be <code>null</code>. The array is used directly.
+   * @return The new column and never <code>null</code>.
+   */
+  @Nonnull
+  static AttributeColumn create (@Nonnull @Nonempty final String sName, @Nonnull final Object [] aValues)
+  {
+    ValueEnforcer.notEmpty (sName, "Name");
+    ValueEnforcer.notNull (aValues, "Values");
+
+    for (final Object aValue : aValues)
+      if (aValue != null && !(aValue instanceof Integer))
+        return new AttributeColumn (sName, aValues.length, null, null, aValues);
+
+    final int nSize = aValues.length;
+    final int [] aIntValues = new int [nSize];
+    final BitSet aIntPresent = new BitSet (nSize);
+    for (int i = 0; i < nSize; ++i)
+      if (aValues[i] != null)
+      {
+        aIntValues[i] = ((Integer) aValues[i]).intValue ();
+        aIntPresent.set (i);
+      }
+    return new AttributeColumn (sName, nSize, aIntValues, aIntPresent, null);
+  }
+}
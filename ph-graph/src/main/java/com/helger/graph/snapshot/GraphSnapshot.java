@@ -0,0 +1,544 @@
+/**
+ * Copyright (C) 2014-2017 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.graph.snapshot;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.IntToDoubleFunction;
+
+import javax.annotation.CheckForSigned;
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.ReturnsMutableCopy;
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.CommonsHashMap;
+import com.helger.commons.collection.impl.CommonsLinkedHashMap;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.collection.impl.ICommonsMap;
+import com.helger.commons.collection.impl.ICommonsOrderedMap;
+import com.helger.commons.collection.impl.ICommonsOrderedSet;
+import com.helger.commons.string.ToStringGenerator;
+import com.helger.graph.IBaseGraphObject;
+import com.helger.graph.IDirectedGraphRelation;
+import com.helger.graph.IMutableBaseGraph;
+import com.helger.graph.IMutableBaseGraphNode;
+import com.helger.graph.IMutableBaseGraphRelation;
+import com.helger.matrix.SparseMatrix;
+
+/**
+ * Immutable, read-optimized snapshot of a graph. Nodes and relations are
+ * identified by int indices (in the order of the source graph), the relations
+ * of each node are stored in compressed sparse row (CSR) arrays, and the
+ * attributes are stored per attribute name in an {@link AttributeColumn}.<br>
+ * For directed graphs the outgoing and incoming relations are stored
+ * separately. For undirected graphs each relation is an outgoing and incoming
+ * relation of both of its nodes.<br>
+ * Use {@link com.helger.graph.iterate.GraphSnapshotIterator} for traversal and
+ * {@link com.helger.graph.algo.SnapshotShortestPath} for shortest path
+ * queries.
+ *
+ * @author Philip Helger
+ * @since 9.0.0
+ */
+@Immutable
+public final class GraphSnapshot
+{
+  /**
+   * Callback for the relations of a node.
+   */
+  @FunctionalInterface
+  public static interface IRelationConsumer
+  {
+    /**
+     * @param nRelation
+     *        Relation index.
+     * @param nOtherNode
+     *        Index of the node on the other end of the relation.
+     */
+    void accept (int nRelation, int nOtherNode);
+  }
+
+  private final boolean m_bDirected;
+  private final String [] m_aNodeIDs;
+  private final ICommonsMap <String, Integer> m_aNodeIndices;
+  private final String [] m_aRelationIDs;
+  private final int [] m_aRelationFrom;
+  private final int [] m_aRelationTo;
+  // Outgoing CSR: the slots of node n are m_aOutStart[n] to m_aOutStart[n+1]
+  private final int [] m_aOutStart;
+  private final int [] m_aOutRelation;
+  private final int [] m_aOutNode;
+  // Incoming CSR - identical to outgoing for undirected graphs
+  private final int [] m_aInStart;
+  private final int [] m_aInRelation;
+  private final int [] m_aInNode;
+  private final ICommonsOrderedMap <String, AttributeColumn> m_aNodeAttrs;
+  private final ICommonsOrderedMap <String, AttributeColumn> m_aRelationAttrs;
+
+  private GraphSnapshot (final boolean bDirected,
+                         @Nonnull final String [] aNodeIDs,
+                         @Nonnull final ICommonsMap <String, Integer> aNodeIndices,
+                         @Nonnull final String [] aRelationIDs,
+                         @Nonnull final int [] aRelationFrom,
+                         @Nonnull final int [] aRelationTo,
+                         @Nonnull final ICommonsOrderedMap <String, AttributeColumn> aNodeAttrs,
+                         @Nonnull final ICommonsOrderedMap <String, AttributeColumn> aRelationAttrs)
+  {
+    m_bDirected = bDirected;
+    m_aNodeIDs = aNodeIDs;
+    m_aNodeIndices = aNodeIndices;
+    m_aRelationIDs = aRelationIDs;
+    m_aRelationFrom = aRelationFrom;
+    m_aRelationTo = aRelationTo;
+    m_aNodeAttrs = aNodeAttrs;
+    m_aRelationAttrs = aRelationAttrs;
+
+    final int nNodes = aNodeIDs.length;
+    final int nRelations = aRelationIDs.length;
+    if (bDirected)
+    {
+      m_aOutStart = new int [nNodes + 1];
+      m_aOutRelation = new int [nRelations];
+      m_aOutNode = new int [nRelations];
+      _fillCSR (aRelationFrom, aRelationTo, m_aOutStart, m_aOutRelation, m_aOutNode);
+
+      m_aInStart = new int [nNodes + 1];
+      m_aInRelation = new int [nRelations];
+      m_aInNode = new int [nRelations];
+      _fillCSR (aRelationTo, aRelationFrom, m_aInStart, m_aInRelation, m_aInNode);
+    }
+    else
+    {
+      // Each relation is contained in both directions, except self-loops
+      final int [] aFrom = new int [nRelations * 2];
+      final int [] aTo = new int [nRelations * 2];
+      final int [] aRelation = new int [nRelations * 2];
+      int nSlots = 0;
+      for (int i = 0; i < nRelations; ++i)
+      {
+        aFrom[nSlots] = aRelationFrom[i];
+        aTo[nSlots] = aRelationTo[i];
+        aRelation[nSlots++] = i;
+        if (aRelationFrom[i] != aRelationTo[i])
+        {
+          aFrom[nSlots] = aRelationTo[i];
+          aTo[nSlots] = aRelationFrom[i];
+          aRelation[nSlots++] = i;
+        }
+      }
+      m_aOutStart = new int [nNodes + 1];
+      m_aOutRelation = new int [nSlots];
+      m_aOutNode = new int [nSlots];
+      _fillCSR (Arrays.copyOf (aFrom, nSlots),
+                Arrays.copyOf (aTo, nSlots),
+                Arrays.copyOf (aRelation, nSlots),
+                m_aOutStart,
+                m_aOutRelation,
+                m_aOutNode);
+      m_aInStart = m_aOutStart;
+      m_aInRelation = m_aOutRelation;
+      m_aInNode = m_aOutNode;
+    }
+  }
+
+  private static void _fillCSR (@Nonnull final int [] aFrom,
+                                @Nonnull final int [] aTo,
+                                @Nonnull final int [] aStart,
+                                @Nonnull final int [] aSlotRelation,
+                                @Nonnull final int [] aSlotNode)
+  {
+    final int [] aRelation = new int [aFrom.length];
+    for (int i = 0; i < aRelation.length; ++i)
+      aRelation[i] = i;
+    _fillCSR (aFrom, aTo, aRelation, aStart, aSlotRelation, aSlotNode);
+  }
+
+  private static void _fillCSR (@Nonnull final int [] aFrom,
+                                @Nonnull final int [] aTo,
+                                @Nonnull final int [] aRelation,
+                                @Nonnull final int [] aStart,
+                                @Nonnull final int [] aSlotRelation,
+                                @Nonnull final int [] aSlotNode)
+  {
+    final int nNodes = aStart.length - 1;
+    // Count degrees and convert to start offsets
+    for (final int nFrom : aFrom)
+      aStart[nFrom + 1]++;
+    for (int i = 0; i < nNodes; ++i)
+      aStart[i + 1] += aStart[i];
+
+    // Distribute - stable, so the relation order per node is kept
+    final int [] aNextPos = Arrays.copyOf (aStart, nNodes);
+    for (int i = 0; i < aFrom.length; ++i)
+    {
+      final int nPos = aNextPos[aFrom[i]]++;
+      aSlotRelation[nPos] = aRelation[i];
+      aSlotNode[nPos] = aTo[i];
+    }
+  }
+
+  public boolean isDirected ()
+  {
+    return m_bDirected;
+  }
+
+  @Nonnegative
+  public int getNodeCount ()
+  {
+    return m_aNodeIDs.length;
+  }
+
+  @Nonnegative
+  public int getRelationCount ()
+  {
+    return m_aRelationIDs.length;
+  }
+
+  @Nonnull
+  public String getNodeID (final int nNode)
+  {
+    return m_aNodeIDs[nNode];
+  }
+
+  /**
+   * @param sNodeID
+   *        Node ID to resolve. May be <code>null</code>.
+   * @return The index of the node or -1 if no such node exists.
+   */
+  @CheckForSigned
+  public int getNodeIndex (@Nullable final String sNodeID)
+  {
+    final Integer aIndex = m_aNodeIndices.get (sNodeID);
+    return aIndex == null ? -1 : aIndex.intValue ();
+  }
+
+  @Nonnull
+  public String getRelationID (final int nRelation)
+  {
+    return m_aRelationIDs[nRelation];
+  }
+
+  /**
+   * @param nRelation
+   *        Relation index.
+   * @return The from-node of a directed relation or the first node of an
+   *         undirected relation.
+   */
+  public int getRelationFromNode (final int nRelation)
+  {
+    return m_aRelationFrom[nRelation];
+  }
+
+  /**
+   * @param nRelation
+   *        Relation index.
+   * @return The to-node of a directed relation or the second node of an
+   *         undirected relation.
+   */
+  public int getRelationToNode (final int nRelation)
+  {
+    return m_aRelationTo[nRelation];
+  }
+
+  /**
+   * @param nNode
+   *        Node index.
+   * @return The first outgoing slot of the node. Use
+   *         {@link #getOutgoingRelationAt(int)} and
+   *         {@link #getOutgoingNodeAt(int)} to access the slots up to
+   *         {@link #getOutgoingEnd(int)} (exclusive).
+   */
+  public int getOutgoingBegin (final int nNode)
+  {
+    return m_aOutStart[nNode];
+  }
+
+  public int getOutgoingEnd (final int nNode)
+  {
+    return m_aOutStart[nNode + 1];
+  }
+
+  public int getOutgoingRelationAt (final int nSlot)
+  {
+    return m_aOutRelation[nSlot];
+  }
+
+  public int getOutgoingNodeAt (final int nSlot)
+  {
+    return m_aOutNode[nSlot];
+  }
+
+  /**
+   * @return The total number of outgoing slots. For undirected graphs each
+   *         relation except self-loops occupies two slots.
+   */
+  @Nonnegative
+  public int getOutgoingSlotCount ()
+  {
+    return m_aOutRelation.length;
+  }
+
+  @Nonnegative
+  public int getOutgoingRelationCount (final int nNode)
+  {
+    return m_aOutStart[nNode + 1] - m_aOutStart[nNode];
+  }
+
+  public void forEachOutgoingRelation (final int nNode, @Nonnull final IRelationConsumer aConsumer)
+  {
+    final int nEnd = m_aOutStart[nNode + 1];
+    for (int i = m_aOutStart[nNode]; i < nEnd; ++i)
+      aConsumer.accept (m_aOutRelation[i], m_aOutNode[i]);
+  }
+
+  /**
+   * @param nNode
+   *        Node index.
+   * @return The first incoming slot of the node. Use
+   *         {@link #getIncomingRelationAt(int)} and
+   *         {@link #getIncomingNodeAt(int)} to access the slots up to
+   *         {@link #getIncomingEnd(int)} (exclusive).
+   */
+  public int getIncomingBegin (final int nNode)
+  {
+    return m_aInStart[nNode];
+  }
+
+  public int getIncomingEnd (final int nNode)
+  {
+    return m_aInStart[nNode + 1];
+  }
+
+  public int getIncomingRelationAt (final int nSlot)
+  {
+    return m_aInRelation[nSlot];
+  }
+
+  public int getIncomingNodeAt (final int nSlot)
+  {
+    return m_aInNode[nSlot];
+  }
+
+  @Nonnegative
+  public int getIncomingRelationCount (final int nNode)
+  {
+    return m_aInStart[nNode + 1] - m_aInStart[nNode];
+  }
+
+  public void forEachIncomingRelation (final int nNode, @Nonnull final IRelationConsumer aConsumer)
+  {
+    final int nEnd = m_aInStart[nNode + 1];
+    for (int i = m_aInStart[nNode]; i < nEnd; ++i)
+      aConsumer.accept (m_aInRelation[i], m_aInNode[i]);
+  }
+
+  @Nonnull
+  @ReturnsMutableCopy
+  public ICommonsList <String> getAllNodeAttributeNames ()
+  {
+    return m_aNodeAttrs.copyOfKeySet ().getCopyAsList ();
+  }
+
+  /**
+   * @param sName
+   *        Attribute name.
+   * @return The values of the node attribute or <code>null</code> if no node
+   *         has this attribute.
+   */
+  @Nullable
+  public AttributeColumn getNodeAttribute (@Nullable final String sName)
+  {
+    return m_aNodeAttrs.get (sName);
+  }
+
+  @Nonnull
+  @ReturnsMutableCopy
+  public ICommonsList <String> getAllRelationAttributeNames ()
+  {
+    return m_aRelationAttrs.copyOfKeySet ().getCopyAsList ();
+  }
+
+  /**
+   * @param sName
+   *        Attribute name.
+   * @return The values of the relation attribute or <code>null</code> if no
+   *         relation has this attribute.
+   */
+  @Nullable
+  public AttributeColumn getRelationAttribute (@Nullable final String sName)
+  {
+    return m_aRelationAttrs.get (sName);
+  }
+
+  /**
+   * Create the weighted adjacency matrix of this graph, where element (from,
+   * to) is the sum of the weights of all relations from node "from" to node
+   * "to". Relations of undirected graphs are added in both directions. The
+   * result uses memory proportional to the relation count and can be used
+   * with the iterative solvers of {@link SparseMatrix}.
+   *
+   * @param aRelationWeight
+   *        Function from relation index to weight. May not be
+   *        <code>null</code>.
+   * @return The node count x node count matrix. Never <code>null</code>.
+   * @throws IllegalArgumentException
+   *         If the graph has no nodes.
+   */
+  @Nonnull
+  public SparseMatrix createAdjacencyMatrix (@Nonnull final IntToDoubleFunction aRelationWeight)
+  {
+    ValueEnforcer.notNull (aRelationWeight, "RelationWeight");
+
+    final int nNodes = getNodeCount ();
+    final SparseMatrix.Builder aBuilder = new SparseMatrix.Builder (nNodes, nNodes);
+    for (int nRelation = 0; nRelation < m_aRelationFrom.length; ++nRelation)
+    {
+      final int nFrom = m_aRelationFrom[nRelation];
+      final int nTo = m_aRelationTo[nRelation];
+      final double dWeight = aRelationWeight.applyAsDouble (nRelation);
+      aBuilder.add (nFrom, nTo, dWeight);
+      if (!m_bDirected && nFrom != nTo)
+        aBuilder.add (nTo, nFrom, dWeight);
+    }
+    return aBuilder.build ();
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("Directed", m_bDirected)
+                                       .append ("Nodes", m_aNodeIDs.length)
+                                       .append ("Relations", m_aRelationIDs.length)
+                                       .append ("NodeAttrs", m_aNodeAttrs.keySet ())
+                                       .append ("RelationAttrs", m_aRelationAttrs.keySet ())
+                                       .getToString ();
+  }
+
+  @Nonnull
+  private static ICommonsOrderedMap <String, AttributeColumn> _createColumns (@Nonnull final ICommonsList <? extends IBaseGraphObject> aObjects)
+  {
+    final int nCount = aObjects.size ();
+    final ICommonsOrderedMap <String, Object []> aValues = new CommonsLinkedHashMap <> ();
+    for (int i = 0; i < nCount; ++i)
+      for (final Map.Entry <String, Object> aEntry : aObjects.get (i).attrs ().entrySet ())
+        aValues.computeIfAbsent (aEntry.getKey (), k -> new Object [nCount])[i] = aEntry.getValue ();
+
+    final ICommonsOrderedMap <String, AttributeColumn> ret = new CommonsLinkedHashMap <> ();
+    for (final Map.Entry <String, Object []> aEntry : aValues.entrySet ())
+      ret.put (aEntry.getKey (), AttributeColumn.create (aEntry.getKey (), aEntry.getValue ()));
+    return ret;
+  }
+
+  /**
+   * Create a snapshot including all attributes.
+   *
+   * @param aGraph
+   *        The graph to take the snapshot from. May not be <code>null</code>.
+   * @return The new snapshot. Never <code>null</code>.
+   * @param <N>
+   *        Node type
+   * @param <R>
+   *        Relation type
+   */
+  @Nonnull
+  public static <N extends IMutableBaseGraphNode <N, R>, R extends IMutableBaseGraphRelation <N, R>> GraphSnapshot create (@Nonnull final IMutableBaseGraph <N, R> aGraph)
+  {
+    return create (aGraph, true);
+  }
+
+  /**
+   * Create a snapshot.
+   *
+   * @param aGraph
+   *        The graph to take the snapshot from. May not be <code>null</code>.
+   * @param bWithAttributes
+   *        <code>true</code> to copy the node and relation attributes,
+   *        <code>false</code> for the pure structure.
+   * @return The new snapshot. Never <code>null</code>.
+   * @param <N>
+   *        Node type
+   * @param <R>
+   *        Relation type
+   */
+  @Nonnull
+  public static <N extends IMutableBaseGraphNode <N, R>, R extends IMutableBaseGraphRelation <N, R>> GraphSnapshot create (@Nonnull final IMutableBaseGraph <N, R> aGraph,
+                                                                                                                           final boolean bWithAttributes)
+  {
+    ValueEnforcer.notNull (aGraph, "Graph");
+
+    final ICommonsList <N> aNodes = new CommonsArrayList <> (aGraph.getNodeCount ());
+    aGraph.forEachNode (aNodes::add);
+    final int nNodes = aNodes.size ();
+    final String [] aNodeIDs = new String [nNodes];
+    final ICommonsMap <String, Integer> aNodeIndices = new CommonsHashMap <> (nNodes);
+    for (int i = 0; i < nNodes; ++i)
+    {
+      aNodeIDs[i] = aNodes.get (i).getID ();
+      aNodeIndices.put (aNodeIDs[i], Integer.valueOf (i));
+    }
+
+    // Note: getAllRelationObjs may contain directed relations twice
+    final Collection <R> aRelationSet = aGraph.getAllRelations ().values ();
+    final ICommonsList <R> aRelations = new CommonsArrayList <> (aRelationSet);
+    final int nRelations = aRelations.size ();
+    final String [] aRelationIDs = new String [nRelations];
+    final int [] aRelationFrom = new int [nRelations];
+    final int [] aRelationTo = new int [nRelations];
+    boolean bDirected = false;
+    for (int i = 0; i < nRelations; ++i)
+    {
+      final R aRelation = aRelations.get (i);
+      aRelationIDs[i] = aRelation.getID ();
+      if (aRelation.isDirected ())
+      {
+        bDirected = true;
+        // Cast to Object required for JDK command line compiler
+        final Object aDirectedRelation = aRelation;
+        final IDirectedGraphRelation <?, ?> aRel = (IDirectedGraphRelation <?, ?>) aDirectedRelation;
+        aRelationFrom[i] = aNodeIndices.get (aRel.getFromID ()).intValue ();
+        aRelationTo[i] = aNodeIndices.get (aRel.getToID ()).intValue ();
+      }
+      else
+      {
+        final ICommonsOrderedSet <String> aNodeIDSet = aRelation.getAllConnectedNodeIDs ();
+        aRelationFrom[i] = aNodeIndices.get (aNodeIDSet.getAtIndex (0)).intValue ();
+        // Self-loops only have a single node
+        aRelationTo[i] = aNodeIndices.get (aNodeIDSet.getLast ()).intValue ();
+      }
+    }
+    if (nRelations == 0 && nNodes > 0)
+      bDirected = aNodes.getFirst ().isDirected ();
+
+    final ICommonsOrderedMap <String, AttributeColumn> aNodeAttrs = bWithAttributes ? _createColumns (aNodes)
+                                                                                    : new CommonsLinkedHashMap <> ();
+    final ICommonsOrderedMap <String, AttributeColumn> aRelationAttrs = bWithAttributes ? _createColumns (aRelations)
+                                                                                        : new CommonsLinkedHashMap <> ();
+    return new GraphSnapshot (bDirected,
+                              aNodeIDs,
+                              aNodeIndices,
+                              aRelationIDs,
+                              aRelationFrom,
+                              aRelationTo,
+                              aNodeAttrs,
+                              aRelationAttrs);
+  }
+}
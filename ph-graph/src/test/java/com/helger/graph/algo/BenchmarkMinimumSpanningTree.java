@@ -0,0 +1,77 @@
+/**
+ * Copyright (C) 2014-2017 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.graph.algo;
+
+import java.util.Random;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compare the minimum spanning forest implementations on random graphs with
+ * 1e5 to 1e7 relations. Run manually via the main method.
+ *
+ * @author Philip Helger
+ */
+public final class BenchmarkMinimumSpanningTree
+{
+  private static final Logger s_aLogger = LoggerFactory.getLogger (BenchmarkMinimumSpanningTree.class);
+  private static final int RUNS = 5;
+
+  private BenchmarkMinimumSpanningTree ()
+  {}
+
+  private static long _run (final String sName, final Runnable aRunnable)
+  {
+    long nBest = Long.MAX_VALUE;
+    for (int i = 0; i < RUNS; ++i)
+    {
+      final long t = System.nanoTime ();
+      aRunnable.run ();
+      nBest = Math.min (nBest, System.nanoTime () - t);
+    }
+    s_aLogger.info ("  " + sName + ": " + (nBest / 1_000_000) + " ms");
+    return nBest;
+  }
+
+  public static void main (final String [] aArgs)
+  {
+    for (final int nRelations : new int [] { 100_000, 1_000_000, 10_000_000 })
+    {
+      // Average degree of 8
+      final int nNodes = nRelations / 4;
+      final Random aRandom = new Random (42);
+      final int [] aFrom = new int [nRelations];
+      final int [] aTo = new int [nRelations];
+      final int [] aCost = new int [nRelations];
+      for (int i = 0; i < nRelations; ++i)
+      {
+        // Ensure connectivity by a chain over all nodes
+        aFrom[i] = i < nNodes - 1 ? i : aRandom.nextInt (nNodes);
+        aTo[i] = i < nNodes - 1 ? i + 1 : aRandom.nextInt (nNodes);
+        aCost[i] = aRandom.nextInt (1_000_000);
+      }
+
+      s_aLogger.info (nNodes + " nodes and " + nRelations + " relations");
+      final int [] aCheck = new int [2];
+      _run ("Kruskal", () -> aCheck[0] = Kruskal.findMinimumSpanningForest (nNodes, aFrom, aTo, aCost).length);
+      _run ("Boruvka", () -> aCheck[1] = Boruvka.findMinimumSpanningForest (nNodes, aFrom, aTo, aCost).length);
+      if (aCheck[0] != aCheck[1])
+        throw new IllegalStateException ("Different results " + aCheck[0] + " and " + aCheck[1]);
+    }
+  }
+}
@@ -0,0 +1,102 @@
+/**
+ * Copyright (C) 2014-2017 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.graph.algo;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.helger.graph.simple.SimpleGraph;
+
+/**
+ * Test class for class {@link Boruvka}.
+ *
+ * @author Philip Helger
+ */
+public final class BoruvkaTest
+{
+  private static final String ATTR_WEIGHT = "weight";
+
+  @Test
+  public void testBasic ()
+  {
+    final SimpleGraph g = new SimpleGraph ();
+    for (int i = 1; i <= 6; ++i)
+      g.createNode (Integer.toString (i));
+    g.createRelation ("1", "2").attrs ().putIn (ATTR_WEIGHT, 3);
+    g.createRelation ("1", "3").attrs ().putIn (ATTR_WEIGHT, 1);
+    g.createRelation ("2", "5").attrs ().putIn (ATTR_WEIGHT, 1);
+    g.createRelation ("3", "4").attrs ().putIn (ATTR_WEIGHT, 1);
+    g.createRelation ("3", "6").attrs ().putIn (ATTR_WEIGHT, 4);
+    g.createRelation ("4", "5").attrs ().putIn (ATTR_WEIGHT, 5);
+    g.createRelation ("4", "6").attrs ().putIn (ATTR_WEIGHT, 5);
+    g.createRelation ("5", "6").attrs ().putIn (ATTR_WEIGHT, 2);
+    g.createRelation ("6", "6").attrs ().putIn (ATTR_WEIGHT, 0);
+
+    final Kruskal.Result r = Boruvka.applyBoruvka (g, ATTR_WEIGHT);
+    assertEquals (8, r.getTotalWeight ());
+    assertEquals (6, r.getGraph ().getNodeCount ());
+    assertEquals (5, r.getGraph ().getAllRelations ().size ());
+    assertEquals (8, Kruskal.applyKruskal (g, ATTR_WEIGHT).getTotalWeight ());
+  }
+
+  @Test
+  public void testForest ()
+  {
+    final SimpleGraph g = new SimpleGraph ();
+    for (int i = 1; i <= 5; ++i)
+      g.createNode (Integer.toString (i));
+    g.createRelation ("1", "2").attrs ().putIn (ATTR_WEIGHT, 3);
+    g.createRelation ("2", "3").attrs ().putIn (ATTR_WEIGHT, 2);
+    g.createRelation ("1", "3").attrs ().putIn (ATTR_WEIGHT, 1);
+    g.createRelation ("4", "5").attrs ().putIn (ATTR_WEIGHT, 7);
+
+    final Kruskal.Result r = Boruvka.applyBoruvka (g, ATTR_WEIGHT);
+    assertEquals (10, r.getTotalWeight ());
+    assertEquals (3, r.getGraph ().getAllRelations ().size ());
+  }
+
+  @Test
+  public void testSameAsKruskal ()
+  {
+    final Random aRandom = new Random (17);
+    for (int nRun = 0; nRun < 20; ++nRun)
+    {
+      final int nNodes = 1 + aRandom.nextInt (500);
+      final int nRelations = aRandom.nextInt (nNodes * 4);
+      final int [] aFrom = new int [nRelations];
+      final int [] aTo = new int [nRelations];
+      final int [] aCost = new int [nRelations];
+      for (int i = 0; i < nRelations; ++i)
+      {
+        aFrom[i] = aRandom.nextInt (nNodes);
+        aTo[i] = aRandom.nextInt (nNodes);
+        // Many equal costs to test the tie breaking
+        aCost[i] = aRandom.nextInt (20) - 5;
+      }
+      final int [] aKruskal = Kruskal.findMinimumSpanningForest (nNodes, aFrom, aTo, aCost);
+      final int [] aBoruvka = Boruvka.findMinimumSpanningForest (nNodes, aFrom, aTo, aCost);
+      Arrays.sort (aKruskal);
+      Arrays.sort (aBoruvka);
+      assertArrayEquals (aKruskal, aBoruvka);
+    }
+  }
+}
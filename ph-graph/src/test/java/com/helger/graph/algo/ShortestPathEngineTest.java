@@ -0,0 +1,234 @@
+/**
+ * Copyright (C) 2014-2017 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.graph.algo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.helger.graph.IMutableDirectedGraphNode;
+import com.helger.graph.IMutableDirectedGraphRelation;
+import com.helger.graph.IMutableGraphNode;
+import com.helger.graph.IMutableGraphRelation;
+import com.helger.graph.simple.SimpleDirectedGraph;
+import com.helger.graph.simple.SimpleDirectedGraphObjectFastFactory;
+import com.helger.graph.simple.SimpleGraph;
+import com.helger.graph.simple.SimpleGraphObjectFastFactory;
+
+/**
+ * Test class for class {@link ShortestPathEngine}.
+ *
+ * @author Philip Helger
+ */
+public final class ShortestPathEngineTest
+{
+  private static final String ATTR_WEIGHT = "weight";
+
+  private static int _getWeight (final IMutableDirectedGraphRelation r)
+  {
+    return r.attrs ().getAsInt (ATTR_WEIGHT, Integer.MIN_VALUE);
+  }
+
+  private static int _getWeight (final IMutableGraphRelation r)
+  {
+    return r.attrs ().getAsInt (ATTR_WEIGHT, Integer.MIN_VALUE);
+  }
+
+  @Test
+  public void testDirected ()
+  {
+    final SimpleDirectedGraph g = new SimpleDirectedGraph (new SimpleDirectedGraphObjectFastFactory ());
+    for (int i = 1; i <= 7; ++i)
+      g.createNode (Integer.toString (i));
+    g.createRelation ("1", "2").attrs ().putIn (ATTR_WEIGHT, 3);
+    g.createRelation ("1", "3").attrs ().putIn (ATTR_WEIGHT, 1);
+    g.createRelation ("2", "5").attrs ().putIn (ATTR_WEIGHT, 1);
+    g.createRelation ("3", "4").attrs ().putIn (ATTR_WEIGHT, 1);
+    g.createRelation ("3", "6").attrs ().putIn (ATTR_WEIGHT, 4);
+    g.createRelation ("4", "5").attrs ().putIn (ATTR_WEIGHT, 5);
+    g.createRelation ("4", "6").attrs ().putIn (ATTR_WEIGHT, 5);
+    g.createRelation ("5", "6").attrs ().putIn (ATTR_WEIGHT, 2);
+
+    final ShortestPathEngine <IMutableDirectedGraphNode, IMutableDirectedGraphRelation> aEngine = ShortestPathEngine.create (g,
+                                                                                                                             ShortestPathEngineTest::_getWeight);
+    assertEquals (7, aEngine.getNodeCount ());
+    assertEquals (8, aEngine.getEdgeCount ());
+    assertEquals (-1, aEngine.getNodeIndex ("8"));
+
+    final ShortestPathEngine <IMutableDirectedGraphNode, IMutableDirectedGraphRelation>.Query aQuery = aEngine.createQuery ();
+    final Dijkstra.Result <IMutableDirectedGraphNode> r = aQuery.findShortestPath ("1", "6");
+    assertNotNull (r);
+    assertEquals (5, r.getResultDistance ());
+    assertEquals ("Distance 5 for route {'1','3','6'}", r.getAsString ());
+
+    // Same node
+    assertEquals (0, aQuery.findShortestPath ("2", "2").getResultDistance ());
+
+    // Not reachable in the directed graph
+    assertNull (aQuery.findShortestPath ("6", "1"));
+    assertNull (aQuery.findShortestPath ("1", "7"));
+
+    // Single source
+    aQuery.computeAllFrom ("1");
+    assertEquals (0, aQuery.getDistanceTo ("1"));
+    assertEquals (3, aQuery.getDistanceTo ("2"));
+    assertEquals (1, aQuery.getDistanceTo ("3"));
+    assertEquals (2, aQuery.getDistanceTo ("4"));
+    assertEquals (4, aQuery.getDistanceTo ("5"));
+    assertEquals (5, aQuery.getDistanceTo ("6"));
+    assertEquals (ShortestPathEngine.UNREACHABLE, aQuery.getDistanceTo ("7"));
+    assertEquals ("Distance 4 for route {'1','2','5'}", aQuery.getShortestPathTo ("5").getAsString ());
+    assertNull (aQuery.getShortestPathTo ("7"));
+
+    try
+    {
+      aQuery.findShortestPath ("1", "8");
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {
+      // expected
+    }
+  }
+
+  @Test
+  public void testLongDistance ()
+  {
+    final SimpleDirectedGraph g = new SimpleDirectedGraph (new SimpleDirectedGraphObjectFastFactory ());
+    for (int i = 1; i <= 3; ++i)
+      g.createNode (Integer.toString (i));
+    g.createRelation ("1", "2").attrs ().putIn (ATTR_WEIGHT, Integer.MAX_VALUE);
+    g.createRelation ("2", "3").attrs ().putIn (ATTR_WEIGHT, Integer.MAX_VALUE);
+
+    final ShortestPathEngine <IMutableDirectedGraphNode, IMutableDirectedGraphRelation>.Query aQuery = ShortestPathEngine.create (g,
+                                                                                                                                  ShortestPathEngineTest::_getWeight)
+                                                                                                                          .createQuery ();
+    final Dijkstra.Result <IMutableDirectedGraphNode> r = aQuery.findShortestPath ("1", "3");
+    assertNotNull (r);
+    assertEquals (2L * Integer.MAX_VALUE, r.getResultDistanceLong ());
+    assertEquals (3, r.getResultNodeCount ());
+    try
+    {
+      r.getResultDistance ();
+      fail ();
+    }
+    catch (final ArithmeticException ex)
+    {
+      // expected
+    }
+  }
+
+  @Test
+  public void testUndirectedCities ()
+  {
+    final SimpleGraph g = new SimpleGraph (new SimpleGraphObjectFastFactory ());
+    g.createNode ("Barcelona");
+    g.createNode ("Narbonne");
+    g.createNode ("Marseille");
+    g.createNode ("Toulouse");
+    g.createNode ("Geneve");
+    g.createNode ("Paris");
+    g.createNode ("Lausanne");
+    g.createRelation ("Barcelona", "Narbonne").attrs ().putIn (ATTR_WEIGHT, 250);
+    g.createRelation ("Narbonne", "Marseille").attrs ().putIn (ATTR_WEIGHT, 260);
+    g.createRelation ("Narbonne", "Toulouse").attrs ().putIn (ATTR_WEIGHT, 150);
+    g.createRelation ("Narbonne", "Geneve").attrs ().putIn (ATTR_WEIGHT, 550);
+    g.createRelation ("Marseille", "Geneve").attrs ().putIn (ATTR_WEIGHT, 470);
+    g.createRelation ("Toulouse", "Paris").attrs ().putIn (ATTR_WEIGHT, 680);
+    g.createRelation ("Toulouse", "Geneve").attrs ().putIn (ATTR_WEIGHT, 700);
+    g.createRelation ("Geneve", "Paris").attrs ().putIn (ATTR_WEIGHT, 540);
+    g.createRelation ("Geneve", "Lausanne").attrs ().putIn (ATTR_WEIGHT, 64);
+    g.createRelation ("Lausanne", "Paris").attrs ().putIn (ATTR_WEIGHT, 536);
+
+    final ShortestPathEngine <IMutableGraphNode, IMutableGraphRelation>.Query aQuery = ShortestPathEngine.create (g,
+                                                                                                                  ShortestPathEngineTest::_getWeight)
+                                                                                                          .createQuery ();
+    assertEquals ("Distance 864 for route {'Barcelona','Narbonne','Geneve','Lausanne'}",
+                  aQuery.findShortestPath ("Barcelona", "Lausanne").getAsString ());
+    assertEquals ("Distance 864 for route {'Lausanne','Geneve','Narbonne','Barcelona'}",
+                  aQuery.findShortestPath ("Lausanne", "Barcelona").getAsString ());
+    assertEquals (1080, aQuery.findShortestPath ("Barcelona", "Paris").getResultDistance ());
+  }
+
+  @Test
+  public void testNegativeCost ()
+  {
+    final SimpleGraph g = new SimpleGraph (new SimpleGraphObjectFastFactory ());
+    g.createNode ("a");
+    g.createNode ("b");
+    g.createRelation ("a", "b").attrs ().putIn (ATTR_WEIGHT, -1);
+    try
+    {
+      ShortestPathEngine.create (g, ShortestPathEngineTest::_getWeight);
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {
+      // expected
+    }
+  }
+
+  @Test
+  public void testGridAgainstDijkstra ()
+  {
+    // Grid with random weights; node IDs are "x/y"
+    final int nSize = 12;
+    final Random aRandom = new Random (4711);
+    final SimpleGraph g = new SimpleGraph (new SimpleGraphObjectFastFactory ());
+    for (int x = 0; x < nSize; ++x)
+      for (int y = 0; y < nSize; ++y)
+        g.createNode (x + "/" + y);
+    for (int x = 0; x < nSize; ++x)
+      for (int y = 0; y < nSize; ++y)
+      {
+        // All weights are >= 10 so that 10 * Manhattan distance is admissible
+        if (x + 1 < nSize)
+          g.createRelation (x + "/" + y, (x + 1) + "/" + y).attrs ().putIn (ATTR_WEIGHT, 10 + aRandom.nextInt (20));
+        if (y + 1 < nSize)
+          g.createRelation (x + "/" + y, x + "/" + (y + 1)).attrs ().putIn (ATTR_WEIGHT, 10 + aRandom.nextInt (20));
+      }
+
+    final ShortestPathEngine <IMutableGraphNode, IMutableGraphRelation>.Query aQuery = ShortestPathEngine.create (g,
+                                                                                                                  ShortestPathEngineTest::_getWeight)
+                                                                                                          .createQuery ();
+    final ShortestPathEngine.IDistanceEstimator <IMutableGraphNode> aManhattan = (aNode, aTarget) -> {
+      final String [] a = aNode.getID ().split ("/");
+      final String [] b = aTarget.getID ().split ("/");
+      return 10L * (Math.abs (Integer.parseInt (a[0]) - Integer.parseInt (b[0])) +
+                    Math.abs (Integer.parseInt (a[1]) - Integer.parseInt (b[1])));
+    };
+
+    for (int i = 0; i < 20; ++i)
+    {
+      final String sFrom = aRandom.nextInt (nSize) + "/" + aRandom.nextInt (nSize);
+      final String sTo = aRandom.nextInt (nSize) + "/" + aRandom.nextInt (nSize);
+      final int nExpected = Dijkstra.applyDijkstra (g, sFrom, sTo, ShortestPathEngineTest::_getWeight)
+                                    .getResultDistance ();
+      assertEquals (nExpected, aQuery.findShortestPath (sFrom, sTo).getResultDistance ());
+      assertEquals (nExpected, aQuery.findShortestPath (sFrom, sTo, aManhattan).getResultDistance ());
+
+      aQuery.computeAllFrom (sFrom);
+      assertEquals (nExpected, aQuery.getDistanceTo (sTo));
+      assertEquals (nExpected, aQuery.getShortestPathTo (sTo).getResultDistance ());
+    }
+  }
+}
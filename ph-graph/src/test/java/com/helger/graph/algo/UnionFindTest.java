@@ -0,0 +1,67 @@
+/**
+ * Copyright (C) 2014-2017 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.graph.algo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Test class for class {@link UnionFind}.
+ *
+ * @author Philip Helger
+ */
+public final class UnionFindTest
+{
+  @Test
+  public void testBasic ()
+  {
+    final UnionFind aUF = new UnionFind (6);
+    assertEquals (6, aUF.getElementCount ());
+    assertEquals (6, aUF.getSetCount ());
+    assertFalse (aUF.isSameSet (0, 1));
+
+    assertTrue (aUF.union (0, 1));
+    assertTrue (aUF.union (2, 3));
+    assertTrue (aUF.union (1, 3));
+    assertFalse (aUF.union (0, 2));
+    assertEquals (3, aUF.getSetCount ());
+    assertTrue (aUF.isSameSet (0, 3));
+    assertEquals (aUF.find (0), aUF.find (2));
+    assertFalse (aUF.isSameSet (4, 5));
+    assertEquals (5, aUF.find (5));
+
+    assertTrue (aUF.union (4, 5));
+    assertTrue (aUF.union (5, 0));
+    assertEquals (1, aUF.getSetCount ());
+  }
+
+  @Test
+  public void testChain ()
+  {
+    final int nCount = 100_000;
+    final UnionFind aUF = new UnionFind (nCount);
+    for (int i = 1; i < nCount; ++i)
+      assertTrue (aUF.union (i - 1, i));
+    assertEquals (1, aUF.getSetCount ());
+    final int nRoot = aUF.find (0);
+    for (int i = 0; i < nCount; ++i)
+      assertEquals (nRoot, aUF.find (i));
+  }
+}
@@ -0,0 +1,189 @@
+/**
+ * Copyright (C) 2014-2017 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.graph.snapshot;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import javax.annotation.Nonnull;
+
+import org.junit.Test;
+
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.graph.algo.SnapshotShortestPath;
+import com.helger.graph.iterate.GraphSnapshotIterator;
+import com.helger.graph.simple.SimpleDirectedGraph;
+import com.helger.graph.simple.SimpleDirectedGraphObjectFastFactory;
+import com.helger.graph.simple.SimpleGraph;
+import com.helger.graph.simple.SimpleGraphObjectFastFactory;
+import com.helger.matrix.SparseMatrix;
+
+/**
+ * Test class for class {@link GraphSnapshot}.
+ *
+ * @author Philip Helger
+ */
+public final class GraphSnapshotTest
+{
+  @Nonnull
+  private static ICommonsList <String> _iterate (final GraphSnapshotIterator aIt, final GraphSnapshot aSnapshot)
+  {
+    final ICommonsList <String> ret = new CommonsArrayList <> ();
+    while (aIt.hasNext ())
+      ret.add (aSnapshot.getNodeID (aIt.nextInt ()));
+    return ret;
+  }
+
+  @Test
+  public void testDirected ()
+  {
+    final SimpleDirectedGraph g = new SimpleDirectedGraph (new SimpleDirectedGraphObjectFastFactory ());
+    for (int i = 1; i <= 5; ++i)
+      g.createNode (Integer.toString (i)).attrs ().putIn ("rank", i);
+    g.getNodeOfID ("3").attrs ().putIn ("name", "three");
+    g.createRelation ("1", "2").attrs ().putIn ("weight", 3);
+    g.createRelation ("1", "3").attrs ().putIn ("weight", 1);
+    g.createRelation ("3", "2").attrs ().putIn ("weight", 1);
+    g.createRelation ("2", "4").attrs ().putIn ("weight", 7);
+
+    final GraphSnapshot s = GraphSnapshot.create (g);
+    assertTrue (s.isDirected ());
+    assertEquals (5, s.getNodeCount ());
+    assertEquals (4, s.getRelationCount ());
+    assertEquals (4, s.getOutgoingSlotCount ());
+    assertEquals (-1, s.getNodeIndex ("6"));
+
+    final int n1 = s.getNodeIndex ("1");
+    final int n2 = s.getNodeIndex ("2");
+    assertEquals ("1", s.getNodeID (n1));
+    assertEquals (2, s.getOutgoingRelationCount (n1));
+    assertEquals (0, s.getIncomingRelationCount (n1));
+    assertEquals (1, s.getOutgoingRelationCount (n2));
+    assertEquals (2, s.getIncomingRelationCount (n2));
+    assertEquals (0, s.getOutgoingRelationCount (s.getNodeIndex ("5")));
+
+    final ICommonsList <String> aIncoming = new CommonsArrayList <> ();
+    s.forEachIncomingRelation (n2, (nRelation, nOther) -> {
+      assertEquals (n2, s.getRelationToNode (nRelation));
+      assertEquals (nOther, s.getRelationFromNode (nRelation));
+      aIncoming.add (s.getNodeID (nOther));
+    });
+    assertEquals (new CommonsArrayList <> ("1", "3"), aIncoming);
+
+    // Attributes
+    final AttributeColumn aRank = s.getNodeAttribute ("rank");
+    assertNotNull (aRank);
+    assertTrue (aRank.isIntColumn ());
+    assertEquals (2, aRank.getAsInt (n2, -1));
+    final AttributeColumn aName = s.getNodeAttribute ("name");
+    assertNotNull (aName);
+    assertFalse (aName.isIntColumn ());
+    assertEquals ("three", aName.getValue (s.getNodeIndex ("3")));
+    assertFalse (aName.hasValue (n1));
+    assertNull (s.getNodeAttribute ("any"));
+    assertNotNull (s.getRelationAttribute ("weight"));
+    assertTrue (GraphSnapshot.create (g, false).getAllNodeAttributeNames ().isEmpty ());
+
+    // Traversal
+    GraphSnapshotIterator it = new GraphSnapshotIterator (s, n1);
+    assertEquals (new CommonsArrayList <> ("1", "2", "4", "3"), _iterate (it, s));
+    assertFalse (it.hasCycles ());
+    it = new GraphSnapshotIterator (s, s.getNodeIndex ("4"), false, null);
+    assertEquals (new CommonsArrayList <> ("4", "2", "1", "3"), _iterate (it, s));
+
+    // Shortest path on the snapshot
+    final AttributeColumn aWeight = s.getRelationAttribute ("weight");
+    final SnapshotShortestPath aSP = SnapshotShortestPath.create (s, nRel -> aWeight.getAsInt (nRel, 0));
+    final SnapshotShortestPath.Query q = aSP.createQuery ();
+    assertEquals (9, q.findShortestPath (n1, s.getNodeIndex ("4")));
+    assertArrayEquals (new int [] { n1, s.getNodeIndex ("3"), n2, s.getNodeIndex ("4") },
+                       q.getPathTo (s.getNodeIndex ("4")));
+    assertEquals (SnapshotShortestPath.UNREACHABLE, q.findShortestPath (n1, s.getNodeIndex ("5")));
+    assertNull (q.getPathTo (s.getNodeIndex ("5")));
+  }
+
+  @Test
+  public void testUndirected ()
+  {
+    final SimpleGraph g = new SimpleGraph (new SimpleGraphObjectFastFactory ());
+    for (int i = 1; i <= 4; ++i)
+      g.createNode (Integer.toString (i));
+    g.createRelation ("1", "2");
+    g.createRelation ("2", "3");
+
+    GraphSnapshot s = GraphSnapshot.create (g);
+    assertFalse (s.isDirected ());
+    assertEquals (2, s.getRelationCount ());
+    assertEquals (4, s.getOutgoingSlotCount ());
+    final int n2 = s.getNodeIndex ("2");
+    assertEquals (2, s.getOutgoingRelationCount (n2));
+    assertEquals (2, s.getIncomingRelationCount (n2));
+
+    GraphSnapshotIterator it = new GraphSnapshotIterator (s, s.getNodeIndex ("3"));
+    assertEquals (new CommonsArrayList <> ("3", "2", "1"), _iterate (it, s));
+    assertFalse (it.hasCycles ());
+
+    // Close the cycle
+    g.createRelation ("3", "1");
+    s = GraphSnapshot.create (g);
+    it = new GraphSnapshotIterator (s, s.getNodeIndex ("1"));
+    assertEquals (3, _iterate (it, s).size ());
+    assertTrue (it.hasCycles ());
+
+    // Filter the new relation
+    final int nRel = s.getRelationCount () - 1;
+    it = new GraphSnapshotIterator (s, s.getNodeIndex ("1"), true, x -> x != nRel);
+    assertEquals (3, _iterate (it, s).size ());
+    assertFalse (it.hasCycles ());
+  }
+
+  @Test
+  public void testAdjacencyMatrix ()
+  {
+    final SimpleGraph g = new SimpleGraph (new SimpleGraphObjectFastFactory ());
+    for (int i = 1; i <= 3; ++i)
+      g.createNode (Integer.toString (i));
+    g.createRelation ("1", "2");
+    g.createRelation ("2", "3");
+    GraphSnapshot s = GraphSnapshot.create (g);
+    SparseMatrix m = s.createAdjacencyMatrix (x -> 1);
+    assertEquals (4, m.getNonZeroCount ());
+    assertTrue (m.isSymmetrical ());
+    assertEquals (1, m.get (s.getNodeIndex ("1"), s.getNodeIndex ("2")), 0);
+    assertEquals (1, m.get (s.getNodeIndex ("2"), s.getNodeIndex ("1")), 0);
+    assertEquals (0, m.get (s.getNodeIndex ("1"), s.getNodeIndex ("3")), 0);
+
+    final SimpleDirectedGraph dg = new SimpleDirectedGraph (new SimpleDirectedGraphObjectFastFactory ());
+    for (int i = 1; i <= 3; ++i)
+      dg.createNode (Integer.toString (i));
+    dg.createRelation ("1", "2");
+    dg.createRelation ("3", "1");
+    s = GraphSnapshot.create (dg);
+    final GraphSnapshot s2 = s;
+    m = s.createAdjacencyMatrix (x -> s2.getRelationToNode (x) == s2.getNodeIndex ("2") ? 3 : 1.5);
+    assertEquals (2, m.getNonZeroCount ());
+    assertFalse (m.isSymmetrical ());
+    assertEquals (3, m.get (s.getNodeIndex ("1"), s.getNodeIndex ("2")), 0);
+    assertEquals (0, m.get (s.getNodeIndex ("2"), s.getNodeIndex ("1")), 0);
+    assertEquals (1.5, m.get (s.getNodeIndex ("3"), s.getNodeIndex ("1")), 0);
+  }
+}
@@ -21,7 +21,6 @@ import java.io.Serializable;
 import javax.annotation.Nonnull;
 
 import com.helger.commons.annotation.ReturnsMutableCopy;
-import com.helger.commons.equals.EqualsHelper;
 
 /**
  * Cholesky Decomposition.
@@ -65,34 +64,38 @@ public class CholeskyDecomposition implements Serializable
    */
   public CholeskyDecomposition (@Nonnull final Matrix aMatrix)
   {
-    // Initialize.
-    final double [] [] aArray = aMatrix.internalGetArray ();
     m_nDim = aMatrix.getRowDimension ();
-    m_aData = new double [m_nDim] [m_nDim];
-    boolean bIsSPD = (aMatrix.getColumnDimension () == m_nDim);
-    // Main loop.
-    for (int nRow = 0; nRow < m_nDim; nRow++)
+    if (aMatrix.getColumnDimension () == m_nDim)
     {
-      final double [] aArrayJ = aArray[nRow];
-      final double [] aRowJ = m_aData[nRow];
-      double d = 0.0;
-      for (int nCol = 0; nCol < nRow; nCol++)
+      // Blocked algorithm on a contiguous copy
+      final double [] aData = aMatrix.getRowPackedCopy ();
+      m_bIsSPD = DenseMatrixHelper.decomposeCholesky (aData, m_nDim);
+      m_aData = DenseMatrixHelper.getAsRows (aData, m_nDim, m_nDim);
+    }
+    else
+    {
+      // Not square - partial decomposition of the unblocked algorithm
+      final double [] [] aArray = aMatrix.internalGetArray ();
+      m_aData = new double [m_nDim] [m_nDim];
+      for (int nRow = 0; nRow < m_nDim; nRow++)
       {
-        final double [] aRowK = m_aData[nCol];
-        double s = 0.0;
-        for (int i = 0; i < nCol; i++)
-          s += aRowK[i] * aRowJ[i];
-        aRowJ[nCol] = s = (aArrayJ[nCol] - s) / aRowK[nCol];
-        d += s * s;
-        bIsSPD = bIsSPD && EqualsHelper.equals (aArray[nCol][nRow], aArrayJ[nCol]);
+        final double [] aArrayJ = aArray[nRow];
+        final double [] aRowJ = m_aData[nRow];
+        double d = 0.0;
+        for (int nCol = 0; nCol < nRow; nCol++)
+        {
+          final double [] aRowK = m_aData[nCol];
+          double s = 0.0;
+          for (int i = 0; i < nCol; i++)
+            s += aRowK[i] * aRowJ[i];
+          aRowJ[nCol] = s = (aArrayJ[nCol] - s) / aRowK[nCol];
+          d += s * s;
+        }
+        d = aArrayJ[nRow] - d;
+        aRowJ[nRow] = Math.sqrt (Math.max (d, 0.0));
       }
-      d = aArrayJ[nRow] - d;
-      bIsSPD = bIsSPD && (d > 0.0);
-      aRowJ[nRow] = Math.sqrt (Math.max (d, 0.0));
-      for (int k = nRow + 1; k < m_nDim; k++)
-        aRowJ[k] = 0.0;
+      m_bIsSPD = false;
     }
-    m_bIsSPD = bIsSPD;
   }
 
   /*
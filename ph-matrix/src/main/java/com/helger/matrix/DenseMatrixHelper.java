@@ -0,0 +1,542 @@
+/**
+ * Copyright (C) 2014-2017 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.matrix;
+
+import java.util.Arrays;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.IntStream;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.PresentForCodeCoverage;
+import com.helger.commons.annotation.ReturnsMutableCopy;
+import com.helger.commons.equals.EqualsHelper;
+
+/**
+ * Cache-blocked kernels for dense matrices stored as one contiguous row-major
+ * <code>double[]</code>. Element (r, c) of a matrix with the leading dimension
+ * ld starting at ofs is located at <code>ofs + r * ld + c</code>. The
+ * multiplication runs in the common fork/join pool when the matrices are big
+ * enough, and the LU and Cholesky decompositions delegate their trailing
+ * updates to it.
+ *
+ * @author Philip Helger
+ * @since 9.0.0
+ */
+@Immutable
+public final class DenseMatrixHelper
+{
+  /** Rows of the result computed per block */
+  private static final int BLOCK_ROWS = 64;
+  /** Inner dimension per block */
+  private static final int BLOCK_INNER = 128;
+  /** Columns per block - BLOCK_INNER * BLOCK_COLS doubles of B stay in cache */
+  private static final int BLOCK_COLS = 512;
+  /** Panel width of the blocked decompositions */
+  private static final int BLOCK_PANEL = 64;
+  /** Minimum number of multiply-adds per task for parallel execution */
+  public static final long PARALLEL_THRESHOLD = 1L << 18;
+
+  @PresentForCodeCoverage
+  private static final DenseMatrixHelper s_aInstance = new DenseMatrixHelper ();
+
+  private DenseMatrixHelper ()
+  {}
+
+  /**
+   * Split a row-major array into rows.
+   *
+   * @param aData
+   *        Row-major source array
+   * @param nRows
+   *        Rows
+   * @param nCols
+   *        Columns
+   * @return The new rows
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  static double [] [] getAsRows (@Nonnull final double [] aData, final int nRows, final int nCols)
+  {
+    final double [] [] ret = new double [nRows] [];
+    for (int nRow = 0; nRow < nRows; nRow++)
+      ret[nRow] = Arrays.copyOfRange (aData, nRow * nCols, nRow * nCols + nCols);
+    return ret;
+  }
+
+  private static void _multiplyAddSequential (final double dAlpha,
+                                              @Nonnull final double [] aA,
+                                              final int nAOfs,
+                                              final int nLDA,
+                                              @Nonnull final double [] aB,
+                                              final int nBOfs,
+                                              final int nLDB,
+                                              @Nonnull final double [] aC,
+                                              final int nCOfs,
+                                              final int nLDC,
+                                              final int nRows,
+                                              final int nInner,
+                                              final int nCols)
+  {
+    for (int nRow0 = 0; nRow0 < nRows; nRow0 += BLOCK_ROWS)
+    {
+      final int nRowEnd = Math.min (nRow0 + BLOCK_ROWS, nRows);
+      for (int nInner0 = 0; nInner0 < nInner; nInner0 += BLOCK_INNER)
+      {
+        final int nInnerEnd = Math.min (nInner0 + BLOCK_INNER, nInner);
+        for (int nCol0 = 0; nCol0 < nCols; nCol0 += BLOCK_COLS)
+        {
+          final int nColEnd = Math.min (nCol0 + BLOCK_COLS, nCols);
+          for (int r = nRow0; r < nRowEnd; ++r)
+          {
+            final int nARow = nAOfs + r * nLDA;
+            final int nCRow = nCOfs + r * nLDC;
+            int k = nInner0;
+            // Four rows of B per pass, so that each element of C is loaded
+            // and stored only once for them
+            for (; k + 3 < nInnerEnd; k += 4)
+            {
+              final double dA0 = dAlpha * aA[nARow + k];
+              final double dA1 = dAlpha * aA[nARow + k + 1];
+              final double dA2 = dAlpha * aA[nARow + k + 2];
+              final double dA3 = dAlpha * aA[nARow + k + 3];
+              final int nBRow0 = nBOfs + k * nLDB;
+              final int nBRow1 = nBRow0 + nLDB;
+              final int nBRow2 = nBRow1 + nLDB;
+              final int nBRow3 = nBRow2 + nLDB;
+              // Simple counted loop that the JIT can vectorize
+              for (int c = nCol0; c < nColEnd; ++c)
+                aC[nCRow + c] += dA0 * aB[nBRow0 + c] +
+                                 dA1 * aB[nBRow1 + c] +
+                                 dA2 * aB[nBRow2 + c] +
+                                 dA3 * aB[nBRow3 + c];
+            }
+            for (; k < nInnerEnd; ++k)
+            {
+              final double dA = dAlpha * aA[nARow + k];
+              final int nBRow = nBOfs + k * nLDB;
+              for (int c = nCol0; c < nColEnd; ++c)
+                aC[nCRow + c] += dA * aB[nBRow + c];
+            }
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Splits the result rows until the tasks are small enough.
+   */
+  private static final class MultiplyTask extends RecursiveAction
+  {
+    private final double m_dAlpha;
+    private final double [] m_aA;
+    private final int m_nAOfs;
+    private final int m_nLDA;
+    private final double [] m_aB;
+    private final int m_nBOfs;
+    private final int m_nLDB;
+    private final double [] m_aC;
+    private final int m_nCOfs;
+    private final int m_nLDC;
+    private final int m_nRows;
+    private final int m_nInner;
+    private final int m_nCols;
+
+    MultiplyTask (final double dAlpha,
+                  @Nonnull final double [] aA,
+                  final int nAOfs,
+                  final int nLDA,
+                  @Nonnull final double [] aB,
+                  final int nBOfs,
+                  final int nLDB,
+                  @Nonnull final double [] aC,
+                  final int nCOfs,
+                  final int nLDC,
+                  final int nRows,
+                  final int nInner,
+                  final int nCols)
+    {
+      m_dAlpha = dAlpha;
+      m_aA = aA;
+      m_nAOfs = nAOfs;
+      m_nLDA = nLDA;
+      m_aB = aB;
+      m_nBOfs = nBOfs;
+      m_nLDB = nLDB;
+      m_aC = aC;
+      m_nCOfs = nCOfs;
+      m_nLDC = nLDC;
+      m_nRows = nRows;
+      m_nInner = nInner;
+      m_nCols = nCols;
+    }
+
+    @Override
+    protected void compute ()
+    {
+      if (m_nRows <= BLOCK_ROWS || (long) m_nRows * m_nInner * m_nCols < PARALLEL_THRESHOLD)
+      {
+        _multiplyAddSequential (m_dAlpha,
+                                m_aA,
+                                m_nAOfs,
+                                m_nLDA,
+                                m_aB,
+                                m_nBOfs,
+                                m_nLDB,
+                                m_aC,
+                                m_nCOfs,
+                                m_nLDC,
+                                m_nRows,
+                                m_nInner,
+                                m_nCols);
+      }
+      else
+      {
+        // Split at a block boundary
+        final int nHalf = ((m_nRows / 2 + BLOCK_ROWS - 1) / BLOCK_ROWS) * BLOCK_ROWS;
+        invokeAll (new MultiplyTask (m_dAlpha,
+                                     m_aA,
+                                     m_nAOfs,
+                                     m_nLDA,
+                                     m_aB,
+                                     m_nBOfs,
+                                     m_nLDB,
+                                     m_aC,
+                                     m_nCOfs,
+                                     m_nLDC,
+                                     nHalf,
+                                     m_nInner,
+                                     m_nCols),
+                   new MultiplyTask (m_dAlpha,
+                                     m_aA,
+                                     m_nAOfs + nHalf * m_nLDA,
+                                     m_nLDA,
+                                     m_aB,
+                                     m_nBOfs,
+                                     m_nLDB,
+                                     m_aC,
+                                     m_nCOfs + nHalf * m_nLDC,
+                                     m_nLDC,
+                                     m_nRows - nHalf,
+                                     m_nInner,
+                                     m_nCols));
+      }
+    }
+  }
+
+  /**
+   * Compute C += alpha * A * B on sub-matrices of row-major arrays. The
+   * regions of C must not overlap with the regions of A and B.
+   *
+   * @param dAlpha
+   *        Scalar factor
+   * @param aA
+   *        Array containing A (nRows x nInner)
+   * @param nAOfs
+   *        Offset of A
+   * @param nLDA
+   *        Leading dimension (row length) of A
+   * @param aB
+   *        Array containing B (nInner x nCols)
+   * @param nBOfs
+   *        Offset of B
+   * @param nLDB
+   *        Leading dimension of B
+   * @param aC
+   *        Array containing C (nRows x nCols)
+   * @param nCOfs
+   *        Offset of C
+   * @param nLDC
+   *        Leading dimension of C
+   * @param nRows
+   *        Rows of A and C
+   * @param nInner
+   *        Columns of A and rows of B
+   * @param nCols
+   *        Columns of B and C
+   */
+  public static void multiplyAdd (final double dAlpha,
+                                  @Nonnull final double [] aA,
+                                  @Nonnegative final int nAOfs,
+                                  @Nonnegative final int nLDA,
+                                  @Nonnull final double [] aB,
+                                  @Nonnegative final int nBOfs,
+                                  @Nonnegative final int nLDB,
+                                  @Nonnull final double [] aC,
+                                  @Nonnegative final int nCOfs,
+                                  @Nonnegative final int nLDC,
+                                  @Nonnegative final int nRows,
+                                  @Nonnegative final int nInner,
+                                  @Nonnegative final int nCols)
+  {
+    if (nRows == 0 || nInner == 0 || nCols == 0)
+      return;
+    if ((long) nRows * nInner * nCols < PARALLEL_THRESHOLD)
+      _multiplyAddSequential (dAlpha, aA, nAOfs, nLDA, aB, nBOfs, nLDB, aC, nCOfs, nLDC, nRows, nInner, nCols);
+    else
+      new MultiplyTask (dAlpha, aA, nAOfs, nLDA, aB, nBOfs, nLDB, aC, nCOfs, nLDC, nRows, nInner, nCols).invoke ();
+  }
+
+  /**
+   * Multiply two row-major matrices.
+   *
+   * @param aA
+   *        Matrix A with nRows x nInner elements. May not be <code>null</code>.
+   * @param aB
+   *        Matrix B with nInner x nCols elements. May not be <code>null</code>.
+   * @param nRows
+   *        Rows of A
+   * @param nInner
+   *        Columns of A and rows of B
+   * @param nCols
+   *        Columns of B
+   * @return The new row-major nRows x nCols matrix A * B. Never
+   *         <code>null</code>.
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public static double [] multiply (@Nonnull final double [] aA,
+                                    @Nonnull final double [] aB,
+                                    @Nonnegative final int nRows,
+                                    @Nonnegative final int nInner,
+                                    @Nonnegative final int nCols)
+  {
+    ValueEnforcer.isTrue (aA.length >= nRows * nInner, "A is too small");
+    ValueEnforcer.isTrue (aB.length >= nInner * nCols, "B is too small");
+
+    final double [] ret = new double [nRows * nCols];
+    multiplyAdd (1, aA, 0, nInner, aB, 0, nCols, ret, 0, nCols, nRows, nInner, nCols);
+    return ret;
+  }
+
+  /**
+   * In-place blocked LU decomposition with partial pivoting (right-looking).
+   * Afterwards the strict lower part of the array contains the multipliers of
+   * L (unit diagonal) and the upper part contains U. The pivot decisions are
+   * the same as with the unblocked Crout algorithm.
+   *
+   * @param aLU
+   *        Row-major nRows x nCols matrix. Overwritten.
+   * @param nRows
+   *        Rows
+   * @param nCols
+   *        Columns
+   * @param aPivot
+   *        Receives the pivot permutation. Must have nRows elements.
+   * @return The pivot sign (1 or -1)
+   */
+  public static int decomposeLU (@Nonnull final double [] aLU,
+                                 @Nonnegative final int nRows,
+                                 @Nonnegative final int nCols,
+                                 @Nonnull final int [] aPivot)
+  {
+    ValueEnforcer.isTrue (aLU.length >= nRows * nCols, "Matrix is too small");
+    ValueEnforcer.isTrue (aPivot.length >= nRows, "Pivot array is too small");
+
+    for (int i = 0; i < nRows; i++)
+      aPivot[i] = i;
+    int nPivSign = 1;
+    final int nMin = Math.min (nRows, nCols);
+    for (int nPanel = 0; nPanel < nMin; nPanel += BLOCK_PANEL)
+    {
+      final int nPanelEnd = Math.min (nPanel + BLOCK_PANEL, nMin);
+
+      // Unblocked factorization of the panel columns
+      for (int j = nPanel; j < nPanelEnd; ++j)
+      {
+        // Find pivot and exchange if necessary
+        int p = j;
+        double dMax = Math.abs (aLU[j * nCols + j]);
+        for (int i = j + 1; i < nRows; i++)
+        {
+          final double dAbs = Math.abs (aLU[i * nCols + j]);
+          if (dAbs > dMax)
+          {
+            dMax = dAbs;
+            p = i;
+          }
+        }
+        final int nRowJ = j * nCols;
+        if (p != j)
+        {
+          final int nRowP = p * nCols;
+          for (int k = 0; k < nCols; k++)
+          {
+            final double t = aLU[nRowP + k];
+            aLU[nRowP + k] = aLU[nRowJ + k];
+            aLU[nRowJ + k] = t;
+          }
+          final int k = aPivot[p];
+          aPivot[p] = aPivot[j];
+          aPivot[j] = k;
+          nPivSign = -nPivSign;
+        }
+
+        // Compute multipliers and update the rest of the panel
+        final double dDiag = aLU[nRowJ + j];
+        if (dDiag != 0.0)
+          for (int i = j + 1; i < nRows; i++)
+          {
+            final int nRowI = i * nCols;
+            final double dL = aLU[nRowI + j] /= dDiag;
+            if (dL != 0)
+              for (int k = j + 1; k < nPanelEnd; k++)
+                aLU[nRowI + k] -= dL * aLU[nRowJ + k];
+          }
+      }
+
+      if (nPanelEnd < nCols)
+      {
+        // U12 = L11^-1 * A12
+        for (int j = nPanel; j < nPanelEnd; ++j)
+        {
+          final int nRowJ = j * nCols;
+          for (int i = j + 1; i < nPanelEnd; i++)
+          {
+            final int nRowI = i * nCols;
+            final double dL = aLU[nRowI + j];
+            if (dL != 0)
+              for (int k = nPanelEnd; k < nCols; k++)
+                aLU[nRowI + k] -= dL * aLU[nRowJ + k];
+          }
+        }
+
+        // A22 -= L21 * U12
+        multiplyAdd (-1,
+                     aLU,
+                     nPanelEnd * nCols + nPanel,
+                     nCols,
+                     aLU,
+                     nPanel * nCols + nPanelEnd,
+                     nCols,
+                     aLU,
+                     nPanelEnd * nCols + nPanelEnd,
+                     nCols,
+                     nRows - nPanelEnd,
+                     nPanelEnd - nPanel,
+                     nCols - nPanelEnd);
+      }
+    }
+    return nPivSign;
+  }
+
+  /**
+   * In-place blocked Cholesky decomposition (right-looking). Only the lower
+   * triangle of the input is used for the decomposition, and afterwards the
+   * array contains L with zeros above the diagonal. Like the unblocked
+   * algorithm, a partial decomposition is returned if the matrix is not
+   * symmetric positive definite.
+   *
+   * @param aL
+   *        Row-major nDim x nDim matrix. Overwritten.
+   * @param nDim
+   *        Dimension
+   * @return <code>true</code> if the matrix is symmetric and positive definite.
+   */
+  public static boolean decomposeCholesky (@Nonnull final double [] aL, @Nonnegative final int nDim)
+  {
+    ValueEnforcer.isTrue (aL.length >= nDim * nDim, "Matrix is too small");
+
+    boolean bIsSPD = true;
+    for (int r = 0; r < nDim && bIsSPD; ++r)
+      for (int c = 0; c < r; ++c)
+        if (!EqualsHelper.equals (aL[c * nDim + r], aL[r * nDim + c]))
+        {
+          bIsSPD = false;
+          break;
+        }
+
+    double [] aTmp = null;
+    for (int nPanel = 0; nPanel < nDim; nPanel += BLOCK_PANEL)
+    {
+      final int nPanelEnd = Math.min (nPanel + BLOCK_PANEL, nDim);
+      final int nWidth = nPanelEnd - nPanel;
+
+      // Diagonal block and L21 - the contributions of previous panels were
+      // already subtracted by the trailing updates
+      for (int r = nPanel; r < nDim; ++r)
+      {
+        final int nRowR = r * nDim;
+        final int nColEnd = Math.min (r, nPanelEnd);
+        double d = 0;
+        for (int c = nPanel; c < nColEnd; ++c)
+        {
+          final int nRowC = c * nDim;
+          double s = 0;
+          for (int i = nPanel; i < c; ++i)
+            s += aL[nRowR + i] * aL[nRowC + i];
+          final double dValue = (aL[nRowR + c] - s) / aL[nRowC + c];
+          aL[nRowR + c] = dValue;
+          d += dValue * dValue;
+        }
+        if (r < nPanelEnd)
+        {
+          d = aL[nRowR + r] - d;
+          bIsSPD = bIsSPD && d > 0.0;
+          aL[nRowR + r] = Math.sqrt (Math.max (d, 0.0));
+        }
+      }
+
+      final int nRest = nDim - nPanelEnd;
+      if (nRest > 0)
+      {
+        // Transposed copy of L21
+        if (aTmp == null)
+          aTmp = new double [BLOCK_PANEL * nDim];
+        for (int r = 0; r < nRest; ++r)
+          for (int c = 0; c < nWidth; ++c)
+            aTmp[c * nRest + r] = aL[(nPanelEnd + r) * nDim + nPanel + c];
+
+        // A22 -= L21 * L21' - lower triangle only, in row blocks
+        final double [] aL21T = aTmp;
+        final int nL21Ofs = nPanelEnd * nDim + nPanel;
+        final int nA22Ofs = nPanelEnd * nDim + nPanelEnd;
+        final int nBlocks = (nRest + BLOCK_ROWS - 1) / BLOCK_ROWS;
+        IntStream aBlocks = IntStream.range (0, nBlocks);
+        if ((long) nRest * nRest * nWidth / 2 >= PARALLEL_THRESHOLD)
+          aBlocks = aBlocks.parallel ();
+        aBlocks.forEach (nBlock -> {
+          final int r0 = nBlock * BLOCK_ROWS;
+          final int nBlockRows = Math.min (BLOCK_ROWS, nRest - r0);
+          _multiplyAddSequential (-1,
+                                  aL,
+                                  nL21Ofs + r0 * nDim,
+                                  nDim,
+                                  aL21T,
+                                  0,
+                                  nRest,
+                                  aL,
+                                  nA22Ofs + r0 * nDim,
+                                  nDim,
+                                  nBlockRows,
+                                  nWidth,
+                                  r0 + nBlockRows);
+        });
+      }
+    }
+
+    // Clear the upper triangle
+    for (int r = 0; r < nDim; ++r)
+      for (int c = r + 1; c < nDim; ++c)
+        aL[r * nDim + c] = 0;
+    return bIsSPD;
+  }
+}
@@ -0,0 +1,693 @@
+/**
+ * Copyright (C) 2014-2017 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.matrix;
+
+import java.io.Serializable;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.ReturnsMutableCopy;
+import com.helger.commons.annotation.ReturnsMutableObject;
+import com.helger.commons.hashcode.HashCodeGenerator;
+import com.helger.commons.lang.ICloneable;
+import com.helger.commons.string.ToStringGenerator;
+
+/**
+ * Dense float matrix stored row-major in a single flat <code>float[]</code>.
+ * Element (r, c) is located at <code>offset + r * rowStride + c</code>, so
+ * {@link #getMatrix(int, int, int, int)} can return sub-matrices that share the
+ * storage of this matrix instead of copying it. Element-wise operations are
+ * simple counted loops over contiguous rows (or over the whole array if the
+ * matrix is compact), which the JIT compiler can vectorize.
+ *
+ * @author Philip Helger
+ * @since 9.0.0
+ * @see FlatMatrix
+ */
+@NotThreadSafe
+public class FlatMatrixFloat implements Serializable, ICloneable <FlatMatrixFloat>
+{
+  /**
+   * A kernel processing nCount consecutive elements. The second source is
+   * <code>null</code> for unary operations.
+   */
+  @FunctionalInterface
+  private interface IKernel
+  {
+    void apply (float [] aSrc1, int nSrc1Ofs, float [] aSrc2, int nSrc2Ofs, float [] aDst, int nDstOfs, int nCount);
+  }
+
+  private final float [] m_aData;
+  private final int m_nOffset;
+  private final int m_nRowStride;
+  private final int m_nRows;
+  private final int m_nCols;
+
+  /**
+   * Construct an nRows-by-nCols matrix of zeros.
+   *
+   * @param nRows
+   *        Number of rows.
+   * @param nCols
+   *        Number of columns.
+   */
+  public FlatMatrixFloat (@Nonnegative final int nRows, @Nonnegative final int nCols)
+  {
+    this (new float [_getSize (nRows, nCols)], 0, nCols, nRows, nCols);
+  }
+
+  /**
+   * Construct an nRows-by-nCols constant matrix.
+   *
+   * @param nRows
+   *        Number of rows.
+   * @param nCols
+   *        Number of columns.
+   * @param fValue
+   *        Fill the matrix with this scalar value.
+   */
+  public FlatMatrixFloat (@Nonnegative final int nRows, @Nonnegative final int nCols, final float fValue)
+  {
+    this (nRows, nCols);
+    for (int i = 0; i < m_aData.length; ++i)
+      m_aData[i] = fValue;
+  }
+
+  private FlatMatrixFloat (@Nonnull final float [] aData,
+                      @Nonnegative final int nOffset,
+                      @Nonnegative final int nRowStride,
+                      @Nonnegative final int nRows,
+                      @Nonnegative final int nCols)
+  {
+    m_aData = aData;
+    m_nOffset = nOffset;
+    m_nRowStride = nRowStride;
+    m_nRows = nRows;
+    m_nCols = nCols;
+  }
+
+  private static int _getSize (final int nRows, final int nCols)
+  {
+    ValueEnforcer.isGT0 (nRows, "Rows");
+    ValueEnforcer.isGT0 (nCols, "Cols");
+    final long nSize = (long) nRows * nCols;
+    ValueEnforcer.isTrue (nSize <= Integer.MAX_VALUE, "Matrix is too large for a single array");
+    return (int) nSize;
+  }
+
+  /**
+   * Create a matrix using the passed row-major array as storage without
+   * copying it.
+   *
+   * @param aData
+   *        Row-major data with at least nRows * nCols elements. May not be
+   *        <code>null</code>.
+   * @param nRows
+   *        Number of rows.
+   * @param nCols
+   *        Number of columns.
+   * @return The new matrix. Never <code>null</code>.
+   */
+  @Nonnull
+  public static FlatMatrixFloat wrap (@Nonnull final float [] aData,
+                                 @Nonnegative final int nRows,
+                                 @Nonnegative final int nCols)
+  {
+    ValueEnforcer.notNull (aData, "Data");
+    ValueEnforcer.isTrue (aData.length >= _getSize (nRows, nCols), "Data array is too small");
+    return new FlatMatrixFloat (aData, 0, nCols, nRows, nCols);
+  }
+
+  /**
+   * Create a single precision copy of a {@link Matrix}.
+   *
+   * @param aMatrix
+   *        Source matrix. May not be <code>null</code>.
+   * @return The new matrix. Never <code>null</code>.
+   */
+  @Nonnull
+  public static FlatMatrixFloat createFromMatrix (@Nonnull final Matrix aMatrix)
+  {
+    ValueEnforcer.notNull (aMatrix, "Matrix");
+    final int nRows = aMatrix.getRowDimension ();
+    final int nCols = aMatrix.getColumnDimension ();
+    final FlatMatrixFloat ret = new FlatMatrixFloat (nRows, nCols);
+    final double [] [] aSrc = aMatrix.internalGetArray ();
+    for (int nRow = 0; nRow < nRows; ++nRow)
+    {
+      final double [] aSrcRow = aSrc[nRow];
+      final int nOfs = nRow * nCols;
+      for (int nCol = 0; nCol < nCols; ++nCol)
+        ret.m_aData[nOfs + nCol] = (float) aSrcRow[nCol];
+    }
+    return ret;
+  }
+
+  /**
+   * @return A double precision {@link Matrix} copy of this matrix.
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public Matrix getAsMatrix ()
+  {
+    final Matrix ret = new Matrix (m_nRows, m_nCols);
+    final double [] [] aDst = ret.internalGetArray ();
+    for (int nRow = 0; nRow < m_nRows; ++nRow)
+    {
+      final double [] aDstRow = aDst[nRow];
+      final int nOfs = m_nOffset + nRow * m_nRowStride;
+      for (int nCol = 0; nCol < m_nCols; ++nCol)
+        aDstRow[nCol] = m_aData[nOfs + nCol];
+    }
+    return ret;
+  }
+
+  /**
+   * @return A compact copy of this matrix that does not share any storage.
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public FlatMatrixFloat getClone ()
+  {
+    return wrap (getRowPackedCopy (), m_nRows, m_nCols);
+  }
+
+  /**
+   * Access the internal storage. Use together with {@link #getOffset()} and
+   * {@link #getRowStride()}.
+   *
+   * @return The backing array, that may be shared with other views.
+   */
+  @Nonnull
+  @ReturnsMutableObject ("Direct access")
+  public float [] internalGetArray ()
+  {
+    return m_aData;
+  }
+
+  /**
+   * @return Index of element (0, 0) in the backing array.
+   */
+  @Nonnegative
+  public int getOffset ()
+  {
+    return m_nOffset;
+  }
+
+  /**
+   * @return Distance between the first elements of two consecutive rows in the
+   *         backing array.
+   */
+  @Nonnegative
+  public int getRowStride ()
+  {
+    return m_nRowStride;
+  }
+
+  /**
+   * @return <code>true</code> if the rows of this matrix are stored without
+   *         gaps, so that all elements form one contiguous range.
+   */
+  public boolean isCompact ()
+  {
+    return m_nRowStride == m_nCols || m_nRows == 1;
+  }
+
+  @Nonnegative
+  public int getRowDimension ()
+  {
+    return m_nRows;
+  }
+
+  @Nonnegative
+  public int getColumnDimension ()
+  {
+    return m_nCols;
+  }
+
+  /**
+   * @return A row-major copy of all elements. Never <code>null</code>.
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public float [] getRowPackedCopy ()
+  {
+    final float [] ret = new float [m_nRows * m_nCols];
+    if (isCompact ())
+      System.arraycopy (m_aData, m_nOffset, ret, 0, ret.length);
+    else
+      for (int nRow = 0; nRow < m_nRows; ++nRow)
+        System.arraycopy (m_aData, m_nOffset + nRow * m_nRowStride, ret, nRow * m_nCols, m_nCols);
+    return ret;
+  }
+
+  private int _getIndex (final int nRow, final int nCol)
+  {
+    if (nRow < 0 || nRow >= m_nRows || nCol < 0 || nCol >= m_nCols)
+      throw new ArrayIndexOutOfBoundsException ("Invalid position (" + nRow + "," + nCol + ")");
+    return m_nOffset + nRow * m_nRowStride + nCol;
+  }
+
+  public float get (@Nonnegative final int nRow, @Nonnegative final int nCol)
+  {
+    return m_aData[_getIndex (nRow, nCol)];
+  }
+
+  public void set (@Nonnegative final int nRow, @Nonnegative final int nCol, final float fValue)
+  {
+    m_aData[_getIndex (nRow, nCol)] = fValue;
+  }
+
+  /**
+   * Get a submatrix view. Modifications of the view are visible in this matrix
+   * and vice versa.
+   *
+   * @param nStartRowIndex
+   *        Initial row index
+   * @param nEndRowIndex
+   *        Final row index (inclusive)
+   * @param nStartColumnIndex
+   *        Initial column index
+   * @param nEndColumnIndex
+   *        Final column index (inclusive)
+   * @return Matrix(nStartRowIndex:nEndRowIndex,nStartColumnIndex:
+   *         nEndColumnIndex) sharing the storage of this matrix.
+   * @exception ArrayIndexOutOfBoundsException
+   *            Submatrix indices
+   */
+  @Nonnull
+  @ReturnsMutableObject ("View")
+  public FlatMatrixFloat getMatrix (@Nonnegative final int nStartRowIndex,
+                               @Nonnegative final int nEndRowIndex,
+                               @Nonnegative final int nStartColumnIndex,
+                               @Nonnegative final int nEndColumnIndex)
+  {
+    if (nStartRowIndex > nEndRowIndex || nStartColumnIndex > nEndColumnIndex)
+      throw new ArrayIndexOutOfBoundsException ("Empty submatrix");
+    // Checks both corners
+    _getIndex (nEndRowIndex, nEndColumnIndex);
+    return new FlatMatrixFloat (m_aData,
+                           _getIndex (nStartRowIndex, nStartColumnIndex),
+                           m_nRowStride,
+                           nEndRowIndex - nStartRowIndex + 1,
+                           nEndColumnIndex - nStartColumnIndex + 1);
+  }
+
+  /**
+   * Matrix transpose.
+   *
+   * @return A'
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public FlatMatrixFloat transpose ()
+  {
+    final FlatMatrixFloat ret = new FlatMatrixFloat (m_nCols, m_nRows);
+    final float [] aDst = ret.m_aData;
+    for (int nRow = 0; nRow < m_nRows; ++nRow)
+    {
+      final int nSrcOfs = m_nOffset + nRow * m_nRowStride;
+      for (int nCol = 0; nCol < m_nCols; ++nCol)
+        aDst[nCol * m_nRows + nRow] = m_aData[nSrcOfs + nCol];
+    }
+    return ret;
+  }
+
+  private void _checkMatrixDimensions (@Nonnull final FlatMatrixFloat aMatrix)
+  {
+    if (aMatrix.m_nRows != m_nRows)
+      throw new IllegalArgumentException ("Matrix row dimensions must agree.");
+    if (aMatrix.m_nCols != m_nCols)
+      throw new IllegalArgumentException ("Matrix column dimensions must agree.");
+  }
+
+  /**
+   * Apply a kernel to all elements. If all matrices are compact, the kernel is
+   * invoked only once for all elements, otherwise once per row.
+   */
+  private void _apply (@Nullable final FlatMatrixFloat aOther,
+                       @Nonnull final FlatMatrixFloat aDst,
+                       @Nonnull final IKernel aKernel)
+  {
+    final float [] aOtherData = aOther == null ? null : aOther.m_aData;
+    if (isCompact () && (aOther == null || aOther.isCompact ()) && aDst.isCompact ())
+      aKernel.apply (m_aData,
+                     m_nOffset,
+                     aOtherData,
+                     aOther == null ? 0 : aOther.m_nOffset,
+                     aDst.m_aData,
+                     aDst.m_nOffset,
+                     m_nRows * m_nCols);
+    else
+      for (int nRow = 0; nRow < m_nRows; ++nRow)
+        aKernel.apply (m_aData,
+                       m_nOffset + nRow * m_nRowStride,
+                       aOtherData,
+                       aOther == null ? 0 : aOther.m_nOffset + nRow * aOther.m_nRowStride,
+                       aDst.m_aData,
+                       aDst.m_nOffset + nRow * aDst.m_nRowStride,
+                       m_nCols);
+  }
+
+  private static void _plus (final float [] a,
+                             final int na,
+                             final float [] b,
+                             final int nb,
+                             final float [] c,
+                             final int nc,
+                             final int n)
+  {
+    for (int i = 0; i < n; ++i)
+      c[nc + i] = a[na + i] + b[nb + i];
+  }
+
+  private static void _minus (final float [] a,
+                              final int na,
+                              final float [] b,
+                              final int nb,
+                              final float [] c,
+                              final int nc,
+                              final int n)
+  {
+    for (int i = 0; i < n; ++i)
+      c[nc + i] = a[na + i] - b[nb + i];
+  }
+
+  private static void _arrayTimes (final float [] a,
+                                   final int na,
+                                   final float [] b,
+                                   final int nb,
+                                   final float [] c,
+                                   final int nc,
+                                   final int n)
+  {
+    for (int i = 0; i < n; ++i)
+      c[nc + i] = a[na + i] * b[nb + i];
+  }
+
+  @Nonnull
+  private static IKernel _scale (final float s)
+  {
+    return (a, na, b, nb, c, nc, n) -> {
+      for (int i = 0; i < n; ++i)
+        c[nc + i] = a[na + i] * s;
+    };
+  }
+
+  /**
+   * Unary minus
+   *
+   * @return -A
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public FlatMatrixFloat uminus ()
+  {
+    return times (-1);
+  }
+
+  /**
+   * C = A + B
+   *
+   * @param aMatrix
+   *        another matrix
+   * @return A + B
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public FlatMatrixFloat plus (@Nonnull final FlatMatrixFloat aMatrix)
+  {
+    _checkMatrixDimensions (aMatrix);
+    final FlatMatrixFloat ret = new FlatMatrixFloat (m_nRows, m_nCols);
+    _apply (aMatrix, ret, FlatMatrixFloat::_plus);
+    return ret;
+  }
+
+  /**
+   * A = A + B
+   *
+   * @param aMatrix
+   *        another matrix
+   * @return this
+   */
+  @Nonnull
+  public FlatMatrixFloat plusEquals (@Nonnull final FlatMatrixFloat aMatrix)
+  {
+    _checkMatrixDimensions (aMatrix);
+    _apply (aMatrix, this, FlatMatrixFloat::_plus);
+    return this;
+  }
+
+  /**
+   * C = A - B
+   *
+   * @param aMatrix
+   *        another matrix
+   * @return A - B
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public FlatMatrixFloat minus (@Nonnull final FlatMatrixFloat aMatrix)
+  {
+    _checkMatrixDimensions (aMatrix);
+    final FlatMatrixFloat ret = new FlatMatrixFloat (m_nRows, m_nCols);
+    _apply (aMatrix, ret, FlatMatrixFloat::_minus);
+    return ret;
+  }
+
+  /**
+   * A = A - B
+   *
+   * @param aMatrix
+   *        another matrix
+   * @return this
+   */
+  @Nonnull
+  public FlatMatrixFloat minusEquals (@Nonnull final FlatMatrixFloat aMatrix)
+  {
+    _checkMatrixDimensions (aMatrix);
+    _apply (aMatrix, this, FlatMatrixFloat::_minus);
+    return this;
+  }
+
+  /**
+   * Element-by-element multiplication, C = A.*B
+   *
+   * @param aMatrix
+   *        another matrix
+   * @return A.*B
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public FlatMatrixFloat arrayTimes (@Nonnull final FlatMatrixFloat aMatrix)
+  {
+    _checkMatrixDimensions (aMatrix);
+    final FlatMatrixFloat ret = new FlatMatrixFloat (m_nRows, m_nCols);
+    _apply (aMatrix, ret, FlatMatrixFloat::_arrayTimes);
+    return ret;
+  }
+
+  /**
+   * Element-by-element multiplication in place, A = A.*B
+   *
+   * @param aMatrix
+   *        another matrix
+   * @return this
+   */
+  @Nonnull
+  public FlatMatrixFloat arrayTimesEquals (@Nonnull final FlatMatrixFloat aMatrix)
+  {
+    _checkMatrixDimensions (aMatrix);
+    _apply (aMatrix, this, FlatMatrixFloat::_arrayTimes);
+    return this;
+  }
+
+  /**
+   * Multiply a matrix by a scalar, C = s*A
+   *
+   * @param s
+   *        scalar
+   * @return s*A
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public FlatMatrixFloat times (final float s)
+  {
+    final FlatMatrixFloat ret = new FlatMatrixFloat (m_nRows, m_nCols);
+    _apply (null, ret, _scale (s));
+    return ret;
+  }
+
+  /**
+   * Multiply a matrix by a scalar in place, A = s*A
+   *
+   * @param s
+   *        scalar
+   * @return this
+   */
+  @Nonnull
+  public FlatMatrixFloat timesEquals (final float s)
+  {
+    _apply (null, this, _scale (s));
+    return this;
+  }
+
+  /**
+   * Linear algebraic matrix multiplication, A * B. The inner loop runs over
+   * contiguous rows of B and the result.
+   *
+   * @param aMatrix
+   *        another matrix
+   * @return Matrix product, A * B
+   * @exception IllegalArgumentException
+   *            Matrix inner dimensions must agree.
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public FlatMatrixFloat times (@Nonnull final FlatMatrixFloat aMatrix)
+  {
+    if (aMatrix.m_nRows != m_nCols)
+      throw new IllegalArgumentException ("Matrix inner dimensions must agree.");
+
+    final int nCols = aMatrix.m_nCols;
+    final FlatMatrixFloat ret = new FlatMatrixFloat (m_nRows, nCols);
+    final float [] aB = aMatrix.m_aData;
+    final float [] aC = ret.m_aData;
+    for (int nRow = 0; nRow < m_nRows; ++nRow)
+    {
+      final int nAOfs = m_nOffset + nRow * m_nRowStride;
+      final int nCOfs = nRow * nCols;
+      for (int k = 0; k < m_nCols; ++k)
+      {
+        final float a = m_aData[nAOfs + k];
+        final int nBOfs = aMatrix.m_nOffset + k * aMatrix.m_nRowStride;
+        for (int nCol = 0; nCol < nCols; ++nCol)
+          aC[nCOfs + nCol] += a * aB[nBOfs + nCol];
+      }
+    }
+    return ret;
+  }
+
+  /**
+   * One norm
+   *
+   * @return maximum column sum.
+   */
+  public double norm1 ()
+  {
+    // Sum up row by row, so that the inner loop is contiguous
+    final double [] aSums = new double [m_nCols];
+    for (int nRow = 0; nRow < m_nRows; ++nRow)
+    {
+      final int nOfs = m_nOffset + nRow * m_nRowStride;
+      for (int nCol = 0; nCol < m_nCols; ++nCol)
+        aSums[nCol] += Math.abs (m_aData[nOfs + nCol]);
+    }
+    double ret = 0;
+    for (final double dSum : aSums)
+      ret = Math.max (ret, dSum);
+    return ret;
+  }
+
+  /**
+   * Infinity norm
+   *
+   * @return maximum row sum.
+   */
+  public double normInf ()
+  {
+    double ret = 0;
+    for (int nRow = 0; nRow < m_nRows; ++nRow)
+    {
+      final int nOfs = m_nOffset + nRow * m_nRowStride;
+      double dSum = 0;
+      for (int nCol = 0; nCol < m_nCols; ++nCol)
+        dSum += Math.abs (m_aData[nOfs + nCol]);
+      ret = Math.max (ret, dSum);
+    }
+    return ret;
+  }
+
+  /**
+   * Frobenius norm. The squares are summed up in double precision, which can
+   * neither overflow nor underflow for float values.
+   *
+   * @return sqrt of sum of squares of all elements.
+   */
+  public double normF ()
+  {
+    double dSum = 0;
+    for (int nRow = 0; nRow < m_nRows; ++nRow)
+    {
+      final int nOfs = m_nOffset + nRow * m_nRowStride;
+      for (int nCol = 0; nCol < m_nCols; ++nCol)
+      {
+        final double d = m_aData[nOfs + nCol];
+        dSum += d * d;
+      }
+    }
+    return Math.sqrt (dSum);
+  }
+
+  @Override
+  public boolean equals (final Object o)
+  {
+    if (o == this)
+      return true;
+    if (o == null || !getClass ().equals (o.getClass ()))
+      return false;
+    final FlatMatrixFloat rhs = (FlatMatrixFloat) o;
+    if (m_nRows != rhs.m_nRows || m_nCols != rhs.m_nCols)
+      return false;
+    for (int nRow = 0; nRow < m_nRows; ++nRow)
+    {
+      final int nOfs1 = m_nOffset + nRow * m_nRowStride;
+      final int nOfs2 = rhs.m_nOffset + nRow * rhs.m_nRowStride;
+      for (int nCol = 0; nCol < m_nCols; ++nCol)
+        if (Float.floatToIntBits (m_aData[nOfs1 + nCol]) != Float.floatToIntBits (rhs.m_aData[nOfs2 + nCol]))
+          return false;
+    }
+    return true;
+  }
+
+  @Override
+  public int hashCode ()
+  {
+    final HashCodeGenerator aHC = new HashCodeGenerator (this).append (m_nRows).append (m_nCols);
+    for (int nRow = 0; nRow < m_nRows; ++nRow)
+    {
+      final int nOfs = m_nOffset + nRow * m_nRowStride;
+      for (int nCol = 0; nCol < m_nCols; ++nCol)
+        aHC.append (m_aData[nOfs + nCol]);
+    }
+    return aHC.getHashCode ();
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("Rows", m_nRows)
+                                       .append ("Cols", m_nCols)
+                                       .append ("Offset", m_nOffset)
+                                       .append ("RowStride", m_nRowStride)
+                                       .getToString ();
+  }
+}
@@ -21,7 +21,6 @@ import java.io.Serializable;
 import javax.annotation.Nonnull;
 
 import com.helger.commons.annotation.ReturnsMutableCopy;
-import com.helger.commons.math.MathHelper;
 
 /**
  * LU Decomposition.
@@ -74,65 +73,14 @@ public class LUDecomposition implements Serializable
 
   public LUDecomposition (@Nonnull final Matrix aMatrix)
   {
-    // Use a "left-looking", dot-product, Crout/Doolittle algorithm.
-    m_aLU = aMatrix.getArrayCopy ();
+    // Use a blocked, right-looking algorithm on a contiguous copy - the
+    // trailing updates are matrix multiplications
     m_nRows = aMatrix.getRowDimension ();
     m_nCols = aMatrix.getColumnDimension ();
     m_aPivot = new int [m_nRows];
-    for (int i = 0; i < m_nRows; i++)
-      m_aPivot[i] = i;
-    int nPivSign = 1;
-    double [] aLUrowi;
-    final double [] aLUcolj = new double [m_nRows];
-
-    // Outer loop.
-    for (int j = 0; j < m_nCols; j++)
-    {
-      // Make a copy of the j-th column to localize references.
-      for (int i = 0; i < m_nRows; i++)
-        aLUcolj[i] = m_aLU[i][j];
-
-      // Apply previous transformations.
-      for (int i = 0; i < m_nRows; i++)
-      {
-        aLUrowi = m_aLU[i];
-
-        // Most of the time is spent in the following dot product.
-        final int kmax = Math.min (i, j);
-        double s = 0.0;
-        for (int k = 0; k < kmax; k++)
-          s += aLUrowi[k] * aLUcolj[k];
-
-        aLUrowi[j] = aLUcolj[i] -= s;
-      }
-
-      // Find pivot and exchange if necessary.
-      int p = j;
-      for (int i = j + 1; i < m_nRows; i++)
-        if (MathHelper.abs (aLUcolj[i]) > MathHelper.abs (aLUcolj[p]))
-          p = i;
-      final double [] aLUj = m_aLU[j];
-      if (p != j)
-      {
-        final double [] aLUp = m_aLU[p];
-        for (int k = 0; k < m_nCols; k++)
-        {
-          final double t = aLUp[k];
-          aLUp[k] = aLUj[k];
-          aLUj[k] = t;
-        }
-        final int k = m_aPivot[p];
-        m_aPivot[p] = m_aPivot[j];
-        m_aPivot[j] = k;
-        nPivSign = -nPivSign;
-      }
-
-      // Compute multipliers.
-      if (j < m_nRows && aLUj[j] != 0.0)
-        for (int i = j + 1; i < m_nRows; i++)
-          m_aLU[i][j] /= aLUj[j];
-    }
-    m_nPivSign = nPivSign;
+    final double [] aLU = aMatrix.getRowPackedCopy ();
+    m_nPivSign = DenseMatrixHelper.decomposeLU (aLU, m_nRows, m_nCols, m_aPivot);
+    m_aLU = DenseMatrixHelper.getAsRows (aLU, m_nRows, m_nCols);
   }
 
   /*
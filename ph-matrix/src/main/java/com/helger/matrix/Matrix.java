@@ -328,11 +328,7 @@ public class Matrix implements Serializable, ICloneable <Matrix>
   {
     final double [] ret = new double [m_nRows * m_nCols];
     for (int nRow = 0; nRow < m_nRows; nRow++)
-    {
-      final double [] aSrcRow = m_aData[nRow];
-      for (int nCol = 0; nCol < m_nCols; nCol++)
-        ret[nRow * m_nCols + nCol] = aSrcRow[nCol];
-    }
+      System.arraycopy (m_aData[nRow], 0, ret, nRow * m_nCols, m_nCols);
     return ret;
   }
 
@@ -1041,26 +1037,13 @@ public class Matrix implements Serializable, ICloneable <Matrix>
     if (aMatrix.m_nRows != m_nCols)
       throw new IllegalArgumentException ("Matrix inner dimensions must agree.");
 
-    final Matrix aNewMatrix = new Matrix (m_nRows, aMatrix.m_nCols);
-    final double [] [] aNewArray = aNewMatrix.internalGetArray ();
-    final double [] aRhsCol = new double [m_nCols];
-    for (int nCol = 0; nCol < aMatrix.m_nCols; nCol++)
-    {
-      for (int k = 0; k < m_nCols; k++)
-        aRhsCol[k] = aMatrix.m_aData[k][nCol];
-
-      for (int nRow = 0; nRow < m_nRows; nRow++)
-      {
-        final double [] aRow = m_aData[nRow];
-
-        // Build and assign sum
-        double dValue = 0;
-        for (int k = 0; k < m_nCols; k++)
-          dValue += aRow[k] * aRhsCol[k];
-        aNewArray[nRow][nCol] = dValue;
-      }
-    }
-    return aNewMatrix;
+    // Cache-blocked and parallel on contiguous row-major copies
+    final double [] aResult = DenseMatrixHelper.multiply (getRowPackedCopy (),
+                                                          aMatrix.getRowPackedCopy (),
+                                                          m_nRows,
+                                                          m_nCols,
+                                                          aMatrix.m_nCols);
+    return new Matrix (DenseMatrixHelper.getAsRows (aResult, m_nRows, aMatrix.m_nCols), m_nRows, aMatrix.m_nCols);
   }
 
   /**
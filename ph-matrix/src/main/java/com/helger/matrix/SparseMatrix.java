@@ -0,0 +1,640 @@
+/**
+ * Copyright (C) 2014-2017 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.matrix;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.ReturnsMutableCopy;
+import com.helger.commons.hashcode.HashCodeGenerator;
+import com.helger.commons.string.ToStringGenerator;
+
+/**
+ * Immutable sparse matrix in compressed sparse row (CSR) format. Only the
+ * non-zero elements are stored, ordered by row and column, so the memory
+ * consumption is proportional to the number of non-zero elements. The CSR
+ * representation of {@link #transpose()} is the compressed sparse column (CSC)
+ * representation of this matrix.<br>
+ * Use {@link Builder} or {@link #createFromMatrix(Matrix)} to create
+ * instances, and {@link #solve(Matrix)} or {@link SparseSolver} to solve linear
+ * systems iteratively.
+ *
+ * @author Philip Helger
+ * @since 9.0.0
+ */
+@Immutable
+public final class SparseMatrix implements Serializable
+{
+  /** Minimum number of non-zero elements for parallel matrix-vector products */
+  private static final int PARALLEL_THRESHOLD = 1 << 16;
+
+  private final int m_nRows;
+  private final int m_nCols;
+  // The elements of row r are at m_aRowStart[r] to m_aRowStart[r+1]
+  private final int [] m_aRowStart;
+  private final int [] m_aColIndex;
+  private final double [] m_aValues;
+
+  private SparseMatrix (@Nonnegative final int nRows,
+                        @Nonnegative final int nCols,
+                        @Nonnull final int [] aRowStart,
+                        @Nonnull final int [] aColIndex,
+                        @Nonnull final double [] aValues)
+  {
+    m_nRows = nRows;
+    m_nCols = nCols;
+    m_aRowStart = aRowStart;
+    m_aColIndex = aColIndex;
+    m_aValues = aValues;
+  }
+
+  /**
+   * Builder for sparse matrices. Elements may be added in any order; multiple
+   * values for the same position are summed up.
+   *
+   * @author Philip Helger
+   */
+  @NotThreadSafe
+  public static final class Builder
+  {
+    private final int m_nRows;
+    private final int m_nCols;
+    private int [] m_aRows = new int [16];
+    private int [] m_aCols = new int [16];
+    private double [] m_aValues = new double [16];
+    private int m_nCount = 0;
+
+    public Builder (@Nonnegative final int nRows, @Nonnegative final int nCols)
+    {
+      ValueEnforcer.isGT0 (nRows, "Rows");
+      ValueEnforcer.isGT0 (nCols, "Cols");
+      m_nRows = nRows;
+      m_nCols = nCols;
+    }
+
+    /**
+     * Add a value to the element at the passed position.
+     *
+     * @param nRow
+     *        Row index
+     * @param nCol
+     *        Column index
+     * @param dValue
+     *        Value to add
+     * @return this for chaining
+     */
+    @Nonnull
+    public Builder add (@Nonnegative final int nRow, @Nonnegative final int nCol, final double dValue)
+    {
+      ValueEnforcer.isBetweenInclusive (nRow, "Row", 0, m_nRows - 1);
+      ValueEnforcer.isBetweenInclusive (nCol, "Col", 0, m_nCols - 1);
+      if (m_nCount == m_aRows.length)
+      {
+        final int nNewSize = m_nCount * 2;
+        m_aRows = Arrays.copyOf (m_aRows, nNewSize);
+        m_aCols = Arrays.copyOf (m_aCols, nNewSize);
+        m_aValues = Arrays.copyOf (m_aValues, nNewSize);
+      }
+      m_aRows[m_nCount] = nRow;
+      m_aCols[m_nCount] = nCol;
+      m_aValues[m_nCount] = dValue;
+      m_nCount++;
+      return this;
+    }
+
+    @Nonnull
+    public SparseMatrix build ()
+    {
+      // Counting sort by row
+      final int [] aRowStart = new int [m_nRows + 1];
+      for (int i = 0; i < m_nCount; ++i)
+        aRowStart[m_aRows[i] + 1]++;
+      for (int i = 0; i < m_nRows; ++i)
+        aRowStart[i + 1] += aRowStart[i];
+      final int [] aNextPos = Arrays.copyOf (aRowStart, m_nRows);
+      final int [] aCols = new int [m_nCount];
+      final double [] aValues = new double [m_nCount];
+      for (int i = 0; i < m_nCount; ++i)
+      {
+        final int nPos = aNextPos[m_aRows[i]]++;
+        aCols[nPos] = m_aCols[i];
+        aValues[nPos] = m_aValues[i];
+      }
+
+      // Sort each row by column, sum duplicates and drop zeros
+      final int [] aNewRowStart = new int [m_nRows + 1];
+      int nNonZero = 0;
+      long [] aKeys = new long [0];
+      final double [] aRowValues = new double [m_nCount];
+      for (int nRow = 0; nRow < m_nRows; ++nRow)
+      {
+        final int nStart = aRowStart[nRow];
+        final int nLen = aRowStart[nRow + 1] - nStart;
+        if (aKeys.length < nLen)
+          aKeys = new long [Math.max (nLen, aKeys.length * 2)];
+        for (int i = 0; i < nLen; ++i)
+          aKeys[i] = ((long) aCols[nStart + i] << 32) | i;
+        Arrays.sort (aKeys, 0, nLen);
+        for (int i = 0; i < nLen; ++i)
+          aRowValues[i] = aValues[nStart + (int) aKeys[i]];
+
+        int i = 0;
+        while (i < nLen)
+        {
+          final int nCol = (int) (aKeys[i] >>> 32);
+          double dSum = 0;
+          while (i < nLen && (int) (aKeys[i] >>> 32) == nCol)
+            dSum += aRowValues[i++];
+          if (dSum != 0)
+          {
+            // Compacting in place is safe, as nNonZero <= nStart + i
+            aCols[nNonZero] = nCol;
+            aValues[nNonZero] = dSum;
+            nNonZero++;
+          }
+        }
+        aNewRowStart[nRow + 1] = nNonZero;
+      }
+      return new SparseMatrix (m_nRows,
+                               m_nCols,
+                               aNewRowStart,
+                               Arrays.copyOf (aCols, nNonZero),
+                               Arrays.copyOf (aValues, nNonZero));
+    }
+  }
+
+  @Nonnegative
+  public int getRowDimension ()
+  {
+    return m_nRows;
+  }
+
+  @Nonnegative
+  public int getColumnDimension ()
+  {
+    return m_nCols;
+  }
+
+  /**
+   * @return The number of stored (non-zero) elements.
+   */
+  @Nonnegative
+  public int getNonZeroCount ()
+  {
+    return m_aValues.length;
+  }
+
+  /**
+   * @param nRow
+   *        Row index
+   * @return The index of the first stored element of the row. The elements of
+   *         the row end at the start of the next row.
+   */
+  public int getRowStart (@Nonnegative final int nRow)
+  {
+    return m_aRowStart[nRow];
+  }
+
+  /**
+   * @param nIndex
+   *        Element index (see {@link #getRowStart(int)})
+   * @return The column of the stored element
+   */
+  public int getColumnIndexAt (@Nonnegative final int nIndex)
+  {
+    return m_aColIndex[nIndex];
+  }
+
+  /**
+   * @param nIndex
+   *        Element index (see {@link #getRowStart(int)})
+   * @return The value of the stored element
+   */
+  public double getValueAt (@Nonnegative final int nIndex)
+  {
+    return m_aValues[nIndex];
+  }
+
+  /**
+   * Get a single element.
+   *
+   * @param nRow
+   *        Row index
+   * @param nCol
+   *        Column index
+   * @return The element or 0 if it is not stored
+   */
+  public double get (@Nonnegative final int nRow, @Nonnegative final int nCol)
+  {
+    final int nIndex = Arrays.binarySearch (m_aColIndex, m_aRowStart[nRow], m_aRowStart[nRow + 1], nCol);
+    return nIndex >= 0 ? m_aValues[nIndex] : 0;
+  }
+
+  /**
+   * @return The diagonal elements. Never <code>null</code>.
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public double [] getDiagonal ()
+  {
+    final double [] ret = new double [Math.min (m_nRows, m_nCols)];
+    for (int i = 0; i < ret.length; ++i)
+      ret[i] = get (i, i);
+    return ret;
+  }
+
+  /**
+   * @return A dense copy of this matrix. Never <code>null</code>.
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public Matrix getAsMatrix ()
+  {
+    final Matrix ret = new Matrix (m_nRows, m_nCols);
+    final double [] [] aData = ret.internalGetArray ();
+    for (int nRow = 0; nRow < m_nRows; ++nRow)
+    {
+      final double [] aRow = aData[nRow];
+      for (int i = m_aRowStart[nRow]; i < m_aRowStart[nRow + 1]; ++i)
+        aRow[m_aColIndex[i]] = m_aValues[i];
+    }
+    return ret;
+  }
+
+  /**
+   * @return The transposed matrix. Its CSR arrays are the CSC arrays of this
+   *         matrix.
+   */
+  @Nonnull
+  public SparseMatrix transpose ()
+  {
+    final int nNonZero = m_aValues.length;
+    final int [] aRowStart = new int [m_nCols + 1];
+    for (final int nCol : m_aColIndex)
+      aRowStart[nCol + 1]++;
+    for (int i = 0; i < m_nCols; ++i)
+      aRowStart[i + 1] += aRowStart[i];
+
+    // Rows are processed in ascending order, so the new rows are sorted
+    final int [] aNextPos = Arrays.copyOf (aRowStart, m_nCols);
+    final int [] aColIndex = new int [nNonZero];
+    final double [] aValues = new double [nNonZero];
+    for (int nRow = 0; nRow < m_nRows; ++nRow)
+      for (int i = m_aRowStart[nRow]; i < m_aRowStart[nRow + 1]; ++i)
+      {
+        final int nPos = aNextPos[m_aColIndex[i]]++;
+        aColIndex[nPos] = nRow;
+        aValues[nPos] = m_aValues[i];
+      }
+    return new SparseMatrix (m_nCols, m_nRows, aRowStart, aColIndex, aValues);
+  }
+
+  /**
+   * @return <code>true</code> if the matrix is square and equal to its
+   *         transposed matrix.
+   */
+  public boolean isSymmetrical ()
+  {
+    if (m_nRows != m_nCols)
+      return false;
+    final SparseMatrix aT = transpose ();
+    return Arrays.equals (m_aRowStart, aT.m_aRowStart) &&
+           Arrays.equals (m_aColIndex, aT.m_aColIndex) &&
+           Arrays.equals (m_aValues, aT.m_aValues);
+  }
+
+  /**
+   * Multiply a matrix with a scalar, A = s*A
+   *
+   * @param s
+   *        scalar
+   * @return s*A
+   */
+  @Nonnull
+  public SparseMatrix times (final double s)
+  {
+    if (s == 0)
+      return new SparseMatrix (m_nRows, m_nCols, new int [m_nRows + 1], new int [0], new double [0]);
+    final double [] aValues = new double [m_aValues.length];
+    for (int i = 0; i < aValues.length; ++i)
+      aValues[i] = m_aValues[i] * s;
+    return new SparseMatrix (m_nRows, m_nCols, m_aRowStart, m_aColIndex, aValues);
+  }
+
+  private double _rowTimes (final int nRow, @Nonnull final double [] aVector)
+  {
+    double d = 0;
+    for (int i = m_aRowStart[nRow]; i < m_aRowStart[nRow + 1]; ++i)
+      d += m_aValues[i] * aVector[m_aColIndex[i]];
+    return d;
+  }
+
+  /**
+   * Compute y = A * x, with y being an existing array.
+   *
+   * @param aVector
+   *        Vector x with as many elements as this matrix has columns.
+   * @param aResult
+   *        Vector y with as many elements as this matrix has rows.
+   */
+  public void times (@Nonnull final double [] aVector, @Nonnull final double [] aResult)
+  {
+    ValueEnforcer.isTrue (aVector.length == m_nCols, "Vector length must match the column dimension");
+    ValueEnforcer.isTrue (aResult.length == m_nRows, "Result length must match the row dimension");
+
+    if (m_aValues.length >= PARALLEL_THRESHOLD)
+      IntStream.range (0, m_nRows).parallel ().forEach (nRow -> aResult[nRow] = _rowTimes (nRow, aVector));
+    else
+      for (int nRow = 0; nRow < m_nRows; ++nRow)
+        aResult[nRow] = _rowTimes (nRow, aVector);
+  }
+
+  /**
+   * Matrix-vector multiplication, A * x
+   *
+   * @param aVector
+   *        Vector x with as many elements as this matrix has columns.
+   * @return A * x
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public double [] times (@Nonnull final double [] aVector)
+  {
+    final double [] ret = new double [m_nRows];
+    times (aVector, ret);
+    return ret;
+  }
+
+  /**
+   * Sparse-dense matrix multiplication, A * B
+   *
+   * @param aMatrix
+   *        Dense matrix B
+   * @return A * B as a dense matrix
+   * @exception IllegalArgumentException
+   *            Matrix inner dimensions must agree.
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public Matrix times (@Nonnull final Matrix aMatrix)
+  {
+    if (aMatrix.getRowDimension () != m_nCols)
+      throw new IllegalArgumentException ("Matrix inner dimensions must agree.");
+
+    final int nCols = aMatrix.getColumnDimension ();
+    final double [] [] aSrc = aMatrix.internalGetArray ();
+    final Matrix ret = new Matrix (m_nRows, nCols);
+    final double [] [] aDst = ret.internalGetArray ();
+    for (int nRow = 0; nRow < m_nRows; ++nRow)
+    {
+      final double [] aDstRow = aDst[nRow];
+      for (int i = m_aRowStart[nRow]; i < m_aRowStart[nRow + 1]; ++i)
+      {
+        final double dValue = m_aValues[i];
+        final double [] aSrcRow = aSrc[m_aColIndex[i]];
+        for (int nCol = 0; nCol < nCols; ++nCol)
+          aDstRow[nCol] += dValue * aSrcRow[nCol];
+      }
+    }
+    return ret;
+  }
+
+  /**
+   * Sparse-sparse matrix multiplication, A * B (Gustavson's algorithm)
+   *
+   * @param aMatrix
+   *        Sparse matrix B
+   * @return A * B as a sparse matrix
+   * @exception IllegalArgumentException
+   *            Matrix inner dimensions must agree.
+   */
+  @Nonnull
+  public SparseMatrix times (@Nonnull final SparseMatrix aMatrix)
+  {
+    if (aMatrix.m_nRows != m_nCols)
+      throw new IllegalArgumentException ("Matrix inner dimensions must agree.");
+
+    final int nCols = aMatrix.m_nCols;
+    // Dense accumulator for one result row, and the columns touched in it
+    final double [] aAccumulator = new double [nCols];
+    final int [] aMarker = new int [nCols];
+    Arrays.fill (aMarker, -1);
+    final int [] aTouched = new int [nCols];
+
+    final int [] aRowStart = new int [m_nRows + 1];
+    int [] aColIndex = new int [Math.max (m_aValues.length, 16)];
+    double [] aValues = new double [aColIndex.length];
+    int nNonZero = 0;
+    for (int nRow = 0; nRow < m_nRows; ++nRow)
+    {
+      int nTouched = 0;
+      for (int i = m_aRowStart[nRow]; i < m_aRowStart[nRow + 1]; ++i)
+      {
+        final double dValue = m_aValues[i];
+        final int nInner = m_aColIndex[i];
+        for (int j = aMatrix.m_aRowStart[nInner]; j < aMatrix.m_aRowStart[nInner + 1]; ++j)
+        {
+          final int nCol = aMatrix.m_aColIndex[j];
+          if (aMarker[nCol] != nRow)
+          {
+            aMarker[nCol] = nRow;
+            aAccumulator[nCol] = 0;
+            aTouched[nTouched++] = nCol;
+          }
+          aAccumulator[nCol] += dValue * aMatrix.m_aValues[j];
+        }
+      }
+
+      Arrays.sort (aTouched, 0, nTouched);
+      if (nNonZero + nTouched > aColIndex.length)
+      {
+        final int nNewSize = Math.max (aColIndex.length * 2, nNonZero + nTouched);
+        aColIndex = Arrays.copyOf (aColIndex, nNewSize);
+        aValues = Arrays.copyOf (aValues, nNewSize);
+      }
+      for (int i = 0; i < nTouched; ++i)
+      {
+        final double dValue = aAccumulator[aTouched[i]];
+        if (dValue != 0)
+        {
+          aColIndex[nNonZero] = aTouched[i];
+          aValues[nNonZero] = dValue;
+          nNonZero++;
+        }
+      }
+      aRowStart[nRow + 1] = nNonZero;
+    }
+    return new SparseMatrix (m_nRows,
+                             nCols,
+                             aRowStart,
+                             Arrays.copyOf (aColIndex, nNonZero),
+                             Arrays.copyOf (aValues, nNonZero));
+  }
+
+  /**
+   * Solve A*X = B iteratively, column by column. Symmetric matrices are first
+   * solved with the conjugate gradient method. As this requires a positive
+   * definite matrix, BiCGSTAB is used if it does not converge (e.g. for the
+   * adjacency matrix of an undirected graph). All other matrices are solved
+   * with BiCGSTAB directly. Use {@link SparseSolver} directly for more control.
+   *
+   * @param aMatrix
+   *        A dense matrix with as many rows as A and any number of columns.
+   * @return X so that A*X = B within {@link SparseSolver#DEFAULT_TOLERANCE}
+   * @exception IllegalArgumentException
+   *            Matrix row dimensions must agree.
+   * @exception IllegalStateException
+   *            The solver did not converge.
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public Matrix solve (@Nonnull final Matrix aMatrix)
+  {
+    if (m_nRows != m_nCols)
+      throw new IllegalArgumentException ("Matrix must be square.");
+    if (aMatrix.getRowDimension () != m_nRows)
+      throw new IllegalArgumentException ("Matrix row dimensions must agree.");
+
+    final boolean bSymmetrical = isSymmetrical ();
+    final int nCols = aMatrix.getColumnDimension ();
+    final Matrix ret = new Matrix (m_nRows, nCols);
+    final double [] [] aSrc = aMatrix.internalGetArray ();
+    final double [] [] aDst = ret.internalGetArray ();
+    final double [] aRHS = new double [m_nRows];
+    for (int nCol = 0; nCol < nCols; ++nCol)
+    {
+      for (int nRow = 0; nRow < m_nRows; ++nRow)
+        aRHS[nRow] = aSrc[nRow][nCol];
+      SparseSolver.Result aResult = null;
+      if (bSymmetrical)
+        aResult = SparseSolver.conjugateGradient (this, aRHS);
+      if (aResult == null || !aResult.isConverged ())
+        aResult = SparseSolver.biCGSTAB (this, aRHS);
+      if (!aResult.isConverged ())
+        throw new IllegalStateException ("Iterative solver did not converge: " + aResult);
+      final double [] aSolution = aResult.directGetSolution ();
+      for (int nRow = 0; nRow < m_nRows; ++nRow)
+        aDst[nRow][nCol] = aSolution[nRow];
+    }
+    return ret;
+  }
+
+  @Override
+  public boolean equals (final Object o)
+  {
+    if (o == this)
+      return true;
+    if (o == null || !getClass ().equals (o.getClass ()))
+      return false;
+    final SparseMatrix rhs = (SparseMatrix) o;
+    return m_nRows == rhs.m_nRows &&
+           m_nCols == rhs.m_nCols &&
+           Arrays.equals (m_aRowStart, rhs.m_aRowStart) &&
+           Arrays.equals (m_aColIndex, rhs.m_aColIndex) &&
+           Arrays.equals (m_aValues, rhs.m_aValues);
+  }
+
+  @Override
+  public int hashCode ()
+  {
+    return new HashCodeGenerator (this).append (m_nRows)
+                                       .append (m_nCols)
+                                       .append (m_aRowStart)
+                                       .append (m_aColIndex)
+                                       .append (m_aValues)
+                                       .getHashCode ();
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("Rows", m_nRows)
+                                       .append ("Cols", m_nCols)
+                                       .append ("NonZero", m_aValues.length)
+                                       .getToString ();
+  }
+
+  /**
+   * Create a sparse copy of a dense matrix.
+   *
+   * @param aMatrix
+   *        The source matrix. May not be <code>null</code>.
+   * @return The sparse matrix containing all non-zero elements.
+   */
+  @Nonnull
+  public static SparseMatrix createFromMatrix (@Nonnull final Matrix aMatrix)
+  {
+    ValueEnforcer.notNull (aMatrix, "Matrix");
+
+    final int nRows = aMatrix.getRowDimension ();
+    final int nCols = aMatrix.getColumnDimension ();
+    final double [] [] aData = aMatrix.internalGetArray ();
+    int nNonZero = 0;
+    for (final double [] aRow : aData)
+      for (final double d : aRow)
+        if (d != 0)
+          nNonZero++;
+
+    final int [] aRowStart = new int [nRows + 1];
+    final int [] aColIndex = new int [nNonZero];
+    final double [] aValues = new double [nNonZero];
+    int nIndex = 0;
+    for (int nRow = 0; nRow < nRows; ++nRow)
+    {
+      final double [] aRow = aData[nRow];
+      for (int nCol = 0; nCol < nCols; ++nCol)
+        if (aRow[nCol] != 0)
+        {
+          aColIndex[nIndex] = nCol;
+          aValues[nIndex] = aRow[nCol];
+          nIndex++;
+        }
+      aRowStart[nRow + 1] = nIndex;
+    }
+    return new SparseMatrix (nRows, nCols, aRowStart, aColIndex, aValues);
+  }
+
+  /**
+   * Create a sparse identity matrix.
+   *
+   * @param nDim
+   *        Dimension. Must be &gt; 0.
+   * @return The new matrix
+   */
+  @Nonnull
+  public static SparseMatrix identity (@Nonnegative final int nDim)
+  {
+    ValueEnforcer.isGT0 (nDim, "Dim");
+    final int [] aRowStart = new int [nDim + 1];
+    final int [] aColIndex = new int [nDim];
+    final double [] aValues = new double [nDim];
+    for (int i = 0; i < nDim; ++i)
+    {
+      aRowStart[i + 1] = i + 1;
+      aColIndex[i] = i;
+      aValues[i] = 1;
+    }
+    return new SparseMatrix (nDim, nDim, aRowStart, aColIndex, aValues);
+  }
+}
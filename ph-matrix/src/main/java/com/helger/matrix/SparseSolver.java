@@ -0,0 +1,297 @@
+/**
+ * Copyright (C) 2014-2017 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.matrix;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.PresentForCodeCoverage;
+import com.helger.commons.annotation.ReturnsMutableCopy;
+import com.helger.commons.annotation.ReturnsMutableObject;
+import com.helger.commons.string.ToStringGenerator;
+
+/**
+ * Iterative Krylov solvers for {@link SparseMatrix} systems A*x = b. Each
+ * iteration only needs one or two sparse matrix-vector products, so the memory
+ * stays proportional to the non-zero count of A. Convergence is reached when
+ * the residual norm ||b - A*x|| is &le; tolerance * ||b||.
+ *
+ * @author Philip Helger
+ * @since 9.0.0
+ */
+@Immutable
+public final class SparseSolver
+{
+  /** Default relative residual tolerance */
+  public static final double DEFAULT_TOLERANCE = 1e-10;
+  /** Default maximum number of iterations */
+  public static final int DEFAULT_MAX_ITERATIONS = 10_000;
+
+  /**
+   * The outcome of an iterative solver run.
+   *
+   * @author Philip Helger
+   */
+  @Immutable
+  public static final class Result
+  {
+    private final double [] m_aSolution;
+    private final int m_nIterations;
+    private final double m_dResidualNorm;
+    private final boolean m_bConverged;
+
+    Result (@Nonnull final double [] aSolution,
+            final int nIterations,
+            final double dResidualNorm,
+            final boolean bConverged)
+    {
+      m_aSolution = aSolution;
+      m_nIterations = nIterations;
+      m_dResidualNorm = dResidualNorm;
+      m_bConverged = bConverged;
+    }
+
+    @Nonnull
+    @ReturnsMutableObject ("Avoid copying large vectors")
+    double [] directGetSolution ()
+    {
+      return m_aSolution;
+    }
+
+    /**
+     * @return A copy of the (approximate) solution vector x.
+     */
+    @Nonnull
+    @ReturnsMutableCopy
+    public double [] getSolution ()
+    {
+      return m_aSolution.clone ();
+    }
+
+    /**
+     * @return The number of iterations performed.
+     */
+    @Nonnegative
+    public int getIterations ()
+    {
+      return m_nIterations;
+    }
+
+    /**
+     * @return The norm of the final residual b - A*x.
+     */
+    public double getResidualNorm ()
+    {
+      return m_dResidualNorm;
+    }
+
+    /**
+     * @return <code>true</code> if the tolerance was reached.
+     */
+    public boolean isConverged ()
+    {
+      return m_bConverged;
+    }
+
+    @Override
+    public String toString ()
+    {
+      return new ToStringGenerator (this).append ("Iterations", m_nIterations)
+                                         .append ("ResidualNorm", m_dResidualNorm)
+                                         .append ("Converged", m_bConverged)
+                                         .getToString ();
+    }
+  }
+
+  @PresentForCodeCoverage
+  private static final SparseSolver s_aInstance = new SparseSolver ();
+
+  private SparseSolver ()
+  {}
+
+  private static double _dot (@Nonnull final double [] a, @Nonnull final double [] b)
+  {
+    double ret = 0;
+    for (int i = 0; i < a.length; ++i)
+      ret += a[i] * b[i];
+    return ret;
+  }
+
+  private static void _checkSystem (@Nonnull final SparseMatrix aMatrix,
+                                    @Nonnull final double [] aRHS,
+                                    final double dTolerance,
+                                    final int nMaxIterations)
+  {
+    ValueEnforcer.notNull (aMatrix, "Matrix");
+    ValueEnforcer.notNull (aRHS, "RHS");
+    ValueEnforcer.isTrue (aMatrix.getRowDimension () == aMatrix.getColumnDimension (), "Matrix must be square");
+    ValueEnforcer.isTrue (aRHS.length == aMatrix.getRowDimension (), "RHS length must match the matrix dimension");
+    ValueEnforcer.isGT0 (dTolerance, "Tolerance");
+    ValueEnforcer.isGE0 (nMaxIterations, "MaxIterations");
+  }
+
+  @Nonnull
+  public static Result conjugateGradient (@Nonnull final SparseMatrix aMatrix, @Nonnull final double [] aRHS)
+  {
+    return conjugateGradient (aMatrix, aRHS, DEFAULT_TOLERANCE, DEFAULT_MAX_ITERATIONS);
+  }
+
+  /**
+   * Solve A*x = b with the conjugate gradient method, starting at x = 0. The
+   * matrix must be symmetric and positive definite. This is not checked
+   * upfront, but if the iteration detects that the matrix is not positive
+   * definite it stops with a result that is not converged.
+   *
+   * @param aMatrix
+   *        Square matrix A. May not be <code>null</code>.
+   * @param aRHS
+   *        Right hand side b. May not be <code>null</code>.
+   * @param dTolerance
+   *        Relative residual tolerance. Must be &gt; 0.
+   * @param nMaxIterations
+   *        Maximum number of iterations. Must be &ge; 0.
+   * @return The result. Never <code>null</code>.
+   */
+  @Nonnull
+  public static Result conjugateGradient (@Nonnull final SparseMatrix aMatrix,
+                                          @Nonnull final double [] aRHS,
+                                          final double dTolerance,
+                                          @Nonnegative final int nMaxIterations)
+  {
+    _checkSystem (aMatrix, aRHS, dTolerance, nMaxIterations);
+
+    final int n = aRHS.length;
+    final double [] x = new double [n];
+    final double [] r = aRHS.clone ();
+    final double [] p = aRHS.clone ();
+    final double [] Ap = new double [n];
+    final double dLimit = dTolerance * Math.sqrt (_dot (aRHS, aRHS));
+    double dRR = _dot (r, r);
+    int nIteration = 0;
+    while (Math.sqrt (dRR) > dLimit && nIteration < nMaxIterations)
+    {
+      aMatrix.times (p, Ap);
+      final double dPAp = _dot (p, Ap);
+      if (dPAp <= 0)
+      {
+        // Breakdown - the matrix is not positive definite
+        break;
+      }
+      final double dAlpha = dRR / dPAp;
+      for (int i = 0; i < n; ++i)
+      {
+        x[i] += dAlpha * p[i];
+        r[i] -= dAlpha * Ap[i];
+      }
+      final double dNewRR = _dot (r, r);
+      final double dBeta = dNewRR / dRR;
+      for (int i = 0; i < n; ++i)
+        p[i] = r[i] + dBeta * p[i];
+      dRR = dNewRR;
+      nIteration++;
+    }
+    final double dResidual = Math.sqrt (dRR);
+    return new Result (x, nIteration, dResidual, dResidual <= dLimit);
+  }
+
+  @Nonnull
+  public static Result biCGSTAB (@Nonnull final SparseMatrix aMatrix, @Nonnull final double [] aRHS)
+  {
+    return biCGSTAB (aMatrix, aRHS, DEFAULT_TOLERANCE, DEFAULT_MAX_ITERATIONS);
+  }
+
+  /**
+   * Solve A*x = b with the stabilized bi-conjugate gradient method (BiCGSTAB),
+   * starting at x = 0. Works for general non-singular square matrices.
+   *
+   * @param aMatrix
+   *        Square matrix A. May not be <code>null</code>.
+   * @param aRHS
+   *        Right hand side b. May not be <code>null</code>.
+   * @param dTolerance
+   *        Relative residual tolerance. Must be &gt; 0.
+   * @param nMaxIterations
+   *        Maximum number of iterations. Must be &ge; 0.
+   * @return The result. Never <code>null</code>.
+   */
+  @Nonnull
+  public static Result biCGSTAB (@Nonnull final SparseMatrix aMatrix,
+                                 @Nonnull final double [] aRHS,
+                                 final double dTolerance,
+                                 @Nonnegative final int nMaxIterations)
+  {
+    _checkSystem (aMatrix, aRHS, dTolerance, nMaxIterations);
+
+    final int n = aRHS.length;
+    final double [] x = new double [n];
+    final double [] r = aRHS.clone ();
+    final double [] r0 = aRHS.clone ();
+    final double [] p = new double [n];
+    final double [] v = new double [n];
+    final double [] s = new double [n];
+    final double [] t = new double [n];
+    final double dLimit = dTolerance * Math.sqrt (_dot (aRHS, aRHS));
+    double dRho = 1;
+    double dAlpha = 1;
+    double dOmega = 1;
+    double dResidual = Math.sqrt (_dot (r, r));
+    int nIteration = 0;
+    while (dResidual > dLimit && nIteration < nMaxIterations)
+    {
+      final double dNewRho = _dot (r0, r);
+      if (dNewRho == 0 || dOmega == 0)
+      {
+        // Breakdown
+        break;
+      }
+      final double dBeta = (dNewRho / dRho) * (dAlpha / dOmega);
+      for (int i = 0; i < n; ++i)
+        p[i] = r[i] + dBeta * (p[i] - dOmega * v[i]);
+      aMatrix.times (p, v);
+      final double dR0V = _dot (r0, v);
+      if (dR0V == 0)
+        break;
+      dAlpha = dNewRho / dR0V;
+      for (int i = 0; i < n; ++i)
+        s[i] = r[i] - dAlpha * v[i];
+      nIteration++;
+
+      final double dSNorm = Math.sqrt (_dot (s, s));
+      if (dSNorm <= dLimit)
+      {
+        for (int i = 0; i < n; ++i)
+          x[i] += dAlpha * p[i];
+        dResidual = dSNorm;
+        break;
+      }
+
+      aMatrix.times (s, t);
+      final double dTT = _dot (t, t);
+      dOmega = dTT == 0 ? 0 : _dot (t, s) / dTT;
+      for (int i = 0; i < n; ++i)
+      {
+        x[i] += dAlpha * p[i] + dOmega * s[i];
+        r[i] = s[i] - dOmega * t[i];
+      }
+      dRho = dNewRho;
+      dResidual = Math.sqrt (_dot (r, r));
+    }
+    return new Result (x, nIteration, dResidual, dResidual <= dLimit);
+  }
+}
@@ -0,0 +1,96 @@
+/**
+ * Copyright (C) 2014-2017 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.matrix;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compare element-wise operations of the <code>double[][]</code> based
+ * {@link Matrix} with the flat {@link FlatMatrix} and {@link FlatMatrixFloat}.
+ * Run manually via the main method.
+ *
+ * @author Philip Helger
+ */
+public final class BenchmarkFlatMatrix
+{
+  private static final Logger s_aLogger = LoggerFactory.getLogger (BenchmarkFlatMatrix.class);
+  private static final int RUNS = 20;
+
+  private BenchmarkFlatMatrix ()
+  {}
+
+  private static long _measure (final Runnable aRunnable)
+  {
+    long nBest = Long.MAX_VALUE;
+    for (int i = 0; i < RUNS; ++i)
+    {
+      final long t = System.nanoTime ();
+      aRunnable.run ();
+      nBest = Math.min (nBest, System.nanoTime () - t);
+    }
+    return nBest / 1_000;
+  }
+
+  private static void _log (final String sName, final long nMatrix, final long nFlat, final long nFloat)
+  {
+    s_aLogger.info ("  " +
+                    sName +
+                    ": double[][] " +
+                    nMatrix +
+                    " us, double[] " +
+                    nFlat +
+                    " us, float[] " +
+                    nFloat +
+                    " us");
+  }
+
+  public static void main (final String [] aArgs)
+  {
+    for (final int nDim : new int [] { 64, 256, 1024, 2048 })
+    {
+      final Matrix aA = Matrix.random (nDim, nDim);
+      final Matrix aB = Matrix.random (nDim, nDim);
+      final FlatMatrix aFA = FlatMatrix.createFromMatrix (aA);
+      final FlatMatrix aFB = FlatMatrix.createFromMatrix (aB);
+      final FlatMatrixFloat aFFA = FlatMatrixFloat.createFromMatrix (aA);
+      final FlatMatrixFloat aFFB = FlatMatrixFloat.createFromMatrix (aB);
+      final int nHalf = nDim / 2;
+
+      s_aLogger.info (nDim + "x" + nDim + ":");
+      _log ("plus", _measure ( () -> aA.plus (aB)), _measure ( () -> aFA.plus (aFB)), _measure ( () -> aFFA.plus (aFFB)));
+      _log ("plusEquals",
+            _measure ( () -> aA.plusEquals (aB)),
+            _measure ( () -> aFA.plusEquals (aFB)),
+            _measure ( () -> aFFA.plusEquals (aFFB)));
+      _log ("arrayTimes",
+            _measure ( () -> aA.arrayTimes (aB)),
+            _measure ( () -> aFA.arrayTimes (aFB)),
+            _measure ( () -> aFFA.arrayTimes (aFFB)));
+      _log ("timesEquals",
+            _measure ( () -> aA.timesEquals (0.5)),
+            _measure ( () -> aFA.timesEquals (0.5)),
+            _measure ( () -> aFFA.timesEquals (0.5f)));
+      _log ("norm1", _measure (aA::norm1), _measure (aFA::norm1), _measure (aFFA::norm1));
+      _log ("normF", _measure (aA::normF), _measure (aFA::normF), _measure (aFFA::normF));
+      _log ("getMatrix",
+            _measure ( () -> aA.getMatrix (0, nHalf, 0, nHalf)),
+            _measure ( () -> aFA.getMatrix (0, nHalf, 0, nHalf)),
+            _measure ( () -> aFFA.getMatrix (0, nHalf, 0, nHalf)));
+    }
+  }
+}
@@ -0,0 +1,102 @@
+/**
+ * Copyright (C) 2014-2017 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.matrix;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compare the blocked matrix multiplication and decomposition with the
+ * previous unblocked implementations for 64 to 4096-dimensional matrices. Run
+ * manually via the main method.
+ *
+ * @author Philip Helger
+ */
+public final class BenchmarkMatrixMultiply
+{
+  private static final Logger s_aLogger = LoggerFactory.getLogger (BenchmarkMatrixMultiply.class);
+  /** The unblocked reference is too slow for bigger matrices */
+  private static final int MAX_NAIVE_DIM = 1024;
+
+  private BenchmarkMatrixMultiply ()
+  {}
+
+  /**
+   * The previous implementation of {@link Matrix#times(Matrix)}
+   */
+  private static double [] [] _naiveTimes (final double [] [] aA, final double [] [] aB)
+  {
+    final int nRows = aA.length;
+    final int nInner = aB.length;
+    final int nCols = aB[0].length;
+    final double [] [] ret = new double [nRows] [nCols];
+    final double [] aRhsCol = new double [nInner];
+    for (int nCol = 0; nCol < nCols; nCol++)
+    {
+      for (int k = 0; k < nInner; k++)
+        aRhsCol[k] = aB[k][nCol];
+      for (int nRow = 0; nRow < nRows; nRow++)
+      {
+        final double [] aRow = aA[nRow];
+        double dValue = 0;
+        for (int k = 0; k < nInner; k++)
+          dValue += aRow[k] * aRhsCol[k];
+        ret[nRow][nCol] = dValue;
+      }
+    }
+    return ret;
+  }
+
+  private static long _measure (final int nRuns, final Runnable aRunnable)
+  {
+    long nBest = Long.MAX_VALUE;
+    for (int i = 0; i < nRuns; ++i)
+    {
+      final long t = System.nanoTime ();
+      aRunnable.run ();
+      nBest = Math.min (nBest, System.nanoTime () - t);
+    }
+    return nBest / 1_000_000;
+  }
+
+  public static void main (final String [] aArgs)
+  {
+    for (int nDim = 64; nDim <= 4096; nDim *= 2)
+    {
+      final Matrix aA = Matrix.random (nDim, nDim);
+      final Matrix aB = Matrix.random (nDim, nDim);
+      final int nRuns = nDim <= 512 ? 10 : nDim <= 1024 ? 3 : 1;
+
+      final String sNaive = nDim <= MAX_NAIVE_DIM ? Long.toString (_measure (nRuns,
+                                                                             () -> _naiveTimes (aA.internalGetArray (),
+                                                                                                aB.internalGetArray ())))
+                                                  : "-";
+      final long nTimes = _measure (nRuns, () -> aA.times (aB));
+      final long nSolve = _measure (nRuns, () -> aA.solve (aB));
+      s_aLogger.info (nDim +
+                      "x" +
+                      nDim +
+                      ": times naive " +
+                      sNaive +
+                      " ms, blocked " +
+                      nTimes +
+                      " ms; solve " +
+                      nSolve +
+                      " ms");
+    }
+  }
+}
@@ -0,0 +1,142 @@
+/**
+ * Copyright (C) 2014-2017 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.matrix;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Test class for class {@link DenseMatrixHelper}.
+ *
+ * @author Philip Helger
+ */
+public final class DenseMatrixHelperTest
+{
+  private static final double EPS = 1e-9;
+
+  private static double [] _random (final Random aRandom, final int nCount)
+  {
+    final double [] ret = new double [nCount];
+    for (int i = 0; i < nCount; ++i)
+      ret[i] = aRandom.nextDouble () - 0.5;
+    return ret;
+  }
+
+  private static double [] _naiveMultiply (final double [] aA,
+                                           final double [] aB,
+                                           final int nRows,
+                                           final int nInner,
+                                           final int nCols)
+  {
+    final double [] ret = new double [nRows * nCols];
+    for (int r = 0; r < nRows; ++r)
+      for (int c = 0; c < nCols; ++c)
+      {
+        double d = 0;
+        for (int k = 0; k < nInner; ++k)
+          d += aA[r * nInner + k] * aB[k * nCols + c];
+        ret[r * nCols + c] = d;
+      }
+    return ret;
+  }
+
+  private static void _assertEquals (final double [] aExpected, final double [] aActual)
+  {
+    assertEquals (aExpected.length, aActual.length);
+    for (int i = 0; i < aExpected.length; ++i)
+      assertEquals (aExpected[i], aActual[i], EPS);
+  }
+
+  @Test
+  public void testMultiply ()
+  {
+    final Random aRandom = new Random (1);
+    // Sizes below and above the block and parallel thresholds
+    for (final int [] aDims : new int [] [] { { 1, 1, 1 }, { 3, 5, 2 }, { 70, 130, 600 }, { 200, 150, 90 } })
+    {
+      final double [] aA = _random (aRandom, aDims[0] * aDims[1]);
+      final double [] aB = _random (aRandom, aDims[1] * aDims[2]);
+      _assertEquals (_naiveMultiply (aA, aB, aDims[0], aDims[1], aDims[2]),
+                     DenseMatrixHelper.multiply (aA, aB, aDims[0], aDims[1], aDims[2]));
+    }
+  }
+
+  @Test
+  public void testTimesLarge ()
+  {
+    final Matrix aA = Matrix.random (150, 170);
+    final Matrix aB = Matrix.random (170, 80);
+    final double [] aExpected = _naiveMultiply (aA.getRowPackedCopy (), aB.getRowPackedCopy (), 150, 170, 80);
+    _assertEquals (aExpected, aA.times (aB).getRowPackedCopy ());
+  }
+
+  private static void _checkLU (final Matrix aA)
+  {
+    final LUDecomposition aLU = aA.lu ();
+    final int nMin = Math.min (aA.getRowDimension (), aA.getColumnDimension ());
+    final Matrix aL = aLU.getL ().getMatrix (0, aA.getRowDimension () - 1, 0, nMin - 1);
+    final Matrix aU = aLU.getU ().getMatrix (0, nMin - 1, 0, aA.getColumnDimension () - 1);
+    final Matrix aPA = aA.getMatrix (aLU.getPivot (), 0, aA.getColumnDimension () - 1);
+    _assertEquals (aPA.getRowPackedCopy (), aL.times (aU).getRowPackedCopy ());
+  }
+
+  @Test
+  public void testLU ()
+  {
+    _checkLU (Matrix.random (150, 150));
+    _checkLU (Matrix.random (200, 130));
+
+    // Solve
+    final Matrix aA = Matrix.random (140, 140);
+    final Matrix aX = Matrix.random (140, 3);
+    final Matrix aSolved = aA.solve (aA.times (aX));
+    for (int i = 0; i < 140; ++i)
+      for (int j = 0; j < 3; ++j)
+        assertEquals (aX.get (i, j), aSolved.get (i, j), 1e-6);
+  }
+
+  @Test
+  public void testCholesky ()
+  {
+    final int n = 150;
+    final Matrix aR = Matrix.random (n, n);
+    // Symmetric positive definite
+    final Matrix aA = aR.times (aR.transpose ()).plus (Matrix.identity (n, n).times (n));
+    final CholeskyDecomposition aChol = aA.chol ();
+    assertTrue (aChol.isSPD ());
+    final Matrix aL = aChol.getL ();
+    for (int i = 0; i < n; ++i)
+      for (int j = i + 1; j < n; ++j)
+        assertEquals (0, aL.get (i, j), 0);
+    _assertEquals (aA.getRowPackedCopy (), aL.times (aL.transpose ()).getRowPackedCopy ());
+
+    // Not symmetric
+    final Matrix aB = aA.getClone ();
+    aB.set (3, 140, aB.get (3, 140) + 1);
+    assertFalse (aB.chol ().isSPD ());
+
+    // Not positive definite
+    final Matrix aC = aA.getClone ();
+    aC.set (130, 130, -1);
+    assertFalse (aC.chol ().isSPD ());
+  }
+}
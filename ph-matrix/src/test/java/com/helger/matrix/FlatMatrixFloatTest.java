@@ -0,0 +1,74 @@
+/**
+ * Copyright (C) 2014-2017 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.matrix;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import com.helger.commons.mock.CommonsTestHelper;
+
+/**
+ * Test class for class {@link FlatMatrixFloat}.
+ *
+ * @author Philip Helger
+ */
+public final class FlatMatrixFloatTest
+{
+  private static final double EPS = 1e-4;
+
+  private static void _assertEquals (final Matrix aExpected, final FlatMatrixFloat aActual)
+  {
+    assertEquals (aExpected.getRowDimension (), aActual.getRowDimension ());
+    assertEquals (aExpected.getColumnDimension (), aActual.getColumnDimension ());
+    assertEquals (0, aExpected.minus (aActual.getAsMatrix ()).normInf (), EPS);
+  }
+
+  @Test
+  public void testBasic ()
+  {
+    final Matrix a = Matrix.random (8, 6);
+    final Matrix b = Matrix.random (8, 6);
+    final FlatMatrixFloat fa = FlatMatrixFloat.createFromMatrix (a);
+    final FlatMatrixFloat fb = FlatMatrixFloat.createFromMatrix (b);
+    assertEquals ((float) a.get (2, 3), fa.get (2, 3), 0);
+
+    _assertEquals (a.plus (b), fa.plus (fb));
+    _assertEquals (a.minus (b), fa.minus (fb));
+    _assertEquals (a.arrayTimes (b), fa.arrayTimes (fb));
+    _assertEquals (a.times (3), fa.times (3));
+    _assertEquals (a.transpose (), fa.transpose ());
+    _assertEquals (a.times (b.transpose ()), fa.times (fb.transpose ()));
+    assertEquals (a.norm1 (), fa.norm1 (), EPS);
+    assertEquals (a.normInf (), fa.normInf (), EPS);
+    assertEquals (a.normF (), fa.normF (), EPS);
+
+    final FlatMatrixFloat aView = fa.getMatrix (1, 4, 2, 5);
+    assertSame (fa.internalGetArray (), aView.internalGetArray ());
+    assertFalse (aView.isCompact ());
+    _assertEquals (a.getMatrix (1, 4, 2, 5), aView);
+    _assertEquals (a.getMatrix (1, 4, 2, 5).times (b.getMatrix (0, 3, 0, 1)),
+                   aView.times (fb.getMatrix (0, 3, 0, 1)));
+    aView.timesEquals (2);
+    assertEquals ((float) a.get (1, 2) * 2, fa.get (1, 2), 0);
+
+    CommonsTestHelper.testGetClone (aView);
+    CommonsTestHelper.testDefaultSerialization (fa);
+  }
+}
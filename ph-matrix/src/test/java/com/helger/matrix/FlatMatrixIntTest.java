@@ -0,0 +1,66 @@
+/**
+ * Copyright (C) 2014-2017 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.matrix;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import com.helger.commons.mock.CommonsTestHelper;
+
+/**
+ * Test class for class {@link FlatMatrixInt}.
+ *
+ * @author Philip Helger
+ */
+public final class FlatMatrixIntTest
+{
+  @Test
+  public void testBasic ()
+  {
+    final MatrixInt a = MatrixInt.random (8, 6);
+    final MatrixInt b = MatrixInt.random (8, 6);
+    final FlatMatrixInt fa = FlatMatrixInt.createFromMatrix (a);
+    final FlatMatrixInt fb = FlatMatrixInt.createFromMatrix (b);
+    assertEquals (a, fa.getAsMatrix ());
+
+    assertEquals (a.plus (b), fa.plus (fb).getAsMatrix ());
+    assertEquals (a.minus (b), fa.minus (fb).getAsMatrix ());
+    assertEquals (a.arrayTimes (b), fa.arrayTimes (fb).getAsMatrix ());
+    assertEquals (a.times (3), fa.times (3).getAsMatrix ());
+    assertEquals (a.uminus (), fa.uminus ().getAsMatrix ());
+    assertEquals (a.transpose (), fa.transpose ().getAsMatrix ());
+    assertEquals (a.times (b.transpose ()), fa.times (fb.transpose ()).getAsMatrix ());
+    assertEquals (a.norm1 (), fa.norm1 ());
+    assertEquals (a.normInf (), fa.normInf ());
+    assertEquals (a.normF (), fa.normF (), 1e-9);
+
+    final FlatMatrixInt aView = fa.getMatrix (2, 7, 1, 3);
+    assertSame (fa.internalGetArray (), aView.internalGetArray ());
+    assertFalse (aView.isCompact ());
+    assertEquals (a.getMatrix (2, 7, 1, 3), aView.getAsMatrix ());
+    assertEquals (a.getMatrix (2, 7, 1, 3).norm1 (), aView.norm1 ());
+    aView.plusEquals (aView);
+    assertEquals (a.get (2, 1) * 2, fa.get (2, 1));
+    assertEquals (a.get (0, 0), fa.get (0, 0));
+
+    CommonsTestHelper.testGetClone (aView);
+    CommonsTestHelper.testDefaultSerialization (fa);
+  }
+}
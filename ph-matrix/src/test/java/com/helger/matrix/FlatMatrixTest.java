@@ -0,0 +1,182 @@
+/**
+ * Copyright (C) 2014-2017 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.matrix;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import com.helger.commons.mock.CommonsTestHelper;
+
+/**
+ * Test class for class {@link FlatMatrix}.
+ *
+ * @author Philip Helger
+ */
+public final class FlatMatrixTest
+{
+  private static final double EPS = 1e-10;
+
+  private static void _assertEquals (final Matrix aExpected, final FlatMatrix aActual)
+  {
+    assertEquals (aExpected.getRowDimension (), aActual.getRowDimension ());
+    assertEquals (aExpected.getColumnDimension (), aActual.getColumnDimension ());
+    assertEquals (0, aExpected.minus (aActual.getAsMatrix ()).normInf (), EPS);
+  }
+
+  @Test
+  public void testBasic ()
+  {
+    final Matrix aMatrix = Matrix.random (7, 5);
+    final FlatMatrix m = FlatMatrix.createFromMatrix (aMatrix);
+    assertEquals (7, m.getRowDimension ());
+    assertEquals (5, m.getColumnDimension ());
+    assertTrue (m.isCompact ());
+    assertEquals (aMatrix, m.getAsMatrix ());
+    assertEquals (aMatrix.get (3, 4), m.get (3, 4), 0);
+    m.set (3, 4, 17);
+    assertEquals (17, m.get (3, 4), 0);
+    assertEquals (17, m.internalGetArray ()[3 * 5 + 4], 0);
+
+    assertEquals (3, new FlatMatrix (2, 2, 3).get (1, 1), 0);
+    CommonsTestHelper.testGetClone (m);
+    CommonsTestHelper.testDefaultSerialization (m);
+    CommonsTestHelper.testDefaultImplementationWithDifferentContentObject (m, m.times (2));
+
+    try
+    {
+      m.get (7, 0);
+      fail ();
+    }
+    catch (final ArrayIndexOutOfBoundsException ex)
+    {
+      // expected
+    }
+  }
+
+  @Test
+  public void testSubMatrixView ()
+  {
+    final Matrix aMatrix = Matrix.random (6, 8);
+    final FlatMatrix m = FlatMatrix.createFromMatrix (aMatrix);
+    final FlatMatrix aView = m.getMatrix (1, 3, 2, 6);
+    assertSame (m.internalGetArray (), aView.internalGetArray ());
+    assertEquals (3, aView.getRowDimension ());
+    assertEquals (5, aView.getColumnDimension ());
+    assertEquals (8 + 2, aView.getOffset ());
+    assertEquals (8, aView.getRowStride ());
+    assertFalse (aView.isCompact ());
+    assertEquals (aMatrix.getMatrix (1, 3, 2, 6), aView.getAsMatrix ());
+    assertEquals (aView, aView.getClone ());
+    assertTrue (aView.getClone ().isCompact ());
+
+    // Changes are visible in both directions
+    aView.set (0, 0, 42);
+    assertEquals (42, m.get (1, 2), 0);
+    m.set (3, 6, -1);
+    assertEquals (-1, aView.get (2, 4), 0);
+
+    // Nested view
+    final FlatMatrix aNested = aView.getMatrix (1, 2, 1, 1);
+    assertEquals (m.get (2, 3), aNested.get (0, 0), 0);
+
+    // In place operations only affect the view
+    aView.timesEquals (0);
+    assertEquals (0, m.get (2, 4), 0);
+    assertEquals (aMatrix.get (0, 0), m.get (0, 0), 0);
+    assertEquals (aMatrix.get (4, 7), m.get (4, 7), 0);
+    assertEquals (aMatrix.get (2, 7), m.get (2, 7), 0);
+
+    try
+    {
+      m.getMatrix (4, 6, 0, 1);
+      fail ();
+    }
+    catch (final ArrayIndexOutOfBoundsException ex)
+    {
+      // expected
+    }
+  }
+
+  @Test
+  public void testElementwise ()
+  {
+    final Matrix a = Matrix.random (9, 11);
+    final Matrix b = Matrix.random (9, 11);
+    final FlatMatrix fa = FlatMatrix.createFromMatrix (a);
+    final FlatMatrix fb = FlatMatrix.createFromMatrix (b);
+
+    _assertEquals (a.plus (b), fa.plus (fb));
+    _assertEquals (a.minus (b), fa.minus (fb));
+    _assertEquals (a.arrayTimes (b), fa.arrayTimes (fb));
+    _assertEquals (a.times (2.5), fa.times (2.5));
+    _assertEquals (a.uminus (), fa.uminus ());
+    _assertEquals (a.transpose (), fa.transpose ());
+    assertEquals (a.norm1 (), fa.norm1 (), EPS);
+    assertEquals (a.normInf (), fa.normInf (), EPS);
+    assertEquals (a.normF (), fa.normF (), EPS);
+
+    // Mixed views and compact matrices
+    final Matrix aSub = a.getMatrix (2, 6, 3, 9);
+    final FlatMatrix aView = fa.getMatrix (2, 6, 3, 9);
+    final FlatMatrix aOther = FlatMatrix.createFromMatrix (b.getMatrix (0, 4, 0, 6));
+    _assertEquals (aSub.plus (b.getMatrix (0, 4, 0, 6)), aView.plus (aOther));
+    _assertEquals (aSub.arrayTimes (b.getMatrix (0, 4, 0, 6)), aOther.arrayTimes (aView));
+    assertEquals (aSub.norm1 (), aView.norm1 (), EPS);
+    assertEquals (aSub.normF (), aView.normF (), EPS);
+
+    fa.plusEquals (fb).minusEquals (fb).arrayTimesEquals (fb);
+    _assertEquals (a.arrayTimes (b), fa);
+
+    try
+    {
+      fa.plus (new FlatMatrix (9, 10));
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {
+      // expected
+    }
+  }
+
+  @Test
+  public void testNormFScaling ()
+  {
+    final FlatMatrix m = new FlatMatrix (2, 2, 1e200);
+    assertEquals (2e200, m.normF (), 1e188);
+    final FlatMatrix m2 = new FlatMatrix (2, 2, 1e-200);
+    assertEquals (2e-200, m2.normF (), 1e-212);
+  }
+
+  @Test
+  public void testTimes ()
+  {
+    final Matrix a = Matrix.random (20, 30);
+    final Matrix b = Matrix.random (30, 15);
+    _assertEquals (a.times (b), FlatMatrix.createFromMatrix (a).times (FlatMatrix.createFromMatrix (b)));
+
+    // Multiply views
+    final FlatMatrix fa = FlatMatrix.createFromMatrix (a);
+    final FlatMatrix fb = FlatMatrix.createFromMatrix (b);
+    _assertEquals (a.getMatrix (5, 14, 3, 22).times (b.getMatrix (0, 19, 1, 9)),
+                   fa.getMatrix (5, 14, 3, 22).times (fb.getMatrix (0, 19, 1, 9)));
+  }
+}
@@ -0,0 +1,252 @@
+/**
+ * Copyright (C) 2014-2017 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.matrix;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.helger.commons.mock.CommonsTestHelper;
+
+/**
+ * Test class for classes {@link SparseMatrix} and {@link SparseSolver}.
+ *
+ * @author Philip Helger
+ */
+public final class SparseMatrixTest
+{
+  private static final double EPS = 1e-8;
+
+  private static Matrix _randomSparse (final Random aRandom, final int nRows, final int nCols, final double dDensity)
+  {
+    final Matrix ret = new Matrix (nRows, nCols);
+    for (int r = 0; r < nRows; ++r)
+      for (int c = 0; c < nCols; ++c)
+        if (aRandom.nextDouble () < dDensity)
+          ret.set (r, c, aRandom.nextDouble () - 0.5);
+    return ret;
+  }
+
+  /**
+   * @return The 2D Laplacian on an n x n grid, which is symmetric and positive
+   *         definite.
+   */
+  private static SparseMatrix _laplacian (final int n)
+  {
+    final SparseMatrix.Builder aBuilder = new SparseMatrix.Builder (n * n, n * n);
+    for (int y = 0; y < n; ++y)
+      for (int x = 0; x < n; ++x)
+      {
+        final int i = y * n + x;
+        aBuilder.add (i, i, 4);
+        if (x > 0)
+          aBuilder.add (i, i - 1, -1);
+        if (x < n - 1)
+          aBuilder.add (i, i + 1, -1);
+        if (y > 0)
+          aBuilder.add (i, i - n, -1);
+        if (y < n - 1)
+          aBuilder.add (i, i + n, -1);
+      }
+    return aBuilder.build ();
+  }
+
+  private static void _assertEquals (final Matrix aExpected, final Matrix aActual)
+  {
+    assertEquals (aExpected.getRowDimension (), aActual.getRowDimension ());
+    assertEquals (aExpected.getColumnDimension (), aActual.getColumnDimension ());
+    assertEquals (0, aExpected.minus (aActual).normInf (), EPS);
+  }
+
+  @Test
+  public void testBuilder ()
+  {
+    final SparseMatrix m = new SparseMatrix.Builder (3, 4).add (2, 3, 1)
+                                                          .add (0, 1, 2)
+                                                          .add (2, 0, 3)
+                                                          .add (0, 1, 5)
+                                                          .add (1, 1, 4)
+                                                          .add (1, 1, -4)
+                                                          .build ();
+    assertEquals (3, m.getRowDimension ());
+    assertEquals (4, m.getColumnDimension ());
+    // Duplicates are summed, zeros dropped
+    assertEquals (3, m.getNonZeroCount ());
+    assertEquals (7, m.get (0, 1), 0);
+    assertEquals (0, m.get (1, 1), 0);
+    assertEquals (3, m.get (2, 0), 0);
+    assertEquals (1, m.get (2, 3), 0);
+    assertEquals (0, m.get (2, 2), 0);
+
+    try
+    {
+      new SparseMatrix.Builder (3, 4).add (3, 0, 1);
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {
+      // expected
+    }
+  }
+
+  @Test
+  public void testConversion ()
+  {
+    final Random aRandom = new Random (1);
+    final Matrix aDense = _randomSparse (aRandom, 17, 23, 0.2);
+    final SparseMatrix aSparse = SparseMatrix.createFromMatrix (aDense);
+    assertEquals (aDense, aSparse.getAsMatrix ());
+    for (int r = 0; r < 17; ++r)
+      for (int c = 0; c < 23; ++c)
+        assertEquals (aDense.get (r, c), aSparse.get (r, c), 0);
+
+    CommonsTestHelper.testDefaultImplementationWithEqualContentObject (aSparse,
+                                                                       SparseMatrix.createFromMatrix (aDense));
+    CommonsTestHelper.testDefaultImplementationWithDifferentContentObject (aSparse, aSparse.times (2));
+    CommonsTestHelper.testDefaultSerialization (aSparse);
+  }
+
+  @Test
+  public void testTranspose ()
+  {
+    final Random aRandom = new Random (2);
+    final Matrix aDense = _randomSparse (aRandom, 13, 29, 0.3);
+    final SparseMatrix aSparse = SparseMatrix.createFromMatrix (aDense);
+    final SparseMatrix aT = aSparse.transpose ();
+    assertEquals (aDense.transpose (), aT.getAsMatrix ());
+    assertEquals (aSparse, aT.transpose ());
+    assertFalse (aSparse.isSymmetrical ());
+    assertTrue (SparseMatrix.identity (5).isSymmetrical ());
+  }
+
+  @Test
+  public void testMultiply ()
+  {
+    final Random aRandom = new Random (3);
+    final Matrix aA = _randomSparse (aRandom, 31, 19, 0.15);
+    final Matrix aB = _randomSparse (aRandom, 19, 27, 0.15);
+    final SparseMatrix aSA = SparseMatrix.createFromMatrix (aA);
+    final SparseMatrix aSB = SparseMatrix.createFromMatrix (aB);
+    final Matrix aExpected = aA.times (aB);
+
+    _assertEquals (aExpected, aSA.times (aB));
+    _assertEquals (aExpected, aSA.times (aSB).getAsMatrix ());
+    _assertEquals (aA.times (3), aSA.times (3).getAsMatrix ());
+    assertEquals (0, aSA.times (0).getNonZeroCount ());
+
+    final double [] aVector = new double [19];
+    for (int i = 0; i < aVector.length; ++i)
+      aVector[i] = aRandom.nextDouble ();
+    final double [] aResult = aSA.times (aVector);
+    final Matrix aExpectedVector = aA.times (new Matrix (aVector, 19));
+    for (int i = 0; i < aResult.length; ++i)
+      assertEquals (aExpectedVector.get (i, 0), aResult[i], EPS);
+
+    assertEquals (SparseMatrix.createFromMatrix (aA), SparseMatrix.identity (31).times (aSA));
+  }
+
+  @Test
+  public void testConjugateGradient ()
+  {
+    final SparseMatrix aA = _laplacian (30);
+    assertTrue (aA.isSymmetrical ());
+    final double [] b = new double [aA.getRowDimension ()];
+    for (int i = 0; i < b.length; ++i)
+      b[i] = Math.sin (i);
+
+    final SparseSolver.Result aResult = SparseSolver.conjugateGradient (aA, b);
+    assertTrue (aResult.toString (), aResult.isConverged ());
+    assertTrue (aResult.getIterations () > 0);
+    final double [] aAx = aA.times (aResult.getSolution ());
+    for (int i = 0; i < b.length; ++i)
+      assertEquals (b[i], aAx[i], 1e-7);
+
+    // Not enough iterations
+    assertFalse (SparseSolver.conjugateGradient (aA, b, 1e-12, 3).isConverged ());
+  }
+
+  @Test
+  public void testBiCGSTAB ()
+  {
+    // Non-symmetric, diagonally dominant matrix
+    final Random aRandom = new Random (4);
+    final int n = 500;
+    final SparseMatrix.Builder aBuilder = new SparseMatrix.Builder (n, n);
+    for (int i = 0; i < n; ++i)
+    {
+      aBuilder.add (i, i, 10);
+      for (int j = 0; j < 5; ++j)
+        aBuilder.add (i, aRandom.nextInt (n), aRandom.nextDouble () - 0.5);
+    }
+    final SparseMatrix aA = aBuilder.build ();
+    assertFalse (aA.isSymmetrical ());
+    final double [] b = new double [n];
+    for (int i = 0; i < n; ++i)
+      b[i] = aRandom.nextDouble ();
+
+    final SparseSolver.Result aResult = SparseSolver.biCGSTAB (aA, b);
+    assertTrue (aResult.toString (), aResult.isConverged ());
+    final double [] aAx = aA.times (aResult.getSolution ());
+    for (int i = 0; i < n; ++i)
+      assertEquals (b[i], aAx[i], 1e-7);
+  }
+
+  @Test
+  public void testSolve ()
+  {
+    final Random aRandom = new Random (5);
+    final Matrix aDense = _randomSparse (aRandom, 40, 40, 0.1);
+    for (int i = 0; i < 40; ++i)
+      aDense.set (i, i, 8);
+    final Matrix aB = _randomSparse (aRandom, 40, 3, 1);
+
+    // Non-symmetric uses BiCGSTAB
+    _assertEquals (aDense.solve (aB), SparseMatrix.createFromMatrix (aDense).solve (aB));
+
+    // Symmetric positive definite uses CG
+    final Matrix aSPD = aDense.plus (aDense.transpose ());
+    _assertEquals (aSPD.solve (aB), SparseMatrix.createFromMatrix (aSPD).solve (aB));
+  }
+
+  @Test
+  public void testSolveSymmetricIndefinite ()
+  {
+    // Symmetric with positive and negative eigenvalues, like the adjacency
+    // matrix of an undirected graph
+    final Random aRandom = new Random (6);
+    final Matrix aRandomPart = _randomSparse (aRandom, 40, 40, 0.1);
+    final Matrix aDense = aRandomPart.plus (aRandomPart.transpose ());
+    for (int i = 0; i < 40; ++i)
+      aDense.set (i, i, i % 2 == 0 ? 8 : -8);
+    final SparseMatrix aSparse = SparseMatrix.createFromMatrix (aDense);
+    assertTrue (aSparse.isSymmetrical ());
+    final Matrix aRHS = _randomSparse (aRandom, 40, 3, 1);
+
+    // CG breaks down, so BiCGSTAB is used
+    final double [] b = new double [40];
+    for (int i = 0; i < 40; ++i)
+      b[i] = aRHS.get (i, 0);
+    assertFalse (SparseSolver.conjugateGradient (aSparse, b).isConverged ());
+
+    _assertEquals (aDense.solve (aRHS), aSparse.solve (aRHS));
+  }
+}
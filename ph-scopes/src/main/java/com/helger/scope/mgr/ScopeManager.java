@@ -252,6 +252,12 @@ public final class ScopeManager
         // And register in the Session Manager
         aSSM.onScopeBegin (aSessionScope);
       }
+      else
+        if (aSessionScope != null)
+        {
+          // Prolong the session lifetime
+          aSSM.touchSession (aSessionScope);
+        }
 
       // We're done - maybe null
       return aSessionScope;
@@ -16,6 +16,15 @@
  */
 package com.helger.scope.mgr;
 
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
 import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -29,16 +38,19 @@ import com.helger.commons.ValueEnforcer;
 import com.helger.commons.annotation.ReturnsMutableCopy;
 import com.helger.commons.annotation.Singleton;
 import com.helger.commons.annotation.UsedViaReflection;
-import com.helger.commons.collection.impl.CommonsHashMap;
-import com.helger.commons.collection.impl.CommonsHashSet;
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.CommonsConcurrentHashMap;
 import com.helger.commons.collection.impl.ICommonsList;
-import com.helger.commons.collection.impl.ICommonsMap;
-import com.helger.commons.collection.impl.ICommonsSet;
+import com.helger.commons.concurrent.BasicThreadFactory;
+import com.helger.commons.concurrent.ExecutorServiceHelper;
 import com.helger.commons.equals.EqualsHelper;
 import com.helger.commons.state.EChange;
 import com.helger.commons.statistics.IMutableStatisticsHandlerCounter;
+import com.helger.commons.statistics.IMutableStatisticsHandlerSize;
+import com.helger.commons.statistics.IMutableStatisticsHandlerTimer;
 import com.helger.commons.statistics.StatisticsManager;
 import com.helger.commons.string.StringHelper;
+import com.helger.commons.timing.StopWatch;
 import com.helger.scope.IScope;
 import com.helger.scope.ISessionScope;
 import com.helger.scope.singleton.AbstractGlobalSingleton;
@@ -48,6 +60,12 @@ import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
 /**
  * Internal manager class for session scopes.<br>
+ * The sessions are kept in a concurrent map, so that session begin and end
+ * don't block each other. Optionally sessions can expire after a period of
+ * inactivity (see {@link #setSessionTimeoutMillis(long)}). The expiration is
+ * tracked in a hierarchical timing wheel that is processed by
+ * {@link #sweepExpiredSessions()} - either called manually or regularly via
+ * {@link #startExpirySweeper()}.<br>
  * This class is only non-final so that the WebScopeSessionManager can be used
  * for web scopes!
  *
@@ -59,21 +77,47 @@ public class ScopeSessionManager extends AbstractGlobalSingleton
 {
   public static final boolean DEFAULT_DESTROY_ALL_SESSIONS_ON_SCOPE_END = true;
   public static final boolean DEFAULT_END_ALL_SESSIONS_ON_SCOPE_END = true;
+  /** By default sessions don't expire */
+  public static final long DEFAULT_SESSION_TIMEOUT_MILLIS = 0;
+  /** The granularity of the session expiration */
+  public static final long EXPIRY_SWEEP_INTERVAL_MILLIS = 1000;
+  /**
+   * The minimum number of sessions to destroy them in parallel on shutdown.
+   */
+  public static final long DEFAULT_PARALLEL_DESTRUCTION_THRESHOLD = 1000;
   private static final Logger s_aLogger = LoggerFactory.getLogger (ScopeSessionManager.class);
   private static final IMutableStatisticsHandlerCounter s_aUniqueSessionCounter = StatisticsManager.getCounterHandler (ScopeSessionManager.class.getName () +
                                                                                                                        "$UNIQUE_SESSIONS");
+  private static final IMutableStatisticsHandlerCounter s_aExpiredSessionCounter = StatisticsManager.getCounterHandler (ScopeSessionManager.class.getName () +
+                                                                                                                        "$EXPIRED_SESSIONS");
+  private static final IMutableStatisticsHandlerSize s_aLiveSessionSize = StatisticsManager.getSizeHandler (ScopeSessionManager.class.getName () +
+                                                                                                            "$LIVE_SESSIONS");
+  private static final IMutableStatisticsHandlerTimer s_aSweepTimer = StatisticsManager.getTimerHandler (ScopeSessionManager.class.getName () +
+                                                                                                         "$SWEEP");
 
   private static volatile ScopeSessionManager s_aInstance = null;
 
   /** All contained session scopes. */
+  private final CommonsConcurrentHashMap <String, ISessionScope> m_aSessionScopes = new CommonsConcurrentHashMap <> ();
+  private final Set <String> m_aSessionsInDestruction = ConcurrentHashMap.newKeySet ();
+
+  /** Expiration entries of all sessions, if a timeout is set */
+  private final CommonsConcurrentHashMap <String, SessionExpiryWheel.Entry> m_aExpiryEntries = new CommonsConcurrentHashMap <> ();
+  /** New expiration entries not yet in the wheel */
+  private final ConcurrentLinkedQueue <SessionExpiryWheel.Entry> m_aPendingExpiryEntries = new ConcurrentLinkedQueue <> ();
+  private final ReentrantLock m_aSweepLock = new ReentrantLock ();
+  @GuardedBy ("m_aSweepLock")
+  private SessionExpiryWheel m_aExpiryWheel;
+  private volatile long m_nSessionTimeoutMillis = DEFAULT_SESSION_TIMEOUT_MILLIS;
   @GuardedBy ("m_aRWLock")
-  private final ICommonsMap <String, ISessionScope> m_aSessionScopes = new CommonsHashMap <> ();
-  @GuardedBy ("m_aRWLock")
-  private final ICommonsSet <String> m_aSessionsInDestruction = new CommonsHashSet <> ();
+  private ScheduledExecutorService m_aExpirySweeper;
+
   @GuardedBy ("m_aRWLock")
   private boolean m_bDestroyAllSessionsOnScopeEnd = DEFAULT_DESTROY_ALL_SESSIONS_ON_SCOPE_END;
   @GuardedBy ("m_aRWLock")
   private boolean m_bEndAllSessionsOnScopeEnd = DEFAULT_END_ALL_SESSIONS_ON_SCOPE_END;
+  @GuardedBy ("m_aRWLock")
+  private long m_nParallelDestructionThreshold = DEFAULT_PARALLEL_DESTRUCTION_THRESHOLD;
 
   @Deprecated
   @UsedViaReflection
@@ -105,7 +149,7 @@ public class ScopeSessionManager extends AbstractGlobalSingleton
     if (StringHelper.hasNoText (sScopeID))
       return null;
 
-    return m_aRWLock.readLocked ( () -> m_aSessionScopes.get (sScopeID));
+    return m_aSessionScopes.get (sScopeID);
   }
 
   /**
@@ -122,10 +166,9 @@ public class ScopeSessionManager extends AbstractGlobalSingleton
     ValueEnforcer.notNull (aSessionScope, "SessionScope");
 
     final String sSessionID = aSessionScope.getID ();
-    m_aRWLock.writeLocked ( () -> {
-      if (m_aSessionScopes.put (sSessionID, aSessionScope) != null)
-        s_aLogger.error ("Overwriting session scope with ID '" + sSessionID + "'");
-    });
+    if (m_aSessionScopes.put (sSessionID, aSessionScope) != null)
+      s_aLogger.error ("Overwriting session scope with ID '" + sSessionID + "'");
+    touchSession (aSessionScope);
 
     // Init the scope after it was registered
     aSessionScope.initScope ();
@@ -154,25 +197,24 @@ public class ScopeSessionManager extends AbstractGlobalSingleton
     {
       final String sSessionID = aSessionScope.getID ();
 
-      final boolean bCanDestroyScope = m_aRWLock.writeLocked ( () -> {
-        boolean bWLCanDestroyScope = false;
-        // Only if we're not just in destruction of exactly this session
-        if (m_aSessionsInDestruction.add (sSessionID))
+      boolean bCanDestroyScope = false;
+      // Only if we're not just in destruction of exactly this session
+      if (m_aSessionsInDestruction.add (sSessionID))
+      {
+        // Remove from map
+        final ISessionScope aRemovedScope = m_aSessionScopes.remove (sSessionID);
+        if (!EqualsHelper.identityEqual (aRemovedScope, aSessionScope))
         {
-          // Remove from map
-          final ISessionScope aRemovedScope = m_aSessionScopes.remove (sSessionID);
-          if (!EqualsHelper.identityEqual (aRemovedScope, aSessionScope))
-          {
-            s_aLogger.error ("Ending an unknown session with ID '" + sSessionID + "'");
-            s_aLogger.error ("  Scope to be removed: " + aSessionScope);
-            s_aLogger.error ("  Removed scope:       " + aRemovedScope);
-          }
-          bWLCanDestroyScope = true;
+          s_aLogger.error ("Ending an unknown session with ID '" + sSessionID + "'");
+          s_aLogger.error ("  Scope to be removed: " + aSessionScope);
+          s_aLogger.error ("  Removed scope:       " + aRemovedScope);
         }
-        else
-          s_aLogger.info ("Already destructing session '" + sSessionID + "'");
-        return bWLCanDestroyScope;
-      });
+        // The wheel entry is dropped when it fires
+        m_aExpiryEntries.remove (sSessionID);
+        bCanDestroyScope = true;
+      }
+      else
+        s_aLogger.info ("Already destructing session '" + sSessionID + "'");
 
       if (bCanDestroyScope)
       {
@@ -188,9 +230,7 @@ public class ScopeSessionManager extends AbstractGlobalSingleton
         finally
         {
           // Remove from "in destruction" list
-          m_aRWLock.writeLocked ( () -> {
-            m_aSessionsInDestruction.remove (sSessionID);
-          });
+          m_aSessionsInDestruction.remove (sSessionID);
         }
       }
     }
@@ -202,7 +242,7 @@ public class ScopeSessionManager extends AbstractGlobalSingleton
    */
   public boolean containsAnySession ()
   {
-    return m_aRWLock.readLocked ( () -> !m_aSessionScopes.isEmpty ());
+    return !m_aSessionScopes.isEmpty ();
   }
 
   /**
@@ -211,7 +251,22 @@ public class ScopeSessionManager extends AbstractGlobalSingleton
   @Nonnegative
   public int getSessionCount ()
   {
-    return m_aRWLock.readLocked ( () -> m_aSessionScopes.size ());
+    return m_aSessionScopes.size ();
+  }
+
+  /**
+   * Invoke the passed consumer for all managed session scopes without copying
+   * them. The iteration is weakly consistent: sessions added or removed
+   * concurrently may or may not be contained.
+   *
+   * @param aConsumer
+   *        The consumer to be invoked. May not be <code>null</code>.
+   * @since 9.0.0
+   */
+  public void forEachSessionScope (@Nonnull final Consumer <? super ISessionScope> aConsumer)
+  {
+    ValueEnforcer.notNull (aConsumer, "Consumer");
+    m_aSessionScopes.values ().forEach (aConsumer);
   }
 
   /**
@@ -222,21 +277,20 @@ public class ScopeSessionManager extends AbstractGlobalSingleton
   @ReturnsMutableCopy
   public ICommonsList <ISessionScope> getAllSessionScopes ()
   {
-    return m_aRWLock.readLocked ( () -> m_aSessionScopes.copyOfValues ());
+    return m_aSessionScopes.copyOfValues ();
   }
 
   private void _checkIfAnySessionsExist ()
   {
     if (containsAnySession ())
     {
-      m_aRWLock.writeLocked ( () -> {
-        s_aLogger.error ("The following " +
-                         m_aSessionScopes.size () +
-                         " session scopes are left over: " +
-                         m_aSessionScopes.toString ());
-        m_aSessionScopes.clear ();
-      });
+      s_aLogger.error ("The following " +
+                       m_aSessionScopes.size () +
+                       " session scopes are left over: " +
+                       m_aSessionScopes.toString ());
+      m_aSessionScopes.clear ();
     }
+    m_aExpiryEntries.clear ();
   }
 
   /**
@@ -245,36 +299,34 @@ public class ScopeSessionManager extends AbstractGlobalSingleton
    */
   public void destroyAllSessions ()
   {
-    // destroy all session scopes (use a copy, because we're invalidating
-    // the sessions internally!)
-    for (final ISessionScope aSessionScope : getAllSessionScopes ())
-    {
-      // Unfortunately we need a special handling here
-      if (aSessionScope.selfDestruct ().isContinue ())
-      {
-        // Remove from map
-        onScopeEnd (aSessionScope);
-      }
-      // Else the destruction was already started!
-    }
+    // destroy all session scopes - the iteration is weakly consistent, so the
+    // sessions can be removed while iterating. Large numbers of sessions are
+    // destroyed in parallel.
+    m_aSessionScopes.forEachValue (getParallelDestructionThreshold (), this::_destroySession);
 
     // Sanity check in case something went wrong
     _checkIfAnySessionsExist ();
   }
 
+  private void _destroySession (@Nonnull final ISessionScope aSessionScope)
+  {
+    // Unfortunately we need a special handling here
+    if (aSessionScope.selfDestruct ().isContinue ())
+    {
+      // Remove from map
+      onScopeEnd (aSessionScope);
+    }
+    // Else the destruction was already started!
+  }
+
   /**
    * Remove all existing session scopes, and invoke the destruction methods on
    * the contained objects.
    */
   private void _endAllSessionScopes ()
   {
-    // end all session scopes without destroying the underlying sessions (make a
-    // copy, because we're invalidating the sessions!)
-    for (final ISessionScope aSessionScope : getAllSessionScopes ())
-    {
-      // Remove from map
-      onScopeEnd (aSessionScope);
-    }
+    // end all session scopes without destroying the underlying sessions
+    m_aSessionScopes.forEachValue (getParallelDestructionThreshold (), this::onScopeEnd);
 
     // Sanity check in case something went wrong
     _checkIfAnySessionsExist ();
@@ -312,10 +364,231 @@ public class ScopeSessionManager extends AbstractGlobalSingleton
     });
   }
 
+  /**
+   * @return The minimum number of sessions from which on all sessions are
+   *         destroyed in parallel upon shutdown. Default is
+   *         {@link #DEFAULT_PARALLEL_DESTRUCTION_THRESHOLD}.
+   * @since 9.0.0
+   */
+  @Nonnegative
+  public long getParallelDestructionThreshold ()
+  {
+    return m_aRWLock.readLocked ( () -> m_nParallelDestructionThreshold);
+  }
+
+  /**
+   * @param nParallelDestructionThreshold
+   *        The minimum number of sessions from which on all sessions are
+   *        destroyed in parallel upon shutdown. Use {@link Long#MAX_VALUE} to
+   *        always destroy them sequentially. Must be &ge; 1.
+   * @return {@link EChange}
+   * @since 9.0.0
+   */
+  @Nonnull
+  public EChange setParallelDestructionThreshold (@Nonnegative final long nParallelDestructionThreshold)
+  {
+    ValueEnforcer.isGT0 (nParallelDestructionThreshold, "ParallelDestructionThreshold");
+    return m_aRWLock.writeLocked ( () -> {
+      if (m_nParallelDestructionThreshold == nParallelDestructionThreshold)
+        return EChange.UNCHANGED;
+      m_nParallelDestructionThreshold = nParallelDestructionThreshold;
+      return EChange.CHANGED;
+    });
+  }
+
+  /**
+   * @return The inactivity period in milliseconds after which a session
+   *         expires. 0 means sessions don't expire.
+   * @since 9.0.0
+   */
+  @Nonnegative
+  public long getSessionTimeoutMillis ()
+  {
+    return m_nSessionTimeoutMillis;
+  }
+
+  /**
+   * Set the inactivity period after which sessions expire. This affects all
+   * sessions starting or being touched afterwards.
+   *
+   * @param nSessionTimeoutMillis
+   *        The timeout in milliseconds. Must be &ge; 0. 0 means sessions
+   *        don't expire.
+   * @since 9.0.0
+   */
+  public void setSessionTimeoutMillis (@Nonnegative final long nSessionTimeoutMillis)
+  {
+    ValueEnforcer.isGE0 (nSessionTimeoutMillis, "SessionTimeoutMillis");
+    m_nSessionTimeoutMillis = nSessionTimeoutMillis;
+  }
+
+  /**
+   * Mark the passed session as being active, so that it expires not before
+   * the session timeout has passed again. This is called automatically by
+   * {@link ScopeManager#getSessionScope(boolean)}. If no session timeout is
+   * set, this method does nothing.
+   *
+   * @param aSessionScope
+   *        The session that was accessed. May not be <code>null</code>.
+   * @since 9.0.0
+   */
+  public void touchSession (@Nonnull final ISessionScope aSessionScope)
+  {
+    ValueEnforcer.notNull (aSessionScope, "SessionScope");
+
+    final long nTimeout = m_nSessionTimeoutMillis;
+    if (nTimeout > 0)
+    {
+      final String sSessionID = aSessionScope.getID ();
+      final long nDeadline = System.currentTimeMillis () + nTimeout;
+      final SessionExpiryWheel.Entry aEntry = m_aExpiryEntries.get (sSessionID);
+      if (aEntry != null)
+      {
+        // No need to touch the wheel - the entry is re-scheduled when it fires
+        aEntry.setDeadlineMillis (nDeadline);
+      }
+      else
+        if (m_aSessionScopes.get (sSessionID) == aSessionScope)
+        {
+          final SessionExpiryWheel.Entry aNewEntry = new SessionExpiryWheel.Entry (sSessionID, nDeadline);
+          if (m_aExpiryEntries.putIfAbsent (sSessionID, aNewEntry) == null)
+            m_aPendingExpiryEntries.add (aNewEntry);
+        }
+    }
+  }
+
+  /**
+   * End all sessions whose timeout has expired.
+   *
+   * @return The number of expired sessions. Always &ge; 0.
+   * @since 9.0.0
+   */
+  @Nonnegative
+  public int sweepExpiredSessions ()
+  {
+    return sweepExpiredSessions (System.currentTimeMillis ());
+  }
+
+  /**
+   * End all sessions whose timeout has expired at the passed point in time.
+   * Concurrent invocations are serialized.
+   *
+   * @param nNowMillis
+   *        The current time in milliseconds.
+   * @return The number of expired sessions. Always &ge; 0.
+   * @since 9.0.0
+   */
+  @Nonnegative
+  public int sweepExpiredSessions (final long nNowMillis)
+  {
+    final StopWatch aSW = StopWatch.createdStarted ();
+    final ICommonsList <ISessionScope> aExpired = new CommonsArrayList <> ();
+    m_aSweepLock.lock ();
+    try
+    {
+      if (m_aExpiryWheel == null)
+        m_aExpiryWheel = new SessionExpiryWheel (EXPIRY_SWEEP_INTERVAL_MILLIS, nNowMillis);
+
+      SessionExpiryWheel.Entry aEntry;
+      while ((aEntry = m_aPendingExpiryEntries.poll ()) != null)
+        m_aExpiryWheel.add (aEntry);
+
+      m_aExpiryWheel.advance (nNowMillis, aExpiredEntry -> {
+        final String sSessionID = aExpiredEntry.getSessionID ();
+        // Ignore entries of sessions that were ended in the meantime
+        if (m_aExpiryEntries.remove (sSessionID, aExpiredEntry))
+        {
+          final ISessionScope aSessionScope = m_aSessionScopes.get (sSessionID);
+          if (aSessionScope != null)
+            aExpired.add (aSessionScope);
+        }
+      });
+    }
+    finally
+    {
+      m_aSweepLock.unlock ();
+    }
+
+    // End the sessions outside of the lock
+    for (final ISessionScope aSessionScope : aExpired)
+    {
+      if (s_aLogger.isDebugEnabled ())
+        s_aLogger.debug ("Session '" + aSessionScope.getID () + "' expired");
+      _destroySession (aSessionScope);
+    }
+
+    s_aExpiredSessionCounter.increment (aExpired.size ());
+    s_aLiveSessionSize.addSize (m_aSessionScopes.size ());
+    s_aSweepTimer.addTime (aSW.stopAndGetMillis ());
+    return aExpired.size ();
+  }
+
+  /**
+   * Start a background thread that calls {@link #sweepExpiredSessions()}
+   * every {@value #EXPIRY_SWEEP_INTERVAL_MILLIS} milliseconds. The thread is
+   * stopped when this manager is destroyed.
+   *
+   * @return {@link EChange#UNCHANGED} if the sweeper is already running.
+   * @since 9.0.0
+   */
+  @Nonnull
+  public EChange startExpirySweeper ()
+  {
+    return m_aRWLock.writeLocked ( () -> {
+      if (m_aExpirySweeper != null)
+        return EChange.UNCHANGED;
+      m_aExpirySweeper = Executors.newSingleThreadScheduledExecutor (new BasicThreadFactory.Builder ().setNamingPattern ("SessionExpirySweeper-%d")
+                                                                                                      .setDaemon (true)
+                                                                                                      .build ());
+      m_aExpirySweeper.scheduleWithFixedDelay ( () -> {
+        try
+        {
+          sweepExpiredSessions ();
+        }
+        catch (final Throwable t)
+        {
+          // Don't stop the sweeper
+          s_aLogger.error ("Failed to sweep expired sessions", t);
+        }
+      }, EXPIRY_SWEEP_INTERVAL_MILLIS, EXPIRY_SWEEP_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+      return EChange.CHANGED;
+    });
+  }
+
+  /**
+   * Stop the background thread started by {@link #startExpirySweeper()}.
+   *
+   * @return {@link EChange#UNCHANGED} if no sweeper was running.
+   * @since 9.0.0
+   */
+  @Nonnull
+  public EChange stopExpirySweeper ()
+  {
+    final ScheduledExecutorService aSweeper = m_aRWLock.writeLocked ( () -> {
+      final ScheduledExecutorService ret = m_aExpirySweeper;
+      m_aExpirySweeper = null;
+      return ret;
+    });
+    if (aSweeper == null)
+      return EChange.UNCHANGED;
+    ExecutorServiceHelper.shutdownAndWaitUntilAllTasksAreFinished (aSweeper);
+    return EChange.CHANGED;
+  }
+
+  /**
+   * @return <code>true</code> if the background expiry sweeper is running.
+   * @since 9.0.0
+   */
+  public boolean isExpirySweeperRunning ()
+  {
+    return m_aRWLock.readLocked ( () -> m_aExpirySweeper != null);
+  }
+
   @SuppressFBWarnings ("ST_WRITE_TO_STATIC_FROM_INSTANCE_METHOD")
   @Override
   protected void onDestroy (@Nonnull final IScope aScopeInDestruction)
   {
+    stopExpirySweeper ();
     if (isDestroyAllSessionsOnScopeEnd ())
       destroyAllSessions ();
     else
@@ -0,0 +1,218 @@
+/**
+ * Copyright (C) 2014-2017 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.scope.mgr;
+
+import java.util.function.Consumer;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.ICommonsList;
+
+/**
+ * Hierarchical timing wheel used to find expired sessions without looking at
+ * all sessions. Each of the {@value #LEVELS} levels has {@value #SLOTS} slots;
+ * a slot on level <code>n</code> covers <code>SLOTS^n</code> ticks. An entry is
+ * put on the lowest level on which its deadline tick shares all higher digits
+ * with the current tick and is moved down to the lower levels when the current
+ * tick reaches its slot. Adding and advancing are therefore O(1) per entry,
+ * independent of the total number of entries.<br>
+ * Deadlines can be prolonged without touching the wheel: when an entry fires
+ * and its deadline lies in the future, it is simply re-added.
+ *
+ * @author Philip Helger
+ * @since 9.0.0
+ */
+@NotThreadSafe
+final class SessionExpiryWheel
+{
+  /**
+   * A single wheel entry. The deadline may be changed from any thread.
+   */
+  static final class Entry
+  {
+    private final String m_sSessionID;
+    private volatile long m_nDeadlineMillis;
+
+    Entry (@Nonnull final String sSessionID, final long nDeadlineMillis)
+    {
+      m_sSessionID = sSessionID;
+      m_nDeadlineMillis = nDeadlineMillis;
+    }
+
+    @Nonnull
+    String getSessionID ()
+    {
+      return m_sSessionID;
+    }
+
+    long getDeadlineMillis ()
+    {
+      return m_nDeadlineMillis;
+    }
+
+    void setDeadlineMillis (final long nDeadlineMillis)
+    {
+      m_nDeadlineMillis = nDeadlineMillis;
+    }
+  }
+
+  static final int SLOT_BITS = 6;
+  static final int SLOTS = 1 << SLOT_BITS;
+  static final int LEVELS = 5;
+  private static final int SLOT_MASK = SLOTS - 1;
+  private static final long MAX_DISTANCE = (1L << (SLOT_BITS * LEVELS)) - 1;
+
+  private final long m_nTickMillis;
+  private final ICommonsList <ICommonsList <Entry>> m_aSlots;
+  // The next tick to be processed
+  private long m_nCurrentTick;
+  private int m_nSize = 0;
+
+  SessionExpiryWheel (@Nonnegative final long nTickMillis, final long nStartMillis)
+  {
+    ValueEnforcer.isGT0 (nTickMillis, "TickMillis");
+    m_nTickMillis = nTickMillis;
+    m_aSlots = new CommonsArrayList <> (LEVELS * SLOTS);
+    for (int i = 0; i < LEVELS * SLOTS; ++i)
+      m_aSlots.add (null);
+    m_nCurrentTick = nStartMillis / nTickMillis;
+  }
+
+  @Nonnegative
+  long getTickMillis ()
+  {
+    return m_nTickMillis;
+  }
+
+  /**
+   * @return The number of entries in the wheel, including the ones that are
+   *         no longer relevant.
+   */
+  @Nonnegative
+  int size ()
+  {
+    return m_nSize;
+  }
+
+  private void _place (@Nonnull final Entry aEntry)
+  {
+    long nTick = aEntry.getDeadlineMillis () / m_nTickMillis;
+    if (nTick < m_nCurrentTick)
+    {
+      // Already overdue - handle with the next tick
+      nTick = m_nCurrentTick;
+    }
+    else
+      if ((nTick ^ m_nCurrentTick) > MAX_DISTANCE)
+      {
+        // Too far in the future - park it in the last reachable slot; it is
+        // re-added when it fires
+        nTick = m_nCurrentTick | MAX_DISTANCE;
+      }
+
+    // Lowest level on which all higher digits are identical
+    final long nDiff = nTick ^ m_nCurrentTick;
+    int nLevel = 0;
+    while (nDiff >>> (SLOT_BITS * (nLevel + 1)) != 0)
+      nLevel++;
+
+    final int nIndex = nLevel * SLOTS + (int) ((nTick >>> (SLOT_BITS * nLevel)) & SLOT_MASK);
+    ICommonsList <Entry> aSlot = m_aSlots.get (nIndex);
+    if (aSlot == null)
+    {
+      aSlot = new CommonsArrayList <> ();
+      m_aSlots.set (nIndex, aSlot);
+    }
+    aSlot.add (aEntry);
+    m_nSize++;
+  }
+
+  /**
+   * Add a new entry to the wheel.
+   *
+   * @param aEntry
+   *        The entry to add. May not be <code>null</code>.
+   */
+  void add (@Nonnull final Entry aEntry)
+  {
+    ValueEnforcer.notNull (aEntry, "Entry");
+    _place (aEntry);
+  }
+
+  @Nonnull
+  private ICommonsList <Entry> _takeSlot (final int nLevel, final long nTick)
+  {
+    final int nIndex = nLevel * SLOTS + (int) ((nTick >>> (SLOT_BITS * nLevel)) & SLOT_MASK);
+    final ICommonsList <Entry> aSlot = m_aSlots.get (nIndex);
+    if (aSlot == null)
+      return new CommonsArrayList <> ();
+    m_aSlots.set (nIndex, null);
+    m_nSize -= aSlot.size ();
+    return aSlot;
+  }
+
+  /**
+   * Process all ticks up to and including the passed point in time. All
+   * entries whose deadline has passed are handed to the consumer and removed
+   * from the wheel; entries that were prolonged in the meantime are re-added.
+   *
+   * @param nNowMillis
+   *        The current time in milliseconds.
+   * @param aExpiredConsumer
+   *        The consumer for the expired entries. May not be <code>null</code>.
+   */
+  void advance (final long nNowMillis, @Nonnull final Consumer <? super Entry> aExpiredConsumer)
+  {
+    ValueEnforcer.notNull (aExpiredConsumer, "ExpiredConsumer");
+
+    final long nNowTick = nNowMillis / m_nTickMillis;
+    while (m_nCurrentTick <= nNowTick)
+    {
+      if (m_nSize == 0)
+      {
+        // Nothing to do - jump directly to the end
+        m_nCurrentTick = nNowTick + 1;
+        break;
+      }
+
+      // Cascade the higher levels whose slot starts at the current tick -
+      // highest first, so that entries can be moved down multiple levels
+      for (int nLevel = LEVELS - 1; nLevel > 0; --nLevel)
+        if ((m_nCurrentTick & ((1L << (SLOT_BITS * nLevel)) - 1)) == 0)
+          for (final Entry aEntry : _takeSlot (nLevel, m_nCurrentTick))
+            _place (aEntry);
+
+      final ICommonsList <Entry> aDue = _takeSlot (0, m_nCurrentTick);
+      final long nProcessedTick = m_nCurrentTick;
+      m_nCurrentTick++;
+      for (final Entry aEntry : aDue)
+      {
+        if (aEntry.getDeadlineMillis () / m_nTickMillis > nProcessedTick)
+        {
+          // Prolonged or parked
+          _place (aEntry);
+        }
+        else
+          aExpiredConsumer.accept (aEntry);
+      }
+    }
+  }
+}
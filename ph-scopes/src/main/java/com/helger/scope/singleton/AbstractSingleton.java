@@ -21,6 +21,8 @@ import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.lang.reflect.Constructor;
 import java.util.BitSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -35,6 +37,7 @@ import com.helger.commons.annotation.OverrideOnDemand;
 import com.helger.commons.annotation.ReturnsMutableCopy;
 import com.helger.commons.annotation.UsedViaReflection;
 import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.CommonsConcurrentHashMap;
 import com.helger.commons.collection.impl.ICommonsList;
 import com.helger.commons.concurrent.SimpleReadWriteLock;
 import com.helger.commons.debug.GlobalDebug;
@@ -59,13 +62,40 @@ public abstract class AbstractSingleton implements IScopeDestructionAware
   private static final int STATUS_IN_DESTRUCTION = 3;
   private static final int STATUS_DESTROYED = 4;
 
+  // Poll interval when waiting for a singleton lock from within another
+  // singleton instantiation
+  private static final long NESTED_LOCK_POLL_MILLIS = 10;
+
   private static final int DEFAULT_KEY_LENGTH = 255;
   private static final Logger s_aLogger = LoggerFactory.getLogger (AbstractSingleton.class);
   private static final IMutableStatisticsHandlerKeyedCounter s_aStatsCounterInstantiate = StatisticsManager.getKeyedCounterHandler (AbstractSingleton.class);
 
   protected final SimpleReadWriteLock m_aRWLock = new SimpleReadWriteLock ();
+  // Bit set of the STATUS_* constants. Volatile so that the status can be read
+  // without locking; modifications happen in the write lock.
   @GuardedBy ("m_aRWLock")
-  private BitSet m_aStatus = new BitSet (16);
+  private volatile int m_nStatus = 0;
+
+  @Nonnull
+  private BitSet _getStatusAsBitSet ()
+  {
+    return BitSet.valueOf (new long [] { m_nStatus });
+  }
+
+  private void _setStatus (final int nStatus, final boolean bSet)
+  {
+    m_aRWLock.writeLocked ( () -> {
+      if (bSet)
+        m_nStatus |= 1 << nStatus;
+      else
+        m_nStatus &= ~(1 << nStatus);
+    });
+  }
+
+  private boolean _isStatus (final int nStatus)
+  {
+    return (m_nStatus & (1 << nStatus)) != 0;
+  }
 
   /**
    * Write the internal status variables to the passed
@@ -79,7 +109,8 @@ public abstract class AbstractSingleton implements IScopeDestructionAware
    */
   protected final void writeAbstractSingletonFields (@Nonnull final ObjectOutputStream aOOS) throws IOException
   {
-    aOOS.writeObject (m_aStatus);
+    // Written as BitSet for compatibility reasons
+    aOOS.writeObject (_getStatusAsBitSet ());
   }
 
   /**
@@ -97,7 +128,8 @@ public abstract class AbstractSingleton implements IScopeDestructionAware
   protected final void readAbstractSingletonFields (@Nonnull final ObjectInputStream aOIS) throws IOException,
                                                                                            ClassNotFoundException
   {
-    m_aStatus = (BitSet) aOIS.readObject ();
+    final BitSet aStatus = (BitSet) aOIS.readObject ();
+    m_nStatus = aStatus.isEmpty () ? 0 : (int) aStatus.toLongArray ()[0];
   }
 
   /**
@@ -159,7 +191,7 @@ public abstract class AbstractSingleton implements IScopeDestructionAware
 
   protected final void setInInstantiation (final boolean bInInstantiation)
   {
-    m_aRWLock.writeLocked ( () -> m_aStatus.set (STATUS_IN_INSTANTIATION, bInInstantiation));
+    _setStatus (STATUS_IN_INSTANTIATION, bInInstantiation);
   }
 
   /**
@@ -169,12 +201,12 @@ public abstract class AbstractSingleton implements IScopeDestructionAware
    */
   public final boolean isInInstantiation ()
   {
-    return m_aRWLock.readLocked ( () -> m_aStatus.get (STATUS_IN_INSTANTIATION));
+    return _isStatus (STATUS_IN_INSTANTIATION);
   }
 
   protected final void setInstantiated (final boolean bInstantiated)
   {
-    m_aRWLock.writeLocked ( () -> m_aStatus.set (STATUS_INSTANTIATED, bInstantiated));
+    _setStatus (STATUS_INSTANTIATED, bInstantiated);
   }
 
   /**
@@ -183,12 +215,12 @@ public abstract class AbstractSingleton implements IScopeDestructionAware
    */
   public final boolean isInstantiated ()
   {
-    return m_aRWLock.readLocked ( () -> m_aStatus.get (STATUS_INSTANTIATED));
+    return _isStatus (STATUS_INSTANTIATED);
   }
 
   protected final void setInPreDestruction (final boolean bInPreDestruction)
   {
-    m_aRWLock.writeLocked ( () -> m_aStatus.set (STATUS_IN_PRE_DESTRUCTION, bInPreDestruction));
+    _setStatus (STATUS_IN_PRE_DESTRUCTION, bInPreDestruction);
   }
 
   /**
@@ -198,12 +230,12 @@ public abstract class AbstractSingleton implements IScopeDestructionAware
    */
   public final boolean isInPreDestruction ()
   {
-    return m_aRWLock.readLocked ( () -> m_aStatus.get (STATUS_IN_PRE_DESTRUCTION));
+    return _isStatus (STATUS_IN_PRE_DESTRUCTION);
   }
 
   protected final void setInDestruction (final boolean bInDestruction)
   {
-    m_aRWLock.writeLocked ( () -> m_aStatus.set (STATUS_IN_DESTRUCTION, bInDestruction));
+    _setStatus (STATUS_IN_DESTRUCTION, bInDestruction);
   }
 
   /**
@@ -213,12 +245,12 @@ public abstract class AbstractSingleton implements IScopeDestructionAware
    */
   public final boolean isInDestruction ()
   {
-    return m_aRWLock.readLocked ( () -> m_aStatus.get (STATUS_IN_DESTRUCTION));
+    return _isStatus (STATUS_IN_DESTRUCTION);
   }
 
   protected final void setDestroyed (final boolean bDestroyed)
   {
-    m_aRWLock.writeLocked ( () -> m_aStatus.set (STATUS_DESTROYED, bDestroyed));
+    _setStatus (STATUS_DESTROYED, bDestroyed);
   }
 
   /**
@@ -227,7 +259,7 @@ public abstract class AbstractSingleton implements IScopeDestructionAware
    */
   public final boolean isDestroyed ()
   {
-    return m_aRWLock.readLocked ( () -> m_aStatus.get (STATUS_DESTROYED));
+    return _isStatus (STATUS_DESTROYED);
   }
 
   /**
@@ -345,7 +377,10 @@ public abstract class AbstractSingleton implements IScopeDestructionAware
    */
   public final boolean isUsableObject ()
   {
-    return isInstantiated () && !isInDestruction () && !isDestroyed ();
+    // Read the status only once
+    final int nStatus = m_nStatus;
+    return (nStatus & (1 << STATUS_INSTANTIATED)) != 0 &&
+           (nStatus & ((1 << STATUS_IN_DESTRUCTION) | (1 << STATUS_DESTROYED))) == 0;
   }
 
   /**
@@ -365,7 +400,15 @@ public abstract class AbstractSingleton implements IScopeDestructionAware
     return new StringBuilder (DEFAULT_KEY_LENGTH).append ("singleton.").append (aClass.getName ()).toString ();
   }
 
-  private static SimpleReadWriteLock s_aRWLock = new SimpleReadWriteLock ();
+  // Per scope and per singleton initialization locks. Entries are removed
+  // after a successful instantiation.
+  private static final CommonsConcurrentHashMap <String, ReentrantLock> s_aInitLocks = new CommonsConcurrentHashMap <> ();
+  // Current owner thread of each initialization lock
+  private static final CommonsConcurrentHashMap <String, Thread> s_aInitLockOwners = new CommonsConcurrentHashMap <> ();
+  // The initialization lock each thread is currently polling for
+  private static final CommonsConcurrentHashMap <Thread, String> s_aWaitingForInitLock = new CommonsConcurrentHashMap <> ();
+  // Number of singleton instantiations currently running in a thread
+  private static final ThreadLocal <int []> s_aInstantiationDepth = ThreadLocal.withInitial ( () -> new int [1]);
 
   /**
    * Get the singleton object if it is already instantiated inside a scope or
@@ -390,7 +433,7 @@ public abstract class AbstractSingleton implements IScopeDestructionAware
     if (aScope != null)
     {
       final String sSingletonScopeKey = getSingletonScopeKey (aClass);
-      final Object aObject = s_aRWLock.readLocked ( () -> aScope.attrs ().get (sSingletonScopeKey));
+      final Object aObject = aScope.attrs ().get (sSingletonScopeKey);
       if (aObject != null)
       {
         // Object is in the scope
@@ -489,53 +532,91 @@ public abstract class AbstractSingleton implements IScopeDestructionAware
   }
 
   /**
-   * Get the singleton object in the passed scope, using the passed class. If
-   * the singleton is not yet instantiated, a new instance is created.
-   *
-   * @param <T>
-   *        The singleton type
-   * @param aScope
-   *        The scope to be used. May not be <code>null</code>.
-   * @param aClass
-   *        The class to be used. May not be <code>null</code>. The class must
-   *        be public as needs to have a public no-argument constructor.
-   * @return The singleton object and never <code>null</code>.
+   * Check if the current thread, waiting for the passed initialization lock, is
+   * part of a cycle of threads waiting for each other.
    */
-  @Nonnull
-  public static final <T extends AbstractSingleton> T getSingleton (@Nonnull final IScope aScope,
-                                                                    @Nonnull final Class <T> aClass)
+  private static boolean _isWaitCycle (@Nonnull final String sLockKey)
   {
-    ValueEnforcer.notNull (aScope, "aScope");
-    ValueEnforcer.notNull (aClass, "Class");
-
-    final String sSingletonScopeKey = getSingletonScopeKey (aClass);
-
-    // check if already contained in passed scope
-    T aInstance = s_aRWLock.readLocked ( () -> aScope.attrs ().getCastedValue (sSingletonScopeKey));
-    if (aInstance == null || aInstance.isInInstantiation ())
+    final Thread aCurrentThread = Thread.currentThread ();
+    String sKey = sLockKey;
+    // Each waiting thread can only be visited once in a real cycle
+    final int nMaxSteps = s_aWaitingForInitLock.size () + 1;
+    for (int i = 0; i < nMaxSteps; ++i)
     {
-      // Not yet present or just in instantiation
+      final Thread aOwner = s_aInitLockOwners.get (sKey);
+      if (aOwner == null)
+        return false;
+      if (aOwner == aCurrentThread)
+        return true;
+      sKey = s_aWaitingForInitLock.get (aOwner);
+      if (sKey == null)
+        return false;
+    }
+    return false;
+  }
 
-      // Safe instantiation check in write lock
-      s_aRWLock.writeLock ().lock ();
+  @Nonnull
+  private static <T extends AbstractSingleton> T _getOrInstantiateSingleton (@Nonnull final IScope aScope,
+                                                                             @Nonnull final Class <T> aClass,
+                                                                             @Nonnull final String sSingletonScopeKey)
+  {
+    final String sLockKey = aScope.getID () + '\n' + sSingletonScopeKey;
+    final ReentrantLock aLock = s_aInitLocks.computeIfAbsent (sLockKey, k -> new ReentrantLock ());
+    final int [] aDepth = s_aInstantiationDepth.get ();
+    if (aDepth[0] == 0)
+      aLock.lock ();
+    else
+    {
+      // Called from within another singleton instantiation. Blocking here
+      // could deadlock with another thread that instantiates this singleton
+      // and waits for the one we're currently creating. Only in case of such a
+      // cycle the instance in instantiation is returned, as in the recursive
+      // case.
+      final Thread aCurrentThread = Thread.currentThread ();
+      s_aWaitingForInitLock.put (aCurrentThread, sLockKey);
       try
       {
-        // Check again in write lock
-        aInstance = aScope.attrs ().getCastedValue (sSingletonScopeKey);
-        if (aInstance == null)
+        while (!aLock.tryLock (NESTED_LOCK_POLL_MILLIS, TimeUnit.MILLISECONDS))
+        {
+          final T aInstance = aScope.attrs ().getCastedValue (sSingletonScopeKey);
+          if (aInstance != null && (aInstance.isInstantiated () || _isWaitCycle (sLockKey)))
+            return aInstance;
+        }
+      }
+      catch (final InterruptedException ex)
+      {
+        Thread.currentThread ().interrupt ();
+        throw new IllegalStateException ("Interrupted while waiting for singleton " + sSingletonScopeKey, ex);
+      }
+      finally
+      {
+        s_aWaitingForInitLock.remove (aCurrentThread);
+      }
+    }
+    s_aInitLockOwners.put (sLockKey, Thread.currentThread ());
+
+    try
+    {
+      // Check again in lock
+      T aInstance = aScope.attrs ().getCastedValue (sSingletonScopeKey);
+      if (aInstance == null)
+      {
+        aDepth[0]++;
+        try
         {
           // Main instantiation
           aInstance = _instantiateSingleton (aClass, aScope);
 
-          // Set in scope so that recursive calls to the same singleton are
-          // caught appropriately
-          aScope.attrs ().putIn (sSingletonScopeKey, aInstance);
-
           // Start the initialization process
-          // Do this after the instance was added to the scope
+          // Do this before the instance is added to the scope, so that other
+          // threads don't take it as fully initialized
           aInstance.setInInstantiation (true);
           try
           {
+            // Set in scope so that recursive calls to the same singleton are
+            // caught appropriately
+            aScope.attrs ().putIn (sSingletonScopeKey, aInstance);
+
             // Invoke callback method
             aInstance.onAfterInstantiation (aScope);
 
@@ -547,23 +628,67 @@ public abstract class AbstractSingleton implements IScopeDestructionAware
             // Ensure field is reset even in case of an exception
             aInstance.setInInstantiation (false);
           }
-
-          // And some statistics
-          s_aStatsCounterInstantiate.increment (sSingletonScopeKey);
         }
-        else
+        finally
         {
-          // May not be instantiated if this method is called from the same
-          // thread as the original instantiation
+          aDepth[0]--;
         }
 
-        // We have the instance - maybe from re-querying the scope, maybe from
-        // instantiation
+        // And some statistics
+        s_aStatsCounterInstantiate.increment (sSingletonScopeKey);
       }
-      finally
+      else
       {
-        s_aRWLock.writeLock ().unlock ();
+        // May not be instantiated if this method is called from the same
+        // thread as the original instantiation
       }
+
+      // We have the instance - maybe from re-querying the scope, maybe from
+      // instantiation
+      return aInstance;
+    }
+    finally
+    {
+      if (aLock.getHoldCount () == 1)
+        s_aInitLockOwners.remove (sLockKey);
+      aLock.unlock ();
+
+      // Once the instance is in the scope the lock is no longer needed. Threads
+      // still holding a reference to it find the instance when checking again.
+      if (aLock.getHoldCount () == 0 && aScope.attrs ().containsKey (sSingletonScopeKey))
+        s_aInitLocks.remove (sLockKey, aLock);
+    }
+  }
+
+  /**
+   * Get the singleton object in the passed scope, using the passed class. If
+   * the singleton is not yet instantiated, a new instance is created.
+   *
+   * @param <T>
+   *        The singleton type
+   * @param aScope
+   *        The scope to be used. May not be <code>null</code>.
+   * @param aClass
+   *        The class to be used. May not be <code>null</code>. The class must
+   *        be public as needs to have a public no-argument constructor.
+   * @return The singleton object and never <code>null</code>.
+   */
+  @Nonnull
+  public static final <T extends AbstractSingleton> T getSingleton (@Nonnull final IScope aScope,
+                                                                    @Nonnull final Class <T> aClass)
+  {
+    ValueEnforcer.notNull (aScope, "aScope");
+    ValueEnforcer.notNull (aClass, "Class");
+
+    final String sSingletonScopeKey = getSingletonScopeKey (aClass);
+
+    // check if already contained in passed scope - the scope attributes are
+    // thread-safe and the status is volatile, so no lock is needed
+    T aInstance = aScope.attrs ().getCastedValue (sSingletonScopeKey);
+    if (aInstance == null || aInstance.isInInstantiation ())
+    {
+      // Not yet present or just in instantiation
+      aInstance = _getOrInstantiateSingleton (aScope, aClass, sSingletonScopeKey);
     }
 
     // This happens too often in practice, therefore this is disabled
@@ -614,6 +739,6 @@ public abstract class AbstractSingleton implements IScopeDestructionAware
   @Nonnull
   public String toString ()
   {
-    return new ToStringGenerator (this).append ("Status", m_aStatus).getToString ();
+    return new ToStringGenerator (this).append ("Status", _getStatusAsBitSet ()).getToString ();
   }
 }
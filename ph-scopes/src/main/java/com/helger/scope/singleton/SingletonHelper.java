@@ -16,11 +16,11 @@
  */
 package com.helger.scope.singleton;
 
+import java.util.concurrent.atomic.AtomicBoolean;
+
 import javax.annotation.Nullable;
-import javax.annotation.concurrent.GuardedBy;
 import javax.annotation.concurrent.ThreadSafe;
 
-import com.helger.commons.concurrent.SimpleReadWriteLock;
 import com.helger.commons.debug.GlobalDebug;
 
 /**
@@ -34,11 +34,9 @@ public final class SingletonHelper
   public static final boolean DEFAULT_DEBUG_CONSISTENCY = GlobalDebug.isDebugMode ();
   public static final boolean DEFAULT_DEBUG_WITH_STACK_TRACE = false;
 
-  private static final SimpleReadWriteLock s_aRWLock = new SimpleReadWriteLock ();
-  @GuardedBy ("s_aRWLock")
-  private static boolean s_bDebugConsistency = DEFAULT_DEBUG_CONSISTENCY;
-  @GuardedBy ("s_aRWLock")
-  private static boolean s_bDebugWithStackTrace = DEFAULT_DEBUG_WITH_STACK_TRACE;
+  // Read upon every singleton access, so no lock is used
+  private static final AtomicBoolean s_aDebugConsistency = new AtomicBoolean (DEFAULT_DEBUG_CONSISTENCY);
+  private static final AtomicBoolean s_aDebugWithStackTrace = new AtomicBoolean (DEFAULT_DEBUG_WITH_STACK_TRACE);
 
   private SingletonHelper ()
   {}
@@ -52,7 +50,7 @@ public final class SingletonHelper
    */
   public static void setDebugConsistency (final boolean bDebugConsistency)
   {
-    s_aRWLock.writeLocked ( () -> s_bDebugConsistency = bDebugConsistency);
+    s_aDebugConsistency.set (bDebugConsistency);
   }
 
   /**
@@ -62,7 +60,7 @@ public final class SingletonHelper
    */
   public static boolean isDebugConsistency ()
   {
-    return s_aRWLock.readLocked ( () -> s_bDebugConsistency);
+    return s_aDebugConsistency.get ();
   }
 
   /**
@@ -74,7 +72,7 @@ public final class SingletonHelper
    */
   public static void setDebugWithStackTrace (final boolean bDebugWithStackTrace)
   {
-    s_aRWLock.writeLocked ( () -> s_bDebugWithStackTrace = bDebugWithStackTrace);
+    s_aDebugWithStackTrace.set (bDebugWithStackTrace);
   }
 
   /**
@@ -83,7 +81,7 @@ public final class SingletonHelper
    */
   public static boolean isDebugWithStackTrace ()
   {
-    return s_aRWLock.readLocked ( () -> s_bDebugWithStackTrace);
+    return s_aDebugWithStackTrace.get ();
   }
 
   /**
@@ -0,0 +1,134 @@
+/**
+ * Copyright (C) 2014-2017 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.scope.mgr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+
+import com.helger.scope.ISessionScope;
+import com.helger.scope.SessionScope;
+import com.helger.scope.mock.ScopeTestRule;
+
+/**
+ * Test class for class {@link ScopeSessionManager}.
+ *
+ * @author Philip Helger
+ */
+public final class ScopeSessionManagerTest
+{
+  @Rule
+  public final TestRule m_aScopeRule = new ScopeTestRule ();
+
+  @Test
+  public void testBasic ()
+  {
+    final ScopeSessionManager aSSM = ScopeSessionManager.getInstance ();
+    assertFalse (aSSM.containsAnySession ());
+    for (int i = 0; i < 10; ++i)
+      aSSM.onScopeBegin (new SessionScope ("session" + i));
+    assertEquals (10, aSSM.getSessionCount ());
+    assertNotNull (aSSM.getSessionScopeOfID ("session5"));
+
+    final AtomicInteger aCount = new AtomicInteger ();
+    aSSM.forEachSessionScope (x -> aCount.incrementAndGet ());
+    assertEquals (10, aCount.get ());
+
+    // Removing while iterating is allowed
+    aSSM.forEachSessionScope (aSSM::onScopeEnd);
+    assertFalse (aSSM.containsAnySession ());
+  }
+
+  @Test
+  public void testExpiration ()
+  {
+    final ScopeSessionManager aSSM = ScopeSessionManager.getInstance ();
+    assertEquals (0, aSSM.getSessionTimeoutMillis ());
+    aSSM.onScopeBegin (new SessionScope ("eternal"));
+
+    aSSM.setSessionTimeoutMillis (60_000);
+    try
+    {
+      final ISessionScope aActive = new SessionScope ("active");
+      aSSM.onScopeBegin (aActive);
+      final ISessionScope aIdle = new SessionScope ("idle");
+      aSSM.onScopeBegin (aIdle);
+
+      final long nNow = System.currentTimeMillis ();
+      assertEquals (0, aSSM.sweepExpiredSessions (nNow));
+      assertEquals (0, aSSM.sweepExpiredSessions (nNow + 30_000));
+
+      // Prolongs the session with the new timeout
+      aSSM.setSessionTimeoutMillis (600_000);
+      aSSM.touchSession (aActive);
+      assertEquals (1, aSSM.sweepExpiredSessions (nNow + 62_000));
+      assertNull (aSSM.getSessionScopeOfID ("idle"));
+      assertFalse (aIdle.isValid ());
+      assertNotNull (aSSM.getSessionScopeOfID ("active"));
+
+      // Sessions started before the timeout was set start expiring when
+      // touched
+      aSSM.touchSession (aSSM.getSessionScopeOfID ("eternal"));
+      assertEquals (2, aSSM.sweepExpiredSessions (nNow + 700_000));
+      assertFalse (aSSM.containsAnySession ());
+
+      // Manually ended sessions are ignored
+      final ISessionScope aEnded = new SessionScope ("ended");
+      aSSM.onScopeBegin (aEnded);
+      aSSM.onScopeEnd (aEnded);
+      assertEquals (0, aSSM.sweepExpiredSessions (nNow + 1_400_000));
+    }
+    finally
+    {
+      aSSM.setSessionTimeoutMillis (0);
+    }
+  }
+
+  @Test
+  public void testSweeper ()
+  {
+    final ScopeSessionManager aSSM = ScopeSessionManager.getInstance ();
+    assertFalse (aSSM.isExpirySweeperRunning ());
+    assertTrue (aSSM.startExpirySweeper ().isChanged ());
+    assertTrue (aSSM.startExpirySweeper ().isUnchanged ());
+    assertTrue (aSSM.isExpirySweeperRunning ());
+    assertTrue (aSSM.stopExpirySweeper ().isChanged ());
+    assertTrue (aSSM.stopExpirySweeper ().isUnchanged ());
+
+    // Stopped automatically at the end of the global scope
+    aSSM.startExpirySweeper ();
+  }
+
+  @Test
+  public void testParallelDestruction ()
+  {
+    final ScopeSessionManager aSSM = ScopeSessionManager.getInstance ();
+    aSSM.setParallelDestructionThreshold (10);
+    for (int i = 0; i < 500; ++i)
+      aSSM.onScopeBegin (new SessionScope ("session" + i));
+    aSSM.destroyAllSessions ();
+    assertFalse (aSSM.containsAnySession ());
+  }
+}
@@ -0,0 +1,112 @@
+/**
+ * Copyright (C) 2014-2017 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.scope.mgr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.CommonsHashMap;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.collection.impl.ICommonsMap;
+
+/**
+ * Test class for class {@link SessionExpiryWheel}.
+ *
+ * @author Philip Helger
+ */
+public final class SessionExpiryWheelTest
+{
+  @Test
+  public void testExpiration ()
+  {
+    final Random aRandom = new Random (17);
+    final long nStart = 1_500_000_123_456L;
+    final SessionExpiryWheel aWheel = new SessionExpiryWheel (1000, nStart);
+    final ICommonsMap <String, Long> aDeadlines = new CommonsHashMap <> ();
+    for (int i = 0; i < 5000; ++i)
+    {
+      // Up to roughly 12 days, spanning all lower levels
+      final long nDeadline = nStart + (long) (aRandom.nextDouble () * aRandom.nextDouble () * 1_000_000_000L);
+      final SessionExpiryWheel.Entry aEntry = new SessionExpiryWheel.Entry ("s" + i, nDeadline);
+      aDeadlines.put (aEntry.getSessionID (), Long.valueOf (nDeadline));
+      aWheel.add (aEntry);
+    }
+    assertEquals (5000, aWheel.size ());
+
+    // Advance in irregular steps
+    long nNow = nStart;
+    int nExpired = 0;
+    while (nExpired < 5000)
+    {
+      nNow += 1 + aRandom.nextInt (50_000_000);
+      final long nCurNow = nNow;
+      final ICommonsList <SessionExpiryWheel.Entry> aFired = new CommonsArrayList <> ();
+      aWheel.advance (nNow, aFired::add);
+      for (final SessionExpiryWheel.Entry aEntry : aFired)
+      {
+        final long nDeadline = aDeadlines.remove (aEntry.getSessionID ()).longValue ();
+        assertEquals (nDeadline, aEntry.getDeadlineMillis ());
+        // Never too early
+        assertTrue (nDeadline / 1000 <= nCurNow / 1000);
+      }
+      // Never too late
+      for (final Long aDeadline : aDeadlines.values ())
+        assertTrue (aDeadline.longValue () / 1000 > nCurNow / 1000);
+      nExpired += aFired.size ();
+    }
+    assertEquals (0, aWheel.size ());
+  }
+
+  @Test
+  public void testProlong ()
+  {
+    final SessionExpiryWheel aWheel = new SessionExpiryWheel (1000, 0);
+    final SessionExpiryWheel.Entry aEntry = new SessionExpiryWheel.Entry ("s", 10_000);
+    aWheel.add (aEntry);
+
+    final ICommonsList <SessionExpiryWheel.Entry> aFired = new CommonsArrayList <> ();
+    aWheel.advance (5_000, aFired::add);
+    assertTrue (aFired.isEmpty ());
+
+    // Prolong without touching the wheel
+    aEntry.setDeadlineMillis (100_000);
+    aWheel.advance (50_000, aFired::add);
+    assertTrue (aFired.isEmpty ());
+    assertEquals (1, aWheel.size ());
+    aWheel.advance (100_000, aFired::add);
+    assertEquals (1, aFired.size ());
+    assertEquals (0, aWheel.size ());
+
+    // Overdue entries fire upon the next advance
+    aWheel.add (new SessionExpiryWheel.Entry ("t", 0));
+    aWheel.advance (100_000, aFired::add);
+    assertEquals (1, aFired.size ());
+    aWheel.advance (101_000, aFired::add);
+    assertEquals (2, aFired.size ());
+
+    // Far in the future
+    aWheel.add (new SessionExpiryWheel.Entry ("u", Long.MAX_VALUE / 2));
+    aWheel.advance (10_000_000, aFired::add);
+    assertEquals (2, aFired.size ());
+    assertEquals (1, aWheel.size ());
+  }
+}
@@ -0,0 +1,246 @@
+/**
+ * Copyright (C) 2014-2017 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.scope.singleton;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nonnull;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.concurrent.ThreadHelper;
+import com.helger.scope.IScope;
+import com.helger.scope.mock.ScopeTestRule;
+
+/**
+ * Test class for concurrent instantiation of {@link AbstractGlobalSingleton}
+ * objects.
+ *
+ * @author Philip Helger
+ */
+public final class GlobalSingletonConcurrencyFuncTest
+{
+  @Rule
+  public final TestRule m_aScopeRule = new ScopeTestRule ();
+
+  public static final class MockSlowGlobalSingleton extends AbstractGlobalSingleton
+  {
+    static final AtomicInteger CTOR_COUNT = new AtomicInteger (0);
+
+    public MockSlowGlobalSingleton ()
+    {
+      CTOR_COUNT.incrementAndGet ();
+    }
+
+    @Override
+    protected void onAfterInstantiation (@Nonnull final IScope aScope)
+    {
+      ThreadHelper.sleep (100);
+    }
+  }
+
+  public static final class MockWaitingGlobalSingleton extends AbstractGlobalSingleton
+  {
+    static final CountDownLatch LATCH = new CountDownLatch (1);
+    static boolean s_bReleased;
+
+    @Override
+    protected void onAfterInstantiation (@Nonnull final IScope aScope)
+    {
+      try
+      {
+        s_bReleased = LATCH.await (5, TimeUnit.SECONDS);
+      }
+      catch (final InterruptedException ex)
+      {
+        Thread.currentThread ().interrupt ();
+      }
+    }
+  }
+
+  public static final class MockReleasingGlobalSingleton extends AbstractGlobalSingleton
+  {
+    @Override
+    protected void onAfterInstantiation (@Nonnull final IScope aScope)
+    {
+      MockWaitingGlobalSingleton.LATCH.countDown ();
+    }
+  }
+
+  static final CyclicBarrier CYCLE_BARRIER = new CyclicBarrier (2);
+
+  static void awaitCycleBarrier ()
+  {
+    try
+    {
+      CYCLE_BARRIER.await (5, TimeUnit.SECONDS);
+    }
+    catch (final Exception ex)
+    {
+      throw new IllegalStateException (ex);
+    }
+  }
+
+  public static final class MockCycleA extends AbstractGlobalSingleton
+  {
+    MockCycleB m_aOther;
+
+    @Override
+    protected void onAfterInstantiation (@Nonnull final IScope aScope)
+    {
+      awaitCycleBarrier ();
+      m_aOther = getGlobalSingleton (MockCycleB.class);
+    }
+  }
+
+  public static final class MockCycleB extends AbstractGlobalSingleton
+  {
+    MockCycleA m_aOther;
+
+    @Override
+    protected void onAfterInstantiation (@Nonnull final IScope aScope)
+    {
+      awaitCycleBarrier ();
+      m_aOther = getGlobalSingleton (MockCycleA.class);
+    }
+  }
+
+  public static final class MockSlowInitGlobalSingleton extends AbstractGlobalSingleton
+  {
+    static final CountDownLatch STARTED = new CountDownLatch (1);
+    volatile boolean m_bInitDone;
+
+    @Override
+    protected void onAfterInstantiation (@Nonnull final IScope aScope)
+    {
+      STARTED.countDown ();
+      ThreadHelper.sleep (300);
+      m_bInitDone = true;
+    }
+  }
+
+  public static final class MockNestedGetterGlobalSingleton extends AbstractGlobalSingleton
+  {
+    boolean m_bOtherInitDone;
+
+    @Override
+    protected void onAfterInstantiation (@Nonnull final IScope aScope)
+    {
+      m_bOtherInitDone = getGlobalSingleton (MockSlowInitGlobalSingleton.class).m_bInitDone;
+    }
+  }
+
+  @Test
+  public void testNestedGetterWaitsForInitialization () throws Exception
+  {
+    final ExecutorService aES = Executors.newFixedThreadPool (3);
+    try
+    {
+      final Future <MockSlowInitGlobalSingleton> aSlow = aES.submit ( () -> AbstractGlobalSingleton.getGlobalSingleton (MockSlowInitGlobalSingleton.class));
+      assertTrue (MockSlowInitGlobalSingleton.STARTED.await (5, TimeUnit.SECONDS));
+
+      // Requested from within another singleton instantiation
+      final Future <MockNestedGetterGlobalSingleton> aNested = aES.submit ( () -> AbstractGlobalSingleton.getGlobalSingleton (MockNestedGetterGlobalSingleton.class));
+      // Requested directly
+      final Future <Boolean> aDirect = aES.submit ( () -> Boolean.valueOf (AbstractGlobalSingleton.getGlobalSingleton (MockSlowInitGlobalSingleton.class).m_bInitDone));
+
+      assertTrue (aNested.get (10, TimeUnit.SECONDS).m_bOtherInitDone);
+      assertTrue (aDirect.get (10, TimeUnit.SECONDS).booleanValue ());
+      assertTrue (aSlow.get ().isUsableObject ());
+    }
+    finally
+    {
+      aES.shutdownNow ();
+    }
+  }
+
+  @Test
+  public void testConcurrentInstantiation () throws Exception
+  {
+    final ExecutorService aES = Executors.newFixedThreadPool (8);
+    try
+    {
+      final ICommonsList <Future <MockSlowGlobalSingleton>> aFutures = new CommonsArrayList <> ();
+      for (int i = 0; i < 16; ++i)
+        aFutures.add (aES.submit ( () -> AbstractGlobalSingleton.getGlobalSingleton (MockSlowGlobalSingleton.class)));
+
+      final MockSlowGlobalSingleton aFirst = aFutures.getFirst ().get ();
+      assertTrue (aFirst.isUsableObject ());
+      for (final Future <MockSlowGlobalSingleton> aFuture : aFutures)
+        assertSame (aFirst, aFuture.get ());
+      assertEquals (1, MockSlowGlobalSingleton.CTOR_COUNT.get ());
+    }
+    finally
+    {
+      aES.shutdownNow ();
+    }
+  }
+
+  @Test
+  public void testIndependentInstantiation () throws Exception
+  {
+    // The instantiation of one singleton must not block the instantiation of
+    // another one
+    final ExecutorService aES = Executors.newFixedThreadPool (2);
+    try
+    {
+      final Future <MockWaitingGlobalSingleton> aWaiting = aES.submit ( () -> AbstractGlobalSingleton.getGlobalSingleton (MockWaitingGlobalSingleton.class));
+      // Give the first singleton time to enter its instantiation
+      ThreadHelper.sleep (50);
+      aES.submit ( () -> AbstractGlobalSingleton.getGlobalSingleton (MockReleasingGlobalSingleton.class)).get ();
+      assertTrue (aWaiting.get ().isUsableObject ());
+      assertTrue (MockWaitingGlobalSingleton.s_bReleased);
+    }
+    finally
+    {
+      aES.shutdownNow ();
+    }
+  }
+
+  @Test
+  public void testCyclicInstantiationInDifferentThreads () throws Exception
+  {
+    final ExecutorService aES = Executors.newFixedThreadPool (2);
+    try
+    {
+      final Future <MockCycleA> aA = aES.submit ( () -> AbstractGlobalSingleton.getGlobalSingleton (MockCycleA.class));
+      final Future <MockCycleB> aB = aES.submit ( () -> AbstractGlobalSingleton.getGlobalSingleton (MockCycleB.class));
+      assertSame (aB.get (10, TimeUnit.SECONDS), aA.get (10, TimeUnit.SECONDS).m_aOther);
+      assertSame (aA.get (), aB.get ().m_aOther);
+      assertTrue (aA.get ().isUsableObject ());
+      assertTrue (aB.get ().isUsableObject ());
+    }
+    finally
+    {
+      aES.shutdownNow ();
+    }
+  }
+}
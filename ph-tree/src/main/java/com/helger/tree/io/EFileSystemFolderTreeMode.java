@@ -0,0 +1,41 @@
+/**
+ * Copyright (C) 2014-2017 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.tree.io;
+
+/**
+ * Defines how a {@link FileSystemFolderTree} reads the file system.
+ *
+ * @author Philip Helger
+ * @since 9.0.0
+ */
+public enum EFileSystemFolderTreeMode
+{
+  /** Read the whole directory structure upfront on the calling thread. */
+  EAGER,
+  /**
+   * Read the whole directory structure upfront, scanning sibling directories
+   * in parallel on a fork/join pool.
+   */
+  EAGER_PARALLEL,
+  /** Read the content of a directory only when it is first requested. */
+  LAZY;
+
+  public boolean isEager ()
+  {
+    return this != LAZY;
+  }
+}
@@ -17,59 +17,162 @@
 package com.helger.tree.io;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.util.function.Predicate;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.NotThreadSafe;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import com.helger.commons.ValueEnforcer;
 import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.CommonsHashMap;
 import com.helger.commons.collection.impl.ICommonsList;
-import com.helger.commons.io.file.FileHelper;
+import com.helger.commons.collection.impl.ICommonsMap;
 import com.helger.commons.io.file.FilenameHelper;
+import com.helger.commons.io.watchdir.EWatchDirAction;
+import com.helger.commons.state.EChange;
 import com.helger.commons.string.StringHelper;
 import com.helger.tree.withid.folder.DefaultFolderTree;
 import com.helger.tree.withid.folder.DefaultFolderTreeItem;
 
 /**
- * Represents a folder tree with the file system contents. This structure is
- * eagerly filled!
+ * Represents a folder tree with the file system contents. Depending on the
+ * {@link EFileSystemFolderTreeMode} the structure is either filled eagerly
+ * (optionally reading sibling directories in parallel) or lazily, when the
+ * children of a folder are first requested via {@link #hasChildren},
+ * {@link #getChildCount} or {@link #getAllChildren} or explicitly via
+ * {@link #expand}. Note: the data (files) of a lazy folder are only available
+ * after it was expanded.<br>
+ * The tree can be kept up to date by feeding it with the events of a
+ * {@link com.helger.commons.io.watchdir.WatchDir} via
+ * {@link #refresh(EWatchDirAction, Path)}. As this class is not thread-safe,
+ * the caller is responsible for synchronizing the callback thread of the
+ * watcher with any readers.
  *
  * @author Philip Helger
  */
 @NotThreadSafe
 public class FileSystemFolderTree extends DefaultFolderTree <String, File, ICommonsList <File>>
 {
-  private static void _iterate (@Nonnull final DefaultFolderTreeItem <String, File, ICommonsList <File>> aTreeItem,
-                                @Nonnull final File aDir,
-                                @Nullable final Predicate <? super File> aDirFilter,
-                                @Nullable final Predicate <? super File> aFileFilter)
+  /** The number of threads used in {@link EFileSystemFolderTreeMode#EAGER_PARALLEL} */
+  public static final int PARALLEL_SCAN_THREADS = Math.max (4, Runtime.getRuntime ().availableProcessors ());
+
+  private static final Logger s_aLogger = LoggerFactory.getLogger (FileSystemFolderTree.class);
+
+  /**
+   * The content of a single directory as read from the file system, before it
+   * is added to the tree.
+   */
+  private static final class ScannedDir
+  {
+    private final File m_aDir;
+    private final ICommonsList <File> m_aFiles = new CommonsArrayList <> ();
+    private final ICommonsList <ScannedDir> m_aSubDirs = new CommonsArrayList <> ();
+    private boolean m_bRead = false;
+
+    ScannedDir (@Nonnull final File aDir)
+    {
+      m_aDir = aDir;
+    }
+  }
+
+  /**
+   * Reads a directory and forks one sub task per contained directory.
+   */
+  private static final class ScanTask extends RecursiveAction
+  {
+    private final ScannedDir m_aDir;
+    private final Predicate <? super File> m_aDirFilter;
+    private final Predicate <? super File> m_aFileFilter;
+
+    ScanTask (@Nonnull final ScannedDir aDir,
+              @Nullable final Predicate <? super File> aDirFilter,
+              @Nullable final Predicate <? super File> aFileFilter)
+    {
+      m_aDir = aDir;
+      m_aDirFilter = aDirFilter;
+      m_aFileFilter = aFileFilter;
+    }
+
+    @Override
+    protected void compute ()
+    {
+      _read (m_aDir, m_aDirFilter, m_aFileFilter);
+      final ICommonsList <ScanTask> aTasks = new CommonsArrayList <> (m_aDir.m_aSubDirs.size ());
+      for (final ScannedDir aSubDir : m_aDir.m_aSubDirs)
+        aTasks.add (new ScanTask (aSubDir, m_aDirFilter, m_aFileFilter));
+      invokeAll (aTasks);
+    }
+  }
+
+  private final File m_aStartDir;
+  private final Path m_aStartPath;
+  private final Predicate <? super File> m_aDirFilter;
+  private final Predicate <? super File> m_aFileFilter;
+  private final EFileSystemFolderTreeMode m_eMode;
+  private final DefaultFolderTreeItem <String, File, ICommonsList <File>> m_aStartItem;
+  // Global unique data ID of all folders whose content was not read yet
+  private final ICommonsMap <String, File> m_aUnexpanded = new CommonsHashMap <> ();
+
+  /**
+   * Read the direct content of a single directory. Only a single attribute
+   * lookup is performed per entry.
+   */
+  private static void _read (@Nonnull final ScannedDir aDir,
+                             @Nullable final Predicate <? super File> aDirFilter,
+                             @Nullable final Predicate <? super File> aFileFilter)
   {
-    if (aDir != null)
-      for (final File aChild : FileHelper.getDirectoryContent (aDir))
+    aDir.m_bRead = true;
+    try (final DirectoryStream <Path> aStream = Files.newDirectoryStream (aDir.m_aDir.toPath ()))
+    {
+      for (final Path aChildPath : aStream)
       {
-        if (aChild.isFile ())
+        final BasicFileAttributes aAttrs;
+        try
+        {
+          aAttrs = Files.readAttributes (aChildPath, BasicFileAttributes.class);
+        }
+        catch (final IOException ex)
+        {
+          // Deleted in the meantime or a dangling link
+          continue;
+        }
+
+        final File aChild = aChildPath.toFile ();
+        if (aAttrs.isRegularFile ())
         {
           // file
           // Check against the optional filter
           if (aFileFilter == null || aFileFilter.test (aChild))
-            aTreeItem.getData ().add (aChild);
+            aDir.m_aFiles.add (aChild);
         }
         else
-          if (aChild.isDirectory () && !FilenameHelper.isSystemInternalDirectory (aChild))
+          if (aAttrs.isDirectory () && !FilenameHelper.isSystemInternalDirectory (aChildPath))
           {
             // directory
             // Check against the optional filter
             if (aDirFilter == null || aDirFilter.test (aChild))
-            {
-              // create item and recursively descend
-              final DefaultFolderTreeItem <String, File, ICommonsList <File>> aChildItem = aTreeItem.createChildItem (aChild.getName (),
-                                                                                                                      new CommonsArrayList <> ());
-              _iterate (aChildItem, aChild, aDirFilter, aFileFilter);
-            }
+              aDir.m_aSubDirs.add (new ScannedDir (aChild));
           }
       }
+    }
+    catch (final IOException | DirectoryIteratorException ex)
+    {
+      s_aLogger.warn ("Failed to list directory " + aDir.m_aDir.getAbsolutePath () + ": " + ex.getMessage ());
+    }
   }
 
   public FileSystemFolderTree (@Nonnull final String sStartDir)
@@ -92,13 +195,310 @@ public class FileSystemFolderTree extends DefaultFolderTree <String, File, IComm
   public FileSystemFolderTree (@Nonnull final File aStartDir,
                                @Nullable final Predicate <? super File> aDirFilter,
                                @Nullable final Predicate <? super File> aFileFilter)
+  {
+    this (aStartDir, aDirFilter, aFileFilter, EFileSystemFolderTreeMode.EAGER);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param aStartDir
+   *        The start directory. May not be <code>null</code> and must be an
+   *        existing directory.
+   * @param aDirFilter
+   *        Optional filter for the directories to be included.
+   * @param aFileFilter
+   *        Optional filter for the files to be included.
+   * @param eMode
+   *        The mode how the file system should be read. May not be
+   *        <code>null</code>.
+   * @since 9.0.0
+   */
+  public FileSystemFolderTree (@Nonnull final File aStartDir,
+                               @Nullable final Predicate <? super File> aDirFilter,
+                               @Nullable final Predicate <? super File> aFileFilter,
+                               @Nonnull final EFileSystemFolderTreeMode eMode)
   {
     super (x -> StringHelper.getImplodedNonEmpty ('/', x));
     ValueEnforcer.notNull (aStartDir, "StartDirectory");
     ValueEnforcer.isTrue (aStartDir.isDirectory (), "Start directory is not a directory!");
+    ValueEnforcer.notNull (eMode, "Mode");
+
+    m_aStartDir = aStartDir;
+    m_aStartPath = aStartDir.toPath ().toAbsolutePath ().normalize ();
+    m_aDirFilter = aDirFilter;
+    m_aFileFilter = aFileFilter;
+    m_eMode = eMode;
+    m_aStartItem = getRootItem ().createChildItem (aStartDir.getName (), new CommonsArrayList <> ());
 
-    final DefaultFolderTreeItem <String, File, ICommonsList <File>> aStart = getRootItem ().createChildItem (aStartDir.getName (),
-                                                                                                             new CommonsArrayList <> ());
-    _iterate (aStart, aStartDir, aDirFilter, aFileFilter);
+    final ScannedDir aScanned = new ScannedDir (aStartDir);
+    _scan (aScanned);
+    _addToTree (m_aStartItem, aScanned);
+  }
+
+  /**
+   * @return The start directory as passed in the constructor. Never
+   *         <code>null</code>.
+   * @since 9.0.0
+   */
+  @Nonnull
+  public final File getStartDirectory ()
+  {
+    return m_aStartDir;
+  }
+
+  /**
+   * @return The mode used to read the file system. Never <code>null</code>.
+   * @since 9.0.0
+   */
+  @Nonnull
+  public final EFileSystemFolderTreeMode getMode ()
+  {
+    return m_eMode;
+  }
+
+  private void _scan (@Nonnull final ScannedDir aDir)
+  {
+    switch (m_eMode)
+    {
+      case EAGER:
+      {
+        // Iterative to cope with deeply nested structures
+        final Deque <ScannedDir> aOpen = new ArrayDeque <> ();
+        aOpen.push (aDir);
+        while (!aOpen.isEmpty ())
+        {
+          final ScannedDir aCur = aOpen.pop ();
+          _read (aCur, m_aDirFilter, m_aFileFilter);
+          for (final ScannedDir aSubDir : aCur.m_aSubDirs)
+            aOpen.push (aSubDir);
+        }
+        break;
+      }
+      case EAGER_PARALLEL:
+      {
+        // Directory listing is I/O bound, so use a dedicated pool instead of
+        // blocking the common pool
+        final ForkJoinPool aPool = new ForkJoinPool (PARALLEL_SCAN_THREADS);
+        try
+        {
+          aPool.invoke (new ScanTask (aDir, m_aDirFilter, m_aFileFilter));
+        }
+        finally
+        {
+          aPool.shutdown ();
+        }
+        break;
+      }
+      case LAZY:
+        _read (aDir, m_aDirFilter, m_aFileFilter);
+        break;
+      default:
+        throw new IllegalStateException ("Unsupported mode " + m_eMode);
+    }
+  }
+
+  private void _addToTree (@Nonnull final DefaultFolderTreeItem <String, File, ICommonsList <File>> aItem,
+                           @Nonnull final ScannedDir aDir)
+  {
+    aItem.getData ().addAll (aDir.m_aFiles);
+    for (final ScannedDir aSubDir : aDir.m_aSubDirs)
+    {
+      final DefaultFolderTreeItem <String, File, ICommonsList <File>> aChildItem = aItem.createChildItem (aSubDir.m_aDir.getName (),
+                                                                                                          new CommonsArrayList <> ());
+      if (aSubDir.m_bRead)
+        _addToTree (aChildItem, aSubDir);
+      else
+        m_aUnexpanded.put (aChildItem.getGlobalUniqueDataID (), aSubDir.m_aDir);
+    }
+  }
+
+  /**
+   * Check if the content of the passed folder was already read from the file
+   * system. This is always <code>true</code> for eagerly filled trees.
+   *
+   * @param aItem
+   *        The folder to check. May be <code>null</code> for the root item.
+   * @return <code>true</code> if the folder is expanded.
+   * @since 9.0.0
+   */
+  public final boolean isExpanded (@Nullable final DefaultFolderTreeItem <String, File, ICommonsList <File>> aItem)
+  {
+    return aItem == null || !m_aUnexpanded.containsKey (aItem.getGlobalUniqueDataID ());
+  }
+
+  /**
+   * Read the direct content of the passed folder from the file system, if
+   * this did not happen yet.
+   *
+   * @param aItem
+   *        The folder to expand. May be <code>null</code> for the root item.
+   * @return {@link EChange#CHANGED} if the folder was read by this call.
+   * @since 9.0.0
+   */
+  @Nonnull
+  public final EChange expand (@Nullable final DefaultFolderTreeItem <String, File, ICommonsList <File>> aItem)
+  {
+    if (aItem == null)
+      return EChange.UNCHANGED;
+
+    final File aDir = m_aUnexpanded.remove (aItem.getGlobalUniqueDataID ());
+    if (aDir == null)
+      return EChange.UNCHANGED;
+
+    final ScannedDir aScanned = new ScannedDir (aDir);
+    _read (aScanned, m_aDirFilter, m_aFileFilter);
+    _addToTree (aItem, aScanned);
+    return EChange.CHANGED;
+  }
+
+  /**
+   * Expand all folders that were not yet read. For lazy trees this reads the
+   * whole remaining file system structure.
+   *
+   * @since 9.0.0
+   */
+  public final void expandAll ()
+  {
+    while (m_aUnexpanded.isNotEmpty ())
+      for (final String sID : m_aUnexpanded.copyOfKeySet ())
+      {
+        final DefaultFolderTreeItem <String, File, ICommonsList <File>> aItem = getItemWithID (sID);
+        if (aItem == null)
+          m_aUnexpanded.remove (sID);
+        else
+          expand (aItem);
+      }
+  }
+
+  @Override
+  public boolean hasChildren (@Nullable final DefaultFolderTreeItem <String, File, ICommonsList <File>> aItem)
+  {
+    expand (aItem);
+    return super.hasChildren (aItem);
+  }
+
+  @Override
+  public int getChildCount (@Nullable final DefaultFolderTreeItem <String, File, ICommonsList <File>> aItem)
+  {
+    expand (aItem);
+    return super.getChildCount (aItem);
+  }
+
+  @Override
+  @Nullable
+  public ICommonsList <? extends DefaultFolderTreeItem <String, File, ICommonsList <File>>> getAllChildren (@Nullable final DefaultFolderTreeItem <String, File, ICommonsList <File>> aItem)
+  {
+    expand (aItem);
+    return super.getAllChildren (aItem);
+  }
+
+  /**
+   * Incrementally update the tree after a file system change. The signature
+   * matches {@link com.helger.commons.io.watchdir.IWatchDirCallback} so that
+   * this method can directly be registered at a
+   * {@link com.helger.commons.io.watchdir.WatchDir}. Changes outside of the
+   * start directory, in filtered or not yet expanded folders are ignored.
+   *
+   * @param eAction
+   *        The action that happened. May not be <code>null</code>.
+   * @param aPath
+   *        The affected file or directory. May not be <code>null</code>.
+   * @return {@link EChange#CHANGED} if the tree was modified.
+   * @since 9.0.0
+   */
+  @Nonnull
+  public EChange refresh (@Nonnull final EWatchDirAction eAction, @Nonnull final Path aPath)
+  {
+    ValueEnforcer.notNull (eAction, "Action");
+    ValueEnforcer.notNull (aPath, "Path");
+
+    final Path aRelPath = m_aStartPath.relativize (aPath.toAbsolutePath ().normalize ());
+    final int nNameCount = aRelPath.getNameCount ();
+    if (aRelPath.toString ().isEmpty () || aRelPath.startsWith (FilenameHelper.PATH_PARENT))
+    {
+      // The start directory itself or outside of the tree
+      return EChange.UNCHANGED;
+    }
+
+    // Find the folder containing the changed path
+    DefaultFolderTreeItem <String, File, ICommonsList <File>> aParentItem = m_aStartItem;
+    File aParentDir = m_aStartDir;
+    for (int i = 0; i < nNameCount - 1; ++i)
+    {
+      if (!isExpanded (aParentItem))
+        return EChange.UNCHANGED;
+      final String sName = aRelPath.getName (i).toString ();
+      aParentItem = aParentItem.getChildItemOfDataID (sName);
+      if (aParentItem == null)
+        return EChange.UNCHANGED;
+      aParentDir = new File (aParentDir, sName);
+    }
+    if (!isExpanded (aParentItem))
+    {
+      // Will be read completely upon expansion
+      return EChange.UNCHANGED;
+    }
+
+    final String sName = aRelPath.getName (nNameCount - 1).toString ();
+    final File aFile = new File (aParentDir, sName);
+    switch (eAction)
+    {
+      case DELETE:
+      {
+        final DefaultFolderTreeItem <String, File, ICommonsList <File>> aChildItem = aParentItem.getChildItemOfDataID (sName);
+        if (aChildItem != null)
+        {
+          final String sPrefix = aChildItem.getGlobalUniqueDataID () + '/';
+          m_aUnexpanded.keySet ()
+                       .removeIf (x -> x.equals (aChildItem.getGlobalUniqueDataID ()) || x.startsWith (sPrefix));
+          return aParentItem.removeChild (sName);
+        }
+        return EChange.valueOf (aParentItem.getData ().remove (aFile));
+      }
+      case CREATE:
+      case MODIFY:
+      {
+        final BasicFileAttributes aAttrs;
+        try
+        {
+          aAttrs = Files.readAttributes (aFile.toPath (), BasicFileAttributes.class);
+        }
+        catch (final IOException ex)
+        {
+          // Already gone again
+          return EChange.UNCHANGED;
+        }
+
+        if (aAttrs.isRegularFile ())
+        {
+          if ((m_aFileFilter != null && !m_aFileFilter.test (aFile)) || aParentItem.getData ().contains (aFile))
+            return EChange.UNCHANGED;
+          aParentItem.getData ().add (aFile);
+          return EChange.CHANGED;
+        }
+
+        if (aAttrs.isDirectory () &&
+            !FilenameHelper.isSystemInternalDirectory (sName) &&
+            (m_aDirFilter == null || m_aDirFilter.test (aFile)) &&
+            !aParentItem.containsChildItemWithDataID (sName))
+        {
+          final DefaultFolderTreeItem <String, File, ICommonsList <File>> aChildItem = aParentItem.createChildItem (sName,
+                                                                                                                    new CommonsArrayList <> ());
+          if (m_eMode.isEager ())
+          {
+            final ScannedDir aScanned = new ScannedDir (aFile);
+            _scan (aScanned);
+            _addToTree (aChildItem, aScanned);
+          }
+          else
+            m_aUnexpanded.put (aChildItem.getGlobalUniqueDataID (), aFile);
+          return EChange.CHANGED;
+        }
+        return EChange.UNCHANGED;
+      }
+      default:
+        throw new IllegalStateException ("Unsupported action " + eAction);
+    }
   }
 }
@@ -430,10 +430,19 @@ public class BasicTreeItemWithID <KEYTYPE, DATATYPE, ITEMTYPE extends ITreeItemW
 
     m_aChildMap.put (aDataID, aChild);
     m_aChildren.add (aChild);
-    m_aFactory.onAddItem (aChild);
+    _recursiveAddToFactory (aChild);
     return EChange.CHANGED;
   }
 
+  private void _recursiveAddToFactory (@Nonnull final ITEMTYPE aItem)
+  {
+    // Parents before children, so that the parent is always known
+    m_aFactory.onAddItem (aItem);
+    if (aItem.hasChildren ())
+      for (final ITEMTYPE aChild : aItem.getAllChildren ())
+        _recursiveAddToFactory (aChild);
+  }
+
   private void _recursiveRemoveFromFactory (@Nonnull final ITEMTYPE aItem)
   {
     // Recursively remove this node and all child nodes from the factory!
@@ -24,6 +24,8 @@ import javax.annotation.concurrent.NotThreadSafe;
 import com.helger.commons.ValueEnforcer;
 import com.helger.commons.annotation.OverrideOnDemand;
 import com.helger.commons.annotation.ReturnsMutableCopy;
+import com.helger.commons.annotation.ReturnsMutableObject;
+import com.helger.commons.callback.CallbackList;
 import com.helger.commons.collection.impl.CommonsHashMap;
 import com.helger.commons.collection.impl.ICommonsList;
 import com.helger.commons.collection.impl.ICommonsMap;
@@ -49,6 +51,8 @@ public abstract class AbstractTreeItemWithUniqueIDFactory <KEYTYPE, DATATYPE, IT
                                                           ITreeItemWithUniqueIDFactory <KEYTYPE, DATATYPE, ITEMTYPE>
 {
   private final ICommonsMap <KEYTYPE, ITEMTYPE> m_aItemStore;
+  // Created on demand, because CallbackList is not serializable
+  private transient CallbackList <ITreeItemWithUniqueIDCallback <ITEMTYPE>> m_aItemCallbacks;
 
   public AbstractTreeItemWithUniqueIDFactory ()
   {
@@ -67,6 +71,8 @@ public abstract class AbstractTreeItemWithUniqueIDFactory <KEYTYPE, DATATYPE, IT
     if (m_aItemStore.containsKey (aDataID))
       throw new IllegalArgumentException ("An item with ID '" + aDataID + "' is already contained!");
     m_aItemStore.put (aDataID, aItem);
+    if (m_aItemCallbacks != null)
+      m_aItemCallbacks.forEach (x -> x.onItemAdded (aItem));
     return aItem;
   }
 
@@ -100,7 +106,8 @@ public abstract class AbstractTreeItemWithUniqueIDFactory <KEYTYPE, DATATYPE, IT
   public final void onRemoveItem (@Nonnull final ITEMTYPE aTreeItem)
   {
     // Remove item from item store
-    m_aItemStore.remove (internalGetItemID (aTreeItem));
+    if (m_aItemStore.remove (internalGetItemID (aTreeItem)) != null && m_aItemCallbacks != null)
+      m_aItemCallbacks.forEach (x -> x.onItemRemoved (aTreeItem));
   }
 
   public final void onAddItem (@Nonnull final ITEMTYPE aTreeItem)
@@ -109,6 +116,15 @@ public abstract class AbstractTreeItemWithUniqueIDFactory <KEYTYPE, DATATYPE, IT
     addToItemStore (internalGetItemID (aTreeItem), aTreeItem);
   }
 
+  @Nonnull
+  @ReturnsMutableObject
+  public final CallbackList <ITreeItemWithUniqueIDCallback <ITEMTYPE>> itemCallbacks ()
+  {
+    if (m_aItemCallbacks == null)
+      m_aItemCallbacks = new CallbackList <> ();
+    return m_aItemCallbacks;
+  }
+
   public final boolean containsItemWithDataID (@Nullable final KEYTYPE aDataID)
   {
     return m_aItemStore.containsKey (aDataID);
@@ -0,0 +1,51 @@
+/**
+ * Copyright (C) 2014-2017 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.tree.withid.unique;
+
+import javax.annotation.Nonnull;
+
+import com.helger.commons.callback.ICallback;
+
+/**
+ * Callback interface that is invoked by {@link ITreeItemWithUniqueIDFactory}
+ * implementations whenever an item is added to or removed from the item store.
+ * When a sub tree is added, parents are always reported before their children.
+ *
+ * @author Philip Helger
+ * @param <ITEMTYPE>
+ *        tree item type
+ * @since 9.0.0
+ */
+public interface ITreeItemWithUniqueIDCallback <ITEMTYPE> extends ICallback
+{
+  /**
+   * Called after an item was added to the item store. The parent of the item
+   * is already set.
+   *
+   * @param aItem
+   *        The added item. Never <code>null</code>.
+   */
+  void onItemAdded (@Nonnull ITEMTYPE aItem);
+
+  /**
+   * Called after an item was removed from the item store.
+   *
+   * @param aItem
+   *        The removed item. Never <code>null</code>.
+   */
+  void onItemRemoved (@Nonnull ITEMTYPE aItem);
+}
@@ -21,6 +21,8 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 import com.helger.commons.annotation.ReturnsMutableCopy;
+import com.helger.commons.annotation.ReturnsMutableObject;
+import com.helger.commons.callback.CallbackList;
 import com.helger.commons.collection.impl.ICommonsCollection;
 import com.helger.tree.withid.ITreeItemWithID;
 import com.helger.tree.withid.ITreeItemWithIDFactory;
@@ -80,4 +82,14 @@ public interface ITreeItemWithUniqueIDFactory <KEYTYPE, DATATYPE, ITEMTYPE exten
   @Nonnull
   @ReturnsMutableCopy
   ICommonsCollection <DATATYPE> getAllItemDatas ();
+
+  /**
+   * @return The callbacks that are invoked when items are added to or removed
+   *         from the item store. Never <code>null</code>. Callbacks are not
+   *         serialized.
+   * @since 9.0.0
+   */
+  @Nonnull
+  @ReturnsMutableObject
+  CallbackList <ITreeItemWithUniqueIDCallback <ITEMTYPE>> itemCallbacks ();
 }
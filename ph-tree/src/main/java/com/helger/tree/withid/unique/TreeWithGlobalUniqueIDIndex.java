@@ -0,0 +1,369 @@
+/**
+ * Copyright (C) 2014-2017 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.tree.withid.unique;
+
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import javax.annotation.CheckForSigned;
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.ReturnsMutableCopy;
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.string.ToStringGenerator;
+import com.helger.tree.withid.ITreeItemWithID;
+
+/**
+ * An optional index on top of a {@link BasicTreeWithGlobalUniqueID} that
+ * labels each item with a nested interval [enter, exit) of a 62 bit number
+ * range, so that the interval of an item contains the intervals of all its
+ * descendants. This allows for O(1) ancestor checks and level lookups and
+ * O(log n + k) retrieval of all k descendants of an item.<br>
+ * The index registers itself at the factory of the tree (see
+ * {@link ITreeItemWithUniqueIDFactory#itemCallbacks()}) and is updated
+ * incrementally: a new item gets a part of the free space at the end of the
+ * interval of its parent, removed items simply drop their labels and moved
+ * items are relabeled together with their sub tree. Only when a parent runs out
+ * of free space, the whole tree is relabeled in O(n). As each relabeling
+ * reserves free space proportional to the sub tree size, the relabeling costs
+ * are amortized even when many items are added to the same parent.<br>
+ * Use {@link #close()} to detach the index from the tree.
+ *
+ * @author Philip Helger
+ * @param <KEYTYPE>
+ *        The type of the key elements for the tree.
+ * @param <DATATYPE>
+ *        The type of the elements contained in the tree
+ * @param <ITEMTYPE>
+ *        tree item type
+ * @since 9.0.0
+ */
+@NotThreadSafe
+public class TreeWithGlobalUniqueIDIndex <KEYTYPE, DATATYPE, ITEMTYPE extends ITreeItemWithID <KEYTYPE, DATATYPE, ITEMTYPE>>
+                                         implements
+                                         ITreeItemWithUniqueIDCallback <ITEMTYPE>
+{
+  /** The total label range */
+  private static final long RANGE = 1L << 62;
+  /**
+   * A new child gets 1/GAP_DIVISOR of the free space of its parent if less
+   * than two units are left
+   */
+  private static final int GAP_DIVISOR = 8;
+
+  private static final class Label <ITEMTYPE> implements Serializable
+  {
+    private final ITEMTYPE m_aItem;
+    private final int m_nLevel;
+    private final long m_nEnter;
+    private final long m_nExit;
+    // Start of the free space at the end of the interval
+    private long m_nNextFree;
+
+    Label (@Nonnull final ITEMTYPE aItem, final int nLevel, final long nEnter, final long nExit)
+    {
+      m_aItem = aItem;
+      m_nLevel = nLevel;
+      m_nEnter = nEnter;
+      m_nExit = nExit;
+      m_nNextFree = nEnter + 1;
+    }
+
+    boolean contains (@Nonnull final Label <ITEMTYPE> aOther)
+    {
+      return m_nEnter <= aOther.m_nEnter && aOther.m_nEnter < m_nExit;
+    }
+  }
+
+  private final BasicTreeWithGlobalUniqueID <KEYTYPE, DATATYPE, ITEMTYPE> m_aTree;
+  // Items are compared by identity, as the item IDs are not necessarily
+  // globally unique and equals and hashCode are recursive
+  private final Map <ITEMTYPE, Label <ITEMTYPE>> m_aLabels = new IdentityHashMap <> ();
+  private final NavigableMap <Long, ITEMTYPE> m_aItemsByEnter = new TreeMap <> ();
+  private Label <ITEMTYPE> m_aRootLabel;
+  // The width reserved per item in the last relabeling
+  private long m_nUnit;
+  private int m_nRebuildCount = 0;
+
+  /**
+   * Create a new index for the passed tree and register it at the tree's
+   * factory.
+   *
+   * @param aTree
+   *        The tree to be indexed. May not be <code>null</code>.
+   */
+  public TreeWithGlobalUniqueIDIndex (@Nonnull final BasicTreeWithGlobalUniqueID <KEYTYPE, DATATYPE, ITEMTYPE> aTree)
+  {
+    m_aTree = ValueEnforcer.notNull (aTree, "Tree");
+    rebuild ();
+    aTree.getFactory ().itemCallbacks ().add (this);
+  }
+
+  /**
+   * Detach this index from the tree. Afterwards the index is no longer
+   * updated.
+   */
+  public void close ()
+  {
+    m_aTree.getFactory ().itemCallbacks ().removeObject (this);
+  }
+
+  /**
+   * Relabel the whole tree. Each item gets an interval that contains the
+   * intervals of its children plus free space proportional to the size of its
+   * sub tree, so that a parent with n descendants can take about n new children
+   * before the next relabeling.
+   */
+  public final void rebuild ()
+  {
+    m_aLabels.clear ();
+    m_aItemsByEnter.clear ();
+
+    // Determine the sub tree sizes in reverse pre order
+    final ITEMTYPE aRoot = m_aTree.getRootItem ();
+    final ICommonsList <ITEMTYPE> aPreOrder = new CommonsArrayList <> ();
+    final Map <ITEMTYPE, Integer> aPreOrderIndex = new IdentityHashMap <> ();
+    final Deque <ITEMTYPE> aStack = new ArrayDeque <> ();
+    aStack.push (aRoot);
+    while (!aStack.isEmpty ())
+    {
+      final ITEMTYPE aItem = aStack.pop ();
+      aPreOrderIndex.put (aItem, Integer.valueOf (aPreOrder.size ()));
+      aPreOrder.add (aItem);
+      if (aItem.hasChildren ())
+        aItem.getChildren ().forEach (aStack::push);
+    }
+    // The weight of an item is its sub tree size (its own free space) plus the
+    // weights of all children
+    final int [] aSizes = new int [aPreOrder.size ()];
+    final long [] aWeights = new long [aSizes.length];
+    for (int i = aSizes.length - 1; i >= 0; --i)
+    {
+      aSizes[i]++;
+      aWeights[i] += aSizes[i];
+      if (i > 0)
+      {
+        final int nParentIndex = aPreOrderIndex.get (aPreOrder.get (i).getParent ()).intValue ();
+        aSizes[nParentIndex] += aSizes[i];
+        aWeights[nParentIndex] += aWeights[i];
+      }
+    }
+
+    // Assign the intervals in pre order
+    final long nUnit = RANGE / aWeights[0];
+    if (nUnit < 2)
+      throw new IllegalStateException ("The tree is too large to be indexed");
+    m_nUnit = nUnit;
+    m_aRootLabel = new Label <> (aRoot, 0, 0, RANGE);
+    for (int i = 1; i < aSizes.length; ++i)
+    {
+      final ITEMTYPE aItem = aPreOrder.get (i);
+      final Label <ITEMTYPE> aParentLabel = _getLabel (aItem.getParent ());
+      final long nWidth = aWeights[i] * nUnit;
+      _addLabel (new Label <> (aItem,
+                               aParentLabel.m_nLevel + 1,
+                               aParentLabel.m_nNextFree,
+                               aParentLabel.m_nNextFree + nWidth));
+      aParentLabel.m_nNextFree += nWidth;
+    }
+    m_nRebuildCount++;
+  }
+
+  @Nullable
+  private Label <ITEMTYPE> _getLabel (@Nullable final ITEMTYPE aItem)
+  {
+    if (aItem == null)
+      return null;
+    if (aItem.isRootItem ())
+      return m_aRootLabel;
+    return m_aLabels.get (aItem);
+  }
+
+  @Nullable
+  private Label <ITEMTYPE> _getLabelOfID (@Nullable final KEYTYPE aID)
+  {
+    return _getLabel (m_aTree.getItemWithID (aID));
+  }
+
+  private void _addLabel (@Nonnull final Label <ITEMTYPE> aLabel)
+  {
+    m_aLabels.put (aLabel.m_aItem, aLabel);
+    m_aItemsByEnter.put (Long.valueOf (aLabel.m_nEnter), aLabel.m_aItem);
+  }
+
+  private boolean _tryAdd (@Nonnull final ITEMTYPE aItem)
+  {
+    final Label <ITEMTYPE> aParentLabel = _getLabel (aItem.getParent ());
+    if (aParentLabel == null)
+      return false;
+    final long nFree = aParentLabel.m_nExit - aParentLabel.m_nNextFree;
+    final long nWidth = nFree / 2 >= m_nUnit ? m_nUnit : nFree / GAP_DIVISOR;
+    if (nWidth < 1)
+      return false;
+    _addLabel (new Label <> (aItem,
+                             aParentLabel.m_nLevel + 1,
+                             aParentLabel.m_nNextFree,
+                             aParentLabel.m_nNextFree + nWidth));
+    aParentLabel.m_nNextFree += nWidth;
+    return true;
+  }
+
+  public void onItemAdded (@Nonnull final ITEMTYPE aItem)
+  {
+    // Remove a previous label, e.g. if an item is re-added
+    onItemRemoved (aItem);
+    if (!_tryAdd (aItem))
+    {
+      // Out of space - relabel everything. A newly created item may not yet be
+      // linked to its parent, so it might need to be added explicitly.
+      rebuild ();
+      if (_getLabel (aItem) == null && !_tryAdd (aItem))
+        throw new IllegalStateException ("Failed to index " + aItem);
+    }
+  }
+
+  public void onItemRemoved (@Nonnull final ITEMTYPE aItem)
+  {
+    final Label <ITEMTYPE> aLabel = m_aLabels.remove (aItem);
+    if (aLabel != null)
+      m_aItemsByEnter.remove (Long.valueOf (aLabel.m_nEnter));
+  }
+
+  /**
+   * @return The number of full relabelings performed so far, including the
+   *         initial one. Mainly for testing purposes.
+   */
+  @Nonnegative
+  public int getRebuildCount ()
+  {
+    return m_nRebuildCount;
+  }
+
+  /**
+   * @return The indexed tree. Never <code>null</code>.
+   */
+  @Nonnull
+  public BasicTreeWithGlobalUniqueID <KEYTYPE, DATATYPE, ITEMTYPE> getTree ()
+  {
+    return m_aTree;
+  }
+
+  /**
+   * Get the level of the item with the passed ID in O(1).
+   *
+   * @param aID
+   *        The ID of the item to check.
+   * @return The level of the item, where the children of the root item have
+   *         level 1, or -1 if no such item exists.
+   */
+  @CheckForSigned
+  public int getLevel (@Nullable final KEYTYPE aID)
+  {
+    final Label <ITEMTYPE> aLabel = _getLabelOfID (aID);
+    return aLabel == null ? -1 : aLabel.m_nLevel;
+  }
+
+  /**
+   * Check in O(1) if an item is the same as or a descendant of another item.
+   *
+   * @param aParentID
+   *        The ID of the potential parent item.
+   * @param aChildID
+   *        The ID of the potential child item.
+   * @return <code>true</code> if both items exist and the child item is the
+   *         same as or a descendant of the parent item.
+   * @see BasicTreeWithGlobalUniqueID#isItemSameOrDescendant(Object, Object)
+   */
+  public boolean isItemSameOrDescendant (@Nullable final KEYTYPE aParentID, @Nullable final KEYTYPE aChildID)
+  {
+    final Label <ITEMTYPE> aParentLabel = _getLabelOfID (aParentID);
+    if (aParentLabel == null)
+      return false;
+    final Label <ITEMTYPE> aChildLabel = _getLabelOfID (aChildID);
+    return aChildLabel != null && aParentLabel.contains (aChildLabel);
+  }
+
+  /**
+   * Get all descendants of an item in O(log n + k).
+   *
+   * @param aID
+   *        The ID of the item. If <code>null</code> all items of the tree are
+   *        returned.
+   * @return All direct and indirect children of the item, with parents before
+   *         their children. Never <code>null</code> but empty if no such item
+   *         exists.
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public ICommonsList <ITEMTYPE> getAllDescendants (@Nullable final KEYTYPE aID)
+  {
+    final Label <ITEMTYPE> aLabel = aID == null ? m_aRootLabel : _getLabelOfID (aID);
+    if (aLabel == null)
+      return new CommonsArrayList <> ();
+    return new CommonsArrayList <> (m_aItemsByEnter.subMap (Long.valueOf (aLabel.m_nEnter),
+                                                            false,
+                                                            Long.valueOf (aLabel.m_nExit),
+                                                            false)
+                                                   .values ());
+  }
+
+  /**
+   * Get the path from the root item to the passed item.
+   *
+   * @param aID
+   *        The ID of the item.
+   * @return The path starting with the first level item and ending with the
+   *         item itself. Never <code>null</code> but empty if no such item
+   *         exists.
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public ICommonsList <ITEMTYPE> getPathFromRoot (@Nullable final KEYTYPE aID)
+  {
+    final Label <ITEMTYPE> aLabel = _getLabelOfID (aID);
+    if (aLabel == null)
+      return new CommonsArrayList <> ();
+    final ICommonsList <ITEMTYPE> ret = new CommonsArrayList <> (aLabel.m_nLevel);
+    ITEMTYPE aItem = aLabel.m_aItem;
+    while (!aItem.isRootItem ())
+    {
+      ret.add (aItem);
+      aItem = aItem.getParent ();
+    }
+    Collections.reverse (ret);
+    return ret;
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("IndexedItems", m_aLabels.size ())
+                                       .append ("RebuildCount", m_nRebuildCount)
+                                       .getToString ();
+  }
+}
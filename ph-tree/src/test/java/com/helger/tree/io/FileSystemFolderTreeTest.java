@@ -16,10 +16,17 @@
  */
 package com.helger.tree.io;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -31,6 +38,9 @@ import com.helger.commons.hierarchy.visit.DefaultHierarchyVisitorCallback;
 import com.helger.commons.hierarchy.visit.EHierarchyVisitorReturn;
 import com.helger.commons.io.file.FileHelper;
 import com.helger.commons.io.file.IFileFilter;
+import com.helger.commons.io.file.PathOperations;
+import com.helger.commons.io.watchdir.EWatchDirAction;
+import com.helger.commons.state.EChange;
 import com.helger.tree.util.TreeVisitor;
 import com.helger.tree.withid.folder.DefaultFolderTreeItem;
 
@@ -101,4 +111,186 @@ public final class FileSystemFolderTreeTest
     aTree = new FileSystemFolderTree (new File (".").getAbsoluteFile ());
     TreeVisitor.visitTreeItem (aTree.getRootItem (), new DefaultHierarchyVisitorCallback <> ());
   }
+
+  @Nonnull
+  private static Path _createStructure () throws IOException
+  {
+    final Path aBase = Files.createTempDirectory ("ph-tree");
+    for (int i = 0; i < 3; ++i)
+    {
+      final Path aDir = Files.createDirectories (aBase.resolve ("dir" + i).resolve ("sub"));
+      Files.createFile (aDir.resolve ("a.txt"));
+      Files.createFile (aDir.getParent ().resolve ("b.txt"));
+      Files.createFile (aDir.getParent ().resolve ("c.java"));
+    }
+    Files.createFile (aBase.resolve ("root.txt"));
+    return aBase;
+  }
+
+  private static void _assertStructure (@Nonnull final FileSystemFolderTree aTree, @Nonnull final Path aBase)
+  {
+    final String sBase = aBase.getFileName ().toString ();
+    final DefaultFolderTreeItem <String, File, ICommonsList <File>> aStart = aTree.getItemWithID (sBase);
+    assertNotNull (aStart);
+    assertEquals (1, aStart.getData ().size ());
+    assertEquals (3, aTree.getChildCount (aStart));
+    for (int i = 0; i < 3; ++i)
+    {
+      final DefaultFolderTreeItem <String, File, ICommonsList <File>> aDir = aTree.getItemWithID (sBase + "/dir" + i);
+      assertNotNull (aDir);
+      assertTrue (aTree.hasChildren (aDir));
+      assertEquals (2, aDir.getData ().size ());
+      assertTrue (aDir.getData ().contains (aBase.resolve ("dir" + i).resolve ("b.txt").toFile ()));
+      final DefaultFolderTreeItem <String, File, ICommonsList <File>> aSub = aTree.getItemWithID (sBase +
+                                                                                                  "/dir" +
+                                                                                                  i +
+                                                                                                  "/sub");
+      assertNotNull (aSub);
+      assertFalse (aTree.hasChildren (aSub));
+      assertEquals (1, aSub.getData ().size ());
+    }
+  }
+
+  @Test
+  public void testModes () throws IOException
+  {
+    final Path aBase = _createStructure ();
+    try
+    {
+      for (final EFileSystemFolderTreeMode eMode : EFileSystemFolderTreeMode.values ())
+      {
+        final FileSystemFolderTree aTree = new FileSystemFolderTree (aBase.toFile (), null, null, eMode);
+        assertEquals (eMode, aTree.getMode ());
+        _assertStructure (aTree, aBase);
+      }
+
+      // Same content for sequential and parallel scan
+      final FileSystemFolderTree aEager = new FileSystemFolderTree (aBase.toFile (),
+                                                                    null,
+                                                                    null,
+                                                                    EFileSystemFolderTreeMode.EAGER);
+      final FileSystemFolderTree aParallel = new FileSystemFolderTree (aBase.toFile (),
+                                                                       null,
+                                                                       null,
+                                                                       EFileSystemFolderTreeMode.EAGER_PARALLEL);
+      assertEquals (aEager.getAllItems ().size (), aParallel.getAllItems ().size ());
+      for (final DefaultFolderTreeItem <String, File, ICommonsList <File>> aItem : aEager.getAllItems ())
+      {
+        final DefaultFolderTreeItem <String, File, ICommonsList <File>> aOther = aParallel.getItemWithID (aItem.getGlobalUniqueDataID ());
+        assertNotNull (aOther);
+        // The root item has no data
+        if (aItem.getData () != null)
+          assertEquals (aItem.getData ().getSortedInline (File::compareTo),
+                        aOther.getData ().getSortedInline (File::compareTo));
+      }
+
+      // Filters are applied in all modes
+      final FileSystemFolderTree aFiltered = new FileSystemFolderTree (aBase.toFile (),
+                                                                       x -> !x.getName ().equals ("sub"),
+                                                                       IFileFilter.filenameEndsWith (".java"),
+                                                                       EFileSystemFolderTreeMode.EAGER_PARALLEL);
+      assertEquals (5, aFiltered.getAllItems ().size ());
+      assertNull (aFiltered.getItemWithID (aBase.getFileName () + "/dir0/sub"));
+      assertEquals (1, aFiltered.getItemWithID (aBase.getFileName () + "/dir0").getData ().size ());
+    }
+    finally
+    {
+      PathOperations.deleteDirRecursive (aBase);
+    }
+  }
+
+  @Test
+  public void testLazy () throws IOException
+  {
+    final Path aBase = _createStructure ();
+    try
+    {
+      final String sBase = aBase.getFileName ().toString ();
+      final FileSystemFolderTree aTree = new FileSystemFolderTree (aBase.toFile (),
+                                                                   null,
+                                                                   null,
+                                                                   EFileSystemFolderTreeMode.LAZY);
+      // Only the start directory was read
+      assertEquals (5, aTree.getAllItems ().size ());
+      final DefaultFolderTreeItem <String, File, ICommonsList <File>> aDir0 = aTree.getItemWithID (sBase + "/dir0");
+      assertFalse (aTree.isExpanded (aDir0));
+      assertTrue (aDir0.getData ().isEmpty ());
+      assertNull (aTree.getItemWithID (sBase + "/dir0/sub"));
+
+      // Accessing the children expands the folder
+      assertEquals (1, aTree.getAllChildren (aDir0).size ());
+      assertTrue (aTree.isExpanded (aDir0));
+      assertEquals (2, aDir0.getData ().size ());
+      assertFalse (aTree.isExpanded (aTree.getItemWithID (sBase + "/dir0/sub")));
+      assertTrue (aTree.expand (aDir0).isUnchanged ());
+
+      aTree.expandAll ();
+      assertEquals (8, aTree.getAllItems ().size ());
+      for (final DefaultFolderTreeItem <String, File, ICommonsList <File>> aItem : aTree.getAllItems ())
+        assertTrue (aTree.isExpanded (aItem));
+    }
+    finally
+    {
+      PathOperations.deleteDirRecursive (aBase);
+    }
+  }
+
+  @Test
+  public void testRefresh () throws IOException
+  {
+    final Path aBase = _createStructure ();
+    try
+    {
+      final String sBase = aBase.getFileName ().toString ();
+      for (final EFileSystemFolderTreeMode eMode : EFileSystemFolderTreeMode.values ())
+      {
+        final FileSystemFolderTree aTree = new FileSystemFolderTree (aBase.toFile (), null, null, eMode);
+        aTree.expand (aTree.getItemWithID (sBase + "/dir0"));
+
+        // New file
+        final Path aNewFile = Files.createFile (aBase.resolve ("dir0").resolve ("new.txt"));
+        try
+        {
+          assertEquals (EChange.CHANGED, aTree.refresh (EWatchDirAction.CREATE, aNewFile));
+          assertEquals (EChange.UNCHANGED, aTree.refresh (EWatchDirAction.MODIFY, aNewFile));
+          assertEquals (3, aTree.getItemWithID (sBase + "/dir0").getData ().size ());
+        }
+        finally
+        {
+          Files.delete (aNewFile);
+        }
+        assertEquals (EChange.CHANGED, aTree.refresh (EWatchDirAction.DELETE, aNewFile));
+        assertEquals (2, aTree.getItemWithID (sBase + "/dir0").getData ().size ());
+
+        // New directory with content
+        final Path aNewDir = Files.createDirectories (aBase.resolve ("dir0").resolve ("newdir").resolve ("x"));
+        Files.createFile (aNewDir.resolve ("y.txt"));
+        try
+        {
+          assertEquals (EChange.CHANGED, aTree.refresh (EWatchDirAction.CREATE, aNewDir.getParent ()));
+          assertTrue (aTree.hasChildren (aTree.getItemWithID (sBase + "/dir0/newdir")));
+          final DefaultFolderTreeItem <String, File, ICommonsList <File>> aX = aTree.getItemWithID (sBase +
+                                                                                                    "/dir0/newdir/x");
+          assertNotNull (aX);
+          aTree.expand (aX);
+          assertEquals (1, aX.getData ().size ());
+        }
+        finally
+        {
+          PathOperations.deleteDirRecursive (aNewDir.getParent ());
+        }
+        assertEquals (EChange.CHANGED, aTree.refresh (EWatchDirAction.DELETE, aNewDir.getParent ()));
+        assertNull (aTree.getItemWithID (sBase + "/dir0/newdir"));
+        assertNull (aTree.getItemWithID (sBase + "/dir0/newdir/x"));
+
+        // Outside of the tree
+        assertEquals (EChange.UNCHANGED, aTree.refresh (EWatchDirAction.CREATE, aBase.getParent ()));
+        assertEquals (EChange.UNCHANGED, aTree.refresh (EWatchDirAction.CREATE, aBase));
+      }
+    }
+    finally
+    {
+      PathOperations.deleteDirRecursive (aBase);
+    }
+  }
 }
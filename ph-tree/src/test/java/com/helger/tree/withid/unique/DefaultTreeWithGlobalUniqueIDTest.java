@@ -180,5 +180,13 @@ public final class DefaultTreeWithGlobalUniqueIDTest
     assertNotNull (aTestTree.getItemWithID ("x1"));
     assertNotNull (aTestTree.getItemWithID ("x2"));
     assertNotNull (aTestTree.getItemWithID ("x3"));
+
+    // Moving an item keeps its descendants
+    x3.createChildItem ("x4", "c");
+    assertTrue (x2.changeParent (aTestTree.getRootItem ()).isSuccess ());
+    assertSame (x2, aTestTree.getItemWithID ("x2"));
+    assertNotNull (aTestTree.getItemWithID ("x3"));
+    assertNotNull (aTestTree.getItemWithID ("x4"));
+    assertEquals (4, aTestTree.getItemCount ());
   }
 }
@@ -0,0 +1,203 @@
+/**
+ * Copyright (C) 2014-2017 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.tree.withid.unique;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.CommonsHashSet;
+import com.helger.commons.collection.impl.ICommonsCollection;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.string.StringHelper;
+import com.helger.tree.withid.DefaultTreeItemWithID;
+import com.helger.tree.withid.folder.DefaultFolderTree;
+import com.helger.tree.withid.folder.DefaultFolderTreeItem;
+
+/**
+ * Test class for class {@link TreeWithGlobalUniqueIDIndex}.
+ *
+ * @author Philip Helger
+ */
+public final class TreeWithGlobalUniqueIDIndexTest
+{
+  private static void _assertConsistent (final DefaultTreeWithGlobalUniqueID <String, String> aTree,
+                                         final TreeWithGlobalUniqueIDIndex <String, String, DefaultTreeItemWithID <String, String>> aIndex)
+  {
+    final ICommonsCollection <DefaultTreeItemWithID <String, String>> aAll = aTree.getAllItems ();
+    assertEquals (aAll.size (), aIndex.getAllDescendants (null).size ());
+    for (final DefaultTreeItemWithID <String, String> aItem : aAll)
+    {
+      assertEquals (aItem.getLevel (), aIndex.getLevel (aItem.getID ()));
+      assertEquals (aItem.getLevel (), aIndex.getPathFromRoot (aItem.getID ()).size ());
+
+      // Compare with the recursive implementation
+      final CommonsHashSet <String> aDescendants = new CommonsHashSet <> ();
+      for (final DefaultTreeItemWithID <String, String> aOther : aAll)
+      {
+        final boolean bExpected = aOther.isSameOrChildOf (aItem);
+        assertEquals (bExpected, aIndex.isItemSameOrDescendant (aItem.getID (), aOther.getID ()));
+        if (bExpected && aOther != aItem)
+          aDescendants.add (aOther.getID ());
+      }
+      assertEquals (aDescendants,
+                    new CommonsHashSet <> (aIndex.getAllDescendants (aItem.getID ()), DefaultTreeItemWithID::getID));
+    }
+  }
+
+  @Test
+  public void testBasic ()
+  {
+    final DefaultTreeWithGlobalUniqueID <String, String> aTree = new DefaultTreeWithGlobalUniqueID <> ();
+    final DefaultTreeItemWithID <String, String> x1 = aTree.getRootItem ().createChildItem ("x1", "1");
+    final DefaultTreeItemWithID <String, String> x2 = x1.createChildItem ("x2", "a");
+    x2.createChildItem ("x3", "b");
+
+    final TreeWithGlobalUniqueIDIndex <String, String, DefaultTreeItemWithID <String, String>> aIndex = new TreeWithGlobalUniqueIDIndex <> (aTree);
+    assertEquals (1, aIndex.getRebuildCount ());
+    assertEquals (1, aIndex.getLevel ("x1"));
+    assertEquals (3, aIndex.getLevel ("x3"));
+    assertEquals (-1, aIndex.getLevel ("x4"));
+    assertTrue (aIndex.isItemSameOrDescendant ("x1", "x3"));
+    assertTrue (aIndex.isItemSameOrDescendant ("x3", "x3"));
+    assertFalse (aIndex.isItemSameOrDescendant ("x3", "x1"));
+    assertFalse (aIndex.isItemSameOrDescendant ("x1", "x4"));
+    assertEquals (new CommonsArrayList <> ("x1", "x2", "x3"), aIndex.getPathFromRoot ("x3").getAllMapped (x -> x.getID ()));
+    assertTrue (aIndex.getPathFromRoot ("x4").isEmpty ());
+
+    // Incremental add
+    final DefaultTreeItemWithID <String, String> x4 = aTree.getRootItem ().createChildItem ("x4", "c");
+    x4.createChildItem ("x5", "d");
+    assertTrue (aIndex.isItemSameOrDescendant ("x4", "x5"));
+    assertFalse (aIndex.isItemSameOrDescendant ("x1", "x5"));
+    assertEquals (2, aIndex.getLevel ("x5"));
+
+    // Move
+    assertTrue (x2.changeParent (x4).isSuccess ());
+    assertTrue (aIndex.isItemSameOrDescendant ("x4", "x3"));
+    assertFalse (aIndex.isItemSameOrDescendant ("x1", "x3"));
+    assertEquals (3, aIndex.getLevel ("x3"));
+    assertEquals (new CommonsArrayList <> ("x4", "x2", "x3"), aIndex.getPathFromRoot ("x3").getAllMapped (x -> x.getID ()));
+
+    // Remove
+    assertTrue (aTree.removeItemWithID ("x2").isChanged ());
+    assertEquals (-1, aIndex.getLevel ("x3"));
+    assertEquals (new CommonsArrayList <> ("x5"), aIndex.getAllDescendants ("x4").getAllMapped (x -> x.getID ()));
+    _assertConsistent (aTree, aIndex);
+    assertEquals (1, aIndex.getRebuildCount ());
+
+    // Detached
+    aIndex.close ();
+    aTree.getRootItem ().createChildItem ("x6", "e");
+    assertEquals (-1, aIndex.getLevel ("x6"));
+  }
+
+  @Test
+  public void testRandomModifications ()
+  {
+    final Random aRandom = new Random (17);
+    final DefaultTreeWithGlobalUniqueID <String, String> aTree = new DefaultTreeWithGlobalUniqueID <> ();
+    final TreeWithGlobalUniqueIDIndex <String, String, DefaultTreeItemWithID <String, String>> aIndex = new TreeWithGlobalUniqueIDIndex <> (aTree);
+    final ICommonsList <DefaultTreeItemWithID <String, String>> aItems = new CommonsArrayList <> ();
+    for (int i = 0; i < 300; ++i)
+    {
+      final int nAction = aRandom.nextInt (10);
+      if (nAction < 7 || aItems.isEmpty ())
+      {
+        // Add, preferring deep and wide trees
+        final DefaultTreeItemWithID <String, String> aParent = aItems.isEmpty () ||
+                                                               aRandom.nextInt (5) == 0 ? aTree.getRootItem ()
+                                                                                        : aItems.getLast ();
+        aItems.add (aParent.createChildItem ("id" + i, "v" + i));
+      }
+      else
+        if (nAction < 9)
+        {
+          // Move
+          final DefaultTreeItemWithID <String, String> aItem = aItems.get (aRandom.nextInt (aItems.size ()));
+          final DefaultTreeItemWithID <String, String> aNewParent = aItems.get (aRandom.nextInt (aItems.size ()));
+          aItem.changeParent (aNewParent);
+        }
+        else
+        {
+          // Remove
+          final DefaultTreeItemWithID <String, String> aItem = aItems.get (aRandom.nextInt (aItems.size ()));
+          aTree.removeItemWithID (aItem.getID ());
+          aItems.removeIf (x -> aTree.getItemWithID (x.getID ()) != x);
+        }
+    }
+    _assertConsistent (aTree, aIndex);
+
+    // Many children of the same parent exhaust the free space
+    for (int i = 0; i < 2000; ++i)
+      aTree.getRootItem ().createChildItem ("wide" + i, "w");
+    assertTrue (aIndex.getRebuildCount () > 1);
+    _assertConsistent (aTree, aIndex);
+  }
+
+  @Test
+  public void testManyChildrenOfOneParent ()
+  {
+    final DefaultTreeWithGlobalUniqueID <String, String> aTree = new DefaultTreeWithGlobalUniqueID <> ();
+    final DefaultTreeItemWithID <String, String> aParent = aTree.getRootItem ().createChildItem ("parent", "p");
+    final TreeWithGlobalUniqueIDIndex <String, String, DefaultTreeItemWithID <String, String>> aIndex = new TreeWithGlobalUniqueIDIndex <> (aTree);
+    final int nCount = 20000;
+    for (int i = 0; i < nCount; ++i)
+      aParent.createChildItem ("c" + i, "c");
+
+    // The free space grows with the number of children, so only a logarithmic
+    // number of relabelings is needed
+    assertTrue ("Rebuilds: " + aIndex.getRebuildCount (), aIndex.getRebuildCount () <= 10);
+    assertEquals (nCount, aIndex.getAllDescendants ("parent").size ());
+    assertEquals (2, aIndex.getLevel ("c" + (nCount - 1)));
+    assertTrue (aIndex.isItemSameOrDescendant ("parent", "c0"));
+    assertFalse (aIndex.isItemSameOrDescendant ("c0", "c1"));
+
+    // Adding below the new children works as well
+    final DefaultTreeItemWithID <String, String> aLast = aTree.getItemWithID ("c" + (nCount - 1));
+    for (int i = 0; i < 100; ++i)
+      aLast.createChildItem ("d" + i, "d");
+    assertEquals (100, aIndex.getAllDescendants (aLast.getID ()).size ());
+    assertTrue (aIndex.isItemSameOrDescendant ("parent", "d99"));
+  }
+
+  @Test
+  public void testFolderTreeWithSameNames ()
+  {
+    final DefaultFolderTree <String, String, ICommonsList <String>> aTree = new DefaultFolderTree <> (x -> StringHelper.getImplodedNonEmpty ('/',
+                                                                                                                                           x));
+    final DefaultFolderTreeItem <String, String, ICommonsList <String>> a = aTree.getRootItem ()
+                                                                               .createChildItem ("a", new CommonsArrayList <> ());
+    final DefaultFolderTreeItem <String, String, ICommonsList <String>> b = aTree.getRootItem ()
+                                                                               .createChildItem ("b", new CommonsArrayList <> ());
+    final TreeWithGlobalUniqueIDIndex <String, ICommonsList <String>, DefaultFolderTreeItem <String, String, ICommonsList <String>>> aIndex = new TreeWithGlobalUniqueIDIndex <> (aTree);
+    a.createChildItem ("x", new CommonsArrayList <> ());
+    b.createChildItem ("x", new CommonsArrayList <> ()).createChildItem ("y", new CommonsArrayList <> ());
+
+    assertTrue (aIndex.isItemSameOrDescendant ("a", "a/x"));
+    assertFalse (aIndex.isItemSameOrDescendant ("a", "b/x"));
+    assertTrue (aIndex.isItemSameOrDescendant ("b", "b/x/y"));
+    assertEquals (3, aIndex.getLevel ("b/x/y"));
+    assertEquals (1, aIndex.getAllDescendants ("a").size ());
+    assertEquals (2, aIndex.getAllDescendants ("b").size ());
+  }
+}
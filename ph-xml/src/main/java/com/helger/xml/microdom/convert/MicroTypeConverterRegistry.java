@@ -16,7 +16,6 @@
  */
 package com.helger.xml.microdom.convert;
 
-import java.lang.ref.WeakReference;
 import java.util.Map;
 
 import javax.annotation.Nonnegative;
@@ -131,16 +130,14 @@ public final class MicroTypeConverterRegistry implements IMicroTypeConverterRegi
       if (m_bUseClassHierarchy)
       {
         // Automatically register the class, and all parent classes/interfaces
-        for (final WeakReference <Class <?>> aCurWRSrcClass : ClassHierarchyCache.getClassHierarchyIterator (aClass))
+        for (final Class <?> aCurSrcClass : ClassHierarchyCache.getClassHierarchyIterable (aClass))
         {
-          final Class <?> aCurSrcClass = aCurWRSrcClass.get ();
-          if (aCurSrcClass != null)
-            if (!m_aMap.containsKey (aCurSrcClass))
-            {
-              m_aMap.put (aCurSrcClass, aConverter);
-              if (s_aLogger.isDebugEnabled ())
-                s_aLogger.debug ("Registered micro type converter for '" + aCurSrcClass.toString () + "'");
-            }
+          if (!m_aMap.containsKey (aCurSrcClass))
+          {
+            m_aMap.put (aCurSrcClass, aConverter);
+            if (s_aLogger.isDebugEnabled ())
+              s_aLogger.debug ("Registered micro type converter for '" + aCurSrcClass.toString () + "'");
+          }
         }
       }
       else
@@ -175,23 +172,19 @@ public final class MicroTypeConverterRegistry implements IMicroTypeConverterRegi
         if (m_bUseClassHierarchy)
         {
           // No exact match found - try fuzzy
-          for (final WeakReference <Class <?>> aCurWRDstClass : ClassHierarchyCache.getClassHierarchyIterator (aDstClass))
+          for (final Class <?> aCurDstClass : ClassHierarchyCache.getClassHierarchyIterable (aDstClass))
           {
-            final Class <?> aCurDstClass = aCurWRDstClass.get ();
-            if (aCurDstClass != null)
+            ret = m_aMap.get (aCurDstClass);
+            if (ret != null)
             {
-              ret = m_aMap.get (aCurDstClass);
-              if (ret != null)
-              {
-                if (s_aLogger.isTraceEnabled ())
-                  s_aLogger.trace ("Using micro type converter " +
-                                   ret +
-                                   " for class " +
-                                   aDstClass +
-                                   " based on " +
-                                   aCurDstClass);
-                break;
-              }
+              if (s_aLogger.isTraceEnabled ())
+                s_aLogger.trace ("Using micro type converter " +
+                                 ret +
+                                 " for class " +
+                                 aDstClass +
+                                 " based on " +
+                                 aCurDstClass);
+              break;
             }
           }
         }
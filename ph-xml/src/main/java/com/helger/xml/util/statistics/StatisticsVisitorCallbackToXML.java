@@ -17,6 +17,7 @@
 package com.helger.xml.util.statistics;
 
 import java.util.Comparator;
+import java.util.Map;
 
 import javax.annotation.Nonnull;
 
@@ -28,6 +29,8 @@ import com.helger.commons.statistics.IStatisticsHandlerKeyedSize;
 import com.helger.commons.statistics.IStatisticsHandlerKeyedTimer;
 import com.helger.commons.statistics.IStatisticsHandlerSize;
 import com.helger.commons.statistics.IStatisticsHandlerTimer;
+import com.helger.commons.statistics.StatisticsKeyedCounterValue;
+import com.helger.commons.statistics.StatisticsKeyedNumericValue;
 import com.helger.commons.statistics.util.IStatisticsVisitorCallback;
 import com.helger.xml.microdom.IMicroElement;
 
@@ -89,15 +92,19 @@ public class StatisticsVisitorCallbackToXML implements IStatisticsVisitorCallbac
                                                .setAttribute (StatisticsExporter.ATTR_NAME, sName)
                                                .setAttribute (StatisticsExporter.ATTR_INVOCATIONCOUNT,
                                                               aHandler.getInvocationCount ());
-      for (final String sKey : aHandler.getAllKeys ().getSorted (Comparator.naturalOrder ()))
+      // Use a snapshot so that the values of each key belong together
+      for (final Map.Entry <String, StatisticsKeyedNumericValue> aEntry : aHandler.getSnapshot ()
+                                                                                  .getSortedByKey (Comparator.naturalOrder ())
+                                                                                  .entrySet ())
       {
+        final StatisticsKeyedNumericValue aValue = aEntry.getValue ();
         eKeyedTimer.appendElement (StatisticsExporter.ELEMENT_KEY)
-                   .setAttribute (StatisticsExporter.ATTR_NAME, sKey)
-                   .setAttribute (StatisticsExporter.ATTR_INVOCATIONCOUNT, aHandler.getInvocationCount (sKey))
-                   .setAttribute (StatisticsExporter.ATTR_MIN, aHandler.getMin (sKey))
-                   .setAttribute (StatisticsExporter.ATTR_AVERAGE, aHandler.getAverage (sKey))
-                   .setAttribute (StatisticsExporter.ATTR_MAX, aHandler.getMax (sKey))
-                   .setAttributeWithConversion (StatisticsExporter.ATTR_SUM, aHandler.getSum (sKey));
+                   .setAttribute (StatisticsExporter.ATTR_NAME, aEntry.getKey ())
+                   .setAttribute (StatisticsExporter.ATTR_INVOCATIONCOUNT, aValue.getInvocationCount ())
+                   .setAttribute (StatisticsExporter.ATTR_MIN, aValue.getMin ())
+                   .setAttribute (StatisticsExporter.ATTR_AVERAGE, aValue.getAverage ())
+                   .setAttribute (StatisticsExporter.ATTR_MAX, aValue.getMax ())
+                   .setAttributeWithConversion (StatisticsExporter.ATTR_SUM, aValue.getSum ());
       }
     }
   }
@@ -124,15 +131,19 @@ public class StatisticsVisitorCallbackToXML implements IStatisticsVisitorCallbac
                                               .setAttribute (StatisticsExporter.ATTR_NAME, sName)
                                               .setAttribute (StatisticsExporter.ATTR_INVOCATIONCOUNT,
                                                              aHandler.getInvocationCount ());
-      for (final String sKey : aHandler.getAllKeys ().getSorted (Comparator.naturalOrder ()))
+      // Use a snapshot so that the values of each key belong together
+      for (final Map.Entry <String, StatisticsKeyedNumericValue> aEntry : aHandler.getSnapshot ()
+                                                                                  .getSortedByKey (Comparator.naturalOrder ())
+                                                                                  .entrySet ())
       {
+        final StatisticsKeyedNumericValue aValue = aEntry.getValue ();
         eKeyedSize.appendElement (StatisticsExporter.ELEMENT_KEY)
-                  .setAttribute (StatisticsExporter.ATTR_NAME, sKey)
-                  .setAttribute (StatisticsExporter.ATTR_INVOCATIONCOUNT, aHandler.getInvocationCount (sKey))
-                  .setAttribute (StatisticsExporter.ATTR_MIN, aHandler.getMin (sKey))
-                  .setAttribute (StatisticsExporter.ATTR_AVERAGE, aHandler.getAverage (sKey))
-                  .setAttribute (StatisticsExporter.ATTR_MAX, aHandler.getMax (sKey))
-                  .setAttributeWithConversion (StatisticsExporter.ATTR_SUM, aHandler.getSum (sKey));
+                  .setAttribute (StatisticsExporter.ATTR_NAME, aEntry.getKey ())
+                  .setAttribute (StatisticsExporter.ATTR_INVOCATIONCOUNT, aValue.getInvocationCount ())
+                  .setAttribute (StatisticsExporter.ATTR_MIN, aValue.getMin ())
+                  .setAttribute (StatisticsExporter.ATTR_AVERAGE, aValue.getAverage ())
+                  .setAttribute (StatisticsExporter.ATTR_MAX, aValue.getMax ())
+                  .setAttributeWithConversion (StatisticsExporter.ATTR_SUM, aValue.getSum ());
       }
     }
   }
@@ -156,12 +167,16 @@ public class StatisticsVisitorCallbackToXML implements IStatisticsVisitorCallbac
                                                  .setAttribute (StatisticsExporter.ATTR_NAME, sName)
                                                  .setAttribute (StatisticsExporter.ATTR_INVOCATIONCOUNT,
                                                                 aHandler.getInvocationCount ());
-      for (final String sKey : aHandler.getAllKeys ().getSorted (Comparator.naturalOrder ()))
+      // Use a snapshot so that the values of each key belong together
+      for (final Map.Entry <String, StatisticsKeyedCounterValue> aEntry : aHandler.getSnapshot ()
+                                                                                  .getSortedByKey (Comparator.naturalOrder ())
+                                                                                  .entrySet ())
       {
+        final StatisticsKeyedCounterValue aValue = aEntry.getValue ();
         eKeyedCounter.appendElement (StatisticsExporter.ELEMENT_KEY)
-                     .setAttribute (StatisticsExporter.ATTR_NAME, sKey)
-                     .setAttribute (StatisticsExporter.ATTR_INVOCATIONCOUNT, aHandler.getInvocationCount (sKey))
-                     .setAttribute (StatisticsExporter.ATTR_COUNT, aHandler.getCount (sKey));
+                     .setAttribute (StatisticsExporter.ATTR_NAME, aEntry.getKey ())
+                     .setAttribute (StatisticsExporter.ATTR_INVOCATIONCOUNT, aValue.getInvocationCount ())
+                     .setAttribute (StatisticsExporter.ATTR_COUNT, aValue.getCount ());
       }
     }
   }